@@ -18,6 +18,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.AggregateFunction;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorSession;
@@ -42,15 +43,20 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.prestosql.plugin.jdbc.JdbcErrorCode.JDBC_ERROR;
 import static io.prestosql.plugin.jdbc.StandardColumnMappings.bigintWriteFunction;
@@ -90,6 +96,11 @@ public class BaseJdbcClient
 {
     private static final Logger log = Logger.get(BaseJdbcClient.class);
 
+    private static final JdbcTypeHandle BIGINT_TYPE_HANDLE = new JdbcTypeHandle(Types.BIGINT, "bigint", 8, 0);
+    private static final Set<Type> GROUPING_TYPES = ImmutableSet.of(BOOLEAN, BIGINT, INTEGER, SMALLINT, TINYINT, DATE);
+    private static final Set<Type> MIN_MAX_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT, DOUBLE, REAL, DATE);
+    private static final Set<Type> SUM_TYPES = ImmutableSet.of(BIGINT, DOUBLE);
+
     private static final Map<Type, WriteMapping> WRITE_MAPPINGS = ImmutableMap.<Type, WriteMapping>builder()
             .put(BOOLEAN, WriteMapping.booleanMapping("boolean", booleanWriteFunction()))
             .put(BIGINT, WriteMapping.longMapping("bigint", bigintWriteFunction()))
@@ -245,7 +256,9 @@ public class BaseJdbcClient
                 tableHandle.getSchemaName(),
                 tableHandle.getTableName(),
                 layoutHandle.getTupleDomain(),
-                Optional.empty());
+                Optional.empty(),
+                layoutHandle.getLimit(),
+                layoutHandle.getGroupingColumns());
         return new FixedSplitSource(ImmutableList.of(jdbcSplit));
     }
 
@@ -277,7 +290,92 @@ public class BaseJdbcClient
                 split.getTableName(),
                 columnHandles,
                 split.getTupleDomain(),
-                split.getAdditionalPredicate());
+                split.getAdditionalPredicate(),
+                split.getGroupingColumns(),
+                tryApplyLimit(split.getLimit()));
+    }
+
+    protected Function<String, String> tryApplyLimit(OptionalLong limit)
+    {
+        if (!limit.isPresent()) {
+            return Function.identity();
+        }
+        return limitFunction()
+                .map(limitFunction -> (Function<String, String>) sql -> limitFunction.apply(sql, limit.getAsLong()))
+                .orElseGet(Function::identity);
+    }
+
+    @Override
+    public boolean supportsLimit()
+    {
+        return limitFunction().isPresent();
+    }
+
+    /**
+     * Returns a function which wraps the given query so that it returns at most the given number of rows,
+     * or {@link Optional#empty()} if the remote database does not support it.
+     */
+    protected Optional<BiFunction<String, Long, String>> limitFunction()
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns whether the query wrapped by {@link #limitFunction()} is guaranteed to return at most
+     * the given number of rows, so that the engine can remove the limit from the plan.
+     */
+    @Override
+    public boolean isLimitGuaranteed()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean supportsGroupingColumn(JdbcColumnHandle column)
+    {
+        // textual and floating point values may be grouped differently by the remote database,
+        // due to collations, and NaN or negative zero handling
+        return GROUPING_TYPES.contains(column.getColumnType());
+    }
+
+    @Override
+    public Optional<JdbcColumnHandle> implementAggregation(AggregateFunction aggregate, String columnName)
+    {
+        List<JdbcColumnHandle> inputs = aggregate.getInputs().stream()
+                .map(JdbcColumnHandle.class::cast)
+                .collect(toImmutableList());
+
+        JdbcTypeHandle typeHandle;
+        switch (aggregate.getFunctionName()) {
+            case "count":
+                if (!aggregate.getOutputType().equals(BIGINT)) {
+                    return Optional.empty();
+                }
+                typeHandle = BIGINT_TYPE_HANDLE;
+                break;
+            case "min":
+            case "max":
+                if (inputs.size() != 1 || !MIN_MAX_TYPES.contains(inputs.get(0).getColumnType()) || !aggregate.getOutputType().equals(inputs.get(0).getColumnType())) {
+                    return Optional.empty();
+                }
+                typeHandle = inputs.get(0).getJdbcTypeHandle();
+                break;
+            case "sum":
+                // Presto widens the sum of smaller integers and of real values, which not every remote database does
+                if (inputs.size() != 1 || !SUM_TYPES.contains(inputs.get(0).getColumnType()) || !aggregate.getOutputType().equals(inputs.get(0).getColumnType())) {
+                    return Optional.empty();
+                }
+                typeHandle = inputs.get(0).getJdbcTypeHandle();
+                break;
+            default:
+                return Optional.empty();
+        }
+
+        Optional<String> expression = new QueryBuilder(identifierQuote).toAggregateExpression(aggregate.getFunctionName(), inputs);
+        if (!expression.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(new JdbcColumnHandle(connectorId, columnName, typeHandle, aggregate.getOutputType(), expression));
     }
 
     @Override
@@ -13,6 +13,7 @@
  */
 package io.prestosql.plugin.jdbc;
 
+import io.prestosql.spi.connector.AggregateFunction;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.ConnectorSplitSource;
@@ -65,6 +66,18 @@ public interface JdbcClient
     PreparedStatement buildSql(ConnectorSession session, Connection connection, JdbcSplit split, List<JdbcColumnHandle> columnHandles)
             throws SQLException;
 
+    boolean supportsLimit();
+
+    boolean isLimitGuaranteed();
+
+    boolean supportsGroupingColumn(JdbcColumnHandle column);
+
+    /**
+     * Returns a column computing the aggregate over the rows of the remote query,
+     * or empty if the aggregate cannot be computed by the remote database.
+     */
+    Optional<JdbcColumnHandle> implementAggregation(AggregateFunction aggregate, String columnName);
+
     JdbcOutputTableHandle beginCreateTable(ConnectorTableMetadata tableMetadata);
 
     void commitCreateTable(JdbcOutputTableHandle handle);
@@ -20,6 +20,7 @@ import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.type.Type;
 
 import java.util.Objects;
+import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
@@ -31,18 +32,26 @@ public final class JdbcColumnHandle
     private final String columnName;
     private final JdbcTypeHandle jdbcTypeHandle;
     private final Type columnType;
+    private final Optional<String> expression;
+
+    public JdbcColumnHandle(String connectorId, String columnName, JdbcTypeHandle jdbcTypeHandle, Type columnType)
+    {
+        this(connectorId, columnName, jdbcTypeHandle, columnType, Optional.empty());
+    }
 
     @JsonCreator
     public JdbcColumnHandle(
             @JsonProperty("connectorId") String connectorId,
             @JsonProperty("columnName") String columnName,
             @JsonProperty("jdbcTypeHandle") JdbcTypeHandle jdbcTypeHandle,
-            @JsonProperty("columnType") Type columnType)
+            @JsonProperty("columnType") Type columnType,
+            @JsonProperty("expression") Optional<String> expression)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null");
         this.columnName = requireNonNull(columnName, "columnName is null");
         this.jdbcTypeHandle = requireNonNull(jdbcTypeHandle, "jdbcTypeHandle is null");
         this.columnType = requireNonNull(columnType, "columnType is null");
+        this.expression = requireNonNull(expression, "expression is null");
     }
 
     @JsonProperty
@@ -69,6 +78,16 @@ public final class JdbcColumnHandle
         return columnType;
     }
 
+    /**
+     * Returns the SQL expression which computes the column, such as an aggregate of a pushed down
+     * aggregation, or empty if the column is a column of the remote table.
+     */
+    @JsonProperty
+    public Optional<String> getExpression()
+    {
+        return expression;
+    }
+
     public ColumnMetadata getColumnMetadata()
     {
         return new ColumnMetadata(columnName, columnType);
@@ -85,13 +104,14 @@ public final class JdbcColumnHandle
         }
         JdbcColumnHandle o = (JdbcColumnHandle) obj;
         return Objects.equals(this.connectorId, o.connectorId) &&
-                Objects.equals(this.columnName, o.columnName);
+                Objects.equals(this.columnName, o.columnName) &&
+                Objects.equals(this.expression, o.expression);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(connectorId, columnName);
+        return Objects.hash(connectorId, columnName, expression);
     }
 
     @Override
@@ -102,6 +122,8 @@ public final class JdbcColumnHandle
                 .add("columnName", columnName)
                 .add("jdbcTypeHandle", jdbcTypeHandle)
                 .add("columnType", columnType)
+                .add("expression", expression.orElse(null))
+                .omitNullValues()
                 .toString();
     }
 }
@@ -17,6 +17,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorInsertTableHandle;
@@ -31,6 +33,7 @@ import io.prestosql.spi.connector.ConnectorTableLayoutHandle;
 import io.prestosql.spi.connector.ConnectorTableLayoutResult;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.LimitApplicationResult;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.SchemaTablePrefix;
 import io.prestosql.spi.connector.TableNotFoundException;
@@ -41,16 +44,20 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.prestosql.spi.StandardErrorCode.PERMISSION_DENIED;
 import static java.util.Objects.requireNonNull;
 
 public class JdbcMetadata
         implements ConnectorMetadata
 {
+    private static final String AGGREGATE_COLUMN_NAME_PREFIX = "_presto_aggregate_";
+
     private final JdbcClient jdbcClient;
     private final boolean allowDropTable;
 
@@ -84,7 +91,7 @@ public class JdbcMetadata
     public List<ConnectorTableLayoutResult> getTableLayouts(ConnectorSession session, ConnectorTableHandle table, Constraint<ColumnHandle> constraint, Optional<Set<ColumnHandle>> desiredColumns)
     {
         JdbcTableHandle tableHandle = (JdbcTableHandle) table;
-        ConnectorTableLayout layout = new ConnectorTableLayout(new JdbcTableLayoutHandle(tableHandle, constraint.getSummary()));
+        ConnectorTableLayout layout = new ConnectorTableLayout(new JdbcTableLayoutHandle(tableHandle, constraint.getSummary(), OptionalLong.empty()));
         return ImmutableList.of(new ConnectorTableLayoutResult(layout, constraint.getSummary()));
     }
 
@@ -94,6 +101,53 @@ public class JdbcMetadata
         return new ConnectorTableLayout(handle);
     }
 
+    @Override
+    public Optional<LimitApplicationResult<ConnectorTableLayoutHandle>> applyLimit(ConnectorSession session, ConnectorTableLayoutHandle tableLayoutHandle, long limit)
+    {
+        JdbcTableLayoutHandle layoutHandle = (JdbcTableLayoutHandle) tableLayoutHandle;
+
+        if (!jdbcClient.supportsLimit()) {
+            return Optional.empty();
+        }
+
+        if (layoutHandle.getLimit().isPresent() && layoutHandle.getLimit().getAsLong() <= limit) {
+            return Optional.empty();
+        }
+
+        layoutHandle = new JdbcTableLayoutHandle(layoutHandle.getTable(), layoutHandle.getTupleDomain(), OptionalLong.of(limit));
+        return Optional.of(new LimitApplicationResult<>(layoutHandle, jdbcClient.isLimitGuaranteed()));
+    }
+
+    @Override
+    public Optional<AggregationApplicationResult<ConnectorTableLayoutHandle>> applyAggregation(ConnectorSession session, ConnectorTableLayoutHandle tableLayoutHandle, List<AggregateFunction> aggregates, List<ColumnHandle> groupingColumns)
+    {
+        JdbcTableLayoutHandle layoutHandle = (JdbcTableLayoutHandle) tableLayoutHandle;
+
+        // the remote query filters on the selected columns only, so a constraint could not be applied to aggregated rows
+        if (layoutHandle.getGroupingColumns().isPresent() || layoutHandle.getLimit().isPresent() || !layoutHandle.getTupleDomain().isAll()) {
+            return Optional.empty();
+        }
+
+        List<JdbcColumnHandle> groupingColumnHandles = groupingColumns.stream()
+                .map(JdbcColumnHandle.class::cast)
+                .collect(toImmutableList());
+        if (!groupingColumnHandles.stream().allMatch(jdbcClient::supportsGroupingColumn)) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<ColumnHandle> aggregateColumns = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            Optional<JdbcColumnHandle> aggregateColumn = jdbcClient.implementAggregation(aggregates.get(i), AGGREGATE_COLUMN_NAME_PREFIX + i);
+            if (!aggregateColumn.isPresent()) {
+                return Optional.empty();
+            }
+            aggregateColumns.add(aggregateColumn.get());
+        }
+
+        layoutHandle = new JdbcTableLayoutHandle(layoutHandle.getTable(), layoutHandle.getTupleDomain(), layoutHandle.getLimit(), Optional.of(groupingColumnHandles));
+        return Optional.of(new AggregationApplicationResult<>(layoutHandle, aggregateColumns.build()));
+    }
+
     @Override
     public ConnectorTableMetadata getTableMetadata(ConnectorSession session, ConnectorTableHandle table)
     {
@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static java.util.Objects.requireNonNull;
 
@@ -37,6 +38,20 @@ public class JdbcSplit
     private final String tableName;
     private final TupleDomain<ColumnHandle> tupleDomain;
     private final Optional<String> additionalPredicate;
+    private final OptionalLong limit;
+    private final Optional<List<JdbcColumnHandle>> groupingColumns;
+
+    public JdbcSplit(
+            String connectorId,
+            @Nullable String catalogName,
+            @Nullable String schemaName,
+            String tableName,
+            TupleDomain<ColumnHandle> tupleDomain,
+            Optional<String> additionalPredicate,
+            OptionalLong limit)
+    {
+        this(connectorId, catalogName, schemaName, tableName, tupleDomain, additionalPredicate, limit, Optional.empty());
+    }
 
     @JsonCreator
     public JdbcSplit(
@@ -45,7 +60,9 @@ public class JdbcSplit
             @JsonProperty("schemaName") @Nullable String schemaName,
             @JsonProperty("tableName") String tableName,
             @JsonProperty("tupleDomain") TupleDomain<ColumnHandle> tupleDomain,
-            @JsonProperty("additionalPredicate") Optional<String> additionalPredicate)
+            @JsonProperty("additionalPredicate") Optional<String> additionalPredicate,
+            @JsonProperty("limit") OptionalLong limit,
+            @JsonProperty("groupingColumns") Optional<List<JdbcColumnHandle>> groupingColumns)
     {
         this.connectorId = requireNonNull(connectorId, "connector id is null");
         this.catalogName = catalogName;
@@ -53,6 +70,8 @@ public class JdbcSplit
         this.tableName = requireNonNull(tableName, "table name is null");
         this.tupleDomain = requireNonNull(tupleDomain, "tupleDomain is null");
         this.additionalPredicate = requireNonNull(additionalPredicate, "additionalPredicate is null");
+        this.limit = requireNonNull(limit, "limit is null");
+        this.groupingColumns = requireNonNull(groupingColumns, "groupingColumns is null").map(ImmutableList::copyOf);
     }
 
     @JsonProperty
@@ -93,6 +112,18 @@ public class JdbcSplit
         return additionalPredicate;
     }
 
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
+    @JsonProperty
+    public Optional<List<JdbcColumnHandle>> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
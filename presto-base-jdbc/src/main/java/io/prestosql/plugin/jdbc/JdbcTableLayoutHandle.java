@@ -15,11 +15,15 @@ package io.prestosql.plugin.jdbc;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorTableLayoutHandle;
 import io.prestosql.spi.predicate.TupleDomain;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 import static java.util.Objects.requireNonNull;
 
@@ -28,14 +32,25 @@ public class JdbcTableLayoutHandle
 {
     private final JdbcTableHandle table;
     private final TupleDomain<ColumnHandle> tupleDomain;
+    private final OptionalLong limit;
+    private final Optional<List<JdbcColumnHandle>> groupingColumns;
+
+    public JdbcTableLayoutHandle(JdbcTableHandle table, TupleDomain<ColumnHandle> domain, OptionalLong limit)
+    {
+        this(table, domain, limit, Optional.empty());
+    }
 
     @JsonCreator
     public JdbcTableLayoutHandle(
             @JsonProperty("table") JdbcTableHandle table,
-            @JsonProperty("tupleDomain") TupleDomain<ColumnHandle> domain)
+            @JsonProperty("tupleDomain") TupleDomain<ColumnHandle> domain,
+            @JsonProperty("limit") OptionalLong limit,
+            @JsonProperty("groupingColumns") Optional<List<JdbcColumnHandle>> groupingColumns)
     {
         this.table = requireNonNull(table, "table is null");
         this.tupleDomain = requireNonNull(domain, "tupleDomain is null");
+        this.limit = requireNonNull(limit, "limit is null");
+        this.groupingColumns = requireNonNull(groupingColumns, "groupingColumns is null").map(ImmutableList::copyOf);
     }
 
     @JsonProperty
@@ -50,6 +65,22 @@ public class JdbcTableLayoutHandle
         return tupleDomain;
     }
 
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * Returns the columns the rows are grouped by when the layout is aggregated. The list is
+     * empty for a global aggregation.
+     */
+    @JsonProperty
+    public Optional<List<JdbcColumnHandle>> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -61,18 +92,24 @@ public class JdbcTableLayoutHandle
         }
         JdbcTableLayoutHandle that = (JdbcTableLayoutHandle) o;
         return Objects.equals(table, that.table) &&
-                Objects.equals(tupleDomain, that.tupleDomain);
+                Objects.equals(tupleDomain, that.tupleDomain) &&
+                Objects.equals(limit, that.limit) &&
+                Objects.equals(groupingColumns, that.groupingColumns);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(table, tupleDomain);
+        return Objects.hash(table, tupleDomain, limit, groupingColumns);
     }
 
     @Override
     public String toString()
     {
-        return table.toString();
+        StringBuilder builder = new StringBuilder();
+        builder.append(table);
+        limit.ifPresent(value -> builder.append(" limit=").append(value));
+        groupingColumns.ifPresent(columns -> builder.append(" groupingColumns=").append(columns));
+        return builder.toString();
     }
 }
@@ -16,6 +16,7 @@ package io.prestosql.plugin.jdbc;
 import com.google.common.base.Joiner;
 import com.google.common.base.VerifyException;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slice;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorSession;
@@ -30,6 +31,8 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -46,6 +49,8 @@ public class QueryBuilder
     private static final String ALWAYS_TRUE = "1=1";
     private static final String ALWAYS_FALSE = "1=0";
 
+    private static final Set<String> AGGREGATE_FUNCTIONS = ImmutableSet.of("count", "min", "max", "sum");
+
     private final String quote;
 
     private static class TypeAndValue
@@ -91,14 +96,15 @@ public class QueryBuilder
             String table,
             List<JdbcColumnHandle> columns,
             TupleDomain<ColumnHandle> tupleDomain,
-            Optional<String> additionalPredicate)
+            Optional<String> additionalPredicate,
+            Optional<List<JdbcColumnHandle>> groupingColumns,
+            Function<String, String> sqlFunction)
             throws SQLException
     {
         StringBuilder sql = new StringBuilder();
 
         String columnNames = columns.stream()
-                .map(JdbcColumnHandle::getColumnName)
-                .map(this::quote)
+                .map(this::toSelectExpression)
                 .collect(joining(", "));
 
         sql.append("SELECT ");
@@ -130,7 +136,16 @@ public class QueryBuilder
                     .append(Joiner.on(" AND ").join(clauses));
         }
 
-        PreparedStatement statement = client.getPreparedStatement(connection, sql.toString());
+        if (groupingColumns.isPresent() && !groupingColumns.get().isEmpty()) {
+            sql.append(" GROUP BY ")
+                    .append(groupingColumns.get().stream()
+                            .map(JdbcColumnHandle::getColumnName)
+                            .map(this::quote)
+                            .collect(joining(", ")));
+        }
+
+        String query = sqlFunction.apply(sql.toString());
+        PreparedStatement statement = client.getPreparedStatement(connection, query);
 
         for (int i = 0; i < accumulator.size(); i++) {
             TypeAndValue typeAndValue = accumulator.get(i);
@@ -161,6 +176,28 @@ public class QueryBuilder
         return statement;
     }
 
+    private String toSelectExpression(JdbcColumnHandle column)
+    {
+        return column.getExpression()
+                .map(expression -> expression + " AS " + quote(column.getColumnName()))
+                .orElseGet(() -> quote(column.getColumnName()));
+    }
+
+    /**
+     * Returns the SQL expression of the aggregate function, or empty if the function is not
+     * a standard SQL aggregate function.
+     */
+    public Optional<String> toAggregateExpression(String functionName, List<JdbcColumnHandle> inputs)
+    {
+        if (functionName.equals("count") && inputs.isEmpty()) {
+            return Optional.of("count(*)");
+        }
+        if (!AGGREGATE_FUNCTIONS.contains(functionName) || inputs.size() != 1) {
+            return Optional.empty();
+        }
+        return Optional.of(format("%s(%s)", functionName, quote(getOnlyElement(inputs).getColumnName())));
+    }
+
     private static Domain pushDownDomain(JdbcClient client, ConnectorSession session, JdbcColumnHandle column, Domain domain)
     {
         return client.toPrestoType(session, column.getJdbcTypeHandle())
@@ -14,9 +14,11 @@
 package io.prestosql.plugin.jdbc;
 
 import io.prestosql.tests.AbstractTestIntegrationSmokeTest;
+import org.testng.annotations.Test;
 
 import static io.airlift.tpch.TpchTable.ORDERS;
 import static io.prestosql.plugin.jdbc.JdbcQueryRunner.createJdbcQueryRunner;
+import static org.testng.Assert.assertEquals;
 
 public class TestJdbcIntegrationSmokeTest
         extends AbstractTestIntegrationSmokeTest
@@ -25,4 +27,14 @@ public class TestJdbcIntegrationSmokeTest
     {
         super(() -> createJdbcQueryRunner(ORDERS));
     }
+
+    @Test
+    public void testLimitPushdown()
+    {
+        assertEquals(computeActual("SELECT * FROM orders LIMIT 10").getRowCount(), 10);
+        assertEquals(computeActual("SELECT orderkey FROM orders WHERE orderstatus = 'F' LIMIT 7").getRowCount(), 7);
+        assertEquals(computeActual("SELECT * FROM (SELECT * FROM orders LIMIT 100) LIMIT 5").getRowCount(), 5);
+        assertEquals(computeScalar("SELECT count(*) FROM (SELECT * FROM orders LIMIT 10)"), 10L);
+        assertEquals(computeScalar("SELECT count(*) FROM (SELECT * FROM orders LIMIT 100000)"), computeScalar("SELECT count(*) FROM orders"));
+    }
 }
@@ -16,6 +16,7 @@ package io.prestosql.plugin.jdbc;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import io.prestosql.spi.connector.AggregateFunction;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.Range;
@@ -37,7 +38,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.testing.Assertions.assertContains;
@@ -198,7 +201,7 @@ public class TestJdbcQueryBuilder
                 .build());
 
         Connection connection = database.getConnection();
-        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty());
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty(), Optional.empty(), Function.identity());
                 ResultSet resultSet = preparedStatement.executeQuery()) {
             ImmutableSet.Builder<Long> builder = ImmutableSet.builder();
             while (resultSet.next()) {
@@ -221,7 +224,7 @@ public class TestJdbcQueryBuilder
                         false)));
 
         Connection connection = database.getConnection();
-        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty());
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty(), Optional.empty(), Function.identity());
                 ResultSet resultSet = preparedStatement.executeQuery()) {
             ImmutableSet.Builder<Long> longBuilder = ImmutableSet.builder();
             ImmutableSet.Builder<Float> floatBuilder = ImmutableSet.builder();
@@ -234,6 +237,60 @@ public class TestJdbcQueryBuilder
         }
     }
 
+    @Test
+    public void testBuildSqlWithLimit()
+            throws SQLException
+    {
+        Connection connection = database.getConnection();
+        Function<String, String> function = sql -> sql + " LIMIT 10";
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, TupleDomain.all(), Optional.empty(), Optional.empty(), function);
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            long count = 0;
+            while (resultSet.next()) {
+                count++;
+            }
+            assertEquals(count, 10);
+        }
+    }
+
+    @Test
+    public void testBuildSqlWithGroupBy()
+            throws SQLException
+    {
+        JdbcColumnHandle groupingColumn = columns.get(7);
+        JdbcColumnHandle count = jdbcClient.implementAggregation(new AggregateFunction("count", ImmutableList.of(), BIGINT), "count").get();
+        JdbcColumnHandle max = jdbcClient.implementAggregation(new AggregateFunction("max", ImmutableList.of(columns.get(0)), BIGINT), "max").get();
+        assertEquals(count.getExpression(), Optional.of("count(*)"));
+        assertEquals(max.getExpression(), Optional.of("max(\"col_0\")"));
+        assertEquals(jdbcClient.supportsGroupingColumn(groupingColumn), true);
+
+        Connection connection = database.getConnection();
+        ImmutableMap.Builder<Long, Long> counts = ImmutableMap.builder();
+        ImmutableMap.Builder<Long, Long> maximums = ImmutableMap.builder();
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", ImmutableList.of(groupingColumn, count, max), TupleDomain.all(), Optional.empty(), Optional.of(ImmutableList.of(groupingColumn)), Function.identity());
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getLong("col_7"), resultSet.getLong("count"));
+                maximums.put(resultSet.getLong("col_7"), resultSet.getLong("max"));
+            }
+        }
+        Map<Long, Long> countByGroup = counts.build();
+        assertEquals(countByGroup.size(), 128);
+        assertEquals(countByGroup.get(0L), (Long) 8L);
+        assertEquals(countByGroup.get(127L), (Long) 7L);
+        assertEquals(maximums.build().get(0L), (Long) 896L);
+    }
+
+    @Test
+    public void testUnsupportedAggregation()
+    {
+        assertEquals(jdbcClient.implementAggregation(new AggregateFunction("sum", ImmutableList.of(columns.get(7)), BIGINT), "sum"), Optional.empty());
+        assertEquals(jdbcClient.implementAggregation(new AggregateFunction("max", ImmutableList.of(columns.get(3)), VARCHAR), "max"), Optional.empty());
+        assertEquals(jdbcClient.implementAggregation(new AggregateFunction("avg", ImmutableList.of(columns.get(1)), DOUBLE), "avg"), Optional.empty());
+        assertEquals(jdbcClient.supportsGroupingColumn(columns.get(3)), false);
+        assertEquals(jdbcClient.supportsGroupingColumn(columns.get(1)), false);
+    }
+
     @Test
     public void testBuildSqlWithVarchar()
             throws SQLException
@@ -247,7 +304,7 @@ public class TestJdbcQueryBuilder
                         false)));
 
         Connection connection = database.getConnection();
-        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty());
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty(), Optional.empty(), Function.identity());
                 ResultSet resultSet = preparedStatement.executeQuery()) {
             ImmutableSet.Builder<String> builder = ImmutableSet.builder();
             while (resultSet.next()) {
@@ -275,7 +332,7 @@ public class TestJdbcQueryBuilder
                         false)));
 
         Connection connection = database.getConnection();
-        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty());
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty(), Optional.empty(), Function.identity());
                 ResultSet resultSet = preparedStatement.executeQuery()) {
             ImmutableSet.Builder<String> builder = ImmutableSet.builder();
             while (resultSet.next()) {
@@ -308,7 +365,7 @@ public class TestJdbcQueryBuilder
                         false)));
 
         Connection connection = database.getConnection();
-        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty());
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty(), Optional.empty(), Function.identity());
                 ResultSet resultSet = preparedStatement.executeQuery()) {
             ImmutableSet.Builder<Date> dateBuilder = ImmutableSet.builder();
             ImmutableSet.Builder<Time> timeBuilder = ImmutableSet.builder();
@@ -341,7 +398,7 @@ public class TestJdbcQueryBuilder
                         false)));
 
         Connection connection = database.getConnection();
-        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty());
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty(), Optional.empty(), Function.identity());
                 ResultSet resultSet = preparedStatement.executeQuery()) {
             ImmutableSet.Builder<Timestamp> builder = ImmutableSet.builder();
             while (resultSet.next()) {
@@ -368,7 +425,7 @@ public class TestJdbcQueryBuilder
                 columns.get(1), Domain.onlyNull(DOUBLE)));
 
         Connection connection = database.getConnection();
-        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty());
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, "", "", "test_table", columns, tupleDomain, Optional.empty(), Optional.empty(), Function.identity());
                 ResultSet resultSet = preparedStatement.executeQuery()) {
             assertEquals(resultSet.next(), false);
         }
@@ -19,13 +19,14 @@ import io.prestosql.spi.predicate.TupleDomain;
 import org.testng.annotations.Test;
 
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static io.airlift.json.JsonCodec.jsonCodec;
 import static org.testng.Assert.assertEquals;
 
 public class TestJdbcSplit
 {
-    private final JdbcSplit split = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", TupleDomain.all(), Optional.of("additional predicate"));
+    private final JdbcSplit split = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", TupleDomain.all(), Optional.of("additional predicate"), OptionalLong.of(10));
 
     @Test
     public void testAddresses()
@@ -34,7 +35,7 @@ public class TestJdbcSplit
         assertEquals(split.getAddresses(), ImmutableList.of());
         assertEquals(split.isRemotelyAccessible(), true);
 
-        JdbcSplit jdbcSplit = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", TupleDomain.all(), Optional.empty());
+        JdbcSplit jdbcSplit = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", TupleDomain.all(), Optional.empty(), OptionalLong.empty());
         assertEquals(jdbcSplit.getAddresses(), ImmutableList.of());
     }
 
@@ -50,6 +51,7 @@ public class TestJdbcSplit
         assertEquals(copy.getTableName(), split.getTableName());
         assertEquals(copy.getTupleDomain(), split.getTupleDomain());
         assertEquals(copy.getAdditionalPredicate(), split.getAdditionalPredicate());
+        assertEquals(copy.getLimit(), split.getLimit());
 
         assertEquals(copy.getAddresses(), ImmutableList.of());
         assertEquals(copy.isRemotelyAccessible(), true);
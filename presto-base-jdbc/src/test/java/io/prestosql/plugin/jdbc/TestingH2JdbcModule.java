@@ -20,6 +20,8 @@ import com.google.inject.Provides;
 import org.h2.Driver;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
 
 import static io.airlift.configuration.ConfigBinder.configBinder;
 import static java.lang.String.format;
@@ -36,7 +38,20 @@ class TestingH2JdbcModule
     @Provides
     public JdbcClient provideJdbcClient(JdbcConnectorId id, BaseJdbcConfig config)
     {
-        return new BaseJdbcClient(id, config, "\"", new DriverConnectionFactory(new Driver(), config));
+        return new BaseJdbcClient(id, config, "\"", new DriverConnectionFactory(new Driver(), config))
+        {
+            @Override
+            protected Optional<BiFunction<String, Long, String>> limitFunction()
+            {
+                return Optional.of((sql, limit) -> sql + " LIMIT " + limit);
+            }
+
+            @Override
+            public boolean isLimitGuaranteed()
+            {
+                return true;
+            }
+        };
     }
 
     public static Map<String, String> createProperties()
@@ -15,5 +15,7 @@ package io.prestosql.client;
 
 public enum ClientCapabilities
 {
-    PATH;
+    PATH,
+    // the client decodes query results sent in the format of ColumnarData
+    COLUMNAR_DATA;
 }
@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.client;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.compress.lz4.Lz4Decompressor;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.client.ClientStandardTypes.BIGINT;
+import static io.prestosql.client.ClientStandardTypes.BOOLEAN;
+import static io.prestosql.client.ClientStandardTypes.DATE;
+import static io.prestosql.client.ClientStandardTypes.DOUBLE;
+import static io.prestosql.client.ClientStandardTypes.INTEGER;
+import static io.prestosql.client.ClientStandardTypes.REAL;
+import static io.prestosql.client.ClientStandardTypes.SMALLINT;
+import static io.prestosql.client.ClientStandardTypes.TINYINT;
+import static io.prestosql.client.ClientStandardTypes.VARBINARY;
+import static io.prestosql.client.ClientStandardTypes.VARCHAR;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Query results sent column by column in a binary format, when the client declares the
+ * {@link ClientCapabilities#COLUMNAR_DATA} capability and all columns are of a supported type.
+ * All numbers are little endian. The data starts with a header, like a serialized page:
+ * <ul>
+ * <li>int: position count</li>
+ * <li>byte: compression of the columns, {@link #UNCOMPRESSED} or {@link #LZ4}</li>
+ * <li>int: size of the uncompressed columns</li>
+ * <li>int: size of the columns as sent</li>
+ * </ul>
+ * Each column then has a byte which is 1 when the column has nulls, followed in that case by one
+ * byte per position which is 1 for null values, and by the values of the positions that are not
+ * null: one byte for boolean and tinyint, two bytes for smallint, four bytes for integer, real and
+ * date (days since the epoch), eight bytes for bigint and double, and for varchar and varbinary the
+ * lengths of all values as ints followed by their bytes.
+ */
+public final class ColumnarData
+{
+    public static final byte UNCOMPRESSED = 0;
+    public static final byte LZ4 = 1;
+
+    public static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private static final Set<String> SUPPORTED_TYPES = ImmutableSet.of(BOOLEAN, TINYINT, SMALLINT, INTEGER, BIGINT, REAL, DOUBLE, DATE, VARCHAR, VARBINARY);
+
+    private ColumnarData() {}
+
+    public static boolean isSupportedType(ClientTypeSignature signature)
+    {
+        return SUPPORTED_TYPES.contains(signature.getRawType());
+    }
+
+    /**
+     * Decodes the rows, with the same value types as rows sent as JSON.
+     */
+    static Iterable<List<Object>> decode(List<Column> columns, byte[] data)
+    {
+        requireNonNull(columns, "columns is null");
+        requireNonNull(data, "data is null");
+
+        ByteBuffer header = ByteBuffer.wrap(data).order(LITTLE_ENDIAN);
+        int positionCount = header.getInt();
+        byte compression = header.get();
+        int uncompressedSize = header.getInt();
+        int size = header.getInt();
+        checkArgument(size == data.length - HEADER_SIZE, "Columnar data size is %s, but %s bytes were received", size, data.length - HEADER_SIZE);
+
+        ByteBuffer input;
+        if (compression == LZ4) {
+            byte[] uncompressed = new byte[uncompressedSize];
+            int actualSize = new Lz4Decompressor().decompress(data, HEADER_SIZE, size, uncompressed, 0, uncompressedSize);
+            checkArgument(actualSize == uncompressedSize, "Columnar data decompressed to %s bytes, expected %s", actualSize, uncompressedSize);
+            input = ByteBuffer.wrap(uncompressed).order(LITTLE_ENDIAN);
+        }
+        else {
+            checkArgument(compression == UNCOMPRESSED, "Unknown columnar data compression: %s", compression);
+            input = ByteBuffer.wrap(data, HEADER_SIZE, size).slice().order(LITTLE_ENDIAN);
+        }
+
+        List<Object[]> values = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            values.add(readColumn(input, column.getTypeSignature().getRawType(), positionCount));
+        }
+        checkArgument(!input.hasRemaining(), "Columnar data has %s trailing bytes", input.remaining());
+
+        ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+        for (int position = 0; position < positionCount; position++) {
+            List<Object> row = new ArrayList<>(columns.size());
+            for (Object[] column : values) {
+                row.add(column[position]);
+            }
+            rows.add(unmodifiableList(row)); // allow nulls in list
+        }
+        return rows.build();
+    }
+
+    private static Object[] readColumn(ByteBuffer input, String type, int positionCount)
+    {
+        boolean[] isNull = new boolean[positionCount];
+        int nonNullCount = positionCount;
+        if (input.get() != 0) {
+            for (int position = 0; position < positionCount; position++) {
+                isNull[position] = input.get() != 0;
+                if (isNull[position]) {
+                    nonNullCount--;
+                }
+            }
+        }
+
+        int[] lengths = null;
+        if (type.equals(VARCHAR) || type.equals(VARBINARY)) {
+            lengths = new int[nonNullCount];
+            for (int i = 0; i < nonNullCount; i++) {
+                lengths[i] = input.getInt();
+            }
+        }
+
+        Object[] values = new Object[positionCount];
+        int valueIndex = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (isNull[position]) {
+                continue;
+            }
+            switch (type) {
+                case BOOLEAN:
+                    values[position] = input.get() != 0;
+                    break;
+                case TINYINT:
+                    values[position] = input.get();
+                    break;
+                case SMALLINT:
+                    values[position] = input.getShort();
+                    break;
+                case INTEGER:
+                    values[position] = input.getInt();
+                    break;
+                case BIGINT:
+                    values[position] = input.getLong();
+                    break;
+                case REAL:
+                    values[position] = input.getFloat();
+                    break;
+                case DOUBLE:
+                    values[position] = input.getDouble();
+                    break;
+                case DATE:
+                    values[position] = LocalDate.ofEpochDay(input.getInt()).toString();
+                    break;
+                case VARCHAR:
+                    values[position] = new String(readBytes(input, lengths[valueIndex]), UTF_8);
+                    break;
+                case VARBINARY:
+                    values[position] = readBytes(input, lengths[valueIndex]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported type for columnar data: " + type);
+            }
+            valueIndex++;
+        }
+        return values;
+    }
+
+    private static byte[] readBytes(ByteBuffer input, int length)
+    {
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return bytes;
+    }
+}
@@ -68,7 +68,7 @@ final class FixJsonDataUtils
         ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
         for (List<Object> row : data) {
             checkArgument(row.size() == columns.size(), "row/column size mismatch");
-            List<Object> newRow = new ArrayList<>();
+            List<Object> newRow = new ArrayList<>(row.size());
             for (int i = 0; i < row.size(); i++) {
                 newRow.add(fixValue(signatures.get(i), row.get(i)));
             }
@@ -87,7 +87,7 @@ final class FixJsonDataUtils
         }
 
         if (signature.getRawType().equals(ARRAY)) {
-            List<Object> fixedValue = new ArrayList<>();
+            List<Object> fixedValue = new ArrayList<>(List.class.cast(value).size());
             for (Object object : List.class.cast(value)) {
                 fixedValue.add(fixValue(signature.getArgumentsAsTypeSignatures().get(0), object));
             }
@@ -30,6 +30,7 @@ import java.io.UncheckedIOException;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.net.HttpHeaders.LOCATION;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 public final class JsonResponse<T>
@@ -37,7 +38,8 @@ public final class JsonResponse<T>
     private final int statusCode;
     private final String statusMessage;
     private final Headers headers;
-    private final String responseBody;
+    private final byte[] responseBytes;
+    private String responseBody;
     private final boolean hasValue;
     private final T value;
     private final IllegalArgumentException exception;
@@ -48,26 +50,29 @@ public final class JsonResponse<T>
         this.statusMessage = statusMessage;
         this.headers = requireNonNull(headers, "headers is null");
         this.responseBody = requireNonNull(responseBody, "responseBody is null");
+        this.responseBytes = null;
 
         this.hasValue = false;
         this.value = null;
         this.exception = null;
     }
 
-    private JsonResponse(int statusCode, String statusMessage, Headers headers, String responseBody, JsonCodec<T> jsonCodec)
+    private JsonResponse(int statusCode, String statusMessage, Headers headers, byte[] responseBytes, JsonCodec<T> jsonCodec)
     {
         this.statusCode = statusCode;
         this.statusMessage = statusMessage;
         this.headers = requireNonNull(headers, "headers is null");
-        this.responseBody = requireNonNull(responseBody, "responseBody is null");
+        // the body is parsed directly from the raw bytes; decoding large result pages into
+        // a String first doubles the memory footprint and is slower for Jackson to parse
+        this.responseBytes = requireNonNull(responseBytes, "responseBytes is null");
 
         T value = null;
         IllegalArgumentException exception = null;
         try {
-            value = jsonCodec.fromJson(responseBody);
+            value = jsonCodec.fromJson(responseBytes);
         }
         catch (IllegalArgumentException e) {
-            exception = new IllegalArgumentException(format("Unable to create %s from JSON response:\n[%s]", jsonCodec.getType(), responseBody), e);
+            exception = new IllegalArgumentException(format("Unable to create %s from JSON response:\n[%s]", jsonCodec.getType(), getResponseBody()), e);
         }
         this.hasValue = (exception == null);
         this.value = value;
@@ -104,6 +109,9 @@ public final class JsonResponse<T>
 
     public String getResponseBody()
     {
+        if (responseBody == null) {
+            responseBody = new String(responseBytes, UTF_8);
+        }
         return responseBody;
     }
 
@@ -139,11 +147,10 @@ public final class JsonResponse<T>
             }
 
             ResponseBody responseBody = requireNonNull(response.body());
-            String body = responseBody.string();
             if (isJson(responseBody.contentType())) {
-                return new JsonResponse<>(response.code(), response.message(), response.headers(), body, codec);
+                return new JsonResponse<>(response.code(), response.message(), response.headers(), responseBody.bytes(), codec);
             }
-            return new JsonResponse<>(response.code(), response.message(), response.headers(), body);
+            return new JsonResponse<>(response.code(), response.message(), response.headers(), responseBody.string());
         }
         catch (IOException e) {
             // OkHttp throws this after clearing the interrupt status
@@ -27,6 +27,7 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.unmodifiableIterable;
+import static io.prestosql.client.ColumnarData.decode;
 import static io.prestosql.client.FixJsonDataUtils.fixData;
 import static java.util.Objects.requireNonNull;
 
@@ -40,6 +41,7 @@ public class QueryResults
     private final URI nextUri;
     private final List<Column> columns;
     private final Iterable<List<Object>> data;
+    private final byte[] columnarData;
     private final StatementStats stats;
     private final QueryError error;
     private final List<Warning> warnings;
@@ -54,6 +56,7 @@ public class QueryResults
             @JsonProperty("nextUri") URI nextUri,
             @JsonProperty("columns") List<Column> columns,
             @JsonProperty("data") List<List<Object>> data,
+            @JsonProperty("columnarData") byte[] columnarData,
             @JsonProperty("stats") StatementStats stats,
             @JsonProperty("error") QueryError error,
             @JsonProperty("warnings") List<Warning> warnings,
@@ -66,7 +69,8 @@ public class QueryResults
                 partialCancelUri,
                 nextUri,
                 columns,
-                fixData(columns, data),
+                (columnarData != null) ? decode(columns, columnarData) : fixData(columns, data),
+                null,
                 stats,
                 error,
                 firstNonNull(warnings, ImmutableList.of()),
@@ -81,6 +85,7 @@ public class QueryResults
             URI nextUri,
             List<Column> columns,
             Iterable<List<Object>> data,
+            byte[] columnarData,
             StatementStats stats,
             QueryError error,
             List<Warning> warnings,
@@ -93,7 +98,10 @@ public class QueryResults
         this.nextUri = nextUri;
         this.columns = (columns != null) ? ImmutableList.copyOf(columns) : null;
         this.data = (data != null) ? unmodifiableIterable(data) : null;
+        this.columnarData = columnarData;
         checkArgument(data == null || columns != null, "data present without columns");
+        checkArgument(columnarData == null || columns != null, "columnar data present without columns");
+        checkArgument(data == null || columnarData == null, "both data and columnar data present");
         this.stats = requireNonNull(stats, "stats is null");
         this.error = error;
         this.warnings = ImmutableList.copyOf(requireNonNull(warnings, "warnings is null"));
@@ -147,6 +155,17 @@ public class QueryResults
         return data;
     }
 
+    /**
+     * Returns the rows encoded as {@link ColumnarData}. Clients receive them through
+     * {@link #getData()}, as the rows are decoded when the results are read.
+     */
+    @Nullable
+    @JsonProperty
+    public byte[] getColumnarData()
+    {
+        return columnarData;
+    }
+
     @JsonProperty
     @Override
     public StatementStats getStats()
@@ -195,6 +214,7 @@ public class QueryResults
                 .add("nextUri", nextUri)
                 .add("columns", columns)
                 .add("hasData", data != null)
+                .add("hasColumnarData", columnarData != null)
                 .add("stats", stats)
                 .add("error", error)
                 .add("updateType", updateType)
@@ -29,6 +29,7 @@ import io.prestosql.orc.OrcWriteValidation.OrcWriteValidationMode;
 import io.prestosql.plugin.hive.s3.S3FileSystemType;
 import org.joda.time.DateTimeZone;
 
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Max;
@@ -39,7 +40,9 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 @DefunctConfig({
@@ -115,6 +118,7 @@ public class HiveClientConfig
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcMaxReadBlockSize = new DataSize(16, MEGABYTE);
     private boolean orcLazyReadSmallRanges = true;
+    private boolean orcSelectiveReadingEnabled;
     private boolean orcOptimizedWriterEnabled = true;
     private double orcWriterValidationPercentage;
     private OrcWriteValidationMode orcWriterValidationMode = OrcWriteValidationMode.BOTH;
@@ -153,6 +157,21 @@ public class HiveClientConfig
     private boolean isTemporaryStagingDirectoryEnabled = true;
     private String temporaryStagingDirectoryPath = "/tmp/presto-${USER}";
 
+    private boolean fileRangeCacheEnabled;
+    private String fileRangeCacheLocation;
+    private DataSize fileRangeCacheMaxSize = new DataSize(10, GIGABYTE);
+    private DataSize fileRangeCacheBlockSize = new DataSize(1, MEGABYTE);
+
+    private boolean readAheadEnabled;
+    private DataSize maxReadAheadSize = new DataSize(16, MEGABYTE);
+    private int readAheadThreads = 64;
+
+    private boolean footerCacheEnabled;
+    private DataSize footerCacheMaxSize = new DataSize(64, MEGABYTE);
+    private Duration footerCacheTtl = new Duration(1, HOURS);
+
+    private boolean nativeTextReaderEnabled;
+
     public int getMaxInitialSplits()
     {
         return maxInitialSplits;
@@ -775,6 +794,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcSelectiveReadingEnabled()
+    {
+        return orcSelectiveReadingEnabled;
+    }
+
+    @Config("hive.orc.selective-reading.enabled")
+    @ConfigDescription("ORC read the rows matching the predicate before reading the other columns")
+    public HiveClientConfig setOrcSelectiveReadingEnabled(boolean orcSelectiveReadingEnabled)
+    {
+        this.orcSelectiveReadingEnabled = orcSelectiveReadingEnabled;
+        return this;
+    }
+
     public boolean isOrcBloomFiltersEnabled()
     {
         return orcBloomFiltersEnabled;
@@ -1248,4 +1280,163 @@ public class HiveClientConfig
     {
         return temporaryStagingDirectoryPath;
     }
+
+    public boolean isFileRangeCacheEnabled()
+    {
+        return fileRangeCacheEnabled;
+    }
+
+    @Config("hive.file-range-cache.enabled")
+    @ConfigDescription("Cache ranges of ORC and Parquet files read from the file system on local disk")
+    public HiveClientConfig setFileRangeCacheEnabled(boolean fileRangeCacheEnabled)
+    {
+        this.fileRangeCacheEnabled = fileRangeCacheEnabled;
+        return this;
+    }
+
+    public String getFileRangeCacheLocation()
+    {
+        return fileRangeCacheLocation;
+    }
+
+    @Config("hive.file-range-cache.location")
+    @ConfigDescription("Local directory used to store cached file ranges")
+    public HiveClientConfig setFileRangeCacheLocation(String fileRangeCacheLocation)
+    {
+        this.fileRangeCacheLocation = fileRangeCacheLocation;
+        return this;
+    }
+
+    @AssertTrue(message = "hive.file-range-cache.location must be configured when hive.file-range-cache.enabled is set to true")
+    public boolean isFileRangeCacheLocationConfiguredIfEnabled()
+    {
+        return !fileRangeCacheEnabled || fileRangeCacheLocation != null;
+    }
+
+    @NotNull
+    public DataSize getFileRangeCacheMaxSize()
+    {
+        return fileRangeCacheMaxSize;
+    }
+
+    @Config("hive.file-range-cache.max-size")
+    @ConfigDescription("Maximum size of the local file range cache")
+    public HiveClientConfig setFileRangeCacheMaxSize(DataSize fileRangeCacheMaxSize)
+    {
+        this.fileRangeCacheMaxSize = fileRangeCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("4kB")
+    @MaxDataSize("64MB")
+    public DataSize getFileRangeCacheBlockSize()
+    {
+        return fileRangeCacheBlockSize;
+    }
+
+    @Config("hive.file-range-cache.block-size")
+    @ConfigDescription("Files are cached in aligned blocks of this size")
+    public HiveClientConfig setFileRangeCacheBlockSize(DataSize fileRangeCacheBlockSize)
+    {
+        this.fileRangeCacheBlockSize = fileRangeCacheBlockSize;
+        return this;
+    }
+
+    public boolean isReadAheadEnabled()
+    {
+        return readAheadEnabled;
+    }
+
+    @Config("hive.read-ahead.enabled")
+    @ConfigDescription("Read the next stripe or row group of ORC and Parquet files in the background")
+    public HiveClientConfig setReadAheadEnabled(boolean readAheadEnabled)
+    {
+        this.readAheadEnabled = readAheadEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1MB")
+    public DataSize getMaxReadAheadSize()
+    {
+        return maxReadAheadSize;
+    }
+
+    @Config("hive.read-ahead.max-size")
+    @ConfigDescription("Maximum size of the data read ahead for a single file")
+    public HiveClientConfig setMaxReadAheadSize(DataSize maxReadAheadSize)
+    {
+        this.maxReadAheadSize = maxReadAheadSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getReadAheadThreads()
+    {
+        return readAheadThreads;
+    }
+
+    @Config("hive.read-ahead.threads")
+    @ConfigDescription("Number of threads reading data ahead of the readers")
+    public HiveClientConfig setReadAheadThreads(int readAheadThreads)
+    {
+        this.readAheadThreads = readAheadThreads;
+        return this;
+    }
+
+    public boolean isFooterCacheEnabled()
+    {
+        return footerCacheEnabled;
+    }
+
+    @Config("hive.footer-cache.enabled")
+    @ConfigDescription("Cache the parsed footers of ORC and Parquet files in memory")
+    public HiveClientConfig setFooterCacheEnabled(boolean footerCacheEnabled)
+    {
+        this.footerCacheEnabled = footerCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFooterCacheMaxSize()
+    {
+        return footerCacheMaxSize;
+    }
+
+    @Config("hive.footer-cache.max-size")
+    @ConfigDescription("Maximum serialized size of the cached file footers")
+    public HiveClientConfig setFooterCacheMaxSize(DataSize footerCacheMaxSize)
+    {
+        this.footerCacheMaxSize = footerCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0ms")
+    public Duration getFooterCacheTtl()
+    {
+        return footerCacheTtl;
+    }
+
+    @Config("hive.footer-cache.ttl")
+    @ConfigDescription("Time after which a cached file footer is read again")
+    public HiveClientConfig setFooterCacheTtl(Duration footerCacheTtl)
+    {
+        this.footerCacheTtl = footerCacheTtl;
+        return this;
+    }
+
+    public boolean isNativeTextReaderEnabled()
+    {
+        return nativeTextReaderEnabled;
+    }
+
+    @Config("hive.native-text-reader.enabled")
+    @ConfigDescription("Read text and JSON files with the native columnar reader instead of the Hive SerDe")
+    public HiveClientConfig setNativeTextReaderEnabled(boolean nativeTextReaderEnabled)
+    {
+        this.nativeTextReaderEnabled = nativeTextReaderEnabled;
+        return this;
+    }
 }
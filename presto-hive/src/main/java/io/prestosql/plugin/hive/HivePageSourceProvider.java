@@ -23,8 +23,11 @@ import io.prestosql.spi.connector.ConnectorPageSourceProvider;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.ConnectorSplit;
 import io.prestosql.spi.connector.ConnectorTransactionHandle;
+import io.prestosql.spi.connector.FixedPageSource;
 import io.prestosql.spi.connector.RecordCursor;
 import io.prestosql.spi.connector.RecordPageSource;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.NullableValue;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeManager;
@@ -51,6 +54,7 @@ import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.SYNTHESIZED;
 import static io.prestosql.plugin.hive.HivePageSourceProvider.ColumnMapping.toColumnHandles;
 import static io.prestosql.plugin.hive.HiveUtil.getPrefilledColumnValue;
+import static io.prestosql.plugin.hive.HiveUtil.parsePartitionValue;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
@@ -82,12 +86,31 @@ public class HivePageSourceProvider
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns)
+    {
+        return createPageSource(transaction, session, split, columns, TupleDomain.all());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
     {
         List<HiveColumnHandle> hiveColumns = columns.stream()
                 .map(HiveColumnHandle.class::cast)
                 .collect(toList());
 
         HiveSplit hiveSplit = (HiveSplit) split;
+        if (!partitionMatches(hiveSplit, dynamicFilter)) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+        // the domains of the regular columns are pruned by the file readers like the predicate of the query
+        Map<Integer, HiveType> columnCoercions = hiveSplit.getColumnCoercions();
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate().intersect(dynamicFilter.transform(column -> {
+            HiveColumnHandle hiveColumn = (HiveColumnHandle) column;
+            if (hiveColumn.getColumnType() != REGULAR || columnCoercions.containsKey(hiveColumn.getHiveColumnIndex())) {
+                return null;
+            }
+            return hiveColumn;
+        }));
+
         Path path = new Path(hiveSplit.getPath());
 
         Configuration configuration = hdfsEnvironment.getConfiguration(new HdfsContext(session, hiveSplit.getDatabase(), hiveSplit.getTable()), path);
@@ -102,8 +125,9 @@ public class HivePageSourceProvider
                 hiveSplit.getStart(),
                 hiveSplit.getLength(),
                 hiveSplit.getFileSize(),
+                hiveSplit.getFileModifiedTime(),
                 hiveSplit.getSchema(),
-                hiveSplit.getEffectivePredicate(),
+                effectivePredicate,
                 hiveColumns,
                 hiveSplit.getPartitionKeys(),
                 hiveStorageTimeZone,
@@ -117,6 +141,27 @@ public class HivePageSourceProvider
         throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
     }
 
+    private boolean partitionMatches(HiveSplit split, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        if (dynamicFilter.isNone()) {
+            return false;
+        }
+        Map<String, HivePartitionKey> partitionKeys = uniqueIndex(split.getPartitionKeys(), HivePartitionKey::getName);
+        for (Map.Entry<ColumnHandle, Domain> entry : dynamicFilter.getDomains().get().entrySet()) {
+            HiveColumnHandle column = (HiveColumnHandle) entry.getKey();
+            HivePartitionKey partitionKey = partitionKeys.get(column.getName());
+            if (column.getColumnType() != PARTITION_KEY || partitionKey == null) {
+                continue;
+            }
+            Type type = typeManager.getType(column.getTypeSignature());
+            NullableValue value = parsePartitionValue(split.getPartitionName(), partitionKey.getValue(), type, hiveStorageTimeZone);
+            if (!entry.getValue().includesNullableValue(value.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static Optional<ConnectorPageSource> createHivePageSource(
             Set<HiveRecordCursorProvider> cursorProviders,
             Set<HivePageSourceFactory> pageSourceFactories,
@@ -127,6 +172,7 @@ public class HivePageSourceProvider
             long start,
             long length,
             long fileSize,
+            long fileModifiedTime,
             Properties schema,
             TupleDomain<HiveColumnHandle> effectivePredicate,
             List<HiveColumnHandle> hiveColumns,
@@ -157,7 +203,8 @@ public class HivePageSourceProvider
             return new BucketAdaptation(bucketColumnIndices, bucketColumnHiveTypes, conversion.getTableBucketCount(), conversion.getPartitionBucketCount(), bucketNumber.getAsInt());
         });
 
-        for (HivePageSourceFactory pageSourceFactory : pageSourceFactories) {
+        // S3 Select is only implemented by the record cursors
+        for (HivePageSourceFactory pageSourceFactory : s3SelectPushdownEnabled ? ImmutableSet.<HivePageSourceFactory>of() : pageSourceFactories) {
             Optional<? extends ConnectorPageSource> pageSource = pageSourceFactory.createPageSource(
                     configuration,
                     session,
@@ -165,6 +212,7 @@ public class HivePageSourceProvider
                     start,
                     length,
                     fileSize,
+                    fileModifiedTime,
                     schema,
                     toColumnHandles(regularAndInterimColumnMappings, true),
                     effectivePredicate,
@@ -50,6 +50,7 @@ public final class HiveSessionProperties
     private static final String ORC_TINY_STRIPE_THRESHOLD = "orc_tiny_stripe_threshold";
     private static final String ORC_MAX_READ_BLOCK_SIZE = "orc_max_read_block_size";
     private static final String ORC_LAZY_READ_SMALL_RANGES = "orc_lazy_read_small_ranges";
+    private static final String ORC_SELECTIVE_READING_ENABLED = "orc_selective_reading_enabled";
     private static final String ORC_STRING_STATISTICS_LIMIT = "orc_string_statistics_limit";
     private static final String ORC_OPTIMIZED_WRITER_ENABLED = "orc_optimized_writer_enabled";
     private static final String ORC_OPTIMIZED_WRITER_VALIDATE = "orc_optimized_writer_validate";
@@ -59,6 +60,7 @@ public final class HiveSessionProperties
     private static final String ORC_OPTIMIZED_WRITER_MAX_STRIPE_SIZE = "orc_optimized_writer_max_stripe_size";
     private static final String ORC_OPTIMIZED_WRITER_MAX_STRIPE_ROWS = "orc_optimized_writer_max_stripe_rows";
     private static final String ORC_OPTIMIZED_WRITER_MAX_DICTIONARY_MEMORY = "orc_optimized_writer_max_dictionary_memory";
+    private static final String ORC_OPTIMIZED_WRITER_PARALLEL_WRITE_ENABLED = "orc_optimized_writer_parallel_write_enabled";
     private static final String HIVE_STORAGE_FORMAT = "hive_storage_format";
     private static final String RESPECT_TABLE_FORMAT = "respect_table_format";
     private static final String PARQUET_USE_COLUMN_NAME = "parquet_use_column_names";
@@ -66,6 +68,10 @@ public final class HiveSessionProperties
     private static final String PARQUET_MAX_READ_BLOCK_SIZE = "parquet_max_read_block_size";
     private static final String PARQUET_WRITER_BLOCK_SIZE = "parquet_writer_block_size";
     private static final String PARQUET_WRITER_PAGE_SIZE = "parquet_writer_page_size";
+    private static final String PARQUET_OPTIMIZED_WRITER_ENABLED = "parquet_optimized_writer_enabled";
+    private static final String READ_AHEAD_ENABLED = "read_ahead_enabled";
+    private static final String MAX_READ_AHEAD_SIZE = "max_read_ahead_size";
+    private static final String NATIVE_TEXT_READER_ENABLED = "native_text_reader_enabled";
     private static final String MAX_SPLIT_SIZE = "max_split_size";
     private static final String MAX_INITIAL_SPLIT_SIZE = "max_initial_split_size";
     public static final String RCFILE_OPTIMIZED_WRITER_ENABLED = "rcfile_optimized_writer_enabled";
@@ -79,6 +85,7 @@ public final class HiveSessionProperties
     private static final String S3_SELECT_PUSHDOWN_ENABLED = "s3_select_pushdown_enabled";
     private static final String TEMPORARY_STAGING_DIRECTORY_ENABLED = "temporary_staging_directory_enabled";
     private static final String TEMPORARY_STAGING_DIRECTORY_PATH = "temporary_staging_directory_path";
+    private static final String FILE_AFFINITY_SCHEDULING_ENABLED = "file_affinity_scheduling_enabled";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -158,6 +165,11 @@ public final class HiveSessionProperties
                         "Experimental: ORC: Read small file segments lazily",
                         hiveClientConfig.isOrcLazyReadSmallRanges(),
                         false),
+                booleanProperty(
+                        ORC_SELECTIVE_READING_ENABLED,
+                        "Experimental: ORC: Evaluate simple predicates while reading and skip non-matching rows in the other columns",
+                        hiveClientConfig.isOrcSelectiveReadingEnabled(),
+                        false),
                 dataSizeSessionProperty(
                         ORC_STRING_STATISTICS_LIMIT,
                         "ORC: Maximum size of string statistics; drop if exceeding",
@@ -215,6 +227,11 @@ public final class HiveSessionProperties
                         "Experimental: ORC: Max dictionary memory",
                         orcFileWriterConfig.getDictionaryMaxMemory(),
                         false),
+                booleanProperty(
+                        ORC_OPTIMIZED_WRITER_PARALLEL_WRITE_ENABLED,
+                        "Experimental: ORC: Encode columns in parallel and write stripes in the background",
+                        orcFileWriterConfig.isParallelWriteEnabled(),
+                        false),
                 stringProperty(
                         HIVE_STORAGE_FORMAT,
                         "Default storage format for new tables or partitions",
@@ -250,6 +267,26 @@ public final class HiveSessionProperties
                         "Parquet: Writer page size",
                         parquetFileWriterConfig.getPageSize(),
                         false),
+                booleanProperty(
+                        PARQUET_OPTIMIZED_WRITER_ENABLED,
+                        "Experimental: Parquet: Enable optimized writer",
+                        parquetFileWriterConfig.isOptimizedWriterEnabled(),
+                        false),
+                booleanProperty(
+                        READ_AHEAD_ENABLED,
+                        "Experimental: Read the next stripe or row group of ORC and Parquet files in the background",
+                        hiveClientConfig.isReadAheadEnabled(),
+                        false),
+                dataSizeSessionProperty(
+                        MAX_READ_AHEAD_SIZE,
+                        "Maximum size of the data read ahead for a single file",
+                        hiveClientConfig.getMaxReadAheadSize(),
+                        false),
+                booleanProperty(
+                        NATIVE_TEXT_READER_ENABLED,
+                        "Experimental: Read text and JSON files with the native columnar reader",
+                        hiveClientConfig.isNativeTextReaderEnabled(),
+                        false),
                 dataSizeSessionProperty(
                         MAX_SPLIT_SIZE,
                         "Max split size",
@@ -314,6 +351,11 @@ public final class HiveSessionProperties
                         TEMPORARY_STAGING_DIRECTORY_PATH,
                         "Temporary staging directory location",
                         hiveClientConfig.getTemporaryStagingDirectoryPath(),
+                        false),
+                booleanProperty(
+                        FILE_AFFINITY_SCHEDULING_ENABLED,
+                        "Prefer scheduling splits of the same file range on the same worker to reuse the local file range cache",
+                        hiveClientConfig.isFileRangeCacheEnabled(),
                         false));
     }
 
@@ -372,6 +414,11 @@ public final class HiveSessionProperties
         return session.getProperty(ORC_LAZY_READ_SMALL_RANGES, Boolean.class);
     }
 
+    public static boolean isOrcSelectiveReadingEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_SELECTIVE_READING_ENABLED, Boolean.class);
+    }
+
     public static DataSize getOrcStringStatisticsLimit(ConnectorSession session)
     {
         return session.getProperty(ORC_STRING_STATISTICS_LIMIT, DataSize.class);
@@ -424,6 +471,11 @@ public final class HiveSessionProperties
         return session.getProperty(ORC_OPTIMIZED_WRITER_MAX_DICTIONARY_MEMORY, DataSize.class);
     }
 
+    public static boolean isOrcOptimizedWriterParallelWriteEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_OPTIMIZED_WRITER_PARALLEL_WRITE_ENABLED, Boolean.class);
+    }
+
     public static HiveStorageFormat getHiveStorageFormat(ConnectorSession session)
     {
         return HiveStorageFormat.valueOf(session.getProperty(HIVE_STORAGE_FORMAT, String.class).toUpperCase(ENGLISH));
@@ -459,6 +511,26 @@ public final class HiveSessionProperties
         return session.getProperty(PARQUET_WRITER_PAGE_SIZE, DataSize.class);
     }
 
+    public static boolean isParquetOptimizedWriterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_OPTIMIZED_WRITER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isReadAheadEnabled(ConnectorSession session)
+    {
+        return session.getProperty(READ_AHEAD_ENABLED, Boolean.class);
+    }
+
+    public static DataSize getMaxReadAheadSize(ConnectorSession session)
+    {
+        return session.getProperty(MAX_READ_AHEAD_SIZE, DataSize.class);
+    }
+
+    public static boolean isNativeTextReaderEnabled(ConnectorSession session)
+    {
+        return session.getProperty(NATIVE_TEXT_READER_ENABLED, Boolean.class);
+    }
+
     public static DataSize getMaxSplitSize(ConnectorSession session)
     {
         return session.getProperty(MAX_SPLIT_SIZE, DataSize.class);
@@ -528,6 +600,11 @@ public final class HiveSessionProperties
         return session.getProperty(TEMPORARY_STAGING_DIRECTORY_PATH, String.class);
     }
 
+    public static boolean isFileAffinitySchedulingEnabled(ConnectorSession session)
+    {
+        return session.getProperty(FILE_AFFINITY_SCHEDULING_ENABLED, Boolean.class);
+    }
+
     public static PropertyMetadata<DataSize> dataSizeSessionProperty(String name, String description, DataSize defaultValue, boolean hidden)
     {
         return new PropertyMetadata<>(
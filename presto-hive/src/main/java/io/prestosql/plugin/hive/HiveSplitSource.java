@@ -58,6 +58,7 @@ import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_FILE_NOT_FOUND;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_UNKNOWN_ERROR;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getMaxInitialSplitSize;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getMaxSplitSize;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isFileAffinitySchedulingEnabled;
 import static io.prestosql.plugin.hive.HiveSplitSource.StateKind.CLOSED;
 import static io.prestosql.plugin.hive.HiveSplitSource.StateKind.FAILED;
 import static io.prestosql.plugin.hive.HiveSplitSource.StateKind.INITIAL;
@@ -83,6 +84,7 @@ class HiveSplitSource
 
     private final DataSize maxSplitSize;
     private final DataSize maxInitialSplitSize;
+    private final boolean fileAffinitySchedulingEnabled;
     private final AtomicInteger remainingInitialSplits;
 
     private final HiveSplitLoader splitLoader;
@@ -118,6 +120,7 @@ class HiveSplitSource
 
         this.maxSplitSize = getMaxSplitSize(session);
         this.maxInitialSplitSize = getMaxInitialSplitSize(session);
+        this.fileAffinitySchedulingEnabled = isFileAffinitySchedulingEnabled(session);
         this.remainingInitialSplits = new AtomicInteger(maxInitialSplits);
     }
 
@@ -369,6 +372,7 @@ class HiveSplitSource
                         internalSplit.getStart(),
                         splitBytes,
                         internalSplit.getFileSize(),
+                        internalSplit.getFileModifiedTime(),
                         internalSplit.getSchema(),
                         internalSplit.getPartitionKeys(),
                         block.getAddresses(),
@@ -377,7 +381,8 @@ class HiveSplitSource
                         (TupleDomain<HiveColumnHandle>) compactEffectivePredicate,
                         transformValues(internalSplit.getColumnCoercions(), HiveTypeName::toHiveType),
                         internalSplit.getBucketConversion(),
-                        internalSplit.isS3SelectPushdownEnabled()));
+                        internalSplit.isS3SelectPushdownEnabled(),
+                        fileAffinitySchedulingEnabled));
 
                 internalSplit.increaseStart(splitBytes);
 
@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -74,7 +75,9 @@ public class OrcFileWriter
             DateTimeZone hiveStorageTimeZone,
             Optional<Supplier<OrcDataSource>> validationInputFactory,
             OrcWriteValidationMode validationMode,
-            OrcWriterStats stats)
+            OrcWriterStats stats,
+            Optional<Executor> encodeExecutor,
+            Optional<Executor> writeExecutor)
     {
         requireNonNull(orcDataSink, "orcDataSink is null");
 
@@ -89,7 +92,9 @@ public class OrcFileWriter
                 hiveStorageTimeZone,
                 validationInputFactory.isPresent(),
                 validationMode,
-                stats);
+                stats,
+                encodeExecutor,
+                writeExecutor);
         this.rollbackAction = requireNonNull(rollbackAction, "rollbackAction is null");
 
         this.fileInputColumnIndexes = requireNonNull(fileInputColumnIndexes, "outputColumnInputIndexes is null");
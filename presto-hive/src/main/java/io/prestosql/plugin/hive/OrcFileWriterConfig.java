@@ -14,13 +14,18 @@
 package io.prestosql.plugin.hive;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.units.DataSize;
 import io.prestosql.orc.OrcWriterOptions;
 
+import javax.validation.constraints.Min;
+
 @SuppressWarnings("unused")
 public class OrcFileWriterConfig
 {
     private OrcWriterOptions options = new OrcWriterOptions();
+    private boolean parallelWriteEnabled;
+    private int writerThreads = Runtime.getRuntime().availableProcessors();
 
     public OrcWriterOptions toOrcWriterOptions()
     {
@@ -110,4 +115,45 @@ public class OrcFileWriterConfig
         options = options.withMaxCompressionBufferSize(maxCompressionBufferSize);
         return this;
     }
+
+    public boolean isParallelWriteEnabled()
+    {
+        return parallelWriteEnabled;
+    }
+
+    @Config("hive.orc.writer.parallel-write-enabled")
+    @ConfigDescription("Encode the columns of a stripe in parallel and write finished stripes in the background")
+    public OrcFileWriterConfig setParallelWriteEnabled(boolean parallelWriteEnabled)
+    {
+        this.parallelWriteEnabled = parallelWriteEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxBufferedStripes()
+    {
+        return options.getMaxBufferedStripes();
+    }
+
+    @Config("hive.orc.writer.max-buffered-stripes")
+    @ConfigDescription("Maximum number of finished stripes per file held in memory while they are written in the background")
+    public OrcFileWriterConfig setMaxBufferedStripes(int maxBufferedStripes)
+    {
+        options = options.withMaxBufferedStripes(maxBufferedStripes);
+        return this;
+    }
+
+    @Min(1)
+    public int getWriterThreads()
+    {
+        return writerThreads;
+    }
+
+    @Config("hive.orc.writer.threads")
+    @ConfigDescription("Number of threads used by all ORC writers to encode columns in parallel")
+    public OrcFileWriterConfig setWriterThreads(int writerThreads)
+    {
+        this.writerThreads = writerThreads;
+        return this;
+    }
 }
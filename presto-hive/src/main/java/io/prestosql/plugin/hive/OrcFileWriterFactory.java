@@ -45,8 +45,12 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.prestosql.orc.OrcEncoding.DWRF;
 import static io.prestosql.orc.OrcEncoding.ORC;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
@@ -61,7 +65,9 @@ import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcOptimizedWrit
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcOptimizedWriterValidateMode;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcStringStatisticsLimit;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isOrcOptimizedWriterParallelWriteEnabled;
 import static io.prestosql.plugin.hive.HiveType.toHiveTypes;
+import static java.lang.String.format;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -78,6 +84,8 @@ public class OrcFileWriterFactory
     private final FileFormatDataSourceStats readStats;
     private final OrcWriterStats stats = new OrcWriterStats();
     private final OrcWriterOptions orcWriterOptions;
+    private final Executor encodeExecutor;
+    private final Executor writeExecutor;
 
     @Inject
     public OrcFileWriterFactory(
@@ -86,7 +94,9 @@ public class OrcFileWriterFactory
             NodeVersion nodeVersion,
             HiveClientConfig hiveClientConfig,
             FileFormatDataSourceStats readStats,
-            OrcFileWriterConfig config)
+            OrcFileWriterConfig config,
+            @ForOrcWriter ExecutorService encodeExecutor,
+            @ForHiveClient ExecutorService writeExecutor)
     {
         this(
                 hdfsEnvironment,
@@ -94,7 +104,9 @@ public class OrcFileWriterFactory
                 nodeVersion,
                 requireNonNull(hiveClientConfig, "hiveClientConfig is null").getDateTimeZone(),
                 readStats,
-                requireNonNull(config, "config is null").toOrcWriterOptions());
+                requireNonNull(config, "config is null").toOrcWriterOptions(),
+                encodeExecutor,
+                writeExecutor);
     }
 
     public OrcFileWriterFactory(
@@ -104,6 +116,19 @@ public class OrcFileWriterFactory
             DateTimeZone hiveStorageTimeZone,
             FileFormatDataSourceStats readStats,
             OrcWriterOptions orcWriterOptions)
+    {
+        this(hdfsEnvironment, typeManager, nodeVersion, hiveStorageTimeZone, readStats, orcWriterOptions, directExecutor(), directExecutor());
+    }
+
+    public OrcFileWriterFactory(
+            HdfsEnvironment hdfsEnvironment,
+            TypeManager typeManager,
+            NodeVersion nodeVersion,
+            DateTimeZone hiveStorageTimeZone,
+            FileFormatDataSourceStats readStats,
+            OrcWriterOptions orcWriterOptions,
+            Executor encodeExecutor,
+            Executor writeExecutor)
     {
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
@@ -111,6 +136,8 @@ public class OrcFileWriterFactory
         this.hiveStorageTimeZone = requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
         this.readStats = requireNonNull(readStats, "stats is null");
         this.orcWriterOptions = requireNonNull(orcWriterOptions, "orcWriterOptions is null");
+        this.encodeExecutor = requireNonNull(encodeExecutor, "encodeExecutor is null");
+        this.writeExecutor = requireNonNull(writeExecutor, "writeExecutor is null");
     }
 
     @Managed
@@ -157,6 +184,16 @@ public class OrcFileWriterFactory
                 .mapToInt(inputColumnNames::indexOf)
                 .toArray();
 
+        OrcWriterOptions options = orcWriterOptions
+                .withStripeMinSize(getOrcOptimizedWriterMinStripeSize(session))
+                .withStripeMaxSize(getOrcOptimizedWriterMaxStripeSize(session))
+                .withStripeMaxRowCount(getOrcOptimizedWriterMaxStripeRows(session))
+                .withDictionaryMaxMemory(getOrcOptimizedWriterMaxDictionaryMemory(session))
+                .withMaxStringStatisticsLimit(getOrcStringStatisticsLimit(session));
+        if (orcEncoding == ORC) {
+            options = withBloomFilterOptions(options, schema);
+        }
+
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
             OrcDataSink orcDataSink = createOrcDataSink(session, fileSystem, path);
@@ -193,12 +230,7 @@ public class OrcFileWriterFactory
                     fileColumnNames,
                     fileColumnTypes,
                     compression,
-                    orcWriterOptions
-                            .withStripeMinSize(getOrcOptimizedWriterMinStripeSize(session))
-                            .withStripeMaxSize(getOrcOptimizedWriterMaxStripeSize(session))
-                            .withStripeMaxRowCount(getOrcOptimizedWriterMaxStripeRows(session))
-                            .withDictionaryMaxMemory(getOrcOptimizedWriterMaxDictionaryMemory(session))
-                            .withMaxStringStatisticsLimit(getOrcStringStatisticsLimit(session)),
+                    options,
                     fileInputColumnIndexes,
                     ImmutableMap.<String, String>builder()
                             .put(HiveMetadata.PRESTO_VERSION_NAME, nodeVersion.toString())
@@ -207,7 +239,9 @@ public class OrcFileWriterFactory
                     hiveStorageTimeZone,
                     validationInputFactory,
                     getOrcOptimizedWriterValidateMode(session),
-                    stats));
+                    stats,
+                    isOrcOptimizedWriterParallelWriteEnabled(session) ? Optional.of(encodeExecutor) : Optional.empty(),
+                    isOrcOptimizedWriterParallelWriteEnabled(session) ? Optional.of(writeExecutor) : Optional.empty()));
         }
         catch (IOException e) {
             throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating " + orcEncoding + " file", e);
@@ -223,6 +257,28 @@ public class OrcFileWriterFactory
         return new OutputStreamOrcDataSink(fileSystem.create(path));
     }
 
+    private static OrcWriterOptions withBloomFilterOptions(OrcWriterOptions options, Properties schema)
+    {
+        String bloomFilterColumns = schema.getProperty(OrcConf.BLOOM_FILTER_COLUMNS.getAttribute());
+        if (bloomFilterColumns == null) {
+            return options;
+        }
+        options = options.withBloomFilterColumns(Splitter.on(',').trimResults().omitEmptyStrings().splitToList(bloomFilterColumns).stream()
+                .map(column -> column.toLowerCase(ENGLISH))
+                .collect(toImmutableSet()));
+
+        String bloomFilterFpp = schema.getProperty(OrcConf.BLOOM_FILTER_FPP.getAttribute());
+        if (bloomFilterFpp == null) {
+            return options;
+        }
+        try {
+            return options.withBloomFilterFpp(Double.parseDouble(bloomFilterFpp));
+        }
+        catch (IllegalArgumentException e) {
+            throw new PrestoException(HIVE_UNSUPPORTED_FORMAT, format("Invalid ORC bloom filter false positive probability: %s", bloomFilterFpp), e);
+        }
+    }
+
     private static CompressionKind getCompression(Properties schema, JobConf configuration, OrcEncoding orcEncoding)
     {
         String compressionName = OrcConf.COMPRESS.getString(schema, configuration);
@@ -0,0 +1,562 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.cache;
+
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.DataSize;
+import io.prestosql.plugin.hive.HiveClientConfig;
+import io.prestosql.plugin.hive.HiveConnectorId;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Node local cache of file contents, kept on local disk. Files are cached in aligned
+ * blocks, so that reads of different but overlapping ranges of a file share the cached
+ * data. The blocks are stored in slots of a single cache file, which is created in the
+ * configured location and deleted when the cache is destroyed. Once all slots are used,
+ * blocks are evicted in least recently used order.
+ * <p>
+ * Blocks are identified by the path and the size of the file. Hive does not modify
+ * data files in place, so a rewritten file is expected to change in path or size.
+ */
+public class FileRangeCache
+{
+    private static final Logger log = Logger.get(FileRangeCache.class);
+
+    private final boolean enabled;
+    private final int blockSize;
+    @Nullable
+    private final Path file;
+    @Nullable
+    private volatile FileChannel channel;
+
+    @GuardedBy("this")
+    private final LinkedHashMap<BlockKey, CachedBlock> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private final int[] freeSlots;
+    @GuardedBy("this")
+    private int freeSlotCount;
+    @GuardedBy("this")
+    private long cachedBytes;
+    @GuardedBy("this")
+    private boolean destroyed;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat evictions = new CounterStat();
+    private final CounterStat localReadErrors = new CounterStat();
+    private final CounterStat localWriteErrors = new CounterStat();
+
+    @Inject
+    public FileRangeCache(HiveClientConfig config, HiveConnectorId connectorId)
+    {
+        this(
+                config.isFileRangeCacheEnabled() ? Optional.of(Paths.get(config.getFileRangeCacheLocation())) : Optional.empty(),
+                connectorId.toString(),
+                config.getFileRangeCacheMaxSize(),
+                config.getFileRangeCacheBlockSize());
+    }
+
+    /**
+     * @param location directory of the cache file, or empty to disable caching
+     */
+    public FileRangeCache(Optional<Path> location, String name, DataSize maxSize, DataSize blockSize)
+    {
+        requireNonNull(location, "location is null");
+        requireNonNull(name, "name is null");
+        this.enabled = location.isPresent();
+        this.blockSize = toIntExact(requireNonNull(blockSize, "blockSize is null").toBytes());
+        checkArgument(this.blockSize > 0, "blockSize must be positive");
+        long slotCount = requireNonNull(maxSize, "maxSize is null").toBytes() / this.blockSize;
+
+        if (!enabled) {
+            this.file = null;
+            this.freeSlots = new int[0];
+            return;
+        }
+
+        checkArgument(slotCount > 0, "maxSize must be at least blockSize");
+        this.freeSlots = new int[toIntExact(slotCount)];
+        for (int i = 0; i < freeSlots.length; i++) {
+            freeSlots[i] = freeSlots.length - 1 - i;
+        }
+        this.freeSlotCount = freeSlots.length;
+        try {
+            // the location may be shared, so only the file created here is ever deleted
+            Files.createDirectories(location.get());
+            this.file = Files.createTempFile(location.get(), name + "-", ".cache");
+            this.channel = FileChannel.open(file, READ, WRITE);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(format("Failed to create file range cache in %s", location.get()), e);
+        }
+    }
+
+    public static FileRangeCache noFileRangeCache()
+    {
+        return new FileRangeCache(Optional.empty(), "disabled", new DataSize(0, BYTE), new DataSize(1, MEGABYTE));
+    }
+
+    /**
+     * Returns a stream which serves reads of the file from the cache, and populates
+     * the cache on a miss. The returned stream is the given stream when caching is disabled.
+     * Cached data is only served for the same file size and modification time, so a file
+     * rewritten in place is read again.
+     */
+    public FSDataInputStream wrap(org.apache.hadoop.fs.Path path, long fileSize, long fileModifiedTime, FSDataInputStream inputStream)
+    {
+        requireNonNull(path, "path is null");
+        requireNonNull(inputStream, "inputStream is null");
+        if (!enabled) {
+            return inputStream;
+        }
+        return new FSDataInputStream(new CachingInputStream(path.toString(), fileSize, fileModifiedTime, inputStream));
+    }
+
+    @PreDestroy
+    public void destroy()
+            throws IOException
+    {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            destroyed = true;
+            blocks.clear();
+            freeSlotCount = 0;
+            cachedBytes = 0;
+            channel.close();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Managed
+    public synchronized long getCachedBytes()
+    {
+        return cachedBytes;
+    }
+
+    @Managed
+    public synchronized int getCachedBlocks()
+    {
+        return blocks.size();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return evictions;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalReadErrors()
+    {
+        return localReadErrors;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalWriteErrors()
+    {
+        return localWriteErrors;
+    }
+
+    private void readBlock(BlockKey key, int blockLength, FSDataInputStream inputStream, int offsetInBlock, byte[] buffer, int bufferOffset, int length)
+            throws IOException
+    {
+        if (readCachedBlock(key, offsetInBlock, buffer, bufferOffset, length)) {
+            hits.update(1);
+            return;
+        }
+        misses.update(1);
+
+        byte[] block = new byte[blockLength];
+        inputStream.readFully(key.getBlockIndex() * blockSize, block, 0, blockLength);
+        System.arraycopy(block, offsetInBlock, buffer, bufferOffset, length);
+        cacheBlock(key, block);
+    }
+
+    private boolean readCachedBlock(BlockKey key, int offsetInBlock, byte[] buffer, int bufferOffset, int length)
+    {
+        CachedBlock block;
+        synchronized (this) {
+            block = blocks.get(key);
+        }
+        if (block == null) {
+            return false;
+        }
+
+        try {
+            ByteBuffer target = ByteBuffer.wrap(buffer, bufferOffset, length);
+            long position = getSlotPosition(block.getSlot()) + offsetInBlock;
+            while (target.hasRemaining()) {
+                if (getChannel().read(target, position + target.position() - bufferOffset) < 0) {
+                    throw new EOFException(format("Cache file %s is truncated", file));
+                }
+            }
+        }
+        catch (IOException e) {
+            localReadErrors.update(1);
+            invalidate(key, block);
+            return false;
+        }
+
+        synchronized (this) {
+            // an evicted block is never added back, so the slot was not reused while it was read
+            return blocks.get(key) == block;
+        }
+    }
+
+    private void cacheBlock(BlockKey key, byte[] data)
+    {
+        int slot;
+        synchronized (this) {
+            if (blocks.containsKey(key)) {
+                // the block was cached by a concurrent reader
+                return;
+            }
+            slot = allocateSlot();
+        }
+        if (slot < 0) {
+            // all slots are being written by concurrent readers
+            return;
+        }
+
+        try {
+            ByteBuffer source = ByteBuffer.wrap(data);
+            long position = getSlotPosition(slot);
+            while (source.hasRemaining()) {
+                getChannel().write(source, position + source.position());
+            }
+        }
+        catch (IOException e) {
+            // caching is best effort, the data has already been read from the file system
+            log.warn(e, "Failed to write file range cache block to %s", file);
+            localWriteErrors.update(1);
+            synchronized (this) {
+                releaseSlot(slot);
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (destroyed || blocks.containsKey(key)) {
+                releaseSlot(slot);
+                return;
+            }
+            blocks.put(key, new CachedBlock(slot, data.length));
+            cachedBytes += data.length;
+        }
+    }
+
+    /**
+     * Returns a slot which is neither free nor used by a cached block, evicting the least
+     * recently used block if necessary, or -1 if there is no such slot.
+     */
+    @GuardedBy("this")
+    private int allocateSlot()
+    {
+        if (freeSlotCount > 0) {
+            freeSlotCount--;
+            return freeSlots[freeSlotCount];
+        }
+        Iterator<CachedBlock> iterator = blocks.values().iterator();
+        if (!iterator.hasNext()) {
+            return -1;
+        }
+        CachedBlock eldest = iterator.next();
+        iterator.remove();
+        cachedBytes -= eldest.getSize();
+        evictions.update(1);
+        return eldest.getSlot();
+    }
+
+    @GuardedBy("this")
+    private void releaseSlot(int slot)
+    {
+        if (!destroyed) {
+            freeSlots[freeSlotCount++] = slot;
+        }
+    }
+
+    private void invalidate(BlockKey key, CachedBlock block)
+    {
+        synchronized (this) {
+            if (blocks.remove(key, block)) {
+                cachedBytes -= block.getSize();
+                releaseSlot(block.getSlot());
+            }
+        }
+    }
+
+    private long getSlotPosition(int slot)
+    {
+        return (long) slot * blockSize;
+    }
+
+    private FileChannel getChannel()
+            throws IOException
+    {
+        FileChannel channel = this.channel;
+        if (channel.isOpen()) {
+            return channel;
+        }
+        // the channel is closed when a thread using it is interrupted
+        synchronized (this) {
+            if (destroyed) {
+                throw new ClosedChannelException();
+            }
+            if (!this.channel.isOpen()) {
+                this.channel = FileChannel.open(file, READ, WRITE);
+            }
+            return this.channel;
+        }
+    }
+
+    private class CachingInputStream
+            extends FSInputStream
+    {
+        private final String path;
+        private final long fileSize;
+        private final long fileModifiedTime;
+        private final FSDataInputStream inputStream;
+
+        private long position;
+
+        public CachingInputStream(String path, long fileSize, long fileModifiedTime, FSDataInputStream inputStream)
+        {
+            this.path = requireNonNull(path, "path is null");
+            checkArgument(fileSize >= 0, "fileSize is negative");
+            this.fileSize = fileSize;
+            this.fileModifiedTime = fileModifiedTime;
+            this.inputStream = requireNonNull(inputStream, "inputStream is null");
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            checkPositionIndexes(offset, offset + length, buffer.length);
+            if (position < 0) {
+                throw new EOFException("Negative position: " + position);
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= fileSize) {
+                return -1;
+            }
+
+            int readLength = (int) min(length, fileSize - position);
+            int read = 0;
+            while (read < readLength) {
+                long currentPosition = position + read;
+                long blockIndex = currentPosition / blockSize;
+                int offsetInBlock = (int) (currentPosition % blockSize);
+                int blockLength = (int) min(blockSize, fileSize - blockIndex * blockSize);
+                int chunkLength = min(readLength - read, blockLength - offsetInBlock);
+                readBlock(new BlockKey(path, fileSize, fileModifiedTime, blockIndex), blockLength, inputStream, offsetInBlock, buffer, offset + read, chunkLength);
+                read += chunkLength;
+            }
+            return readLength;
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            if (position < 0 || position + length > fileSize) {
+                throw new EOFException(format("Read of %s bytes at position %s is outside of file %s of size %s", length, position, path, fileSize));
+            }
+            read(position, buffer, offset, length);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            int read = read(position, buffer, offset, length);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            byte[] buffer = new byte[1];
+            if (read(buffer, 0, 1) <= 0) {
+                return -1;
+            }
+            return buffer[0] & 0xFF;
+        }
+
+        @Override
+        public void seek(long position)
+                throws IOException
+        {
+            if (position < 0) {
+                throw new EOFException("Negative position: " + position);
+            }
+            this.position = position;
+        }
+
+        @Override
+        public long getPos()
+        {
+            return position;
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPosition)
+        {
+            return false;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            inputStream.close();
+        }
+    }
+
+    private static final class BlockKey
+    {
+        private final String path;
+        private final long fileSize;
+        private final long fileModifiedTime;
+        private final long blockIndex;
+
+        public BlockKey(String path, long fileSize, long fileModifiedTime, long blockIndex)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.fileSize = fileSize;
+            this.fileModifiedTime = fileModifiedTime;
+            this.blockIndex = blockIndex;
+        }
+
+        public long getBlockIndex()
+        {
+            return blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey other = (BlockKey) o;
+            return fileSize == other.fileSize &&
+                    fileModifiedTime == other.fileModifiedTime &&
+                    blockIndex == other.blockIndex &&
+                    path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, fileSize, fileModifiedTime, blockIndex);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("fileSize", fileSize)
+                    .add("fileModifiedTime", fileModifiedTime)
+                    .add("blockIndex", blockIndex)
+                    .toString();
+        }
+    }
+
+    private static final class CachedBlock
+    {
+        private final int slot;
+        private final int size;
+
+        public CachedBlock(int slot, int size)
+        {
+            this.slot = slot;
+            this.size = size;
+        }
+
+        public int getSlot()
+        {
+            return slot;
+        }
+
+        public int getSize()
+        {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.orc.OrcEncoding;
+import io.prestosql.orc.OrcFileTail;
+import io.prestosql.parquet.reader.ParquetFileMetadata;
+import io.prestosql.plugin.hive.HiveClientConfig;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Worker wide in-memory cache of parsed ORC file tails and Parquet footers, which all
+ * splits of a file would otherwise read and parse again. The cache is bounded by the
+ * retained size of the parsed footers, which is dominated by their column statistics.
+ * <p>
+ * Footers are identified by the path, the size and the modification time of the file,
+ * so a file that is rewritten in place is read with its new footer.
+ */
+public class FooterCache
+{
+    private final boolean enabled;
+    private final Cache<FooterKey, CachedFooter> cache;
+
+    @Inject
+    public FooterCache(HiveClientConfig config)
+    {
+        this(config.isFooterCacheEnabled(), config.getFooterCacheMaxSize(), config.getFooterCacheTtl());
+    }
+
+    public FooterCache(boolean enabled, DataSize maxSize, Duration ttl)
+    {
+        this.enabled = enabled;
+        requireNonNull(maxSize, "maxSize is null");
+        requireNonNull(ttl, "ttl is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((FooterKey key, CachedFooter footer) -> footer.getWeight())
+                .expireAfterWrite(ttl.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public static FooterCache noFooterCache()
+    {
+        return new FooterCache(false, new DataSize(0, BYTE), new Duration(0, MILLISECONDS));
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public OrcFileTail getOrcFileTail(Path path, long fileSize, long fileModifiedTime, OrcEncoding orcEncoding, Callable<OrcFileTail> loader)
+            throws IOException
+    {
+        if (!enabled) {
+            return call(loader);
+        }
+        FooterKey key = new FooterKey(path.toString(), fileSize, fileModifiedTime, orcEncoding.name());
+        return (OrcFileTail) get(key, () -> {
+            OrcFileTail fileTail = loader.call();
+            return new CachedFooter(fileTail, fileTail.getRetainedSizeInBytes());
+        });
+    }
+
+    public ParquetFileMetadata getParquetFileMetadata(Path path, long fileSize, long fileModifiedTime, Callable<ParquetFileMetadata> loader)
+            throws IOException
+    {
+        if (!enabled) {
+            return call(loader);
+        }
+        FooterKey key = new FooterKey(path.toString(), fileSize, fileModifiedTime, "PARQUET");
+        return (ParquetFileMetadata) get(key, () -> {
+            ParquetFileMetadata fileMetadata = loader.call();
+            return new CachedFooter(fileMetadata, fileMetadata.getRetainedSizeInBytes());
+        });
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    private Object get(FooterKey key, Callable<CachedFooter> loader)
+            throws IOException
+    {
+        try {
+            return cache.get(key, loader).getFooter();
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throwIfInstanceOf(e.getCause(), IOException.class);
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static <T> T call(Callable<T> loader)
+            throws IOException
+    {
+        try {
+            return loader.call();
+        }
+        catch (Exception e) {
+            throwIfInstanceOf(e, IOException.class);
+            throwIfUnchecked(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class FooterKey
+    {
+        private final String path;
+        private final long fileSize;
+        private final long fileModifiedTime;
+        private final String format;
+
+        public FooterKey(String path, long fileSize, long fileModifiedTime, String format)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.fileSize = fileSize;
+            this.fileModifiedTime = fileModifiedTime;
+            this.format = requireNonNull(format, "format is null");
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FooterKey other = (FooterKey) o;
+            return fileSize == other.fileSize &&
+                    fileModifiedTime == other.fileModifiedTime &&
+                    path.equals(other.path) &&
+                    format.equals(other.format);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, fileSize, fileModifiedTime, format);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("fileSize", fileSize)
+                    .add("fileModifiedTime", fileModifiedTime)
+                    .add("format", format)
+                    .toString();
+        }
+    }
+
+    private static class CachedFooter
+    {
+        private final Object footer;
+        private final int weight;
+
+        public CachedFooter(Object footer, long retainedSizeInBytes)
+        {
+            this.footer = requireNonNull(footer, "footer is null");
+            this.weight = toIntExact(min(retainedSizeInBytes, Integer.MAX_VALUE));
+        }
+
+        public Object getFooter()
+        {
+            return footer;
+        }
+
+        public int getWeight()
+        {
+            return weight;
+        }
+    }
+}
@@ -14,10 +14,13 @@
 package io.prestosql.plugin.hive.orc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.orc.OrcCorruptionException;
 import io.prestosql.orc.OrcDataSource;
 import io.prestosql.orc.OrcRecordReader;
+import io.prestosql.orc.ValueFilter;
+import io.prestosql.orc.reader.FilteredBlock;
 import io.prestosql.plugin.hive.FileFormatDataSourceStats;
 import io.prestosql.plugin.hive.HiveColumnHandle;
 import io.prestosql.spi.Page;
@@ -27,16 +30,21 @@ import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.block.LazyBlock;
 import io.prestosql.spi.block.LazyBlockLoader;
 import io.prestosql.spi.connector.ConnectorPageSource;
+import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeManager;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.toCompletableFuture;
 import static io.prestosql.orc.OrcReader.MAX_BATCH_SIZE;
+import static io.prestosql.orc.ValueFilter.createValueFilter;
 import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_BAD_DATA;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
@@ -47,6 +55,7 @@ public class OrcPageSource
         implements ConnectorPageSource
 {
     private static final int NULL_ENTRY_SIZE = 0;
+
     private final OrcRecordReader recordReader;
     private final OrcDataSource orcDataSource;
 
@@ -56,6 +65,10 @@ public class OrcPageSource
     private final Block[] constantBlocks;
     private final int[] hiveColumnIndexes;
 
+    // fields with a filter are read first, and only the rows matching all filters are read from the other fields
+    private final int[] filterFieldIds;
+    private final ValueFilter[] filters;
+
     private int batchId;
     private boolean closed;
 
@@ -67,6 +80,7 @@ public class OrcPageSource
             OrcRecordReader recordReader,
             OrcDataSource orcDataSource,
             List<HiveColumnHandle> columns,
+            Map<Integer, Domain> columnDomains,
             TypeManager typeManager,
             AggregatedMemoryContext systemMemoryContext,
             FileFormatDataSourceStats stats)
@@ -106,6 +120,24 @@ public class OrcPageSource
         types = typesBuilder.build();
         columnNames = namesBuilder.build();
 
+        ImmutableMap.Builder<Integer, ValueFilter> filters = ImmutableMap.builder();
+        requireNonNull(columnDomains, "columnDomains is null").forEach((fieldId, domain) -> {
+            // columns missing from the file, domains of coerced columns and types without a value filter are left to the engine
+            if (constantBlocks[fieldId] != null || domain.isAll() || !domain.getType().equals(types.get(fieldId))) {
+                return;
+            }
+            createValueFilter(domain).ifPresent(filter -> filters.put(fieldId, filter));
+        });
+        Map<Integer, ValueFilter> valueFilters = filters.build();
+        this.filterFieldIds = valueFilters.keySet().stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+        this.filters = new ValueFilter[filterFieldIds.length];
+        for (int i = 0; i < filterFieldIds.length; i++) {
+            this.filters[i] = valueFilters.get(filterFieldIds[i]);
+        }
+
         this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
     }
 
@@ -127,28 +159,46 @@ public class OrcPageSource
         return closed;
     }
 
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (closed) {
+            return NOT_BLOCKED;
+        }
+        return toCompletableFuture(recordReader.isBlocked());
+    }
+
     @Override
     public Page getNextPage()
     {
         try {
-            batchId++;
-            int batchSize = recordReader.nextBatch();
-            if (batchSize <= 0) {
-                close();
-                return null;
-            }
+            while (true) {
+                batchId++;
+                int batchSize = recordReader.nextBatch();
+                if (batchSize <= 0) {
+                    close();
+                    return null;
+                }
 
-            Block[] blocks = new Block[hiveColumnIndexes.length];
-            for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
-                Type type = types.get(fieldId);
-                if (constantBlocks[fieldId] != null) {
-                    blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
+                if (filterFieldIds.length == 0) {
+                    Block[] blocks = new Block[hiveColumnIndexes.length];
+                    for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
+                        Type type = types.get(fieldId);
+                        if (constantBlocks[fieldId] != null) {
+                            blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
+                        }
+                        else {
+                            blocks[fieldId] = new LazyBlock(batchSize, new OrcBlockLoader(hiveColumnIndexes[fieldId], type));
+                        }
+                    }
+                    return new Page(batchSize, blocks);
                 }
-                else {
-                    blocks[fieldId] = new LazyBlock(batchSize, new OrcBlockLoader(hiveColumnIndexes[fieldId], type));
+
+                Page page = readFilteredPage(batchSize);
+                if (page != null) {
+                    return page;
                 }
             }
-            return new Page(batchSize, blocks);
         }
         catch (PrestoException e) {
             closeWithSuppression(e);
@@ -164,6 +214,98 @@ public class OrcPageSource
         }
     }
 
+    /**
+     * Reads the filter fields and evaluates their filters, then creates lazy blocks that only
+     * read the matching rows for the remaining fields. Returns null if no row in the batch matches.
+     */
+    private Page readFilteredPage(int batchSize)
+            throws IOException
+    {
+        Block[] filterBlocks = new Block[filterFieldIds.length];
+        int[][] filterBlockPositions = new int[filterFieldIds.length][];
+        int[] positions = null;
+        int positionCount = batchSize;
+        for (int i = 0; i < filterFieldIds.length; i++) {
+            int fieldId = filterFieldIds[i];
+            Type type = types.get(fieldId);
+            Block block;
+            int[] matches;
+            int matchCount;
+            if (positions == null) {
+                // the first filter is evaluated by the column reader on the decoded values
+                FilteredBlock filteredBlock = recordReader.readBlock(type, hiveColumnIndexes[fieldId], filters[i]);
+                block = filteredBlock.getBlock();
+                matches = filteredBlock.getMatches();
+                matchCount = filteredBlock.getMatchCount();
+            }
+            else {
+                block = recordReader.readBlock(type, hiveColumnIndexes[fieldId], positions, positionCount);
+                matches = new int[positionCount];
+                matchCount = filters[i].filter(type, block, matches);
+            }
+            filterBlocks[i] = block;
+            filterBlockPositions[i] = positions;
+
+            if (matchCount == 0) {
+                return null;
+            }
+            if (matchCount < positionCount) {
+                for (int match = 0; match < matchCount; match++) {
+                    matches[match] = positions == null ? matches[match] : positions[matches[match]];
+                }
+                positions = matches;
+                positionCount = matchCount;
+            }
+        }
+
+        Block[] blocks = new Block[hiveColumnIndexes.length];
+        for (int i = 0; i < filterFieldIds.length; i++) {
+            Block block = filterBlocks[i];
+            if (block.getPositionCount() != positionCount) {
+                int[] indexes = getIndexes(filterBlockPositions[i], block.getPositionCount(), positions, positionCount);
+                block = block.getPositions(indexes, 0, positionCount);
+            }
+            blocks[filterFieldIds[i]] = block;
+        }
+        for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
+            if (blocks[fieldId] != null) {
+                continue;
+            }
+            Type type = types.get(fieldId);
+            if (constantBlocks[fieldId] != null) {
+                blocks[fieldId] = constantBlocks[fieldId].getRegion(0, positionCount);
+            }
+            else if (positions == null) {
+                blocks[fieldId] = new LazyBlock(positionCount, new OrcBlockLoader(hiveColumnIndexes[fieldId], type));
+            }
+            else {
+                blocks[fieldId] = new LazyBlock(positionCount, new OrcBlockLoader(hiveColumnIndexes[fieldId], type, positions, positionCount));
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    /**
+     * Returns the indexes within {@code readPositions} of each of the {@code positions}, which are a subset of them.
+     * A null {@code readPositions} means every position of the batch was read.
+     */
+    private static int[] getIndexes(int[] readPositions, int readPositionCount, int[] positions, int positionCount)
+    {
+        if (readPositions == null) {
+            return positions;
+        }
+        int[] indexes = new int[positionCount];
+        int readIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (readIndex < readPositionCount && readPositions[readIndex] != positions[i]) {
+                readIndex++;
+            }
+            checkState(readIndex < readPositionCount, "position %s was not read", positions[i]);
+            indexes[i] = readIndex;
+        }
+        return indexes;
+    }
+
     @Override
     public void close()
     {
@@ -217,12 +359,21 @@ public class OrcPageSource
         private final int expectedBatchId = batchId;
         private final int columnIndex;
         private final Type type;
+        private final int[] positions;
+        private final int positionCount;
         private boolean loaded;
 
         public OrcBlockLoader(int columnIndex, Type type)
+        {
+            this(columnIndex, type, null, -1);
+        }
+
+        public OrcBlockLoader(int columnIndex, Type type, int[] positions, int positionCount)
         {
             this.columnIndex = columnIndex;
             this.type = requireNonNull(type, "type is null");
+            this.positions = positions;
+            this.positionCount = positionCount;
         }
 
         @Override
@@ -235,7 +386,13 @@ public class OrcPageSource
             checkState(batchId == expectedBatchId);
 
             try {
-                Block block = recordReader.readBlock(type, columnIndex);
+                Block block;
+                if (positions == null) {
+                    block = recordReader.readBlock(type, columnIndex);
+                }
+                else {
+                    block = recordReader.readBlock(type, columnIndex, positions, positionCount);
+                }
                 lazyBlock.setBlock(block);
             }
             catch (OrcCorruptionException e) {
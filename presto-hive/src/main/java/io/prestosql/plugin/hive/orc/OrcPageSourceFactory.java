@@ -20,20 +20,26 @@ import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.orc.OrcDataSource;
 import io.prestosql.orc.OrcDataSourceId;
 import io.prestosql.orc.OrcEncoding;
+import io.prestosql.orc.OrcFileTail;
 import io.prestosql.orc.OrcPredicate;
 import io.prestosql.orc.OrcReader;
 import io.prestosql.orc.OrcRecordReader;
+import io.prestosql.orc.ReadAheadOrcDataSource;
 import io.prestosql.orc.TupleDomainOrcPredicate;
 import io.prestosql.orc.TupleDomainOrcPredicate.ColumnReference;
 import io.prestosql.plugin.hive.FileFormatDataSourceStats;
+import io.prestosql.plugin.hive.ForReadAhead;
 import io.prestosql.plugin.hive.HdfsEnvironment;
 import io.prestosql.plugin.hive.HiveClientConfig;
 import io.prestosql.plugin.hive.HiveColumnHandle;
 import io.prestosql.plugin.hive.HivePageSourceFactory;
+import io.prestosql.plugin.hive.cache.FileRangeCache;
+import io.prestosql.plugin.hive.cache.FooterCache;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.FixedPageSource;
+import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeManager;
@@ -53,9 +59,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.orc.OrcEncoding.ORC;
 import static io.prestosql.orc.OrcReader.INITIAL_BATCH_SIZE;
@@ -63,6 +72,7 @@ import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_FILE_MISSING_COLUMN_NAMES;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static io.prestosql.plugin.hive.HiveSessionProperties.getMaxReadAheadSize;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcLazyReadSmallRanges;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcMaxBufferSize;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcMaxMergeDistance;
@@ -70,7 +80,11 @@ import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcMaxReadBlockS
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getOrcTinyStripeThreshold;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isOrcBloomFiltersEnabled;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isOrcSelectiveReadingEnabled;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isReadAheadEnabled;
 import static io.prestosql.plugin.hive.HiveUtil.isDeserializerClass;
+import static io.prestosql.plugin.hive.cache.FileRangeCache.noFileRangeCache;
+import static io.prestosql.plugin.hive.cache.FooterCache.noFooterCache;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -82,19 +96,49 @@ public class OrcPageSourceFactory
     private final boolean useOrcColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
+    private final FileRangeCache fileRangeCache;
+    private final Executor readAheadExecutor;
+    private final FooterCache footerCache;
 
-    @Inject
     public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, stats);
+        this(typeManager, config, hdfsEnvironment, stats, noFileRangeCache(), directExecutor(), noFooterCache());
+    }
+
+    @Inject
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            HiveClientConfig config,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            FileRangeCache fileRangeCache,
+            @ForReadAhead ExecutorService readAheadExecutor,
+            FooterCache footerCache)
+    {
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, stats, fileRangeCache, readAheadExecutor, footerCache);
     }
 
     public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
+    {
+        this(typeManager, useOrcColumnNames, hdfsEnvironment, stats, noFileRangeCache(), directExecutor(), noFooterCache());
+    }
+
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            FileRangeCache fileRangeCache,
+            Executor readAheadExecutor,
+            FooterCache footerCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
+        this.fileRangeCache = requireNonNull(fileRangeCache, "fileRangeCache is null");
+        this.readAheadExecutor = requireNonNull(readAheadExecutor, "readAheadExecutor is null");
+        this.footerCache = requireNonNull(footerCache, "footerCache is null");
     }
 
     @Override
@@ -105,6 +149,7 @@ public class OrcPageSourceFactory
             long start,
             long length,
             long fileSize,
+            long fileModifiedTime,
             Properties schema,
             List<HiveColumnHandle> columns,
             TupleDomain<HiveColumnHandle> effectivePredicate,
@@ -128,6 +173,7 @@ public class OrcPageSourceFactory
                 start,
                 length,
                 fileSize,
+                fileModifiedTime,
                 columns,
                 useOrcColumnNames,
                 effectivePredicate,
@@ -140,7 +186,13 @@ public class OrcPageSourceFactory
                 getOrcMaxReadBlockSize(session),
                 getOrcLazyReadSmallRanges(session),
                 isOrcBloomFiltersEnabled(session),
-                stats));
+                isOrcSelectiveReadingEnabled(session),
+                isReadAheadEnabled(session),
+                getMaxReadAheadSize(session),
+                readAheadExecutor,
+                stats,
+                fileRangeCache,
+                footerCache));
     }
 
     public static OrcPageSource createOrcPageSource(
@@ -152,6 +204,7 @@ public class OrcPageSourceFactory
             long start,
             long length,
             long fileSize,
+            long fileModifiedTime,
             List<HiveColumnHandle> columns,
             boolean useOrcColumnNames,
             TupleDomain<HiveColumnHandle> effectivePredicate,
@@ -164,12 +217,19 @@ public class OrcPageSourceFactory
             DataSize maxReadBlockSize,
             boolean lazyReadSmallRanges,
             boolean orcBloomFiltersEnabled,
-            FileFormatDataSourceStats stats)
+            boolean selectiveReadingEnabled,
+            boolean readAheadEnabled,
+            DataSize maxReadAheadSize,
+            Executor readAheadExecutor,
+            FileFormatDataSourceStats stats,
+            FileRangeCache fileRangeCache,
+            FooterCache footerCache)
     {
+        AggregatedMemoryContext systemMemoryUsage = newSimpleAggregatedMemoryContext();
         OrcDataSource orcDataSource;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(sessionUser, path, configuration);
-            FSDataInputStream inputStream = fileSystem.open(path);
+            FSDataInputStream inputStream = fileRangeCache.wrap(path, fileSize, fileModifiedTime, fileSystem.open(path));
             orcDataSource = new HdfsOrcDataSource(
                     new OrcDataSourceId(path.toString()),
                     fileSize,
@@ -179,6 +239,14 @@ public class OrcPageSourceFactory
                     lazyReadSmallRanges,
                     inputStream,
                     stats);
+            if (readAheadEnabled) {
+                orcDataSource = new ReadAheadOrcDataSource(
+                        orcDataSource,
+                        readAheadExecutor,
+                        maxMergeDistance,
+                        maxReadAheadSize,
+                        systemMemoryUsage.newLocalMemoryContext(ReadAheadOrcDataSource.class.getSimpleName()));
+            }
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
@@ -188,9 +256,17 @@ public class OrcPageSourceFactory
             throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, splitError(e, path, start, length), e);
         }
 
-        AggregatedMemoryContext systemMemoryUsage = newSimpleAggregatedMemoryContext();
         try {
-            OrcReader reader = new OrcReader(orcDataSource, orcEncoding, maxMergeDistance, maxBufferSize, tinyStripeThreshold, maxReadBlockSize);
+            OrcReader reader;
+            if (footerCache.isEnabled()) {
+                OrcDataSource tailDataSource = orcDataSource;
+                OrcFileTail fileTail = footerCache.getOrcFileTail(path, fileSize, fileModifiedTime, orcEncoding, () -> OrcReader.readFileTail(tailDataSource, orcEncoding));
+                reader = new OrcReader(orcDataSource, orcEncoding, fileTail, maxMergeDistance, maxBufferSize, tinyStripeThreshold, maxReadBlockSize);
+            }
+            else {
+                // the reader reads the tail of tiny files from the cached file contents
+                reader = new OrcReader(orcDataSource, orcEncoding, maxMergeDistance, maxBufferSize, tinyStripeThreshold, maxReadBlockSize);
+            }
 
             List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path);
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -214,10 +290,16 @@ public class OrcPageSourceFactory
                     systemMemoryUsage,
                     INITIAL_BATCH_SIZE);
 
+            Map<Integer, Domain> columnDomains = ImmutableMap.of();
+            if (selectiveReadingEnabled) {
+                columnDomains = getColumnDomains(columns, effectivePredicate);
+            }
+
             return new OrcPageSource(
                     recordReader,
                     orcDataSource,
                     physicalColumns,
+                    columnDomains,
                     typeManager,
                     systemMemoryUsage,
                     stats);
@@ -239,6 +321,19 @@ public class OrcPageSourceFactory
         }
     }
 
+    private static Map<Integer, Domain> getColumnDomains(List<HiveColumnHandle> columns, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        Map<HiveColumnHandle, Domain> domains = effectivePredicate.getDomains().orElse(ImmutableMap.of());
+        ImmutableMap.Builder<Integer, Domain> columnDomains = ImmutableMap.builder();
+        for (int i = 0; i < columns.size(); i++) {
+            Domain domain = domains.get(columns.get(i));
+            if (domain != null) {
+                columnDomains.put(i, domain);
+            }
+        }
+        return columnDomains.build();
+    }
+
     private static String splitError(Throwable t, Path path, long start, long length)
     {
         return format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, t.getMessage());
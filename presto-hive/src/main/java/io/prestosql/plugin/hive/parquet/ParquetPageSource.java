@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableList;
 import io.prestosql.parquet.Field;
 import io.prestosql.parquet.ParquetCorruptionException;
 import io.prestosql.parquet.reader.ParquetReader;
+import io.prestosql.plugin.hive.FileFormatDataSourceStats;
 import io.prestosql.plugin.hive.HiveColumnHandle;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.PrestoException;
@@ -36,8 +37,10 @@ import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.toCompletableFuture;
 import static io.prestosql.parquet.ParquetTypeUtils.getFieldIndex;
 import static io.prestosql.parquet.ParquetTypeUtils.lookupColumnByName;
 import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
@@ -65,6 +68,7 @@ public class ParquetPageSource
     private int batchId;
     private boolean closed;
     private final boolean useParquetColumnNames;
+    private final FileFormatDataSourceStats stats;
 
     public ParquetPageSource(
             ParquetReader parquetReader,
@@ -74,7 +78,8 @@ public class ParquetPageSource
             Properties splitSchema,
             List<HiveColumnHandle> columns,
             TupleDomain<HiveColumnHandle> effectivePredicate,
-            boolean useParquetColumnNames)
+            boolean useParquetColumnNames,
+            FileFormatDataSourceStats stats)
     {
         requireNonNull(splitSchema, "splitSchema is null");
         requireNonNull(columns, "columns is null");
@@ -82,6 +87,7 @@ public class ParquetPageSource
         this.parquetReader = requireNonNull(parquetReader, "parquetReader is null");
         this.fileSchema = requireNonNull(fileSchema, "fileSchema is null");
         this.useParquetColumnNames = useParquetColumnNames;
+        this.stats = requireNonNull(stats, "stats is null");
 
         int size = columns.size();
         this.constantBlocks = new Block[size];
@@ -133,6 +139,15 @@ public class ParquetPageSource
         return closed;
     }
 
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (closed) {
+            return NOT_BLOCKED;
+        }
+        return toCompletableFuture(parquetReader.isBlocked());
+    }
+
     @Override
     public long getSystemMemoryUsage()
     {
@@ -180,7 +195,7 @@ public class ParquetPageSource
             closeWithSuppression(e);
             throw e;
         }
-        catch (RuntimeException e) {
+        catch (IOException | RuntimeException e) {
             closeWithSuppression(e);
             throw new PrestoException(HIVE_CURSOR_ERROR, e);
         }
@@ -209,6 +224,7 @@ public class ParquetPageSource
         closed = true;
 
         try {
+            stats.addSkippedParquetPages(parquetReader.getSkippedPageCount());
             parquetReader.close();
         }
         catch (IOException e) {
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.text;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.prestosql.rcfile.ColumnData;
+import io.prestosql.rcfile.ColumnEncoding;
+import io.prestosql.rcfile.RcFileCorruptionException;
+import io.prestosql.rcfile.text.TextRcFileEncoding;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.Type;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes lines in the format of the Hive {@code LazySimpleSerDe}. The fields of the
+ * read columns are copied into a buffer per column, and each batch of buffered fields
+ * is decoded with the text encodings of the RCFile reader, which use the same format.
+ * Fields after the last read column are not scanned.
+ */
+class DelimitedTextRowDecoder
+        implements TextRowDecoder
+{
+    private static final int INITIAL_ROW_COUNT = 1024;
+
+    private final byte fieldSeparator;
+    private final boolean escaped;
+    private final byte escapeByte;
+    private final Slice nullSequence;
+
+    // field index to the index of the read column, or -1 if the field is not read
+    private final int[] fieldColumns;
+    private final int lastField;
+    // field that contains the rest of the line, including separators
+    private final int restField;
+
+    private final ColumnEncoding[] encodings;
+    private final DynamicSliceOutput[] columnData;
+    private final int[][] columnOffsets;
+
+    private int rowCount;
+
+    /**
+     * @param fieldIndexes the field index of each read column
+     * @param fieldCount the number of fields declared by the table
+     */
+    public DelimitedTextRowDecoder(TextRcFileEncoding encoding, List<Integer> fieldIndexes, List<Type> types, int fieldCount)
+    {
+        requireNonNull(encoding, "encoding is null");
+        requireNonNull(fieldIndexes, "fieldIndexes is null");
+        requireNonNull(types, "types is null");
+        checkArgument(fieldIndexes.size() == types.size(), "fieldIndexes and types do not match");
+
+        this.fieldSeparator = encoding.getFieldSeparator();
+        this.escaped = encoding.getEscapeByte().isPresent();
+        this.escapeByte = encoding.getEscapeByte().orElse((byte) 0);
+        this.nullSequence = encoding.getNullSequence();
+        this.restField = encoding.isLastColumnTakesRest() ? fieldCount - 1 : Integer.MAX_VALUE;
+
+        this.lastField = fieldIndexes.stream()
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElse(-1);
+        this.fieldColumns = new int[lastField + 1];
+        Arrays.fill(fieldColumns, -1);
+
+        int columnCount = fieldIndexes.size();
+        this.encodings = new ColumnEncoding[columnCount];
+        this.columnData = new DynamicSliceOutput[columnCount];
+        this.columnOffsets = new int[columnCount][];
+        for (int column = 0; column < columnCount; column++) {
+            fieldColumns[fieldIndexes.get(column)] = column;
+            encodings[column] = encoding.getEncoding(types.get(column));
+            columnData[column] = new DynamicSliceOutput(INITIAL_ROW_COUNT);
+            columnOffsets[column] = new int[INITIAL_ROW_COUNT + 1];
+        }
+    }
+
+    @SuppressWarnings("AssignmentToForLoopParameter")
+    @Override
+    public void decodeRow(byte[] line, int offset, int length)
+    {
+        int end = offset + length;
+        int field = 0;
+        int fieldStart = offset;
+        for (int position = offset; position < end && field <= lastField && field != restField; position++) {
+            byte value = line[position];
+            if (escaped && value == escapeByte) {
+                // the escaped byte is not a separator
+                position++;
+            }
+            else if (value == fieldSeparator) {
+                appendField(field, line, fieldStart, position - fieldStart);
+                field++;
+                fieldStart = position + 1;
+            }
+        }
+        if (field <= lastField) {
+            appendField(field, line, fieldStart, end - fieldStart);
+            field++;
+        }
+
+        // fields missing from the line are null
+        for (; field <= lastField; field++) {
+            int column = fieldColumns[field];
+            if (column >= 0) {
+                columnData[column].writeBytes(nullSequence);
+            }
+        }
+
+        rowCount++;
+        for (int column = 0; column < columnData.length; column++) {
+            if (columnOffsets[column].length <= rowCount) {
+                columnOffsets[column] = Arrays.copyOf(columnOffsets[column], columnOffsets[column].length * 2);
+            }
+            columnOffsets[column][rowCount] = columnData[column].size();
+        }
+    }
+
+    @Override
+    public Block[] buildBlocks(int rowCount)
+            throws RcFileCorruptionException
+    {
+        checkState(rowCount == this.rowCount, "Expected %s buffered rows, but have %s", rowCount, this.rowCount);
+
+        Block[] blocks = new Block[columnData.length];
+        for (int column = 0; column < columnData.length; column++) {
+            ColumnData data = new ColumnData(Arrays.copyOf(columnOffsets[column], rowCount + 1), columnData[column].slice());
+            blocks[column] = encodings[column].decodeColumn(data);
+            columnData[column].reset();
+        }
+        this.rowCount = 0;
+        return blocks;
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (DynamicSliceOutput data : columnData) {
+            bufferedBytes += data.size();
+        }
+        return bufferedBytes;
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSize = 0;
+        for (int column = 0; column < columnData.length; column++) {
+            retainedSize += columnData[column].getRetainedSize() + sizeOf(columnOffsets[column]);
+        }
+        return retainedSize;
+    }
+
+    private void appendField(int field, byte[] line, int offset, int length)
+    {
+        int column = fieldColumns[field];
+        if (column >= 0) {
+            columnData[column].writeBytes(line, offset, length);
+        }
+    }
+}
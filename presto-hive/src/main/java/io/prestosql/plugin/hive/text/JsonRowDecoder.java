@@ -0,0 +1,399 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.text;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.SingleRowBlockWriter;
+import io.prestosql.spi.type.ArrayType;
+import io.prestosql.spi.type.CharType;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.MapType;
+import io.prestosql.spi.type.RowType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.VarcharType;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.plugin.hive.HiveUtil.parseHiveDate;
+import static io.prestosql.plugin.hive.HiveUtil.parseHiveTimestamp;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.Chars.truncateToLengthAndTrimSpaces;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.Decimals.encodeScaledValue;
+import static io.prestosql.spi.type.Decimals.encodeShortScaledValue;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.spi.type.Varchars.truncateToLength;
+import static java.lang.Float.floatToRawIntBits;
+import static java.lang.String.format;
+import static java.math.RoundingMode.HALF_UP;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes lines in the format of the Hive {@code JsonSerDe}, where each line is a JSON
+ * object with a field per column. Values are parsed from the token stream directly into
+ * the block builders of the read columns, and the values of other fields are skipped.
+ * Fields are matched by name ignoring case, and columns without a field are null.
+ */
+class JsonRowDecoder
+        implements TextRowDecoder
+{
+    private static final int INITIAL_ROW_COUNT = 1024;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final Map<String, Integer> columnIndexes;
+    private final ValueDecoder[] decoders;
+    private final BlockBuilder[] blockBuilders;
+    private final boolean[] columnWritten;
+
+    public JsonRowDecoder(List<String> columnNames, List<Type> types, DateTimeZone hiveStorageTimeZone)
+    {
+        requireNonNull(columnNames, "columnNames is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        checkArgument(columnNames.size() == types.size(), "columnNames and types do not match");
+
+        ImmutableMap.Builder<String, Integer> columnIndexes = ImmutableMap.builder();
+        this.decoders = new ValueDecoder[types.size()];
+        this.blockBuilders = new BlockBuilder[types.size()];
+        for (int column = 0; column < types.size(); column++) {
+            Type type = types.get(column);
+            columnIndexes.put(columnNames.get(column).toLowerCase(ENGLISH), column);
+            decoders[column] = createDecoder(type, hiveStorageTimeZone)
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported type: " + type));
+            blockBuilders[column] = type.createBlockBuilder(null, INITIAL_ROW_COUNT);
+        }
+        this.columnIndexes = columnIndexes.build();
+        this.columnWritten = new boolean[types.size()];
+    }
+
+    /**
+     * Returns true if the values of the type can be decoded. Binary values and maps
+     * with keys that are not primitive values are not supported.
+     */
+    public static boolean isSupportedType(Type type)
+    {
+        return createDecoder(type, DateTimeZone.UTC).isPresent();
+    }
+
+    @Override
+    public void decodeRow(byte[] line, int offset, int length)
+            throws IOException
+    {
+        try (JsonParser parser = jsonFactory.createParser(line, offset, length)) {
+            if (parser.nextToken() != START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            while (parser.nextToken() != END_OBJECT) {
+                if (parser.getCurrentToken() != FIELD_NAME) {
+                    throw new JsonParseException(parser, "Expected a JSON field name");
+                }
+                Integer column = columnIndexes.get(parser.getCurrentName().toLowerCase(ENGLISH));
+                parser.nextToken();
+                if (column == null || columnWritten[column]) {
+                    parser.skipChildren();
+                    continue;
+                }
+                columnWritten[column] = true;
+                decoders[column].decode(parser, blockBuilders[column]);
+            }
+        }
+
+        for (int column = 0; column < columnWritten.length; column++) {
+            if (!columnWritten[column]) {
+                blockBuilders[column].appendNull();
+            }
+            columnWritten[column] = false;
+        }
+    }
+
+    @Override
+    public Block[] buildBlocks(int rowCount)
+    {
+        Block[] blocks = new Block[blockBuilders.length];
+        for (int column = 0; column < blockBuilders.length; column++) {
+            blocks[column] = blockBuilders[column].build();
+            blockBuilders[column] = blockBuilders[column].newBlockBuilderLike(null);
+        }
+        return blocks;
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (BlockBuilder blockBuilder : blockBuilders) {
+            bufferedBytes += blockBuilder.getSizeInBytes();
+        }
+        return bufferedBytes;
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSize = 0;
+        for (BlockBuilder blockBuilder : blockBuilders) {
+            retainedSize += blockBuilder.getRetainedSizeInBytes();
+        }
+        return retainedSize;
+    }
+
+    private static Optional<ValueDecoder> createDecoder(Type type, DateTimeZone hiveStorageTimeZone)
+    {
+        if (BOOLEAN.equals(type)) {
+            return primitiveDecoder((parser, builder) -> BOOLEAN.writeBoolean(builder, Boolean.parseBoolean(parser.getText())));
+        }
+        if (TINYINT.equals(type)) {
+            return integerDecoder(TINYINT, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        }
+        if (SMALLINT.equals(type)) {
+            return integerDecoder(SMALLINT, Short.MIN_VALUE, Short.MAX_VALUE);
+        }
+        if (INTEGER.equals(type)) {
+            return integerDecoder(INTEGER, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        if (BIGINT.equals(type)) {
+            return integerDecoder(BIGINT, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        if (REAL.equals(type)) {
+            return primitiveDecoder((parser, builder) -> REAL.writeLong(builder, floatToRawIntBits((float) parseDouble(parser))));
+        }
+        if (DOUBLE.equals(type)) {
+            return primitiveDecoder((parser, builder) -> DOUBLE.writeDouble(builder, parseDouble(parser)));
+        }
+        if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            return primitiveDecoder((parser, builder) -> writeDecimal(decimalType, builder, parser));
+        }
+        if (type instanceof VarcharType) {
+            return primitiveDecoder((parser, builder) -> type.writeSlice(builder, truncateToLength(utf8Slice(parser.getText()), type)));
+        }
+        if (type instanceof CharType) {
+            return primitiveDecoder((parser, builder) -> type.writeSlice(builder, truncateToLengthAndTrimSpaces(utf8Slice(parser.getText()), type)));
+        }
+        if (DATE.equals(type)) {
+            return primitiveDecoder((parser, builder) -> DATE.writeLong(builder, parseHiveDate(parser.getText())));
+        }
+        if (TIMESTAMP.equals(type)) {
+            return primitiveDecoder((parser, builder) -> TIMESTAMP.writeLong(builder, parseHiveTimestamp(parser.getText(), hiveStorageTimeZone)));
+        }
+        if (type instanceof ArrayType) {
+            return createDecoder(((ArrayType) type).getElementType(), hiveStorageTimeZone)
+                    .map(JsonRowDecoder::arrayDecoder);
+        }
+        if (type instanceof MapType) {
+            MapType mapType = (MapType) type;
+            Type keyType = mapType.getKeyType();
+            if (keyType instanceof ArrayType || keyType instanceof MapType || keyType instanceof RowType) {
+                return Optional.empty();
+            }
+            Optional<ValueDecoder> keyDecoder = createDecoder(keyType, hiveStorageTimeZone);
+            Optional<ValueDecoder> valueDecoder = createDecoder(mapType.getValueType(), hiveStorageTimeZone);
+            if (!keyDecoder.isPresent() || !valueDecoder.isPresent()) {
+                return Optional.empty();
+            }
+            return Optional.of(mapDecoder(keyDecoder.get(), valueDecoder.get()));
+        }
+        if (type instanceof RowType) {
+            List<RowType.Field> fields = ((RowType) type).getFields();
+            ImmutableMap.Builder<String, Integer> fieldIndexes = ImmutableMap.builder();
+            ValueDecoder[] fieldDecoders = new ValueDecoder[fields.size()];
+            for (int field = 0; field < fields.size(); field++) {
+                Optional<ValueDecoder> fieldDecoder = createDecoder(fields.get(field).getType(), hiveStorageTimeZone);
+                if (!fields.get(field).getName().isPresent() || !fieldDecoder.isPresent()) {
+                    return Optional.empty();
+                }
+                fieldIndexes.put(fields.get(field).getName().get().toLowerCase(ENGLISH), field);
+                fieldDecoders[field] = fieldDecoder.get();
+            }
+            return Optional.of(rowDecoder(fieldIndexes.build(), fieldDecoders));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ValueDecoder> primitiveDecoder(ValueDecoder decoder)
+    {
+        return Optional.of((parser, builder) -> {
+            JsonToken token = parser.getCurrentToken();
+            if (token == VALUE_NULL) {
+                builder.appendNull();
+                return;
+            }
+            // map keys are decoded from the field names
+            if (!token.isScalarValue() && token != FIELD_NAME) {
+                throw new JsonParseException(parser, "Expected a JSON primitive value");
+            }
+            decoder.decode(parser, builder);
+        });
+    }
+
+    private static Optional<ValueDecoder> integerDecoder(Type type, long minValue, long maxValue)
+    {
+        return primitiveDecoder((parser, builder) -> {
+            long value;
+            if (parser.getCurrentToken().isNumeric()) {
+                value = parser.getLongValue();
+            }
+            else {
+                try {
+                    value = Long.parseLong(parser.getText());
+                }
+                catch (NumberFormatException e) {
+                    throw new JsonParseException(parser, format("Invalid %s value: %s", type, parser.getText()), e);
+                }
+            }
+            if (value < minValue || value > maxValue) {
+                throw new JsonParseException(parser, format("Value is out of range for %s: %s", type, value));
+            }
+            type.writeLong(builder, value);
+        });
+    }
+
+    private static double parseDouble(JsonParser parser)
+            throws IOException
+    {
+        if (parser.getCurrentToken().isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        try {
+            return Double.parseDouble(parser.getText());
+        }
+        catch (NumberFormatException e) {
+            throw new JsonParseException(parser, "Invalid floating point value: " + parser.getText(), e);
+        }
+    }
+
+    private static void writeDecimal(DecimalType type, BlockBuilder builder, JsonParser parser)
+            throws IOException
+    {
+        BigDecimal value;
+        try {
+            value = new BigDecimal(parser.getText()).setScale(type.getScale(), HALF_UP);
+        }
+        catch (NumberFormatException e) {
+            throw new JsonParseException(parser, "Invalid decimal value: " + parser.getText(), e);
+        }
+        // like Hive, values that do not fit the precision of the column are null
+        if (value.precision() > type.getPrecision()) {
+            builder.appendNull();
+        }
+        else if (type.isShort()) {
+            type.writeLong(builder, encodeShortScaledValue(value, type.getScale()));
+        }
+        else {
+            type.writeSlice(builder, encodeScaledValue(value, type.getScale()));
+        }
+    }
+
+    private static ValueDecoder arrayDecoder(ValueDecoder elementDecoder)
+    {
+        return (parser, builder) -> {
+            if (parser.getCurrentToken() == VALUE_NULL) {
+                builder.appendNull();
+                return;
+            }
+            if (parser.getCurrentToken() != START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array");
+            }
+            BlockBuilder entryBuilder = builder.beginBlockEntry();
+            while (parser.nextToken() != END_ARRAY) {
+                elementDecoder.decode(parser, entryBuilder);
+            }
+            builder.closeEntry();
+        };
+    }
+
+    private static ValueDecoder mapDecoder(ValueDecoder keyDecoder, ValueDecoder valueDecoder)
+    {
+        return (parser, builder) -> {
+            if (parser.getCurrentToken() == VALUE_NULL) {
+                builder.appendNull();
+                return;
+            }
+            if (parser.getCurrentToken() != START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            BlockBuilder entryBuilder = builder.beginBlockEntry();
+            while (parser.nextToken() != END_OBJECT) {
+                keyDecoder.decode(parser, entryBuilder);
+                parser.nextToken();
+                valueDecoder.decode(parser, entryBuilder);
+            }
+            builder.closeEntry();
+        };
+    }
+
+    private static ValueDecoder rowDecoder(Map<String, Integer> fieldIndexes, ValueDecoder[] fieldDecoders)
+    {
+        return (parser, builder) -> {
+            if (parser.getCurrentToken() == VALUE_NULL) {
+                builder.appendNull();
+                return;
+            }
+            if (parser.getCurrentToken() != START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            SingleRowBlockWriter entryBuilder = (SingleRowBlockWriter) builder.beginBlockEntry();
+            boolean[] fieldWritten = new boolean[fieldDecoders.length];
+            while (parser.nextToken() != END_OBJECT) {
+                Integer field = fieldIndexes.get(parser.getCurrentName().toLowerCase(ENGLISH));
+                parser.nextToken();
+                if (field == null || fieldWritten[field]) {
+                    parser.skipChildren();
+                    continue;
+                }
+                fieldWritten[field] = true;
+                fieldDecoders[field].decode(parser, entryBuilder.getFieldBlockBuilder(field));
+            }
+            for (int field = 0; field < fieldWritten.length; field++) {
+                if (!fieldWritten[field]) {
+                    entryBuilder.getFieldBlockBuilder(field).appendNull();
+                }
+            }
+            builder.closeEntry();
+        };
+    }
+
+    private interface ValueDecoder
+    {
+        void decode(JsonParser parser, BlockBuilder builder)
+                throws IOException;
+    }
+}
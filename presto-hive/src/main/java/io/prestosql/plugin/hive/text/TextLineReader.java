@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.text;
+
+import com.google.common.io.CountingInputStream;
+import io.prestosql.spi.PrestoException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Splits a text file into lines terminated by {@code \n}, {@code \r} or {@code \r\n}.
+ * <p>
+ * A split owns the lines that start at or before its end, except for the first line
+ * of a split that does not start at the beginning of the file, which is owned by the
+ * previous split. This is the same assignment as the Hadoop {@code LineRecordReader}.
+ */
+class TextLineReader
+        implements Closeable
+{
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final String id;
+    private final CountingInputStream rawInput;
+    private final InputStream input;
+    private final long end;
+    private final int maxLineLength;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int bufferStart;
+    private int bufferEnd;
+    private boolean endOfInput;
+
+    // position of the first unconsumed byte in the (decompressed) file
+    private long position;
+
+    private int lineOffset;
+    private int lineLength;
+
+    private long readTimeNanos;
+    private boolean closed;
+
+    /**
+     * @param rawInput the file stream, which is used to report the completed bytes
+     * @param input the stream the lines are read from, which is the raw stream or a decompressing stream on top of it
+     * @param start the position of the split in the file, which the input must be positioned at
+     * @param end the position after which no line of the split starts
+     */
+    public TextLineReader(String id, CountingInputStream rawInput, InputStream input, long start, long end, int maxLineLength)
+    {
+        this.id = requireNonNull(id, "id is null");
+        this.rawInput = requireNonNull(rawInput, "rawInput is null");
+        this.input = requireNonNull(input, "input is null");
+        checkArgument(start >= 0, "start is negative");
+        checkArgument(end >= start, "end is before start");
+        checkArgument(maxLineLength > 0, "maxLineLength must be positive");
+        this.position = start;
+        this.end = end;
+        this.maxLineLength = maxLineLength;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * Skips the next line, regardless of the end of the split.
+     */
+    public void skipLine()
+            throws IOException
+    {
+        findNextLine();
+    }
+
+    /**
+     * Reads the next line of the split. The line is available in the buffer
+     * until the next line is read.
+     *
+     * @return false if the split has no more lines
+     */
+    public boolean readLine()
+            throws IOException
+    {
+        if (position > end) {
+            return false;
+        }
+        return findNextLine();
+    }
+
+    public byte[] getLineBuffer()
+    {
+        return buffer;
+    }
+
+    public int getLineOffset()
+    {
+        return lineOffset;
+    }
+
+    public int getLineLength()
+    {
+        return lineLength;
+    }
+
+    public long getBytesRead()
+    {
+        return rawInput.getCount();
+    }
+
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return sizeOf(buffer);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        input.close();
+    }
+
+    private boolean findNextLine()
+            throws IOException
+    {
+        int scanned = 0;
+        while (true) {
+            for (int index = bufferStart + scanned; index < bufferEnd; index++) {
+                byte value = buffer[index];
+                if (value == '\n') {
+                    setLine(index, 1);
+                    return true;
+                }
+                if (value == '\r') {
+                    if (index + 1 < bufferEnd) {
+                        setLine(index, buffer[index + 1] == '\n' ? 2 : 1);
+                        return true;
+                    }
+                    if (endOfInput) {
+                        setLine(index, 1);
+                        return true;
+                    }
+                    // a carriage return at the end of the buffer may be followed by a line feed
+                    break;
+                }
+                scanned++;
+            }
+
+            if (endOfInput) {
+                if (bufferStart == bufferEnd) {
+                    return false;
+                }
+                setLine(bufferEnd, 0);
+                return true;
+            }
+            if (bufferEnd - bufferStart > maxLineLength) {
+                throw new PrestoException(HIVE_BAD_DATA, "Line too long in text file: " + id);
+            }
+            fillBuffer();
+        }
+    }
+
+    private void setLine(int lineEnd, int terminatorLength)
+    {
+        lineOffset = bufferStart;
+        lineLength = lineEnd - bufferStart;
+        if (lineLength > maxLineLength) {
+            throw new PrestoException(HIVE_BAD_DATA, "Line too long in text file: " + id);
+        }
+        int nextLineStart = lineEnd + terminatorLength;
+        position += nextLineStart - bufferStart;
+        bufferStart = nextLineStart;
+    }
+
+    private void fillBuffer()
+            throws IOException
+    {
+        // move the partial line to the start of the buffer, or grow the buffer if the line fills it
+        if (bufferStart > 0) {
+            System.arraycopy(buffer, bufferStart, buffer, 0, bufferEnd - bufferStart);
+            bufferEnd -= bufferStart;
+            bufferStart = 0;
+        }
+        else if (bufferEnd == buffer.length) {
+            buffer = Arrays.copyOf(buffer, max(buffer.length * 2, INITIAL_BUFFER_SIZE));
+        }
+
+        long start = System.nanoTime();
+        int bytesRead = input.read(buffer, bufferEnd, buffer.length - bufferEnd);
+        readTimeNanos += System.nanoTime() - start;
+
+        if (bytesRead < 0) {
+            endOfInput = true;
+        }
+        else {
+            bufferEnd += bytesRead;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.text;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.prestosql.rcfile.RcFileCorruptionException;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ConnectorPageSource;
+
+import java.io.IOException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static io.prestosql.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+public class TextPageSource
+        implements ConnectorPageSource
+{
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final TextLineReader lineReader;
+    private final TextRowDecoder rowDecoder;
+
+    private boolean closed;
+
+    TextPageSource(TextLineReader lineReader, TextRowDecoder rowDecoder)
+    {
+        this.lineReader = requireNonNull(lineReader, "lineReader is null");
+        this.rowDecoder = requireNonNull(rowDecoder, "rowDecoder is null");
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return lineReader.getBytesRead();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return lineReader.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        try {
+            int rowCount = 0;
+            while (rowCount < MAX_BATCH_SIZE && rowDecoder.getBufferedBytes() < DEFAULT_MAX_PAGE_SIZE_IN_BYTES && lineReader.readLine()) {
+                rowDecoder.decodeRow(lineReader.getLineBuffer(), lineReader.getLineOffset(), lineReader.getLineLength());
+                rowCount++;
+            }
+            if (rowCount == 0) {
+                close();
+                return null;
+            }
+            return new Page(rowCount, rowDecoder.buildBlocks(rowCount));
+        }
+        catch (PrestoException e) {
+            closeWithSuppression(e);
+            throw e;
+        }
+        catch (RcFileCorruptionException | JsonProcessingException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_BAD_DATA, format("Corrupted text file: %s", lineReader.getId()), e);
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR, format("Failed to read text file: %s", lineReader.getId()), e);
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        lineReader.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("file", lineReader.getId())
+                .toString();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return lineReader.getRetainedSizeInBytes() + rowDecoder.getRetainedSizeInBytes();
+    }
+
+    private void closeWithSuppression(Throwable throwable)
+    {
+        requireNonNull(throwable, "throwable is null");
+        try {
+            close();
+        }
+        catch (Exception e) {
+            if (e != throwable) {
+                throwable.addSuppressed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.text;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.CountingInputStream;
+import io.prestosql.plugin.hive.HdfsEnvironment;
+import io.prestosql.plugin.hive.HiveColumnHandle;
+import io.prestosql.plugin.hive.HivePageSourceFactory;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ConnectorPageSource;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.TypeManager;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.BlockMissingException;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+import org.joda.time.DateTimeZone;
+
+import javax.inject.Inject;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isNativeTextReaderEnabled;
+import static io.prestosql.plugin.hive.HiveStorageFormat.JSON;
+import static io.prestosql.plugin.hive.HiveStorageFormat.TEXTFILE;
+import static io.prestosql.plugin.hive.HiveUtil.configureCompressionCodecs;
+import static io.prestosql.plugin.hive.HiveUtil.getDeserializerClassName;
+import static io.prestosql.plugin.hive.HiveUtil.getFooterCount;
+import static io.prestosql.plugin.hive.HiveUtil.getHeaderCount;
+import static io.prestosql.plugin.hive.HiveUtil.getInputFormatName;
+import static io.prestosql.plugin.hive.rcfile.RcFilePageSourceFactory.createTextVectorEncoding;
+import static io.prestosql.plugin.hive.util.ConfigurationUtils.toJobConf;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
+
+/**
+ * Reads text files of the {@code LazySimpleSerDe} and JSON files of the Hive {@code JsonSerDe}
+ * directly into pages. Files that need features of the Hive text input format or the SerDes
+ * that are not implemented here are read with the record cursor.
+ */
+public class TextPageSourceFactory
+        implements HivePageSourceFactory
+{
+    private static final String RECORD_DELIMITER = "textinputformat.record.delimiter";
+    private static final String SERIALIZATION_ENCODING = "serialization.encoding";
+
+    private final TypeManager typeManager;
+    private final HdfsEnvironment hdfsEnvironment;
+
+    @Inject
+    public TextPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment)
+    {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            long fileModifiedTime,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            TupleDomain<HiveColumnHandle> effectivePredicate,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        if (!isNativeTextReaderEnabled(session) || !getInputFormatName(schema).equals(TEXTFILE.getInputFormat())) {
+            return Optional.empty();
+        }
+        // footers, custom line delimiters and character sets are only supported by the record cursor
+        if (getFooterCount(schema) > 0 || configuration.get(RECORD_DELIMITER) != null || schema.getProperty(SERIALIZATION_ENCODING) != null) {
+            return Optional.empty();
+        }
+
+        List<Type> types = columns.stream()
+                .map(column -> column.getHiveType().getType(typeManager))
+                .collect(toImmutableList());
+
+        String deserializerClassName = getDeserializerClassName(schema);
+        boolean json;
+        if (deserializerClassName.equals(TEXTFILE.getSerDe())) {
+            json = false;
+        }
+        else if (deserializerClassName.equals(JSON.getSerDe()) && types.stream().allMatch(JsonRowDecoder::isSupportedType)) {
+            json = true;
+        }
+        else {
+            return Optional.empty();
+        }
+
+        JobConf jobConf = toJobConf(configuration);
+        configureCompressionCodecs(jobConf);
+        CompressionCodec codec = new CompressionCodecFactory(jobConf).getCodec(path);
+        // compressed files are read by a single split, unless the codec can be split by Hadoop
+        if (codec != null && (start != 0 || length != fileSize)) {
+            return Optional.empty();
+        }
+
+        FSDataInputStream inputStream;
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
+            inputStream = fileSystem.open(path);
+        }
+        catch (Exception e) {
+            if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
+                    e instanceof FileNotFoundException) {
+                throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, splitError(e, path, start, length), e);
+        }
+
+        try {
+            CountingInputStream rawInput = new CountingInputStream(inputStream);
+            InputStream input;
+            long end;
+            if (codec == null) {
+                inputStream.seek(start);
+                input = rawInput;
+                end = start + length;
+            }
+            else {
+                input = codec.createInputStream(rawInput);
+                end = Long.MAX_VALUE;
+            }
+            int maxLineLength = configuration.getInt(LineRecordReader.MAX_LINE_LENGTH, Integer.MAX_VALUE);
+            TextLineReader lineReader = new TextLineReader(path.toString(), rawInput, input, start, end, maxLineLength);
+
+            // the first line belongs to the previous split
+            if (start != 0) {
+                lineReader.skipLine();
+            }
+            // files with headers are not split
+            int headerCount = getHeaderCount(schema);
+            for (int line = 0; line < headerCount; line++) {
+                lineReader.skipLine();
+            }
+
+            TextRowDecoder rowDecoder;
+            if (json) {
+                List<String> columnNames = columns.stream()
+                        .map(HiveColumnHandle::getName)
+                        .collect(toImmutableList());
+                rowDecoder = new JsonRowDecoder(columnNames, types, hiveStorageTimeZone);
+            }
+            else {
+                List<Integer> fieldIndexes = columns.stream()
+                        .map(HiveColumnHandle::getHiveColumnIndex)
+                        .collect(toImmutableList());
+                int fieldCount = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(schema.getProperty(META_TABLE_COLUMNS, "")).size();
+                rowDecoder = new DelimitedTextRowDecoder(createTextVectorEncoding(schema, hiveStorageTimeZone), fieldIndexes, types, fieldCount);
+            }
+
+            return Optional.of(new TextPageSource(lineReader, rowDecoder));
+        }
+        catch (Throwable e) {
+            try {
+                inputStream.close();
+            }
+            catch (IOException ignored) {
+            }
+            if (e instanceof PrestoException) {
+                throw (PrestoException) e;
+            }
+            String message = splitError(e, path, start, length);
+            if (e instanceof BlockMissingException) {
+                throw new PrestoException(HIVE_MISSING_DATA, message, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, message, e);
+        }
+    }
+
+    private static String splitError(Throwable t, Path path, long start, long length)
+    {
+        return format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, t.getMessage());
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.text;
+
+import io.prestosql.spi.block.Block;
+
+import java.io.IOException;
+
+/**
+ * Decodes the lines of a text file into blocks of the columns that are read.
+ */
+interface TextRowDecoder
+{
+    /**
+     * Decodes a line and buffers the values of the read columns.
+     */
+    void decodeRow(byte[] line, int offset, int length)
+            throws IOException;
+
+    /**
+     * Returns the blocks of the buffered rows, in the order of the read columns,
+     * and clears the buffered rows.
+     */
+    Block[] buildBlocks(int rowCount)
+            throws IOException;
+
+    long getBufferedBytes();
+
+    long getRetainedSizeInBytes();
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.io.Files;
+import io.prestosql.Session;
+import io.prestosql.testing.LocalQueryRunner;
+import io.prestosql.testing.MaterializedResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.prestosql.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.prestosql.plugin.hive.HiveBenchmarkQueryRunner.createLocalQueryRunner;
+
+/**
+ * Joins lineitem with the orders of a single customer, so the probe side scan
+ * can skip almost all of lineitem once the build side domain is known.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkHiveDynamicFiltering
+{
+    @Benchmark
+    public MaterializedResult selectiveJoin(BenchmarkData data)
+    {
+        return data.queryRunner.execute(data.session, "SELECT sum(l.quantity) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = 1");
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"true", "false"})
+        private boolean dynamicFiltering;
+
+        private File tempDir;
+        private LocalQueryRunner queryRunner;
+        private Session session;
+
+        @Setup
+        public void setup()
+        {
+            tempDir = Files.createTempDir();
+            queryRunner = createLocalQueryRunner(tempDir);
+            session = Session.builder(queryRunner.getDefaultSession())
+                    .setSystemProperty(ENABLE_DYNAMIC_FILTERING, String.valueOf(dynamicFiltering))
+                    .setCatalogSessionProperty("hive", "orc_selective_reading_enabled", "true")
+                    .build();
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            queryRunner.close();
+            deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkHiveDynamicFiltering.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -26,10 +26,14 @@ import io.prestosql.plugin.hive.HiveClientConfig.HiveMetastoreAuthenticationType
 import io.prestosql.plugin.hive.s3.S3FileSystemType;
 import org.testng.annotations.Test;
 
+import javax.validation.constraints.AssertTrue;
+
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.testing.ValidationAssertions.assertFailsValidation;
+import static io.airlift.testing.ValidationAssertions.assertValidates;
 import static io.prestosql.plugin.hive.TestHiveUtil.nonDefaultTimeZone;
 
 public class TestHiveClientConfig
@@ -92,6 +96,7 @@ public class TestHiveClientConfig
                 .setOrcTinyStripeThreshold(new DataSize(8, Unit.MEGABYTE))
                 .setOrcMaxReadBlockSize(new DataSize(16, Unit.MEGABYTE))
                 .setOrcLazyReadSmallRanges(true)
+                .setOrcSelectiveReadingEnabled(false)
                 .setRcfileOptimizedWriterEnabled(true)
                 .setRcfileWriterValidate(false)
                 .setOrcOptimizedWriterEnabled(true)
@@ -119,7 +124,18 @@ public class TestHiveClientConfig
                 .setS3SelectPushdownEnabled(false)
                 .setS3SelectPushdownMaxConnections(500)
                 .setTemporaryStagingDirectoryEnabled(true)
-                .setTemporaryStagingDirectoryPath("/tmp/presto-${USER}"));
+                .setTemporaryStagingDirectoryPath("/tmp/presto-${USER}")
+                .setFileRangeCacheEnabled(false)
+                .setFileRangeCacheLocation(null)
+                .setFileRangeCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setFileRangeCacheBlockSize(new DataSize(1, Unit.MEGABYTE))
+                .setReadAheadEnabled(false)
+                .setMaxReadAheadSize(new DataSize(16, Unit.MEGABYTE))
+                .setReadAheadThreads(64)
+                .setFooterCacheEnabled(false)
+                .setFooterCacheMaxSize(new DataSize(64, Unit.MEGABYTE))
+                .setFooterCacheTtl(new Duration(1, TimeUnit.HOURS))
+                .setNativeTextReaderEnabled(false));
     }
 
     @Test
@@ -179,6 +195,7 @@ public class TestHiveClientConfig
                 .put("hive.orc.tiny-stripe-threshold", "61kB")
                 .put("hive.orc.max-read-block-size", "66kB")
                 .put("hive.orc.lazy-read-small-ranges", "false")
+                .put("hive.orc.selective-reading.enabled", "true")
                 .put("hive.rcfile-optimized-writer.enabled", "false")
                 .put("hive.rcfile.writer.validate", "true")
                 .put("hive.orc.optimized-writer.enabled", "false")
@@ -207,6 +224,17 @@ public class TestHiveClientConfig
                 .put("hive.s3select-pushdown.max-connections", "1234")
                 .put("hive.temporary-staging-directory-enabled", "false")
                 .put("hive.temporary-staging-directory-path", "updated")
+                .put("hive.file-range-cache.enabled", "true")
+                .put("hive.file-range-cache.location", "/mnt/ssd/cache")
+                .put("hive.file-range-cache.max-size", "100GB")
+                .put("hive.file-range-cache.block-size", "4MB")
+                .put("hive.read-ahead.enabled", "true")
+                .put("hive.read-ahead.max-size", "32MB")
+                .put("hive.read-ahead.threads", "8")
+                .put("hive.footer-cache.enabled", "true")
+                .put("hive.footer-cache.max-size", "256MB")
+                .put("hive.footer-cache.ttl", "10m")
+                .put("hive.native-text-reader.enabled", "true")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -263,6 +291,7 @@ public class TestHiveClientConfig
                 .setOrcTinyStripeThreshold(new DataSize(61, Unit.KILOBYTE))
                 .setOrcMaxReadBlockSize(new DataSize(66, Unit.KILOBYTE))
                 .setOrcLazyReadSmallRanges(false)
+                .setOrcSelectiveReadingEnabled(true)
                 .setRcfileOptimizedWriterEnabled(false)
                 .setRcfileWriterValidate(true)
                 .setOrcOptimizedWriterEnabled(false)
@@ -291,8 +320,31 @@ public class TestHiveClientConfig
                 .setS3SelectPushdownEnabled(true)
                 .setS3SelectPushdownMaxConnections(1234)
                 .setTemporaryStagingDirectoryEnabled(false)
-                .setTemporaryStagingDirectoryPath("updated");
+                .setTemporaryStagingDirectoryPath("updated")
+                .setFileRangeCacheEnabled(true)
+                .setFileRangeCacheLocation("/mnt/ssd/cache")
+                .setFileRangeCacheMaxSize(new DataSize(100, Unit.GIGABYTE))
+                .setFileRangeCacheBlockSize(new DataSize(4, Unit.MEGABYTE))
+                .setReadAheadEnabled(true)
+                .setMaxReadAheadSize(new DataSize(32, Unit.MEGABYTE))
+                .setReadAheadThreads(8)
+                .setFooterCacheEnabled(true)
+                .setFooterCacheMaxSize(new DataSize(256, Unit.MEGABYTE))
+                .setFooterCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setNativeTextReaderEnabled(true);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
+
+    @Test
+    public void testFileRangeCacheLocationRequired()
+    {
+        assertValidates(new HiveClientConfig().setFileRangeCacheEnabled(false));
+        assertValidates(new HiveClientConfig().setFileRangeCacheEnabled(true).setFileRangeCacheLocation("/mnt/ssd/cache"));
+        assertFailsValidation(
+                new HiveClientConfig().setFileRangeCacheEnabled(true),
+                "fileRangeCacheLocationConfiguredIfEnabled",
+                "hive.file-range-cache.location must be configured when hive.file-range-cache.enabled is set to true",
+                AssertTrue.class);
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.prestosql.Session;
+import io.prestosql.execution.QueryInfo;
+import io.prestosql.operator.OperatorStats;
+import io.prestosql.spi.QueryId;
+import io.prestosql.tests.AbstractTestQueryFramework;
+import io.prestosql.tests.DistributedQueryRunner;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static io.airlift.tpch.TpchTable.LINEITEM;
+import static io.airlift.tpch.TpchTable.ORDERS;
+import static io.prestosql.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.prestosql.plugin.hive.HiveQueryRunner.HIVE_CATALOG;
+import static io.prestosql.plugin.hive.HiveQueryRunner.createQueryRunner;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestHiveDynamicFiltering
+        extends AbstractTestQueryFramework
+{
+    private static final long LINEITEM_COUNT = 60175;
+    private static final long ORDERS_COUNT = 15000;
+
+    public TestHiveDynamicFiltering()
+    {
+        super(() -> createQueryRunner(ORDERS, LINEITEM));
+    }
+
+    @BeforeClass
+    public void setUp()
+    {
+        assertUpdate("CREATE TABLE orders_by_status WITH (partitioned_by = ARRAY['orderstatus']) AS SELECT orderkey, custkey, orderstatus FROM orders", ORDERS_COUNT);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        assertUpdate("DROP TABLE IF EXISTS orders_by_status");
+    }
+
+    @Test
+    public void testRowsAreFilteredInOrcReader()
+    {
+        @Language("SQL") String sql = "SELECT l.orderkey, l.linenumber FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = 1";
+        Session session = Session.builder(dynamicFiltering(true))
+                .setCatalogSessionProperty(HIVE_CATALOG, "orc_selective_reading_enabled", "true")
+                .build();
+        assertQuery(session, sql);
+        assertEquals(getProbeInputPositions(dynamicFiltering(false), sql), LINEITEM_COUNT);
+
+        // only the lineitems of the orders of the customer are read
+        long probeInputPositions = getProbeInputPositions(session, sql);
+        assertEquals(probeInputPositions, (long) computeScalar("SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = 1"));
+    }
+
+    @Test
+    public void testPartitionsArePruned()
+    {
+        @Language("SQL") String sql = "SELECT count(*) FROM orders_by_status o JOIN (SELECT orderstatus FROM orders WHERE orderkey = 1) s ON o.orderstatus = s.orderstatus";
+        long matchingCount = (long) computeScalar("SELECT count(*) FROM orders WHERE orderstatus = (SELECT orderstatus FROM orders WHERE orderkey = 1)");
+        assertQuery(dynamicFiltering(true), sql, "SELECT " + matchingCount);
+        assertEquals(getProbeInputPositions(dynamicFiltering(false), sql), ORDERS_COUNT);
+
+        // the splits of the other partitions produce no rows
+        assertEquals(getProbeInputPositions(dynamicFiltering(true), sql), matchingCount);
+    }
+
+    @Test
+    public void testEmptyBuildSide()
+    {
+        @Language("SQL") String sql = "SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = -1";
+        assertQuery(dynamicFiltering(true), sql, "SELECT 0");
+        assertEquals(getProbeInputPositions(dynamicFiltering(true), sql), 0);
+    }
+
+    private Session dynamicFiltering(boolean enabled)
+    {
+        // the probe scan only runs in the stage of the join for broadcast joins
+        return Session.builder(getSession())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, String.valueOf(enabled))
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, "BROADCAST")
+                .build();
+    }
+
+    private long getProbeInputPositions(Session session, @Language("SQL") String sql)
+    {
+        DistributedQueryRunner queryRunner = (DistributedQueryRunner) getQueryRunner();
+        QueryId queryId = queryRunner.executeWithQueryId(session, sql).getQueryId();
+
+        SettableFuture<QueryInfo> finalQueryInfo = SettableFuture.create();
+        queryRunner.getCoordinator().addFinalQueryInfoListener(queryId, finalQueryInfo::set);
+        QueryInfo queryInfo = tryGetFutureValue(finalQueryInfo, 10, SECONDS)
+                .orElseThrow(() -> new AssertionError("Final query info never set"));
+        assertTrue(queryInfo.isFinalQueryInfo());
+
+        return queryInfo.getQueryStats().getOperatorSummaries().stream()
+                .filter(summary -> summary.getOperatorType().equals("LookupJoinOperator"))
+                .mapToLong(OperatorStats::getInputPositions)
+                .sum();
+    }
+}
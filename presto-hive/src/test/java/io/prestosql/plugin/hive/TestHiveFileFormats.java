@@ -20,11 +20,13 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import io.airlift.compress.lzo.LzoCodec;
 import io.airlift.compress.lzo.LzopCodec;
+import io.airlift.units.DataSize;
 import io.prestosql.orc.OrcWriterOptions;
 import io.prestosql.plugin.hive.orc.DwrfPageSourceFactory;
 import io.prestosql.plugin.hive.orc.OrcPageSourceFactory;
 import io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory;
 import io.prestosql.plugin.hive.rcfile.RcFilePageSourceFactory;
+import io.prestosql.plugin.hive.text.TextPageSourceFactory;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.ConnectorSession;
@@ -37,6 +39,7 @@ import org.apache.hadoop.hive.common.type.HiveVarchar;
 import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.MapObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
@@ -44,6 +47,7 @@ import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.typeinfo.VarcharTypeInfo;
 import org.apache.hadoop.mapred.FileSplit;
 import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -55,13 +59,16 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.prestosql.plugin.hive.HiveStorageFormat.AVRO;
 import static io.prestosql.plugin.hive.HiveStorageFormat.DWRF;
 import static io.prestosql.plugin.hive.HiveStorageFormat.JSON;
@@ -75,7 +82,10 @@ import static io.prestosql.plugin.hive.HiveTestUtils.HDFS_ENVIRONMENT;
 import static io.prestosql.plugin.hive.HiveTestUtils.SESSION;
 import static io.prestosql.plugin.hive.HiveTestUtils.TYPE_MANAGER;
 import static io.prestosql.plugin.hive.HiveTestUtils.getTypes;
+import static io.prestosql.plugin.hive.cache.FileRangeCache.noFileRangeCache;
+import static io.prestosql.plugin.hive.cache.FooterCache.noFooterCache;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.FILE_INPUT_FORMAT;
 import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LIB;
@@ -91,9 +101,12 @@ public class TestHiveFileFormats
     private static final FileFormatDataSourceStats STATS = new FileFormatDataSourceStats();
     private static TestingConnectorSession parquetPageSourceSession = new TestingConnectorSession(new HiveSessionProperties(createParquetHiveClientConfig(false), new OrcFileWriterConfig(), new ParquetFileWriterConfig()).getSessionProperties());
     private static TestingConnectorSession parquetPageSourceSessionUseName = new TestingConnectorSession(new HiveSessionProperties(createParquetHiveClientConfig(true), new OrcFileWriterConfig(), new ParquetFileWriterConfig()).getSessionProperties());
+    private static TestingConnectorSession textPageSourceSession = new TestingConnectorSession(new HiveSessionProperties(new HiveClientConfig().setNativeTextReaderEnabled(true), new OrcFileWriterConfig(), new ParquetFileWriterConfig()).getSessionProperties());
 
     private static final DateTimeZone HIVE_STORAGE_TIME_ZONE = DateTimeZone.forID("America/Bahia_Banderas");
 
+    private ExecutorService readAheadExecutor;
+
     @DataProvider(name = "rowCount")
     public static Object[][] rowCountProvider()
     {
@@ -107,6 +120,13 @@ public class TestHiveFileFormats
         assertEquals(TimeZone.getDefault().getID(),
                 "America/Bahia_Banderas",
                 "Timezone not configured correctly. Add -Duser.timezone=America/Bahia_Banderas to your JVM arguments");
+        readAheadExecutor = newCachedThreadPool(daemonThreadsNamed("test-read-ahead-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        readAheadExecutor.shutdownNow();
     }
 
     @Test(dataProvider = "rowCount")
@@ -153,6 +173,53 @@ public class TestHiveFileFormats
                 .isReadableByRecordCursor(new GenericHiveRecordCursorProvider(HDFS_ENVIRONMENT));
     }
 
+    @Test(dataProvider = "rowCount")
+    public void testTextFilePageSource(int rowCount)
+            throws Exception
+    {
+        assertThatFileFormat(TEXTFILE)
+                .withColumns(TEST_COLUMNS)
+                .withSession(textPageSourceSession)
+                .withRowsCount(rowCount)
+                .isReadableByPageSource(new TextPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT));
+    }
+
+    @Test(dataProvider = "rowCount")
+    public void testTextFileCompressedPageSource(int rowCount)
+            throws Exception
+    {
+        assertThatFileFormat(TEXTFILE)
+                .withColumns(TEST_COLUMNS)
+                .withSession(textPageSourceSession)
+                .withRowsCount(rowCount)
+                .withCompressionCodec(HiveCompressionCodec.GZIP)
+                .isReadableByPageSource(new TextPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT));
+    }
+
+    @Test(dataProvider = "rowCount")
+    public void testJsonPageSource(int rowCount)
+            throws Exception
+    {
+        List<TestColumn> testColumns = TEST_COLUMNS.stream()
+                // binary is not supported
+                .filter(column -> !column.getName().equals("t_binary"))
+                // null map keys are not supported
+                .filter(column -> !column.getName().equals("t_map_null_key"))
+                .filter(column -> !column.getName().equals("t_map_null_key_complex_key_value"))
+                .filter(column -> !column.getName().equals("t_map_null_key_complex_value"))
+                // decimal(38) is broken or not supported
+                .filter(column -> !column.getName().equals("t_decimal_precision_38"))
+                .filter(column -> !column.getName().equals("t_map_decimal_precision_38"))
+                .filter(column -> !column.getName().equals("t_array_decimal_precision_38"))
+                .collect(toList());
+
+        assertThatFileFormat(JSON)
+                .withColumns(testColumns)
+                .withSession(textPageSourceSession)
+                .withRowsCount(rowCount)
+                .isReadableByPageSource(new TextPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT));
+    }
+
     @Test(dataProvider = "rowCount")
     public void testRCText(int rowCount)
             throws Exception
@@ -304,6 +371,25 @@ public class TestHiveFileFormats
                 .isReadableByPageSource(new OrcPageSourceFactory(TYPE_MANAGER, true, HDFS_ENVIRONMENT, STATS));
     }
 
+    @Test(dataProvider = "rowCount")
+    public void testOrcReadAhead(int rowCount)
+            throws Exception
+    {
+        // stripes are not tiny, so that they are read ahead instead of cached
+        TestingConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(
+                new HiveClientConfig()
+                        .setReadAheadEnabled(true)
+                        .setOrcTinyStripeThreshold(new DataSize(1, BYTE)),
+                new OrcFileWriterConfig(),
+                new ParquetFileWriterConfig()).getSessionProperties());
+
+        assertThatFileFormat(ORC)
+                .withColumns(TEST_COLUMNS)
+                .withRowsCount(rowCount)
+                .withSession(session)
+                .isReadableByPageSource(new OrcPageSourceFactory(TYPE_MANAGER, false, HDFS_ENVIRONMENT, STATS, noFileRangeCache(), readAheadExecutor, noFooterCache()));
+    }
+
     @Test(dataProvider = "rowCount")
     public void testAvro(int rowCount)
             throws Exception
@@ -336,6 +422,45 @@ public class TestHiveFileFormats
                 .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, STATS));
     }
 
+    @Test(dataProvider = "rowCount")
+    public void testParquetPageSourceReadAhead(int rowCount)
+            throws Exception
+    {
+        TestingConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(
+                createParquetHiveClientConfig(false).setReadAheadEnabled(true),
+                new OrcFileWriterConfig(),
+                new ParquetFileWriterConfig()).getSessionProperties());
+
+        assertThatFileFormat(PARQUET)
+                .withColumns(getTestColumnsSupportedByParquet())
+                .withSession(session)
+                .withRowsCount(rowCount)
+                .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, STATS, noFileRangeCache(), readAheadExecutor, noFooterCache()));
+    }
+
+    @Test(dataProvider = "rowCount")
+    public void testParquetOptimizedWriter(int rowCount)
+            throws Exception
+    {
+        // the optimized writer only supports flat columns, and does not support timestamp or char yet
+        List<TestColumn> testColumns = getTestColumnsSupportedByParquet().stream()
+                .filter(column -> column.isPartitionKey() || (
+                        column.getObjectInspector().getCategory() == Category.PRIMITIVE &&
+                                !hasType(column.getObjectInspector(), PrimitiveCategory.TIMESTAMP, PrimitiveCategory.CHAR)))
+                .collect(toList());
+
+        TestingConnectorSession session = new TestingConnectorSession(
+                new HiveSessionProperties(new HiveClientConfig(), new OrcFileWriterConfig(), new ParquetFileWriterConfig().setOptimizedWriterEnabled(true)).getSessionProperties());
+
+        assertThatFileFormat(PARQUET)
+                .withColumns(testColumns)
+                .withRowsCount(rowCount)
+                .withSession(session)
+                .withCompressionCodec(HiveCompressionCodec.SNAPPY)
+                .withFileWriterFactory(new ParquetFileWriterFactory(HDFS_ENVIRONMENT, TYPE_MANAGER, new NodeVersion("test")))
+                .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, STATS));
+    }
+
     @Test(dataProvider = "rowCount")
     public void testParquetPageSourceSchemaEvolution(int rowCount)
             throws Exception
@@ -539,6 +664,7 @@ public class TestHiveFileFormats
                 split.getStart(),
                 split.getLength(),
                 split.getLength(),
+                0,
                 splitProperties,
                 TupleDomain.all(),
                 getColumnHandles(testColumns),
@@ -585,6 +711,7 @@ public class TestHiveFileFormats
                 split.getStart(),
                 split.getLength(),
                 split.getLength(),
+                0,
                 splitProperties,
                 TupleDomain.all(),
                 columnHandles,
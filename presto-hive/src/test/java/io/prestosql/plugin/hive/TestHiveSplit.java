@@ -51,6 +51,7 @@ public class TestHiveSplit
                 42,
                 87,
                 88,
+                1234,
                 schema,
                 partitionKeys,
                 addresses,
@@ -62,7 +63,8 @@ public class TestHiveSplit
                         32,
                         16,
                         ImmutableList.of(new HiveColumnHandle("col", HIVE_LONG, BIGINT.getTypeSignature(), 5, ColumnType.REGULAR, Optional.of("comment"))))),
-                false);
+                false,
+                true);
 
         String json = codec.toJson(expected);
         HiveSplit actual = codec.fromJson(json);
@@ -74,6 +76,7 @@ public class TestHiveSplit
         assertEquals(actual.getStart(), expected.getStart());
         assertEquals(actual.getLength(), expected.getLength());
         assertEquals(actual.getFileSize(), expected.getFileSize());
+        assertEquals(actual.getFileModifiedTime(), expected.getFileModifiedTime());
         assertEquals(actual.getSchema(), expected.getSchema());
         assertEquals(actual.getPartitionKeys(), expected.getPartitionKeys());
         assertEquals(actual.getAddresses(), expected.getAddresses());
@@ -81,5 +84,6 @@ public class TestHiveSplit
         assertEquals(actual.getBucketConversion(), expected.getBucketConversion());
         assertEquals(actual.isForceLocalScheduling(), expected.isForceLocalScheduling());
         assertEquals(actual.isS3SelectPushdownEnabled(), expected.isS3SelectPushdownEnabled());
+        assertEquals(actual.isFileAffinitySchedulingEnabled(), expected.isFileAffinitySchedulingEnabled());
     }
 }
@@ -38,7 +38,10 @@ public class TestOrcFileWriterConfig
                 .setRowGroupMaxRowCount(10_000)
                 .setDictionaryMaxMemory(new DataSize(16, MEGABYTE))
                 .setStringStatisticsLimit(new DataSize(64, BYTE))
-                .setMaxCompressionBufferSize(new DataSize(256, KILOBYTE)));
+                .setMaxCompressionBufferSize(new DataSize(256, KILOBYTE))
+                .setParallelWriteEnabled(false)
+                .setMaxBufferedStripes(1)
+                .setWriterThreads(Runtime.getRuntime().availableProcessors()));
     }
 
     @Test
@@ -52,6 +55,9 @@ public class TestOrcFileWriterConfig
                 .put("hive.orc.writer.dictionary-max-memory", "13MB")
                 .put("hive.orc.writer.string-statistics-limit", "17MB")
                 .put("hive.orc.writer.max-compression-buffer-size", "19MB")
+                .put("hive.orc.writer.parallel-write-enabled", "true")
+                .put("hive.orc.writer.max-buffered-stripes", "3")
+                .put("hive.orc.writer.threads", "7")
                 .build();
 
         OrcFileWriterConfig expected = new OrcFileWriterConfig()
@@ -61,7 +67,10 @@ public class TestOrcFileWriterConfig
                 .setRowGroupMaxRowCount(11)
                 .setDictionaryMaxMemory(new DataSize(13, MEGABYTE))
                 .setStringStatisticsLimit(new DataSize(17, MEGABYTE))
-                .setMaxCompressionBufferSize(new DataSize(19, MEGABYTE));
+                .setMaxCompressionBufferSize(new DataSize(19, MEGABYTE))
+                .setParallelWriteEnabled(true)
+                .setMaxBufferedStripes(3)
+                .setWriterThreads(7);
 
         assertFullMapping(properties, expected);
     }
@@ -94,7 +94,8 @@ public class HiveFileFormatBenchmark
     }
 
     @SuppressWarnings("deprecation")
-    private static final HiveClientConfig CONFIG = new HiveClientConfig();
+    private static final HiveClientConfig CONFIG = new HiveClientConfig()
+            .setNativeTextReaderEnabled(true);
 
     private static final ConnectorSession SESSION = new TestingConnectorSession(new HiveSessionProperties(CONFIG, new OrcFileWriterConfig(), new ParquetFileWriterConfig())
             .getSessionProperties());
@@ -127,11 +128,15 @@ public class HiveFileFormatBenchmark
             "PRESTO_ORC",
             "PRESTO_DWRF",
             "PRESTO_PARQUET",
+            "PRESTO_TEXTFILE",
+            "PRESTO_JSON",
             "HIVE_RCBINARY",
             "HIVE_RCTEXT",
             "HIVE_ORC",
             "HIVE_DWRF",
-            "HIVE_PARQUET"})
+            "HIVE_PARQUET",
+            "HIVE_TEXTFILE",
+            "HIVE_JSON"})
     private FileFormat fileFormat;
 
     private TestData data;
@@ -157,10 +162,25 @@ public class HiveFileFormatBenchmark
         data = dataSet.createTestData(fileFormat);
 
         targetDir.mkdirs();
-        dataFile = new File(targetDir, UUID.randomUUID().toString());
+        // text files are decompressed with the codec of the file extension
+        dataFile = new File(targetDir, UUID.randomUUID() + getCompressionSuffix(compression));
         writeData(dataFile);
     }
 
+    private static String getCompressionSuffix(HiveCompressionCodec compression)
+    {
+        return compression.getCodec()
+                .map(codec -> {
+                    try {
+                        return codec.getConstructor().newInstance().getDefaultExtension();
+                    }
+                    catch (ReflectiveOperationException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .orElse("");
+    }
+
     @TearDown
     public void tearDown()
             throws IOException
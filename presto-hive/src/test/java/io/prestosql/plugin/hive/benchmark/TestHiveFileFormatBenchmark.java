@@ -35,6 +35,10 @@ public class TestHiveFileFormatBenchmark
         executeBenchmark(DataSet.LARGE_MAP_VARCHAR_DOUBLE, HiveCompressionCodec.SNAPPY, FileFormat.PRESTO_RCBINARY);
         executeBenchmark(DataSet.LARGE_MAP_VARCHAR_DOUBLE, HiveCompressionCodec.SNAPPY, FileFormat.PRESTO_ORC);
         executeBenchmark(DataSet.LARGE_MAP_VARCHAR_DOUBLE, HiveCompressionCodec.SNAPPY, FileFormat.HIVE_RCBINARY);
+        executeBenchmark(DataSet.LINEITEM, HiveCompressionCodec.GZIP, FileFormat.PRESTO_TEXTFILE);
+        executeBenchmark(DataSet.MAP_INT_DOUBLE, HiveCompressionCodec.NONE, FileFormat.PRESTO_TEXTFILE);
+        executeBenchmark(DataSet.LINEITEM, HiveCompressionCodec.GZIP, FileFormat.PRESTO_JSON);
+        executeBenchmark(DataSet.MAP_INT_DOUBLE, HiveCompressionCodec.NONE, FileFormat.PRESTO_JSON);
     }
 
     @Test
@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.cache;
+
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class TestFileRangeCache
+{
+    private static final int FILE_SIZE = 10_000;
+
+    private File tempDir;
+    private File dataFile;
+    private byte[] data;
+    private FileSystem fileSystem;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        tempDir = Files.createTempDirectory("file-range-cache").toFile();
+        dataFile = new File(tempDir, "data");
+        data = new byte[FILE_SIZE];
+        ThreadLocalRandom.current().nextBytes(data);
+        Files.write(dataFile.toPath(), data);
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testCachedRead()
+            throws IOException
+    {
+        FileRangeCache cache = createCache(new DataSize(100, KILOBYTE));
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertRead(inputStream, 1500, 1000);
+            assertEquals(cache.getMisses().getTotalCount(), 2);
+            assertEquals(cache.getHits().getTotalCount(), 0);
+            assertEquals(cache.getCachedBlocks(), 2);
+
+            // overlapping ranges are served from the cached blocks
+            assertRead(inputStream, 1024, 2048);
+            assertEquals(cache.getMisses().getTotalCount(), 2);
+            assertEquals(cache.getHits().getTotalCount(), 2);
+
+            // the last block is shorter than the block size
+            assertRead(inputStream, FILE_SIZE - 10, 10);
+            assertEquals(cache.getCachedBytes(), 2 * 1024 + FILE_SIZE % 1024);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testSequentialRead()
+            throws IOException
+    {
+        FileRangeCache cache = createCache(new DataSize(100, KILOBYTE));
+        try (FSDataInputStream inputStream = open(cache)) {
+            inputStream.seek(4000);
+            byte[] buffer = new byte[3000];
+            inputStream.readFully(buffer);
+            assertEquals(buffer, Arrays.copyOfRange(data, 4000, 7000));
+            assertEquals(inputStream.getPos(), 7000);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testEviction()
+            throws IOException
+    {
+        FileRangeCache cache = createCache(new DataSize(4, KILOBYTE));
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertRead(inputStream, 0, FILE_SIZE);
+            assertEquals(cache.getMisses().getTotalCount(), 10);
+            assertEquals(cache.getEvictions().getTotalCount(), 6);
+            assertTrue(cache.getCachedBytes() <= 4096);
+
+            // the first blocks were evicted
+            assertRead(inputStream, 0, 10);
+            assertEquals(cache.getMisses().getTotalCount(), 11);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testRewrittenFile()
+            throws IOException
+    {
+        FileRangeCache cache = createCache(new DataSize(100, KILOBYTE));
+        try {
+            try (FSDataInputStream inputStream = open(cache)) {
+                assertRead(inputStream, 0, FILE_SIZE);
+            }
+
+            // a file rewritten with the same size is not served from the cached blocks
+            ThreadLocalRandom.current().nextBytes(data);
+            Files.write(dataFile.toPath(), data);
+            assertTrue(dataFile.setLastModified(dataFile.lastModified() + 10_000));
+            try (FSDataInputStream inputStream = open(cache)) {
+                assertRead(inputStream, 0, FILE_SIZE);
+            }
+            assertEquals(cache.getMisses().getTotalCount(), 20);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testReadPastEndOfFile()
+            throws IOException
+    {
+        FileRangeCache cache = createCache(new DataSize(100, KILOBYTE));
+        try (FSDataInputStream inputStream = open(cache)) {
+            inputStream.readFully(FILE_SIZE - 10, new byte[20]);
+            fail("expected EOFException");
+        }
+        catch (EOFException expected) {
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testSharedLocation()
+            throws IOException
+    {
+        File location = new File(tempDir, "cache");
+        File otherFile = new File(location, "other");
+        Files.createDirectories(location.toPath());
+        Files.write(otherFile.toPath(), data);
+
+        // only the file of the cache is created and deleted in the location
+        FileRangeCache cache = createCache(new DataSize(100, KILOBYTE));
+        assertEquals(location.list().length, 2);
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertRead(inputStream, 0, FILE_SIZE);
+        }
+        finally {
+            cache.destroy();
+        }
+        assertEquals(location.list(), new String[] {"other"});
+    }
+
+    @Test
+    public void testDisabled()
+            throws IOException
+    {
+        Path path = new Path(dataFile.toURI());
+        try (FSDataInputStream inputStream = fileSystem.open(path)) {
+            assertSame(FileRangeCache.noFileRangeCache().wrap(path, FILE_SIZE, dataFile.lastModified(), inputStream), inputStream);
+        }
+    }
+
+    private FileRangeCache createCache(DataSize maxSize)
+    {
+        return new FileRangeCache(Optional.of(new File(tempDir, "cache").toPath()), "test", maxSize, new DataSize(1024, BYTE));
+    }
+
+    private FSDataInputStream open(FileRangeCache cache)
+            throws IOException
+    {
+        Path path = new Path(dataFile.toURI());
+        return cache.wrap(path, FILE_SIZE, dataFile.lastModified(), fileSystem.open(path));
+    }
+
+    private void assertRead(FSDataInputStream inputStream, int position, int length)
+            throws IOException
+    {
+        byte[] buffer = new byte[length];
+        inputStream.readFully(position, buffer);
+        assertEquals(buffer, Arrays.copyOfRange(data, position, position + length));
+    }
+}
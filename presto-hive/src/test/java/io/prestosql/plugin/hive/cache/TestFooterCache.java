@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.parquet.reader.ParquetFileMetadata;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class TestFooterCache
+{
+    private static final Path PATH = new Path("/data/file.parquet");
+    private static final long MODIFIED_TIME = 1_500_000_000_000L;
+
+    @Test
+    public void testCachedFooter()
+            throws IOException
+    {
+        FooterCache cache = new FooterCache(true, new DataSize(1, KILOBYTE), new Duration(1, HOURS));
+        AtomicInteger loads = new AtomicInteger();
+
+        ParquetFileMetadata first = cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> load(loads, 100));
+        assertSame(cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> load(loads, 100)), first);
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+
+        // a file of a different size is a different file
+        assertNotSame(cache.getParquetFileMetadata(PATH, 2000, MODIFIED_TIME, () -> load(loads, 100)), first);
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getSize(), 2);
+
+        // so is a file rewritten in place with the same size
+        assertNotSame(cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME + 1, () -> load(loads, 100)), first);
+        assertEquals(loads.get(), 3);
+        assertEquals(cache.getSize(), 3);
+
+        cache.flushCache();
+        assertNotSame(cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> load(loads, 100)), first);
+        assertEquals(loads.get(), 4);
+    }
+
+    @Test
+    public void testDisabled()
+            throws IOException
+    {
+        FooterCache cache = FooterCache.noFooterCache();
+        AtomicInteger loads = new AtomicInteger();
+        cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> load(loads, 100));
+        cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> load(loads, 100));
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testFootersLargerThanCacheAreNotKept()
+            throws IOException
+    {
+        FooterCache cache = new FooterCache(true, new DataSize(100, BYTE), new Duration(1, HOURS));
+        AtomicInteger loads = new AtomicInteger();
+        cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> load(loads, 1000));
+        cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> load(loads, 1000));
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testFailedLoad()
+    {
+        FooterCache cache = new FooterCache(true, new DataSize(1, KILOBYTE), new Duration(1, HOURS));
+        try {
+            cache.getParquetFileMetadata(PATH, 1000, MODIFIED_TIME, () -> {
+                throw new IOException("read failed");
+            });
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed");
+        }
+        assertEquals(cache.getSize(), 0);
+    }
+
+    private static ParquetFileMetadata load(AtomicInteger loads, long retainedSizeInBytes)
+    {
+        loads.incrementAndGet();
+        FileMetaData fileMetaData = new FileMetaData(new MessageType("test"), ImmutableMap.of(), "test");
+        return new ParquetFileMetadata(new ParquetMetadata(fileMetaData, ImmutableList.of()), retainedSizeInBytes);
+    }
+}
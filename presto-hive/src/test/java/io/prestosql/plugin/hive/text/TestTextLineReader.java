@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.text;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CountingInputStream;
+import io.prestosql.spi.PrestoException;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestTextLineReader
+{
+    @Test
+    public void testLineTerminators()
+            throws IOException
+    {
+        assertLines("", ImmutableList.of());
+        assertLines("\n", ImmutableList.of(""));
+        assertLines("a", ImmutableList.of("a"));
+        assertLines("a\nb\rc\r\nd", ImmutableList.of("a", "b", "c", "d"));
+        assertLines("a\n\nb\r\r\nc\n", ImmutableList.of("a", "", "b", "", "c"));
+        assertLines("a\r", ImmutableList.of("a"));
+    }
+
+    @Test
+    public void testSplits()
+            throws IOException
+    {
+        Random random = new Random(42);
+        String[] terminators = {"\n", "\r", "\r\n"};
+        ImmutableList.Builder<String> lines = ImmutableList.builder();
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            // include lines longer than the initial buffer
+            String line = Strings.repeat(String.valueOf((char) ('a' + i % 26)), i % 250 == 0 ? 100_000 : random.nextInt(200));
+            lines.add(line);
+            data.append(line).append(terminators[random.nextInt(terminators.length)]);
+        }
+        byte[] bytes = data.toString().getBytes(UTF_8);
+
+        for (int splitSize : new int[] {97, 1000, 65_537, bytes.length}) {
+            assertEquals(readSplits(bytes, splitSize), lines.build(), "split size " + splitSize);
+        }
+    }
+
+    @Test
+    public void testLineTooLong()
+            throws IOException
+    {
+        byte[] bytes = "abc\nabcdef\n".getBytes(UTF_8);
+        try {
+            readSplit(bytes, 0, bytes.length, 5);
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), HIVE_BAD_DATA.toErrorCode());
+        }
+    }
+
+    @Test
+    public void testCompletedBytes()
+            throws IOException
+    {
+        byte[] bytes = "abc\ndef\n".getBytes(UTF_8);
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(bytes));
+        TextLineReader reader = new TextLineReader("test", input, input, 0, bytes.length, Integer.MAX_VALUE);
+        assertTrue(reader.readLine());
+        assertTrue(reader.readLine());
+        assertFalse(reader.readLine());
+        assertEquals(reader.getBytesRead(), bytes.length);
+        reader.close();
+    }
+
+    private static void assertLines(String data, List<String> expected)
+            throws IOException
+    {
+        byte[] bytes = data.getBytes(UTF_8);
+        for (int splitSize = 1; splitSize <= bytes.length; splitSize++) {
+            assertEquals(readSplits(bytes, splitSize), expected, "split size " + splitSize);
+        }
+        assertEquals(readSplit(bytes, 0, bytes.length, Integer.MAX_VALUE), expected);
+    }
+
+    private static List<String> readSplits(byte[] bytes, int splitSize)
+            throws IOException
+    {
+        ImmutableList.Builder<String> lines = ImmutableList.builder();
+        for (int start = 0; start < bytes.length; start += splitSize) {
+            lines.addAll(readSplit(bytes, start, Math.min(splitSize, bytes.length - start), Integer.MAX_VALUE));
+        }
+        return lines.build();
+    }
+
+    private static List<String> readSplit(byte[] bytes, int start, int length, int maxLineLength)
+            throws IOException
+    {
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(bytes, start, bytes.length - start));
+        try (TextLineReader reader = new TextLineReader("test", input, input, start, start + length, maxLineLength)) {
+            if (start != 0) {
+                reader.skipLine();
+            }
+            ImmutableList.Builder<String> lines = ImmutableList.builder();
+            while (reader.readLine()) {
+                lines.add(new String(reader.getLineBuffer(), reader.getLineOffset(), reader.getLineLength(), UTF_8));
+            }
+            return lines.build();
+        }
+    }
+}
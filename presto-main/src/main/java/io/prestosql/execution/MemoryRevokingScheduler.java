@@ -217,7 +217,16 @@ public class MemoryRevokingScheduler
 
     private long getMemoryAlreadyBeingRevoked(Collection<SqlTask> sqlTasks, MemoryPool memoryPool)
     {
-        return sqlTasks.stream()
+        // the buffers of a query share the growth budget of the query, so it is counted once per query
+        long bufferBytesBeingRevoked = sqlTasks.stream()
+                .filter(task -> task.getTaskStatus().getState() == TaskState.RUNNING)
+                .map(SqlTask::getQueryContext)
+                .filter(queryContext -> queryContext.getMemoryPool() == memoryPool)
+                .distinct()
+                .mapToLong(queryContext -> queryContext.getElasticBufferBudget().getRevokingBytes())
+                .sum();
+
+        return bufferBytesBeingRevoked + sqlTasks.stream()
                 .filter(task -> task.getTaskStatus().getState() == TaskState.RUNNING)
                 .filter(task -> task.getQueryContext().getMemoryPool() == memoryPool)
                 .mapToLong(task -> task.getQueryContext().accept(new TraversingQueryContextVisitor<Void, Long>()
@@ -257,6 +266,16 @@ public class MemoryRevokingScheduler
                             // exit immediately if no work needs to be done
                             return null;
                         }
+
+                        // buffer growth is revoked first, as it only makes producers wait for consumers
+                        long revokedBytes = queryContext.getElasticBufferBudget().requestRevoking();
+                        if (revokedBytes > 0) {
+                            remainingBytesToRevoke.addAndGet(-revokedBytes);
+                            log.debug("memoryPool=%s: requested revoking %s of buffer growth; remaining %s", memoryPool.getId(), revokedBytes, remainingBytesToRevoke.get());
+                            if (remainingBytesToRevoke.get() <= 0) {
+                                return null;
+                            }
+                        }
                         return super.visitQueryContext(queryContext, remainingBytesToRevoke);
                     }
 
@@ -30,6 +30,7 @@ import io.prestosql.execution.buffer.LazyOutputBuffer;
 import io.prestosql.execution.buffer.OutputBuffer;
 import io.prestosql.execution.buffer.OutputBuffers;
 import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.memory.QueryContext;
 import io.prestosql.operator.PipelineContext;
 import io.prestosql.operator.PipelineStatus;
@@ -94,6 +95,20 @@ public class SqlTask
             Function<SqlTask, ?> onDone,
             DataSize maxBufferSize,
             CounterStat failedTasks)
+    {
+        return createSqlTask(taskId, location, nodeId, queryContext, sqlTaskExecutionFactory, taskNotificationExecutor, onDone, ElasticBufferLimit.fixed(maxBufferSize.toBytes()), failedTasks);
+    }
+
+    public static SqlTask createSqlTask(
+            TaskId taskId,
+            URI location,
+            String nodeId,
+            QueryContext queryContext,
+            SqlTaskExecutionFactory sqlTaskExecutionFactory,
+            ExecutorService taskNotificationExecutor,
+            Function<SqlTask, ?> onDone,
+            ElasticBufferLimit maxBufferSize,
+            CounterStat failedTasks)
     {
         SqlTask sqlTask = new SqlTask(taskId, location, nodeId, queryContext, sqlTaskExecutionFactory, taskNotificationExecutor, maxBufferSize);
         sqlTask.initialize(onDone, failedTasks);
@@ -107,7 +122,7 @@ public class SqlTask
             QueryContext queryContext,
             SqlTaskExecutionFactory sqlTaskExecutionFactory,
             ExecutorService taskNotificationExecutor,
-            DataSize maxBufferSize)
+            ElasticBufferLimit maxBufferSize)
     {
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.taskInstanceId = UUID.randomUUID().toString();
@@ -33,6 +33,7 @@ import io.prestosql.execution.buffer.BufferResult;
 import io.prestosql.execution.buffer.OutputBuffers;
 import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
 import io.prestosql.execution.executor.TaskExecutor;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.memory.LocalMemoryManager;
 import io.prestosql.memory.MemoryPool;
 import io.prestosql.memory.MemoryPoolAssignment;
@@ -129,6 +130,8 @@ public class SqlTaskManager
         clientTimeout = config.getClientTimeout();
 
         DataSize maxBufferSize = config.getSinkMaxBufferSize();
+        DataSize maxElasticBufferSize = config.getSinkMaxElasticBufferSize();
+        double elasticBufferMemoryThreshold = config.getElasticBufferMemoryThreshold();
 
         taskNotificationExecutor = newFixedThreadPool(config.getTaskNotificationThreads(), threadsNamed("task-notification-%s"));
         taskNotificationExecutorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) taskNotificationExecutor);
@@ -147,19 +150,22 @@ public class SqlTaskManager
                 queryId -> createQueryContext(queryId, localMemoryManager, nodeMemoryConfig, localSpillManager, gcMonitor, maxQueryUserMemoryPerNode, maxQueryTotalMemoryPerNode, maxQuerySpillPerNode)));
 
         tasks = CacheBuilder.newBuilder().build(CacheLoader.from(
-                taskId -> createSqlTask(
-                        taskId,
-                        locationFactory.createLocalTaskLocation(taskId),
-                        nodeInfo.getNodeId(),
-                        queryContexts.getUnchecked(taskId.getQueryId()),
-                        sqlTaskExecutionFactory,
-                        taskNotificationExecutor,
-                        sqlTask -> {
-                            finishedTaskStats.merge(sqlTask.getIoStats());
-                            return null;
-                        },
-                        maxBufferSize,
-                        failedTasks)));
+                taskId -> {
+                    QueryContext queryContext = queryContexts.getUnchecked(taskId.getQueryId());
+                    return createSqlTask(
+                            taskId,
+                            locationFactory.createLocalTaskLocation(taskId),
+                            nodeInfo.getNodeId(),
+                            queryContext,
+                            sqlTaskExecutionFactory,
+                            taskNotificationExecutor,
+                            sqlTask -> {
+                                finishedTaskStats.merge(sqlTask.getIoStats());
+                                return null;
+                            },
+                            ElasticBufferLimit.elastic(maxBufferSize.toBytes(), maxElasticBufferSize.toBytes(), elasticBufferMemoryThreshold, queryContext.getElasticBufferBudget()),
+                            failedTasks);
+                }));
     }
 
     private QueryContext createQueryContext(
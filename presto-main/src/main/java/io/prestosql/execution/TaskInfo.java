@@ -16,6 +16,7 @@ package io.prestosql.execution;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
+import io.airlift.stats.Distribution;
 import io.prestosql.execution.buffer.BufferInfo;
 import io.prestosql.execution.buffer.OutputBufferInfo;
 import io.prestosql.operator.TaskStats;
@@ -119,7 +120,7 @@ public class TaskInfo
         return new TaskInfo(
                 initialTaskStatus(taskId, location, nodeId),
                 DateTime.now(),
-                new OutputBufferInfo("UNINITIALIZED", OPEN, true, true, 0, 0, 0, 0, bufferStates),
+                new OutputBufferInfo("UNINITIALIZED", OPEN, true, true, 0, 0, 0, 0, new Distribution().snapshot(), bufferStates),
                 ImmutableSet.of(),
                 taskStats,
                 true);
@@ -24,6 +24,8 @@ import io.airlift.units.MaxDuration;
 import io.airlift.units.MinDuration;
 import io.prestosql.util.PowerOfTwo;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -46,6 +48,7 @@ public class TaskManagerConfig
     private boolean statisticsCpuTimerEnabled = true;
     private DataSize maxPartialAggregationMemoryUsage = new DataSize(16, Unit.MEGABYTE);
     private DataSize maxLocalExchangeBufferSize = new DataSize(32, Unit.MEGABYTE);
+    private DataSize maxLocalExchangeElasticBufferSize = new DataSize(32, Unit.MEGABYTE);
     private DataSize maxIndexMemoryUsage = new DataSize(64, Unit.MEGABYTE);
     private boolean shareIndexLoading;
     private int maxWorkerThreads = Runtime.getRuntime().availableProcessors() * 2;
@@ -56,6 +59,8 @@ public class TaskManagerConfig
     private Duration splitConcurrencyAdjustmentInterval = new Duration(100, TimeUnit.MILLISECONDS);
 
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
+    private DataSize sinkMaxElasticBufferSize = new DataSize(32, Unit.MEGABYTE);
+    private double elasticBufferMemoryThreshold = 0.9;
     private DataSize maxPagePartitioningBufferSize = new DataSize(32, Unit.MEGABYTE);
 
     private Duration clientTimeout = new Duration(2, TimeUnit.MINUTES);
@@ -73,6 +78,7 @@ public class TaskManagerConfig
     private int taskYieldThreads = 3;
 
     private BigDecimal levelTimeMultiplier = new BigDecimal(2.0);
+    private int splitQueueShards = 1;
 
     @MinDuration("1ms")
     @MaxDuration("10s")
@@ -168,6 +174,20 @@ public class TaskManagerConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getMaxLocalExchangeElasticBufferSize()
+    {
+        return maxLocalExchangeElasticBufferSize;
+    }
+
+    @Config("task.max-local-exchange-elastic-buffer-size")
+    @ConfigDescription("Size up to which local exchange buffers grow beyond task.max-local-exchange-buffer-size while the memory pool has headroom")
+    public TaskManagerConfig setMaxLocalExchangeElasticBufferSize(DataSize size)
+    {
+        this.maxLocalExchangeElasticBufferSize = size;
+        return this;
+    }
+
     @NotNull
     public DataSize getMaxIndexMemoryUsage()
     {
@@ -208,6 +228,20 @@ public class TaskManagerConfig
         return this;
     }
 
+    @Min(1)
+    public int getSplitQueueShards()
+    {
+        return splitQueueShards;
+    }
+
+    @Config("task.split-queue-shards")
+    @ConfigDescription("Number of shards of the split queue. Runner threads prefer their own shard and steal from others when it is empty")
+    public TaskManagerConfig setSplitQueueShards(int splitQueueShards)
+    {
+        this.splitQueueShards = splitQueueShards;
+        return this;
+    }
+
     @Min(1)
     public int getMaxWorkerThreads()
     {
@@ -308,6 +342,35 @@ public class TaskManagerConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getSinkMaxElasticBufferSize()
+    {
+        return sinkMaxElasticBufferSize;
+    }
+
+    @Config("sink.max-elastic-buffer-size")
+    @ConfigDescription("Size up to which output buffers grow beyond sink.max-buffer-size while the memory pool has headroom")
+    public TaskManagerConfig setSinkMaxElasticBufferSize(DataSize sinkMaxElasticBufferSize)
+    {
+        this.sinkMaxElasticBufferSize = sinkMaxElasticBufferSize;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getElasticBufferMemoryThreshold()
+    {
+        return elasticBufferMemoryThreshold;
+    }
+
+    @Config("task.elastic-buffer-memory-threshold")
+    @ConfigDescription("Fraction of the memory pool above which elastic buffers shrink back to their base size")
+    public TaskManagerConfig setElasticBufferMemoryThreshold(double elasticBufferMemoryThreshold)
+    {
+        this.elasticBufferMemoryThreshold = elasticBufferMemoryThreshold;
+        return this;
+    }
+
     @NotNull
     public DataSize getMaxPagePartitioningBufferSize()
     {
@@ -22,6 +22,7 @@ import io.airlift.units.DataSize;
 import io.prestosql.execution.StateMachine;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.memory.context.LocalMemoryContext;
 
 import javax.annotation.concurrent.GuardedBy;
@@ -74,11 +75,21 @@ public class BroadcastOutputBuffer
             DataSize maxBufferSize,
             Supplier<LocalMemoryContext> systemMemoryContextSupplier,
             Executor notificationExecutor)
+    {
+        this(taskInstanceId, state, ElasticBufferLimit.fixed(requireNonNull(maxBufferSize, "maxBufferSize is null").toBytes()), systemMemoryContextSupplier, notificationExecutor);
+    }
+
+    public BroadcastOutputBuffer(
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            ElasticBufferLimit maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            Executor notificationExecutor)
     {
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
         this.state = requireNonNull(state, "state is null");
         this.memoryManager = new OutputBufferMemoryManager(
-                requireNonNull(maxBufferSize, "maxBufferSize is null").toBytes(),
+                requireNonNull(maxBufferSize, "maxBufferSize is null"),
                 requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null"),
                 requireNonNull(notificationExecutor, "notificationExecutor is null"));
     }
@@ -131,6 +142,7 @@ public class BroadcastOutputBuffer
                 totalBufferedPages.get(),
                 totalRowsAdded.get(),
                 totalPagesAdded.get(),
+                memoryManager.getUtilizationHistogram(),
                 buffers.stream()
                         .map(ClientBuffer::getInfo)
                         .collect(toImmutableList()));
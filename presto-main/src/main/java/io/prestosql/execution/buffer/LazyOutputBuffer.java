@@ -17,11 +17,13 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.ExtendedSettableFuture;
+import io.airlift.stats.Distribution;
 import io.airlift.units.DataSize;
 import io.prestosql.execution.StateMachine;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.memory.context.LocalMemoryContext;
 
 import javax.annotation.concurrent.GuardedBy;
@@ -33,7 +35,6 @@ import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
-import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.prestosql.execution.buffer.BufferResult.emptyResults;
@@ -48,7 +49,7 @@ public class LazyOutputBuffer
 {
     private final StateMachine<BufferState> state;
     private final String taskInstanceId;
-    private final DataSize maxBufferSize;
+    private final ElasticBufferLimit maxBufferSize;
     private final Supplier<LocalMemoryContext> systemMemoryContextSupplier;
     private final Executor executor;
 
@@ -67,13 +68,22 @@ public class LazyOutputBuffer
             Executor executor,
             DataSize maxBufferSize,
             Supplier<LocalMemoryContext> systemMemoryContextSupplier)
+    {
+        this(taskId, taskInstanceId, executor, ElasticBufferLimit.fixed(requireNonNull(maxBufferSize, "maxBufferSize is null").toBytes()), systemMemoryContextSupplier);
+    }
+
+    public LazyOutputBuffer(
+            TaskId taskId,
+            String taskInstanceId,
+            Executor executor,
+            ElasticBufferLimit maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier)
     {
         requireNonNull(taskId, "taskId is null");
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
         this.executor = requireNonNull(executor, "executor is null");
         state = new StateMachine<>(taskId + "-buffer", executor, OPEN, TERMINAL_BUFFER_STATES);
         this.maxBufferSize = requireNonNull(maxBufferSize, "maxBufferSize is null");
-        checkArgument(maxBufferSize.toBytes() > 0, "maxBufferSize must be at least 1");
         this.systemMemoryContextSupplier = requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null");
     }
 
@@ -139,6 +149,7 @@ public class LazyOutputBuffer
                     0,
                     0,
                     0,
+                    new Distribution().snapshot(),
                     ImmutableList.of());
         }
         return outputBuffer.getInfo();
@@ -16,11 +16,13 @@ package io.prestosql.execution.buffer;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import io.airlift.stats.Distribution.DistributionSnapshot;
 
 import java.util.List;
 import java.util.Objects;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
 
 public final class OutputBufferInfo
 {
@@ -32,6 +34,7 @@ public final class OutputBufferInfo
     private final long totalBufferedPages;
     private final long totalRowsSent;
     private final long totalPagesSent;
+    private final DistributionSnapshot utilizationHistogram;
     private final List<BufferInfo> buffers;
 
     @JsonCreator
@@ -44,6 +47,7 @@ public final class OutputBufferInfo
             @JsonProperty("totalBufferedPages") long totalBufferedPages,
             @JsonProperty("totalRowsSent") long totalRowsSent,
             @JsonProperty("totalPagesSent") long totalPagesSent,
+            @JsonProperty("utilizationHistogram") DistributionSnapshot utilizationHistogram,
             @JsonProperty("buffers") List<BufferInfo> buffers)
     {
         this.type = type;
@@ -54,6 +58,7 @@ public final class OutputBufferInfo
         this.totalBufferedPages = totalBufferedPages;
         this.totalRowsSent = totalRowsSent;
         this.totalPagesSent = totalPagesSent;
+        this.utilizationHistogram = requireNonNull(utilizationHistogram, "utilizationHistogram is null");
         this.buffers = ImmutableList.copyOf(buffers);
     }
 
@@ -111,9 +116,19 @@ public final class OutputBufferInfo
         return totalPagesSent;
     }
 
+    /**
+     * Distribution of the buffered bytes in percent of the base buffer size, sampled whenever
+     * pages are added or removed. Values above 100 are reached by elastic buffers.
+     */
+    @JsonProperty
+    public DistributionSnapshot getUtilizationHistogram()
+    {
+        return utilizationHistogram;
+    }
+
     public OutputBufferInfo summarize()
     {
-        return new OutputBufferInfo(type, state, canAddBuffers, canAddPages, totalBufferedBytes, totalBufferedPages, totalRowsSent, totalPagesSent, ImmutableList.of());
+        return new OutputBufferInfo(type, state, canAddBuffers, canAddPages, totalBufferedBytes, totalBufferedPages, totalRowsSent, totalPagesSent, utilizationHistogram, ImmutableList.of());
     }
 
     @Override
@@ -155,6 +170,7 @@ public final class OutputBufferInfo
                 .add("totalBufferedPages", totalBufferedPages)
                 .add("totalRowsSent", totalRowsSent)
                 .add("totalPagesSent", totalPagesSent)
+                .add("utilizationHistogram", utilizationHistogram)
                 .add("buffers", buffers)
                 .toString();
     }
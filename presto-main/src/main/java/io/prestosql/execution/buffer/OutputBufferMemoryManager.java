@@ -18,6 +18,9 @@ import com.google.common.base.Suppliers;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.stats.Distribution;
+import io.airlift.stats.Distribution.DistributionSnapshot;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.memory.context.LocalMemoryContext;
 
 import javax.annotation.concurrent.GuardedBy;
@@ -29,24 +32,30 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
-import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 /**
  * OutputBufferMemoryManager will block when any condition below holds
- * - the number of buffered bytes exceeds maxBufferedBytes and blockOnFull is true
+ * - the number of buffered bytes exceeds the current limit of maxBufferedBytes and blockOnFull is true
  * - the memory pool is exhausted
+ * The limit of an elastic buffer grows beyond its base size while the memory pool has headroom.
+ * The growth is reserved as revocable memory by the budget of the limit, and only the rest of the
+ * buffered bytes as system memory, so that the growth can be revoked under memory pressure.
  */
 @ThreadSafe
 class OutputBufferMemoryManager
 {
-    private final long maxBufferedBytes;
+    private final ElasticBufferLimit maxBufferedBytes;
     private final AtomicLong bufferedBytes = new AtomicLong();
     private final AtomicLong peakMemoryUsage = new AtomicLong();
+    // utilization of the base size in percent, sampled on every update
+    private final Distribution utilization = new Distribution();
 
     @GuardedBy("this")
     private boolean closed;
     @GuardedBy("this")
+    private long growthBytes;
+    @GuardedBy("this")
     private SettableFuture<?> bufferBlockedFuture;
     @GuardedBy("this")
     private ListenableFuture<?> blockedOnMemory = Futures.immediateFuture(null);
@@ -57,10 +66,14 @@ class OutputBufferMemoryManager
     private final Executor notificationExecutor;
 
     public OutputBufferMemoryManager(long maxBufferedBytes, Supplier<LocalMemoryContext> systemMemoryContextSupplier, Executor notificationExecutor)
+    {
+        this(ElasticBufferLimit.fixed(maxBufferedBytes), systemMemoryContextSupplier, notificationExecutor);
+    }
+
+    public OutputBufferMemoryManager(ElasticBufferLimit maxBufferedBytes, Supplier<LocalMemoryContext> systemMemoryContextSupplier, Executor notificationExecutor)
     {
         requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null");
-        checkArgument(maxBufferedBytes > 0, "maxBufferedBytes must be > 0");
-        this.maxBufferedBytes = maxBufferedBytes;
+        this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.systemMemoryContextSupplier = Suppliers.memoize(systemMemoryContextSupplier::get);
         this.notificationExecutor = requireNonNull(notificationExecutor, "notificationExecutor is null");
 
@@ -83,8 +96,12 @@ class OutputBufferMemoryManager
 
         long currentBufferedBytes = bufferedBytes.addAndGet(bytesAdded);
         peakMemoryUsage.accumulateAndGet(currentBufferedBytes, Math::max);
-        this.blockedOnMemory = systemMemoryContext.get().setBytes(currentBufferedBytes);
-        if (!isBufferFull() && !isBlockedOnMemory() && !bufferBlockedFuture.isDone()) {
+        utilization.add(currentBufferedBytes * 100 / maxBufferedBytes.getBaseBytes());
+        // update the growth first, as it is accounted as revocable memory
+        // growth given up between updates is moved back to system memory on the next update
+        boolean bufferFull = isBufferFull();
+        this.blockedOnMemory = systemMemoryContext.get().setBytes(currentBufferedBytes - growthBytes);
+        if (!bufferFull && !isBlockedOnMemory() && !bufferBlockedFuture.isDone()) {
             // Complete future in a new thread to avoid making a callback on the caller thread.
             // This make is easier for callers to use this class since they can update the memory
             // usage while holding locks.
@@ -106,6 +123,8 @@ class OutputBufferMemoryManager
     public synchronized void setNoBlockOnFull()
     {
         blockOnFull.set(false);
+        // a buffer that does not block does not need to grow
+        growthBytes = maxBufferedBytes.updateGrowth(growthBytes, 0);
 
         // Complete future in a new thread to avoid making a callback on the caller thread.
         SettableFuture<?> future = this.bufferBlockedFuture;
@@ -119,7 +138,12 @@ class OutputBufferMemoryManager
 
     public double getUtilization()
     {
-        return bufferedBytes.get() / (double) maxBufferedBytes;
+        return bufferedBytes.get() / (double) maxBufferedBytes.getBaseBytes();
+    }
+
+    public DistributionSnapshot getUtilizationHistogram()
+    {
+        return utilization.snapshot();
     }
 
     public synchronized boolean isOverutilized()
@@ -129,7 +153,14 @@ class OutputBufferMemoryManager
 
     private synchronized boolean isBufferFull()
     {
-        return bufferedBytes.get() > maxBufferedBytes && blockOnFull.get();
+        return blockOnFull.get() && isOverLimit();
+    }
+
+    private synchronized boolean isOverLimit()
+    {
+        long bufferedBytes = this.bufferedBytes.get();
+        growthBytes = maxBufferedBytes.updateGrowth(growthBytes, bufferedBytes);
+        return bufferedBytes > maxBufferedBytes.getBaseBytes() + growthBytes;
     }
 
     private synchronized boolean isBlockedOnMemory()
@@ -141,7 +172,7 @@ class OutputBufferMemoryManager
     synchronized void onMemoryAvailable()
     {
         // Do not notify the listeners if the buffer is full
-        if (bufferedBytes.get() > maxBufferedBytes) {
+        if (isOverLimit()) {
             return;
         }
 
@@ -159,6 +190,7 @@ class OutputBufferMemoryManager
     {
         updateMemoryUsage(-bufferedBytes.get());
         getSystemMemoryContext().ifPresent(LocalMemoryContext::close);
+        growthBytes = maxBufferedBytes.updateGrowth(growthBytes, 0);
         closed = true;
     }
 
@@ -16,6 +16,7 @@ package io.prestosql.execution.buffer;
 import io.airlift.compress.Compressor;
 import io.airlift.compress.Decompressor;
 import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 import io.prestosql.spi.Page;
@@ -23,11 +24,13 @@ import io.prestosql.spi.block.BlockEncodingSerde;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
-import static io.airlift.compress.lz4.Lz4RawCompressor.maxCompressedLength;
 import static io.prestosql.execution.buffer.PageCompression.COMPRESSED;
 import static io.prestosql.execution.buffer.PageCompression.UNCOMPRESSED;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.readRawPage;
@@ -35,15 +38,38 @@ import static io.prestosql.execution.buffer.PagesSerdeUtil.writeRawPage;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Serializes pages, and compresses them when a compressor is present. Compression is sampled
+ * separately for the pages of each combination of block encodings: when a page does not compress
+ * well, the following pages with the same encodings are sent uncompressed without trying, for a
+ * number of pages that doubles each time the encodings are sampled again without success. Pages of
+ * already compact encodings, such as dictionaries, then cost little compression time.
+ */
 @NotThreadSafe
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    private static final int MAX_SKIPPED_PAGES = 64;
+    // bounds the samplers of pages with many channels whose encodings vary
+    private static final int MAX_SAMPLERS = 64;
+    // pages written in the raw format by the caller are sampled together
+    private static final String RAW_PAGE_ENCODINGS = "";
 
     private final BlockEncodingSerde blockEncodingSerde;
     private final Optional<Compressor> compressor;
     private final Optional<Decompressor> decompressor;
 
+    private final Map<String, CompressionSampler> samplers = new HashMap<>();
+    private final CompressionSampler overflowSampler = new CompressionSampler();
+
+    // read by other threads for operator stats
+    private final AtomicLong compressedPages = new AtomicLong();
+    private final AtomicLong uncompressedPages = new AtomicLong();
+    private final AtomicLong skippedPages = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong serializedBytes = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
@@ -56,39 +82,139 @@ public class PagesSerde
     {
         SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact((page.getSizeInBytes() + Integer.BYTES))); // block length is an int
         writeRawPage(page, serializationBuffer, blockEncodingSerde);
+        return serialize(serializationBuffer.slice(), page.getPositionCount(), getEncodings(page));
+    }
+
+    /**
+     * Serializes a page that has already been written in the raw page format, with the
+     * channel count followed by each block written with the {@link BlockEncodingSerde}.
+     */
+    public SerializedPage serialize(Slice rawPage, int positionCount)
+    {
+        return serialize(rawPage, positionCount, RAW_PAGE_ENCODINGS);
+    }
+
+    private SerializedPage serialize(Slice rawPage, int positionCount, String encodings)
+    {
+        requireNonNull(rawPage, "rawPage is null");
+        uncompressedBytes.addAndGet(rawPage.length());
 
         if (!compressor.isPresent()) {
-            return new SerializedPage(serializationBuffer.slice(), UNCOMPRESSED, page.getPositionCount(), serializationBuffer.size());
+            return uncompressed(rawPage, positionCount);
+        }
+
+        CompressionSampler sampler = getSampler(encodings);
+        if (!sampler.shouldCompress()) {
+            skippedPages.incrementAndGet();
+            return uncompressed(rawPage, positionCount);
         }
 
-        int maxCompressedLength = maxCompressedLength(serializationBuffer.size());
+        long start = System.nanoTime();
+        int maxCompressedLength = compressor.get().maxCompressedLength(rawPage.length());
         byte[] compressionBuffer = new byte[maxCompressedLength];
-        int actualCompressedLength = compressor.get().compress(serializationBuffer.slice().getBytes(), 0, serializationBuffer.size(), compressionBuffer, 0, maxCompressedLength);
+        int actualCompressedLength = compressor.get().compress(rawPage.getBytes(), 0, rawPage.length(), compressionBuffer, 0, maxCompressedLength);
+        compressionNanos.addAndGet(System.nanoTime() - start);
 
-        if (((1.0 * actualCompressedLength) / serializationBuffer.size()) > MINIMUM_COMPRESSION_RATIO) {
-            return new SerializedPage(serializationBuffer.slice(), UNCOMPRESSED, page.getPositionCount(), serializationBuffer.size());
+        boolean compressible = ((1.0 * actualCompressedLength) / rawPage.length()) <= MINIMUM_COMPRESSION_RATIO;
+        sampler.record(compressible);
+        if (!compressible) {
+            return uncompressed(rawPage, positionCount);
         }
 
+        compressedPages.incrementAndGet();
+        serializedBytes.addAndGet(actualCompressedLength);
         return new SerializedPage(
                 Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, actualCompressedLength)),
                 COMPRESSED,
-                page.getPositionCount(),
-                serializationBuffer.size());
+                positionCount,
+                rawPage.length());
+    }
+
+    private SerializedPage uncompressed(Slice rawPage, int positionCount)
+    {
+        uncompressedPages.incrementAndGet();
+        serializedBytes.addAndGet(rawPage.length());
+        return new SerializedPage(rawPage, UNCOMPRESSED, positionCount, rawPage.length());
     }
 
     public Page deserialize(SerializedPage serializedPage)
     {
         checkArgument(serializedPage != null, "serializedPage is null");
 
+        uncompressedBytes.addAndGet(serializedPage.getUncompressedSizeInBytes());
+        serializedBytes.addAndGet(serializedPage.getSizeInBytes());
+
         if (!decompressor.isPresent() || serializedPage.getCompression() == UNCOMPRESSED) {
+            uncompressedPages.incrementAndGet();
             return readRawPage(serializedPage.getPositionCount(), serializedPage.getSlice().getInput(), blockEncodingSerde);
         }
 
+        long start = System.nanoTime();
         int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
         byte[] decompressed = new byte[uncompressedSize];
         int actualUncompressedSize = decompressor.get().decompress(serializedPage.getSlice().getBytes(), 0, serializedPage.getSlice().length(), decompressed, 0, uncompressedSize);
         checkState(uncompressedSize == actualUncompressedSize);
+        compressionNanos.addAndGet(System.nanoTime() - start);
+        compressedPages.incrementAndGet();
 
         return readRawPage(serializedPage.getPositionCount(), Slices.wrappedBuffer(decompressed, 0, uncompressedSize).getInput(), blockEncodingSerde);
     }
+
+    public PagesSerdeStats getStats()
+    {
+        return new PagesSerdeStats(
+                compressedPages.get(),
+                uncompressedPages.get(),
+                skippedPages.get(),
+                uncompressedBytes.get(),
+                serializedBytes.get(),
+                compressionNanos.get());
+    }
+
+    private CompressionSampler getSampler(String encodings)
+    {
+        CompressionSampler sampler = samplers.get(encodings);
+        if (sampler == null) {
+            if (samplers.size() >= MAX_SAMPLERS) {
+                return overflowSampler;
+            }
+            sampler = new CompressionSampler();
+            samplers.put(encodings, sampler);
+        }
+        return sampler;
+    }
+
+    private static String getEncodings(Page page)
+    {
+        StringBuilder encodings = new StringBuilder();
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            encodings.append(page.getBlock(channel).getEncodingName()).append(',');
+        }
+        return encodings.toString();
+    }
+
+    private static class CompressionSampler
+    {
+        private int pagesToSkip;
+        private int nextPagesToSkip = 1;
+
+        public boolean shouldCompress()
+        {
+            if (pagesToSkip > 0) {
+                pagesToSkip--;
+                return false;
+            }
+            return true;
+        }
+
+        public void record(boolean compressible)
+        {
+            if (compressible) {
+                nextPagesToSkip = 1;
+                return;
+            }
+            pagesToSkip = nextPagesToSkip;
+            nextPagesToSkip = Math.min(nextPagesToSkip * 2, MAX_SKIPPED_PAGES);
+        }
+    }
 }
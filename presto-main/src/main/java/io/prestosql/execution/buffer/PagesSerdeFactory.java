@@ -32,6 +32,11 @@ public class PagesSerdeFactory
         this.compressionEnabled = compressionEnabled;
     }
 
+    public BlockEncodingSerde getBlockEncodingSerde()
+    {
+        return blockEncodingSerde;
+    }
+
     public PagesSerde createPagesSerde()
     {
         if (compressionEnabled) {
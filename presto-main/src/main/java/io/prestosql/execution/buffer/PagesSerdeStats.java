@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.prestosql.util.Mergeable;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Compression statistics of the pages serialized or deserialized by a {@link PagesSerde}.
+ */
+public class PagesSerdeStats
+        implements Mergeable<PagesSerdeStats>
+{
+    private static final PagesSerdeStats EMPTY = new PagesSerdeStats(0, 0, 0, 0, 0, 0);
+
+    private final long compressedPages;
+    private final long uncompressedPages;
+    private final long skippedPages;
+    private final long uncompressedBytes;
+    private final long serializedBytes;
+    private final long compressionNanos;
+
+    @JsonCreator
+    public PagesSerdeStats(
+            @JsonProperty("compressedPages") long compressedPages,
+            @JsonProperty("uncompressedPages") long uncompressedPages,
+            @JsonProperty("skippedPages") long skippedPages,
+            @JsonProperty("uncompressedBytes") long uncompressedBytes,
+            @JsonProperty("serializedBytes") long serializedBytes,
+            @JsonProperty("compressionNanos") long compressionNanos)
+    {
+        this.compressedPages = compressedPages;
+        this.uncompressedPages = uncompressedPages;
+        this.skippedPages = skippedPages;
+        this.uncompressedBytes = uncompressedBytes;
+        this.serializedBytes = serializedBytes;
+        this.compressionNanos = compressionNanos;
+    }
+
+    public static PagesSerdeStats empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Pages sent or received compressed.
+     */
+    @JsonProperty
+    public long getCompressedPages()
+    {
+        return compressedPages;
+    }
+
+    /**
+     * Pages sent or received uncompressed, including the skipped pages.
+     */
+    @JsonProperty
+    public long getUncompressedPages()
+    {
+        return uncompressedPages;
+    }
+
+    /**
+     * Pages sent uncompressed without trying to compress them, because recent pages
+     * with the same block encodings did not compress well.
+     */
+    @JsonProperty
+    public long getSkippedPages()
+    {
+        return skippedPages;
+    }
+
+    @JsonProperty
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes;
+    }
+
+    @JsonProperty
+    public long getSerializedBytes()
+    {
+        return serializedBytes;
+    }
+
+    /**
+     * Time spent compressing or decompressing pages, including the attempts that did
+     * not compress well. The time is measured on the thread running the driver.
+     */
+    @JsonProperty
+    public long getCompressionNanos()
+    {
+        return compressionNanos;
+    }
+
+    public double getCompressionRatio()
+    {
+        if (uncompressedBytes == 0) {
+            return 1.0;
+        }
+        return 1.0 * serializedBytes / uncompressedBytes;
+    }
+
+    public long getBytesSaved()
+    {
+        return uncompressedBytes - serializedBytes;
+    }
+
+    @Override
+    public PagesSerdeStats mergeWith(PagesSerdeStats other)
+    {
+        return new PagesSerdeStats(
+                compressedPages + other.compressedPages,
+                uncompressedPages + other.uncompressedPages,
+                skippedPages + other.skippedPages,
+                uncompressedBytes + other.uncompressedBytes,
+                serializedBytes + other.serializedBytes,
+                compressionNanos + other.compressionNanos);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("compressedPages", compressedPages)
+                .add("uncompressedPages", uncompressedPages)
+                .add("skippedPages", skippedPages)
+                .add("uncompressedBytes", uncompressedBytes)
+                .add("serializedBytes", serializedBytes)
+                .add("compressionNanos", compressionNanos)
+                .add("compressionRatio", getCompressionRatio())
+                .toString();
+    }
+}
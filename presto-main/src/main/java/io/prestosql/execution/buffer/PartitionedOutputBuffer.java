@@ -20,6 +20,7 @@ import io.airlift.units.DataSize;
 import io.prestosql.execution.StateMachine;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.memory.context.LocalMemoryContext;
 
 import java.util.List;
@@ -58,6 +59,17 @@ public class PartitionedOutputBuffer
             DataSize maxBufferSize,
             Supplier<LocalMemoryContext> systemMemoryContextSupplier,
             Executor notificationExecutor)
+    {
+        this(taskInstanceId, state, outputBuffers, ElasticBufferLimit.fixed(requireNonNull(maxBufferSize, "maxBufferSize is null").toBytes()), systemMemoryContextSupplier, notificationExecutor);
+    }
+
+    public PartitionedOutputBuffer(
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            OutputBuffers outputBuffers,
+            ElasticBufferLimit maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            Executor notificationExecutor)
     {
         this.state = requireNonNull(state, "state is null");
 
@@ -67,7 +79,7 @@ public class PartitionedOutputBuffer
         this.outputBuffers = outputBuffers;
 
         this.memoryManager = new OutputBufferMemoryManager(
-                requireNonNull(maxBufferSize, "maxBufferSize is null").toBytes(),
+                requireNonNull(maxBufferSize, "maxBufferSize is null"),
                 requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null"),
                 requireNonNull(notificationExecutor, "notificationExecutor is null"));
 
@@ -136,6 +148,7 @@ public class PartitionedOutputBuffer
                 totalBufferedPages,
                 totalRowsAdded.get(),
                 totalPagesAdded.get(),
+                memoryManager.getUtilizationHistogram(),
                 infos.build());
     }
 
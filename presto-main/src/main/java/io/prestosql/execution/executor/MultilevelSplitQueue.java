@@ -28,12 +28,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -43,43 +43,67 @@ public class MultilevelSplitQueue
     static final int[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
     static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
 
-    @GuardedBy("lock")
-    private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+    private final Shard[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    // number of waiting splits per level across all shards
+    private final AtomicInteger[] levelWaitingSplitCount = new AtomicInteger[LEVEL_THRESHOLD_SECONDS.length];
+    private final AtomicInteger waitingSplitCount = new AtomicInteger();
 
     private final AtomicLong[] levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
 
     private final AtomicLong[] levelMinPriority;
     private final List<CounterStat> selectedLevelCounters;
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition notEmpty = lock.newCondition();
+    // used only to park runner threads when all shards are empty
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition notEmpty = idleLock.newCondition();
+    private final AtomicInteger idleTakers = new AtomicInteger();
+
+    private final CounterStat localSplits = new CounterStat();
+    private final CounterStat stolenSplits = new CounterStat();
 
     private final double levelTimeMultiplier;
 
     @Inject
     public MultilevelSplitQueue(TaskManagerConfig taskManagerConfig)
     {
-        this(taskManagerConfig.getLevelTimeMultiplier().doubleValue());
+        this(taskManagerConfig.getLevelTimeMultiplier().doubleValue(), taskManagerConfig.getSplitQueueShards());
     }
 
     public MultilevelSplitQueue(double levelTimeMultiplier)
     {
+        this(levelTimeMultiplier, 1);
+    }
+
+    public MultilevelSplitQueue(double levelTimeMultiplier, int shardCount)
+    {
+        checkArgument(shardCount > 0, "shardCount must be at least 1");
         this.levelMinPriority = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
-        this.levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
         ImmutableList.Builder<CounterStat> counters = ImmutableList.builder();
 
         for (int i = 0; i < LEVEL_THRESHOLD_SECONDS.length; i++) {
             levelScheduledTime[i] = new AtomicLong();
             levelMinPriority[i] = new AtomicLong(-1);
-            levelWaitingSplits.add(new PriorityQueue<>());
+            levelWaitingSplitCount[i] = new AtomicInteger();
             counters.add(new CounterStat());
         }
 
         this.selectedLevelCounters = counters.build();
 
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+
         this.levelTimeMultiplier = levelTimeMultiplier;
     }
 
+    public int getShardCount()
+    {
+        return shards.length;
+    }
+
     private void addLevelTime(int level, long nanos)
     {
         levelScheduledTime[level].addAndGet(nanos);
@@ -94,6 +118,9 @@ public class MultilevelSplitQueue
      * <p>
      * To prevent this we set the scheduled time for levels which were empty to the expected
      * scheduled time.
+     * <p>
+     * The split is queued on the shard it last ran on, so that it is likely to be resumed
+     * by the same runner thread. Splits which have never run are spread over the shards.
      */
     public void offer(PrioritizedSplitRunner split)
     {
@@ -101,9 +128,14 @@ public class MultilevelSplitQueue
 
         split.setReady();
         int level = split.getPriority().getLevel();
-        lock.lock();
+        int shardIndex = split.getShard();
+        if (shardIndex < 0 || shardIndex >= shards.length) {
+            shardIndex = Math.floorMod(nextShard.getAndIncrement(), shards.length);
+        }
+        Shard shard = shards[shardIndex];
+        shard.lock.lock();
         try {
-            if (levelWaitingSplits.get(level).isEmpty()) {
+            if (levelWaitingSplitCount[level].getAndIncrement() == 0) {
                 // Accesses to levelScheduledTime are not synchronized, so we have a data race
                 // here - our level time math will be off. However, the staleness is bounded by
                 // the fact that only running splits that complete during this computation
@@ -114,39 +146,73 @@ public class MultilevelSplitQueue
                 levelScheduledTime[level].addAndGet(delta);
             }
 
-            levelWaitingSplits.get(level).offer(split);
-            notEmpty.signal();
+            shard.levelWaitingSplits.get(level).offer(split);
+            waitingSplitCount.incrementAndGet();
         }
         finally {
-            lock.unlock();
+            shard.lock.unlock();
+        }
+
+        if (idleTakers.get() > 0) {
+            idleLock.lock();
+            try {
+                notEmpty.signal();
+            }
+            finally {
+                idleLock.unlock();
+            }
         }
     }
 
     public PrioritizedSplitRunner take()
             throws InterruptedException
     {
+        return take(0);
+    }
+
+    /**
+     * Takes the next split of the level selected across all shards, preferring splits queued
+     * on the given shard. When the shard has no split of that level, a split is stolen from
+     * the other shards. Blocks while there are no waiting splits at all.
+     */
+    public PrioritizedSplitRunner take(int preferredShard)
+            throws InterruptedException
+    {
+        int homeShard = Math.floorMod(preferredShard, shards.length);
         while (true) {
-            lock.lockInterruptibly();
-            try {
-                PrioritizedSplitRunner result;
-                while ((result = pollSplit()) == null) {
-                    notEmpty.await();
-                }
+            int level = selectLevel();
+            if (level == -1) {
+                awaitNotEmpty();
+                continue;
+            }
 
-                if (result.updateLevelPriority()) {
-                    offer(result);
+            PrioritizedSplitRunner result = shards[homeShard].pollSplit(level);
+            if (result != null) {
+                localSplits.update(1);
+            }
+            else {
+                for (int i = 1; i < shards.length && result == null; i++) {
+                    result = shards[(homeShard + i) % shards.length].pollSplit(level);
+                }
+                if (result == null) {
+                    // another runner took the last split of the level
                     continue;
                 }
-
-                int selectedLevel = result.getPriority().getLevel();
-                levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
-                selectedLevelCounters.get(selectedLevel).update(1);
-
-                return result;
+                stolenSplits.update(1);
             }
-            finally {
-                lock.unlock();
+
+            if (result.updateLevelPriority()) {
+                offer(result);
+                continue;
             }
+
+            int selectedLevel = result.getPriority().getLevel();
+            levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
+            selectedLevelCounters.get(selectedLevel).update(1);
+
+            // resume the split on this shard the next time it is offered
+            result.setShard(homeShard);
+            return result;
         }
     }
 
@@ -155,17 +221,19 @@ public class MultilevelSplitQueue
      * using levelTimeMultiplier.
      * <p>
      * This function selects the level that has the the lowest ratio of actual to the target time
-     * with the objective of minimizing deviation from the target scheduled time. From this level,
-     * we pick the split with the lowest priority.
+     * with the objective of minimizing deviation from the target scheduled time. Both the level
+     * times and the waiting split counts are shared by all shards, so every runner selects the
+     * same level regardless of the shard it prefers.
+     *
+     * @return the selected level, or -1 if no splits are waiting
      */
-    @GuardedBy("lock")
-    private PrioritizedSplitRunner pollSplit()
+    private int selectLevel()
     {
         long targetScheduledTime = getLevel0TargetTime();
         double worstRatio = 1;
         int selectedLevel = -1;
         for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
-            if (!levelWaitingSplits.get(level).isEmpty()) {
+            if (levelWaitingSplitCount[level].get() > 0) {
                 long levelTime = levelScheduledTime[level].get();
                 double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
                 if (selectedLevel == -1 || ratio > worstRatio) {
@@ -176,18 +244,36 @@ public class MultilevelSplitQueue
 
             targetScheduledTime /= levelTimeMultiplier;
         }
+        return selectedLevel;
+    }
 
-        if (selectedLevel == -1) {
-            return null;
+    private void awaitNotEmpty()
+            throws InterruptedException
+    {
+        idleLock.lockInterruptibly();
+        try {
+            // a split offered after the increment below is guaranteed to signal
+            idleTakers.incrementAndGet();
+            try {
+                while (waitingSplitCount.get() == 0) {
+                    notEmpty.await();
+                }
+            }
+            finally {
+                idleTakers.decrementAndGet();
+            }
         }
+        finally {
+            idleLock.unlock();
+        }
+    }
 
-        PrioritizedSplitRunner result = levelWaitingSplits.get(selectedLevel).poll();
-        checkState(result != null, "pollSplit cannot return null");
-
-        return result;
+    private void splitRemoved(int level)
+    {
+        levelWaitingSplitCount[level].decrementAndGet();
+        waitingSplitCount.decrementAndGet();
     }
 
-    @GuardedBy("lock")
     private long getLevel0TargetTime()
     {
         long level0TargetTime = levelScheduledTime[0].get();
@@ -247,27 +333,15 @@ public class MultilevelSplitQueue
     public void remove(PrioritizedSplitRunner split)
     {
         checkArgument(split != null, "split is null");
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.remove(split);
-            }
-        }
-        finally {
-            lock.unlock();
+        for (Shard shard : shards) {
+            shard.remove(split);
         }
     }
 
     public void removeAll(Collection<PrioritizedSplitRunner> splits)
     {
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.removeAll(splits);
-            }
-        }
-        finally {
-            lock.unlock();
+        for (Shard shard : shards) {
+            shard.removeAll(splits);
         }
     }
 
@@ -279,17 +353,11 @@ public class MultilevelSplitQueue
 
     public int size()
     {
-        lock.lock();
-        try {
-            int total = 0;
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                total += level.size();
-            }
-            return total;
-        }
-        finally {
-            lock.unlock();
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.size();
         }
+        return total;
     }
 
     public static int computeLevel(long threadUsageNanos)
@@ -374,4 +442,122 @@ public class MultilevelSplitQueue
     {
         return selectedLevelCounters.get(4);
     }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalSplits()
+    {
+        return localSplits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStolenSplits()
+    {
+        return stolenSplits;
+    }
+
+    @Managed
+    public int getMinShardQueueDepth()
+    {
+        int min = Integer.MAX_VALUE;
+        for (Shard shard : shards) {
+            min = Math.min(min, shard.size());
+        }
+        return min;
+    }
+
+    @Managed
+    public int getMaxShardQueueDepth()
+    {
+        int max = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.size());
+        }
+        return max;
+    }
+
+    private class Shard
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        @GuardedBy("lock")
+        private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+
+        public Shard()
+        {
+            this.levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
+            for (int i = 0; i < LEVEL_THRESHOLD_SECONDS.length; i++) {
+                levelWaitingSplits.add(new PriorityQueue<>());
+            }
+        }
+
+        /**
+         * Takes the split with the lowest priority of the given level from this shard.
+         *
+         * @return the split, or null if this shard has no waiting split of the level
+         */
+        public PrioritizedSplitRunner pollSplit(int level)
+        {
+            lock.lock();
+            try {
+                PrioritizedSplitRunner result = levelWaitingSplits.get(level).poll();
+                if (result != null) {
+                    splitRemoved(level);
+                }
+                return result;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public void remove(PrioritizedSplitRunner split)
+        {
+            lock.lock();
+            try {
+                for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                    if (levelWaitingSplits.get(level).remove(split)) {
+                        splitRemoved(level);
+                    }
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public void removeAll(Collection<PrioritizedSplitRunner> splits)
+        {
+            lock.lock();
+            try {
+                for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                    PriorityQueue<PrioritizedSplitRunner> queue = levelWaitingSplits.get(level);
+                    int before = queue.size();
+                    queue.removeAll(splits);
+                    for (int i = queue.size(); i < before; i++) {
+                        splitRemoved(level);
+                    }
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public int size()
+        {
+            lock.lock();
+            try {
+                int total = 0;
+                for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
+                    total += level.size();
+                }
+                return total;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
 }
@@ -65,6 +65,9 @@ public class PrioritizedSplitRunner
     private final AtomicLong cpuTimeNanos = new AtomicLong();
     private final AtomicLong processCalls = new AtomicLong();
 
+    // split queue shard this split last ran on, or -1 if it has not run yet
+    private volatile int shard = -1;
+
     private final CounterStat globalCpuTimeMicros;
     private final CounterStat globalScheduledTimeMicros;
 
@@ -239,6 +242,16 @@ public class PrioritizedSplitRunner
         return priority.get();
     }
 
+    public int getShard()
+    {
+        return shard;
+    }
+
+    public void setShard(int shard)
+    {
+        this.shard = shard;
+    }
+
     public String getInfo()
     {
         return String.format("Split %-15s-%d %s (start = %s, wall = %s ms, cpu = %s ms, wait = %s ms, calls = %s)",
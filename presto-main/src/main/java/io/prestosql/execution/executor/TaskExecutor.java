@@ -465,7 +465,7 @@ public class TaskExecutor
                     // select next worker
                     final PrioritizedSplitRunner split;
                     try {
-                        split = waitingSplits.take();
+                        split = waitingSplits.take((int) (runnerId % waitingSplits.getShardCount()));
                     }
                     catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
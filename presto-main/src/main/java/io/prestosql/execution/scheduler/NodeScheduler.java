@@ -50,10 +50,12 @@ import java.util.concurrent.TimeUnit;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.hash.Hashing.murmur3_128;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.concurrent.MoreFutures.whenAnyCompleteCancelOthers;
 import static io.prestosql.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType;
 import static io.prestosql.spi.NodeState.ACTIVE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 public class NodeScheduler
@@ -201,6 +203,29 @@ public class NodeScheduler
         return new ResettableRandomizedIterator<>(nodes);
     }
 
+    /**
+     * Selects the candidate a split with the given affinity key should preferably run on, using
+     * rendezvous hashing, so that most keys keep their node when nodes join or leave.
+     */
+    public static Node selectAffinityNode(List<Node> candidates, String affinityKey)
+    {
+        checkArgument(!candidates.isEmpty(), "candidates is empty");
+        Node selected = null;
+        long maxWeight = Long.MIN_VALUE;
+        for (Node node : candidates) {
+            long weight = murmur3_128().newHasher()
+                    .putString(node.getNodeIdentifier(), UTF_8)
+                    .putString(affinityKey, UTF_8)
+                    .hash()
+                    .asLong();
+            if (selected == null || weight > maxWeight) {
+                selected = node;
+                maxWeight = weight;
+            }
+        }
+        return selected;
+    }
+
     public static List<Node> selectExactNodes(NodeMap nodeMap, List<HostAddress> hosts, boolean includeCoordinator)
     {
         Set<Node> chosen = new LinkedHashSet<>();
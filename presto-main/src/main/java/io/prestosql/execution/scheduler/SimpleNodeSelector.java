@@ -35,6 +35,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static io.prestosql.execution.scheduler.NodeScheduler.calculateLowWatermark;
 import static io.prestosql.execution.scheduler.NodeScheduler.randomizedNodes;
+import static io.prestosql.execution.scheduler.NodeScheduler.selectAffinityNode;
 import static io.prestosql.execution.scheduler.NodeScheduler.selectDistributionNodes;
 import static io.prestosql.execution.scheduler.NodeScheduler.selectExactNodes;
 import static io.prestosql.execution.scheduler.NodeScheduler.selectNodes;
@@ -106,6 +107,7 @@ public class SimpleNodeSelector
         NodeAssignmentStats assignmentStats = new NodeAssignmentStats(nodeTaskMap, nodeMap, existingTasks);
 
         ResettableRandomizedIterator<Node> randomCandidates = randomizedNodes(nodeMap, includeCoordinator, ImmutableSet.of());
+        List<Node> allCandidates = null;
         Set<Node> blockedExactNodes = new HashSet<>();
         boolean splitWaitingForAnyNode = false;
         for (Split split : splits) {
@@ -115,6 +117,13 @@ public class SimpleNodeSelector
             if (!split.isRemotelyAccessible()) {
                 candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
             }
+            else if (split.getAffinityKey().isPresent()) {
+                // the preferred node must not depend on a random subset of the nodes
+                if (allCandidates == null) {
+                    allCandidates = ImmutableList.copyOf(randomCandidates);
+                }
+                candidateNodes = allCandidates;
+            }
             else {
                 candidateNodes = selectNodes(minCandidates, randomCandidates);
             }
@@ -126,11 +135,21 @@ public class SimpleNodeSelector
             Node chosenNode = null;
             int min = Integer.MAX_VALUE;
 
-            for (Node node : candidateNodes) {
-                int totalSplitCount = assignmentStats.getTotalSplitCount(node);
-                if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
-                    chosenNode = node;
-                    min = totalSplitCount;
+            if (split.isRemotelyAccessible() && split.getAffinityKey().isPresent()) {
+                // soft affinity: fall back to the least loaded candidate when the preferred node is full
+                Node affinityNode = selectAffinityNode(candidateNodes, split.getAffinityKey().get());
+                if (assignmentStats.getTotalSplitCount(affinityNode) < maxSplitsPerNode) {
+                    chosenNode = affinityNode;
+                }
+            }
+
+            if (chosenNode == null) {
+                for (Node node : candidateNodes) {
+                    int totalSplitCount = assignmentStats.getTotalSplitCount(node);
+                    if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
+                        chosenNode = node;
+                        min = totalSplitCount;
+                    }
                 }
             }
             if (chosenNode == null) {
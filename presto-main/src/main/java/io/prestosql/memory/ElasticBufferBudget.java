@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.memory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.spi.QueryId;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Memory that the elastic buffers of a query on this node may use beyond their base sizes. The
+ * growth of all buffers together is bounded by the headroom of the memory pool below the memory
+ * threshold, and by the memory the query may still reserve under its per-node total memory limit.
+ * The pool is sampled at most once per sampling interval, so buffers that check their limit on
+ * every page do not contend on the pool monitor.
+ * <p>
+ * The growth is reserved as revocable memory of the query, so the {@link io.prestosql.execution.MemoryRevokingScheduler}
+ * can revoke it when the pool runs low. Buffers then give up their growth, and revocation
+ * listeners spill the buffered pages they can.
+ */
+@ThreadSafe
+public final class ElasticBufferBudget
+{
+    private static final long SAMPLING_INTERVAL_NANOS = MILLISECONDS.toNanos(100);
+
+    private final QueryId queryId;
+    private final Supplier<MemoryPool> memoryPool;
+    private final LongSupplier maxQueryMemory;
+    private final Ticker ticker;
+    private final LocalMemoryContext revocableMemoryContext;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicBoolean revoking = new AtomicBoolean();
+    private final Set<Runnable> revocationListeners = newConcurrentHashSet();
+
+    private volatile PoolSample sample;
+
+    public ElasticBufferBudget(QueryId queryId, Supplier<MemoryPool> memoryPool, LongSupplier maxQueryMemory, LocalMemoryContext revocableMemoryContext)
+    {
+        this(queryId, memoryPool, maxQueryMemory, revocableMemoryContext, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    ElasticBufferBudget(QueryId queryId, Supplier<MemoryPool> memoryPool, LongSupplier maxQueryMemory, LocalMemoryContext revocableMemoryContext, Ticker ticker)
+    {
+        this.queryId = requireNonNull(queryId, "queryId is null");
+        this.memoryPool = requireNonNull(memoryPool, "memoryPool is null");
+        this.maxQueryMemory = requireNonNull(maxQueryMemory, "maxQueryMemory is null");
+        this.revocableMemoryContext = requireNonNull(revocableMemoryContext, "revocableMemoryContext is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    /**
+     * Changes the growth held by a buffer from {@code currentBytes} towards {@code requestedBytes}.
+     * Shrinking always succeeds. Growing is granted only as far as the budget allows, but a buffer
+     * never loses growth it already holds, as the bytes are already buffered. While the growth is
+     * being revoked, buffers give up all their growth until the pool has headroom again.
+     *
+     * @return the growth the buffer now holds
+     */
+    public long reserve(long currentBytes, long requestedBytes, double memoryThreshold)
+    {
+        checkArgument(currentBytes >= 0, "currentBytes is negative");
+        checkArgument(requestedBytes >= 0, "requestedBytes is negative");
+        if (revoking.get()) {
+            if (getSample().getHeadroom(memoryThreshold) > 0) {
+                revoking.set(false);
+            }
+            else {
+                requestedBytes = 0;
+            }
+        }
+
+        if (requestedBytes <= currentBytes) {
+            if (requestedBytes < currentBytes) {
+                reservedBytes.addAndGet(requestedBytes - currentBytes);
+                updateRevocableMemory();
+            }
+            return requestedBytes;
+        }
+
+        long headroom = getSample().getHeadroom(memoryThreshold);
+        while (true) {
+            long reserved = reservedBytes.get();
+            long grantedBytes = max(currentBytes, min(requestedBytes, currentBytes + headroom - reserved));
+            if (grantedBytes == currentBytes) {
+                return grantedBytes;
+            }
+            if (reservedBytes.compareAndSet(reserved, reserved + grantedBytes - currentBytes)) {
+                updateRevocableMemory();
+                return grantedBytes;
+            }
+        }
+    }
+
+    /**
+     * Revokes the growth of all buffers. Buffers give up their growth on their next update, so
+     * producers block until consumers drain the buffers to their base sizes, and the revocation
+     * listeners are notified to spill what they buffer.
+     *
+     * @return the growth being revoked, or zero if there is no growth or it is already being revoked
+     */
+    public long requestRevoking()
+    {
+        long revokingBytes = reservedBytes.get();
+        if (revokingBytes == 0 || !revoking.compareAndSet(false, true)) {
+            return 0;
+        }
+        // the next reservation must see the pool as it is now
+        sample = null;
+        // listeners may release growth right away, so the growth is read before they run
+        revocationListeners.forEach(Runnable::run);
+        return revokingBytes;
+    }
+
+    /**
+     * @return the growth that buffers still hold while it is being revoked
+     */
+    public long getRevokingBytes()
+    {
+        if (!revoking.get()) {
+            return 0;
+        }
+        return reservedBytes.get();
+    }
+
+    public void addRevocationListener(Runnable listener)
+    {
+        revocationListeners.add(requireNonNull(listener, "listener is null"));
+    }
+
+    public void removeRevocationListener(Runnable listener)
+    {
+        revocationListeners.remove(requireNonNull(listener, "listener is null"));
+    }
+
+    @VisibleForTesting
+    long getReservedBytes()
+    {
+        return reservedBytes.get();
+    }
+
+    private synchronized void updateRevocableMemory()
+    {
+        // read the latest value under the lock, so that a stale value is never set last
+        revocableMemoryContext.setBytes(reservedBytes.get());
+    }
+
+    private PoolSample getSample()
+    {
+        long now = ticker.read();
+        PoolSample sample = this.sample;
+        if (sample == null || now - sample.getSampleTime() >= SAMPLING_INTERVAL_NANOS) {
+            MemoryPool pool = memoryPool.get();
+            sample = new PoolSample(
+                    now,
+                    pool.getFreeBytes(),
+                    pool.getMaxBytes(),
+                    maxQueryMemory.getAsLong() - pool.getQueryMemoryReservation(queryId));
+            this.sample = sample;
+        }
+        return sample;
+    }
+
+    private static class PoolSample
+    {
+        private final long sampleTime;
+        private final long freeBytes;
+        private final long maxBytes;
+        private final long queryFreeBytes;
+
+        public PoolSample(long sampleTime, long freeBytes, long maxBytes, long queryFreeBytes)
+        {
+            this.sampleTime = sampleTime;
+            this.freeBytes = freeBytes;
+            this.maxBytes = maxBytes;
+            this.queryFreeBytes = queryFreeBytes;
+        }
+
+        public long getSampleTime()
+        {
+            return sampleTime;
+        }
+
+        public long getHeadroom(double memoryThreshold)
+        {
+            long poolHeadroom = freeBytes - (long) (maxBytes * (1.0 - memoryThreshold));
+            return max(0, min(poolHeadroom, queryFreeBytes));
+        }
+    }
+}
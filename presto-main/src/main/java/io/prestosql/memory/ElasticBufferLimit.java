@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.memory;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Size limit of a buffer that grows beyond its base size, up to a maximum size, by reserving
+ * growth from the {@link ElasticBufferBudget} of its query. All buffers of a query share the
+ * budget, so together they grow at most by the headroom of the memory pool and of the query
+ * memory limit. Once the budget is used up, buffers that hold no growth stay at their base size,
+ * and producers block until consumers drain the buffers.
+ */
+@ThreadSafe
+public final class ElasticBufferLimit
+{
+    private final long baseBytes;
+    private final long maxBytes;
+    private final double memoryThreshold;
+    private final Optional<ElasticBufferBudget> budget;
+
+    public static ElasticBufferLimit fixed(long bytes)
+    {
+        return new ElasticBufferLimit(bytes, bytes, 1.0, Optional.empty());
+    }
+
+    public static ElasticBufferLimit elastic(long baseBytes, long maxBytes, double memoryThreshold, ElasticBufferBudget budget)
+    {
+        if (maxBytes <= baseBytes) {
+            return fixed(baseBytes);
+        }
+        return new ElasticBufferLimit(baseBytes, maxBytes, memoryThreshold, Optional.of(requireNonNull(budget, "budget is null")));
+    }
+
+    private ElasticBufferLimit(long baseBytes, long maxBytes, double memoryThreshold, Optional<ElasticBufferBudget> budget)
+    {
+        checkArgument(baseBytes > 0, "baseBytes must be > 0");
+        checkArgument(maxBytes >= baseBytes, "maxBytes must be at least baseBytes");
+        checkArgument(0 <= memoryThreshold && memoryThreshold <= 1, "memoryThreshold should be within [0, 1] range, got %s", memoryThreshold);
+        this.baseBytes = baseBytes;
+        this.maxBytes = maxBytes;
+        this.memoryThreshold = memoryThreshold;
+        this.budget = requireNonNull(budget, "budget is null");
+    }
+
+    public long getBaseBytes()
+    {
+        return baseBytes;
+    }
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    public boolean isElastic()
+    {
+        return budget.isPresent();
+    }
+
+    /**
+     * Updates the growth held by a buffer for the specified number of buffered bytes. The caller
+     * keeps the returned growth, and passes it back on the next update. A buffer is full when it
+     * holds more than its base size plus its growth, and releases its growth by updating with
+     * zero buffered bytes.
+     */
+    public long updateGrowth(long growthBytes, long bufferedBytes)
+    {
+        if (!budget.isPresent()) {
+            return 0;
+        }
+        long requestedBytes = min(max(bufferedBytes - baseBytes, 0), maxBytes - baseBytes);
+        return budget.get().reserve(growthBytes, requestedBytes, memoryThreshold);
+    }
+
+    /**
+     * Registers a listener that is notified when the growth of the buffers is revoked. Buffers
+     * that can spill their pages use it to release memory faster than their consumers drain it.
+     */
+    public void addRevocationListener(Runnable listener)
+    {
+        budget.ifPresent(budget -> budget.addRevocationListener(listener));
+    }
+
+    public void removeRevocationListener(Runnable listener)
+    {
+        budget.ifPresent(budget -> budget.removeRevocationListener(listener));
+    }
+
+    /**
+     * Splits this limit evenly between the specified number of buffers. The buffers still share
+     * the budget of this limit.
+     */
+    public ElasticBufferLimit split(int buffers)
+    {
+        checkArgument(buffers > 0, "buffers must be > 0");
+        return new ElasticBufferLimit(max(baseBytes / buffers, 1), max(maxBytes / buffers, 1), memoryThreshold, budget);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("baseBytes", baseBytes)
+                .add("maxBytes", maxBytes)
+                .add("memoryThreshold", memoryThreshold)
+                .add("elastic", isElastic())
+                .toString();
+    }
+}
@@ -76,6 +76,7 @@ public class QueryContext
     private long maxTotalMemory;
 
     private final MemoryTrackingContext queryMemoryContext;
+    private final ElasticBufferBudget elasticBufferBudget;
 
     @GuardedBy("this")
     private MemoryPool memoryPool;
@@ -107,6 +108,7 @@ public class QueryContext
                 newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateUserMemory, this::tryUpdateUserMemory), GUARANTEED_MEMORY),
                 newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateRevocableMemory, this::tryReserveMemoryNotSupported), 0L),
                 newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateSystemMemory, this::tryReserveMemoryNotSupported), 0L));
+        this.elasticBufferBudget = new ElasticBufferBudget(queryId, this::getMemoryPool, this::getMaxTotalMemory, queryMemoryContext.newRevocableMemoryContext("ElasticBufferBudget"));
     }
 
     // TODO: This method should be removed, and the correct limit set in the constructor. However, due to the way QueryContext is constructed the memory limit is not known in advance
@@ -246,6 +248,16 @@ public class QueryContext
         return memoryPool;
     }
 
+    private synchronized long getMaxTotalMemory()
+    {
+        return maxTotalMemory;
+    }
+
+    public ElasticBufferBudget getElasticBufferBudget()
+    {
+        return elasticBufferBudget;
+    }
+
     public TaskContext addTaskContext(TaskStateMachine taskStateMachine, Session session, boolean perOperatorCpuTimerEnabled, boolean cpuTimerEnabled, OptionalInt totalPartitions)
     {
         TaskContext taskContext = TaskContext.createTaskContext(
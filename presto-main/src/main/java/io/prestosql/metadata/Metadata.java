@@ -18,12 +18,15 @@ import io.prestosql.Session;
 import io.prestosql.connector.ConnectorId;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
 import io.prestosql.spi.connector.CatalogSchemaName;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorOutputMetadata;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.LimitApplicationResult;
 import io.prestosql.spi.connector.SystemTable;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.security.GrantInfo;
@@ -86,6 +89,20 @@ public interface Metadata
      */
     TableLayoutHandle getAlternativeLayoutHandle(Session session, TableLayoutHandle tableLayoutHandle, PartitioningHandle partitioningHandle);
 
+    /**
+     * Attempt to push down the provided limit into the table layout.
+     *
+     * @return the new table layout handle and whether the limit is guaranteed, or empty if the connector does not support limit pushdown
+     */
+    Optional<LimitApplicationResult<TableLayoutHandle>> applyLimit(Session session, TableLayoutHandle tableLayoutHandle, long limit);
+
+    /**
+     * Attempt to push down the partial aggregation of the rows of each split into the table layout.
+     *
+     * @return the new table layout handle and the columns producing the partial results of the aggregates, or empty if the connector does not support aggregation pushdown
+     */
+    Optional<AggregationApplicationResult<TableLayoutHandle>> applyAggregation(Session session, TableLayoutHandle tableLayoutHandle, List<AggregateFunction> aggregates, List<ColumnHandle> groupingColumns);
+
     /**
      * Return a partitioning handle which the connector can transparently convert both {@code left} and {@code right} into.
      */
@@ -30,6 +30,8 @@ import io.prestosql.connector.ConnectorId;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
 import io.prestosql.spi.connector.CatalogSchemaName;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
@@ -48,6 +50,7 @@ import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.ConnectorTransactionHandle;
 import io.prestosql.spi.connector.ConnectorViewDefinition;
 import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.LimitApplicationResult;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.SchemaTablePrefix;
 import io.prestosql.spi.connector.SystemTable;
@@ -416,6 +419,32 @@ public class MetadataManager
         return new TableLayoutHandle(connectorId, transaction, newTableLayoutHandle);
     }
 
+    @Override
+    public Optional<LimitApplicationResult<TableLayoutHandle>> applyLimit(Session session, TableLayoutHandle tableLayoutHandle, long limit)
+    {
+        ConnectorId connectorId = tableLayoutHandle.getConnectorId();
+        CatalogMetadata catalogMetadata = getCatalogMetadata(session, connectorId);
+        ConnectorMetadata metadata = catalogMetadata.getMetadataFor(connectorId);
+        ConnectorTransactionHandle transaction = catalogMetadata.getTransactionHandleFor(connectorId);
+        return metadata.applyLimit(session.toConnectorSession(connectorId), tableLayoutHandle.getConnectorHandle(), limit)
+                .map(result -> new LimitApplicationResult<>(
+                        new TableLayoutHandle(connectorId, transaction, result.getHandle()),
+                        result.isLimitGuaranteed()));
+    }
+
+    @Override
+    public Optional<AggregationApplicationResult<TableLayoutHandle>> applyAggregation(Session session, TableLayoutHandle tableLayoutHandle, List<AggregateFunction> aggregates, List<ColumnHandle> groupingColumns)
+    {
+        ConnectorId connectorId = tableLayoutHandle.getConnectorId();
+        CatalogMetadata catalogMetadata = getCatalogMetadata(session, connectorId);
+        ConnectorMetadata metadata = catalogMetadata.getMetadataFor(connectorId);
+        ConnectorTransactionHandle transaction = catalogMetadata.getTransactionHandleFor(connectorId);
+        return metadata.applyAggregation(session.toConnectorSession(connectorId), tableLayoutHandle.getConnectorHandle(), aggregates, groupingColumns)
+                .map(result -> new AggregationApplicationResult<>(
+                        new TableLayoutHandle(connectorId, transaction, result.getHandle()),
+                        result.getAggregateColumns()));
+    }
+
     @Override
     public Optional<PartitioningHandle> getCommonPartitioning(Session session, PartitioningHandle left, PartitioningHandle right)
     {
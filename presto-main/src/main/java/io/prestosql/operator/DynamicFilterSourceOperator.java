@@ -0,0 +1,308 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.spi.type.TypeUtils.readNativeValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the values of the join keys flowing into the build side of a hash join
+ * and publishes them as a {@link TupleDomain} once all input has been seen. The
+ * collected domain can be used to skip probe side rows (and connector data) that
+ * cannot possibly match the build side.
+ * <p>
+ * Pages are passed through unchanged. When the build side is too large to be
+ * represented as a set of discrete values, the operator degrades to a
+ * {@code [min, max]} range for orderable types and to an unconstrained domain
+ * for all other types.
+ */
+public class DynamicFilterSourceOperator
+        implements Operator
+{
+    public static class Channel
+    {
+        private final String filterId;
+        private final Type type;
+        private final int index;
+
+        public Channel(String filterId, Type type, int index)
+        {
+            this.filterId = requireNonNull(filterId, "filterId is null");
+            this.type = requireNonNull(type, "type is null");
+            checkArgument(index >= 0, "index is negative");
+            this.index = index;
+        }
+
+        public String getFilterId()
+        {
+            return filterId;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public int getIndex()
+        {
+            return index;
+        }
+    }
+
+    public static class DynamicFilterSourceOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final Consumer<TupleDomain<String>> dynamicPredicateConsumer;
+        private final List<Channel> channels;
+        private final int maxFilterPositionsCount;
+        private final DataSize maxFilterSize;
+
+        private boolean closed;
+
+        public DynamicFilterSourceOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+                List<Channel> channels,
+                int maxFilterPositionsCount,
+                DataSize maxFilterSize)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.dynamicPredicateConsumer = requireNonNull(dynamicPredicateConsumer, "dynamicPredicateConsumer is null");
+            this.channels = ImmutableList.copyOf(requireNonNull(channels, "channels is null"));
+            checkArgument(maxFilterPositionsCount >= 0, "maxFilterPositionsCount is negative");
+            this.maxFilterPositionsCount = maxFilterPositionsCount;
+            this.maxFilterSize = requireNonNull(maxFilterSize, "maxFilterSize is null");
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, DynamicFilterSourceOperator.class.getSimpleName());
+            return new DynamicFilterSourceOperator(
+                    operatorContext,
+                    dynamicPredicateConsumer,
+                    channels,
+                    maxFilterPositionsCount,
+                    maxFilterSize);
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            checkState(!closed, "Factory is already closed");
+            closed = true;
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new DynamicFilterSourceOperatorFactory(operatorId, planNodeId, dynamicPredicateConsumer, channels, maxFilterPositionsCount, maxFilterSize);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final LocalMemoryContext memoryContext;
+    private final Consumer<TupleDomain<String>> dynamicPredicateConsumer;
+    private final List<Channel> channels;
+    private final int maxFilterPositionsCount;
+    private final long maxFilterSizeInBytes;
+
+    private boolean finished;
+    private Page current;
+
+    // null after the build side became too large to be collected as discrete values
+    private BlockBuilder[] blockBuilders;
+
+    // per channel [min, max] values; null entries for channels with non-orderable types
+    private final Block[] minValues;
+    private final Block[] maxValues;
+    private boolean emptyOrAllNull = true;
+
+    public DynamicFilterSourceOperator(
+            OperatorContext operatorContext,
+            Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+            List<Channel> channels,
+            int maxFilterPositionsCount,
+            DataSize maxFilterSize)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.memoryContext = operatorContext.localUserMemoryContext();
+        this.dynamicPredicateConsumer = requireNonNull(dynamicPredicateConsumer, "dynamicPredicateConsumer is null");
+        this.channels = ImmutableList.copyOf(requireNonNull(channels, "channels is null"));
+        this.maxFilterPositionsCount = maxFilterPositionsCount;
+        this.maxFilterSizeInBytes = requireNonNull(maxFilterSize, "maxFilterSize is null").toBytes();
+
+        this.blockBuilders = new BlockBuilder[channels.size()];
+        for (int channelIndex = 0; channelIndex < channels.size(); channelIndex++) {
+            blockBuilders[channelIndex] = channels.get(channelIndex).getType().createBlockBuilder(null, maxFilterPositionsCount);
+        }
+        this.minValues = new Block[channels.size()];
+        this.maxValues = new Block[channels.size()];
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return current == null && !finished;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        checkState(!finished, "Operator is already finished");
+        checkState(current == null, "Current page is not yet consumed");
+        current = requireNonNull(page, "page is null");
+
+        for (int channelIndex = 0; channelIndex < channels.size(); channelIndex++) {
+            Channel channel = channels.get(channelIndex);
+            Block block = page.getBlock(channel.getIndex());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                // null keys never match in an equi-join
+                if (block.isNull(position)) {
+                    continue;
+                }
+                emptyOrAllNull = false;
+                updateMinMax(channelIndex, channel.getType(), block, position);
+                if (blockBuilders != null) {
+                    channel.getType().appendTo(block, position, blockBuilders[channelIndex]);
+                }
+            }
+        }
+
+        if (blockBuilders == null) {
+            return;
+        }
+
+        long retainedSizeInBytes = 0;
+        boolean tooLarge = false;
+        for (BlockBuilder blockBuilder : blockBuilders) {
+            retainedSizeInBytes += blockBuilder.getRetainedSizeInBytes();
+            tooLarge |= blockBuilder.getPositionCount() > maxFilterPositionsCount;
+        }
+        if (tooLarge || retainedSizeInBytes > maxFilterSizeInBytes) {
+            // the discrete value set would be too large, fall back to min/max ranges
+            blockBuilders = null;
+            memoryContext.setBytes(0);
+            return;
+        }
+        memoryContext.setBytes(retainedSizeInBytes);
+    }
+
+    private void updateMinMax(int channelIndex, Type type, Block block, int position)
+    {
+        if (!type.isOrderable()) {
+            return;
+        }
+        if (minValues[channelIndex] == null || type.compareTo(block, position, minValues[channelIndex], 0) < 0) {
+            minValues[channelIndex] = block.getSingleValueBlock(position);
+        }
+        if (maxValues[channelIndex] == null || type.compareTo(block, position, maxValues[channelIndex], 0) > 0) {
+            maxValues[channelIndex] = block.getSingleValueBlock(position);
+        }
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        Page result = current;
+        current = null;
+        return result;
+    }
+
+    @Override
+    public void finish()
+    {
+        if (finished) {
+            // NOTE: finish() may be called multiple times (see comment at Driver::processInternal).
+            return;
+        }
+        finished = true;
+
+        if (emptyOrAllNull) {
+            // no build side row can match anything on the probe side
+            dynamicPredicateConsumer.accept(TupleDomain.none());
+            return;
+        }
+
+        ImmutableMap.Builder<String, Domain> domains = ImmutableMap.builder();
+        for (int channelIndex = 0; channelIndex < channels.size(); channelIndex++) {
+            Channel channel = channels.get(channelIndex);
+            domains.put(channel.getFilterId(), buildDomain(channelIndex, channel.getType()));
+        }
+        blockBuilders = null;
+        memoryContext.setBytes(0);
+        dynamicPredicateConsumer.accept(TupleDomain.withColumnDomains(domains.build()));
+    }
+
+    private Domain buildDomain(int channelIndex, Type type)
+    {
+        if (blockBuilders != null && type.isComparable()) {
+            Block block = blockBuilders[channelIndex].build();
+            List<Object> values = new ArrayList<>(block.getPositionCount());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                values.add(readNativeValue(type, block, position));
+            }
+            return Domain.create(ValueSet.copyOf(type, values), false);
+        }
+        if (minValues[channelIndex] != null) {
+            Object min = readNativeValue(type, minValues[channelIndex], 0);
+            Object max = readNativeValue(type, maxValues[channelIndex], 0);
+            return Domain.create(ValueSet.ofRanges(Range.range(type, min, true, max, true)), false);
+        }
+        return Domain.all(type);
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return current == null && finished;
+    }
+
+    @Override
+    public void close()
+    {
+        memoryContext.setBytes(0);
+    }
+}
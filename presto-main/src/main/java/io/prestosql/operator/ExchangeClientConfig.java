@@ -14,6 +14,8 @@
 package io.prestosql.operator;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.configuration.ConfigSecuritySensitive;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -21,14 +23,17 @@ import io.airlift.units.Duration;
 import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 public class ExchangeClientConfig
 {
     private DataSize maxBufferSize = new DataSize(32, Unit.MEGABYTE);
+    private DataSize mergeMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
     private int concurrentRequestMultiplier = 3;
     private Duration minErrorDuration = new Duration(1, TimeUnit.MINUTES);
     private Duration maxErrorDuration = new Duration(5, TimeUnit.MINUTES);
@@ -36,6 +41,15 @@ public class ExchangeClientConfig
     private int clientThreads = 25;
     private int pageBufferClientMaxCallbackThreads = 25;
     private boolean acknowledgePages = true;
+    private ExchangeTransport transport = ExchangeTransport.HTTP;
+    private int streamingPort = 8089;
+    private Optional<String> streamingSharedSecret = Optional.empty();
+
+    public enum ExchangeTransport
+    {
+        HTTP,
+        STREAMING,
+    }
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -50,6 +64,20 @@ public class ExchangeClientConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getMergeMaxBufferSize()
+    {
+        return mergeMaxBufferSize;
+    }
+
+    @Config("exchange.merge.max-buffer-size")
+    @ConfigDescription("Buffer size shared by all sources of a merging exchange")
+    public ExchangeClientConfig setMergeMaxBufferSize(DataSize mergeMaxBufferSize)
+    {
+        this.mergeMaxBufferSize = mergeMaxBufferSize;
+        return this;
+    }
+
     @Min(1)
     public int getConcurrentRequestMultiplier()
     {
@@ -141,4 +169,47 @@ public class ExchangeClientConfig
         this.acknowledgePages = acknowledgePages;
         return this;
     }
+
+    @NotNull
+    public ExchangeTransport getTransport()
+    {
+        return transport;
+    }
+
+    @Config("exchange.transport")
+    @ConfigDescription("Transport used to fetch pages from other nodes. Must be the same on all nodes of the cluster")
+    public ExchangeClientConfig setTransport(ExchangeTransport transport)
+    {
+        this.transport = transport;
+        return this;
+    }
+
+    @Min(0)
+    @Max(65535)
+    public int getStreamingPort()
+    {
+        return streamingPort;
+    }
+
+    @Config("exchange.streaming.port")
+    @ConfigDescription("Port of the streaming exchange server, or 0 to use an ephemeral port. Nodes announce the port of their server")
+    public ExchangeClientConfig setStreamingPort(int streamingPort)
+    {
+        this.streamingPort = streamingPort;
+        return this;
+    }
+
+    public Optional<String> getStreamingSharedSecret()
+    {
+        return streamingSharedSecret;
+    }
+
+    @Config("exchange.streaming.shared-secret")
+    @ConfigSecuritySensitive
+    @ConfigDescription("Secret used to authenticate streaming exchange connections. Must be the same on all nodes of the cluster")
+    public ExchangeClientConfig setStreamingSharedSecret(String streamingSharedSecret)
+    {
+        this.streamingSharedSecret = Optional.ofNullable(streamingSharedSecret);
+        return this;
+    }
 }
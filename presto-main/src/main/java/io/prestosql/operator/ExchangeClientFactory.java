@@ -24,6 +24,7 @@ import org.weakref.jmx.Nested;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -31,16 +32,26 @@ import java.util.concurrent.ThreadPoolExecutor;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.prestosql.operator.ExchangeClientConfig.ExchangeTransport.STREAMING;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class ExchangeClientFactory
         implements ExchangeClientSupplier
 {
+    // covers the time a streaming exchange request waits on the remote output buffer
+    private static final Duration STREAMING_REQUEST_TIMEOUT = new Duration(10, SECONDS);
+    // lets every source of a merge keep at least one request in flight
+    private static final DataSize MIN_MERGE_SOURCE_BUFFER_SIZE = new DataSize(256, KILOBYTE);
+
     private final DataSize maxBufferedBytes;
+    private final DataSize mergeMaxBufferedBytes;
     private final int concurrentRequestMultiplier;
     private final Duration maxErrorDuration;
     private final HttpClient httpClient;
+    private final Optional<StreamingExchangeTransport> streamingTransport;
     private final DataSize maxResponseSize;
     private final boolean acknowledgePages;
     private final ScheduledExecutorService scheduler;
@@ -51,16 +62,19 @@ public class ExchangeClientFactory
     public ExchangeClientFactory(
             ExchangeClientConfig config,
             @ForExchange HttpClient httpClient,
-            @ForExchange ScheduledExecutorService scheduler)
+            @ForExchange ScheduledExecutorService scheduler,
+            StreamingExchangeLocator streamingExchangeLocator)
     {
         this(
                 config.getMaxBufferSize(),
+                config.getMergeMaxBufferSize(),
                 config.getMaxResponseSize(),
                 config.getConcurrentRequestMultiplier(),
                 config.getMaxErrorDuration(),
                 config.isAcknowledgePages(),
                 config.getPageBufferClientMaxCallbackThreads(),
                 httpClient,
+                createStreamingTransport(config, streamingExchangeLocator, scheduler),
                 scheduler);
     }
 
@@ -73,12 +87,62 @@ public class ExchangeClientFactory
             int pageBufferClientMaxCallbackThreads,
             HttpClient httpClient,
             ScheduledExecutorService scheduler)
+    {
+        this(
+                maxBufferedBytes,
+                maxResponseSize,
+                concurrentRequestMultiplier,
+                maxErrorDuration,
+                acknowledgePages,
+                pageBufferClientMaxCallbackThreads,
+                httpClient,
+                Optional.empty(),
+                scheduler);
+    }
+
+    public ExchangeClientFactory(
+            DataSize maxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            int pageBufferClientMaxCallbackThreads,
+            HttpClient httpClient,
+            Optional<StreamingExchangeTransport> streamingTransport,
+            ScheduledExecutorService scheduler)
+    {
+        this(
+                maxBufferedBytes,
+                maxBufferedBytes,
+                maxResponseSize,
+                concurrentRequestMultiplier,
+                maxErrorDuration,
+                acknowledgePages,
+                pageBufferClientMaxCallbackThreads,
+                httpClient,
+                streamingTransport,
+                scheduler);
+    }
+
+    public ExchangeClientFactory(
+            DataSize maxBufferedBytes,
+            DataSize mergeMaxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            int pageBufferClientMaxCallbackThreads,
+            HttpClient httpClient,
+            Optional<StreamingExchangeTransport> streamingTransport,
+            ScheduledExecutorService scheduler)
     {
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
+        this.mergeMaxBufferedBytes = requireNonNull(mergeMaxBufferedBytes, "mergeMaxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.maxErrorDuration = requireNonNull(maxErrorDuration, "maxErrorDuration is null");
         this.acknowledgePages = acknowledgePages;
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        this.streamingTransport = requireNonNull(streamingTransport, "streamingTransport is null");
 
         // Use only 0.75 of the maxResponseSize to leave room for additional bytes from the encoding
         // TODO figure out a better way to compute the size of data that will be transferred over the network
@@ -92,6 +156,7 @@ public class ExchangeClientFactory
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) pageBufferClientCallbackExecutor);
 
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferSize must be at least 1 byte: %s", maxBufferedBytes);
+        checkArgument(mergeMaxBufferedBytes.toBytes() > 0, "mergeMaxBufferSize must be at least 1 byte: %s", mergeMaxBufferedBytes);
         checkArgument(maxResponseSize.toBytes() > 0, "maxResponseSize must be at least 1 byte: %s", maxResponseSize);
         checkArgument(concurrentRequestMultiplier > 0, "concurrentRequestMultiplier must be at least 1: %s", concurrentRequestMultiplier);
     }
@@ -100,6 +165,7 @@ public class ExchangeClientFactory
     public void stop()
     {
         pageBufferClientCallbackExecutor.shutdownNow();
+        streamingTransport.ifPresent(StreamingExchangeTransport::close);
     }
 
     @Managed
@@ -119,8 +185,37 @@ public class ExchangeClientFactory
                 maxErrorDuration,
                 acknowledgePages,
                 httpClient,
+                streamingTransport,
+                scheduler,
+                systemMemoryContext,
+                pageBufferClientCallbackExecutor);
+    }
+
+    @Override
+    public ExchangeClient getMergeSource(LocalMemoryContext systemMemoryContext, int sourceCount)
+    {
+        checkArgument(sourceCount > 0, "sourceCount must be at least 1: %s", sourceCount);
+        long bufferCapacity = Math.max(mergeMaxBufferedBytes.toBytes() / sourceCount, MIN_MERGE_SOURCE_BUFFER_SIZE.toBytes());
+        // a response larger than the buffer would overshoot the share of the source
+        long responseSize = Math.min(maxResponseSize.toBytes(), bufferCapacity);
+        return new ExchangeClient(
+                new DataSize(bufferCapacity, BYTE),
+                new DataSize(responseSize, BYTE),
+                concurrentRequestMultiplier,
+                maxErrorDuration,
+                acknowledgePages,
+                httpClient,
+                streamingTransport,
                 scheduler,
                 systemMemoryContext,
                 pageBufferClientCallbackExecutor);
     }
+
+    private static Optional<StreamingExchangeTransport> createStreamingTransport(ExchangeClientConfig config, StreamingExchangeLocator locator, ScheduledExecutorService scheduler)
+    {
+        if (config.getTransport() != STREAMING) {
+            return Optional.empty();
+        }
+        return Optional.of(new StreamingExchangeTransport(locator, config.getStreamingSharedSecret(), STREAMING_REQUEST_TIMEOUT, scheduler));
+    }
 }
@@ -16,6 +16,7 @@ package io.prestosql.operator;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import io.prestosql.execution.buffer.PagesSerdeStats;
 import io.prestosql.util.Mergeable;
 
 import java.util.List;
@@ -33,6 +34,7 @@ public class ExchangeClientStatus
     private final int bufferedPages;
     private final boolean noMoreLocations;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
+    private final PagesSerdeStats serdeStats;
 
     @JsonCreator
     public ExchangeClientStatus(
@@ -42,7 +44,8 @@ public class ExchangeClientStatus
             @JsonProperty("successfulRequestsCount") long successFullRequestsCount,
             @JsonProperty("bufferedPages") int bufferedPages,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
-            @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
+            @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses,
+            @JsonProperty("serdeStats") PagesSerdeStats serdeStats)
     {
         this.bufferedBytes = bufferedBytes;
         this.maxBufferedBytes = maxBufferedBytes;
@@ -51,6 +54,7 @@ public class ExchangeClientStatus
         this.bufferedPages = bufferedPages;
         this.noMoreLocations = noMoreLocations;
         this.pageBufferClientStatuses = ImmutableList.copyOf(requireNonNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
+        this.serdeStats = requireNonNull(serdeStats, "serdeStats is null");
     }
 
     @JsonProperty
@@ -95,6 +99,28 @@ public class ExchangeClientStatus
         return pageBufferClientStatuses;
     }
 
+    /**
+     * Compression statistics of the pages deserialized by the operator reading from the client.
+     */
+    @JsonProperty
+    public PagesSerdeStats getSerdeStats()
+    {
+        return serdeStats;
+    }
+
+    public ExchangeClientStatus withSerdeStats(PagesSerdeStats serdeStats)
+    {
+        return new ExchangeClientStatus(
+                bufferedBytes,
+                maxBufferedBytes,
+                averageBytesPerRequest,
+                successfulRequestsCount,
+                bufferedPages,
+                noMoreLocations,
+                pageBufferClientStatuses,
+                serdeStats);
+    }
+
     @Override
     public boolean isFinal()
     {
@@ -112,6 +138,7 @@ public class ExchangeClientStatus
                 .add("bufferedPages", bufferedPages)
                 .add("noMoreLocations", noMoreLocations)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
+                .add("serdeStats", serdeStats)
                 .toString();
     }
 
@@ -125,7 +152,8 @@ public class ExchangeClientStatus
                 successfulRequestsCount + other.successfulRequestsCount,
                 bufferedPages + other.bufferedPages,
                 noMoreLocations && other.noMoreLocations, // if at least one has some locations, mergee has some too
-                ImmutableList.of()); // pageBufferClientStatuses may be long, so we don't want to combine the lists
+                ImmutableList.of(), // pageBufferClientStatuses may be long, so we don't want to combine the lists
+                serdeStats.mergeWith(other.serdeStats));
     }
 
     private static long mergeAvgs(long value1, long count1, long value2, long count2)
@@ -18,4 +18,14 @@ import io.prestosql.memory.context.LocalMemoryContext;
 public interface ExchangeClientSupplier
 {
     ExchangeClient get(LocalMemoryContext systemMemoryContext);
+
+    /**
+     * Creates the client of one of the {@code sourceCount} sources of a merging exchange.
+     * The merge pulls from a source only when its rows reach the merge frontier, so the
+     * sources share one buffer budget instead of each buffering a full exchange buffer.
+     */
+    default ExchangeClient getMergeSource(LocalMemoryContext systemMemoryContext, int sourceCount)
+    {
+        return get(systemMemoryContext);
+    }
 }
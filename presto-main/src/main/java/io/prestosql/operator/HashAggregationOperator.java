@@ -21,6 +21,7 @@ import io.prestosql.operator.aggregation.Accumulator;
 import io.prestosql.operator.aggregation.AccumulatorFactory;
 import io.prestosql.operator.aggregation.builder.HashAggregationBuilder;
 import io.prestosql.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import io.prestosql.operator.aggregation.builder.SkipAggregationBuilder;
 import io.prestosql.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import io.prestosql.operator.scalar.CombineHashFunction;
 import io.prestosql.spi.Page;
@@ -71,6 +72,7 @@ public class HashAggregationOperator
         private final SpillerFactory spillerFactory;
         private final JoinCompiler joinCompiler;
         private final boolean useSystemMemory;
+        private final Optional<PartialAggregationController> partialAggregationController;
 
         private boolean closed;
 
@@ -109,7 +111,8 @@ public class HashAggregationOperator
                         throw new UnsupportedOperationException();
                     },
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    Optional.empty());
         }
 
         public HashAggregationOperatorFactory(
@@ -129,7 +132,8 @@ public class HashAggregationOperator
                 DataSize unspillMemoryLimit,
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
-                boolean useSystemMemory)
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this(operatorId,
                     planNodeId,
@@ -148,7 +152,8 @@ public class HashAggregationOperator
                     DataSize.succinctBytes((long) (unspillMemoryLimit.toBytes() * MERGE_WITH_MEMORY_RATIO)),
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
         }
 
         @VisibleForTesting
@@ -170,7 +175,8 @@ public class HashAggregationOperator
                 DataSize memoryLimitForMergeWithMemory,
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
-                boolean useSystemMemory)
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -190,6 +196,7 @@ public class HashAggregationOperator
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.useSystemMemory = useSystemMemory;
+            this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
         }
 
         @Override
@@ -215,7 +222,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
             return hashAggregationOperator;
         }
 
@@ -246,7 +254,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
         }
     }
 
@@ -267,6 +276,7 @@ public class HashAggregationOperator
     private final SpillerFactory spillerFactory;
     private final JoinCompiler joinCompiler;
     private final boolean useSystemMemory;
+    private final Optional<PartialAggregationController> partialAggregationController;
 
     private final List<Type> types;
     private final HashCollisionsCounter hashCollisionsCounter;
@@ -277,6 +287,15 @@ public class HashAggregationOperator
     private boolean finishing;
     private boolean finished;
 
+    // number of rows added to the current aggregation builder
+    private long aggregationInputRows;
+    // set once the partial aggregation turned out not to reduce the number of rows
+    private boolean skipAggregation;
+    // reported by the partial aggregation info
+    private long aggregatedInputPositions;
+    private long aggregatedOutputPositions;
+    private long passThroughPositions;
+
     // for yield when memory is not available
     private Work<?> unfinishedWork;
 
@@ -297,7 +316,8 @@ public class HashAggregationOperator
             DataSize memoryLimitForMergeWithMemory,
             SpillerFactory spillerFactory,
             JoinCompiler joinCompiler,
-            boolean useSystemMemory)
+            boolean useSystemMemory,
+            Optional<PartialAggregationController> partialAggregationController)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -321,8 +341,25 @@ public class HashAggregationOperator
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
-        operatorContext.setInfoSupplier(hashCollisionsCounter);
         this.useSystemMemory = useSystemMemory;
+        this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+        if (partialAggregationController.isPresent()) {
+            operatorContext.setInfoSupplier(this::getPartialAggregationInfo);
+        }
+        else {
+            operatorContext.setInfoSupplier(hashCollisionsCounter);
+        }
+    }
+
+    private PartialAggregationInfo getPartialAggregationInfo()
+    {
+        return new PartialAggregationInfo(
+                hashCollisionsCounter.get(),
+                aggregatedInputPositions,
+                aggregatedOutputPositions,
+                passThroughPositions,
+                1,
+                skipAggregation ? 1 : 0);
     }
 
     @Override
@@ -349,7 +386,7 @@ public class HashAggregationOperator
         if (finishing || outputPages != null) {
             return false;
         }
-        else if (aggregationBuilder != null && aggregationBuilder.isFull()) {
+        else if (shouldFlush()) {
             return false;
         }
         else {
@@ -365,7 +402,10 @@ public class HashAggregationOperator
         requireNonNull(page, "page is null");
         inputProcessed = true;
 
-        if (aggregationBuilder == null) {
+        if (aggregationBuilder == null && skipAggregation) {
+            aggregationBuilder = new SkipAggregationBuilder(groupByChannels, hashChannel, accumulatorFactories);
+        }
+        else if (aggregationBuilder == null) {
             // TODO: We ignore spillEnabled here if any aggregate has ORDER BY clause or DISTINCT because they are not yet implemented for spilling.
             if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
                 aggregationBuilder = new InMemoryHashAggregationBuilder(
@@ -409,6 +449,29 @@ public class HashAggregationOperator
             unfinishedWork = null;
         }
         aggregationBuilder.updateMemory();
+
+        aggregationInputRows += page.getPositionCount();
+        if (aggregationBuilder instanceof SkipAggregationBuilder) {
+            passThroughPositions += page.getPositionCount();
+        }
+        else {
+            aggregatedInputPositions += page.getPositionCount();
+        }
+        if (unfinishedWork == null && partialAggregationController.isPresent() && aggregationBuilder instanceof InMemoryHashAggregationBuilder) {
+            long groupCount = ((InMemoryHashAggregationBuilder) aggregationBuilder).getGroupCount();
+            if (partialAggregationController.get().shouldSkipAggregation(aggregationInputRows, groupCount)) {
+                // flush the groups collected so far and pass the remaining input through
+                skipAggregation = true;
+            }
+        }
+    }
+
+    private boolean shouldFlush()
+    {
+        if (aggregationBuilder == null) {
+            return false;
+        }
+        return aggregationBuilder.isFull() || (skipAggregation && !(aggregationBuilder instanceof SkipAggregationBuilder));
     }
 
     private boolean hasOrderBy()
@@ -470,7 +533,7 @@ public class HashAggregationOperator
             }
 
             // only flush if we are finishing or the aggregation builder is full
-            if (!finishing && (aggregationBuilder == null || !aggregationBuilder.isFull())) {
+            if (!finishing && !shouldFlush()) {
                 return null;
             }
 
@@ -486,7 +549,11 @@ public class HashAggregationOperator
             return null;
         }
 
-        return outputPages.getResult();
+        Page output = outputPages.getResult();
+        if (!(aggregationBuilder instanceof SkipAggregationBuilder)) {
+            aggregatedOutputPositions += output.getPositionCount();
+        }
+        return output;
     }
 
     @Override
@@ -504,6 +571,7 @@ public class HashAggregationOperator
     private void closeAggregationBuilder()
     {
         outputPages = null;
+        aggregationInputRows = 0;
         if (aggregationBuilder != null) {
             aggregationBuilder.recordHashCollisions(hashCollisionsCounter);
             aggregationBuilder.close();
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.prestosql.spi.predicate.TupleDomain;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.spi.predicate.TupleDomain.columnWiseUnion;
+
+/**
+ * Dynamic filter of a hash join within a task. Each build side driver publishes the domain of
+ * the join keys it has seen, and the filter is complete once all build side drivers have published
+ * theirs. The probe side uses the union of the domains.
+ */
+@ThreadSafe
+public class LocalDynamicFilter
+{
+    private final int partitionCount;
+    private final SettableFuture<TupleDomain<String>> resultFuture = SettableFuture.create();
+
+    @GuardedBy("this")
+    private final List<TupleDomain<String>> partitions = new ArrayList<>();
+
+    public LocalDynamicFilter(int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        this.partitionCount = partitionCount;
+    }
+
+    public Consumer<TupleDomain<String>> getTupleDomainConsumer()
+    {
+        return this::addPartition;
+    }
+
+    public ListenableFuture<TupleDomain<String>> getResultFuture()
+    {
+        return resultFuture;
+    }
+
+    private void addPartition(TupleDomain<String> tupleDomain)
+    {
+        TupleDomain<String> result;
+        synchronized (this) {
+            checkState(partitions.size() < partitionCount, "All partitions of the dynamic filter are already published");
+            partitions.add(tupleDomain);
+            if (partitions.size() < partitionCount) {
+                return;
+            }
+            result = columnWiseUnion(partitions);
+        }
+        resultFuture.set(result);
+    }
+}
@@ -18,6 +18,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.prestosql.execution.buffer.PagesSerde;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.metadata.Split;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.SortOrder;
@@ -122,7 +123,7 @@ public class MergeOperator
 
     private final SettableFuture<Void> blockedOnSplits = SettableFuture.create();
 
-    private final List<WorkProcessor<Page>> pageProducers = new ArrayList<>();
+    private final List<URI> locations = new ArrayList<>();
     private final Closer closer = Closer.create();
 
     private WorkProcessor<Page> mergedPages;
@@ -159,15 +160,8 @@ public class MergeOperator
         checkArgument(split.getConnectorSplit() instanceof RemoteSplit, "split is not a remote split");
         checkState(!blockedOnSplits.isDone(), "noMoreSplits has been called already");
 
-        URI location = ((RemoteSplit) split.getConnectorSplit()).getLocation();
-        ExchangeClient exchangeClient = closer.register(exchangeClientSupplier.get(operatorContext.localSystemMemoryContext()));
-        exchangeClient.addLocation(location);
-        exchangeClient.noMoreLocations();
-        pageProducers.add(exchangeClient.pages()
-                .map(serializedPage -> {
-                    operatorContext.recordNetworkInput(serializedPage.getSizeInBytes());
-                    return pagesSerde.deserialize(serializedPage);
-                }));
+        // the clients are created once all sources are known, as the sources share the merge buffer
+        locations.add(((RemoteSplit) split.getConnectorSplit()).getLocation());
 
         return Optional::empty;
     }
@@ -175,6 +169,20 @@ public class MergeOperator
     @Override
     public void noMoreSplits()
     {
+        List<WorkProcessor<Page>> pageProducers = new ArrayList<>(locations.size());
+        for (URI location : locations) {
+            LocalMemoryContext systemMemoryContext = operatorContext.newLocalSystemMemoryContext(MergeOperator.class.getSimpleName());
+            closer.register(systemMemoryContext::close);
+            ExchangeClient exchangeClient = closer.register(exchangeClientSupplier.getMergeSource(systemMemoryContext, locations.size()));
+            exchangeClient.addLocation(location);
+            exchangeClient.noMoreLocations();
+            pageProducers.add(exchangeClient.pages()
+                    .map(serializedPage -> {
+                        operatorContext.recordNetworkInput(serializedPage.getSizeInBytes());
+                        return pagesSerde.deserialize(serializedPage);
+                    }));
+        }
+
         mergedPages = mergeSortedPages(
                 pageProducers,
                 comparator,
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.SortOrder;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.Spiller;
+import io.prestosql.spiller.SpillerFactory;
+import io.prestosql.sql.gen.OrderingCompiler;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.util.MergeSortedPages.mergeSortedPages;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spills the contents of a {@link PagesIndex} as sorted runs and merges the runs back in sort order.
+ * Used by the operators which sort their input in a {@link PagesIndex} before producing output.
+ */
+class PagesIndexSpiller
+        implements Closeable
+{
+    private final OperatorContext operatorContext;
+    private final List<Type> types;
+    private final List<Integer> sortChannels;
+    private final List<SortOrder> sortOrder;
+    private final SpillerFactory spillerFactory;
+    private final OrderingCompiler orderingCompiler;
+
+    private Optional<Spiller> spiller = Optional.empty();
+
+    public PagesIndexSpiller(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            SpillerFactory spillerFactory,
+            OrderingCompiler orderingCompiler)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
+        this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
+    }
+
+    /**
+     * Sorts the index and spills it as a single sorted run. The index must not be modified until the returned future completes.
+     */
+    public ListenableFuture<?> spill(PagesIndex pagesIndex)
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(
+                    types,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        pagesIndex.sort(sortChannels, sortOrder);
+        return spiller.get().spill(pagesIndex.getSortedPages());
+    }
+
+    public boolean hasSpilled()
+    {
+        return spiller.isPresent();
+    }
+
+    /**
+     * Merges the spilled runs with a run that is still in memory, which must be sorted in the same order.
+     */
+    public WorkProcessor<Page> mergeSpilledRuns(Iterator<Page> memoryRun, List<Integer> outputChannels, DriverYieldSignal yieldSignal)
+    {
+        checkState(spiller.isPresent(), "Nothing was spilled");
+
+        List<WorkProcessor<Page>> sortedRuns = ImmutableList.<WorkProcessor<Page>>builder()
+                .addAll(spiller.get().getSpills().stream()
+                        .map(WorkProcessor::fromIterator)
+                        .collect(toImmutableList()))
+                .add(WorkProcessor.fromIterator(memoryRun))
+                .build();
+
+        return mergeSortedPages(
+                sortedRuns,
+                orderingCompiler.compilePageWithPositionComparator(types, sortChannels, sortOrder),
+                outputChannels,
+                outputChannels.stream()
+                        .map(types::get)
+                        .collect(toImmutableList()),
+                (builder, pageWithPosition) -> builder.isFull(),
+                false,
+                operatorContext.aggregateUserMemoryContext(),
+                yieldSignal);
+    }
+
+    /**
+     * Removes the spilled runs. The spiller can be used for a new set of runs afterwards.
+     */
+    @Override
+    public void close()
+    {
+        spiller.ifPresent(Spiller::close);
+        spiller = Optional.empty();
+    }
+}
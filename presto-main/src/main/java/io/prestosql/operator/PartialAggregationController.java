@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides when the partial aggregation step should stop aggregating. If the
+ * number of unique groups is close to the number of input rows, the partial
+ * aggregation does not reduce the data sent to the final step, and only spends
+ * CPU and memory on building a hash table.
+ */
+public class PartialAggregationController
+{
+    private final long minRows;
+    private final double uniqueRowsRatioThreshold;
+
+    public PartialAggregationController(long minRows, double uniqueRowsRatioThreshold)
+    {
+        checkArgument(minRows >= 0, "minRows is negative");
+        checkArgument(uniqueRowsRatioThreshold >= 0 && uniqueRowsRatioThreshold <= 1, "uniqueRowsRatioThreshold must be between 0 and 1");
+        this.minRows = minRows;
+        this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
+    }
+
+    public boolean shouldSkipAggregation(long inputRows, long uniqueRows)
+    {
+        return inputRows >= minRows && uniqueRows > inputRows * uniqueRowsRatioThreshold;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("minRows", minRows)
+                .add("uniqueRowsRatioThreshold", uniqueRowsRatioThreshold)
+                .toString();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.prestosql.util.Mergeable;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reports whether adaptive partial aggregations stopped aggregating, and how many
+ * rows went through the hash table and how many bypassed it.
+ */
+public class PartialAggregationInfo
+        implements Mergeable<PartialAggregationInfo>, OperatorInfo
+{
+    private final HashCollisionsInfo hashCollisionsInfo;
+    private final long aggregatedInputPositions;
+    private final long aggregatedOutputPositions;
+    private final long passThroughPositions;
+    private final long operatorCount;
+    private final long skippedOperatorCount;
+
+    @JsonCreator
+    public PartialAggregationInfo(
+            @JsonProperty("hashCollisionsInfo") HashCollisionsInfo hashCollisionsInfo,
+            @JsonProperty("aggregatedInputPositions") long aggregatedInputPositions,
+            @JsonProperty("aggregatedOutputPositions") long aggregatedOutputPositions,
+            @JsonProperty("passThroughPositions") long passThroughPositions,
+            @JsonProperty("operatorCount") long operatorCount,
+            @JsonProperty("skippedOperatorCount") long skippedOperatorCount)
+    {
+        this.hashCollisionsInfo = requireNonNull(hashCollisionsInfo, "hashCollisionsInfo is null");
+        this.aggregatedInputPositions = aggregatedInputPositions;
+        this.aggregatedOutputPositions = aggregatedOutputPositions;
+        this.passThroughPositions = passThroughPositions;
+        this.operatorCount = operatorCount;
+        this.skippedOperatorCount = skippedOperatorCount;
+    }
+
+    @JsonProperty
+    public HashCollisionsInfo getHashCollisionsInfo()
+    {
+        return hashCollisionsInfo;
+    }
+
+    /**
+     * Number of input rows that were added to the hash table.
+     */
+    @JsonProperty
+    public long getAggregatedInputPositions()
+    {
+        return aggregatedInputPositions;
+    }
+
+    /**
+     * Number of groups produced from the rows added to the hash table.
+     */
+    @JsonProperty
+    public long getAggregatedOutputPositions()
+    {
+        return aggregatedOutputPositions;
+    }
+
+    /**
+     * Number of input rows that were passed through without aggregation.
+     */
+    @JsonProperty
+    public long getPassThroughPositions()
+    {
+        return passThroughPositions;
+    }
+
+    @JsonProperty
+    public long getOperatorCount()
+    {
+        return operatorCount;
+    }
+
+    /**
+     * Number of operators that stopped aggregating because the aggregation did not reduce the rows.
+     */
+    @JsonProperty
+    public long getSkippedOperatorCount()
+    {
+        return skippedOperatorCount;
+    }
+
+    @Override
+    public PartialAggregationInfo mergeWith(PartialAggregationInfo other)
+    {
+        return new PartialAggregationInfo(
+                hashCollisionsInfo.mergeWith(other.getHashCollisionsInfo()),
+                aggregatedInputPositions + other.getAggregatedInputPositions(),
+                aggregatedOutputPositions + other.getAggregatedOutputPositions(),
+                passThroughPositions + other.getPassThroughPositions(),
+                operatorCount + other.getOperatorCount(),
+                skippedOperatorCount + other.getSkippedOperatorCount());
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("aggregatedInputPositions", aggregatedInputPositions)
+                .add("aggregatedOutputPositions", aggregatedOutputPositions)
+                .add("passThroughPositions", passThroughPositions)
+                .add("operatorCount", operatorCount)
+                .add("skippedOperatorCount", skippedOperatorCount)
+                .toString();
+    }
+}
@@ -20,6 +20,7 @@ import io.airlift.units.DataSize;
 import io.prestosql.execution.buffer.OutputBuffer;
 import io.prestosql.execution.buffer.PagesSerde;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.execution.buffer.PagesSerdeStats;
 import io.prestosql.execution.buffer.SerializedPage;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.spi.Page;
@@ -58,6 +59,7 @@ public class PartitionedOutputOperator
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel;
         private final DataSize maxMemory;
+        private final boolean optimizedRepartitioning;
 
         public PartitionedOutputFactory(
                 PartitionFunction partitionFunction,
@@ -66,7 +68,8 @@ public class PartitionedOutputOperator
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
                 OutputBuffer outputBuffer,
-                DataSize maxMemory)
+                DataSize maxMemory,
+                boolean optimizedRepartitioning)
         {
             this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
             this.partitionChannels = requireNonNull(partitionChannels, "partitionChannels is null");
@@ -75,6 +78,7 @@ public class PartitionedOutputOperator
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
+            this.optimizedRepartitioning = optimizedRepartitioning;
         }
 
         @Override
@@ -97,7 +101,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    optimizedRepartitioning);
         }
     }
 
@@ -116,6 +121,7 @@ public class PartitionedOutputOperator
         private final OutputBuffer outputBuffer;
         private final PagesSerdeFactory serdeFactory;
         private final DataSize maxMemory;
+        private final boolean optimizedRepartitioning;
 
         public PartitionedOutputOperatorFactory(
                 int operatorId,
@@ -129,7 +135,8 @@ public class PartitionedOutputOperator
                 OptionalInt nullChannel,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
-                DataSize maxMemory)
+                DataSize maxMemory,
+                boolean optimizedRepartitioning)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -143,6 +150,7 @@ public class PartitionedOutputOperator
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
+            this.optimizedRepartitioning = optimizedRepartitioning;
         }
 
         @Override
@@ -160,7 +168,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    optimizedRepartitioning);
         }
 
         @Override
@@ -183,7 +192,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    optimizedRepartitioning);
         }
     }
 
@@ -205,20 +215,35 @@ public class PartitionedOutputOperator
             OptionalInt nullChannel,
             OutputBuffer outputBuffer,
             PagesSerdeFactory serdeFactory,
-            DataSize maxMemory)
+            DataSize maxMemory,
+            boolean optimizedRepartitioning)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
-        this.partitionFunction = new PagePartitioner(
-                partitionFunction,
-                partitionChannels,
-                partitionConstants,
-                replicatesAnyRow,
-                nullChannel,
-                outputBuffer,
-                serdeFactory,
-                sourceTypes,
-                maxMemory);
+        if (optimizedRepartitioning) {
+            this.partitionFunction = new SerializingPagePartitioner(
+                    partitionFunction,
+                    partitionChannels,
+                    partitionConstants,
+                    replicatesAnyRow,
+                    nullChannel,
+                    outputBuffer,
+                    serdeFactory,
+                    sourceTypes,
+                    maxMemory);
+        }
+        else {
+            this.partitionFunction = new PageBuilderPagePartitioner(
+                    partitionFunction,
+                    partitionChannels,
+                    partitionConstants,
+                    replicatesAnyRow,
+                    nullChannel,
+                    outputBuffer,
+                    serdeFactory,
+                    sourceTypes,
+                    maxMemory);
+        }
 
         operatorContext.setInfoSupplier(this::getInfo);
         this.systemMemoryContext = operatorContext.newLocalSystemMemoryContext(PartitionedOutputOperator.class.getSimpleName());
@@ -292,7 +317,41 @@ public class PartitionedOutputOperator
         return null;
     }
 
-    private static class PagePartitioner
+    interface PagePartitioner
+    {
+        ListenableFuture<?> isFull();
+
+        long getSizeInBytes();
+
+        /**
+         * This method can be expensive for complex types.
+         */
+        long getRetainedSizeInBytes();
+
+        PartitionedOutputInfo getInfo();
+
+        void partitionPage(Page page);
+
+        void flush(boolean force);
+    }
+
+    static Page getPartitionFunctionArguments(Page page, List<Integer> partitionChannels, List<Optional<Block>> partitionConstants)
+    {
+        Block[] blocks = new Block[partitionChannels.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            Optional<Block> partitionConstant = partitionConstants.get(i);
+            if (partitionConstant.isPresent()) {
+                blocks[i] = new RunLengthEncodedBlock(partitionConstant.get(), page.getPositionCount());
+            }
+            else {
+                blocks[i] = page.getBlock(partitionChannels.get(i));
+            }
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private static class PageBuilderPagePartitioner
+            implements PagePartitioner
     {
         private final OutputBuffer outputBuffer;
         private final List<Type> sourceTypes;
@@ -307,7 +366,7 @@ public class PartitionedOutputOperator
         private final AtomicLong pagesAdded = new AtomicLong();
         private boolean hasAnyRowBeenReplicated;
 
-        public PagePartitioner(
+        public PageBuilderPagePartitioner(
                 PartitionFunction partitionFunction,
                 List<Integer> partitionChannels,
                 List<Optional<NullableValue>> partitionConstants,
@@ -339,11 +398,13 @@ public class PartitionedOutputOperator
             }
         }
 
+        @Override
         public ListenableFuture<?> isFull()
         {
             return outputBuffer.isFull();
         }
 
+        @Override
         public long getSizeInBytes()
         {
             // We use a foreach loop instead of streams
@@ -355,9 +416,7 @@ public class PartitionedOutputOperator
             return sizeInBytes;
         }
 
-        /**
-         * This method can be expensive for complex types.
-         */
+        @Override
         public long getRetainedSizeInBytes()
         {
             long sizeInBytes = 0;
@@ -367,16 +426,18 @@ public class PartitionedOutputOperator
             return sizeInBytes;
         }
 
+        @Override
         public PartitionedOutputInfo getInfo()
         {
-            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage());
+            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage(), serde.getStats());
         }
 
+        @Override
         public void partitionPage(Page page)
         {
             requireNonNull(page, "page is null");
 
-            Page partitionFunctionArgs = getPartitionFunctionArguments(page);
+            Page partitionFunctionArgs = getPartitionFunctionArguments(page, partitionChannels, partitionConstants);
             for (int position = 0; position < page.getPositionCount(); position++) {
                 boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
                         nullChannel.isPresent() && page.getBlock(nullChannel.getAsInt()).isNull(position);
@@ -394,21 +455,6 @@ public class PartitionedOutputOperator
             flush(false);
         }
 
-        private Page getPartitionFunctionArguments(Page page)
-        {
-            Block[] blocks = new Block[partitionChannels.size()];
-            for (int i = 0; i < blocks.length; i++) {
-                Optional<Block> partitionConstant = partitionConstants.get(i);
-                if (partitionConstant.isPresent()) {
-                    blocks[i] = new RunLengthEncodedBlock(partitionConstant.get(), page.getPositionCount());
-                }
-                else {
-                    blocks[i] = page.getBlock(partitionChannels.get(i));
-                }
-            }
-            return new Page(page.getPositionCount(), blocks);
-        }
-
         private void appendRow(PageBuilder pageBuilder, Page page, int position)
         {
             pageBuilder.declarePosition();
@@ -419,6 +465,7 @@ public class PartitionedOutputOperator
             }
         }
 
+        @Override
         public void flush(boolean force)
         {
             // add all full pages to output buffer
@@ -446,16 +493,19 @@ public class PartitionedOutputOperator
         private final long rowsAdded;
         private final long pagesAdded;
         private final long outputBufferPeakMemoryUsage;
+        private final PagesSerdeStats serdeStats;
 
         @JsonCreator
         public PartitionedOutputInfo(
                 @JsonProperty("rowsAdded") long rowsAdded,
                 @JsonProperty("pagesAdded") long pagesAdded,
-                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage)
+                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage,
+                @JsonProperty("serdeStats") PagesSerdeStats serdeStats)
         {
             this.rowsAdded = rowsAdded;
             this.pagesAdded = pagesAdded;
             this.outputBufferPeakMemoryUsage = outputBufferPeakMemoryUsage;
+            this.serdeStats = requireNonNull(serdeStats, "serdeStats is null");
         }
 
         @JsonProperty
@@ -476,13 +526,20 @@ public class PartitionedOutputOperator
             return outputBufferPeakMemoryUsage;
         }
 
+        @JsonProperty
+        public PagesSerdeStats getSerdeStats()
+        {
+            return serdeStats;
+        }
+
         @Override
         public PartitionedOutputInfo mergeWith(PartitionedOutputInfo other)
         {
             return new PartitionedOutputInfo(
                     rowsAdded + other.rowsAdded,
                     pagesAdded + other.pagesAdded,
-                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage));
+                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage),
+                    serdeStats.mergeWith(other.serdeStats));
         }
 
         @Override
@@ -498,6 +555,7 @@ public class PartitionedOutputOperator
                     .add("rowsAdded", rowsAdded)
                     .add("pagesAdded", pagesAdded)
                     .add("outputBufferPeakMemoryUsage", outputBufferPeakMemoryUsage)
+                    .add("serdeStats", serdeStats)
                     .toString();
         }
     }
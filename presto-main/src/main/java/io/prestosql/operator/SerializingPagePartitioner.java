@@ -0,0 +1,631 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.units.DataSize;
+import io.prestosql.execution.buffer.OutputBuffer;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.operator.PartitionedOutputOperator.PagePartitioner;
+import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputInfo;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.block.ByteArrayBlockEncoding;
+import io.prestosql.spi.block.IntArrayBlockEncoding;
+import io.prestosql.spi.block.LongArrayBlockEncoding;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.block.ShortArrayBlockEncoding;
+import io.prestosql.spi.block.VariableWidthBlockEncoding;
+import io.prestosql.spi.predicate.NullableValue;
+import io.prestosql.spi.type.Type;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.prestosql.operator.PartitionedOutputOperator.getPartitionFunctionArguments;
+import static io.prestosql.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partitions pages without building an intermediate page for each partition. The positions
+ * of each partition are gathered first, and then appended column by column to a buffer per
+ * partition that already holds the serialized form of the blocks. Fixed width and variable width
+ * columns are written directly in the format of their block encodings, run length encoded
+ * columns stay run length encoded while the same value is appended, and all other columns are
+ * appended to a block builder that is serialized when the page is flushed.
+ */
+class SerializingPagePartitioner
+        implements PagePartitioner
+{
+    // bounds the pages of partitions whose columns are all run length encoded
+    private static final int MAX_PARTITION_POSITION_COUNT = 1024 * 1024;
+
+    private final OutputBuffer outputBuffer;
+    private final PartitionFunction partitionFunction;
+    private final List<Integer> partitionChannels;
+    private final List<Optional<Block>> partitionConstants;
+    private final PagesSerde serde;
+    private final boolean replicatesAnyRow;
+    private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
+    private final long maxPartitionSizeInBytes;
+    private final PartitionBuffer[] partitionBuffers;
+    private final AtomicLong rowsAdded = new AtomicLong();
+    private final AtomicLong pagesAdded = new AtomicLong();
+    private boolean hasAnyRowBeenReplicated;
+
+    // scratch arrays for scattering the positions of a page by partition
+    private final int[] partitionPositionCounts;
+    private final int[] partitionOffsets;
+    private int[] positionPartitions = new int[0];
+    private int[] partitionedPositions = new int[0];
+    private int[] replicatedPositions = new int[0];
+
+    public SerializingPagePartitioner(
+            PartitionFunction partitionFunction,
+            List<Integer> partitionChannels,
+            List<Optional<NullableValue>> partitionConstants,
+            boolean replicatesAnyRow,
+            OptionalInt nullChannel,
+            OutputBuffer outputBuffer,
+            PagesSerdeFactory serdeFactory,
+            List<Type> sourceTypes,
+            DataSize maxMemory)
+    {
+        this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
+        this.partitionChannels = requireNonNull(partitionChannels, "partitionChannels is null");
+        this.partitionConstants = requireNonNull(partitionConstants, "partitionConstants is null").stream()
+                .map(constant -> constant.map(NullableValue::asBlock))
+                .collect(toImmutableList());
+        this.replicatesAnyRow = replicatesAnyRow;
+        this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+        this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
+        requireNonNull(serdeFactory, "serdeFactory is null");
+        requireNonNull(sourceTypes, "sourceTypes is null");
+        this.serde = serdeFactory.createPagesSerde();
+
+        int partitionCount = partitionFunction.getPartitionCount();
+        int pageSize = min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ((int) maxMemory.toBytes()) / partitionCount);
+        this.maxPartitionSizeInBytes = max(1, pageSize);
+
+        this.partitionBuffers = new PartitionBuffer[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitionBuffers[partition] = new PartitionBuffer(sourceTypes, serdeFactory.getBlockEncodingSerde());
+        }
+        this.partitionPositionCounts = new int[partitionCount];
+        this.partitionOffsets = new int[partitionCount];
+    }
+
+    @Override
+    public ListenableFuture<?> isFull()
+    {
+        return outputBuffer.isFull();
+    }
+
+    @Override
+    public long getSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (PartitionBuffer partitionBuffer : partitionBuffers) {
+            sizeInBytes += partitionBuffer.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        long sizeInBytes = sizeOf(partitionPositionCounts) + sizeOf(partitionOffsets) + sizeOf(positionPartitions) + sizeOf(partitionedPositions) + sizeOf(replicatedPositions);
+        for (PartitionBuffer partitionBuffer : partitionBuffers) {
+            sizeInBytes += partitionBuffer.getRetainedSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public PartitionedOutputInfo getInfo()
+    {
+        return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage(), serde.getStats());
+    }
+
+    @Override
+    public void partitionPage(Page page)
+    {
+        requireNonNull(page, "page is null");
+
+        int positionCount = page.getPositionCount();
+        if (positionPartitions.length < positionCount) {
+            positionPartitions = new int[positionCount];
+            partitionedPositions = new int[positionCount];
+            replicatedPositions = new int[positionCount];
+        }
+
+        Page partitionFunctionArgs = getPartitionFunctionArguments(page, partitionChannels, partitionConstants);
+        Block nullBlock = nullChannel.isPresent() ? page.getBlock(nullChannel.getAsInt()) : null;
+
+        Arrays.fill(partitionPositionCounts, 0);
+        int replicatedPositionCount = 0;
+        for (int position = 0; position < positionCount; position++) {
+            boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
+                    nullBlock != null && nullBlock.isNull(position);
+            if (shouldReplicate) {
+                replicatedPositions[replicatedPositionCount] = position;
+                replicatedPositionCount++;
+                positionPartitions[position] = -1;
+                hasAnyRowBeenReplicated = true;
+            }
+            else {
+                int partition = partitionFunction.getPartition(partitionFunctionArgs, position);
+                positionPartitions[position] = partition;
+                partitionPositionCounts[partition]++;
+            }
+        }
+
+        // lay out the positions of each partition contiguously, in the order of the page
+        int offset = 0;
+        for (int partition = 0; partition < partitionOffsets.length; partition++) {
+            partitionOffsets[partition] = offset;
+            offset += partitionPositionCounts[partition];
+        }
+        for (int position = 0; position < positionCount; position++) {
+            int partition = positionPartitions[position];
+            if (partition >= 0) {
+                partitionedPositions[partitionOffsets[partition]] = position;
+                partitionOffsets[partition]++;
+            }
+        }
+
+        for (int partition = 0; partition < partitionBuffers.length; partition++) {
+            int partitionPositionCount = partitionPositionCounts[partition];
+            if (partitionPositionCount > 0) {
+                // partitionOffsets now points to the end of the positions of the partition
+                partitionBuffers[partition].append(page, partitionedPositions, partitionOffsets[partition] - partitionPositionCount, partitionPositionCount);
+            }
+            if (replicatedPositionCount > 0) {
+                partitionBuffers[partition].append(page, replicatedPositions, 0, replicatedPositionCount);
+            }
+        }
+        flush(false);
+    }
+
+    @Override
+    public void flush(boolean force)
+    {
+        for (int partition = 0; partition < partitionBuffers.length; partition++) {
+            PartitionBuffer partitionBuffer = partitionBuffers[partition];
+            int positionCount = partitionBuffer.getPositionCount();
+            if (positionCount > 0 && (force || partitionBuffer.getSizeInBytes() >= maxPartitionSizeInBytes || positionCount >= MAX_PARTITION_POSITION_COUNT)) {
+                outputBuffer.enqueue(partition, ImmutableList.of(partitionBuffer.serialize(serde)));
+                pagesAdded.incrementAndGet();
+                rowsAdded.addAndGet(positionCount);
+            }
+        }
+    }
+
+    private static class PartitionBuffer
+    {
+        private final ColumnBuffer[] columns;
+        private int positionCount;
+
+        public PartitionBuffer(List<Type> types, BlockEncodingSerde blockEncodingSerde)
+        {
+            this.columns = new ColumnBuffer[types.size()];
+            for (int channel = 0; channel < columns.length; channel++) {
+                columns[channel] = createColumnBuffer(types.get(channel), blockEncodingSerde);
+            }
+        }
+
+        public int getPositionCount()
+        {
+            return positionCount;
+        }
+
+        public void append(Page page, int[] positions, int offset, int length)
+        {
+            for (int channel = 0; channel < columns.length; channel++) {
+                columns[channel].append(page.getBlock(channel), positions, offset, length);
+            }
+            positionCount += length;
+        }
+
+        public long getSizeInBytes()
+        {
+            long sizeInBytes = 0;
+            for (ColumnBuffer column : columns) {
+                sizeInBytes += column.getSizeInBytes();
+            }
+            return sizeInBytes;
+        }
+
+        public long getRetainedSizeInBytes()
+        {
+            long sizeInBytes = 0;
+            for (ColumnBuffer column : columns) {
+                sizeInBytes += column.getRetainedSizeInBytes();
+            }
+            return sizeInBytes;
+        }
+
+        /**
+         * Serializes the buffered positions in the raw page format and resets the buffer.
+         */
+        public SerializedPage serialize(PagesSerde serde)
+        {
+            SliceOutput output = new DynamicSliceOutput(toIntExact(getSizeInBytes() + Integer.BYTES + columns.length * 64));
+            output.writeInt(columns.length);
+            for (ColumnBuffer column : columns) {
+                column.writeBlock(output);
+            }
+            SerializedPage page = serde.serialize(output.slice(), positionCount);
+            positionCount = 0;
+            return page;
+        }
+    }
+
+    private static ColumnBuffer createColumnBuffer(Type type, BlockEncodingSerde blockEncodingSerde)
+    {
+        String encodingName = type.createBlockBuilder(null, 1).getEncodingName();
+        switch (encodingName) {
+            case LongArrayBlockEncoding.NAME:
+                return new FixedWidthColumnBuffer(encodingName, Long.BYTES, blockEncodingSerde);
+            case IntArrayBlockEncoding.NAME:
+                return new FixedWidthColumnBuffer(encodingName, Integer.BYTES, blockEncodingSerde);
+            case ShortArrayBlockEncoding.NAME:
+                return new FixedWidthColumnBuffer(encodingName, Short.BYTES, blockEncodingSerde);
+            case ByteArrayBlockEncoding.NAME:
+                return new FixedWidthColumnBuffer(encodingName, Byte.BYTES, blockEncodingSerde);
+            case VariableWidthBlockEncoding.NAME:
+                return new VariableWidthColumnBuffer(blockEncodingSerde);
+            default:
+                return new BlockBuilderColumnBuffer(type, blockEncodingSerde);
+        }
+    }
+
+    private abstract static class ColumnBuffer
+    {
+        private static final int INITIAL_BUFFER_SIZE = 256;
+
+        private final BlockEncodingSerde blockEncodingSerde;
+
+        // the value of all buffered positions, while only run length encoded blocks with the same value were appended
+        private Block runLengthValue;
+        private int positionCount;
+
+        protected ColumnBuffer(BlockEncodingSerde blockEncodingSerde)
+        {
+            this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        }
+
+        public final void append(Block block, int[] positions, int offset, int length)
+        {
+            if (block instanceof RunLengthEncodedBlock) {
+                Block value = ((RunLengthEncodedBlock) block).getValue();
+                if (positionCount == 0 || runLengthValue == value) {
+                    runLengthValue = value;
+                    positionCount += length;
+                    return;
+                }
+            }
+            if (runLengthValue != null) {
+                // the run ends, so the buffered positions are written as values
+                appendValues(runLengthValue, new int[positionCount], 0, positionCount);
+                runLengthValue = null;
+            }
+            appendValues(block, positions, offset, length);
+            positionCount += length;
+        }
+
+        public final long getSizeInBytes()
+        {
+            if (runLengthValue != null) {
+                return runLengthValue.getSizeInBytes();
+            }
+            return getValuesSizeInBytes();
+        }
+
+        /**
+         * Writes the buffered positions as a block in the format of the {@link BlockEncodingSerde} and resets the buffer.
+         */
+        public final void writeBlock(SliceOutput output)
+        {
+            if (runLengthValue != null) {
+                blockEncodingSerde.writeBlock(output, new RunLengthEncodedBlock(runLengthValue, positionCount));
+                runLengthValue = null;
+            }
+            else {
+                writeValues(output, blockEncodingSerde);
+            }
+            positionCount = 0;
+        }
+
+        protected abstract void appendValues(Block block, int[] positions, int offset, int length);
+
+        protected abstract void writeValues(SliceOutput output, BlockEncodingSerde blockEncodingSerde);
+
+        protected abstract long getValuesSizeInBytes();
+
+        public abstract long getRetainedSizeInBytes();
+
+        protected static void writeEncodingName(SliceOutput output, byte[] encodingName)
+        {
+            output.writeInt(encodingName.length);
+            output.writeBytes(encodingName);
+        }
+
+        /**
+         * Writes the nulls in the format of {@code EncoderUtil.encodeNullsAsBits}.
+         */
+        protected static void writeNullBits(SliceOutput output, boolean[] isNull, int positionCount, boolean hasNull)
+        {
+            output.writeBoolean(hasNull);
+            if (!hasNull) {
+                return;
+            }
+
+            for (int position = 0; position < positionCount; position += 8) {
+                byte value = 0;
+                int mask = 0b1000_0000;
+                for (int bit = position; bit < min(position + 8, positionCount); bit++) {
+                    value |= isNull[bit] ? mask : 0;
+                    mask >>>= 1;
+                }
+                output.appendByte(value);
+            }
+        }
+
+        protected static boolean[] ensureCapacity(boolean[] array, int capacity)
+        {
+            if (array.length >= capacity) {
+                return array;
+            }
+            return Arrays.copyOf(array, max(capacity, array.length * 2));
+        }
+
+        protected static int[] ensureCapacity(int[] array, int capacity)
+        {
+            if (array.length >= capacity) {
+                return array;
+            }
+            return Arrays.copyOf(array, max(capacity, array.length * 2));
+        }
+    }
+
+    /**
+     * Writes values in the format of the {@code LONG_ARRAY}, {@code INT_ARRAY}, {@code SHORT_ARRAY}
+     * and {@code BYTE_ARRAY} block encodings, which only differ in the width of the values.
+     */
+    private static class FixedWidthColumnBuffer
+            extends ColumnBuffer
+    {
+        private final byte[] encodingName;
+        private final int fixedSize;
+
+        private final DynamicSliceOutput values = new DynamicSliceOutput(INITIAL_BUFFER_SIZE);
+        private boolean[] isNull = new boolean[0];
+        private boolean hasNull;
+        private int valueCount;
+
+        public FixedWidthColumnBuffer(String encodingName, int fixedSize, BlockEncodingSerde blockEncodingSerde)
+        {
+            super(blockEncodingSerde);
+            this.encodingName = encodingName.getBytes(UTF_8);
+            this.fixedSize = fixedSize;
+        }
+
+        @Override
+        protected void appendValues(Block block, int[] positions, int offset, int length)
+        {
+            isNull = ensureCapacity(isNull, valueCount + length);
+            boolean mayHaveNull = block.mayHaveNull();
+            int end = offset + length;
+            switch (fixedSize) {
+                case Long.BYTES:
+                    for (int i = offset; i < end; i++) {
+                        int position = positions[i];
+                        if (!appendNull(mayHaveNull && block.isNull(position))) {
+                            values.writeLong(block.getLong(position, 0));
+                        }
+                    }
+                    break;
+                case Integer.BYTES:
+                    for (int i = offset; i < end; i++) {
+                        int position = positions[i];
+                        if (!appendNull(mayHaveNull && block.isNull(position))) {
+                            values.writeInt(block.getInt(position, 0));
+                        }
+                    }
+                    break;
+                case Short.BYTES:
+                    for (int i = offset; i < end; i++) {
+                        int position = positions[i];
+                        if (!appendNull(mayHaveNull && block.isNull(position))) {
+                            values.writeShort(block.getShort(position, 0));
+                        }
+                    }
+                    break;
+                case Byte.BYTES:
+                    for (int i = offset; i < end; i++) {
+                        int position = positions[i];
+                        if (!appendNull(mayHaveNull && block.isNull(position))) {
+                            values.writeByte(block.getByte(position, 0));
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported fixed size: " + fixedSize);
+            }
+        }
+
+        private boolean appendNull(boolean valueIsNull)
+        {
+            isNull[valueCount] = valueIsNull;
+            hasNull |= valueIsNull;
+            valueCount++;
+            return valueIsNull;
+        }
+
+        @Override
+        protected void writeValues(SliceOutput output, BlockEncodingSerde blockEncodingSerde)
+        {
+            writeEncodingName(output, encodingName);
+            output.appendInt(valueCount);
+            writeNullBits(output, isNull, valueCount, hasNull);
+            output.writeBytes(values.slice());
+
+            values.reset();
+            hasNull = false;
+            valueCount = 0;
+        }
+
+        @Override
+        protected long getValuesSizeInBytes()
+        {
+            return values.size() + valueCount;
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return values.getRetainedSize() + sizeOf(isNull);
+        }
+    }
+
+    /**
+     * Writes values in the format of the {@code VARIABLE_WIDTH} block encoding.
+     */
+    private static class VariableWidthColumnBuffer
+            extends ColumnBuffer
+    {
+        private static final byte[] ENCODING_NAME = VariableWidthBlockEncoding.NAME.getBytes(UTF_8);
+
+        private final DynamicSliceOutput data = new DynamicSliceOutput(INITIAL_BUFFER_SIZE);
+        // end offset of each value
+        private int[] offsets = new int[0];
+        private boolean[] isNull = new boolean[0];
+        private boolean hasNull;
+        private int valueCount;
+
+        public VariableWidthColumnBuffer(BlockEncodingSerde blockEncodingSerde)
+        {
+            super(blockEncodingSerde);
+        }
+
+        @Override
+        protected void appendValues(Block block, int[] positions, int offset, int length)
+        {
+            offsets = ensureCapacity(offsets, valueCount + length);
+            isNull = ensureCapacity(isNull, valueCount + length);
+            boolean mayHaveNull = block.mayHaveNull();
+            for (int i = offset; i < offset + length; i++) {
+                int position = positions[i];
+                boolean valueIsNull = mayHaveNull && block.isNull(position);
+                if (!valueIsNull) {
+                    int sliceLength = block.getSliceLength(position);
+                    Slice slice = block.getSlice(position, 0, sliceLength);
+                    data.writeBytes(slice);
+                }
+                offsets[valueCount] = data.size();
+                isNull[valueCount] = valueIsNull;
+                hasNull |= valueIsNull;
+                valueCount++;
+            }
+        }
+
+        @Override
+        protected void writeValues(SliceOutput output, BlockEncodingSerde blockEncodingSerde)
+        {
+            writeEncodingName(output, ENCODING_NAME);
+            output.appendInt(valueCount);
+            for (int i = 0; i < valueCount; i++) {
+                output.appendInt(offsets[i]);
+            }
+            writeNullBits(output, isNull, valueCount, hasNull);
+            output.appendInt(data.size());
+            output.writeBytes(data.slice());
+
+            data.reset();
+            hasNull = false;
+            valueCount = 0;
+        }
+
+        @Override
+        protected long getValuesSizeInBytes()
+        {
+            return data.size() + (Integer.BYTES + Byte.BYTES) * (long) valueCount;
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return data.getRetainedSize() + sizeOf(offsets) + sizeOf(isNull);
+        }
+    }
+
+    private static class BlockBuilderColumnBuffer
+            extends ColumnBuffer
+    {
+        private final Type type;
+        private BlockBuilder blockBuilder;
+
+        public BlockBuilderColumnBuffer(Type type, BlockEncodingSerde blockEncodingSerde)
+        {
+            super(blockEncodingSerde);
+            this.type = requireNonNull(type, "type is null");
+            this.blockBuilder = type.createBlockBuilder(null, 1);
+        }
+
+        @Override
+        protected void appendValues(Block block, int[] positions, int offset, int length)
+        {
+            for (int i = offset; i < offset + length; i++) {
+                type.appendTo(block, positions[i], blockBuilder);
+            }
+        }
+
+        @Override
+        protected void writeValues(SliceOutput output, BlockEncodingSerde blockEncodingSerde)
+        {
+            blockEncodingSerde.writeBlock(output, blockBuilder.build());
+            blockBuilder = blockBuilder.newBlockBuilderLike(null);
+        }
+
+        @Override
+        protected long getValuesSizeInBytes()
+        {
+            return blockBuilder.getSizeInBytes();
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return blockBuilder.getRetainedSizeInBytes();
+        }
+    }
+}
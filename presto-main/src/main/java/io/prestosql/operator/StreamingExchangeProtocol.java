@@ -0,0 +1,439 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import io.prestosql.execution.buffer.BufferResult;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.operator.HttpPageBufferClient.PagesResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ScatteringByteChannel;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.prestosql.execution.buffer.PageCompression.lookupCodecFromMarker;
+import static io.prestosql.operator.HttpPageBufferClient.PagesResponse.createPagesResponse;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Framing of the streaming exchange transport. Requests for the results of an output buffer are
+ * sent over a persistent connection, and the server answers each results and abort request in the
+ * order of the requests. Acknowledgements have no response. The maximum size of a results request
+ * is the credit granted to the server: the server never sends more pages than fit in it, except
+ * for a single page that is larger than the credit.
+ * <p>
+ * A response starts with a status and the length of its header. The header of a results response
+ * holds the tokens and the sizes of the pages, and is followed by the page data, so the server
+ * writes the slices of the buffered pages to the channel without copying them, and the client reads
+ * each page into the array of its slice.
+ * <p>
+ * When the cluster has a shared secret, the server sends a random challenge when it accepts a
+ * connection, and the client must answer with the HMAC of the challenge before its first request.
+ */
+public final class StreamingExchangeProtocol
+{
+    public static final int CHALLENGE_SIZE = 32;
+    public static final int CHALLENGE_RESPONSE_SIZE = 32;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final byte STATUS_OK = 0;
+    private static final byte STATUS_ERROR = 1;
+
+    private static final int RESPONSE_PREFIX_SIZE = Byte.BYTES + Integer.BYTES;
+    private static final int PAGE_HEADER_SIZE = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int MAX_ID_LENGTH = 1024;
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+    private static final int MAX_RESPONSE_HEADER_SIZE = 64 * 1024 * 1024;
+
+    // a request with ids of the maximum length always fits in the read buffer of the server
+    public static final int MAX_REQUEST_SIZE = Byte.BYTES + 2 * (Integer.BYTES + MAX_ID_LENGTH) + Long.BYTES + Long.BYTES;
+
+    private StreamingExchangeProtocol() {}
+
+    public enum RequestType
+    {
+        GET_RESULTS((byte) 1),
+        ACKNOWLEDGE_RESULTS((byte) 2),
+        ABORT_RESULTS((byte) 3);
+
+        private final byte marker;
+
+        RequestType(byte marker)
+        {
+            this.marker = marker;
+        }
+
+        public boolean hasResponse()
+        {
+            return this != ACKNOWLEDGE_RESULTS;
+        }
+
+        private static RequestType fromMarker(byte marker)
+                throws IOException
+        {
+            for (RequestType type : values()) {
+                if (type.marker == marker) {
+                    return type;
+                }
+            }
+            throw new IOException("Invalid streaming exchange request type: " + marker);
+        }
+    }
+
+    public static class Request
+    {
+        private final RequestType type;
+        private final String taskId;
+        private final String bufferId;
+        private final long token;
+        private final long maxSizeInBytes;
+
+        public Request(RequestType type, String taskId, String bufferId, long token, long maxSizeInBytes)
+        {
+            this.type = requireNonNull(type, "type is null");
+            this.taskId = requireNonNull(taskId, "taskId is null");
+            this.bufferId = requireNonNull(bufferId, "bufferId is null");
+            checkArgument(token >= 0, "token is negative");
+            checkArgument(maxSizeInBytes >= 0, "maxSizeInBytes is negative");
+            this.token = token;
+            this.maxSizeInBytes = maxSizeInBytes;
+        }
+
+        public RequestType getType()
+        {
+            return type;
+        }
+
+        public String getTaskId()
+        {
+            return taskId;
+        }
+
+        public String getBufferId()
+        {
+            return bufferId;
+        }
+
+        public long getToken()
+        {
+            return token;
+        }
+
+        public long getMaxSizeInBytes()
+        {
+            return maxSizeInBytes;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("type", type)
+                    .add("taskId", taskId)
+                    .add("bufferId", bufferId)
+                    .add("token", token)
+                    .add("maxSizeInBytes", maxSizeInBytes)
+                    .toString();
+        }
+    }
+
+    public static ByteBuffer encodeRequest(Request request)
+    {
+        byte[] taskId = request.getTaskId().getBytes(UTF_8);
+        byte[] bufferId = request.getBufferId().getBytes(UTF_8);
+        checkArgument(taskId.length <= MAX_ID_LENGTH && bufferId.length <= MAX_ID_LENGTH, "Ids of request are too long: %s", request);
+        ByteBuffer buffer = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES + taskId.length + Integer.BYTES + bufferId.length + Long.BYTES + Long.BYTES);
+        buffer.put(request.getType().marker);
+        buffer.putInt(taskId.length).put(taskId);
+        buffer.putInt(bufferId.length).put(bufferId);
+        buffer.putLong(request.getToken());
+        buffer.putLong(request.getMaxSizeInBytes());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decodes the next request from the buffer, or returns empty if the buffer does not hold a
+     * complete request yet, in which case the position of the buffer is unchanged.
+     */
+    public static Optional<Request> decodeRequest(ByteBuffer buffer)
+            throws IOException
+    {
+        int start = buffer.position();
+        if (buffer.remaining() < Byte.BYTES) {
+            return Optional.empty();
+        }
+        RequestType type = RequestType.fromMarker(buffer.get());
+        Optional<String> taskId = decodeId(buffer);
+        Optional<String> bufferId = taskId.isPresent() ? decodeId(buffer) : Optional.empty();
+        if (!bufferId.isPresent() || buffer.remaining() < Long.BYTES + Long.BYTES) {
+            buffer.position(start);
+            return Optional.empty();
+        }
+        long token = buffer.getLong();
+        long maxSizeInBytes = buffer.getLong();
+        if (token < 0 || maxSizeInBytes < 0) {
+            throw new IOException(format("Invalid streaming exchange request: token %s, maxSizeInBytes %s", token, maxSizeInBytes));
+        }
+        return Optional.of(new Request(type, taskId.get(), bufferId.get(), token, maxSizeInBytes));
+    }
+
+    private static Optional<String> decodeId(ByteBuffer buffer)
+            throws IOException
+    {
+        if (buffer.remaining() < Integer.BYTES) {
+            return Optional.empty();
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > MAX_ID_LENGTH) {
+            throw new IOException("Invalid id length: " + length);
+        }
+        if (buffer.remaining() < length) {
+            return Optional.empty();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return Optional.of(new String(bytes, UTF_8));
+    }
+
+    /**
+     * Returns the buffers of a results response. The page slices are not copied.
+     */
+    public static ByteBuffer[] encodeResults(BufferResult result)
+    {
+        byte[] taskInstanceId = result.getTaskInstanceId().getBytes(UTF_8);
+        List<SerializedPage> pages = result.getSerializedPages();
+
+        int headerSize = Integer.BYTES + taskInstanceId.length + Long.BYTES + Long.BYTES + Byte.BYTES + Integer.BYTES + PAGE_HEADER_SIZE * pages.size();
+        ByteBuffer header = ByteBuffer.allocate(RESPONSE_PREFIX_SIZE + headerSize);
+        header.put(STATUS_OK);
+        header.putInt(headerSize);
+        header.putInt(taskInstanceId.length).put(taskInstanceId);
+        header.putLong(result.getToken());
+        header.putLong(result.getNextToken());
+        header.put((byte) (result.isBufferComplete() ? 1 : 0));
+        header.putInt(pages.size());
+        for (SerializedPage page : pages) {
+            header.putInt(page.getPositionCount());
+            header.put(page.getCompression().getMarker());
+            header.putInt(page.getUncompressedSizeInBytes());
+            header.putInt(page.getSizeInBytes());
+        }
+        header.flip();
+
+        ByteBuffer[] buffers = new ByteBuffer[1 + pages.size()];
+        buffers[0] = header;
+        for (int i = 0; i < pages.size(); i++) {
+            buffers[i + 1] = pages.get(i).getSlice().toByteBuffer();
+        }
+        return buffers;
+    }
+
+    public static ByteBuffer encodeAbortResults()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(RESPONSE_PREFIX_SIZE);
+        buffer.put(STATUS_OK);
+        buffer.putInt(0);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static ByteBuffer encodeError(String message)
+    {
+        if (message.length() > MAX_ERROR_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+        }
+        byte[] bytes = message.getBytes(UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(RESPONSE_PREFIX_SIZE + bytes.length);
+        buffer.put(STATUS_ERROR);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static byte[] createChallenge()
+    {
+        byte[] challenge = new byte[CHALLENGE_SIZE];
+        RANDOM.nextBytes(challenge);
+        return challenge;
+    }
+
+    public static byte[] computeChallengeResponse(String sharedSecret, byte[] challenge)
+    {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(sharedSecret.getBytes(UTF_8), MAC_ALGORITHM));
+            return mac.doFinal(challenge);
+        }
+        catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to compute the streaming exchange challenge response", e);
+        }
+    }
+
+    /**
+     * Reads a response from a non-blocking channel, as it arrives. Each page is read directly
+     * into the array of its slice.
+     */
+    public static class ResponseReader
+    {
+        private final RequestType requestType;
+        private final ByteBuffer prefix = ByteBuffer.allocate(RESPONSE_PREFIX_SIZE);
+        private byte status;
+        private ByteBuffer header;
+        private boolean headerComplete;
+        private ByteBuffer[] pageBuffers = new ByteBuffer[0];
+        private int currentPage;
+        private boolean complete;
+        private PagesResponse response;
+
+        public ResponseReader(RequestType requestType)
+        {
+            this.requestType = requireNonNull(requestType, "requestType is null");
+            checkArgument(requestType.hasResponse(), "Request has no response: %s", requestType);
+        }
+
+        /**
+         * Reads the available bytes of the response, and returns whether the response is complete.
+         */
+        public boolean read(ScatteringByteChannel channel)
+                throws IOException
+        {
+            if (header == null) {
+                if (!readAvailable(channel, prefix)) {
+                    return false;
+                }
+                prefix.flip();
+                status = prefix.get();
+                int headerSize = prefix.getInt();
+                if (status != STATUS_OK && status != STATUS_ERROR) {
+                    throw new IOException("Invalid streaming exchange response status: " + status);
+                }
+                if (headerSize < 0 || headerSize > MAX_RESPONSE_HEADER_SIZE) {
+                    throw new IOException("Invalid streaming exchange response header size: " + headerSize);
+                }
+                header = ByteBuffer.allocate(headerSize);
+            }
+            if (!headerComplete) {
+                if (header.hasRemaining() && !readAvailable(channel, header)) {
+                    return false;
+                }
+                header.flip();
+                headerComplete = true;
+                if (status == STATUS_OK && requestType == RequestType.GET_RESULTS) {
+                    decodeResultsHeader();
+                }
+            }
+            while (currentPage < pageBuffers.length) {
+                if (pageBuffers[currentPage].hasRemaining() && channel.read(pageBuffers, currentPage, pageBuffers.length - currentPage) < 0) {
+                    throw new EOFException("Streaming exchange connection closed");
+                }
+                if (pageBuffers[currentPage].hasRemaining()) {
+                    return false;
+                }
+                currentPage++;
+            }
+            complete = true;
+            return true;
+        }
+
+        /**
+         * Returns the results of a complete results response, or fails if the server returned an error.
+         */
+        public PagesResponse getResults()
+        {
+            checkState(requestType == RequestType.GET_RESULTS, "Not a results request: %s", requestType);
+            checkSuccess();
+            return response;
+        }
+
+        /**
+         * Fails if the server returned an error for the request.
+         */
+        public void checkSuccess()
+        {
+            checkState(complete, "Response is not complete");
+            if (status == STATUS_ERROR) {
+                throw new PageTransportErrorException(format("Streaming exchange request failed: %s", new String(header.array(), 0, header.limit(), UTF_8)));
+            }
+        }
+
+        private void decodeResultsHeader()
+                throws IOException
+        {
+            try {
+                int taskInstanceIdLength = header.getInt();
+                if (taskInstanceIdLength < 0 || taskInstanceIdLength > MAX_ID_LENGTH) {
+                    throw new IOException("Invalid task instance id length: " + taskInstanceIdLength);
+                }
+                byte[] taskInstanceId = new byte[taskInstanceIdLength];
+                header.get(taskInstanceId);
+                long token = header.getLong();
+                long nextToken = header.getLong();
+                boolean complete = header.get() != 0;
+                int pageCount = header.getInt();
+                if (pageCount < 0 || pageCount > header.remaining() / PAGE_HEADER_SIZE) {
+                    throw new IOException("Invalid page count: " + pageCount);
+                }
+
+                List<SerializedPage> pages = new ArrayList<>(pageCount);
+                pageBuffers = new ByteBuffer[pageCount];
+                for (int i = 0; i < pageCount; i++) {
+                    int positionCount = header.getInt();
+                    byte codecMarker = header.get();
+                    int uncompressedSizeInBytes = header.getInt();
+                    int sizeInBytes = header.getInt();
+                    if (sizeInBytes < 0) {
+                        throw new IOException("Invalid page size: " + sizeInBytes);
+                    }
+                    byte[] data = new byte[sizeInBytes];
+                    pageBuffers[i] = ByteBuffer.wrap(data);
+                    pages.add(new SerializedPage(wrappedBuffer(data), lookupCodecFromMarker(codecMarker), positionCount, uncompressedSizeInBytes));
+                }
+                response = createPagesResponse(new String(taskInstanceId, UTF_8), token, nextToken, pages, complete);
+            }
+            catch (RuntimeException e) {
+                throw new IOException("Invalid streaming exchange response header", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the available bytes into the buffer, and returns whether the buffer is full.
+     */
+    public static boolean readAvailable(ScatteringByteChannel channel, ByteBuffer buffer)
+            throws IOException
+    {
+        if (channel.read(buffer) < 0) {
+            throw new EOFException("Streaming exchange connection closed");
+        }
+        return !buffer.hasRemaining();
+    }
+}
@@ -0,0 +1,530 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.AbstractFuture;
+import io.airlift.http.client.HttpClient.HttpResponseFuture;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.operator.HttpPageBufferClient.PagesResponse;
+import io.prestosql.operator.StreamingExchangeProtocol.Request;
+import io.prestosql.operator.StreamingExchangeProtocol.RequestType;
+import io.prestosql.operator.StreamingExchangeProtocol.ResponseReader;
+import io.prestosql.spi.HostAddress;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.prestosql.operator.StreamingExchangeProtocol.CHALLENGE_SIZE;
+import static io.prestosql.operator.StreamingExchangeProtocol.RequestType.ABORT_RESULTS;
+import static io.prestosql.operator.StreamingExchangeProtocol.RequestType.ACKNOWLEDGE_RESULTS;
+import static io.prestosql.operator.StreamingExchangeProtocol.RequestType.GET_RESULTS;
+import static io.prestosql.operator.StreamingExchangeProtocol.computeChallengeResponse;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeRequest;
+import static io.prestosql.operator.StreamingExchangeProtocol.readAvailable;
+import static java.lang.String.format;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Client side of the streaming exchange transport. Requests are sent over persistent connections
+ * to the streaming exchange server of the node in the location of the output buffer. All connections
+ * are served by a single selector thread. A connection handles one request at a time, and goes back
+ * to the idle connections of its node when the response has been read.
+ */
+@ThreadSafe
+public class StreamingExchangeTransport
+        implements Closeable
+{
+    private static final Logger log = Logger.get(StreamingExchangeTransport.class);
+
+    private final StreamingExchangeLocator locator;
+    private final Optional<String> sharedSecret;
+    private final Duration requestTimeout;
+    private final ScheduledExecutorService scheduler;
+    private final Selector selector;
+    private final ExecutorService selectorExecutor = newSingleThreadExecutor(daemonThreadsNamed("streaming-exchange-client-%s"));
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    // only accessed by the selector thread
+    private final Map<HostAddress, Queue<Connection>> idleConnections = new HashMap<>();
+
+    public StreamingExchangeTransport(StreamingExchangeLocator locator, Optional<String> sharedSecret, Duration requestTimeout, ScheduledExecutorService scheduler)
+    {
+        this.locator = requireNonNull(locator, "locator is null");
+        this.sharedSecret = requireNonNull(sharedSecret, "sharedSecret is null");
+        this.requestTimeout = requireNonNull(requestTimeout, "requestTimeout is null");
+        this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        try {
+            this.selector = Selector.open();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        selectorExecutor.execute(this::run);
+    }
+
+    public HttpResponseFuture<PagesResponse> getResults(URI location, long token, DataSize maxSize)
+    {
+        return execute(location, createRequest(GET_RESULTS, location, token, maxSize.toBytes()));
+    }
+
+    public void acknowledgeResults(URI location, long token)
+    {
+        HttpResponseFuture<?> future = execute(location, createRequest(ACKNOWLEDGE_RESULTS, location, token, 0));
+        future.addListener(() -> {
+            try {
+                future.get();
+            }
+            catch (Exception e) {
+                log.debug(e, "Acknowledge request failed: %s", location);
+            }
+        }, directExecutor());
+    }
+
+    public HttpResponseFuture<?> abortResults(URI location)
+    {
+        return execute(location, createRequest(ABORT_RESULTS, location, 0, 0));
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        selectorExecutor.shutdownNow();
+        selector.wakeup();
+    }
+
+    private <T> HttpResponseFuture<T> execute(URI location, Request request)
+    {
+        Optional<HostAddress> address = locator.getStreamingAddress(location);
+        ResponseFuture<T> future = new ResponseFuture<>(address.map(HostAddress::toString).orElse(location.toString()));
+        if (closed) {
+            future.setException(new IOException("Streaming exchange transport is closed"));
+            return future;
+        }
+        if (!address.isPresent()) {
+            // the exchange client retries the request, by which time the node may have announced its port
+            future.setException(new IOException("Streaming exchange server not found for location: " + location));
+            return future;
+        }
+
+        Exchange<T> exchange = new Exchange<>(request, future);
+        ScheduledFuture<?> timeout = scheduler.schedule(
+                () -> future.timeout(requestTimeout),
+                requestTimeout.toMillis(),
+                MILLISECONDS);
+        future.addListener(() -> {
+            timeout.cancel(false);
+            // closes the connection of a request that was cancelled or timed out
+            runOnSelector(exchange::abandon);
+        }, directExecutor());
+
+        runOnSelector(() -> start(address.get(), exchange));
+        return future;
+    }
+
+    private void runOnSelector(Runnable task)
+    {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    private void run()
+    {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select();
+                for (Runnable task = selectorTasks.poll(); task != null; task = selectorTasks.poll()) {
+                    task.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isValid()) {
+                        connection.process(key);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            log.error(e, "Streaming exchange transport failed");
+        }
+        finally {
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).fail(new IOException("Streaming exchange transport is closed"));
+            }
+            try {
+                selector.close();
+            }
+            catch (IOException e) {
+                log.debug(e, "Failed to close streaming exchange selector");
+            }
+        }
+    }
+
+    private void start(HostAddress address, Exchange<?> exchange)
+    {
+        if (exchange.future.isDone()) {
+            return;
+        }
+        Queue<Connection> connections = idleConnections.get(address);
+        if (connections != null) {
+            for (Connection connection = connections.poll(); connection != null; connection = connections.poll()) {
+                if (connection.isOpen()) {
+                    connection.begin(exchange);
+                    return;
+                }
+            }
+        }
+
+        Connection connection;
+        try {
+            connection = Connection.open(this, address);
+        }
+        catch (IOException e) {
+            exchange.future.setException(e);
+            return;
+        }
+        connection.begin(exchange);
+    }
+
+    private void release(Connection connection)
+    {
+        if (closed) {
+            connection.close();
+            return;
+        }
+        idleConnections.computeIfAbsent(connection.address, address -> new ArrayDeque<>()).add(connection);
+    }
+
+    private static Request createRequest(RequestType type, URI location, long token, long maxSizeInBytes)
+    {
+        // locations have the form .../{taskId}/results/{bufferId}
+        List<String> segments = Splitter.on('/').omitEmptyStrings().splitToList(location.getPath());
+        int size = segments.size();
+        checkArgument(size >= 3 && segments.get(size - 2).equals("results"), "Unexpected exchange location: %s", location);
+        return new Request(type, segments.get(size - 3), segments.get(size - 1), token, maxSizeInBytes);
+    }
+
+    private static class Exchange<T>
+    {
+        private final Request request;
+        private final ResponseFuture<T> future;
+        private final Optional<ResponseReader> responseReader;
+        private Connection connection;
+
+        public Exchange(Request request, ResponseFuture<T> future)
+        {
+            this.request = requireNonNull(request, "request is null");
+            this.future = requireNonNull(future, "future is null");
+            this.responseReader = request.getType().hasResponse() ? Optional.of(new ResponseReader(request.getType())) : Optional.empty();
+        }
+
+        @SuppressWarnings("unchecked")
+        public void complete()
+        {
+            connection = null;
+            if (!responseReader.isPresent()) {
+                future.set(null);
+                return;
+            }
+            if (request.getType() == GET_RESULTS) {
+                future.set((T) responseReader.get().getResults());
+                return;
+            }
+            responseReader.get().checkSuccess();
+            future.set(null);
+        }
+
+        public void abandon()
+        {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * State of a connection, only accessed by the selector thread.
+     */
+    private static class Connection
+    {
+        private final StreamingExchangeTransport transport;
+        private final HostAddress address;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private Optional<ByteBuffer> challenge;
+        private boolean ready;
+        private Optional<ByteBuffer> challengeResponse = Optional.empty();
+        private ByteBuffer[] output;
+        private Exchange<?> exchange;
+
+        private Connection(StreamingExchangeTransport transport, HostAddress address, SocketChannel channel)
+                throws IOException
+        {
+            this.transport = requireNonNull(transport, "transport is null");
+            this.address = requireNonNull(address, "address is null");
+            this.channel = requireNonNull(channel, "channel is null");
+            this.challenge = transport.sharedSecret.map(secret -> ByteBuffer.allocate(CHALLENGE_SIZE));
+            this.key = channel.register(transport.selector, OP_CONNECT, this);
+        }
+
+        public static Connection open(StreamingExchangeTransport transport, HostAddress address)
+                throws IOException
+        {
+            SocketChannel channel = SocketChannel.open();
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.socket().setKeepAlive(true);
+                boolean connected = channel.connect(new InetSocketAddress(address.getHostText(), address.getPort()));
+                Connection connection = new Connection(transport, address, channel);
+                if (connected) {
+                    connection.connected();
+                }
+                return connection;
+            }
+            catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public boolean isOpen()
+        {
+            return key.isValid() && channel.isOpen();
+        }
+
+        public void begin(Exchange<?> exchange)
+        {
+            this.exchange = exchange;
+            exchange.connection = this;
+            exchange.future.setState("sending request");
+            if (ready) {
+                sendRequest();
+            }
+        }
+
+        public void process(SelectionKey key)
+        {
+            try {
+                if (key.isConnectable()) {
+                    if (channel.finishConnect()) {
+                        connected();
+                    }
+                    return;
+                }
+                if (key.isWritable()) {
+                    write();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read();
+                }
+            }
+            catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        public void fail(Throwable throwable)
+        {
+            close();
+            if (exchange != null) {
+                exchange.connection = null;
+                exchange.future.setException(throwable);
+                exchange = null;
+            }
+        }
+
+        public void close()
+        {
+            key.cancel();
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                log.debug(e, "Failed to close streaming exchange connection to %s", address);
+            }
+        }
+
+        private void connected()
+        {
+            if (challenge.isPresent()) {
+                // the request is sent once the challenge of the server is answered
+                key.interestOps(OP_READ);
+                return;
+            }
+            ready = true;
+            if (exchange != null) {
+                sendRequest();
+            }
+            else {
+                key.interestOps(0);
+            }
+        }
+
+        private void sendRequest()
+        {
+            ByteBuffer request = encodeRequest(exchange.request);
+            output = challengeResponse.isPresent() ? new ByteBuffer[] {challengeResponse.get(), request} : new ByteBuffer[] {request};
+            challengeResponse = Optional.empty();
+            key.interestOps(OP_WRITE);
+        }
+
+        private void write()
+                throws IOException
+        {
+            channel.write(output);
+            if (output[output.length - 1].hasRemaining()) {
+                return;
+            }
+            output = null;
+            key.interestOps(OP_READ);
+            if (!exchange.responseReader.isPresent()) {
+                finish();
+                return;
+            }
+            exchange.future.setState("reading response");
+        }
+
+        private void read()
+                throws IOException
+        {
+            if (challenge.isPresent()) {
+                if (!readAvailable(channel, challenge.get())) {
+                    return;
+                }
+                challengeResponse = Optional.of(ByteBuffer.wrap(computeChallengeResponse(transport.sharedSecret.get(), challenge.get().array())));
+                challenge = Optional.empty();
+                ready = true;
+                if (exchange != null) {
+                    sendRequest();
+                }
+                return;
+            }
+            if (exchange == null || output != null) {
+                // the server never sends data to an idle connection or before the request is sent, so it is closing the connection
+                readAvailable(channel, ByteBuffer.allocate(1));
+                throw new IOException("Unexpected data from streaming exchange server: " + address);
+            }
+            if (exchange.responseReader.get().read(channel)) {
+                finish();
+            }
+        }
+
+        private void finish()
+        {
+            Exchange<?> exchange = this.exchange;
+            this.exchange = null;
+            transport.release(this);
+            try {
+                exchange.complete();
+            }
+            catch (RuntimeException e) {
+                // the server returned an error, and the connection can still be used
+                exchange.future.setException(e);
+            }
+        }
+    }
+
+    private static class ResponseFuture<T>
+            extends AbstractFuture<T>
+            implements HttpResponseFuture<T>
+    {
+        private final String address;
+        private volatile String state = "queued";
+
+        public ResponseFuture(String address)
+        {
+            this.address = requireNonNull(address, "address is null");
+        }
+
+        @Override
+        public String getState()
+        {
+            return state;
+        }
+
+        public void setState(String state)
+        {
+            this.state = state;
+        }
+
+        @Override
+        protected boolean set(T value)
+        {
+            boolean set = super.set(value);
+            if (set) {
+                state = "done";
+            }
+            return set;
+        }
+
+        @Override
+        protected boolean setException(Throwable throwable)
+        {
+            boolean set = super.setException(throwable);
+            if (set) {
+                state = "failed";
+            }
+            return set;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                state = "cancelled";
+            }
+            return cancelled;
+        }
+
+        public void timeout(Duration timeout)
+        {
+            setException(new SocketTimeoutException(format("Streaming exchange request to %s timed out after %s", address, timeout)));
+        }
+    }
+}
@@ -13,18 +13,23 @@
  */
 package io.prestosql.operator;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.execution.buffer.OutputBuffer;
 import io.prestosql.execution.buffer.PagesSerde;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.execution.buffer.PagesSerdeStats;
 import io.prestosql.execution.buffer.SerializedPage;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.util.Mergeable;
 
 import java.util.List;
 import java.util.function.Function;
 
+import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.prestosql.execution.buffer.PageSplitterUtil.splitPage;
 import static io.prestosql.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
@@ -99,6 +104,7 @@ public class TaskOutputOperator
         this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
         this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
         this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
+        operatorContext.setInfoSupplier(this::getInfo);
     }
 
     @Override
@@ -155,4 +161,47 @@ public class TaskOutputOperator
     {
         return null;
     }
+
+    public TaskOutputInfo getInfo()
+    {
+        return new TaskOutputInfo(serde.getStats());
+    }
+
+    public static class TaskOutputInfo
+            implements Mergeable<TaskOutputInfo>, OperatorInfo
+    {
+        private final PagesSerdeStats serdeStats;
+
+        @JsonCreator
+        public TaskOutputInfo(@JsonProperty("serdeStats") PagesSerdeStats serdeStats)
+        {
+            this.serdeStats = requireNonNull(serdeStats, "serdeStats is null");
+        }
+
+        @JsonProperty
+        public PagesSerdeStats getSerdeStats()
+        {
+            return serdeStats;
+        }
+
+        @Override
+        public TaskOutputInfo mergeWith(TaskOutputInfo other)
+        {
+            return new TaskOutputInfo(serdeStats.mergeWith(other.serdeStats));
+        }
+
+        @Override
+        public boolean isFinal()
+        {
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("serdeStats", serdeStats)
+                    .toString();
+        }
+    }
 }
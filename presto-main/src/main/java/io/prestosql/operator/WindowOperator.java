@@ -18,6 +18,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.window.FramedWindowFunction;
 import io.prestosql.operator.window.WindowPartition;
@@ -26,13 +27,17 @@ import io.prestosql.spi.PageBuilder;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.SortOrder;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.SpillerFactory;
+import io.prestosql.sql.gen.OrderingCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -40,7 +45,10 @@ import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.prestosql.spi.block.SortOrder.ASC_NULLS_LAST;
+import static java.util.Collections.emptyIterator;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -63,6 +71,9 @@ public class WindowOperator
         private final int expectedPositions;
         private boolean closed;
         private final PagesIndex.Factory pagesIndexFactory;
+        private final boolean spillEnabled;
+        private final Optional<SpillerFactory> spillerFactory;
+        private final OrderingCompiler orderingCompiler;
 
         public WindowOperatorFactory(
                 int operatorId,
@@ -76,7 +87,10 @@ public class WindowOperator
                 List<SortOrder> sortOrder,
                 int preSortedChannelPrefix,
                 int expectedPositions,
-                PagesIndex.Factory pagesIndexFactory)
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                Optional<SpillerFactory> spillerFactory,
+                OrderingCompiler orderingCompiler)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -91,6 +105,9 @@ public class WindowOperator
             checkArgument(sortChannels.size() == sortOrder.size(), "Must have same number of sort channels as sort orders");
             checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
             checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
+            requireNonNull(spillerFactory, "spillerFactory is null");
+            requireNonNull(orderingCompiler, "orderingCompiler is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
 
             this.pagesIndexFactory = pagesIndexFactory;
             this.operatorId = operatorId;
@@ -104,6 +121,9 @@ public class WindowOperator
             this.sortOrder = ImmutableList.copyOf(sortOrder);
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.expectedPositions = expectedPositions;
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = spillerFactory;
+            this.orderingCompiler = orderingCompiler;
         }
 
         @Override
@@ -123,7 +143,10 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    orderingCompiler);
         }
 
         @Override
@@ -147,7 +170,10 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    orderingCompiler);
         }
     }
 
@@ -160,13 +186,16 @@ public class WindowOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
     private final List<FramedWindowFunction> windowFunctions;
     private final List<Integer> orderChannels;
     private final List<SortOrder> ordering;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext revocableMemoryContext;
 
     private final int[] preGroupedChannels;
+    private final int[] unGroupedPartitionChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
@@ -186,6 +215,19 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    private final boolean spillEnabled;
+    private final Optional<PagesIndexSpiller> spiller;
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+
+    // pre-grouped channels of the group whose rows were spilled, used to detect the start of the next group while the index is empty
+    private Page spilledGroupKey;
+    // set when the current group was spilled and is read back once the spill completes
+    private boolean spilledGroupPending;
+    // merged spilled runs of the current group, sorted by the partition and sort channels; null when the group is not being read back
+    private Iterator<Page> spilledPages;
+    private Page pendingSpilledPage;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -197,7 +239,10 @@ public class WindowOperator
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
             int expectedPositions,
-            PagesIndex.Factory pagesIndexFactory)
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            Optional<SpillerFactory> spillerFactory,
+            OrderingCompiler orderingCompiler)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -211,9 +256,14 @@ public class WindowOperator
         checkArgument(sortChannels.size() == sortOrder.size(), "Must have same number of sort channels as sort orders");
         checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
         checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
+        requireNonNull(spillerFactory, "spillerFactory is null");
+        requireNonNull(orderingCompiler, "orderingCompiler is null");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
 
         this.operatorContext = operatorContext;
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.revocableMemoryContext = operatorContext.localRevocableMemoryContext();
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
@@ -232,6 +282,7 @@ public class WindowOperator
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
+        this.unGroupedPartitionChannels = Ints.toArray(unGroupedPartitionChannels);
         this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, OptionalInt.empty());
         List<Integer> preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
@@ -252,6 +303,21 @@ public class WindowOperator
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
         }
 
+        this.spillEnabled = spillEnabled;
+        if (spillEnabled) {
+            // Spilled runs are sorted on the whole group, so that the merged runs can be read back one partition at a time
+            this.spiller = Optional.of(new PagesIndexSpiller(
+                    operatorContext,
+                    sourceTypes,
+                    ImmutableList.copyOf(concat(unGroupedPartitionChannels, sortChannels)),
+                    ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder)),
+                    spillerFactory.get(),
+                    orderingCompiler));
+        }
+        else {
+            this.spiller = Optional.empty();
+        }
+
         windowInfo = new WindowInfo.DriverWindowInfoBuilder();
         operatorContext.setInfoSupplier(this::getWindowInfo);
     }
@@ -267,6 +333,15 @@ public class WindowOperator
         return operatorContext;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public void finish()
     {
@@ -307,7 +382,7 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
     }
 
     /**
@@ -330,7 +405,7 @@ public class WindowOperator
 
     /**
      * @return the unused section of the page, or null if fully applied.
-     * pagesIndex guaranteed to have at least one row after this method returns
+     * pagesIndex guaranteed to have at least one row after this method returns, unless the rows of the current group were spilled
      */
     private Page updatePagesIndex(Page page)
     {
@@ -338,9 +413,21 @@ public class WindowOperator
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
         Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
-            // Find the position where the pre-grouped columns change
-            int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
+        if (pagesIndex.getPositionCount() == 0 && spilledGroupKey != null && !preGroupedPartitionHashStrategy.rowEqualsRow(0, spilledGroupKey, 0, preGroupedPage)) {
+            // All buffered rows of the current group were spilled, and the new page starts with new group values
+            return page;
+        }
+        return addGroupRows(page, preGroupedPage, preGroupedPartitionHashStrategy);
+    }
+
+    /**
+     * @return the unused section of the page, or null if fully applied
+     */
+    private Page addGroupRows(Page page, Page groupPage, PagesHashStrategy groupHashStrategy)
+    {
+        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(groupHashStrategy, 0, 0, groupPage)) {
+            // Find the position where the grouped columns change
+            int groupEnd = findGroupEnd(groupPage, groupHashStrategy, 0);
 
             // Add the section of the page that contains values for the current group
             pagesIndex.addPage(page.getRegion(0, groupEnd));
@@ -376,8 +463,17 @@ public class WindowOperator
             return null;
         }
 
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (spilledGroupPending) {
+            startReadingSpilledGroup();
+        }
+
         Page page = extractOutput();
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
         return page;
     }
 
@@ -395,19 +491,21 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
-                    // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    // Read back the next partition of a spilled group, or try to extract more partitions from the pendingInput
+                    if (spilledPages != null && loadSpilledPartition()) {
+                        partitionStart = 0;
+                    }
+                    else if (pendingInput != null && processPendingInput()) {
+                        if (spilledGroupPending) {
+                            // The group was spilled, and is read back once the spill completes
+                            return flushPageBuilder();
+                        }
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
                         state = State.FINISHED;
                         // Output the remaining page if we have anything buffered
-                        if (!pageBuilder.isEmpty()) {
-                            Page page = pageBuilder.build();
-                            pageBuilder.reset();
-                            return page;
-                        }
-                        return null;
+                        return flushPageBuilder();
                     }
                     else {
                         state = State.NEEDS_INPUT;
@@ -428,6 +526,16 @@ public class WindowOperator
         return page;
     }
 
+    private Page flushPageBuilder()
+    {
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        return page;
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
@@ -442,10 +550,140 @@ public class WindowOperator
 
     private void finishPagesIndex()
     {
+        if (spillEnabled && (spiller.get().hasSpilled() || !convertRevocableToUserMemory())) {
+            // The group does not fit in memory: spill the rest of it, and read it back one partition at a time
+            spillToDisk();
+            spilledGroupPending = true;
+            return;
+        }
         sortPagesIndexIfNecessary();
         windowInfo.addIndex(pagesIndex);
     }
 
+    private boolean convertRevocableToUserMemory()
+    {
+        long revocableBytes = revocableMemoryContext.getBytes();
+        revocableMemoryContext.setBytes(0);
+        if (!localUserMemoryContext.trySetBytes(pagesIndex.getEstimatedSize().toBytes())) {
+            revocableMemoryContext.setBytes(revocableBytes);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (state != State.NEEDS_INPUT) {
+            // The index holds a complete group, which is either in user memory or already being spilled
+            return spillInProgress;
+        }
+        return spillToDisk();
+    }
+
+    private ListenableFuture<?> spillToDisk()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (pagesIndex.getPositionCount() == 0) {
+            finishMemoryRevoke = Optional.of(() -> {});
+            return immediateFuture(null);
+        }
+
+        if (spilledGroupKey == null) {
+            Block[] keyBlocks = new Block[preGroupedChannels.length];
+            for (int i = 0; i < preGroupedChannels.length; i++) {
+                keyBlocks[i] = pagesIndex.getSingleValueBlock(preGroupedChannels[i], 0);
+            }
+            spilledGroupKey = new Page(1, keyBlocks);
+        }
+
+        spillInProgress = spiller.get().spill(pagesIndex);
+        finishMemoryRevoke = Optional.of(() -> {
+            pagesIndex.clear();
+            updateMemoryUsage();
+        });
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.ifPresent(Runnable::run);
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    private void startReadingSpilledGroup()
+    {
+        // release the index of the spill
+        finishMemoryRevoke();
+        spilledGroupPending = false;
+
+        checkState(pagesIndex.getPositionCount() == 0, "Spilled group is not fully spilled");
+        partition = null;
+        // the merge does not yield, as a partition must be fully loaded before it is processed
+        spilledPages = spiller.get().mergeSpilledRuns(
+                emptyIterator(),
+                IntStream.range(0, sourceTypes.size()).boxed().collect(toImmutableList()),
+                new DriverYieldSignal())
+                .iterator();
+    }
+
+    /**
+     * Loads the next partition of the spilled group into the empty pagesIndex.
+     *
+     * @return true if a partition was loaded, false if the spilled group is exhausted
+     */
+    private boolean loadSpilledPartition()
+    {
+        while (true) {
+            if (pendingSpilledPage == null) {
+                if (!spilledPages.hasNext()) {
+                    break;
+                }
+                pendingSpilledPage = spilledPages.next();
+                if (pendingSpilledPage.getPositionCount() == 0) {
+                    pendingSpilledPage = null;
+                    continue;
+                }
+            }
+            pendingSpilledPage = addGroupRows(pendingSpilledPage, rearrangePage(pendingSpilledPage, unGroupedPartitionChannels), unGroupedPartitionHashStrategy);
+            if (pendingSpilledPage != null) {
+                // the rest of the page belongs to the next partition
+                break;
+            }
+        }
+
+        if (pendingSpilledPage == null) {
+            // the group was fully read back
+            spilledPages = null;
+            spilledGroupKey = null;
+            spiller.get().close();
+        }
+        if (pagesIndex.getPositionCount() == 0) {
+            return false;
+        }
+        windowInfo.addIndex(pagesIndex);
+        return true;
+    }
+
+    private void updateMemoryUsage()
+    {
+        long bytes = pagesIndex.getEstimatedSize().toBytes();
+        if (spillEnabled && state == State.NEEDS_INPUT && pagesIndex.getPositionCount() > 0) {
+            // The rows of an incomplete group can be spilled
+            localUserMemoryContext.setBytes(0);
+            revocableMemoryContext.setBytes(bytes);
+        }
+        else {
+            revocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(bytes);
+        }
+    }
+
     // Assumes input grouped on relevant pagesHashStrategy columns
     private static int findGroupEnd(Page page, PagesHashStrategy pagesHashStrategy, int startPosition)
     {
@@ -497,5 +735,7 @@ public class WindowOperator
     public void close()
     {
         driverWindowInfo.set(Optional.of(windowInfo.build()));
+        spiller.ifPresent(PagesIndexSpiller::close);
+        revocableMemoryContext.setBytes(0);
     }
 }
@@ -21,16 +21,16 @@ import io.prestosql.operator.WorkProcessor.TransformationState;
 
 import javax.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
-import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 
 public final class WorkProcessorUtils
@@ -111,19 +111,28 @@ public final class WorkProcessorUtils
         requireNonNull(comparator, "comparator is null");
         Iterator<WorkProcessor<T>> processorIterator = requireNonNull(processorIterable, "processorIterable is null").iterator();
         checkArgument(processorIterator.hasNext(), "There must be at least one base processor");
-        PriorityQueue<ElementAndProcessor<T>> queue = new PriorityQueue<>(2, comparing(ElementAndProcessor::getElement, comparator));
+        List<ElementAndProcessor<T>> initialElements = new ArrayList<>();
 
         return create(new WorkProcessor.Process<T>()
         {
             WorkProcessor<T> processor = requireNonNull(processorIterator.next());
+            TournamentTree<T> tree;
 
             @Override
             public ProcessState<T> process()
             {
                 while (true) {
                     if (processor.process()) {
-                        if (!processor.isFinished()) {
-                            queue.add(new ElementAndProcessor<>(processor.getResult(), processor));
+                        if (tree != null) {
+                            if (processor.isFinished()) {
+                                tree.removeWinner();
+                            }
+                            else {
+                                tree.replaceWinner(processor.getResult());
+                            }
+                        }
+                        else if (!processor.isFinished()) {
+                            initialElements.add(new ElementAndProcessor<>(processor.getResult(), processor));
                         }
                     }
                     else if (processor.isBlocked()) {
@@ -133,18 +142,26 @@ public final class WorkProcessorUtils
                         return ProcessState.yield();
                     }
 
-                    if (processorIterator.hasNext()) {
-                        processor = requireNonNull(processorIterator.next());
-                        continue;
+                    if (tree == null) {
+                        if (processorIterator.hasNext()) {
+                            processor = requireNonNull(processorIterator.next());
+                            continue;
+                        }
+
+                        if (initialElements.isEmpty()) {
+                            return ProcessState.finished();
+                        }
+
+                        tree = new TournamentTree<>(initialElements, comparator);
+                        initialElements.clear();
                     }
 
-                    if (queue.isEmpty()) {
+                    if (tree.isEmpty()) {
                         return ProcessState.finished();
                     }
 
-                    ElementAndProcessor<T> elementAndProcessor = queue.poll();
-                    processor = elementAndProcessor.getProcessor();
-                    return ProcessState.ofResult(elementAndProcessor.getElement());
+                    processor = tree.getWinnerProcessor();
+                    return ProcessState.ofResult(tree.getWinnerElement());
                 }
             }
         });
@@ -348,6 +365,112 @@ public final class WorkProcessorUtils
         }
     }
 
+    /**
+     * Loser tree over the heads of the merged processors. Replacing the winner
+     * replays a single leaf-to-root path, which costs exactly log2(k) comparisons,
+     * compared to up to 2 * log2(k) for a binary heap sift-down.
+     */
+    private static class TournamentTree<T>
+    {
+        private final Comparator<T> comparator;
+        private final int leafCount;
+        private final List<T> elements;
+        // null processor marks an exhausted leaf, which loses against every other leaf
+        private final List<WorkProcessor<T>> processors;
+        // losers[0] is the overall winner, losers[1..leafCount) are the losers of the internal matches
+        private final int[] losers;
+        private int remainingLeaves;
+
+        TournamentTree(List<ElementAndProcessor<T>> leaves, Comparator<T> comparator)
+        {
+            checkArgument(!leaves.isEmpty(), "leaves is empty");
+            this.comparator = requireNonNull(comparator, "comparator is null");
+            this.leafCount = leaves.size();
+            this.elements = new ArrayList<>(leafCount);
+            this.processors = new ArrayList<>(leafCount);
+            for (ElementAndProcessor<T> leaf : leaves) {
+                elements.add(leaf.getElement());
+                processors.add(leaf.getProcessor());
+            }
+            this.losers = new int[leafCount];
+            this.remainingLeaves = leafCount;
+            losers[0] = play(1);
+        }
+
+        boolean isEmpty()
+        {
+            return remainingLeaves == 0;
+        }
+
+        T getWinnerElement()
+        {
+            checkState(!isEmpty(), "tree is empty");
+            return elements.get(losers[0]);
+        }
+
+        WorkProcessor<T> getWinnerProcessor()
+        {
+            checkState(!isEmpty(), "tree is empty");
+            return processors.get(losers[0]);
+        }
+
+        void replaceWinner(T element)
+        {
+            checkState(!isEmpty(), "tree is empty");
+            elements.set(losers[0], element);
+            replay(losers[0]);
+        }
+
+        void removeWinner()
+        {
+            checkState(!isEmpty(), "tree is empty");
+            elements.set(losers[0], null);
+            processors.set(losers[0], null);
+            remainingLeaves--;
+            replay(losers[0]);
+        }
+
+        // leaves are stored implicitly at nodes [leafCount, 2 * leafCount) of a complete binary tree rooted at node 1
+        private int play(int node)
+        {
+            if (node >= leafCount) {
+                return node - leafCount;
+            }
+            int left = play(2 * node);
+            int right = play(2 * node + 1);
+            if (beats(left, right)) {
+                losers[node] = right;
+                return left;
+            }
+            losers[node] = left;
+            return right;
+        }
+
+        private void replay(int leaf)
+        {
+            int winner = leaf;
+            for (int node = (leaf + leafCount) >> 1; node > 0; node >>= 1) {
+                int opponent = losers[node];
+                if (beats(opponent, winner)) {
+                    losers[node] = winner;
+                    winner = opponent;
+                }
+            }
+            losers[0] = winner;
+        }
+
+        private boolean beats(int leaf, int opponent)
+        {
+            if (processors.get(leaf) == null) {
+                return false;
+            }
+            if (processors.get(opponent) == null) {
+                return true;
+            }
+            return comparator.compare(elements.get(leaf), elements.get(opponent)) < 0;
+        }
+    }
+
     private static class ElementAndProcessor<T>
     {
         @Nullable final T element;
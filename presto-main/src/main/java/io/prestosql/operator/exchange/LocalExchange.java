@@ -16,8 +16,10 @@ package io.prestosql.operator.exchange;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
 import io.prestosql.execution.Lifespan;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.operator.PipelineExecutionStrategy;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.Spiller;
 import io.prestosql.sql.planner.PartitioningHandle;
 
 import javax.annotation.concurrent.GuardedBy;
@@ -57,6 +59,9 @@ public class LocalExchange
 
     private final LocalExchangeMemoryManager memoryManager;
 
+    private final ElasticBufferLimit maxBufferedBytes;
+    private final Optional<Runnable> revocationListener;
+
     @GuardedBy("this")
     private boolean allSourcesFinished;
 
@@ -82,8 +87,11 @@ public class LocalExchange
             List<? extends Type> types,
             List<Integer> partitionChannels,
             Optional<Integer> partitionHashChannel,
-            DataSize maxBufferedBytes)
+            ElasticBufferLimit maxBufferedBytes,
+            Optional<Supplier<Spiller>> spillerSupplier)
     {
+        this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
+        requireNonNull(spillerSupplier, "spillerSupplier is null");
         this.allSinkFactories = Stream.generate(() -> new LocalExchangeSinkFactory(LocalExchange.this))
                 .limit(sinkFactoryCount)
                 .collect(toImmutableList());
@@ -100,7 +108,7 @@ public class LocalExchange
                 .map(buffer -> (Consumer<PageReference>) buffer::addPage)
                 .collect(toImmutableList());
 
-        this.memoryManager = new LocalExchangeMemoryManager(maxBufferedBytes.toBytes());
+        this.memoryManager = new LocalExchangeMemoryManager(maxBufferedBytes);
         if (partitioning.equals(SINGLE_DISTRIBUTION)) {
             exchangerSupplier = () -> new BroadcastExchanger(buffers, memoryManager);
         }
@@ -117,12 +125,23 @@ public class LocalExchange
             Iterator<LocalExchangeSource> sourceIterator = this.sources.iterator();
             exchangerSupplier = () -> {
                 checkState(sourceIterator.hasNext(), "no more sources");
-                return new PassthroughExchanger(sourceIterator.next(), maxBufferedBytes.toBytes() / bufferCount, memoryManager::updateMemoryUsage);
+                return new PassthroughExchanger(sourceIterator.next(), maxBufferedBytes.split(bufferCount), memoryManager::updateMemoryUsage);
             };
         }
         else {
             throw new IllegalArgumentException("Unsupported local exchange partitioning " + partitioning);
         }
+
+        // broadcast pages are shared by all sources, so spilling one source would not release them
+        if (spillerSupplier.isPresent() && !partitioning.equals(FIXED_BROADCAST_DISTRIBUTION)) {
+            Supplier<Spiller> supplier = spillerSupplier.get();
+            Runnable listener = () -> spillBuffers(supplier);
+            maxBufferedBytes.addRevocationListener(listener);
+            this.revocationListener = Optional.of(listener);
+        }
+        else {
+            this.revocationListener = Optional.empty();
+        }
     }
 
     public int getBufferCount()
@@ -161,6 +180,16 @@ public class LocalExchange
         return sources.get(partitionIndex);
     }
 
+    private void spillBuffers(Supplier<Spiller> spillerSupplier)
+    {
+        // the buffers release their growth as consumers drain them, so only the growth
+        // buffered beyond the base size needs to be spilled
+        if (memoryManager.getBufferedBytes() <= maxBufferedBytes.getBaseBytes()) {
+            return;
+        }
+        sources.forEach(source -> source.spill(spillerSupplier));
+    }
+
     private void checkAllSourcesFinished()
     {
         checkNotHoldsLock(this);
@@ -169,6 +198,8 @@ public class LocalExchange
             return;
         }
 
+        revocationListener.ifPresent(maxBufferedBytes::removeRevocationListener);
+
         // all sources are finished, so finish the sinks
         ImmutableList<LocalExchangeSink> openSinks;
         synchronized (this) {
@@ -260,7 +291,8 @@ public class LocalExchange
         private final List<Integer> partitionChannels;
         private final Optional<Integer> partitionHashChannel;
         private final PipelineExecutionStrategy exchangeSourcePipelineExecutionStrategy;
-        private final DataSize maxBufferedBytes;
+        private final ElasticBufferLimit maxBufferedBytes;
+        private final Optional<Supplier<Spiller>> spillerSupplier;
         private final int bufferCount;
 
         @GuardedBy("this")
@@ -283,6 +315,19 @@ public class LocalExchange
                 Optional<Integer> partitionHashChannel,
                 PipelineExecutionStrategy exchangeSourcePipelineExecutionStrategy,
                 DataSize maxBufferedBytes)
+        {
+            this(partitioning, defaultConcurrency, types, partitionChannels, partitionHashChannel, exchangeSourcePipelineExecutionStrategy, ElasticBufferLimit.fixed(maxBufferedBytes.toBytes()), Optional.empty());
+        }
+
+        public LocalExchangeFactory(
+                PartitioningHandle partitioning,
+                int defaultConcurrency,
+                List<Type> types,
+                List<Integer> partitionChannels,
+                Optional<Integer> partitionHashChannel,
+                PipelineExecutionStrategy exchangeSourcePipelineExecutionStrategy,
+                ElasticBufferLimit maxBufferedBytes,
+                Optional<Supplier<Spiller>> spillerSupplier)
         {
             this.partitioning = requireNonNull(partitioning, "partitioning is null");
             this.types = requireNonNull(types, "types is null");
@@ -290,6 +335,7 @@ public class LocalExchange
             this.partitionHashChannel = requireNonNull(partitionHashChannel, "partitionHashChannel is null");
             this.exchangeSourcePipelineExecutionStrategy = requireNonNull(exchangeSourcePipelineExecutionStrategy, "exchangeSourcePipelineExecutionStrategy is null");
             this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
+            this.spillerSupplier = requireNonNull(spillerSupplier, "spillerSupplier is null");
 
             this.bufferCount = computeBufferCount(partitioning, defaultConcurrency, partitionChannels);
         }
@@ -323,7 +369,7 @@ public class LocalExchange
             return localExchangeMap.computeIfAbsent(lifespan, ignored -> {
                 checkState(noMoreSinkFactories);
                 LocalExchange localExchange =
-                        new LocalExchange(numSinkFactories, bufferCount, partitioning, types, partitionChannels, partitionHashChannel, maxBufferedBytes);
+                        new LocalExchange(numSinkFactories, bufferCount, partitioning, types, partitionChannels, partitionHashChannel, maxBufferedBytes, spillerSupplier);
                 for (LocalExchangeSinkFactoryId closedSinkFactoryId : closedSinkFactories) {
                     localExchange.getSinkFactory(closedSinkFactoryId).close();
                 }
@@ -15,13 +15,14 @@ package io.prestosql.operator.exchange;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.prestosql.memory.ElasticBufferLimit;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.concurrent.atomic.AtomicLong;
 
-import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
 public class LocalExchangeMemoryManager
@@ -33,16 +34,22 @@ public class LocalExchangeMemoryManager
         NOT_FULL.set(null);
     }
 
-    private final long maxBufferedBytes;
+    private final ElasticBufferLimit maxBufferedBytes;
     private final AtomicLong bufferedBytes = new AtomicLong();
 
     @GuardedBy("this")
     private SettableFuture<?> notFullFuture = NOT_FULL;
+    @GuardedBy("this")
+    private long growthBytes;
 
     public LocalExchangeMemoryManager(long maxBufferedBytes)
     {
-        checkArgument(maxBufferedBytes > 0, "maxBufferedBytes must be > 0");
-        this.maxBufferedBytes = maxBufferedBytes;
+        this(ElasticBufferLimit.fixed(maxBufferedBytes));
+    }
+
+    public LocalExchangeMemoryManager(ElasticBufferLimit maxBufferedBytes)
+    {
+        this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
     }
 
     public void updateMemoryUsage(long bytesAdded)
@@ -52,7 +59,8 @@ public class LocalExchangeMemoryManager
             bufferedBytes.addAndGet(bytesAdded);
 
             // if we are full, then breakout
-            if (bufferedBytes.get() > maxBufferedBytes || notFullFuture.isDone()) {
+            // the limit is checked first, so that the buffer releases growth it no longer needs
+            if (isFull() || notFullFuture.isDone()) {
                 return;
             }
 
@@ -68,7 +76,7 @@ public class LocalExchangeMemoryManager
     public synchronized ListenableFuture<?> getNotFullFuture()
     {
         // if we are full and the current not full future is already complete, create a new one
-        if (bufferedBytes.get() > maxBufferedBytes && notFullFuture.isDone()) {
+        if (notFullFuture.isDone() && isFull()) {
             notFullFuture = SettableFuture.create();
         }
         return notFullFuture;
@@ -78,4 +86,11 @@ public class LocalExchangeMemoryManager
     {
         return bufferedBytes.get();
     }
+
+    private synchronized boolean isFull()
+    {
+        long bufferedBytes = this.bufferedBytes.get();
+        growthBytes = maxBufferedBytes.updateGrowth(growthBytes, bufferedBytes);
+        return bufferedBytes > maxBufferedBytes.getBaseBytes() + growthBytes;
+    }
 }
@@ -18,18 +18,27 @@ import com.google.common.util.concurrent.SettableFuture;
 import io.prestosql.operator.WorkProcessor;
 import io.prestosql.operator.WorkProcessor.ProcessState;
 import io.prestosql.spi.Page;
+import io.prestosql.spiller.Spiller;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -55,6 +64,10 @@ public class LocalExchangeSource
     @GuardedBy("lock")
     private boolean finishing;
 
+    // pages spilled from the buffer are read before the pages buffered after them
+    @GuardedBy("lock")
+    private final Deque<SpilledPages> spilledPages = new ArrayDeque<>();
+
     public LocalExchangeSource(Consumer<LocalExchangeSource> onFinish)
     {
         this.onFinish = requireNonNull(onFinish, "onFinish is null");
@@ -122,10 +135,20 @@ public class LocalExchangeSource
     {
         checkNotHoldsLock();
 
-        // NOTE: there is no need to acquire a lock here. The buffer is concurrent
-        // and buffered bytes is not expected to be consistent with the buffer (only
-        // best effort).
-        PageReference pageReference = buffer.poll();
+        // NOTE: the buffer is concurrent and buffered bytes is not expected to be
+        // consistent with the buffer (only best effort). The lock only keeps the
+        // buffer from being spilled while a page is taken from it.
+        SpilledPages spilled;
+        PageReference pageReference = null;
+        synchronized (lock) {
+            spilled = spilledPages.peek();
+            if (spilled == null) {
+                pageReference = buffer.poll();
+            }
+        }
+        if (spilled != null) {
+            return removeSpilledPage(spilled);
+        }
         if (pageReference == null) {
             return null;
         }
@@ -144,6 +167,12 @@ public class LocalExchangeSource
         checkNotHoldsLock();
 
         synchronized (lock) {
+            SpilledPages spilled = spilledPages.peek();
+            if (spilled != null) {
+                // spilled pages can be read once they are written
+                return spilled.getSpillFuture();
+            }
+
             // if we need to block readers, and the current future is complete, create a new one
             if (!finishing && buffer.isEmpty() && notEmptyFuture.isDone()) {
                 notEmptyFuture = SettableFuture.create();
@@ -155,8 +184,40 @@ public class LocalExchangeSource
     public boolean isFinished()
     {
         synchronized (lock) {
-            return finishing && buffer.isEmpty();
+            return finishing && buffer.isEmpty() && spilledPages.isEmpty();
+        }
+    }
+
+    /**
+     * Spills the buffered pages, and releases their memory once they are written. The pages
+     * are read back in order, before the pages buffered after them. Only buffers that are not
+     * shared with other sources can be spilled, as the memory of a shared page is released
+     * only once all sources have removed it.
+     */
+    ListenableFuture<?> spill(Supplier<Spiller> spillerSupplier)
+    {
+        checkNotHoldsLock();
+
+        List<PageReference> pageReferences = new ArrayList<>();
+        SpilledPages spilled;
+        synchronized (lock) {
+            buffer.drainTo(pageReferences);
+            if (pageReferences.isEmpty()) {
+                return immediateFuture(null);
+            }
+            bufferedBytes.addAndGet(-pageReferences.stream().mapToLong(PageReference::getRetainedSizeInBytes).sum());
+
+            spilled = new SpilledPages(spillerSupplier.get());
+            spilledPages.add(spilled);
         }
+
+        ListenableFuture<?> spillFuture = spilled.spill(pageReferences.stream()
+                .map(PageReference::getPage)
+                .collect(toImmutableList())
+                .iterator());
+        // the pages are dereferenced whether or not they were written, so a failed spill does not leak memory
+        spillFuture.addListener(() -> pageReferences.forEach(PageReference::removePage), directExecutor());
+        return spillFuture;
     }
 
     public void finish()
@@ -185,6 +246,7 @@ public class LocalExchangeSource
         checkNotHoldsLock();
 
         List<PageReference> remainingPages = new ArrayList<>();
+        List<SpilledPages> remainingSpills;
         SettableFuture<?> notEmptyFuture;
         synchronized (lock) {
             finishing = true;
@@ -192,12 +254,16 @@ public class LocalExchangeSource
             buffer.drainTo(remainingPages);
             bufferedBytes.addAndGet(-remainingPages.stream().mapToLong(PageReference::getRetainedSizeInBytes).sum());
 
+            remainingSpills = new ArrayList<>(spilledPages);
+            spilledPages.clear();
+
             notEmptyFuture = this.notEmptyFuture;
             this.notEmptyFuture = NOT_EMPTY;
         }
 
         // free all the remaining pages
         remainingPages.forEach(PageReference::removePage);
+        remainingSpills.forEach(SpilledPages::close);
 
         // notify readers outside of lock since this may result in a callback
         notEmptyFuture.set(null);
@@ -207,6 +273,28 @@ public class LocalExchangeSource
         checkFinished();
     }
 
+    private Page removeSpilledPage(SpilledPages spilled)
+    {
+        if (!spilled.getSpillFuture().isDone()) {
+            return null;
+        }
+        checkSuccess(spilled.getSpillFuture(), "spilling failed");
+
+        // NOTE: the pages are read outside of the lock, as only the single reader of this source reads them
+        Page page = spilled.nextPage();
+        if (page != null) {
+            return page;
+        }
+
+        synchronized (lock) {
+            // the spill may have been removed by close
+            spilledPages.remove(spilled);
+        }
+        spilled.close();
+        checkFinished();
+        return removePage();
+    }
+
     private void checkFinished()
     {
         checkNotHoldsLock();
@@ -224,4 +312,49 @@ public class LocalExchangeSource
     {
         checkState(!Thread.holdsLock(lock), "Can not execute this method while holding the lock");
     }
+
+    private static class SpilledPages
+    {
+        private final Spiller spiller;
+        private final SettableFuture<?> spillFuture = SettableFuture.create();
+        private Iterator<Page> pages;
+
+        public SpilledPages(Spiller spiller)
+        {
+            this.spiller = requireNonNull(spiller, "spiller is null");
+        }
+
+        public ListenableFuture<?> spill(Iterator<Page> pages)
+        {
+            try {
+                spillFuture.setFuture(spiller.spill(pages));
+            }
+            catch (RuntimeException e) {
+                // the reader fails once it reaches these pages
+                spillFuture.setException(e);
+            }
+            return spillFuture;
+        }
+
+        public ListenableFuture<?> getSpillFuture()
+        {
+            return spillFuture;
+        }
+
+        public Page nextPage()
+        {
+            if (pages == null) {
+                pages = spiller.getSpills().get(0);
+            }
+            if (!pages.hasNext()) {
+                return null;
+            }
+            return pages.next();
+        }
+
+        public void close()
+        {
+            spiller.close();
+        }
+    }
 }
@@ -42,6 +42,14 @@ class PageReference
         return page.getRetainedSizeInBytes();
     }
 
+    /**
+     * Returns the page without dereferencing it.
+     */
+    public Page getPage()
+    {
+        return page;
+    }
+
     public Page removePage()
     {
         int referenceCount = this.referenceCount.decrementAndGet();
@@ -14,6 +14,7 @@
 package io.prestosql.operator.exchange;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.memory.ElasticBufferLimit;
 import io.prestosql.spi.Page;
 
 import java.util.function.LongConsumer;
@@ -27,7 +28,7 @@ public class PassthroughExchanger
     private final LocalExchangeMemoryManager bufferMemoryManager;
     private final LongConsumer memoryTracker;
 
-    public PassthroughExchanger(LocalExchangeSource localExchangeSource, long bufferMaxMemory, LongConsumer memoryTracker)
+    public PassthroughExchanger(LocalExchangeSource localExchangeSource, ElasticBufferLimit bufferMaxMemory, LongConsumer memoryTracker)
     {
         this.localExchangeSource = requireNonNull(localExchangeSource, "localExchangeSource is null");
         this.bufferMemoryManager = new LocalExchangeMemoryManager(bufferMaxMemory);
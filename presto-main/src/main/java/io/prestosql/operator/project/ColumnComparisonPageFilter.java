@@ -0,0 +1,941 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.project;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.IntArrayBlock;
+import io.prestosql.spi.block.LongArrayBlock;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.relational.CallExpression;
+import io.prestosql.sql.relational.ConstantExpression;
+import io.prestosql.sql.relational.InputReferenceExpression;
+import io.prestosql.sql.relational.RowExpression;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.metadata.FunctionRegistry.mangleOperatorName;
+import static io.prestosql.operator.project.SelectedPositions.positionsList;
+import static io.prestosql.operator.project.SelectedPositions.positionsRange;
+import static io.prestosql.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
+import static io.prestosql.spi.function.OperatorType.ADD;
+import static io.prestosql.spi.function.OperatorType.BETWEEN;
+import static io.prestosql.spi.function.OperatorType.EQUAL;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN_OR_EQUAL;
+import static io.prestosql.spi.function.OperatorType.LESS_THAN;
+import static io.prestosql.spi.function.OperatorType.LESS_THAN_OR_EQUAL;
+import static io.prestosql.spi.function.OperatorType.MULTIPLY;
+import static io.prestosql.spi.function.OperatorType.NOT_EQUAL;
+import static io.prestosql.spi.function.OperatorType.SUBTRACT;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.spi.type.Varchars.isVarcharType;
+import static io.prestosql.sql.relational.Signatures.IN;
+import static java.lang.Math.addExact;
+import static java.lang.Math.multiplyExact;
+import static java.lang.Math.subtractExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filter for conjunctions of simple comparisons between columns and constants, e.g.
+ * {@code x > 10 AND y IN (1, 2, 3) AND z = 'foo'}. Integral columns may also be
+ * combined with a constant by addition, subtraction or multiplication, e.g. {@code x + 1 > 10}.
+ * The comparisons are evaluated one column at a time over a selection vector of positions,
+ * in tight loops without per-position calls through method handles, narrowing the selected
+ * positions with each comparison. Values of flat integral blocks are read directly from the
+ * arrays backing the blocks.
+ */
+public class ColumnComparisonPageFilter
+        implements PageFilter
+{
+    private static final String AND = "AND";
+
+    private final List<ColumnFilter> columnFilters;
+    private final InputChannels inputChannels;
+
+    private ColumnComparisonPageFilter(List<ColumnFilter> columnFilters, InputChannels inputChannels)
+    {
+        this.columnFilters = ImmutableList.copyOf(requireNonNull(columnFilters, "columnFilters is null"));
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+    }
+
+    /**
+     * Returns a filter for the given expression, or empty if the expression is not a
+     * conjunction of comparisons supported by this filter.
+     */
+    public static Optional<PageFilter> tryCreate(RowExpression filter)
+    {
+        List<RowExpression> conjuncts = new ArrayList<>();
+        extractConjuncts(filter, conjuncts);
+
+        SortedSet<Integer> fields = new TreeSet<>();
+        for (RowExpression conjunct : conjuncts) {
+            Optional<InputReferenceExpression> field = getComparedField(conjunct);
+            if (!field.isPresent()) {
+                return Optional.empty();
+            }
+            fields.add(field.get().getField());
+        }
+        List<Integer> channels = ImmutableList.copyOf(fields);
+
+        ImmutableList.Builder<ColumnFilter> columnFilters = ImmutableList.builder();
+        for (RowExpression conjunct : conjuncts) {
+            Optional<ColumnFilter> columnFilter = toColumnFilter((CallExpression) conjunct, channels);
+            if (!columnFilter.isPresent()) {
+                return Optional.empty();
+            }
+            columnFilters.add(columnFilter.get());
+        }
+        return Optional.of(new ColumnComparisonPageFilter(columnFilters.build(), new InputChannels(channels)));
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public SelectedPositions filter(ConnectorSession session, Page page)
+    {
+        int positionCount = page.getPositionCount();
+        int[] positions = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            positions[position] = position;
+        }
+
+        int selectedCount = positionCount;
+        for (ColumnFilter columnFilter : columnFilters) {
+            if (selectedCount == 0) {
+                break;
+            }
+            selectedCount = columnFilter.filter(page.getBlock(columnFilter.getChannel()), positions, selectedCount);
+        }
+
+        if (selectedCount == positionCount) {
+            return positionsRange(0, positionCount);
+        }
+        return positionsList(positions, 0, selectedCount);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("columnFilters", columnFilters)
+                .add("inputChannels", inputChannels)
+                .toString();
+    }
+
+    private static void extractConjuncts(RowExpression expression, List<RowExpression> conjuncts)
+    {
+        if (expression instanceof CallExpression && ((CallExpression) expression).getSignature().getName().equals(AND)) {
+            for (RowExpression argument : ((CallExpression) expression).getArguments()) {
+                extractConjuncts(argument, conjuncts);
+            }
+            return;
+        }
+        conjuncts.add(expression);
+    }
+
+    private static Optional<InputReferenceExpression> getComparedField(RowExpression expression)
+    {
+        if (!(expression instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        CallExpression call = (CallExpression) expression;
+        for (RowExpression argument : call.getArguments()) {
+            Optional<InputReferenceExpression> field = getField(argument);
+            if (field.isPresent()) {
+                return field;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the column of a column expression, that is a column or an arithmetic
+     * operation between a column and a constant.
+     */
+    private static Optional<InputReferenceExpression> getField(RowExpression expression)
+    {
+        if (expression instanceof InputReferenceExpression) {
+            if (!isSupportedType(expression.getType())) {
+                return Optional.empty();
+            }
+            return Optional.of((InputReferenceExpression) expression);
+        }
+        if (!toArithmetic(expression).isPresent()) {
+            return Optional.empty();
+        }
+        return ((CallExpression) expression).getArguments().stream()
+                .filter(InputReferenceExpression.class::isInstance)
+                .map(InputReferenceExpression.class::cast)
+                .findFirst();
+    }
+
+    private static Optional<Arithmetic> toArithmetic(RowExpression expression)
+    {
+        if (!(expression instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        CallExpression call = (CallExpression) expression;
+        Type type = call.getType();
+        Optional<OperatorType> operator = getArithmeticOperator(call.getSignature().getName());
+        if (!operator.isPresent() || call.getArguments().size() != 2 || !isIntegralType(type)) {
+            return Optional.empty();
+        }
+
+        RowExpression left = call.getArguments().get(0);
+        RowExpression right = call.getArguments().get(1);
+        if (left instanceof InputReferenceExpression && left.getType().equals(type)) {
+            return getConstant(right, type).map(constant -> new Arithmetic(operator.get(), type, constant, false));
+        }
+        if (right instanceof InputReferenceExpression && right.getType().equals(type)) {
+            return getConstant(left, type).map(constant -> new Arithmetic(operator.get(), type, constant, true));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ColumnFilter> toColumnFilter(CallExpression call, List<Integer> channels)
+    {
+        String name = call.getSignature().getName();
+        List<RowExpression> arguments = call.getArguments();
+
+        RowExpression column;
+        List<RowExpression> constants;
+        // empty for IN
+        Optional<OperatorType> comparison;
+        if (name.equals(IN)) {
+            column = arguments.get(0);
+            constants = arguments.subList(1, arguments.size());
+            comparison = Optional.empty();
+        }
+        else if (name.equals(mangleOperatorName(BETWEEN))) {
+            column = arguments.get(0);
+            constants = arguments.subList(1, 3);
+            comparison = Optional.of(BETWEEN);
+        }
+        else {
+            Optional<OperatorType> operator = getComparisonOperator(name);
+            if (arguments.size() != 2 || !operator.isPresent()) {
+                return Optional.empty();
+            }
+            if (getField(arguments.get(0)).isPresent()) {
+                column = arguments.get(0);
+                constants = arguments.subList(1, 2);
+                comparison = operator;
+            }
+            else {
+                // constant on the left side, e.g. 10 < x, which is x > 10
+                column = arguments.get(1);
+                constants = arguments.subList(0, 1);
+                comparison = Optional.of(flip(operator.get()));
+            }
+        }
+
+        Optional<InputReferenceExpression> field = getField(column);
+        if (!field.isPresent()) {
+            return Optional.empty();
+        }
+        int channel = channels.indexOf(field.get().getField());
+        if (isVarcharType(column.getType())) {
+            return toSliceFilter(channel, column.getType(), comparison, constants);
+        }
+        return toLongFilter(channel, column.getType(), toArithmetic(column), comparison, constants);
+    }
+
+    private static Optional<ColumnFilter> toLongFilter(int channel, Type type, Optional<Arithmetic> arithmetic, Optional<OperatorType> comparison, List<RowExpression> constants)
+    {
+        if (!comparison.isPresent()) {
+            LongOpenHashSet values = new LongOpenHashSet(constants.size());
+            for (RowExpression constant : constants) {
+                if (!(constant instanceof ConstantExpression) || !constant.getType().equals(type)) {
+                    return Optional.empty();
+                }
+                // null values in the list can never make the predicate true
+                Object value = ((ConstantExpression) constant).getValue();
+                if (value != null) {
+                    values.add((long) value);
+                }
+            }
+            return Optional.of(new InFilter(channel, type, arithmetic, values));
+        }
+
+        List<Long> values = new ArrayList<>();
+        for (RowExpression constant : constants) {
+            Optional<Long> value = getConstant(constant, type);
+            if (!value.isPresent()) {
+                return Optional.empty();
+            }
+            values.add(value.get());
+        }
+
+        long value = values.get(0);
+        switch (comparison.get()) {
+            case BETWEEN:
+                return Optional.of(new RangeFilter(channel, type, arithmetic, value, values.get(1)));
+            case EQUAL:
+                return Optional.of(new RangeFilter(channel, type, arithmetic, value, value));
+            case NOT_EQUAL:
+                return Optional.of(new NotEqualFilter(channel, type, arithmetic, value));
+            case LESS_THAN:
+                if (value == Long.MIN_VALUE) {
+                    return Optional.empty();
+                }
+                return Optional.of(new RangeFilter(channel, type, arithmetic, Long.MIN_VALUE, value - 1));
+            case LESS_THAN_OR_EQUAL:
+                return Optional.of(new RangeFilter(channel, type, arithmetic, Long.MIN_VALUE, value));
+            case GREATER_THAN:
+                if (value == Long.MAX_VALUE) {
+                    return Optional.empty();
+                }
+                return Optional.of(new RangeFilter(channel, type, arithmetic, value + 1, Long.MAX_VALUE));
+            case GREATER_THAN_OR_EQUAL:
+                return Optional.of(new RangeFilter(channel, type, arithmetic, value, Long.MAX_VALUE));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<ColumnFilter> toSliceFilter(int channel, Type type, Optional<OperatorType> comparison, List<RowExpression> constants)
+    {
+        if (!comparison.isPresent()) {
+            Set<Slice> values = new HashSet<>();
+            for (RowExpression constant : constants) {
+                if (!(constant instanceof ConstantExpression) || !isVarcharType(constant.getType())) {
+                    return Optional.empty();
+                }
+                // null values in the list can never make the predicate true
+                Object value = ((ConstantExpression) constant).getValue();
+                if (value != null) {
+                    values.add((Slice) value);
+                }
+            }
+            return Optional.of(new SliceInFilter(channel, type, values));
+        }
+
+        List<Slice> values = new ArrayList<>();
+        for (RowExpression constant : constants) {
+            Optional<Slice> value = getSliceConstant(constant);
+            if (!value.isPresent()) {
+                return Optional.empty();
+            }
+            values.add(value.get());
+        }
+
+        Slice value = values.get(0);
+        switch (comparison.get()) {
+            case BETWEEN:
+                return Optional.of(new SliceRangeFilter(channel, type, value, true, values.get(1), true));
+            case EQUAL:
+                return Optional.of(new SliceEqualFilter(channel, type, value));
+            case NOT_EQUAL:
+                return Optional.of(new SliceNotEqualFilter(channel, type, value));
+            case LESS_THAN:
+                return Optional.of(new SliceRangeFilter(channel, type, null, false, value, false));
+            case LESS_THAN_OR_EQUAL:
+                return Optional.of(new SliceRangeFilter(channel, type, null, false, value, true));
+            case GREATER_THAN:
+                return Optional.of(new SliceRangeFilter(channel, type, value, false, null, false));
+            case GREATER_THAN_OR_EQUAL:
+                return Optional.of(new SliceRangeFilter(channel, type, value, true, null, false));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<OperatorType> getComparisonOperator(String name)
+    {
+        for (OperatorType operator : ImmutableList.of(EQUAL, NOT_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL)) {
+            if (name.equals(mangleOperatorName(operator))) {
+                return Optional.of(operator);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<OperatorType> getArithmeticOperator(String name)
+    {
+        // division and modulus are left to generated code, as they fail on zero divisors
+        for (OperatorType operator : ImmutableList.of(ADD, SUBTRACT, MULTIPLY)) {
+            if (name.equals(mangleOperatorName(operator))) {
+                return Optional.of(operator);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static OperatorType flip(OperatorType operator)
+    {
+        switch (operator) {
+            case LESS_THAN:
+                return GREATER_THAN;
+            case LESS_THAN_OR_EQUAL:
+                return GREATER_THAN_OR_EQUAL;
+            case GREATER_THAN:
+                return LESS_THAN;
+            case GREATER_THAN_OR_EQUAL:
+                return LESS_THAN_OR_EQUAL;
+            default:
+                return operator;
+        }
+    }
+
+    private static Optional<Long> getConstant(RowExpression expression, Type type)
+    {
+        if (!(expression instanceof ConstantExpression) || !expression.getType().equals(type)) {
+            return Optional.empty();
+        }
+        // comparisons with null are never true, but are rare enough not to be worth handling here
+        Object value = ((ConstantExpression) expression).getValue();
+        if (value == null) {
+            return Optional.empty();
+        }
+        return Optional.of((long) value);
+    }
+
+    private static Optional<Slice> getSliceConstant(RowExpression expression)
+    {
+        // varchar values compare the same regardless of the length bound of their type
+        if (!(expression instanceof ConstantExpression) || !isVarcharType(expression.getType())) {
+            return Optional.empty();
+        }
+        Object value = ((ConstantExpression) expression).getValue();
+        if (value == null) {
+            return Optional.empty();
+        }
+        return Optional.of((Slice) value);
+    }
+
+    private static boolean isSupportedType(Type type)
+    {
+        return isIntegralType(type) || type.equals(DATE) || isVarcharType(type);
+    }
+
+    private static boolean isIntegralType(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT);
+    }
+
+    /**
+     * Reads the values at the first {@code positionCount} entries of {@code positions} into
+     * {@code values}, removing the positions of null values, and returns the number of positions
+     * left. Values of flat blocks are read directly from the arrays backing the blocks.
+     */
+    private static int readNonNullValues(Block block, Type type, int[] positions, int positionCount, long[] values)
+    {
+        Block loadedBlock = block.getLoadedBlock();
+        if (loadedBlock.mayHaveNull()) {
+            int nonNullCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                if (!loadedBlock.isNull(position)) {
+                    positions[nonNullCount] = position;
+                    nonNullCount++;
+                }
+            }
+            positionCount = nonNullCount;
+        }
+
+        if (loadedBlock instanceof LongArrayBlock) {
+            long[] rawValues = ((LongArrayBlock) loadedBlock).getRawValues();
+            int rawValuesOffset = ((LongArrayBlock) loadedBlock).getRawValuesOffset();
+            for (int i = 0; i < positionCount; i++) {
+                values[i] = rawValues[rawValuesOffset + positions[i]];
+            }
+        }
+        else if (loadedBlock instanceof IntArrayBlock) {
+            int[] rawValues = ((IntArrayBlock) loadedBlock).getRawValues();
+            int rawValuesOffset = ((IntArrayBlock) loadedBlock).getRawValuesOffset();
+            for (int i = 0; i < positionCount; i++) {
+                values[i] = rawValues[rawValuesOffset + positions[i]];
+            }
+        }
+        else {
+            for (int i = 0; i < positionCount; i++) {
+                values[i] = type.getLong(loadedBlock, positions[i]);
+            }
+        }
+        return positionCount;
+    }
+
+    private abstract static class ColumnFilter
+    {
+        private final int channel;
+        protected final Type type;
+
+        protected ColumnFilter(int channel, Type type)
+        {
+            this.channel = channel;
+            this.type = requireNonNull(type, "type is null");
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        /**
+         * Removes the positions not matching this filter from the first {@code positionCount}
+         * entries of {@code positions} and returns the number of positions left.
+         */
+        public abstract int filter(Block block, int[] positions, int positionCount);
+    }
+
+    private abstract static class LongColumnFilter
+            extends ColumnFilter
+    {
+        private final Optional<Arithmetic> arithmetic;
+
+        protected LongColumnFilter(int channel, Type type, Optional<Arithmetic> arithmetic)
+        {
+            super(channel, type);
+            this.arithmetic = requireNonNull(arithmetic, "arithmetic is null");
+        }
+
+        @Override
+        public final int filter(Block block, int[] positions, int positionCount)
+        {
+            long[] values = new long[positionCount];
+            int valueCount = readNonNullValues(block, type, positions, positionCount, values);
+            if (arithmetic.isPresent()) {
+                arithmetic.get().apply(values, valueCount);
+            }
+            return filter(values, positions, valueCount);
+        }
+
+        /**
+         * Removes the positions whose values do not match this filter from the first
+         * {@code positionCount} entries of {@code positions}, where {@code values} holds
+         * the value at each of these positions, and returns the number of positions left.
+         */
+        protected abstract int filter(long[] values, int[] positions, int positionCount);
+
+        protected String getArithmeticDescription()
+        {
+            return arithmetic.map(Arithmetic::toString).orElse(null);
+        }
+    }
+
+    private static class RangeFilter
+            extends LongColumnFilter
+    {
+        private final long min;
+        private final long max;
+
+        public RangeFilter(int channel, Type type, Optional<Arithmetic> arithmetic, long min, long max)
+        {
+            super(channel, type, arithmetic);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        protected int filter(long[] values, int[] positions, int positionCount)
+        {
+            int selectedCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                long value = values[i];
+                // always store the position, and only advance past it when it matches, to avoid a branch
+                positions[selectedCount] = positions[i];
+                selectedCount += (value >= min & value <= max) ? 1 : 0;
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .omitNullValues()
+                    .add("channel", getChannel())
+                    .add("arithmetic", getArithmeticDescription())
+                    .add("min", min)
+                    .add("max", max)
+                    .toString();
+        }
+    }
+
+    private static class NotEqualFilter
+            extends LongColumnFilter
+    {
+        private final long value;
+
+        public NotEqualFilter(int channel, Type type, Optional<Arithmetic> arithmetic, long value)
+        {
+            super(channel, type, arithmetic);
+            this.value = value;
+        }
+
+        @Override
+        protected int filter(long[] values, int[] positions, int positionCount)
+        {
+            int selectedCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                positions[selectedCount] = positions[i];
+                selectedCount += (values[i] != value) ? 1 : 0;
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .omitNullValues()
+                    .add("channel", getChannel())
+                    .add("arithmetic", getArithmeticDescription())
+                    .add("value", value)
+                    .toString();
+        }
+    }
+
+    private static class InFilter
+            extends LongColumnFilter
+    {
+        private final LongOpenHashSet values;
+
+        public InFilter(int channel, Type type, Optional<Arithmetic> arithmetic, LongOpenHashSet values)
+        {
+            super(channel, type, arithmetic);
+            this.values = requireNonNull(values, "values is null");
+        }
+
+        @Override
+        protected int filter(long[] values, int[] positions, int positionCount)
+        {
+            int selectedCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                if (this.values.contains(values[i])) {
+                    positions[selectedCount] = positions[i];
+                    selectedCount++;
+                }
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .omitNullValues()
+                    .add("channel", getChannel())
+                    .add("arithmetic", getArithmeticDescription())
+                    .add("values", values)
+                    .toString();
+        }
+    }
+
+    private static class SliceEqualFilter
+            extends ColumnFilter
+    {
+        private final Slice value;
+
+        public SliceEqualFilter(int channel, Type type, Slice value)
+        {
+            super(channel, type);
+            this.value = requireNonNull(value, "value is null");
+        }
+
+        @Override
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            int length = value.length();
+            int selectedCount = 0;
+            boolean mayHaveNull = block.mayHaveNull();
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                if ((!mayHaveNull || !block.isNull(position)) && block.getSliceLength(position) == length && block.bytesEqual(position, 0, value, 0, length)) {
+                    positions[selectedCount] = position;
+                    selectedCount++;
+                }
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("channel", getChannel())
+                    .add("value", value.toStringUtf8())
+                    .toString();
+        }
+    }
+
+    private static class SliceNotEqualFilter
+            extends ColumnFilter
+    {
+        private final Slice value;
+
+        public SliceNotEqualFilter(int channel, Type type, Slice value)
+        {
+            super(channel, type);
+            this.value = requireNonNull(value, "value is null");
+        }
+
+        @Override
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            int length = value.length();
+            int selectedCount = 0;
+            boolean mayHaveNull = block.mayHaveNull();
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                if ((!mayHaveNull || !block.isNull(position)) && (block.getSliceLength(position) != length || !block.bytesEqual(position, 0, value, 0, length))) {
+                    positions[selectedCount] = position;
+                    selectedCount++;
+                }
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("channel", getChannel())
+                    .add("value", value.toStringUtf8())
+                    .toString();
+        }
+    }
+
+    private static class SliceRangeFilter
+            extends ColumnFilter
+    {
+        @Nullable
+        private final Slice min;
+        private final boolean minInclusive;
+        @Nullable
+        private final Slice max;
+        private final boolean maxInclusive;
+
+        public SliceRangeFilter(int channel, Type type, @Nullable Slice min, boolean minInclusive, @Nullable Slice max, boolean maxInclusive)
+        {
+            super(channel, type);
+            this.min = min;
+            this.minInclusive = minInclusive;
+            this.max = max;
+            this.maxInclusive = maxInclusive;
+        }
+
+        @Override
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            int selectedCount = 0;
+            boolean mayHaveNull = block.mayHaveNull();
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                if ((!mayHaveNull || !block.isNull(position)) && isInRange(block, position)) {
+                    positions[selectedCount] = position;
+                    selectedCount++;
+                }
+            }
+            return selectedCount;
+        }
+
+        private boolean isInRange(Block block, int position)
+        {
+            // varchar values are ordered by their bytes
+            int length = block.getSliceLength(position);
+            if (min != null) {
+                int comparison = block.bytesCompare(position, 0, length, min, 0, min.length());
+                if (comparison < 0 || (comparison == 0 && !minInclusive)) {
+                    return false;
+                }
+            }
+            if (max != null) {
+                int comparison = block.bytesCompare(position, 0, length, max, 0, max.length());
+                if (comparison > 0 || (comparison == 0 && !maxInclusive)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .omitNullValues()
+                    .add("channel", getChannel())
+                    .add("min", min == null ? null : min.toStringUtf8())
+                    .add("minInclusive", minInclusive)
+                    .add("max", max == null ? null : max.toStringUtf8())
+                    .add("maxInclusive", maxInclusive)
+                    .toString();
+        }
+    }
+
+    private static class SliceInFilter
+            extends ColumnFilter
+    {
+        private final Set<Slice> values;
+
+        public SliceInFilter(int channel, Type type, Set<Slice> values)
+        {
+            super(channel, type);
+            this.values = ImmutableSet.copyOf(requireNonNull(values, "values is null"));
+        }
+
+        @Override
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            int selectedCount = 0;
+            boolean mayHaveNull = block.mayHaveNull();
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                // the slice is a view of the block data, so no bytes are copied
+                if ((!mayHaveNull || !block.isNull(position)) && values.contains(block.getSlice(position, 0, block.getSliceLength(position)))) {
+                    positions[selectedCount] = position;
+                    selectedCount++;
+                }
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("channel", getChannel())
+                    .add("values", values.stream().map(Slice::toStringUtf8).collect(toImmutableList()))
+                    .toString();
+        }
+    }
+
+    /**
+     * Addition, subtraction or multiplication of an integral column and a constant, failing
+     * on overflow of the column type like the corresponding operators.
+     */
+    private static class Arithmetic
+    {
+        private final OperatorType operator;
+        private final Type type;
+        private final long constant;
+        private final boolean constantOnLeft;
+        private final long minValue;
+        private final long maxValue;
+
+        public Arithmetic(OperatorType operator, Type type, long constant, boolean constantOnLeft)
+        {
+            this.operator = requireNonNull(operator, "operator is null");
+            this.type = requireNonNull(type, "type is null");
+            this.constant = constant;
+            this.constantOnLeft = constantOnLeft;
+            if (type.equals(TINYINT)) {
+                minValue = Byte.MIN_VALUE;
+                maxValue = Byte.MAX_VALUE;
+            }
+            else if (type.equals(SMALLINT)) {
+                minValue = Short.MIN_VALUE;
+                maxValue = Short.MAX_VALUE;
+            }
+            else if (type.equals(INTEGER)) {
+                minValue = Integer.MIN_VALUE;
+                maxValue = Integer.MAX_VALUE;
+            }
+            else {
+                minValue = Long.MIN_VALUE;
+                maxValue = Long.MAX_VALUE;
+            }
+        }
+
+        public void apply(long[] values, int valueCount)
+        {
+            for (int i = 0; i < valueCount; i++) {
+                values[i] = apply(values[i]);
+            }
+        }
+
+        private long apply(long value)
+        {
+            long left = constantOnLeft ? constant : value;
+            long right = constantOnLeft ? value : constant;
+            try {
+                long result;
+                switch (operator) {
+                    case ADD:
+                        result = addExact(left, right);
+                        break;
+                    case SUBTRACT:
+                        result = subtractExact(left, right);
+                        break;
+                    case MULTIPLY:
+                        result = multiplyExact(left, right);
+                        break;
+                    default:
+                        throw new UnsupportedOperationException("Unsupported operator: " + operator);
+                }
+                if (result < minValue || result > maxValue) {
+                    throw new ArithmeticException();
+                }
+                return result;
+            }
+            catch (ArithmeticException e) {
+                throw new PrestoException(NUMERIC_VALUE_OUT_OF_RANGE, format("%s %s overflow: %s %s %s", type.getDisplayName(), getOperationName(), left, operator.getOperator(), right), e);
+            }
+        }
+
+        private String getOperationName()
+        {
+            switch (operator) {
+                case ADD:
+                    return "addition";
+                case SUBTRACT:
+                    return "subtraction";
+                default:
+                    return "multiplication";
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            if (constantOnLeft) {
+                return constant + " " + operator.getOperator() + " value";
+            }
+            return "value " + operator.getOperator() + " " + constant;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server;
+
+import io.airlift.discovery.client.ServiceDescriptor;
+import io.airlift.discovery.client.ServiceSelector;
+import io.airlift.discovery.client.ServiceType;
+import io.prestosql.operator.StreamingExchangeLocator;
+import io.prestosql.spi.HostAddress;
+
+import javax.inject.Inject;
+
+import java.net.URI;
+import java.util.Optional;
+
+import static io.prestosql.server.StreamingExchangeServer.STREAMING_EXCHANGE_PORT_PROPERTY;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Looks up the port of the streaming exchange server of a node in the announcement of the node.
+ */
+public class DiscoveryStreamingExchangeLocator
+        implements StreamingExchangeLocator
+{
+    private final ServiceSelector serviceSelector;
+
+    @Inject
+    public DiscoveryStreamingExchangeLocator(@ServiceType("presto") ServiceSelector serviceSelector)
+    {
+        this.serviceSelector = requireNonNull(serviceSelector, "serviceSelector is null");
+    }
+
+    @Override
+    public Optional<HostAddress> getStreamingAddress(URI location)
+    {
+        for (ServiceDescriptor descriptor : serviceSelector.selectAllServices()) {
+            String http = descriptor.getProperties().get("http");
+            String port = descriptor.getProperties().get(STREAMING_EXCHANGE_PORT_PROPERTY);
+            if (http == null || port == null) {
+                continue;
+            }
+            URI httpUri = URI.create(http);
+            if (location.getHost().equalsIgnoreCase(httpUri.getHost()) && httpUri.getPort() == location.getPort()) {
+                return Optional.of(HostAddress.fromParts(location.getHost(), Integer.parseInt(port)));
+            }
+        }
+        // the node may have announced its port after the last refresh
+        serviceSelector.refresh();
+        return Optional.empty();
+    }
+}
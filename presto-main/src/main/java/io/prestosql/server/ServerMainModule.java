@@ -87,6 +87,7 @@ import io.prestosql.operator.ForExchange;
 import io.prestosql.operator.LookupJoinOperators;
 import io.prestosql.operator.OperatorStats;
 import io.prestosql.operator.PagesIndex;
+import io.prestosql.operator.StreamingExchangeLocator;
 import io.prestosql.operator.index.IndexJoinLookupStats;
 import io.prestosql.server.remotetask.HttpLocationFactory;
 import io.prestosql.spi.PageIndexerFactory;
@@ -322,6 +323,8 @@ public class ServerMainModule
         configBinder(binder).bindConfig(ExchangeClientConfig.class);
         binder.bind(ExchangeExecutionMBean.class).in(Scopes.SINGLETON);
         newExporter(binder).export(ExchangeExecutionMBean.class).withGeneratedName();
+        binder.bind(StreamingExchangeServer.class).in(Scopes.SINGLETON);
+        binder.bind(StreamingExchangeLocator.class).to(DiscoveryStreamingExchangeLocator.class).in(Scopes.SINGLETON);
 
         // execution
         binder.bind(LocationFactory.class).to(HttpLocationFactory.class).in(Scopes.SINGLETON);
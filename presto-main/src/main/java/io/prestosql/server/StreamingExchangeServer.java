@@ -0,0 +1,468 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.discovery.client.Announcer;
+import io.airlift.discovery.client.ServiceAnnouncement;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.TaskManager;
+import io.prestosql.execution.buffer.BufferResult;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.operator.ExchangeClientConfig;
+import io.prestosql.operator.StreamingExchangeProtocol.Request;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.addTimeout;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.discovery.client.ServiceAnnouncement.serviceAnnouncement;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.operator.ExchangeClientConfig.ExchangeTransport.STREAMING;
+import static io.prestosql.operator.StreamingExchangeProtocol.CHALLENGE_RESPONSE_SIZE;
+import static io.prestosql.operator.StreamingExchangeProtocol.MAX_REQUEST_SIZE;
+import static io.prestosql.operator.StreamingExchangeProtocol.computeChallengeResponse;
+import static io.prestosql.operator.StreamingExchangeProtocol.createChallenge;
+import static io.prestosql.operator.StreamingExchangeProtocol.decodeRequest;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeAbortResults;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeError;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeResults;
+import static io.prestosql.server.TaskResource.DEFAULT_MAX_WAIT_TIME;
+import static io.prestosql.server.TaskResource.randomizeWaitTime;
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+
+/**
+ * Serves the results of the output buffers of the tasks on this node to the streaming exchange
+ * transport. All connections are served by a single selector thread. A results request does not
+ * hold on to a thread while it waits for the output buffer: the response is queued for the selector
+ * thread when the results are available, or when the request times out like in the results resource.
+ * <p>
+ * The connections are neither encrypted nor authenticated with the internal communication settings,
+ * so the server refuses to start when internal HTTPS or Kerberos is enabled. Connections are only
+ * authenticated when the cluster has a streaming exchange shared secret.
+ */
+public class StreamingExchangeServer
+{
+    public static final String STREAMING_EXCHANGE_PORT_PROPERTY = "exchange-streaming-port";
+
+    private static final Logger log = Logger.get(StreamingExchangeServer.class);
+
+    private final TaskManager taskManager;
+    private final Announcer announcer;
+    private final boolean enabled;
+    private final int port;
+    private final Optional<String> sharedSecret;
+    private final ScheduledExecutorService timeoutExecutor;
+    private final ExecutorService selectorExecutor = newSingleThreadExecutor(daemonThreadsNamed("streaming-exchange-server-%s"));
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+
+    @GuardedBy("this")
+    private Selector selector;
+    @GuardedBy("this")
+    private ServerSocketChannel serverChannel;
+
+    @Inject
+    public StreamingExchangeServer(
+            TaskManager taskManager,
+            Announcer announcer,
+            ExchangeClientConfig config,
+            InternalCommunicationConfig internalCommunicationConfig,
+            @ForAsyncHttp ScheduledExecutorService timeoutExecutor)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.announcer = requireNonNull(announcer, "announcer is null");
+        requireNonNull(config, "config is null");
+        this.enabled = config.getTransport() == STREAMING;
+        this.port = config.getStreamingPort();
+        this.sharedSecret = requireNonNull(config.getStreamingSharedSecret(), "sharedSecret is null");
+        this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
+
+        requireNonNull(internalCommunicationConfig, "internalCommunicationConfig is null");
+        checkArgument(
+                !enabled || !(internalCommunicationConfig.isHttpsRequired() || internalCommunicationConfig.isKerberosEnabled()),
+                "exchange.transport=STREAMING is not supported with internal HTTPS or Kerberos authentication");
+    }
+
+    @PostConstruct
+    public synchronized void start()
+            throws IOException
+    {
+        if (!enabled || serverChannel != null) {
+            return;
+        }
+        selector = Selector.open();
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            channel.register(selector, OP_ACCEPT);
+        }
+        catch (IOException e) {
+            channel.close();
+            selector.close();
+            throw e;
+        }
+        serverChannel = channel;
+        int boundPort = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        announcePort(boundPort);
+
+        Selector selector = this.selector;
+        selectorExecutor.execute(() -> run(selector, channel));
+        log.info("Streaming exchange server listening on port %s", boundPort);
+    }
+
+    @PreDestroy
+    public synchronized void stop()
+    {
+        selectorExecutor.shutdownNow();
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    // exchange clients look up the port of the server of a node in its announcement
+    private void announcePort(int boundPort)
+    {
+        for (ServiceAnnouncement announcement : announcer.getServiceAnnouncements()) {
+            if (announcement.getType().equals("presto")) {
+                Map<String, String> properties = new LinkedHashMap<>(announcement.getProperties());
+                properties.put(STREAMING_EXCHANGE_PORT_PROPERTY, String.valueOf(boundPort));
+                announcer.removeServiceAnnouncement(announcement.getId());
+                announcer.addServiceAnnouncement(serviceAnnouncement(announcement.getType()).addProperties(properties).build());
+                return;
+            }
+        }
+        throw new IllegalStateException("Presto announcement not found");
+    }
+
+    private void run(Selector selector, ServerSocketChannel serverChannel)
+    {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select();
+                for (Runnable task = selectorTasks.poll(); task != null; task = selectorTasks.poll()) {
+                    task.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(selector, serverChannel);
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    }
+                    catch (IOException | RuntimeException e) {
+                        // the client went away or broke the protocol, and will retry the request on another connection
+                        log.debug(e, "Streaming exchange connection failed");
+                        connection.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        catch (IOException e) {
+            log.error(e, "Streaming exchange server failed");
+        }
+        finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept(Selector selector, ServerSocketChannel serverChannel)
+    {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to accept streaming exchange connection");
+            return;
+        }
+
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.start(channel.register(selector, 0, connection));
+        }
+        catch (IOException e) {
+            log.debug(e, "Failed to set up streaming exchange connection");
+            closeQuietly(channel);
+        }
+    }
+
+    private void runOnSelector(Runnable task)
+    {
+        selectorTasks.add(task);
+        synchronized (this) {
+            if (selector != null) {
+                selector.wakeup();
+            }
+        }
+    }
+
+    private ListenableFuture<BufferResult> getResults(Request request)
+    {
+        TaskId taskId = TaskId.valueOf(request.getTaskId());
+        ListenableFuture<BufferResult> bufferResultFuture = taskManager.getTaskResults(
+                taskId,
+                OutputBufferId.fromString(request.getBufferId()),
+                request.getToken(),
+                new DataSize(request.getMaxSizeInBytes(), BYTE));
+        return addTimeout(
+                bufferResultFuture,
+                () -> BufferResult.emptyResults(taskManager.getTaskInstanceId(taskId), request.getToken(), false),
+                randomizeWaitTime(DEFAULT_MAX_WAIT_TIME),
+                timeoutExecutor);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable)
+    {
+        try {
+            closeable.close();
+        }
+        catch (Exception e) {
+            // ignored
+        }
+    }
+
+    /**
+     * State of a connection, only accessed by the selector thread. The connection handles one
+     * request at a time: it stops reading while the response to a request is pending.
+     */
+    private class Connection
+    {
+        private final SocketChannel channel;
+        private final ByteBuffer input = ByteBuffer.allocate(MAX_REQUEST_SIZE);
+        private SelectionKey key;
+        private Optional<byte[]> expectedChallengeResponse = Optional.empty();
+        private boolean responsePending;
+        private ByteBuffer[] output;
+
+        public Connection(SocketChannel channel)
+        {
+            this.channel = requireNonNull(channel, "channel is null");
+        }
+
+        public void start(SelectionKey key)
+                throws IOException
+        {
+            this.key = key;
+            if (sharedSecret.isPresent()) {
+                byte[] challenge = createChallenge();
+                expectedChallengeResponse = Optional.of(computeChallengeResponse(sharedSecret.get(), challenge));
+                send(new ByteBuffer[] {ByteBuffer.wrap(challenge)});
+            }
+            updateInterest();
+        }
+
+        public void read()
+                throws IOException
+        {
+            if (channel.read(input) < 0) {
+                close();
+                return;
+            }
+            processInput();
+        }
+
+        public void write()
+                throws IOException
+        {
+            channel.write(output);
+            if (!output[output.length - 1].hasRemaining()) {
+                output = null;
+                processInput();
+            }
+            updateInterest();
+        }
+
+        public void close()
+        {
+            key.cancel();
+            closeQuietly(channel);
+        }
+
+        private void processInput()
+                throws IOException
+        {
+            input.flip();
+            try {
+                while (!responsePending && output == null) {
+                    if (expectedChallengeResponse.isPresent()) {
+                        if (input.remaining() < CHALLENGE_RESPONSE_SIZE) {
+                            break;
+                        }
+                        byte[] challengeResponse = new byte[CHALLENGE_RESPONSE_SIZE];
+                        input.get(challengeResponse);
+                        if (!MessageDigest.isEqual(challengeResponse, expectedChallengeResponse.get())) {
+                            throw new IOException("Streaming exchange client failed to authenticate: " + channel.getRemoteAddress());
+                        }
+                        expectedChallengeResponse = Optional.empty();
+                    }
+
+                    Optional<Request> request = decodeRequest(input);
+                    if (!request.isPresent()) {
+                        break;
+                    }
+                    handleRequest(request.get());
+                }
+            }
+            finally {
+                input.compact();
+            }
+            updateInterest();
+        }
+
+        private void handleRequest(Request request)
+        {
+            switch (request.getType()) {
+                case GET_RESULTS:
+                    ListenableFuture<BufferResult> resultFuture;
+                    try {
+                        resultFuture = getResults(request);
+                    }
+                    catch (RuntimeException e) {
+                        sendError(e);
+                        return;
+                    }
+                    responsePending = true;
+                    addCallback(resultFuture, new FutureCallback<BufferResult>()
+                    {
+                        @Override
+                        public void onSuccess(BufferResult result)
+                        {
+                            ByteBuffer[] response = encodeResults(result);
+                            runOnSelector(() -> respond(response));
+                        }
+
+                        @Override
+                        public void onFailure(Throwable throwable)
+                        {
+                            ByteBuffer response = encodeError(firstNonNull(throwable.getMessage(), throwable.toString()));
+                            runOnSelector(() -> respond(new ByteBuffer[] {response}));
+                        }
+                    }, directExecutor());
+                    return;
+                case ACKNOWLEDGE_RESULTS:
+                    try {
+                        taskManager.acknowledgeTaskResults(TaskId.valueOf(request.getTaskId()), OutputBufferId.fromString(request.getBufferId()), request.getToken());
+                    }
+                    catch (RuntimeException e) {
+                        // acknowledgements have no response, and the next request acknowledges the token again
+                        log.debug(e, "Failed to acknowledge results: %s", request);
+                    }
+                    return;
+                case ABORT_RESULTS:
+                    try {
+                        taskManager.abortTaskResults(TaskId.valueOf(request.getTaskId()), OutputBufferId.fromString(request.getBufferId()));
+                    }
+                    catch (RuntimeException e) {
+                        sendError(e);
+                        return;
+                    }
+                    send(new ByteBuffer[] {encodeAbortResults()});
+                    return;
+            }
+            throw new IllegalArgumentException("Unsupported streaming exchange request: " + request);
+        }
+
+        private void sendError(RuntimeException e)
+        {
+            send(new ByteBuffer[] {encodeError(firstNonNull(e.getMessage(), e.toString()))});
+        }
+
+        private void send(ByteBuffer[] buffers)
+        {
+            output = buffers;
+        }
+
+        private void respond(ByteBuffer[] buffers)
+        {
+            if (!key.isValid()) {
+                return;
+            }
+            responsePending = false;
+            send(buffers);
+            try {
+                write();
+            }
+            catch (IOException | RuntimeException e) {
+                log.debug(e, "Streaming exchange connection failed");
+                close();
+            }
+        }
+
+        private void updateInterest()
+        {
+            if (!key.isValid()) {
+                return;
+            }
+            if (output != null) {
+                key.interestOps(OP_WRITE);
+            }
+            else if (responsePending) {
+                key.interestOps(0);
+            }
+            else {
+                key.interestOps(OP_READ);
+            }
+        }
+    }
+}
@@ -84,7 +84,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 public class TaskResource
 {
     private static final Duration ADDITIONAL_WAIT_TIME = new Duration(5, SECONDS);
-    private static final Duration DEFAULT_MAX_WAIT_TIME = new Duration(2, SECONDS);
+    static final Duration DEFAULT_MAX_WAIT_TIME = new Duration(2, SECONDS);
 
     private final TaskManager taskManager;
     private final SessionPropertyManager sessionPropertyManager;
@@ -338,7 +338,7 @@ public class TaskResource
         return uriInfo.getQueryParameters().containsKey("summarize");
     }
 
-    private static Duration randomizeWaitTime(Duration waitTime)
+    static Duration randomizeWaitTime(Duration waitTime)
     {
         // Randomize in [T/2, T], so wait is not near zero and the client-supplied max wait time is respected
         long halfWaitMillis = waitTime.toMillis() / 2;
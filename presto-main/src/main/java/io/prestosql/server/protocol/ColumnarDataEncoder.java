@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.protocol;
+
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.prestosql.client.ColumnarData;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.StandardTypes;
+import io.prestosql.spi.type.Type;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.client.ColumnarData.HEADER_SIZE;
+import static io.prestosql.client.ColumnarData.LZ4;
+import static io.prestosql.client.ColumnarData.UNCOMPRESSED;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Encodes query results as {@link ColumnarData}, with the columns of all pages of a response
+ * compressed together.
+ */
+final class ColumnarDataEncoder
+{
+    private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+
+    private ColumnarDataEncoder() {}
+
+    public static byte[] encode(List<Type> types, List<Page> pages)
+    {
+        int positionCount = 0;
+        long sizeInBytes = 0;
+        for (Page page : pages) {
+            checkArgument(page.getChannelCount() == types.size(), "page has %s channels, expected %s", page.getChannelCount(), types.size());
+            positionCount += page.getPositionCount();
+            sizeInBytes += page.getSizeInBytes();
+        }
+
+        SliceOutput output = new DynamicSliceOutput(toIntExact(sizeInBytes + positionCount * types.size()));
+        for (int channel = 0; channel < types.size(); channel++) {
+            writeColumn(output, types.get(channel), channel, pages);
+        }
+        Slice columns = output.slice();
+
+        Lz4Compressor compressor = new Lz4Compressor();
+        int maxCompressedLength = compressor.maxCompressedLength(columns.length());
+        byte[] compressed = new byte[HEADER_SIZE + maxCompressedLength];
+        int compressedLength = compressor.compress(columns.getBytes(), 0, columns.length(), compressed, HEADER_SIZE, maxCompressedLength);
+
+        if (((1.0 * compressedLength) / columns.length()) > MINIMUM_COMPRESSION_RATIO) {
+            SliceOutput data = new DynamicSliceOutput(HEADER_SIZE + columns.length());
+            writeHeader(data, positionCount, UNCOMPRESSED, columns.length(), columns.length());
+            data.writeBytes(columns);
+            return data.slice().getBytes();
+        }
+
+        SliceOutput data = new DynamicSliceOutput(HEADER_SIZE + compressedLength);
+        writeHeader(data, positionCount, LZ4, columns.length(), compressedLength);
+        data.writeBytes(compressed, HEADER_SIZE, compressedLength);
+        return data.slice().getBytes();
+    }
+
+    private static void writeHeader(SliceOutput output, int positionCount, byte compression, int uncompressedSize, int size)
+    {
+        output.writeInt(positionCount);
+        output.writeByte(compression);
+        output.writeInt(uncompressedSize);
+        output.writeInt(size);
+    }
+
+    private static void writeColumn(SliceOutput output, Type type, int channel, List<Page> pages)
+    {
+        boolean mayHaveNull = false;
+        for (Page page : pages) {
+            mayHaveNull |= page.getBlock(channel).mayHaveNull();
+        }
+        output.writeBoolean(mayHaveNull);
+        if (mayHaveNull) {
+            for (Page page : pages) {
+                Block block = page.getBlock(channel);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    output.writeBoolean(block.isNull(position));
+                }
+            }
+        }
+
+        String base = type.getTypeSignature().getBase();
+        if (base.equals(StandardTypes.VARCHAR) || base.equals(StandardTypes.VARBINARY)) {
+            for (Page page : pages) {
+                Block block = page.getBlock(channel);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (!block.isNull(position)) {
+                        output.writeInt(block.getSliceLength(position));
+                    }
+                }
+            }
+        }
+
+        for (Page page : pages) {
+            Block block = page.getBlock(channel);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (!block.isNull(position)) {
+                    writeValue(output, type, base, block, position);
+                }
+            }
+        }
+    }
+
+    private static void writeValue(SliceOutput output, Type type, String base, Block block, int position)
+    {
+        switch (base) {
+            case StandardTypes.BOOLEAN:
+                output.writeBoolean(type.getBoolean(block, position));
+                return;
+            case StandardTypes.TINYINT:
+                output.writeByte((int) type.getLong(block, position));
+                return;
+            case StandardTypes.SMALLINT:
+                output.writeShort((int) type.getLong(block, position));
+                return;
+            case StandardTypes.INTEGER:
+            case StandardTypes.REAL:
+            case StandardTypes.DATE:
+                output.writeInt(toIntExact(type.getLong(block, position)));
+                return;
+            case StandardTypes.BIGINT:
+                output.writeLong(type.getLong(block, position));
+                return;
+            case StandardTypes.DOUBLE:
+                output.writeDouble(type.getDouble(block, position));
+                return;
+            case StandardTypes.VARCHAR:
+            case StandardTypes.VARBINARY:
+                output.writeBytes(type.getSlice(block, position));
+                return;
+            default:
+                throw new IllegalArgumentException("Unsupported type for columnar data: " + type);
+        }
+    }
+}
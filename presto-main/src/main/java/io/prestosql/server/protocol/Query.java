@@ -26,6 +26,7 @@ import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.prestosql.Session;
+import io.prestosql.client.ClientCapabilities;
 import io.prestosql.client.ClientTypeSignature;
 import io.prestosql.client.ClientTypeSignatureParameter;
 import io.prestosql.client.Column;
@@ -55,6 +56,7 @@ import io.prestosql.spi.Page;
 import io.prestosql.spi.PrestoWarning;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.WarningCode;
+import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockEncodingSerde;
 import io.prestosql.spi.security.SelectedRole;
 import io.prestosql.spi.type.BooleanType;
@@ -71,8 +73,8 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -91,8 +93,10 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static io.airlift.concurrent.MoreFutures.addTimeout;
 import static io.prestosql.SystemSessionProperties.isExchangeCompressionEnabled;
+import static io.prestosql.client.ColumnarData.isSupportedType;
 import static io.prestosql.execution.QueryState.FAILED;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.util.Failures.toFailure;
 import static io.prestosql.util.MoreLists.mappedCopy;
 import static java.lang.String.format;
@@ -399,6 +403,7 @@ class Query
                     createNextResultsUri(scheme, uriInfo),
                     null,
                     null,
+                    null,
                     StatementStats.builder()
                             .setState(QueryState.QUEUED.toString())
                             .setQueued(true)
@@ -423,11 +428,11 @@ class Query
         // client while holding the lock because the query may transition to the finished state when the
         // last page is removed.  If another thread observes this state before the response is cached
         // the pages will be lost.
+        List<Page> pages = new ArrayList<>();
         Iterable<List<Object>> data = null;
+        byte[] columnarData = null;
         try {
-            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
             long bytes = 0;
-            long rows = 0;
             long targetResultBytes = targetResultSize.toBytes();
             while (bytes < targetResultBytes) {
                 SerializedPage serializedPage = exchangeClient.pollPage();
@@ -437,12 +442,22 @@ class Query
 
                 Page page = serde.deserialize(serializedPage);
                 bytes += page.getLogicalSizeInBytes();
-                rows += page.getPositionCount();
-                pages.add(new RowIterable(session.toConnectorSession(), types, page));
+                if (page.getPositionCount() > 0) {
+                    pages.add(page);
+                }
             }
-            if (rows > 0) {
-                // client implementations do not properly handle empty list of data
-                data = Iterables.concat(pages.build());
+            // client implementations do not properly handle empty list of data
+            if (!pages.isEmpty()) {
+                if (isColumnarDataEnabled()) {
+                    columnarData = ColumnarDataEncoder.encode(types, pages);
+                }
+                else {
+                    ImmutableList.Builder<RowIterable> rows = ImmutableList.builder();
+                    for (Page page : pages) {
+                        rows.add(new RowIterable(session.toConnectorSession(), types, page));
+                    }
+                    data = Iterables.concat(rows.build());
+                }
             }
         }
         catch (Throwable cause) {
@@ -456,14 +471,11 @@ class Query
 
         // TODO: figure out a better way to do this
         // grab the update count for non-queries
-        if ((data != null) && (queryInfo.getUpdateType() != null) && (updateCount == null) &&
+        if (!pages.isEmpty() && (queryInfo.getUpdateType() != null) && (updateCount == null) &&
                 (columns.size() == 1) && (columns.get(0).getType().equals(StandardTypes.BIGINT))) {
-            Iterator<List<Object>> iterator = data.iterator();
-            if (iterator.hasNext()) {
-                Number number = (Number) iterator.next().get(0);
-                if (number != null) {
-                    updateCount = number.longValue();
-                }
+            Block block = pages.get(0).getBlock(0);
+            if (!block.isNull(0)) {
+                updateCount = BIGINT.getLong(block, 0);
             }
         }
 
@@ -473,6 +485,7 @@ class Query
         if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent()) {
             columns = ImmutableList.of(createColumn("result", BooleanType.BOOLEAN));
             data = ImmutableSet.of(ImmutableList.of(true));
+            columnarData = null;
         }
 
         // only return a next if
@@ -513,6 +526,7 @@ class Query
                 nextResultsUri,
                 columns,
                 data,
+                columnarData,
                 toStatementStats(queryInfo),
                 toQueryError(queryInfo),
                 mappedCopy(queryInfo.getWarnings(), Query::toClientWarning),
@@ -523,6 +537,12 @@ class Query
         return queryResults;
     }
 
+    private synchronized boolean isColumnarDataEnabled()
+    {
+        return session.getClientCapabilities().contains(ClientCapabilities.COLUMNAR_DATA.toString()) &&
+                columns.stream().allMatch(column -> isSupportedType(column.getTypeSignature()));
+    }
+
     private synchronized void cacheLastResults(QueryResults queryResults)
     {
         // cache the last results
@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spiller;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.PrestoException;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.spi.StandardErrorCode.CORRUPT_PAGE;
+import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static javax.crypto.Cipher.DECRYPT_MODE;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+
+/**
+ * Encrypts spilled data with AES in counter mode. The key is generated for each
+ * spill file and only kept in memory, so the file cannot be read after the spiller
+ * is gone. Each encrypted slice is prefixed with its random initialization vector.
+ */
+@NotThreadSafe
+public class AesSpillCipher
+        implements SpillCipher
+{
+    private static final String ALGORITHM = "AES";
+    private static final String TRANSFORMATION = "AES/CTR/NoPadding";
+    private static final int KEY_BITS = 256;
+    private static final int IV_BYTES = 16;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SecretKey key;
+    private final Cipher cipher;
+
+    public AesSpillCipher()
+    {
+        try {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance(ALGORITHM);
+            keyGenerator.init(KEY_BITS, RANDOM);
+            this.key = keyGenerator.generateKey();
+            this.cipher = Cipher.getInstance(TRANSFORMATION);
+        }
+        catch (GeneralSecurityException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to create spill cipher", e);
+        }
+    }
+
+    @Override
+    public Slice encrypt(Slice data)
+    {
+        byte[] iv = new byte[IV_BYTES];
+        RANDOM.nextBytes(iv);
+
+        byte[] encrypted = new byte[IV_BYTES + data.length()];
+        System.arraycopy(iv, 0, encrypted, 0, IV_BYTES);
+        try {
+            cipher.init(ENCRYPT_MODE, key, new IvParameterSpec(iv));
+            int length = doFinal(data, encrypted, IV_BYTES);
+            checkState(length == data.length(), "Unexpected encrypted length %s for %s bytes", length, data.length());
+        }
+        catch (GeneralSecurityException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to encrypt spilled data", e);
+        }
+        return Slices.wrappedBuffer(encrypted);
+    }
+
+    @Override
+    public Slice decrypt(Slice encryptedData)
+    {
+        if (encryptedData.length() < IV_BYTES) {
+            throw new PrestoException(CORRUPT_PAGE, "Encrypted spilled data is too short");
+        }
+
+        byte[] decrypted = new byte[encryptedData.length() - IV_BYTES];
+        try {
+            cipher.init(DECRYPT_MODE, key, new IvParameterSpec(encryptedData.getBytes(0, IV_BYTES)));
+            doFinal(encryptedData.slice(IV_BYTES, decrypted.length), decrypted, 0);
+        }
+        catch (GeneralSecurityException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to decrypt spilled data", e);
+        }
+        return Slices.wrappedBuffer(decrypted);
+    }
+
+    private int doFinal(Slice input, byte[] output, int outputOffset)
+            throws GeneralSecurityException
+    {
+        return cipher.doFinal(input.getBytes(), 0, input.length(), output, outputOffset);
+    }
+}
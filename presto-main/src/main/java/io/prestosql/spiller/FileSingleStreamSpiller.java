@@ -22,9 +22,11 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.slice.InputStreamSliceInput;
 import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.XxHash64;
 import io.prestosql.execution.buffer.PagesSerde;
-import io.prestosql.execution.buffer.PagesSerdeUtil;
 import io.prestosql.execution.buffer.SerializedPage;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.SpillContext;
@@ -41,12 +43,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkState;
-import static io.prestosql.execution.buffer.PagesSerdeUtil.writeSerializedPage;
+import static io.prestosql.execution.buffer.PageCompression.lookupCodecFromMarker;
+import static io.prestosql.spi.StandardErrorCode.CORRUPT_PAGE;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.prestosql.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_PREFIX;
 import static io.prestosql.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_SUFFIX;
+import static java.lang.System.nanoTime;
 import static java.nio.file.StandardOpenOption.APPEND;
 import static java.util.Objects.requireNonNull;
 
@@ -60,6 +65,8 @@ public class FileSingleStreamSpiller
     private final FileHolder targetFile;
     private final Closer closer = Closer.create();
     private final PagesSerde serde;
+    private final Optional<SpillCipher> spillCipher;
+    private final boolean checksumEnabled;
     private final SpillerStats spillerStats;
     private final SpillContext localSpillContext;
     private final LocalMemoryContext memoryContext;
@@ -72,6 +79,8 @@ public class FileSingleStreamSpiller
 
     public FileSingleStreamSpiller(
             PagesSerde serde,
+            Optional<SpillCipher> spillCipher,
+            boolean checksumEnabled,
             ListeningExecutorService executor,
             Path spillPath,
             SpillerStats spillerStats,
@@ -79,6 +88,8 @@ public class FileSingleStreamSpiller
             LocalMemoryContext memoryContext)
     {
         this.serde = requireNonNull(serde, "serde is null");
+        this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
+        this.checksumEnabled = checksumEnabled;
         this.executor = requireNonNull(executor, "executor is null");
         this.spillerStats = requireNonNull(spillerStats, "spillerStats is null");
         this.localSpillContext = spillContext.newLocalSpillContext();
@@ -137,11 +148,14 @@ public class FileSingleStreamSpiller
             while (pageIterator.hasNext()) {
                 Page page = pageIterator.next();
                 spilledPagesInMemorySize += page.getSizeInBytes();
+                long start = nanoTime();
                 SerializedPage serializedPage = serde.serialize(page);
-                long pageSize = serializedPage.getSizeInBytes();
+                Slice data = encrypt(serializedPage.getSlice());
+                spillerStats.addToTotalSerializationTimeNanos(nanoTime() - start);
+                long pageSize = writeSpilledPage(output, serializedPage, data);
                 localSpillContext.updateBytes(pageSize);
                 spillerStats.addToTotalSpilledBytes(pageSize);
-                writeSerializedPage(output, serializedPage);
+                spillerStats.addToTotalSpilledUncompressedBytes(serializedPage.getUncompressedSizeInBytes());
             }
         }
         catch (UncheckedIOException | IOException e) {
@@ -156,7 +170,7 @@ public class FileSingleStreamSpiller
 
         try {
             InputStream input = closer.register(targetFile.newInputStream());
-            Iterator<Page> pages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, BUFFER_SIZE));
+            Iterator<Page> pages = new SpilledPageReader(new InputStreamSliceInput(input, BUFFER_SIZE));
             return closeWhenExhausted(pages, input);
         }
         catch (IOException e) {
@@ -177,11 +191,70 @@ public class FileSingleStreamSpiller
         }
     }
 
+    /**
+     * Writes the page in the format of {@link io.prestosql.execution.buffer.PagesSerdeUtil#writeSerializedPage},
+     * except that the data may be encrypted and may be followed by its checksum.
+     *
+     * @return the number of bytes written for the page data
+     */
+    private long writeSpilledPage(SliceOutput output, SerializedPage page, Slice data)
+    {
+        output.writeInt(page.getPositionCount());
+        output.writeByte(page.getCompression().getMarker());
+        output.writeInt(page.getUncompressedSizeInBytes());
+        output.writeInt(data.length());
+        output.writeBytes(data);
+        if (!checksumEnabled) {
+            return data.length();
+        }
+        output.writeLong(XxHash64.hash(data));
+        return data.length() + Long.BYTES;
+    }
+
+    private Slice encrypt(Slice data)
+    {
+        return spillCipher.map(cipher -> cipher.encrypt(data)).orElse(data);
+    }
+
+    private Slice decrypt(Slice data)
+    {
+        return spillCipher.map(cipher -> cipher.decrypt(data)).orElse(data);
+    }
+
     private void checkNoSpillInProgress()
     {
         checkState(spillInProgress.isDone(), "spill in progress");
     }
 
+    private class SpilledPageReader
+            extends AbstractIterator<Page>
+    {
+        private final SliceInput input;
+
+        SpilledPageReader(SliceInput input)
+        {
+            this.input = requireNonNull(input, "input is null");
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            if (!input.isReadable()) {
+                return endOfData();
+            }
+
+            int positionCount = input.readInt();
+            byte codecMarker = input.readByte();
+            int uncompressedSizeInBytes = input.readInt();
+            int sizeInBytes = input.readInt();
+            Slice data = input.readSlice(sizeInBytes);
+            if (checksumEnabled && input.readLong() != XxHash64.hash(data)) {
+                throw new PrestoException(CORRUPT_PAGE, "Checksum mismatch in spilled page");
+            }
+            return serde.deserialize(new SerializedPage(decrypt(data), lookupCodecFromMarker(codecMarker), positionCount, uncompressedSizeInBytes));
+        }
+    }
+
     private static <T> Iterator<T> closeWhenExhausted(Iterator<T> iterator, Closeable resource)
     {
         requireNonNull(iterator, "iterator is null");
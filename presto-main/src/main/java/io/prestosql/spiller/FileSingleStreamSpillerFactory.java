@@ -18,7 +18,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
-import io.prestosql.execution.buffer.PagesSerdeFactory;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.SpillContext;
 import io.prestosql.spi.PrestoException;
@@ -34,6 +33,7 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
@@ -58,7 +58,10 @@ public class FileSingleStreamSpillerFactory
     private static final String SPILL_FILE_GLOB = "spill*.bin";
 
     private final ListeningExecutorService executor;
-    private final PagesSerdeFactory serdeFactory;
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final SpillCompressionCodec compressionCodec;
+    private final boolean checksumEnabled;
+    private final boolean encryptionEnabled;
     private final List<Path> spillPaths;
     private final SpillerStats spillerStats;
     private final double maxUsedSpaceThreshold;
@@ -74,7 +77,10 @@ public class FileSingleStreamSpillerFactory
                 blockEncodingSerde,
                 spillerStats,
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillerSpillPaths(),
-                requireNonNull(featuresConfig, "featuresConfig is null").getSpillMaxUsedSpaceThreshold());
+                requireNonNull(featuresConfig, "featuresConfig is null").getSpillMaxUsedSpaceThreshold(),
+                requireNonNull(featuresConfig, "featuresConfig is null").getSpillCompressionCodec(),
+                requireNonNull(featuresConfig, "featuresConfig is null").isSpillChecksumEnabled(),
+                requireNonNull(featuresConfig, "featuresConfig is null").isSpillEncryptionEnabled());
     }
 
     @VisibleForTesting
@@ -85,7 +91,24 @@ public class FileSingleStreamSpillerFactory
             List<Path> spillPaths,
             double maxUsedSpaceThreshold)
     {
-        this.serdeFactory = new PagesSerdeFactory(requireNonNull(blockEncodingSerde, "blockEncodingSerde is null"), false);
+        this(executor, blockEncodingSerde, spillerStats, spillPaths, maxUsedSpaceThreshold, SpillCompressionCodec.NONE, false, false);
+    }
+
+    @VisibleForTesting
+    public FileSingleStreamSpillerFactory(
+            ListeningExecutorService executor,
+            BlockEncodingSerde blockEncodingSerde,
+            SpillerStats spillerStats,
+            List<Path> spillPaths,
+            double maxUsedSpaceThreshold,
+            SpillCompressionCodec compressionCodec,
+            boolean checksumEnabled,
+            boolean encryptionEnabled)
+    {
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        this.checksumEnabled = checksumEnabled;
+        this.encryptionEnabled = encryptionEnabled;
         this.executor = requireNonNull(executor, "executor is null");
         this.spillerStats = requireNonNull(spillerStats, "spillerStats can not be null");
         requireNonNull(spillPaths, "spillPaths is null");
@@ -140,7 +163,17 @@ public class FileSingleStreamSpillerFactory
     @Override
     public SingleStreamSpiller create(List<Type> types, SpillContext spillContext, LocalMemoryContext memoryContext)
     {
-        return new FileSingleStreamSpiller(serdeFactory.createPagesSerde(), executor, getNextSpillPath(), spillerStats, spillContext, memoryContext);
+        // every spill file is encrypted with its own key
+        Optional<SpillCipher> spillCipher = encryptionEnabled ? Optional.of(new AesSpillCipher()) : Optional.empty();
+        return new FileSingleStreamSpiller(
+                compressionCodec.createPagesSerde(blockEncodingSerde),
+                spillCipher,
+                checksumEnabled,
+                executor,
+                getNextSpillPath(),
+                spillerStats,
+                spillContext,
+                memoryContext);
     }
 
     private synchronized Path getNextSpillPath()
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spiller;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.spi.block.BlockEncodingSerde;
+
+import java.util.Optional;
+
+public enum SpillCompressionCodec
+{
+    NONE,
+    LZ4,
+    SNAPPY;
+
+    public PagesSerde createPagesSerde(BlockEncodingSerde blockEncodingSerde)
+    {
+        return new PagesSerde(blockEncodingSerde, createCompressor(), createDecompressor());
+    }
+
+    private Optional<Compressor> createCompressor()
+    {
+        switch (this) {
+            case NONE:
+                return Optional.empty();
+            case LZ4:
+                return Optional.of(new Lz4Compressor());
+            case SNAPPY:
+                return Optional.of(new SnappyCompressor());
+        }
+        throw new UnsupportedOperationException("Unsupported spill compression codec: " + this);
+    }
+
+    private Optional<Decompressor> createDecompressor()
+    {
+        switch (this) {
+            case NONE:
+                return Optional.empty();
+            case LZ4:
+                return Optional.of(new Lz4Decompressor());
+            case SNAPPY:
+                return Optional.of(new SnappyDecompressor());
+        }
+        throw new UnsupportedOperationException("Unsupported spill compression codec: " + this);
+    }
+}
@@ -20,6 +20,8 @@ import java.util.concurrent.atomic.AtomicLong;
 public class SpillerStats
 {
     protected final AtomicLong totalSpilledBytes = new AtomicLong();
+    protected final AtomicLong totalSpilledUncompressedBytes = new AtomicLong();
+    protected final AtomicLong totalSerializationTimeNanos = new AtomicLong();
 
     @Managed
     public long getTotalSpilledBytes()
@@ -31,4 +33,29 @@ public class SpillerStats
     {
         totalSpilledBytes.addAndGet(delta);
     }
+
+    @Managed
+    public long getTotalSpilledUncompressedBytes()
+    {
+        return totalSpilledUncompressedBytes.get();
+    }
+
+    public void addToTotalSpilledUncompressedBytes(long delta)
+    {
+        totalSpilledUncompressedBytes.addAndGet(delta);
+    }
+
+    /**
+     * Time spent serializing spilled pages, including compression and encryption.
+     */
+    @Managed
+    public long getTotalSerializationTimeNanos()
+    {
+        return totalSerializationTimeNanos.get();
+    }
+
+    public void addToTotalSerializationTimeNanos(long delta)
+    {
+        totalSerializationTimeNanos.addAndGet(delta);
+    }
 }
@@ -13,6 +13,7 @@
  */
 package io.prestosql.sql.gen;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -32,6 +33,7 @@ import io.airlift.bytecode.control.ForLoop;
 import io.airlift.bytecode.control.IfStatement;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.operator.Work;
+import io.prestosql.operator.project.ColumnComparisonPageFilter;
 import io.prestosql.operator.project.ConstantPageProjection;
 import io.prestosql.operator.project.GeneratedPageProjection;
 import io.prestosql.operator.project.InputChannels;
@@ -358,6 +360,19 @@ public class PageFunctionCompiler
     }
 
     public Supplier<PageFilter> compileFilter(RowExpression filter, Optional<String> classNameSuffix)
+    {
+        // simple comparisons of columns with constants do not need generated code
+        Optional<PageFilter> columnComparisonFilter = ColumnComparisonPageFilter.tryCreate(filter);
+        if (columnComparisonFilter.isPresent()) {
+            PageFilter pageFilter = columnComparisonFilter.get();
+            return () -> pageFilter;
+        }
+
+        return compileGeneratedFilter(filter, classNameSuffix);
+    }
+
+    @VisibleForTesting
+    Supplier<PageFilter> compileGeneratedFilter(RowExpression filter, Optional<String> classNameSuffix)
     {
         if (filterCache == null) {
             return compileFilterInternal(filter, classNameSuffix);
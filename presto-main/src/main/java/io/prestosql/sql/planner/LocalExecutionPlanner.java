@@ -27,6 +27,9 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 import io.prestosql.Session;
@@ -37,6 +40,8 @@ import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.buffer.OutputBuffer;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
 import io.prestosql.index.IndexManager;
+import io.prestosql.memory.ElasticBufferLimit;
+import io.prestosql.memory.QueryContext;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.Signature;
 import io.prestosql.operator.AggregationOperator.AggregationOperatorFactory;
@@ -44,6 +49,8 @@ import io.prestosql.operator.AssignUniqueIdOperator;
 import io.prestosql.operator.DeleteOperator.DeleteOperatorFactory;
 import io.prestosql.operator.DevNullOperator.DevNullOperatorFactory;
 import io.prestosql.operator.DriverFactory;
+import io.prestosql.operator.DynamicFilterSourceOperator;
+import io.prestosql.operator.DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory;
 import io.prestosql.operator.EnforceSingleRowOperator;
 import io.prestosql.operator.ExchangeClientSupplier;
 import io.prestosql.operator.ExchangeOperator.ExchangeOperatorFactory;
@@ -57,6 +64,7 @@ import io.prestosql.operator.JoinBridgeManager;
 import io.prestosql.operator.JoinOperatorFactory;
 import io.prestosql.operator.JoinOperatorFactory.OuterOperatorFactoryResult;
 import io.prestosql.operator.LimitOperator.LimitOperatorFactory;
+import io.prestosql.operator.LocalDynamicFilter;
 import io.prestosql.operator.LocalPlannerAware;
 import io.prestosql.operator.LookupJoinOperators;
 import io.prestosql.operator.LookupOuterOperator.LookupOuterOperatorFactory;
@@ -71,6 +79,7 @@ import io.prestosql.operator.OrderByOperator.OrderByOperatorFactory;
 import io.prestosql.operator.OutputFactory;
 import io.prestosql.operator.PagesIndex;
 import io.prestosql.operator.PagesSpatialIndexFactory;
+import io.prestosql.operator.PartialAggregationController;
 import io.prestosql.operator.PartitionFunction;
 import io.prestosql.operator.PartitionedLookupSourceFactory;
 import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputFactory;
@@ -83,6 +92,7 @@ import io.prestosql.operator.SourceOperatorFactory;
 import io.prestosql.operator.SpatialIndexBuilderOperator.SpatialIndexBuilderOperatorFactory;
 import io.prestosql.operator.SpatialIndexBuilderOperator.SpatialPredicate;
 import io.prestosql.operator.SpatialJoinOperator.SpatialJoinOperatorFactory;
+import io.prestosql.operator.SpillContext;
 import io.prestosql.operator.StageExecutionDescriptor;
 import io.prestosql.operator.StatisticsWriterOperator.StatisticsWriterOperatorFactory;
 import io.prestosql.operator.StreamingAggregationOperator.StreamingAggregationOperatorFactory;
@@ -121,10 +131,13 @@ import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorIndex;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.RecordSet;
+import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.NullableValue;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.spiller.SingleStreamSpillerFactory;
+import io.prestosql.spiller.Spiller;
 import io.prestosql.spiller.SpillerFactory;
 import io.prestosql.split.MappedRecordSet;
 import io.prestosql.split.PageSinkManager;
@@ -224,14 +237,24 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Range.closedOpen;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.SystemSessionProperties.getAdaptivePartialAggregationMinRows;
+import static io.prestosql.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatioThreshold;
 import static io.prestosql.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
 import static io.prestosql.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static io.prestosql.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
 import static io.prestosql.SystemSessionProperties.getTaskConcurrency;
 import static io.prestosql.SystemSessionProperties.getTaskWriterCount;
+import static io.prestosql.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
+import static io.prestosql.SystemSessionProperties.isEnableDynamicFiltering;
 import static io.prestosql.SystemSessionProperties.isExchangeCompressionEnabled;
+import static io.prestosql.SystemSessionProperties.isOptimizedRepartitioningEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillEnabled;
+import static io.prestosql.SystemSessionProperties.isSpillOrderBy;
+import static io.prestosql.SystemSessionProperties.isSpillWindowOperator;
 import static io.prestosql.execution.warnings.WarningCollector.NOOP;
 import static io.prestosql.metadata.FunctionKind.SCALAR;
 import static io.prestosql.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
@@ -287,6 +310,10 @@ public class LocalExecutionPlanner
 {
     private static final Logger log = Logger.get(LocalExecutionPlanner.class);
 
+    // larger build sides are collected as ranges of the join keys
+    private static final int DYNAMIC_FILTER_MAX_POSITIONS = 10_000;
+    private static final DataSize DYNAMIC_FILTER_MAX_SIZE = new DataSize(1, MEGABYTE);
+
     private final Metadata metadata;
     private final SqlParser sqlParser;
     private final Optional<ExplainAnalyzeContext> explainAnalyzeContext;
@@ -303,6 +330,8 @@ public class LocalExecutionPlanner
     private final DataSize maxPartialAggregationMemorySize;
     private final DataSize maxPagePartitioningBufferSize;
     private final DataSize maxLocalExchangeBufferSize;
+    private final DataSize maxLocalExchangeElasticBufferSize;
+    private final double elasticBufferMemoryThreshold;
     private final SpillerFactory spillerFactory;
     private final SingleStreamSpillerFactory singleStreamSpillerFactory;
     private final PartitioningSpillerFactory partitioningSpillerFactory;
@@ -356,6 +385,8 @@ public class LocalExecutionPlanner
         this.maxPartialAggregationMemorySize = taskManagerConfig.getMaxPartialAggregationMemoryUsage();
         this.maxPagePartitioningBufferSize = taskManagerConfig.getMaxPagePartitioningBufferSize();
         this.maxLocalExchangeBufferSize = taskManagerConfig.getMaxLocalExchangeBufferSize();
+        this.maxLocalExchangeElasticBufferSize = taskManagerConfig.getMaxLocalExchangeElasticBufferSize();
+        this.elasticBufferMemoryThreshold = taskManagerConfig.getElasticBufferMemoryThreshold();
         this.pagesIndexFactory = requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.lookupJoinOperators = requireNonNull(lookupJoinOperators, "lookupJoinOperators is null");
@@ -441,7 +472,8 @@ public class LocalExecutionPlanner
                         partitioningScheme.isReplicateNullsAndAny(),
                         nullChannel,
                         outputBuffer,
-                        maxPagePartitioningBufferSize));
+                        maxPagePartitioningBufferSize,
+                        isOptimizedRepartitioningEnabled(taskContext.getSession())));
     }
 
     public LocalExecutionPlan plan(
@@ -584,6 +616,16 @@ public class LocalExecutionPlanner
             return taskContext.getTaskId().getStageId();
         }
 
+        public QueryContext getQueryContext()
+        {
+            return taskContext.getQueryContext();
+        }
+
+        public TaskContext getTaskContext()
+        {
+            return taskContext;
+        }
+
         public TypeProvider getTypes()
         {
             return types;
@@ -689,6 +731,7 @@ public class LocalExecutionPlanner
     {
         private final Session session;
         private final StageExecutionDescriptor stageExecutionDescriptor;
+        private final Map<PlanNodeId, ListenableFuture<TupleDomain<ColumnHandle>>> scanDynamicFilters = new HashMap<>();
 
         private Visitor(Session session, StageExecutionDescriptor stageExecutionDescriptor)
         {
@@ -932,6 +975,8 @@ public class LocalExecutionPlanner
                 channel++;
             }
 
+            boolean spillEnabled = isSpillEnabled(context.getSession()) && isSpillWindowOperator(context.getSession());
+
             OperatorFactory operatorFactory = new WindowOperatorFactory(
                     context.getNextOperatorId(),
                     node.getId(),
@@ -944,7 +989,10 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     10_000,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    Optional.of(spillerFactory),
+                    orderingCompiler);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), context, source);
         }
@@ -993,6 +1041,8 @@ public class LocalExecutionPlanner
                 outputChannels.add(i);
             }
 
+            boolean spillEnabled = isSpillEnabled(context.getSession()) && isSpillOrderBy(context.getSession());
+
             OperatorFactory operator = new OrderByOperatorFactory(
                     context.getNextOperatorId(),
                     node.getId(),
@@ -1001,7 +1051,10 @@ public class LocalExecutionPlanner
                     10_000,
                     orderByChannels,
                     sortOrder.build(),
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    Optional.of(spillerFactory),
+                    orderingCompiler);
 
             return new PhysicalOperation(operator, source.getLayout(), context, source);
         }
@@ -1249,6 +1302,7 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
+                            getScanDynamicFilter(sourceNode.getId()),
                             getTypes(rewrittenProjections, expressionTypes),
                             getFilterAndProjectMinOutputPageSize(session),
                             getFilterAndProjectMinOutputPageRowCount(session));
@@ -1297,10 +1351,15 @@ public class LocalExecutionPlanner
                 columns.add(node.getAssignments().get(symbol));
             }
 
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns, getScanDynamicFilter(node.getId()));
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
         }
 
+        private ListenableFuture<TupleDomain<ColumnHandle>> getScanDynamicFilter(PlanNodeId scanId)
+        {
+            return scanDynamicFilters.getOrDefault(scanId, immediateFuture(TupleDomain.all()));
+        }
+
         @Override
         public PhysicalOperation visitValues(ValuesNode node, LocalExecutionPlanContext context)
         {
@@ -1919,12 +1978,41 @@ public class LocalExecutionPlanner
                 Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // the probe scan waits for the domain collected on the build side before it opens its splits,
+            // so it must be registered before the probe is planned and completed once the build is planned
+            Optional<ProbeScan> probeScan = isEnableDynamicFiltering(session) ? findProbeScan(probeNode, probeSymbols) : Optional.empty();
+            SettableFuture<TupleDomain<ColumnHandle>> probeDynamicFilter = SettableFuture.create();
+            probeScan.ifPresent(scan -> scanDynamicFilters.put(scan.getScanId(), probeDynamicFilter));
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
             // Plan build
+            LocalExecutionPlanContext buildContext = context.createSubContext();
+            PhysicalOperation buildSource = buildNode.accept(this, buildContext);
+
+            Optional<DynamicFilterSourceOperatorFactory> dynamicFilterSource = Optional.empty();
+            if (probeScan.isPresent() && isDynamicFilteringApplicable(node, probeSource, buildSource, buildContext)) {
+                LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(buildContext.getDriverInstanceCount().orElse(1));
+                dynamicFilterSource = Optional.of(new DynamicFilterSourceOperatorFactory(
+                        buildContext.getNextOperatorId(),
+                        node.getId(),
+                        dynamicFilter.getTupleDomainConsumer(),
+                        createDynamicFilterChannels(buildSymbols, buildSource),
+                        DYNAMIC_FILTER_MAX_POSITIONS,
+                        DYNAMIC_FILTER_MAX_SIZE));
+                Map<String, ColumnHandle> probeColumns = probeScan.get().getColumns();
+                probeDynamicFilter.setFuture(Futures.transform(
+                        dynamicFilter.getResultFuture(),
+                        domain -> toScanDynamicFilter(domain, probeColumns),
+                        directExecutor()));
+            }
+            else {
+                probeDynamicFilter.set(TupleDomain.all());
+            }
+
             JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactory =
-                    createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource, context);
+                    createLookupSourceFactory(node, buildSource, buildContext, buildSymbols, buildHashSymbol, probeSource, dynamicFilterSource, context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeSymbols, probeHashSymbol, lookupSourceFactory, context);
 
@@ -1938,17 +2026,69 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operator, outputMappings.build(), context, probeSource);
         }
 
+        private boolean isDynamicFilteringApplicable(JoinNode node, PhysicalOperation probeSource, PhysicalOperation buildSource, LocalExecutionPlanContext buildContext)
+        {
+            // the build side must only drop probe rows which cannot produce output, and all build
+            // drivers must be known upfront for the filter to be complete
+            return (node.getType() == INNER || node.getType() == RIGHT) &&
+                    probeSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION &&
+                    buildSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION &&
+                    !buildContext.isInputDriver();
+        }
+
+        /**
+         * Finds the table scan feeding the probe side through filters and projections which pass
+         * the join keys through unchanged, and maps the filter of every join clause to its column.
+         */
+        private Optional<ProbeScan> findProbeScan(PlanNode node, List<Symbol> symbols)
+        {
+            if (node instanceof TableScanNode) {
+                TableScanNode scan = (TableScanNode) node;
+                ImmutableMap.Builder<String, ColumnHandle> columns = ImmutableMap.builder();
+                for (int i = 0; i < symbols.size(); i++) {
+                    columns.put(String.valueOf(i), scan.getAssignments().get(symbols.get(i)));
+                }
+                return Optional.of(new ProbeScan(scan.getId(), columns.build()));
+            }
+            if (node instanceof FilterNode) {
+                return findProbeScan(((FilterNode) node).getSource(), symbols);
+            }
+            if (node instanceof ProjectNode) {
+                ProjectNode project = (ProjectNode) node;
+                ImmutableList.Builder<Symbol> sourceSymbols = ImmutableList.builder();
+                for (Symbol symbol : symbols) {
+                    Expression expression = project.getAssignments().get(symbol);
+                    if (!(expression instanceof SymbolReference)) {
+                        return Optional.empty();
+                    }
+                    sourceSymbols.add(Symbol.from(expression));
+                }
+                return findProbeScan(project.getSource(), sourceSymbols.build());
+            }
+            return Optional.empty();
+        }
+
+        private List<DynamicFilterSourceOperator.Channel> createDynamicFilterChannels(List<Symbol> symbols, PhysicalOperation source)
+        {
+            ImmutableList.Builder<DynamicFilterSourceOperator.Channel> channels = ImmutableList.builder();
+            for (int i = 0; i < symbols.size(); i++) {
+                int channel = source.getLayout().get(symbols.get(i));
+                // the filters of a join are identified by the position of their clause
+                channels.add(new DynamicFilterSourceOperator.Channel(String.valueOf(i), source.getTypes().get(channel), channel));
+            }
+            return channels.build();
+        }
+
         private JoinBridgeManager<PartitionedLookupSourceFactory> createLookupSourceFactory(
                 JoinNode node,
-                PlanNode buildNode,
+                PhysicalOperation buildSource,
+                LocalExecutionPlanContext buildContext,
                 List<Symbol> buildSymbols,
                 Optional<Symbol> buildHashSymbol,
                 PhysicalOperation probeSource,
+                Optional<DynamicFilterSourceOperatorFactory> dynamicFilterSource,
                 LocalExecutionPlanContext context)
         {
-            LocalExecutionPlanContext buildContext = context.createSubContext();
-            PhysicalOperation buildSource = buildNode.accept(this, buildContext);
-
             if (buildSource.getPipelineExecutionStrategy() == GROUPED_EXECUTION) {
                 checkState(
                         probeSource.getPipelineExecutionStrategy() == GROUPED_EXECUTION,
@@ -2033,6 +2173,7 @@ public class LocalExecutionPlanner
                     false,
                     ImmutableList.<OperatorFactory>builder()
                             .addAll(buildSource.getOperatorFactories())
+                            .addAll(dynamicFilterSource.map(ImmutableList::of).orElse(ImmutableList.of()))
                             .add(hashBuilderOperatorFactory)
                             .build(),
                     buildContext.getDriverInstanceCount(),
@@ -2406,7 +2547,8 @@ public class LocalExecutionPlanner
                     ImmutableList.of(),
                     Optional.empty(),
                     source.getPipelineExecutionStrategy(),
-                    maxLocalExchangeBufferSize);
+                    getLocalExchangeBufferLimit(context),
+                    getLocalExchangeSpillerSupplier(types, context));
 
             List<OperatorFactory> operatorFactories = new ArrayList<>(source.getOperatorFactories());
             List<Symbol> expectedLayout = node.getInputs().get(0);
@@ -2436,6 +2578,32 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operatorFactory, layout, context, UNGROUPED_EXECUTION);
         }
 
+        private ElasticBufferLimit getLocalExchangeBufferLimit(LocalExecutionPlanContext context)
+        {
+            return ElasticBufferLimit.elastic(
+                    maxLocalExchangeBufferSize.toBytes(),
+                    maxLocalExchangeElasticBufferSize.toBytes(),
+                    elasticBufferMemoryThreshold,
+                    context.getQueryContext().getElasticBufferBudget());
+        }
+
+        private Optional<Supplier<Spiller>> getLocalExchangeSpillerSupplier(List<Type> types, LocalExecutionPlanContext context)
+        {
+            if (!isSpillEnabled(context.getSession())) {
+                return Optional.empty();
+            }
+            TaskContext taskContext = context.getTaskContext();
+            SpillContext spillContext = bytes -> {
+                if (bytes >= 0) {
+                    taskContext.reserveSpill(bytes);
+                }
+                else {
+                    taskContext.freeSpill(-bytes);
+                }
+            };
+            return Optional.of(() -> spillerFactory.create(types, spillContext, taskContext.getTaskMemoryContext().newAggregateSystemMemoryContext()));
+        }
+
         private PhysicalOperation createLocalExchange(ExchangeNode node, LocalExecutionPlanContext context)
         {
             int driverInstanceCount;
@@ -2479,7 +2647,8 @@ public class LocalExecutionPlanner
                     channels,
                     hashChannel,
                     exchangeSourcePipelineExecutionStrategy,
-                    maxLocalExchangeBufferSize);
+                    getLocalExchangeBufferLimit(context),
+                    getLocalExchangeSpillerSupplier(types, context));
             for (int i = 0; i < node.getSources().size(); i++) {
                 DriverFactoryParameters driverFactoryParameters = driverFactoryParametersList.get(i);
                 PhysicalOperation source = driverFactoryParameters.getSource();
@@ -2779,6 +2948,13 @@ public class LocalExecutionPlanner
             }
             else {
                 Optional<Integer> hashChannel = hashSymbol.map(channelGetter(source));
+                Optional<PartialAggregationController> partialAggregationController = Optional.empty();
+                // partial aggregations without a memory limit must behave as intermediate aggregations
+                if (step == PARTIAL && maxPartialAggregationMemorySize.isPresent() && !groupBySymbols.isEmpty() && isAdaptivePartialAggregationEnabled(session)) {
+                    partialAggregationController = Optional.of(new PartialAggregationController(
+                            getAdaptivePartialAggregationMinRows(session),
+                            getAdaptivePartialAggregationUniqueRowsRatioThreshold(session)));
+                }
                 return new HashAggregationOperatorFactory(
                         context.getNextOperatorId(),
                         planNodeId,
@@ -2796,7 +2972,8 @@ public class LocalExecutionPlanner
                         unspillMemoryLimit,
                         spillerFactory,
                         joinCompiler,
-                        useSystemMemory);
+                        useSystemMemory,
+                        partialAggregationController);
             }
         }
     }
@@ -2946,6 +3123,39 @@ public class LocalExecutionPlanner
         }
     }
 
+    private static TupleDomain<ColumnHandle> toScanDynamicFilter(TupleDomain<String> dynamicFilter, Map<String, ColumnHandle> columns)
+    {
+        if (dynamicFilter.isNone()) {
+            return TupleDomain.none();
+        }
+        // several join clauses may compare the same probe column
+        Map<ColumnHandle, Domain> domains = new HashMap<>();
+        dynamicFilter.getDomains().get().forEach((filterId, domain) -> domains.merge(columns.get(filterId), domain, Domain::intersect));
+        return TupleDomain.withColumnDomains(domains);
+    }
+
+    private static class ProbeScan
+    {
+        private final PlanNodeId scanId;
+        private final Map<String, ColumnHandle> columns;
+
+        public ProbeScan(PlanNodeId scanId, Map<String, ColumnHandle> columns)
+        {
+            this.scanId = requireNonNull(scanId, "scanId is null");
+            this.columns = requireNonNull(columns, "columns is null");
+        }
+
+        public PlanNodeId getScanId()
+        {
+            return scanId;
+        }
+
+        public Map<String, ColumnHandle> getColumns()
+        {
+            return columns;
+        }
+    }
+
     private static class DriverFactoryParameters
     {
         private final LocalExecutionPlanContext subContext;
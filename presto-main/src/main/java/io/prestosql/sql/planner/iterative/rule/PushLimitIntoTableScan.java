@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import io.prestosql.matching.Capture;
+import io.prestosql.matching.Captures;
+import io.prestosql.matching.Pattern;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableLayoutHandle;
+import io.prestosql.spi.connector.LimitApplicationResult;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.plan.LimitNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+
+import java.util.Optional;
+
+import static io.prestosql.matching.Capture.newCapture;
+import static io.prestosql.sql.planner.plan.Patterns.limit;
+import static io.prestosql.sql.planner.plan.Patterns.source;
+import static io.prestosql.sql.planner.plan.Patterns.tableScan;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pushes a limit directly above a table scan into the connector. The scan must already
+ * have a table layout, since the limit is applied to the layout the splits are created from.
+ * The rule must not run before the layouts are picked for the last time, because picking
+ * a new layout discards the limit applied to the previous one.
+ */
+public class PushLimitIntoTableScan
+        implements Rule<LimitNode>
+{
+    private static final Capture<TableScanNode> TABLE_SCAN = newCapture();
+
+    private static final Pattern<LimitNode> PATTERN = limit()
+            .with(source().matching(
+                    tableScan()
+                            .matching(tableScan -> tableScan.getLayout().isPresent())
+                            .capturedAs(TABLE_SCAN)));
+
+    private final Metadata metadata;
+
+    public PushLimitIntoTableScan(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public Pattern<LimitNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public Result apply(LimitNode limit, Captures captures, Context context)
+    {
+        TableScanNode tableScan = captures.get(TABLE_SCAN);
+
+        Optional<LimitApplicationResult<TableLayoutHandle>> result = metadata.applyLimit(context.getSession(), tableScan.getLayout().get(), limit.getCount());
+        if (!result.isPresent()) {
+            return Result.empty();
+        }
+
+        PlanNode node = new TableScanNode(
+                tableScan.getId(),
+                tableScan.getTable(),
+                tableScan.getOutputSymbols(),
+                tableScan.getAssignments(),
+                Optional.of(result.get().getHandle()),
+                tableScan.getCurrentConstraint(),
+                tableScan.getEnforcedConstraint());
+
+        if (!result.get().isLimitGuaranteed()) {
+            node = new LimitNode(limit.getId(), node, limit.getCount(), limit.isPartial());
+        }
+
+        return Result.ofPlanNode(node);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.matching.Capture;
+import io.prestosql.matching.Captures;
+import io.prestosql.matching.Pattern;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableLayoutHandle;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.plan.AggregationNode;
+import io.prestosql.sql.planner.plan.AggregationNode.Aggregation;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.FunctionCall;
+import io.prestosql.sql.tree.SymbolReference;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.matching.Capture.newCapture;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static io.prestosql.sql.planner.plan.Patterns.aggregation;
+import static io.prestosql.sql.planner.plan.Patterns.source;
+import static io.prestosql.sql.planner.plan.Patterns.tableScan;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pushes a partial aggregation directly above a table scan into the connector, which then
+ * produces the partial results for the rows of each split. The final aggregation combines
+ * them as before. Only aggregations of plain columns are pushed down. The rule runs once the
+ * aggregations are split into partial and final steps, which is after the table layouts are
+ * picked for the last time.
+ */
+public class PushPartialAggregationIntoTableScan
+        implements Rule<AggregationNode>
+{
+    private static final Capture<TableScanNode> TABLE_SCAN = newCapture();
+
+    private static final Pattern<AggregationNode> PATTERN = aggregation()
+            .matching(PushPartialAggregationIntoTableScan::isSupported)
+            .with(source().matching(
+                    tableScan()
+                            .matching(tableScan -> tableScan.getLayout().isPresent())
+                            .capturedAs(TABLE_SCAN)));
+
+    private final Metadata metadata;
+
+    public PushPartialAggregationIntoTableScan(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public Pattern<AggregationNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    private static boolean isSupported(AggregationNode aggregation)
+    {
+        return aggregation.getStep() == PARTIAL &&
+                aggregation.getGroupingSetCount() == 1 &&
+                !aggregation.getHashSymbol().isPresent() &&
+                !aggregation.getGroupIdSymbol().isPresent() &&
+                aggregation.getAggregations().values().stream().allMatch(PushPartialAggregationIntoTableScan::isSupported);
+    }
+
+    private static boolean isSupported(Aggregation aggregation)
+    {
+        FunctionCall call = aggregation.getCall();
+        return !aggregation.getMask().isPresent() &&
+                !call.isDistinct() &&
+                !call.getFilter().isPresent() &&
+                !call.getOrderBy().isPresent() &&
+                call.getArguments().stream().allMatch(SymbolReference.class::isInstance);
+    }
+
+    @Override
+    public Result apply(AggregationNode aggregation, Captures captures, Context context)
+    {
+        TableScanNode tableScan = captures.get(TABLE_SCAN);
+        Map<Symbol, ColumnHandle> assignments = tableScan.getAssignments();
+
+        List<ColumnHandle> groupingColumns = aggregation.getGroupingKeys().stream()
+                .map(assignments::get)
+                .collect(toImmutableList());
+
+        ImmutableList.Builder<Symbol> aggregateSymbols = ImmutableList.builder();
+        ImmutableList.Builder<AggregateFunction> aggregates = ImmutableList.builder();
+        for (Map.Entry<Symbol, Aggregation> entry : aggregation.getAggregations().entrySet()) {
+            List<ColumnHandle> inputs = entry.getValue().getCall().getArguments().stream()
+                    .map(argument -> assignments.get(Symbol.from(argument)))
+                    .collect(toImmutableList());
+            aggregateSymbols.add(entry.getKey());
+            aggregates.add(new AggregateFunction(
+                    entry.getValue().getSignature().getName(),
+                    inputs,
+                    context.getSymbolAllocator().getTypes().get(entry.getKey())));
+        }
+
+        Optional<AggregationApplicationResult<TableLayoutHandle>> result = metadata.applyAggregation(
+                context.getSession(),
+                tableScan.getLayout().get(),
+                aggregates.build(),
+                groupingColumns);
+        if (!result.isPresent()) {
+            return Result.empty();
+        }
+
+        List<Symbol> symbols = aggregateSymbols.build();
+        List<ColumnHandle> aggregateColumns = result.get().getAggregateColumns();
+        verify(aggregateColumns.size() == symbols.size(), "Expected %s aggregate columns, but connector returned %s", symbols.size(), aggregateColumns.size());
+
+        ImmutableMap.Builder<Symbol, ColumnHandle> newAssignments = ImmutableMap.builder();
+        for (Symbol groupingKey : aggregation.getGroupingKeys()) {
+            newAssignments.put(groupingKey, assignments.get(groupingKey));
+        }
+        for (int i = 0; i < symbols.size(); i++) {
+            newAssignments.put(symbols.get(i), aggregateColumns.get(i));
+        }
+
+        // only the constraints on the grouping columns still hold for the aggregated rows
+        return Result.ofPlanNode(new TableScanNode(
+                tableScan.getId(),
+                tableScan.getTable(),
+                aggregation.getOutputSymbols(),
+                newAssignments.build(),
+                Optional.of(result.get().getHandle()),
+                tableScan.getCurrentConstraint().transform(column -> groupingColumns.contains(column) ? column : null),
+                tableScan.getEnforcedConstraint().transform(column -> groupingColumns.contains(column) ? column : null)));
+    }
+}
@@ -17,6 +17,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import io.prestosql.cost.PlanNodeCostEstimate;
 import io.prestosql.cost.PlanNodeStatsEstimate;
+import io.prestosql.operator.PartialAggregationInfo;
 
 import java.util.List;
 import java.util.Locale;
@@ -118,6 +119,10 @@ public class TextRenderer
             printWindowOperatorStats(output, ((WindowPlanNodeStats) nodeStats).getWindowOperatorStats());
         }
 
+        if (nodeStats instanceof PartialAggregationPlanNodeStats) {
+            printPartialAggregationStats(output, ((PartialAggregationPlanNodeStats) nodeStats).getPartialAggregationInfo());
+        }
+
         return output.toString();
     }
 
@@ -169,6 +174,16 @@ public class TextRenderer
         }
     }
 
+    private static void printPartialAggregationStats(StringBuilder output, PartialAggregationInfo info)
+    {
+        output.append(format("Partial aggregation: %s reduced to %s, skipped by %s of %s operators, %s passed through\n",
+                formatPositions(info.getAggregatedInputPositions()),
+                formatPositions(info.getAggregatedOutputPositions()),
+                info.getSkippedOperatorCount(),
+                info.getOperatorCount(),
+                formatPositions(info.getPassThroughPositions())));
+    }
+
     private void printWindowOperatorStats(StringBuilder output, WindowOperatorStats stats)
     {
         if (!verbose) {
@@ -13,6 +13,8 @@
  */
 package io.prestosql.util;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.DriverYieldSignal;
@@ -30,12 +32,16 @@ import java.util.List;
 import java.util.function.BiPredicate;
 import java.util.stream.IntStream;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.prestosql.operator.WorkProcessor.mergeSorted;
 import static java.util.Objects.requireNonNull;
 
 public final class MergeSortedPages
 {
+    // bounds the tournament tree of a single merge; wider fan-ins are merged in levels
+    private static final int MAX_MERGE_FAN_IN = 64;
+
     private MergeSortedPages() {}
 
     public static WorkProcessor<Page> mergeSortedPages(
@@ -83,7 +89,7 @@ public final class MergeSortedPages
                 secondPageWithPosition.getPage(), secondPageWithPosition.getPosition());
 
         return buildPage(
-                mergeSorted(pageWithPositionProducers, pageWithPositionComparator),
+                mergeSortedInLevels(pageWithPositionProducers, pageWithPositionComparator, MAX_MERGE_FAN_IN),
                 outputChannels,
                 outputTypes,
                 pageBreakPredicate,
@@ -92,6 +98,24 @@ public final class MergeSortedPages
                 yieldSignal);
     }
 
+    /**
+     * Merges the producers with a tree of merges, none of which reads more than {@code maxFanIn} inputs.
+     * Each intermediate merge keeps its tournament tree small enough to stay cache resident,
+     * and only pulls from its inputs when its own output is consumed.
+     */
+    @VisibleForTesting
+    static <T> WorkProcessor<T> mergeSortedInLevels(List<WorkProcessor<T>> producers, Comparator<T> comparator, int maxFanIn)
+    {
+        checkArgument(maxFanIn >= 2, "maxFanIn must be at least 2: %s", maxFanIn);
+        List<WorkProcessor<T>> level = producers;
+        while (level.size() > maxFanIn) {
+            level = Lists.partition(level, maxFanIn).stream()
+                    .map(group -> group.size() == 1 ? group.get(0) : mergeSorted(group, comparator))
+                    .collect(toImmutableList());
+        }
+        return mergeSorted(level, comparator);
+    }
+
     private static WorkProcessor<Page> buildPage(
             WorkProcessor<PageWithPosition> pageWithPositions,
             List<Integer> outputChannels,
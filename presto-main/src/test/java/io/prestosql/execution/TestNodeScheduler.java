@@ -49,6 +49,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -287,6 +288,27 @@ public class TestNodeScheduler
         }
     }
 
+    @Test
+    public void testAffinityScheduling()
+    {
+        TestingTransactionHandle transactionHandle = TestingTransactionHandle.create();
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            splits.add(new Split(CONNECTOR_ID, transactionHandle, new TestSplitAffinity("file")));
+        }
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.size(), 25);
+
+        // splits with the same key go to the same node, until the node has maxSplitsPerNode splits
+        int maxSplitsOnNode = assignments.keySet().stream()
+                .mapToInt(node -> assignments.get(node).size())
+                .max()
+                .getAsInt();
+        assertEquals(maxSplitsOnNode, 20);
+        assertTrue(assignments.keySet().size() > 1);
+    }
+
     @Test
     public void testMaxSplitsPerNode()
     {
@@ -481,6 +503,41 @@ public class TestNodeScheduler
         }
     }
 
+    private static class TestSplitAffinity
+            implements ConnectorSplit
+    {
+        private final String affinityKey;
+
+        public TestSplitAffinity(String affinityKey)
+        {
+            this.affinityKey = requireNonNull(affinityKey, "affinityKey is null");
+        }
+
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            return true;
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Optional<String> getAffinityKey()
+        {
+            return Optional.of(affinityKey);
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return this;
+        }
+    }
+
     private static class TestNetworkTopology
             implements NetworkTopology
     {
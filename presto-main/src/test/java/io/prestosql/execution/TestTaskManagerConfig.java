@@ -49,7 +49,10 @@ public class TestTaskManagerConfig
                 .setShareIndexLoading(false)
                 .setMaxPartialAggregationMemoryUsage(new DataSize(16, Unit.MEGABYTE))
                 .setMaxLocalExchangeBufferSize(new DataSize(32, Unit.MEGABYTE))
+                .setMaxLocalExchangeElasticBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
+                .setSinkMaxElasticBufferSize(new DataSize(32, Unit.MEGABYTE))
+                .setElasticBufferMemoryThreshold(0.9)
                 .setMaxPagePartitioningBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setWriterCount(1)
                 .setTaskConcurrency(16)
@@ -58,6 +61,7 @@ public class TestTaskManagerConfig
                 .setTaskNotificationThreads(5)
                 .setTaskYieldThreads(3)
                 .setLevelTimeMultiplier(new BigDecimal("2"))
+                .setSplitQueueShards(1)
                 .setStatisticsCpuTimerEnabled(true));
     }
 
@@ -75,6 +79,7 @@ public class TestTaskManagerConfig
                 .put("task.share-index-loading", "true")
                 .put("task.max-partial-aggregation-memory", "32MB")
                 .put("task.max-local-exchange-buffer-size", "33MB")
+                .put("task.max-local-exchange-elastic-buffer-size", "128MB")
                 .put("task.max-worker-threads", "3")
                 .put("task.min-drivers", "2")
                 .put("task.min-drivers-per-task", "5")
@@ -82,6 +87,8 @@ public class TestTaskManagerConfig
                 .put("task.info.max-age", "22m")
                 .put("task.client.timeout", "10s")
                 .put("sink.max-buffer-size", "42MB")
+                .put("sink.max-elastic-buffer-size", "256MB")
+                .put("task.elastic-buffer-memory-threshold", "0.7")
                 .put("driver.max-page-partitioning-buffer-size", "40MB")
                 .put("task.writer-count", "4")
                 .put("task.concurrency", "8")
@@ -90,6 +97,7 @@ public class TestTaskManagerConfig
                 .put("task.task-notification-threads", "13")
                 .put("task.task-yield-threads", "8")
                 .put("task.level-time-multiplier", "2.1")
+                .put("task.split-queue-shards", "8")
                 .put("task.statistics-cpu-timer-enabled", "false")
                 .build();
 
@@ -104,6 +112,7 @@ public class TestTaskManagerConfig
                 .setShareIndexLoading(true)
                 .setMaxPartialAggregationMemoryUsage(new DataSize(32, Unit.MEGABYTE))
                 .setMaxLocalExchangeBufferSize(new DataSize(33, Unit.MEGABYTE))
+                .setMaxLocalExchangeElasticBufferSize(new DataSize(128, Unit.MEGABYTE))
                 .setMaxWorkerThreads(3)
                 .setMinDrivers(2)
                 .setMinDriversPerTask(5)
@@ -111,6 +120,8 @@ public class TestTaskManagerConfig
                 .setInfoMaxAge(new Duration(22, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setSinkMaxBufferSize(new DataSize(42, Unit.MEGABYTE))
+                .setSinkMaxElasticBufferSize(new DataSize(256, Unit.MEGABYTE))
+                .setElasticBufferMemoryThreshold(0.7)
                 .setMaxPagePartitioningBufferSize(new DataSize(40, Unit.MEGABYTE))
                 .setWriterCount(4)
                 .setTaskConcurrency(8)
@@ -119,6 +130,7 @@ public class TestTaskManagerConfig
                 .setTaskNotificationThreads(13)
                 .setTaskYieldThreads(8)
                 .setLevelTimeMultiplier(new BigDecimal("2.1"))
+                .setSplitQueueShards(8)
                 .setStatisticsCpuTimerEnabled(false);
 
         assertFullMapping(properties, expected);
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import io.airlift.units.DataSize;
+import io.prestosql.memory.ElasticBufferBudget;
+import io.prestosql.memory.ElasticBufferLimit;
+import io.prestosql.memory.MemoryPool;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.memory.MemoryPoolId;
+import org.testng.annotations.Test;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestOutputBufferMemoryManager
+{
+    @Test
+    public void testElasticLimit()
+    {
+        QueryId queryId = new QueryId("test_query");
+        MemoryPool pool = new MemoryPool(new MemoryPoolId("test"), new DataSize(10_000, BYTE));
+        // the query may use 400 bytes, which all buffers of the query share
+        ElasticBufferBudget budget = new ElasticBufferBudget(queryId, () -> pool, () -> 400, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        OutputBufferMemoryManager memoryManager = createMemoryManager(ElasticBufferLimit.elastic(100, 400, 1.0, budget));
+        OutputBufferMemoryManager otherMemoryManager = createMemoryManager(ElasticBufferLimit.elastic(100, 400, 1.0, budget));
+
+        // the first buffer grows beyond its base size
+        memoryManager.updateMemoryUsage(350);
+        assertTrue(memoryManager.getBufferBlockedFuture().isDone(), "buffer shouldn't be blocked");
+
+        // the second buffer can only grow by the remaining 150 bytes
+        otherMemoryManager.updateMemoryUsage(250);
+        assertTrue(otherMemoryManager.getBufferBlockedFuture().isDone(), "buffer shouldn't be blocked");
+        otherMemoryManager.updateMemoryUsage(100);
+        assertTrue(otherMemoryManager.isOverutilized());
+        assertFalse(otherMemoryManager.getBufferBlockedFuture().isDone(), "buffer should be blocked");
+
+        // the first buffer is drained and releases its growth
+        memoryManager.updateMemoryUsage(-350);
+        assertTrue(memoryManager.getBufferBlockedFuture().isDone(), "buffer shouldn't be blocked");
+
+        // the second buffer unblocks as soon as its consumer makes progress
+        otherMemoryManager.updateMemoryUsage(-1);
+        assertFalse(otherMemoryManager.isOverutilized());
+        assertTrue(otherMemoryManager.getBufferBlockedFuture().isDone(), "buffer shouldn't be blocked");
+
+        // the second buffer grows up to its maximum size
+        otherMemoryManager.updateMemoryUsage(51);
+        assertTrue(otherMemoryManager.getBufferBlockedFuture().isDone(), "buffer shouldn't be blocked");
+        otherMemoryManager.updateMemoryUsage(1);
+        assertFalse(otherMemoryManager.getBufferBlockedFuture().isDone(), "buffer should be blocked");
+
+        // the buffer drains back to its base size
+        otherMemoryManager.updateMemoryUsage(-301);
+        assertTrue(otherMemoryManager.getBufferBlockedFuture().isDone(), "buffer shouldn't be blocked");
+    }
+
+    private static OutputBufferMemoryManager createMemoryManager(ElasticBufferLimit limit)
+    {
+        return new OutputBufferMemoryManager(limit, () -> newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"), directExecutor());
+    }
+}
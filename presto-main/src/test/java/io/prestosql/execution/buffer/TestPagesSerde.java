@@ -24,7 +24,10 @@ import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
+import static io.prestosql.execution.buffer.PageCompression.COMPRESSED;
+import static io.prestosql.execution.buffer.PageCompression.UNCOMPRESSED;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.readPages;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.writePages;
 import static io.prestosql.operator.PageAssertions.assertPageEquals;
@@ -32,6 +35,7 @@ import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -59,6 +63,44 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testAdaptiveCompression()
+    {
+        PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
+
+        Random random = new Random(42);
+        BlockBuilder randomBuilder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(randomBuilder, random.nextLong());
+        }
+        Page randomPage = new Page(randomBuilder.build());
+
+        BlockBuilder repeatedBuilder = VARCHAR.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            VARCHAR.writeString(repeatedBuilder, "alice");
+        }
+        Page repeatedPage = new Page(repeatedBuilder.build());
+
+        // pages that do not compress are tried again after 1, then 2 skipped pages
+        for (int i = 0; i < 6; i++) {
+            SerializedPage serializedPage = serde.serialize(randomPage);
+            assertEquals(serializedPage.getCompression(), UNCOMPRESSED);
+            assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(serializedPage), randomPage);
+        }
+
+        // pages with other encodings are sampled separately
+        SerializedPage serializedPage = serde.serialize(repeatedPage);
+        assertEquals(serializedPage.getCompression(), COMPRESSED);
+        assertPageEquals(ImmutableList.of(VARCHAR), serde.deserialize(serializedPage), repeatedPage);
+
+        PagesSerdeStats stats = serde.getStats();
+        assertEquals(stats.getSkippedPages(), 3);
+        // each page was counted when serialized and when deserialized
+        assertEquals(stats.getCompressedPages(), 2);
+        assertEquals(stats.getUncompressedPages(), 12);
+        assertTrue(stats.getSerializedBytes() < stats.getUncompressedBytes());
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
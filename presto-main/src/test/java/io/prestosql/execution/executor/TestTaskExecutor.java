@@ -17,6 +17,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
 import io.airlift.testing.TestingTicker;
 import io.airlift.units.Duration;
 import io.prestosql.execution.SplitRunner;
@@ -36,6 +38,7 @@ import static io.airlift.testing.Assertions.assertGreaterThan;
 import static io.airlift.testing.Assertions.assertLessThan;
 import static io.prestosql.execution.executor.MultilevelSplitQueue.LEVEL_CONTRIBUTION_CAP;
 import static io.prestosql.execution.executor.MultilevelSplitQueue.LEVEL_THRESHOLD_SECONDS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -370,6 +373,63 @@ public class TestTaskExecutor
         }
     }
 
+    @Test
+    public void testSplitQueueShards()
+            throws Exception
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2, 2);
+        TaskHandle handle = new TaskHandle(new TaskId("test", 0, 0), splitQueue, () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        TestingTicker ticker = new TestingTicker();
+
+        PrioritizedSplitRunner split0 = createSplitRunner(handle, ticker);
+        PrioritizedSplitRunner split1 = createSplitRunner(handle, ticker);
+        splitQueue.offer(split0);
+        splitQueue.offer(split1);
+        assertEquals(splitQueue.size(), 2);
+        assertEquals(splitQueue.getMaxShardQueueDepth(), 1);
+
+        // new splits are spread over the shards, so the second split must be stolen
+        assertEquals(splitQueue.take(0), split0);
+        assertEquals(splitQueue.take(0), split1);
+        assertEquals(splitQueue.getLocalSplits().getTotalCount(), 1);
+        assertEquals(splitQueue.getStolenSplits().getTotalCount(), 1);
+
+        // a split is queued on the shard it was last taken from
+        splitQueue.offer(split1);
+        assertEquals(split1.getShard(), 0);
+        assertEquals(splitQueue.take(0), split1);
+        assertEquals(splitQueue.getLocalSplits().getTotalCount(), 2);
+        assertEquals(splitQueue.size(), 0);
+    }
+
+    @Test
+    public void testSplitQueueShardsSelectLevelGlobally()
+            throws Exception
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2, 2);
+        TaskHandle handle0 = new TaskHandle(new TaskId("test0", 0, 0), splitQueue, () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        TaskHandle handle1 = new TaskHandle(new TaskId("test1", 0, 0), splitQueue, () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        TestingTicker ticker = new TestingTicker();
+
+        handle1.addScheduledNanos(SECONDS.toNanos(2));
+        PrioritizedSplitRunner level1Split = createSplitRunner(handle1, ticker);
+        PrioritizedSplitRunner level0Split = createSplitRunner(handle0, ticker);
+        assertEquals(level1Split.getPriority().getLevel(), 1);
+        assertEquals(level0Split.getPriority().getLevel(), 0);
+
+        // the level 1 split is queued on the first shard and the level 0 split on the second
+        splitQueue.offer(level1Split);
+        splitQueue.offer(level0Split);
+        assertEquals(splitQueue.getLevelScheduledTime(0), SECONDS.toNanos(2));
+        assertEquals(splitQueue.getLevelScheduledTime(1), SECONDS.toNanos(1));
+
+        // both levels are at their target time, so level 0 is selected even though the first shard has no split of it
+        assertEquals(splitQueue.take(0), level0Split);
+        assertEquals(splitQueue.getStolenSplits().getTotalCount(), 1);
+        assertEquals(splitQueue.take(0), level1Split);
+        assertEquals(splitQueue.getLocalSplits().getTotalCount(), 1);
+    }
+
     @Test(timeOut = 30_000)
     public void testMinMaxDriversPerTask()
     {
@@ -462,6 +522,18 @@ public class TestTaskExecutor
         }
     }
 
+    private static PrioritizedSplitRunner createSplitRunner(TaskHandle taskHandle, TestingTicker ticker)
+    {
+        return new PrioritizedSplitRunner(
+                taskHandle,
+                new TestingJob(ticker, new Phaser(), new Phaser(), new Phaser(), 1, 0),
+                ticker,
+                new CounterStat(),
+                new CounterStat(),
+                new TimeStat(MICROSECONDS),
+                new TimeStat(MICROSECONDS));
+    }
+
     private static void waitUntilSplitsStart(List<TestingJob> splits)
     {
         while (splits.stream().anyMatch(split -> !split.isStarted())) {
@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.memory;
+
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.context.AggregatedMemoryContext;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.memory.MemoryPoolId;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestElasticBufferLimit
+{
+    private static final QueryId QUERY_ID = new QueryId("test_query");
+
+    @Test
+    public void testFixed()
+    {
+        ElasticBufferLimit limit = ElasticBufferLimit.fixed(100);
+        assertFalse(limit.isElastic());
+        assertEquals(limit.updateGrowth(0, 500), 0);
+
+        ElasticBufferBudget budget = new ElasticBufferBudget(QUERY_ID, () -> createPool(1000), () -> 1000, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        assertFalse(ElasticBufferLimit.elastic(100, 100, 0.9, budget).isElastic());
+        assertFalse(ElasticBufferLimit.elastic(100, 50, 0.9, budget).isElastic());
+    }
+
+    @Test
+    public void testGrowsWithHeadroom()
+    {
+        MemoryPool pool = createPool(1000);
+        TestingTicker ticker = new TestingTicker();
+        ElasticBufferBudget budget = new ElasticBufferBudget(QUERY_ID, () -> pool, () -> 1000, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"), ticker);
+        ElasticBufferLimit limit = ElasticBufferLimit.elastic(100, 400, 0.9, budget);
+        assertTrue(limit.isElastic());
+
+        // no growth within the base size
+        assertEquals(limit.updateGrowth(0, 100), 0);
+
+        // the pool has 900 bytes of headroom, so the buffer grows up to its maximum size
+        assertEquals(limit.updateGrowth(0, 250), 150);
+        assertEquals(limit.updateGrowth(150, 1000), 300);
+        assertEquals(budget.getReservedBytes(), 300);
+
+        // shrinking releases growth
+        assertEquals(limit.updateGrowth(300, 0), 0);
+        assertEquals(budget.getReservedBytes(), 0);
+
+        // 200 bytes of headroom, once the pool is sampled again
+        pool.reserve(QUERY_ID, "test", 700);
+        assertEquals(limit.updateGrowth(0, 400), 300);
+        limit.updateGrowth(300, 0);
+        ticker.increment(100, MILLISECONDS);
+        assertEquals(limit.updateGrowth(0, 400), 200);
+
+        // the pool is at the threshold, so the buffer keeps the growth it holds, but does not grow further
+        pool.reserve(QUERY_ID, "test", 200);
+        ticker.increment(100, MILLISECONDS);
+        assertEquals(limit.updateGrowth(200, 500), 200);
+        assertEquals(limit.updateGrowth(200, 150), 50);
+        assertEquals(limit.updateGrowth(50, 500), 50);
+
+        pool.free(QUERY_ID, "test", 900);
+        ticker.increment(100, MILLISECONDS);
+        assertEquals(limit.updateGrowth(50, 500), 300);
+    }
+
+    @Test
+    public void testQueryMemoryLimit()
+    {
+        MemoryPool pool = createPool(1000);
+        pool.reserve(QUERY_ID, "test", 100);
+        ElasticBufferBudget budget = new ElasticBufferBudget(QUERY_ID, () -> pool, () -> 250, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        ElasticBufferLimit limit = ElasticBufferLimit.elastic(100, 400, 0.9, budget);
+
+        // the pool has 800 bytes of headroom, but the query may only reserve 150 more bytes
+        assertEquals(limit.updateGrowth(0, 500), 150);
+    }
+
+    @Test
+    public void testSharedGrowth()
+    {
+        MemoryPool pool = createPool(1000);
+        ElasticBufferBudget budget = new ElasticBufferBudget(QUERY_ID, () -> pool, () -> 1000, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        ElasticBufferLimit limit = ElasticBufferLimit.elastic(100, 1000, 0.5, budget);
+        ElasticBufferLimit otherLimit = ElasticBufferLimit.elastic(100, 1000, 0.5, budget);
+
+        // both buffers share the 500 bytes of headroom
+        assertEquals(limit.updateGrowth(0, 500), 400);
+        assertEquals(otherLimit.updateGrowth(0, 500), 100);
+        assertEquals(otherLimit.updateGrowth(100, 500), 100);
+
+        assertEquals(limit.updateGrowth(400, 0), 0);
+        assertEquals(otherLimit.updateGrowth(100, 500), 400);
+    }
+
+    @Test
+    public void testSplit()
+    {
+        ElasticBufferBudget budget = new ElasticBufferBudget(QUERY_ID, () -> createPool(1000), () -> 1000, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        ElasticBufferLimit limit = ElasticBufferLimit.elastic(100, 4000, 0.9, budget).split(4);
+        assertEquals(limit.getBaseBytes(), 25);
+        assertEquals(limit.getMaxBytes(), 1000);
+
+        // the buffers share the headroom instead of each growing by it
+        assertEquals(limit.updateGrowth(0, 1000), 900);
+        assertEquals(limit.updateGrowth(0, 1000), 0);
+    }
+
+    @Test
+    public void testRevoking()
+    {
+        MemoryPool pool = createPool(1000);
+        TestingTicker ticker = new TestingTicker();
+        AggregatedMemoryContext revocableMemoryContext = newSimpleAggregatedMemoryContext();
+        ElasticBufferBudget budget = new ElasticBufferBudget(QUERY_ID, () -> pool, () -> 1000, revocableMemoryContext.newLocalMemoryContext("test"), ticker);
+        ElasticBufferLimit limit = ElasticBufferLimit.elastic(100, 400, 0.9, budget);
+        AtomicInteger revocations = new AtomicInteger();
+        Runnable listener = revocations::incrementAndGet;
+        limit.addRevocationListener(listener);
+
+        // nothing to revoke
+        assertEquals(budget.requestRevoking(), 0);
+        assertEquals(revocations.get(), 0);
+
+        // the growth is reserved as revocable memory
+        assertEquals(limit.updateGrowth(0, 400), 300);
+        assertEquals(revocableMemoryContext.getBytes(), 300);
+
+        pool.reserve(QUERY_ID, "test", 900);
+        assertEquals(budget.requestRevoking(), 300);
+        assertEquals(revocations.get(), 1);
+        assertEquals(budget.getRevokingBytes(), 300);
+
+        // the growth is already being revoked
+        assertEquals(budget.requestRevoking(), 0);
+        assertEquals(revocations.get(), 1);
+
+        // the pool has no headroom, so the buffer gives up its growth
+        assertEquals(limit.updateGrowth(300, 400), 0);
+        assertEquals(revocableMemoryContext.getBytes(), 0);
+        assertEquals(budget.getRevokingBytes(), 0);
+
+        // the buffer grows again once the pool has headroom
+        pool.free(QUERY_ID, "test", 900);
+        ticker.increment(100, MILLISECONDS);
+        assertEquals(limit.updateGrowth(0, 400), 300);
+        assertEquals(budget.getRevokingBytes(), 0);
+
+        limit.removeRevocationListener(listener);
+        assertEquals(budget.requestRevoking(), 300);
+        assertEquals(revocations.get(), 1);
+    }
+
+    private static MemoryPool createPool(long bytes)
+    {
+        return new MemoryPool(new MemoryPoolId("test"), new DataSize(bytes, BYTE));
+    }
+}
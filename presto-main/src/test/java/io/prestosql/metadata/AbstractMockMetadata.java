@@ -17,12 +17,15 @@ import io.airlift.slice.Slice;
 import io.prestosql.Session;
 import io.prestosql.connector.ConnectorId;
 import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
 import io.prestosql.spi.connector.CatalogSchemaName;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorOutputMetadata;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.LimitApplicationResult;
 import io.prestosql.spi.connector.SystemTable;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.security.GrantInfo;
@@ -131,6 +134,18 @@ public abstract class AbstractMockMetadata
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<LimitApplicationResult<TableLayoutHandle>> applyLimit(Session session, TableLayoutHandle tableLayoutHandle, long limit)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<AggregationApplicationResult<TableLayoutHandle>> applyAggregation(Session session, TableLayoutHandle tableLayoutHandle, List<AggregateFunction> aggregates, List<ColumnHandle> groupingColumns)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Optional<PartitioningHandle> getCommonPartitioning(Session session, PartitioningHandle left, PartitioningHandle right)
     {
@@ -32,6 +32,7 @@ import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.ConnectorSplit;
 import io.prestosql.spi.connector.FixedPageSource;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 import io.prestosql.split.PageSourceProvider;
 import io.prestosql.sql.planner.plan.PlanNodeId;
@@ -55,6 +56,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
@@ -179,7 +181,8 @@ public class TestDriver
                                 .build());
                     }
                 },
-                ImmutableList.of());
+                ImmutableList.of(),
+                immediateFuture(TupleDomain.all()));
 
         PageConsumerOperator sink = createSinkOperator(types);
         Driver driver = Driver.createDriver(driverContext, source, sink);
@@ -277,7 +280,8 @@ public class TestDriver
                                 .build());
                     }
                 },
-                ImmutableList.of());
+                ImmutableList.of(),
+                immediateFuture(TupleDomain.all()));
 
         Driver driver = Driver.createDriver(driverContext, source, createSinkOperator(types));
         // the table scan operator will request memory revocation with requestMemoryRevoking()
@@ -305,7 +309,8 @@ public class TestDriver
                                 .build());
                     }
                 },
-                ImmutableList.of());
+                ImmutableList.of(),
+                immediateFuture(TupleDomain.all()));
 
         BrokenOperator brokenOperator = new BrokenOperator(driverContext.addOperatorContext(0, new PlanNodeId("test"), "source"));
         final Driver driver = Driver.createDriver(driverContext, source, brokenOperator);
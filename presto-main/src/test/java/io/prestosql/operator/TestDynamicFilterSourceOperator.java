@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.operator.DynamicFilterSourceOperator.Channel;
+import io.prestosql.operator.DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.testing.TestingTaskContext.createTaskContext;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+
+@Test(singleThreaded = true)
+public class TestDynamicFilterSourceOperator
+{
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+    private DriverContext driverContext;
+    private List<TupleDomain<String>> publishedDomains;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+        driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        publishedDomains = new ArrayList<>();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testCollectMultipleColumns()
+    {
+        OperatorFactory operatorFactory = createOperatorFactory(1000, ImmutableList.of(new Channel("0", BIGINT, 0), new Channel("1", VARCHAR, 1)));
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR)
+                .row(1L, "a")
+                .row(2L, "b")
+                .pageBreak()
+                .row(2L, null)
+                .row(null, "c")
+                .build();
+
+        OperatorAssertion.assertOperatorEquals(operatorFactory, ImmutableList.of(BIGINT, VARCHAR), driverContext, input, input);
+
+        assertEquals(publishedDomains, ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0", Domain.create(ValueSet.of(BIGINT, 1L, 2L), false),
+                "1", Domain.create(ValueSet.of(VARCHAR, utf8Slice("a"), utf8Slice("b"), utf8Slice("c")), false)))));
+    }
+
+    @Test
+    public void testFallbackToRange()
+    {
+        OperatorFactory operatorFactory = createOperatorFactory(3, ImmutableList.of(new Channel("0", BIGINT, 0)));
+        List<Page> input = rowPagesBuilder(BIGINT)
+                .addSequencePage(2, 10)
+                .addSequencePage(5, 3)
+                .build();
+
+        OperatorAssertion.assertOperatorEquals(operatorFactory, ImmutableList.of(BIGINT), driverContext, input, input);
+
+        assertEquals(publishedDomains, ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0", Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 3L, true, 11L, true)), false)))));
+    }
+
+    @Test
+    public void testEmptyBuildSide()
+    {
+        OperatorFactory operatorFactory = createOperatorFactory(1000, ImmutableList.of(new Channel("0", BIGINT, 0)));
+        List<Page> input = rowPagesBuilder(BIGINT)
+                .row((Object) null)
+                .build();
+
+        OperatorAssertion.assertOperatorEquals(operatorFactory, ImmutableList.of(BIGINT), driverContext, input, input);
+
+        assertEquals(publishedDomains, ImmutableList.of(TupleDomain.none()));
+    }
+
+    private OperatorFactory createOperatorFactory(int maxFilterPositionsCount, List<Channel> channels)
+    {
+        return new DynamicFilterSourceOperatorFactory(
+                0,
+                new PlanNodeId("PLAN_NODE_ID"),
+                publishedDomains::add,
+                channels,
+                maxFilterPositionsCount,
+                new DataSize(1, MEGABYTE));
+    }
+}
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.prestosql.operator.ExchangeClientConfig.ExchangeTransport;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -34,13 +35,17 @@ public class TestExchangeClientConfig
     {
         assertRecordedDefaults(recordDefaults(ExchangeClientConfig.class)
                 .setMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
+                .setMergeMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setConcurrentRequestMultiplier(3)
                 .setMinErrorDuration(new Duration(5, TimeUnit.MINUTES))
                 .setMaxErrorDuration(new Duration(5, TimeUnit.MINUTES))
                 .setMaxResponseSize(new HttpClientConfig().getMaxContentLength())
                 .setPageBufferClientMaxCallbackThreads(25)
                 .setClientThreads(25)
-                .setAcknowledgePages(true));
+                .setAcknowledgePages(true)
+                .setTransport(ExchangeTransport.HTTP)
+                .setStreamingPort(8089)
+                .setStreamingSharedSecret(null));
     }
 
     @Test
@@ -48,6 +53,7 @@ public class TestExchangeClientConfig
     {
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("exchange.max-buffer-size", "1GB")
+                .put("exchange.merge.max-buffer-size", "8MB")
                 .put("exchange.concurrent-request-multiplier", "13")
                 .put("exchange.min-error-duration", "13s")
                 .put("exchange.max-error-duration", "33s")
@@ -55,17 +61,24 @@ public class TestExchangeClientConfig
                 .put("exchange.client-threads", "2")
                 .put("exchange.page-buffer-client.max-callback-threads", "16")
                 .put("exchange.acknowledge-pages", "false")
+                .put("exchange.transport", "STREAMING")
+                .put("exchange.streaming.port", "9000")
+                .put("exchange.streaming.shared-secret", "secret")
                 .build();
 
         ExchangeClientConfig expected = new ExchangeClientConfig()
                 .setMaxBufferSize(new DataSize(1, Unit.GIGABYTE))
+                .setMergeMaxBufferSize(new DataSize(8, Unit.MEGABYTE))
                 .setConcurrentRequestMultiplier(13)
                 .setMinErrorDuration(new Duration(33, TimeUnit.SECONDS))
                 .setMaxErrorDuration(new Duration(33, TimeUnit.SECONDS))
                 .setMaxResponseSize(new DataSize(1, Unit.MEGABYTE))
                 .setClientThreads(2)
                 .setPageBufferClientMaxCallbackThreads(16)
-                .setAcknowledgePages(false);
+                .setAcknowledgePages(false)
+                .setTransport(ExchangeTransport.STREAMING)
+                .setStreamingPort(9000)
+                .setStreamingSharedSecret("secret");
 
         assertFullMapping(properties, expected);
     }
@@ -28,6 +28,7 @@ import io.prestosql.operator.HashAggregationOperator.HashAggregationOperatorFact
 import io.prestosql.operator.aggregation.InternalAggregationFunction;
 import io.prestosql.operator.aggregation.builder.HashAggregationBuilder;
 import io.prestosql.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import io.prestosql.operator.aggregation.builder.SkipAggregationBuilder;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.block.PageBuilderStatus;
@@ -91,6 +92,7 @@ import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -199,7 +201,8 @@ public class TestHashAggregationOperator
                 succinctBytes(memoryLimitForMergeWithMemory),
                 spillerFactory,
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(memoryLimitForMerge);
 
@@ -256,7 +259,8 @@ public class TestHashAggregationOperator
                 succinctBytes(memoryLimitForMergeWithMemory),
                 spillerFactory,
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(memoryLimitForMerge);
         MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, BIGINT, BIGINT, DOUBLE, VARCHAR, BIGINT, BIGINT)
@@ -304,7 +308,8 @@ public class TestHashAggregationOperator
                 succinctBytes(memoryLimitForMergeWithMemory),
                 spillerFactory,
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         Operator operator = operatorFactory.createOperator(driverContext);
         toPages(operator, input.iterator(), revokeMemoryWhenAddingPages);
@@ -346,7 +351,8 @@ public class TestHashAggregationOperator
                 100_000,
                 Optional.of(new DataSize(16, MEGABYTE)),
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         toPages(operatorFactory, driverContext, input);
     }
@@ -386,7 +392,8 @@ public class TestHashAggregationOperator
                 succinctBytes(memoryLimitForMergeWithMemory),
                 spillerFactory,
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         toPages(operatorFactory, driverContext, input, revokeMemoryWhenAddingPages);
     }
@@ -408,7 +415,8 @@ public class TestHashAggregationOperator
                 1,
                 Optional.of(new DataSize(16, MEGABYTE)),
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         // get result with yield; pick a relatively small buffer for aggregator's memory usage
         GroupByHashYieldResult result;
@@ -460,7 +468,8 @@ public class TestHashAggregationOperator
                 100_000,
                 Optional.of(new DataSize(16, MEGABYTE)),
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         toPages(operatorFactory, driverContext, input);
     }
@@ -494,7 +503,8 @@ public class TestHashAggregationOperator
                 100_000,
                 Optional.of(new DataSize(16, MEGABYTE)),
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         assertEquals(toPages(operatorFactory, createDriverContext(), input).size(), 2);
     }
@@ -525,7 +535,8 @@ public class TestHashAggregationOperator
                 100_000,
                 Optional.of(new DataSize(1, KILOBYTE)),
                 joinCompiler,
-                true);
+                true,
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(1024);
 
@@ -581,6 +592,78 @@ public class TestHashAggregationOperator
         assertEquals(driverContext.getMemoryUsage(), 0);
     }
 
+    @Test(dataProvider = "hashEnabled")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 10)
+                .addSequencePage(10, 20)
+                .build();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.PARTIAL,
+                false,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                Optional.of(new DataSize(16, MEGABYTE)),
+                false,
+                succinctBytes(8),
+                succinctBytes(Integer.MAX_VALUE),
+                spillerFactory,
+                joinCompiler,
+                true,
+                Optional.of(new PartialAggregationController(5, 0.8)));
+
+        DriverContext driverContext = createDriverContext();
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .pages(rowPagesBuilder(BIGINT, BIGINT).addSequencePage(30, 0, 0).build())
+                .build();
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            Iterator<Page> inputIterator = input.iterator();
+
+            // all keys of the first page are unique, so the groups are flushed right away
+            operator.addInput(inputIterator.next());
+            assertFalse(operator.needsInput());
+            List<Page> outputPages = new ArrayList<>();
+            while (!operator.needsInput()) {
+                Page output = operator.getOutput();
+                if (output != null) {
+                    outputPages.add(output);
+                }
+            }
+
+            // the remaining input bypasses the hash table
+            operator.addInput(inputIterator.next());
+            assertTrue(((HashAggregationOperator) operator).getAggregationBuilder() instanceof SkipAggregationBuilder);
+            outputPages.addAll(toPages(operator, inputIterator));
+
+            if (hashEnabled) {
+                outputPages = dropChannel(outputPages, ImmutableList.of(1));
+            }
+            MaterializedResult actual = toMaterializedResult(operator.getOperatorContext().getSession(), expected.getTypes(), outputPages);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+
+            PartialAggregationInfo info = (PartialAggregationInfo) operator.getOperatorContext().getOperatorStats().getInfo();
+            assertEquals(info.getAggregatedInputPositions(), 10);
+            assertEquals(info.getAggregatedOutputPositions(), 10);
+            assertEquals(info.getPassThroughPositions(), 20);
+            assertEquals(info.getOperatorCount(), 1);
+            assertEquals(info.getSkippedOperatorCount(), 1);
+        }
+    }
+
     @Test
     public void testMergeWithMemorySpill()
     {
@@ -611,7 +694,8 @@ public class TestHashAggregationOperator
                 succinctBytes(Integer.MAX_VALUE),
                 spillerFactory,
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(smallPagesSpillThresholdSize);
 
@@ -667,7 +751,8 @@ public class TestHashAggregationOperator
                 succinctBytes(Integer.MAX_VALUE),
                 new FailingSpillerFactory(),
                 joinCompiler,
-                false);
+                false,
+                Optional.empty());
 
         try {
             toPages(operatorFactory, driverContext, input);
@@ -708,7 +793,8 @@ public class TestHashAggregationOperator
                 100_000,
                 Optional.of(new DataSize(16, MEGABYTE)),
                 joinCompiler,
-                useSystemMemory);
+                useSystemMemory,
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(1024);
 
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.predicate.ValueSet;
+import org.testng.annotations.Test;
+
+import java.util.function.Consumer;
+
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDynamicFilter
+{
+    @Test
+    public void testUnionOfPartitions()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(3);
+        Consumer<TupleDomain<String>> consumer = filter.getTupleDomainConsumer();
+
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of("0", Domain.singleValue(BIGINT, 1L))));
+        consumer.accept(TupleDomain.none());
+        assertFalse(filter.getResultFuture().isDone());
+
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of("0", Domain.singleValue(BIGINT, 7L))));
+        assertTrue(filter.getResultFuture().isDone());
+        assertEquals(
+                getFutureValue(filter.getResultFuture()),
+                TupleDomain.withColumnDomains(ImmutableMap.of("0", Domain.create(ValueSet.of(BIGINT, 1L, 7L), false))));
+    }
+
+    @Test
+    public void testEmptyPartitions()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(2);
+        filter.getTupleDomainConsumer().accept(TupleDomain.none());
+        filter.getTupleDomainConsumer().accept(TupleDomain.none());
+        assertEquals(getFutureValue(filter.getResultFuture()), TupleDomain.none());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTooManyPartitions()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(1);
+        filter.getTupleDomainConsumer().accept(TupleDomain.all());
+        filter.getTupleDomainConsumer().accept(TupleDomain.all());
+    }
+}
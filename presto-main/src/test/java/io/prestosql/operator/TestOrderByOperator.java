@@ -13,26 +13,43 @@
  */
 package io.prestosql.operator;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import io.prestosql.ExceededMemoryLimitException;
+import io.prestosql.RowPagesBuilder;
+import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.operator.OrderByOperator.OrderByOperatorFactory;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.Spiller;
+import io.prestosql.spiller.SpillerFactory;
+import io.prestosql.sql.gen.OrderingCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.testing.MaterializedResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.operator.OperatorAssertion.assertOperatorEquals;
+import static io.prestosql.operator.OperatorAssertion.finishOperator;
 import static io.prestosql.operator.OperatorAssertion.toPages;
 import static io.prestosql.spi.block.SortOrder.ASC_NULLS_LAST;
 import static io.prestosql.spi.block.SortOrder.DESC_NULLS_LAST;
@@ -43,6 +60,10 @@ import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.testing.TestingTaskContext.createTaskContext;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -50,6 +71,13 @@ public class TestOrderByOperator
     private ExecutorService executor;
     private ScheduledExecutorService scheduledExecutor;
     private DriverContext driverContext;
+    private DummySpillerFactory spillerFactory;
+
+    @DataProvider
+    public static Object[][] spillEnabled()
+    {
+        return new Object[][] {{false}, {true}};
+    }
 
     @BeforeMethod
     public void setUp()
@@ -59,6 +87,7 @@ public class TestOrderByOperator
         driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
                 .addPipelineContext(0, true, true, false)
                 .addDriverContext();
+        spillerFactory = new DummySpillerFactory();
     }
 
     @AfterMethod
@@ -66,10 +95,11 @@ public class TestOrderByOperator
     {
         executor.shutdownNow();
         scheduledExecutor.shutdownNow();
+        spillerFactory = null;
     }
 
-    @Test
-    public void testSingleFieldKey()
+    @Test(dataProvider = "spillEnabled")
+    public void testSingleFieldKey(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
                 .row(1L, 0.1)
@@ -87,7 +117,10 @@ public class TestOrderByOperator
                 10,
                 ImmutableList.of(0),
                 ImmutableList.of(ASC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                Optional.of(spillerFactory),
+                new OrderingCompiler());
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE)
                 .row(-0.1)
@@ -99,8 +132,8 @@ public class TestOrderByOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
-    @Test
-    public void testMultiFieldKey()
+    @Test(dataProvider = "spillEnabled")
+    public void testMultiFieldKey(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
                 .row("a", 1L)
@@ -118,7 +151,10 @@ public class TestOrderByOperator
                 10,
                 ImmutableList.of(0, 1),
                 ImmutableList.of(ASC_NULLS_LAST, DESC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                Optional.of(spillerFactory),
+                new OrderingCompiler());
 
         MaterializedResult expected = MaterializedResult.resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
                 .row("a", 4L)
@@ -130,8 +166,8 @@ public class TestOrderByOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
-    @Test
-    public void testReverseOrder()
+    @Test(dataProvider = "spillEnabled")
+    public void testReverseOrder(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
                 .row(1L, 0.1)
@@ -149,7 +185,10 @@ public class TestOrderByOperator
                 10,
                 ImmutableList.of(0),
                 ImmutableList.of(DESC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                Optional.of(spillerFactory),
+                new OrderingCompiler());
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
                 .row(4L)
@@ -184,8 +223,164 @@ public class TestOrderByOperator
                 10,
                 ImmutableList.of(0),
                 ImmutableList.of(ASC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                false,
+                Optional.empty(),
+                new OrderingCompiler());
 
         toPages(operatorFactory, driverContext, input);
     }
+
+    @Test
+    public void testSpillMergesSortedRuns()
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .row(5L, 0.5)
+                .row(2L, 0.2)
+                .pageBreak()
+                .row(-1L, -0.1)
+                .row(4L, 0.4)
+                .pageBreak()
+                .row(3L, 0.3)
+                .row(1L, 0.1)
+                .build();
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                ImmutableList.of(1),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                true,
+                Optional.of(spillerFactory),
+                new OrderingCompiler());
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE)
+                .row(-0.1)
+                .row(0.1)
+                .row(0.2)
+                .row(0.3)
+                .row(0.4)
+                .row(0.5)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertEquals(spillerFactory.getSpillsCount(), 3);
+    }
+
+    @Test
+    public void testSpillWhenFinishingWithoutMemory()
+    {
+        // the sort keys are a permutation of the row numbers, and the padding makes the index much larger than its positions
+        int rowCount = 50_000;
+        String padding = Strings.repeat("x", 100);
+        RowPagesBuilder inputBuilder = rowPagesBuilder(BIGINT, DOUBLE, VARCHAR);
+        for (int row = 0; row < rowCount; row++) {
+            long key = (row * 7919L) % rowCount;
+            inputBuilder.row(key, (double) key, padding);
+            if (row % 1000 == 999) {
+                inputBuilder.pageBreak();
+            }
+        }
+        List<Page> input = inputBuilder.build();
+
+        // the revocable index cannot be converted to user memory when the input is finished
+        PagesIndex pagesIndex = new PagesIndex.TestingFactory(false).newPagesIndex(ImmutableList.of(BIGINT, DOUBLE, VARCHAR), 10);
+        input.forEach(pagesIndex::addPage);
+        DriverContext driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION, new DataSize(pagesIndex.getEstimatedSize().toBytes() - 1, Unit.BYTE))
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        SettableFuture<?> spillFuture = SettableFuture.create();
+        spillerFactory.setSpillFuture(spillFuture);
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE, VARCHAR),
+                ImmutableList.of(1),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                true,
+                Optional.of(spillerFactory),
+                new OrderingCompiler());
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            input.forEach(operator::addInput);
+
+            // the index is spilled instead, and the operator blocks until the spill completes
+            operator.finish();
+            assertEquals(spillerFactory.getSpillsCount(), 1);
+            assertFalse(operator.isBlocked().isDone());
+            assertNull(operator.getOutput());
+
+            spillFuture.set(null);
+            assertTrue(operator.isBlocked().isDone());
+            List<Page> output = finishOperator(operator);
+
+            int position = 0;
+            for (Page page : output) {
+                for (int i = 0; i < page.getPositionCount(); i++) {
+                    assertEquals(DOUBLE.getDouble(page.getBlock(0), i), (double) position);
+                    position++;
+                }
+            }
+            assertEquals(position, rowCount);
+        }
+        catch (Exception e) {
+            throwIfUnchecked(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class DummySpillerFactory
+            implements SpillerFactory
+    {
+        private long spillsCount;
+        private ListenableFuture<?> spillFuture = immediateFuture(null);
+
+        @Override
+        public Spiller create(List<Type> types, SpillContext spillContext, AggregatedMemoryContext memoryContext)
+        {
+            return new Spiller()
+            {
+                private final List<Iterable<Page>> spills = new ArrayList<>();
+
+                @Override
+                public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+                {
+                    spillsCount++;
+                    spills.add(ImmutableList.copyOf(pageIterator));
+                    return spillFuture;
+                }
+
+                @Override
+                public List<Iterator<Page>> getSpills()
+                {
+                    return spills.stream()
+                            .map(Iterable::iterator)
+                            .collect(toImmutableList());
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+        }
+
+        public long getSpillsCount()
+        {
+            return spillsCount;
+        }
+
+        public void setSpillFuture(ListenableFuture<?> spillFuture)
+        {
+            this.spillFuture = spillFuture;
+        }
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import io.airlift.units.DataSize;
+import io.prestosql.block.BlockEncodingManager;
+import io.prestosql.execution.StateMachine;
+import io.prestosql.execution.buffer.BufferResult;
+import io.prestosql.execution.buffer.OutputBuffers;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.execution.buffer.PartitionedOutputBuffer;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.memory.context.SimpleLocalMemoryContext;
+import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputFactory;
+import io.prestosql.operator.exchange.LocalPartitionGenerator;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.type.ArrayType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.testing.MaterializedResult;
+import io.prestosql.testing.MaterializedRow;
+import io.prestosql.testing.TestingTaskContext;
+import io.prestosql.type.TypeRegistry;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.block.BlockAssertions.createLongDictionaryBlock;
+import static io.prestosql.block.BlockAssertions.createRLEBlock;
+import static io.prestosql.execution.buffer.BufferState.OPEN;
+import static io.prestosql.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPartitionedOutputOperator
+{
+    private static final int PARTITION_COUNT = 4;
+    private static final int POSITION_COUNT = 1000;
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, INTEGER, SMALLINT, BOOLEAN, DOUBLE, BIGINT, new ArrayType(BIGINT));
+
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+    private final ScheduledExecutorService scheduledExecutor = newScheduledThreadPool(1, daemonThreadsNamed("test-scheduledExecutor-%s"));
+    private final PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false);
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testOptimizedRepartitioning()
+            throws Exception
+    {
+        List<Page> input = ImmutableList.of(createPage(), createPage());
+        List<Multiset<MaterializedRow>> expected = partition(input, false, OptionalInt.empty(), new DataSize(1, GIGABYTE));
+        List<Multiset<MaterializedRow>> actual = partition(input, true, OptionalInt.empty(), new DataSize(1, GIGABYTE));
+        assertEquals(actual, expected);
+
+        int rowCount = 0;
+        for (Multiset<MaterializedRow> rows : actual) {
+            rowCount += rows.size();
+        }
+        assertEquals(rowCount, input.size() * POSITION_COUNT);
+    }
+
+    @Test
+    public void testOptimizedRepartitioningFlushesPages()
+            throws Exception
+    {
+        // a small buffer forces a page for each partition after each input page
+        List<Page> input = ImmutableList.of(createPage(), createPage(), createPage());
+        List<Multiset<MaterializedRow>> expected = partition(input, false, OptionalInt.empty(), new DataSize(1, BYTE));
+        List<Multiset<MaterializedRow>> actual = partition(input, true, OptionalInt.empty(), new DataSize(1, BYTE));
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testOptimizedRepartitioningReplicatesNulls()
+            throws Exception
+    {
+        List<Page> input = ImmutableList.of(createPage());
+        List<Multiset<MaterializedRow>> expected = partition(input, false, OptionalInt.of(0), new DataSize(1, MEGABYTE));
+        List<Multiset<MaterializedRow>> actual = partition(input, true, OptionalInt.of(0), new DataSize(1, MEGABYTE));
+        assertEquals(actual, expected);
+
+        // rows with a null partitioning key are sent to every partition
+        for (Multiset<MaterializedRow> rows : actual) {
+            assertTrue(rows.stream().anyMatch(row -> row.getField(0) == null));
+        }
+    }
+
+    private List<Multiset<MaterializedRow>> partition(List<Page> input, boolean optimizedRepartitioning, OptionalInt nullChannel, DataSize maxMemory)
+            throws Exception
+    {
+        OutputBuffers buffers = createInitialEmptyOutputBuffers(PARTITIONED);
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            buffers = buffers.withBuffer(new OutputBufferId(partition), partition);
+        }
+        PartitionedOutputBuffer buffer = new PartitionedOutputBuffer(
+                "task-instance-id",
+                new StateMachine<>("bufferState", scheduledExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                buffers.withNoMoreBufferIds(),
+                new DataSize(Long.MAX_VALUE, BYTE),
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                scheduledExecutor);
+
+        PartitionFunction partitionFunction = new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), PARTITION_COUNT);
+        PartitionedOutputFactory outputFactory = new PartitionedOutputFactory(
+                partitionFunction,
+                ImmutableList.of(0),
+                ImmutableList.of(Optional.empty()),
+                nullChannel.isPresent(),
+                nullChannel,
+                buffer,
+                maxMemory,
+                optimizedRepartitioning);
+        DriverContext driverContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        Operator operator = outputFactory
+                .createOutputOperator(0, new PlanNodeId("test"), TYPES, Function.identity(), serdeFactory)
+                .createOperator(driverContext);
+
+        for (Page page : input) {
+            operator.addInput(page);
+        }
+        operator.finish();
+        buffer.setNoMorePages();
+
+        PagesSerde serde = serdeFactory.createPagesSerde();
+        ImmutableList.Builder<Multiset<MaterializedRow>> partitions = ImmutableList.builder();
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            BufferResult result = buffer.get(new OutputBufferId(partition), 0, new DataSize(1, GIGABYTE)).get();
+            MaterializedResult.Builder rows = MaterializedResult.resultBuilder(TEST_SESSION, TYPES);
+            for (SerializedPage serializedPage : result.getSerializedPages()) {
+                rows.page(serde.deserialize(serializedPage));
+            }
+            // the order of the rows within a partition is not defined
+            partitions.add(ImmutableMultiset.copyOf(rows.build().getMaterializedRows()));
+        }
+        return partitions.build();
+    }
+
+    private static Page createPage()
+    {
+        BlockBuilder bigintBlock = BIGINT.createBlockBuilder(null, POSITION_COUNT);
+        BlockBuilder varcharBlock = VARCHAR.createBlockBuilder(null, POSITION_COUNT);
+        BlockBuilder integerBlock = INTEGER.createBlockBuilder(null, POSITION_COUNT);
+        BlockBuilder smallintBlock = SMALLINT.createBlockBuilder(null, POSITION_COUNT);
+        BlockBuilder booleanBlock = BOOLEAN.createBlockBuilder(null, POSITION_COUNT);
+        ArrayType arrayType = new ArrayType(BIGINT);
+        BlockBuilder arrayBlock = arrayType.createBlockBuilder(null, POSITION_COUNT);
+        for (int position = 0; position < POSITION_COUNT; position++) {
+            if (position % 7 == 0) {
+                bigintBlock.appendNull();
+                varcharBlock.appendNull();
+                integerBlock.appendNull();
+                smallintBlock.appendNull();
+                booleanBlock.appendNull();
+                arrayBlock.appendNull();
+                continue;
+            }
+            BIGINT.writeLong(bigintBlock, position);
+            VARCHAR.writeSlice(varcharBlock, utf8Slice("value" + position));
+            INTEGER.writeLong(integerBlock, position * 3);
+            SMALLINT.writeLong(smallintBlock, position % 100);
+            BOOLEAN.writeBoolean(booleanBlock, position % 2 == 0);
+            BlockBuilder elements = arrayBlock.beginBlockEntry();
+            BIGINT.writeLong(elements, position);
+            elements.appendNull();
+            arrayBlock.closeEntry();
+        }
+
+        Block[] blocks = {
+                bigintBlock.build(),
+                varcharBlock.build(),
+                integerBlock.build(),
+                smallintBlock.build(),
+                booleanBlock.build(),
+                createRLEBlock(42.0, POSITION_COUNT),
+                createLongDictionaryBlock(0, POSITION_COUNT),
+                arrayBlock.build()};
+        return new Page(POSITION_COUNT, blocks);
+    }
+}
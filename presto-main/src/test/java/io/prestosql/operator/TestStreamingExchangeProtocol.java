@@ -0,0 +1,233 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.execution.buffer.BufferResult;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.operator.HttpPageBufferClient.PagesResponse;
+import io.prestosql.operator.StreamingExchangeProtocol.Request;
+import io.prestosql.operator.StreamingExchangeProtocol.ResponseReader;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.List;
+import java.util.Optional;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.execution.buffer.PageCompression.UNCOMPRESSED;
+import static io.prestosql.operator.StreamingExchangeProtocol.RequestType.ABORT_RESULTS;
+import static io.prestosql.operator.StreamingExchangeProtocol.RequestType.ACKNOWLEDGE_RESULTS;
+import static io.prestosql.operator.StreamingExchangeProtocol.RequestType.GET_RESULTS;
+import static io.prestosql.operator.StreamingExchangeProtocol.computeChallengeResponse;
+import static io.prestosql.operator.StreamingExchangeProtocol.createChallenge;
+import static io.prestosql.operator.StreamingExchangeProtocol.decodeRequest;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeAbortResults;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeError;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeRequest;
+import static io.prestosql.operator.StreamingExchangeProtocol.encodeResults;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestStreamingExchangeProtocol
+{
+    @Test
+    public void testRequests()
+            throws IOException
+    {
+        ByteBuffer input = concat(
+                encodeRequest(new Request(GET_RESULTS, "query.1.2", "3", 42, 1024)),
+                encodeRequest(new Request(ACKNOWLEDGE_RESULTS, "query.1.2", "3", 42, 0)),
+                encodeRequest(new Request(ABORT_RESULTS, "query.1.2", "3", 0, 0)));
+
+        // a partial request is left in the buffer
+        ByteBuffer partial = input.duplicate();
+        partial.limit(10);
+        assertEquals(decodeRequest(partial), Optional.empty());
+        assertEquals(partial.position(), 0);
+
+        Request request = decodeRequest(input).get();
+        assertEquals(request.getType(), GET_RESULTS);
+        assertEquals(request.getTaskId(), "query.1.2");
+        assertEquals(request.getBufferId(), "3");
+        assertEquals(request.getToken(), 42);
+        assertEquals(request.getMaxSizeInBytes(), 1024);
+
+        request = decodeRequest(input).get();
+        assertEquals(request.getType(), ACKNOWLEDGE_RESULTS);
+        assertEquals(request.getToken(), 42);
+
+        request = decodeRequest(input).get();
+        assertEquals(request.getType(), ABORT_RESULTS);
+
+        assertFalse(input.hasRemaining());
+        assertEquals(decodeRequest(input), Optional.empty());
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Invalid streaming exchange request type: 9")
+    public void testInvalidRequest()
+            throws IOException
+    {
+        decodeRequest(ByteBuffer.wrap(new byte[] {9, 0, 0, 0, 0}));
+    }
+
+    @Test
+    public void testResults()
+            throws IOException
+    {
+        List<SerializedPage> pages = ImmutableList.of(
+                new SerializedPage(utf8Slice("first page"), UNCOMPRESSED, 3, 10),
+                new SerializedPage(utf8Slice("second"), UNCOMPRESSED, 5, 6));
+
+        // the response arrives a few bytes at a time
+        PagesResponse response = readResults(encodeResults(new BufferResult("instance", 7, 9, true, pages)));
+        assertEquals(response.getTaskInstanceId(), "instance");
+        assertEquals(response.getToken(), 7);
+        assertEquals(response.getNextToken(), 9);
+        assertTrue(response.isClientComplete());
+        assertEquals(response.getPages().size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            SerializedPage expected = pages.get(i);
+            SerializedPage actual = response.getPages().get(i);
+            assertEquals(actual.getSlice(), expected.getSlice());
+            assertEquals(actual.getCompression(), expected.getCompression());
+            assertEquals(actual.getPositionCount(), expected.getPositionCount());
+            assertEquals(actual.getUncompressedSizeInBytes(), expected.getUncompressedSizeInBytes());
+        }
+
+        response = readResults(encodeResults(BufferResult.emptyResults("instance", 9, false)));
+        assertEquals(response.getToken(), 9);
+        assertEquals(response.getNextToken(), 9);
+        assertFalse(response.isClientComplete());
+        assertTrue(response.getPages().isEmpty());
+    }
+
+    @Test
+    public void testAbortResults()
+            throws IOException
+    {
+        ResponseReader reader = new ResponseReader(ABORT_RESULTS);
+        assertTrue(reader.read(new ChunkedChannel(encodeAbortResults(), 1)));
+        reader.checkSuccess();
+    }
+
+    @Test(expectedExceptions = PageTransportErrorException.class, expectedExceptionsMessageRegExp = "Streaming exchange request failed: Unknown buffer")
+    public void testError()
+            throws IOException
+    {
+        readResults(new ByteBuffer[] {encodeError("Unknown buffer")});
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testTruncatedResponse()
+            throws IOException
+    {
+        ByteBuffer[] buffers = encodeResults(new BufferResult("instance", 7, 9, true, ImmutableList.of(new SerializedPage(utf8Slice("page"), UNCOMPRESSED, 1, 4))));
+        buffers[1].limit(2);
+        readResults(buffers);
+    }
+
+    @Test
+    public void testChallengeResponse()
+    {
+        byte[] challenge = createChallenge();
+        assertEquals(computeChallengeResponse("secret", challenge), computeChallengeResponse("secret", challenge));
+        assertNotEquals(computeChallengeResponse("secret", challenge), computeChallengeResponse("other", challenge));
+        assertNotEquals(computeChallengeResponse("secret", challenge), computeChallengeResponse("secret", createChallenge()));
+    }
+
+    private static PagesResponse readResults(ByteBuffer[] buffers)
+            throws IOException
+    {
+        ResponseReader reader = new ResponseReader(GET_RESULTS);
+        ChunkedChannel channel = new ChunkedChannel(concat(buffers), 3);
+        while (!reader.read(channel)) {
+            // keep reading
+        }
+        return reader.getResults();
+    }
+
+    private static ByteBuffer concat(ByteBuffer... buffers)
+    {
+        int size = 0;
+        for (ByteBuffer buffer : buffers) {
+            size += buffer.remaining();
+        }
+        ByteBuffer result = ByteBuffer.allocate(size);
+        for (ByteBuffer buffer : buffers) {
+            result.put(buffer.duplicate());
+        }
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Returns at most the specified number of bytes per read, like a non-blocking socket.
+     */
+    private static class ChunkedChannel
+            implements ScatteringByteChannel
+    {
+        private final ByteBuffer data;
+        private final int chunkSize;
+
+        public ChunkedChannel(ByteBuffer data, int chunkSize)
+        {
+            this.data = data;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(ByteBuffer destination)
+        {
+            return (int) read(new ByteBuffer[] {destination}, 0, 1);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations)
+        {
+            return read(destinations, 0, destinations.length);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length)
+        {
+            if (!data.hasRemaining()) {
+                return -1;
+            }
+            int read = 0;
+            for (int i = offset; i < offset + length && read < chunkSize && data.hasRemaining(); i++) {
+                ByteBuffer destination = destinations[i];
+                while (destination.hasRemaining() && read < chunkSize && data.hasRemaining()) {
+                    destination.put(data.get());
+                    read++;
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -19,6 +19,7 @@ import io.prestosql.operator.WorkProcessor.ProcessState;
 import io.prestosql.operator.WorkProcessor.TransformationState;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -180,6 +181,33 @@ public class TestWorkProcessor
         assertFinishes(mergedStream);
     }
 
+    @Test(timeOut = 5000)
+    public void testMergeSortedManyStreams()
+    {
+        ImmutableList.Builder<WorkProcessor<Integer>> streams = ImmutableList.builder();
+        List<Integer> expected = new ArrayList<>();
+        for (int stream = 0; stream < 37; stream++) {
+            ImmutableList.Builder<ProcessState<Integer>> states = ImmutableList.builder();
+            // every third stream is empty, the remaining streams have different lengths
+            int length = stream % 3 == 0 ? 0 : stream;
+            for (int i = 0; i < length; i++) {
+                int value = i * 7 + stream % 5;
+                states.add(ProcessState.ofResult(value));
+                expected.add(value);
+            }
+            states.add(ProcessState.finished());
+            streams.add(processorFrom(states.build()));
+        }
+        expected.sort(Comparator.naturalOrder());
+
+        WorkProcessor<Integer> mergedStream = WorkProcessorUtils.mergeSorted(streams.build(), Comparator.comparingInt(value -> value));
+
+        for (int value : expected) {
+            assertResult(mergedStream, value);
+        }
+        assertFinishes(mergedStream);
+    }
+
     @Test(timeOut = 5000)
     public void testYield()
     {
@@ -18,6 +18,9 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.prestosql.SequencePageBuilder;
 import io.prestosql.execution.Lifespan;
+import io.prestosql.memory.ElasticBufferBudget;
+import io.prestosql.memory.ElasticBufferLimit;
+import io.prestosql.memory.MemoryPool;
 import io.prestosql.operator.InterpretedHashGenerator;
 import io.prestosql.operator.PageAssertions;
 import io.prestosql.operator.PipelineExecutionStrategy;
@@ -25,16 +28,25 @@ import io.prestosql.operator.exchange.LocalExchange.LocalExchangeFactory;
 import io.prestosql.operator.exchange.LocalExchange.LocalExchangeSinkFactory;
 import io.prestosql.operator.exchange.LocalExchange.LocalExchangeSinkFactoryId;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.memory.MemoryPoolId;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.Spiller;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.testing.Assertions.assertContains;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.operator.PipelineExecutionStrategy.GROUPED_EXECUTION;
 import static io.prestosql.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
 import static io.prestosql.spi.type.BigintType.BIGINT;
@@ -554,6 +566,66 @@ public class TestLocalExchange
         }
     }
 
+    @Test
+    public void testSpillWhenGrowthIsRevoked()
+    {
+        MemoryPool pool = new MemoryPool(new MemoryPoolId("test"), new DataSize(1, MEGABYTE));
+        ElasticBufferBudget budget = new ElasticBufferBudget(new QueryId("test_query"), () -> pool, pool::getMaxBytes, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        List<TestingSpiller> spillers = new ArrayList<>();
+        LocalExchangeFactory localExchangeFactory = new LocalExchangeFactory(
+                SINGLE_DISTRIBUTION,
+                1,
+                TYPES,
+                ImmutableList.of(),
+                Optional.empty(),
+                UNGROUPED_EXECUTION,
+                ElasticBufferLimit.elastic(retainedSizeOfPages(1), retainedSizeOfPages(10), 1.0, budget),
+                Optional.of(() -> {
+                    TestingSpiller spiller = new TestingSpiller();
+                    spillers.add(spiller);
+                    return spiller;
+                }));
+        LocalExchangeSinkFactoryId localExchangeSinkFactoryId = localExchangeFactory.newSinkFactoryId();
+        localExchangeFactory.noMoreSinkFactories();
+
+        run(localExchangeFactory, UNGROUPED_EXECUTION, exchange -> {
+            LocalExchangeSinkFactory sinkFactory = exchange.getSinkFactory(localExchangeSinkFactoryId);
+            LocalExchangeSink sink = sinkFactory.createSink();
+            sinkFactory.close();
+            sinkFactory.noMoreSinkFactories();
+            LocalExchangeSource source = exchange.getSource(0);
+
+            // the buffer grows beyond its base size
+            sink.addPage(createPage(0));
+            sink.addPage(createPage(1));
+            sink.addPage(createPage(2));
+            assertSinkCanWrite(sink);
+            assertExchangeTotalBufferedBytes(exchange, 3);
+
+            // the buffered pages are spilled and their memory is released
+            assertEquals(budget.requestRevoking(), retainedSizeOfPages(2));
+            assertEquals(spillers.size(), 1);
+            assertExchangeTotalBufferedBytes(exchange, 0);
+            assertEquals(source.getBufferInfo().getBufferedPages(), 0);
+
+            // nothing is spilled while the buffer is within its base size
+            sink.addPage(createPage(3));
+            assertEquals(budget.requestRevoking(), 0);
+            assertEquals(spillers.size(), 1);
+            assertExchangeTotalBufferedBytes(exchange, 1);
+
+            // the spilled pages are read before the pages buffered after them
+            assertRemovePage(source, createPage(0));
+            assertRemovePage(source, createPage(1));
+            assertRemovePage(source, createPage(2));
+            assertRemovePage(source, createPage(3));
+            assertTrue(spillers.get(0).isClosed());
+
+            sink.finish();
+            assertSourceFinished(source);
+        });
+    }
+
     private void run(LocalExchangeFactory localExchangeFactory, PipelineExecutionStrategy pipelineExecutionStrategy, Consumer<LocalExchange> test)
     {
         switch (pipelineExecutionStrategy) {
@@ -663,4 +735,37 @@ public class TestLocalExchange
     {
         return RETAINED_PAGE_SIZE.toBytes() * count;
     }
+
+    private static class TestingSpiller
+            implements Spiller
+    {
+        private final List<List<Page>> spills = new ArrayList<>();
+        private boolean closed;
+
+        @Override
+        public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+        {
+            spills.add(ImmutableList.copyOf(pageIterator));
+            return immediateFuture(null);
+        }
+
+        @Override
+        public List<Iterator<Page>> getSpills()
+        {
+            return spills.stream()
+                    .map(List::iterator)
+                    .collect(toImmutableList());
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+        public boolean isClosed()
+        {
+            return closed;
+        }
+    }
 }
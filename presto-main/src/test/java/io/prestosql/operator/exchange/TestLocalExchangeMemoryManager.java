@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.exchange;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.ElasticBufferBudget;
+import io.prestosql.memory.ElasticBufferLimit;
+import io.prestosql.memory.MemoryPool;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.memory.MemoryPoolId;
+import org.testng.annotations.Test;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalExchangeMemoryManager
+{
+    @Test
+    public void testElasticLimit()
+    {
+        QueryId queryId = new QueryId("test_query");
+        MemoryPool pool = new MemoryPool(new MemoryPoolId("test"), new DataSize(10_000, BYTE));
+        ElasticBufferBudget budget = new ElasticBufferBudget(queryId, () -> pool, () -> 400, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        ElasticBufferLimit limit = ElasticBufferLimit.elastic(100, 1000, 1.0, budget);
+        LocalExchangeMemoryManager memoryManager = new LocalExchangeMemoryManager(limit);
+        LocalExchangeMemoryManager otherMemoryManager = new LocalExchangeMemoryManager(limit);
+
+        // the first buffer grows by the 400 bytes the query may use
+        memoryManager.updateMemoryUsage(500);
+        assertTrue(memoryManager.getNotFullFuture().isDone());
+        memoryManager.updateMemoryUsage(1);
+        ListenableFuture<?> notFullFuture = memoryManager.getNotFullFuture();
+        assertFalse(notFullFuture.isDone());
+
+        // the second buffer shares the growth, so it is limited to its base size
+        otherMemoryManager.updateMemoryUsage(101);
+        ListenableFuture<?> otherNotFullFuture = otherMemoryManager.getNotFullFuture();
+        assertFalse(otherNotFullFuture.isDone());
+
+        // draining the first buffer unblocks it and releases growth
+        memoryManager.updateMemoryUsage(-301);
+        assertTrue(notFullFuture.isDone());
+
+        // the second buffer unblocks with the released growth
+        otherMemoryManager.updateMemoryUsage(0);
+        assertTrue(otherNotFullFuture.isDone());
+        assertTrue(otherMemoryManager.getNotFullFuture().isDone());
+    }
+}
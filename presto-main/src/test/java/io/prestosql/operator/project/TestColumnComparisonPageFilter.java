@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.project;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.sql.relational.RowExpression;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.block.BlockAssertions.createIntsBlock;
+import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
+import static io.prestosql.block.BlockAssertions.createLongsBlock;
+import static io.prestosql.block.BlockAssertions.createStringsBlock;
+import static io.prestosql.metadata.Signature.internalOperator;
+import static io.prestosql.spi.function.OperatorType.ADD;
+import static io.prestosql.spi.function.OperatorType.BETWEEN;
+import static io.prestosql.spi.function.OperatorType.EQUAL;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN_OR_EQUAL;
+import static io.prestosql.spi.function.OperatorType.LESS_THAN;
+import static io.prestosql.spi.function.OperatorType.MULTIPLY;
+import static io.prestosql.spi.function.OperatorType.NOT_EQUAL;
+import static io.prestosql.spi.function.OperatorType.SUBTRACT;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.spi.type.VarcharType.createVarcharType;
+import static io.prestosql.sql.relational.Expressions.call;
+import static io.prestosql.sql.relational.Expressions.constant;
+import static io.prestosql.sql.relational.Expressions.constantNull;
+import static io.prestosql.sql.relational.Expressions.field;
+import static io.prestosql.sql.relational.Signatures.inSignature;
+import static io.prestosql.sql.relational.Signatures.logicalExpressionSignature;
+import static io.prestosql.sql.tree.LogicalBinaryExpression.Operator.AND;
+import static io.prestosql.sql.tree.LogicalBinaryExpression.Operator.OR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestColumnComparisonPageFilter
+{
+    @Test
+    public void testConjunction()
+    {
+        // 5 < x AND y <> 3 AND z IN (1, 2, NULL)
+        RowExpression expression = and(
+                compare(GREATER_THAN, field(2, BIGINT), constant(5L, BIGINT)),
+                and(
+                        compare(NOT_EQUAL, field(0, BIGINT), constant(3L, BIGINT)),
+                        call(inSignature(), BOOLEAN, field(1, BIGINT), constant(1L, BIGINT), constant(2L, BIGINT), constantNull(BIGINT))));
+        PageFilter filter = ColumnComparisonPageFilter.tryCreate(expression).get();
+        assertEquals(filter.getInputChannels().getInputChannels(), ImmutableList.of(0, 1, 2));
+
+        Page page = new Page(
+                createLongsBlock(3L, 4L, null, 4L, 4L, 4L),
+                createLongsBlock(1L, 1L, 1L, 2L, 3L, null),
+                createLongSequenceBlock(5, 11));
+        assertSelectedPositions(filter.filter(null, page), 1, 3);
+    }
+
+    @Test
+    public void testRangeComparisons()
+    {
+        Page page = new Page(createLongSequenceBlock(0, 10));
+
+        PageFilter lessThan = ColumnComparisonPageFilter.tryCreate(compare(LESS_THAN, constant(7L, BIGINT), field(0, BIGINT))).get();
+        assertSelectedPositions(lessThan.filter(null, page), 8, 9);
+
+        PageFilter between = ColumnComparisonPageFilter.tryCreate(call(
+                internalOperator(BETWEEN, BOOLEAN, ImmutableList.of(BIGINT, BIGINT, BIGINT)),
+                BOOLEAN,
+                field(0, BIGINT),
+                constant(2L, BIGINT),
+                constant(4L, BIGINT))).get();
+        assertSelectedPositions(between.filter(null, page), 2, 3, 4);
+
+        PageFilter all = ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN, field(0, BIGINT), constant(-1L, BIGINT))).get();
+        SelectedPositions selectedPositions = all.filter(null, page);
+        assertFalse(selectedPositions.isList());
+        assertEquals(selectedPositions.size(), 10);
+    }
+
+    @Test
+    public void testVarcharComparisons()
+    {
+        Page page = new Page(createStringsBlock("apple", "banana", null, "cherry", "foo", "fo"));
+        RowExpression foo = constant(utf8Slice("foo"), createVarcharType(3));
+
+        assertSelectedPositions(ColumnComparisonPageFilter.tryCreate(compare(EQUAL, field(0, VARCHAR), foo)).get().filter(null, page), 4);
+        assertSelectedPositions(ColumnComparisonPageFilter.tryCreate(compare(NOT_EQUAL, foo, field(0, VARCHAR))).get().filter(null, page), 0, 1, 3, 5);
+        assertSelectedPositions(ColumnComparisonPageFilter.tryCreate(compare(LESS_THAN, field(0, VARCHAR), constant(utf8Slice("banana"), VARCHAR))).get().filter(null, page), 0);
+        assertSelectedPositions(ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN_OR_EQUAL, field(0, VARCHAR), constant(utf8Slice("cherry"), VARCHAR))).get().filter(null, page), 3, 4, 5);
+
+        PageFilter in = ColumnComparisonPageFilter.tryCreate(call(
+                inSignature(),
+                BOOLEAN,
+                field(0, VARCHAR),
+                constant(utf8Slice("banana"), VARCHAR),
+                constant(utf8Slice("cherry"), VARCHAR),
+                constantNull(VARCHAR))).get();
+        assertSelectedPositions(in.filter(null, page), 1, 3);
+    }
+
+    @Test
+    public void testArithmetic()
+    {
+        Page page = new Page(createIntsBlock(1, 2, null, 4, 5));
+
+        PageFilter add = ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN, arithmetic(ADD, field(0, INTEGER), constant(1L, INTEGER)), constant(4L, INTEGER))).get();
+        assertSelectedPositions(add.filter(null, page), 3, 4);
+
+        PageFilter subtract = ColumnComparisonPageFilter.tryCreate(compare(EQUAL, arithmetic(SUBTRACT, constant(10L, INTEGER), field(0, INTEGER)), constant(6L, INTEGER))).get();
+        assertSelectedPositions(subtract.filter(null, page), 3);
+
+        PageFilter multiply = ColumnComparisonPageFilter.tryCreate(call(
+                inSignature(),
+                BOOLEAN,
+                arithmetic(MULTIPLY, field(0, INTEGER), constant(2L, INTEGER)),
+                constant(2L, INTEGER),
+                constant(8L, INTEGER))).get();
+        assertSelectedPositions(multiply.filter(null, page), 0, 3);
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "integer addition overflow: 2147483647 \\+ 1")
+    public void testArithmeticOverflow()
+    {
+        Page page = new Page(createIntsBlock(1, Integer.MAX_VALUE));
+        PageFilter filter = ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN, arithmetic(ADD, field(0, INTEGER), constant(1L, INTEGER)), constant(0L, INTEGER))).get();
+        filter.filter(null, page);
+    }
+
+    @Test
+    public void testUnsupportedExpressions()
+    {
+        assertFalse(ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN, field(0, DOUBLE), constant(1.0, DOUBLE))).isPresent());
+        assertFalse(ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN, field(0, BIGINT), field(1, BIGINT))).isPresent());
+        assertFalse(ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN, field(0, BIGINT), constantNull(BIGINT))).isPresent());
+        assertFalse(ColumnComparisonPageFilter.tryCreate(call(
+                logicalExpressionSignature(OR),
+                BOOLEAN,
+                compare(GREATER_THAN, field(0, BIGINT), constant(1L, BIGINT)),
+                compare(LESS_THAN, field(0, BIGINT), constant(0L, BIGINT)))).isPresent());
+        assertTrue(ColumnComparisonPageFilter.tryCreate(compare(GREATER_THAN, field(0, BIGINT), constant(1L, BIGINT))).isPresent());
+    }
+
+    private static RowExpression compare(OperatorType operator, RowExpression left, RowExpression right)
+    {
+        return call(internalOperator(operator, BOOLEAN, ImmutableList.of(left.getType(), right.getType())), BOOLEAN, left, right);
+    }
+
+    private static RowExpression arithmetic(OperatorType operator, RowExpression left, RowExpression right)
+    {
+        return call(internalOperator(operator, left.getType(), ImmutableList.of(left.getType(), right.getType())), left.getType(), left, right);
+    }
+
+    private static RowExpression and(RowExpression left, RowExpression right)
+    {
+        return call(logicalExpressionSignature(AND), BOOLEAN, left, right);
+    }
+
+    private static void assertSelectedPositions(SelectedPositions selectedPositions, int... expected)
+    {
+        assertTrue(selectedPositions.isList());
+        int[] positions = Arrays.copyOfRange(selectedPositions.getPositions(), selectedPositions.getOffset(), selectedPositions.getOffset() + selectedPositions.size());
+        List<Integer> actual = Ints.asList(positions);
+        assertEquals(actual, Ints.asList(expected));
+    }
+}
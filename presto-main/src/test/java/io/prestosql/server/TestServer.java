@@ -15,6 +15,7 @@ package io.prestosql.server;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Bytes;
 import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
@@ -33,6 +34,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
 
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
@@ -45,7 +47,9 @@ import static io.airlift.json.JsonCodec.jsonCodec;
 import static io.prestosql.SystemSessionProperties.HASH_PARTITION_COUNT;
 import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
 import static io.prestosql.SystemSessionProperties.QUERY_MAX_MEMORY;
+import static io.prestosql.client.ClientCapabilities.COLUMNAR_DATA;
 import static io.prestosql.client.PrestoHeaders.PRESTO_CATALOG;
+import static io.prestosql.client.PrestoHeaders.PRESTO_CLIENT_CAPABILITIES;
 import static io.prestosql.client.PrestoHeaders.PRESTO_CLIENT_INFO;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PATH;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PREPARED_STATEMENT;
@@ -58,6 +62,7 @@ import static io.prestosql.client.PrestoHeaders.PRESTO_TRANSACTION_ID;
 import static io.prestosql.client.PrestoHeaders.PRESTO_USER;
 import static io.prestosql.spi.StandardErrorCode.INCOMPATIBLE_CLIENT;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
 import static javax.ws.rs.core.Response.Status.OK;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
@@ -177,6 +182,57 @@ public class TestServer
         assertEquals(rows, ImmutableList.of(ImmutableList.of("system")));
     }
 
+    @Test
+    public void testColumnarData()
+    {
+        assertColumnarData(
+                "SELECT * FROM (VALUES (true, 1, BIGINT '2', DOUBLE '3.5', REAL '4.5', 'abc', X'0102', DATE '2001-08-22'), (NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL))",
+                true,
+                ImmutableList.of(
+                        Arrays.asList(true, 1, 2L, 3.5, 4.5f, "abc", ImmutableList.of((byte) 1, (byte) 2), "2001-08-22"),
+                        Arrays.asList(null, null, null, null, null, null, null, null)));
+
+        // the results of queries with types that are not supported by the columnar format are sent as JSON
+        assertColumnarData(
+                "SELECT 1, DECIMAL '1.5'",
+                false,
+                ImmutableList.of(ImmutableList.of(1, "1.5")));
+    }
+
+    private void assertColumnarData(String sql, boolean expectColumnarData, List<List<Object>> expectedRows)
+    {
+        Request request = preparePost()
+                .setUri(uriFor("/v1/statement"))
+                .setBodyGenerator(createStaticBodyGenerator(sql, UTF_8))
+                .setHeader(PRESTO_USER, "user")
+                .setHeader(PRESTO_SOURCE, "source")
+                .setHeader(PRESTO_CLIENT_CAPABILITIES, COLUMNAR_DATA.toString())
+                .build();
+
+        JsonResponse<QueryResults> queryResults = client.execute(request, createFullJsonResponseHandler(QUERY_RESULTS_CODEC));
+        ImmutableList.Builder<List<Object>> data = ImmutableList.builder();
+        boolean columnarData = false;
+        while (true) {
+            if (queryResults.getValue().getData() != null) {
+                columnarData |= queryResults.getJson().contains("\"columnarData\"");
+                for (List<Object> row : queryResults.getValue().getData()) {
+                    // compare binary values by content
+                    data.add(row.stream()
+                            .map(value -> (value instanceof byte[]) ? Bytes.asList((byte[]) value) : value)
+                            .collect(toList()));
+                }
+            }
+
+            if (queryResults.getValue().getNextUri() == null) {
+                break;
+            }
+            queryResults = client.execute(prepareGet().setUri(queryResults.getValue().getNextUri()).build(), createFullJsonResponseHandler(QUERY_RESULTS_CODEC));
+        }
+        assertNull(queryResults.getValue().getError());
+        assertEquals(columnarData, expectColumnarData);
+        assertEquals(data.build(), expectedRows);
+    }
+
     @Test
     public void testTransactionSupport()
     {
@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.protocol;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.primitives.Bytes;
+import io.airlift.json.JsonCodec;
+import io.prestosql.RowPagesBuilder;
+import io.prestosql.client.ClientTypeSignature;
+import io.prestosql.client.Column;
+import io.prestosql.client.ColumnarData;
+import io.prestosql.client.QueryResults;
+import io.prestosql.client.StatementStats;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.spi.type.VarcharType.createVarcharType;
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestColumnarDataEncoder
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+    private static final List<Type> TYPES = ImmutableList.of(BOOLEAN, TINYINT, SMALLINT, INTEGER, BIGINT, REAL, DOUBLE, DATE, VARCHAR, createVarcharType(10), VARBINARY);
+
+    @Test
+    public void testAllTypes()
+    {
+        List<Page> pages = new ArrayList<>(rowPagesBuilder(TYPES)
+                .row(true, 1, 2, 3, 4L, 5.5f, 6.5, 11556, "abc", "short", new byte[] {1, 2, 3})
+                .row(null, null, null, null, null, null, null, null, null, null, null)
+                .pageBreak()
+                .row(false, -128, -32768, Integer.MIN_VALUE, Long.MIN_VALUE, Float.NaN, Double.NEGATIVE_INFINITY, -1, "", "\u00e9t\u00e9", new byte[0])
+                .build());
+        // dictionary blocks
+        pages.add(pages.get(0).getPositions(new int[] {1, 0, 1}, 0, 3));
+
+        assertColumnarData(TYPES, pages);
+    }
+
+    @Test
+    public void testCompression()
+    {
+        RowPagesBuilder compressible = rowPagesBuilder(BIGINT, VARCHAR);
+        for (int i = 0; i < 1000; i++) {
+            compressible.row(i % 3, "value" + (i % 5));
+        }
+        assertTrue(isCompressed(assertColumnarData(ImmutableList.of(BIGINT, VARCHAR), compressible.build())));
+
+        Random random = new Random(42);
+        RowPagesBuilder incompressible = rowPagesBuilder(VARBINARY);
+        for (int i = 0; i < 100; i++) {
+            byte[] value = new byte[100];
+            random.nextBytes(value);
+            incompressible.row(value);
+        }
+        assertFalse(isCompressed(assertColumnarData(ImmutableList.of(VARBINARY), incompressible.build())));
+    }
+
+    private static boolean isCompressed(byte[] columnarData)
+    {
+        byte compression = columnarData[Integer.BYTES];
+        assertTrue(compression == ColumnarData.LZ4 || compression == ColumnarData.UNCOMPRESSED);
+        return compression == ColumnarData.LZ4;
+    }
+
+    /**
+     * Asserts that the pages are received by the client as the same rows as when they are sent as JSON.
+     */
+    private static byte[] assertColumnarData(List<Type> types, List<Page> pages)
+    {
+        List<Column> columns = types.stream()
+                .map(type -> new Column("col", type.getTypeSignature().toString(), new ClientTypeSignature(type.getTypeSignature().getBase())))
+                .collect(toList());
+
+        byte[] columnarData = ColumnarDataEncoder.encode(types, pages);
+        QueryResults columnarResults = QUERY_RESULTS_CODEC.fromJson(QUERY_RESULTS_CODEC.toJson(createQueryResults(columns, null, columnarData)));
+
+        List<RowIterable> rows = pages.stream()
+                .map(page -> new RowIterable(TEST_SESSION.toConnectorSession(), types, page))
+                .collect(toList());
+        QueryResults jsonResults = QUERY_RESULTS_CODEC.fromJson(QUERY_RESULTS_CODEC.toJson(createQueryResults(columns, Iterables.concat(rows), null)));
+
+        assertEquals(toComparableRows(columnarResults.getData()), toComparableRows(jsonResults.getData()));
+        return columnarData;
+    }
+
+    private static QueryResults createQueryResults(List<Column> columns, Iterable<List<Object>> data, byte[] columnarData)
+    {
+        return new QueryResults(
+                "20160128_214710_00012_rk68b",
+                URI.create("http://localhost/query.html?20160128_214710_00012_rk68b"),
+                null,
+                null,
+                columns,
+                data,
+                columnarData,
+                StatementStats.builder().setState("FINISHED").build(),
+                null,
+                ImmutableList.of(),
+                null,
+                null);
+    }
+
+    private static List<List<Object>> toComparableRows(Iterable<List<Object>> rows)
+    {
+        ImmutableList.Builder<List<Object>> comparableRows = ImmutableList.builder();
+        for (List<Object> row : rows) {
+            // compare binary values by content
+            comparableRows.add(row.stream()
+                    .map(value -> (value instanceof byte[]) ? Bytes.asList((byte[]) value) : value)
+                    .collect(toList()));
+        }
+        return comparableRows.build();
+    }
+}
@@ -19,38 +19,53 @@ import com.google.common.io.Files;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import io.prestosql.block.BlockEncodingManager;
 import io.prestosql.execution.buffer.PagesSerde;
-import io.prestosql.execution.buffer.PagesSerdeFactory;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.PageAssertions;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.type.Type;
 import io.prestosql.type.TypeRegistry;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.MoreFiles.listFiles;
 import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.spi.StandardErrorCode.CORRUPT_PAGE;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.DoubleType.DOUBLE;
 import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
 import static java.lang.Double.doubleToLongBits;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestFileSingleStreamSpiller
 {
     private static final List<Type> TYPES = ImmutableList.of(BIGINT, DOUBLE, VARBINARY);
 
-    private final ListeningExecutorService executor = listeningDecorator(newCachedThreadPool());
-    private final File spillPath = Files.createTempDir();
+    private ListeningExecutorService executor;
+    private File spillPath;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = listeningDecorator(newCachedThreadPool());
+        spillPath = Files.createTempDir();
+    }
 
     @AfterMethod
     public void tearDown()
@@ -64,11 +79,68 @@ public class TestFileSingleStreamSpiller
     public void testSpill()
             throws Exception
     {
-        PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false);
-        PagesSerde serde = serdeFactory.createPagesSerde();
+        assertSpill(SpillCompressionCodec.NONE, false, false);
+    }
+
+    @Test
+    public void testSpillCompression()
+            throws Exception
+    {
+        assertSpill(SpillCompressionCodec.LZ4, false, false);
+        assertSpill(SpillCompressionCodec.SNAPPY, false, false);
+    }
+
+    @Test
+    public void testSpillChecksum()
+            throws Exception
+    {
+        assertSpill(SpillCompressionCodec.NONE, true, false);
+        assertSpill(SpillCompressionCodec.LZ4, true, false);
+    }
+
+    @Test
+    public void testSpillEncryption()
+            throws Exception
+    {
+        assertSpill(SpillCompressionCodec.NONE, false, true);
+        assertSpill(SpillCompressionCodec.LZ4, true, true);
+    }
+
+    @Test
+    public void testCorruptedSpillFile()
+            throws Exception
+    {
+        FileSingleStreamSpiller spiller = createSpiller(SpillCompressionCodec.NONE, true, false, new SpillerStats(), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        spiller.spill(buildPage()).get();
+
+        // flip the last byte of the page data, which precedes the checksum
+        Path spillFile = getOnlyElement(listFiles(spillPath.toPath()));
+        try (RandomAccessFile file = new RandomAccessFile(spillFile.toFile(), "rw")) {
+            long position = file.length() - Long.BYTES - 1;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+
+        try {
+            ImmutableList.copyOf(spiller.getSpilledPages());
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), CORRUPT_PAGE.toErrorCode());
+        }
+        finally {
+            spiller.close();
+        }
+    }
+
+    private void assertSpill(SpillCompressionCodec compressionCodec, boolean checksumEnabled, boolean encryptionEnabled)
+            throws Exception
+    {
         SpillerStats spillerStats = new SpillerStats();
         LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
-        FileSingleStreamSpiller spiller = new FileSingleStreamSpiller(serde, executor, spillPath.toPath(), spillerStats, bytes -> {}, memoryContext);
+        FileSingleStreamSpiller spiller = createSpiller(compressionCodec, checksumEnabled, encryptionEnabled, spillerStats, memoryContext);
 
         Page page = buildPage();
 
@@ -94,20 +166,41 @@ public class TestFileSingleStreamSpiller
             PageAssertions.assertPageEquals(TYPES, page, spilledPages.get(i));
         }
 
+        assertTrue(spillerStats.getTotalSpilledBytes() > 0);
+        assertTrue(spillerStats.getTotalSpilledUncompressedBytes() > 0);
+        if (compressionCodec != SpillCompressionCodec.NONE) {
+            assertTrue(spillerStats.getTotalSpilledBytes() < spillerStats.getTotalSpilledUncompressedBytes());
+        }
+
         spiller.close();
         assertEquals(listFiles(spillPath.toPath()).size(), 0);
         assertEquals(memoryContext.getBytes(), 0);
     }
 
+    private FileSingleStreamSpiller createSpiller(
+            SpillCompressionCodec compressionCodec,
+            boolean checksumEnabled,
+            boolean encryptionEnabled,
+            SpillerStats spillerStats,
+            LocalMemoryContext memoryContext)
+    {
+        PagesSerde serde = compressionCodec.createPagesSerde(new BlockEncodingManager(new TypeRegistry()));
+        Optional<SpillCipher> spillCipher = encryptionEnabled ? Optional.of(new AesSpillCipher()) : Optional.empty();
+        return new FileSingleStreamSpiller(serde, spillCipher, checksumEnabled, executor, spillPath.toPath(), spillerStats, bytes -> {}, memoryContext);
+    }
+
     private Page buildPage()
     {
         BlockBuilder col1 = BIGINT.createBlockBuilder(null, 1);
         BlockBuilder col2 = DOUBLE.createBlockBuilder(null, 1);
         BlockBuilder col3 = VARBINARY.createBlockBuilder(null, 1);
 
-        col1.writeLong(42).closeEntry();
-        col2.writeLong(doubleToLongBits(43.0)).closeEntry();
-        col3.writeLong(doubleToLongBits(43.0)).writeLong(1).closeEntry();
+        // repeated values, so that the page can be compressed
+        for (int i = 0; i < 1000; i++) {
+            col1.writeLong(42).closeEntry();
+            col2.writeLong(doubleToLongBits(43.0)).closeEntry();
+            col3.writeLong(doubleToLongBits(43.0)).writeLong(1).closeEntry();
+        }
 
         return new Page(col1.build(), col2.build(), col3.build());
     }
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.metadata.MetadataManager;
+import io.prestosql.operator.project.ColumnComparisonPageFilter;
+import io.prestosql.operator.project.PageFilter;
+import io.prestosql.operator.project.SelectedPositions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.sql.relational.RowExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.metadata.Signature.internalOperator;
+import static io.prestosql.spi.function.OperatorType.ADD;
+import static io.prestosql.spi.function.OperatorType.EQUAL;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN;
+import static io.prestosql.spi.function.OperatorType.LESS_THAN_OR_EQUAL;
+import static io.prestosql.spi.function.OperatorType.MULTIPLY;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.sql.relational.Expressions.call;
+import static io.prestosql.sql.relational.Expressions.constant;
+import static io.prestosql.sql.relational.Expressions.field;
+import static io.prestosql.sql.relational.Signatures.logicalExpressionSignature;
+import static io.prestosql.sql.tree.LogicalBinaryExpression.Operator.AND;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkColumnComparisonPageFilter
+{
+    private static final int POSITIONS = 10_000;
+
+    private static final RowExpression COMPARISON = and(
+            call(internalOperator(GREATER_THAN, BOOLEAN, ImmutableList.of(BIGINT, BIGINT)), BOOLEAN, field(0, BIGINT), constant(100L, BIGINT)),
+            call(internalOperator(LESS_THAN_OR_EQUAL, BOOLEAN, ImmutableList.of(BIGINT, BIGINT)), BOOLEAN, field(1, BIGINT), constant(500L, BIGINT)));
+
+    private static final RowExpression ARITHMETIC = and(
+            call(internalOperator(GREATER_THAN, BOOLEAN, ImmutableList.of(BIGINT, BIGINT)), BOOLEAN, arithmetic(ADD, field(0, BIGINT), constant(10L, BIGINT)), constant(100L, BIGINT)),
+            call(internalOperator(LESS_THAN_OR_EQUAL, BOOLEAN, ImmutableList.of(BIGINT, BIGINT)), BOOLEAN, arithmetic(MULTIPLY, field(1, BIGINT), constant(2L, BIGINT)), constant(1000L, BIGINT)));
+
+    private static final RowExpression VARCHAR_COMPARISON = and(
+            call(internalOperator(EQUAL, BOOLEAN, ImmutableList.of(VARCHAR, VARCHAR)), BOOLEAN, field(2, VARCHAR), constant(utf8Slice("value_7"), VARCHAR)),
+            call(internalOperator(GREATER_THAN, BOOLEAN, ImmutableList.of(BIGINT, BIGINT)), BOOLEAN, field(0, BIGINT), constant(100L, BIGINT)));
+
+    @Param({"comparison", "arithmetic", "varchar"})
+    private String filter = "comparison";
+
+    @Param({"0", "0.1"})
+    private double nullRate;
+
+    private Page inputPage;
+    private PageFilter generatedFilter;
+    private PageFilter columnComparisonFilter;
+
+    @Setup
+    public void setup()
+    {
+        inputPage = new Page(createBlock(nullRate), createBlock(nullRate), createVarcharBlock(nullRate));
+
+        RowExpression expression;
+        switch (filter) {
+            case "comparison":
+                expression = COMPARISON;
+                break;
+            case "arithmetic":
+                expression = ARITHMETIC;
+                break;
+            case "varchar":
+                expression = VARCHAR_COMPARISON;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown filter: " + filter);
+        }
+
+        MetadataManager metadata = MetadataManager.createTestMetadataManager();
+        generatedFilter = new PageFunctionCompiler(metadata, 0).compileGeneratedFilter(expression, Optional.empty()).get();
+        columnComparisonFilter = ColumnComparisonPageFilter.tryCreate(expression).get();
+    }
+
+    @Benchmark
+    public SelectedPositions generated()
+    {
+        return generatedFilter.filter(null, inputPage);
+    }
+
+    @Benchmark
+    public SelectedPositions columnComparison()
+    {
+        return columnComparisonFilter.filter(null, inputPage);
+    }
+
+    private static Block createBlock(double nullRate)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, POSITIONS);
+        for (int i = 0; i < POSITIONS; i++) {
+            if (ThreadLocalRandom.current().nextDouble() < nullRate) {
+                blockBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(blockBuilder, ThreadLocalRandom.current().nextLong(1000));
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block createVarcharBlock(double nullRate)
+    {
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, POSITIONS);
+        for (int i = 0; i < POSITIONS; i++) {
+            if (ThreadLocalRandom.current().nextDouble() < nullRate) {
+                blockBuilder.appendNull();
+            }
+            else {
+                VARCHAR.writeSlice(blockBuilder, utf8Slice("value_" + ThreadLocalRandom.current().nextInt(10)));
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private static RowExpression arithmetic(OperatorType operator, RowExpression left, RowExpression right)
+    {
+        return call(internalOperator(operator, left.getType(), ImmutableList.of(left.getType(), right.getType())), left.getType(), left, right);
+    }
+
+    private static RowExpression and(RowExpression left, RowExpression right)
+    {
+        return call(logicalExpressionSignature(AND), BOOLEAN, left, right);
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        BenchmarkColumnComparisonPageFilter benchmark = new BenchmarkColumnComparisonPageFilter();
+        benchmark.nullRate = 0;
+        benchmark.setup();
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkColumnComparisonPageFilter.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
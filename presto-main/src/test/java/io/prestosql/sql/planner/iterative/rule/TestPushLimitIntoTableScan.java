@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.connector.ConnectorId;
+import io.prestosql.cost.StatsProvider;
+import io.prestosql.metadata.AbstractMockMetadata;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.metadata.TableLayoutHandle;
+import io.prestosql.plugin.tpch.TpchColumnHandle;
+import io.prestosql.plugin.tpch.TpchTableHandle;
+import io.prestosql.plugin.tpch.TpchTableLayoutHandle;
+import io.prestosql.spi.connector.LimitApplicationResult;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.sql.planner.assertions.MatchResult;
+import io.prestosql.sql.planner.assertions.Matcher;
+import io.prestosql.sql.planner.assertions.PlanMatchPattern;
+import io.prestosql.sql.planner.assertions.SymbolAliases;
+import io.prestosql.sql.planner.iterative.rule.test.BaseRuleTest;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.testing.TestingTransactionHandle;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.limit;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.node;
+
+public class TestPushLimitIntoTableScan
+        extends BaseRuleTest
+{
+    private PushLimitIntoTableScan pushLimitIntoTableScan;
+    private TableHandle nationTableHandle;
+    private TableLayoutHandle nationTableLayoutHandle;
+    private TableLayoutHandle limitedNationTableLayoutHandle;
+
+    @BeforeClass
+    public void setUpBeforeClass()
+    {
+        pushLimitIntoTableScan = new PushLimitIntoTableScan(tester().getMetadata());
+
+        ConnectorId connectorId = tester().getCurrentConnectorId();
+        nationTableHandle = new TableHandle(
+                connectorId,
+                new TpchTableHandle("nation", 1.0));
+        nationTableLayoutHandle = new TableLayoutHandle(
+                connectorId,
+                TestingTransactionHandle.create(),
+                new TpchTableLayoutHandle((TpchTableHandle) nationTableHandle.getConnectorHandle(), TupleDomain.all()));
+        limitedNationTableLayoutHandle = new TableLayoutHandle(
+                connectorId,
+                TestingTransactionHandle.create(),
+                new TpchTableLayoutHandle((TpchTableHandle) nationTableHandle.getConnectorHandle(), TupleDomain.none()));
+    }
+
+    @Test
+    public void doesNotFireIfTableScanHasNoTableLayout()
+    {
+        tester().assertThat(pushLimitIntoTableScan)
+                .on(p -> p.limit(
+                        1,
+                        p.tableScan(
+                                nationTableHandle,
+                                ImmutableList.of(p.symbol("nationkey", BIGINT)),
+                                ImmutableMap.of(p.symbol("nationkey", BIGINT), new TpchColumnHandle("nationkey", BIGINT)),
+                                Optional.empty())))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireIfConnectorDoesNotSupportLimit()
+    {
+        tester().assertThat(pushLimitIntoTableScan)
+                .on(p -> p.limit(
+                        1,
+                        p.tableScan(
+                                nationTableHandle,
+                                ImmutableList.of(p.symbol("nationkey", BIGINT)),
+                                ImmutableMap.of(p.symbol("nationkey", BIGINT), new TpchColumnHandle("nationkey", BIGINT)),
+                                Optional.of(nationTableLayoutHandle))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testPushLimitKeepsLimitIfNotGuaranteed()
+    {
+        tester().assertThat(new PushLimitIntoTableScan(applyingLimit(false)))
+                .on(p -> p.limit(
+                        1,
+                        p.tableScan(
+                                nationTableHandle,
+                                ImmutableList.of(p.symbol("nationkey", BIGINT)),
+                                ImmutableMap.of(p.symbol("nationkey", BIGINT), new TpchColumnHandle("nationkey", BIGINT)),
+                                Optional.of(nationTableLayoutHandle))))
+                .matches(limit(1, tableScanWithLayout(limitedNationTableLayoutHandle)));
+    }
+
+    @Test
+    public void testPushLimitRemovesLimitIfGuaranteed()
+    {
+        tester().assertThat(new PushLimitIntoTableScan(applyingLimit(true)))
+                .on(p -> p.limit(
+                        1,
+                        p.tableScan(
+                                nationTableHandle,
+                                ImmutableList.of(p.symbol("nationkey", BIGINT)),
+                                ImmutableMap.of(p.symbol("nationkey", BIGINT), new TpchColumnHandle("nationkey", BIGINT)),
+                                Optional.of(nationTableLayoutHandle))))
+                .matches(tableScanWithLayout(limitedNationTableLayoutHandle));
+    }
+
+    private Metadata applyingLimit(boolean limitGuaranteed)
+    {
+        return new AbstractMockMetadata()
+        {
+            @Override
+            public Optional<LimitApplicationResult<TableLayoutHandle>> applyLimit(Session session, TableLayoutHandle tableLayoutHandle, long limit)
+            {
+                if (tableLayoutHandle.equals(limitedNationTableLayoutHandle)) {
+                    return Optional.empty();
+                }
+                return Optional.of(new LimitApplicationResult<>(limitedNationTableLayoutHandle, limitGuaranteed));
+            }
+        };
+    }
+
+    private static PlanMatchPattern tableScanWithLayout(TableLayoutHandle expectedLayout)
+    {
+        return node(TableScanNode.class).with(new Matcher()
+        {
+            @Override
+            public boolean shapeMatches(PlanNode node)
+            {
+                return node instanceof TableScanNode;
+            }
+
+            @Override
+            public MatchResult detailMatches(PlanNode node, StatsProvider stats, Session session, Metadata metadata, SymbolAliases symbolAliases)
+            {
+                return new MatchResult(((TableScanNode) node).getLayout().equals(Optional.of(expectedLayout)));
+            }
+        });
+    }
+}
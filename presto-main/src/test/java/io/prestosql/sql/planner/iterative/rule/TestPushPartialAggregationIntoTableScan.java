@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.connector.ConnectorId;
+import io.prestosql.cost.StatsProvider;
+import io.prestosql.metadata.AbstractMockMetadata;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.metadata.TableLayoutHandle;
+import io.prestosql.plugin.tpch.TpchColumnHandle;
+import io.prestosql.plugin.tpch.TpchTableHandle;
+import io.prestosql.plugin.tpch.TpchTableLayoutHandle;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.assertions.MatchResult;
+import io.prestosql.sql.planner.assertions.Matcher;
+import io.prestosql.sql.planner.assertions.PlanMatchPattern;
+import io.prestosql.sql.planner.assertions.SymbolAliases;
+import io.prestosql.sql.planner.iterative.rule.test.BaseRuleTest;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.AggregationNode.Step;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.testing.TestingTransactionHandle;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.node;
+import static io.prestosql.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static org.testng.Assert.assertEquals;
+
+public class TestPushPartialAggregationIntoTableScan
+        extends BaseRuleTest
+{
+    private static final TpchColumnHandle NATIONKEY_COLUMN = new TpchColumnHandle("nationkey", BIGINT);
+    private static final TpchColumnHandle REGIONKEY_COLUMN = new TpchColumnHandle("regionkey", BIGINT);
+    private static final TpchColumnHandle AGGREGATE_COLUMN = new TpchColumnHandle("aggregate", BIGINT);
+
+    private TableHandle nationTableHandle;
+    private TableLayoutHandle nationTableLayoutHandle;
+    private TableLayoutHandle aggregatedNationTableLayoutHandle;
+
+    @BeforeClass
+    public void setUpBeforeClass()
+    {
+        ConnectorId connectorId = tester().getCurrentConnectorId();
+        nationTableHandle = new TableHandle(
+                connectorId,
+                new TpchTableHandle("nation", 1.0));
+        nationTableLayoutHandle = new TableLayoutHandle(
+                connectorId,
+                TestingTransactionHandle.create(),
+                new TpchTableLayoutHandle((TpchTableHandle) nationTableHandle.getConnectorHandle(), TupleDomain.all()));
+        aggregatedNationTableLayoutHandle = new TableLayoutHandle(
+                connectorId,
+                TestingTransactionHandle.create(),
+                new TpchTableLayoutHandle((TpchTableHandle) nationTableHandle.getConnectorHandle(), TupleDomain.none()));
+    }
+
+    @Test
+    public void doesNotFireIfConnectorDoesNotSupportAggregation()
+    {
+        tester().assertThat(new PushPartialAggregationIntoTableScan(tester().getMetadata()))
+                .on(p -> aggregationOverTableScan(p, PARTIAL))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireForSingleStepAggregation()
+    {
+        tester().assertThat(new PushPartialAggregationIntoTableScan(applyingAggregation()))
+                .on(p -> aggregationOverTableScan(p, SINGLE))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireForDistinctAggregation()
+    {
+        tester().assertThat(new PushPartialAggregationIntoTableScan(applyingAggregation()))
+                .on(p -> p.aggregation(aggregation -> aggregation
+                        .singleGroupingSet(p.symbol("regionkey", BIGINT))
+                        .addAggregation(p.symbol("count", BIGINT), expression("count(DISTINCT nationkey)"), ImmutableList.of(BIGINT))
+                        .step(PARTIAL)
+                        .source(nationTableScan(p))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testPushPartialAggregation()
+    {
+        tester().assertThat(new PushPartialAggregationIntoTableScan(applyingAggregation()))
+                .on(p -> aggregationOverTableScan(p, PARTIAL))
+                .matches(tableScanWithLayout(
+                        aggregatedNationTableLayoutHandle,
+                        ImmutableMap.of(
+                                new Symbol("regionkey"), REGIONKEY_COLUMN,
+                                new Symbol("count"), AGGREGATE_COLUMN)));
+    }
+
+    private PlanNode aggregationOverTableScan(PlanBuilder p, Step step)
+    {
+        return p.aggregation(aggregation -> aggregation
+                .singleGroupingSet(p.symbol("regionkey", BIGINT))
+                .addAggregation(p.symbol("count", BIGINT), expression("count(nationkey)"), ImmutableList.of(BIGINT))
+                .step(step)
+                .source(nationTableScan(p)));
+    }
+
+    private TableScanNode nationTableScan(PlanBuilder p)
+    {
+        return p.tableScan(
+                nationTableHandle,
+                ImmutableList.of(p.symbol("nationkey", BIGINT), p.symbol("regionkey", BIGINT)),
+                ImmutableMap.of(
+                        p.symbol("nationkey", BIGINT), NATIONKEY_COLUMN,
+                        p.symbol("regionkey", BIGINT), REGIONKEY_COLUMN),
+                Optional.of(nationTableLayoutHandle));
+    }
+
+    private Metadata applyingAggregation()
+    {
+        return new AbstractMockMetadata()
+        {
+            @Override
+            public Optional<AggregationApplicationResult<TableLayoutHandle>> applyAggregation(Session session, TableLayoutHandle tableLayoutHandle, List<AggregateFunction> aggregates, List<ColumnHandle> groupingColumns)
+            {
+                assertEquals(tableLayoutHandle, nationTableLayoutHandle);
+                assertEquals(aggregates, ImmutableList.of(new AggregateFunction("count", ImmutableList.of(NATIONKEY_COLUMN), BIGINT)));
+                assertEquals(groupingColumns, ImmutableList.of(REGIONKEY_COLUMN));
+                return Optional.of(new AggregationApplicationResult<>(aggregatedNationTableLayoutHandle, ImmutableList.of(AGGREGATE_COLUMN)));
+            }
+        };
+    }
+
+    private static PlanMatchPattern tableScanWithLayout(TableLayoutHandle expectedLayout, Map<Symbol, ColumnHandle> expectedAssignments)
+    {
+        return node(TableScanNode.class).with(new Matcher()
+        {
+            @Override
+            public boolean shapeMatches(PlanNode node)
+            {
+                return node instanceof TableScanNode;
+            }
+
+            @Override
+            public MatchResult detailMatches(PlanNode node, StatsProvider stats, Session session, Metadata metadata, SymbolAliases symbolAliases)
+            {
+                TableScanNode tableScan = (TableScanNode) node;
+                return new MatchResult(tableScan.getLayout().equals(Optional.of(expectedLayout)) &&
+                        tableScan.getAssignments().equals(expectedAssignments));
+            }
+        });
+    }
+}
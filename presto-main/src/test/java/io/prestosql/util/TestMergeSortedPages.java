@@ -25,7 +25,9 @@ import io.prestosql.spi.type.Type;
 import io.prestosql.testing.MaterializedResult;
 import org.testng.annotations.Test;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
@@ -41,6 +43,7 @@ import static io.prestosql.spi.type.IntegerType.INTEGER;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.testing.assertions.Assert.assertEquals;
+import static io.prestosql.util.MergeSortedPages.mergeSortedInLevels;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -378,6 +381,23 @@ public class TestMergeSortedPages
         assertTrue(mergedPages.isFinished());
     }
 
+    @Test
+    public void testMergeSortedInLevels()
+    {
+        List<WorkProcessor<Integer>> producers = IntStream.range(0, 10)
+                .mapToObj(source -> WorkProcessor.fromIterable(ImmutableList.of(source, source + 10, source + 20)))
+                .collect(toImmutableList());
+
+        WorkProcessor<Integer> merged = mergeSortedInLevels(producers, Comparator.naturalOrder(), 3);
+
+        ImmutableList.Builder<Integer> actual = ImmutableList.builder();
+        while (merged.process() && !merged.isFinished()) {
+            actual.add(merged.getResult());
+        }
+        assertTrue(merged.isFinished());
+        assertEquals(actual.build(), IntStream.range(0, 30).boxed().collect(toImmutableList()));
+    }
+
     private static MaterializedResult mergeSortedPages(
             List<Type> types,
             List<Integer> sortChannels,
@@ -107,6 +107,11 @@ public final class MemoryTrackingContext
         return systemAggregateMemoryContext.newLocalMemoryContext(allocationTag);
     }
 
+    public LocalMemoryContext newRevocableMemoryContext(String allocationTag)
+    {
+        return revocableAggregateMemoryContext.newLocalMemoryContext(allocationTag);
+    }
+
     public AggregatedMemoryContext aggregateUserMemoryContext()
     {
         return userAggregateMemoryContext;
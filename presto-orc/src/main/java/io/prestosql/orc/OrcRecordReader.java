@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
@@ -31,9 +32,11 @@ import io.prestosql.orc.metadata.MetadataReader;
 import io.prestosql.orc.metadata.OrcType;
 import io.prestosql.orc.metadata.OrcType.OrcTypeKind;
 import io.prestosql.orc.metadata.PostScript.HiveWriterVersion;
+import io.prestosql.orc.metadata.StripeFooter;
 import io.prestosql.orc.metadata.StripeInformation;
 import io.prestosql.orc.metadata.statistics.ColumnStatistics;
 import io.prestosql.orc.metadata.statistics.StripeStatistics;
+import io.prestosql.orc.reader.FilteredBlock;
 import io.prestosql.orc.reader.StreamReader;
 import io.prestosql.orc.reader.StreamReaders;
 import io.prestosql.orc.stream.InputStreamSources;
@@ -46,6 +49,7 @@ import org.openjdk.jol.info.ClassLayout;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +59,9 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
 import static io.prestosql.orc.OrcReader.BATCH_SIZE_GROWTH_FACTOR;
 import static io.prestosql.orc.OrcReader.MAX_BATCH_SIZE;
@@ -70,10 +77,13 @@ public class OrcRecordReader
         implements Closeable
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(OrcRecordReader.class).instanceSize();
+    private static final ListenableFuture<?> NOT_BLOCKED = immediateFuture(null);
 
     private final OrcDataSource orcDataSource;
 
     private final StreamReader[] streamReaders;
+    // rows of the current row group, up to the end of the current batch, that each column has not read or skipped yet
+    private final int[] unreadRows;
     private final long[] maxBytesPerCell;
     private long maxCombinedBytesPerRow;
 
@@ -93,6 +103,11 @@ public class OrcRecordReader
     private int currentStripe = -1;
     private AggregatedMemoryContext currentStripeSystemMemoryContext;
 
+    private final Optional<ReadAheadOrcDataSource> readAheadDataSource;
+    private int readAheadStripe = -1;
+    private boolean readAheadFooterOnly;
+    private ListenableFuture<?> readAheadFuture = NOT_BLOCKED;
+
     private final long fileRowCount;
     private final List<Long> stripeFilePositions;
     private long filePosition;
@@ -206,7 +221,15 @@ public class OrcRecordReader
         this.stripes = stripes.build();
         this.stripeFilePositions = stripeFilePositions.build();
 
-        orcDataSource = wrapWithCacheIfTinyStripes(orcDataSource, this.stripes, maxMergeDistance, tinyStripeThreshold);
+        OrcDataSource cachingDataSource = wrapWithCacheIfTinyStripes(orcDataSource, this.stripes, maxMergeDistance, tinyStripeThreshold);
+        if (cachingDataSource == orcDataSource && orcDataSource instanceof ReadAheadOrcDataSource) {
+            // tiny stripes are read together by the cache, so read-ahead is only used for other files
+            this.readAheadDataSource = Optional.of((ReadAheadOrcDataSource) orcDataSource);
+        }
+        else {
+            this.readAheadDataSource = Optional.empty();
+        }
+        orcDataSource = cachingDataSource;
         this.orcDataSource = orcDataSource;
         this.splitLength = splitLength;
 
@@ -237,8 +260,11 @@ public class OrcRecordReader
                 writeValidation);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build(), streamReadersSystemMemoryContext);
+        unreadRows = new int[streamReaders.length];
         maxBytesPerCell = new long[streamReaders.length];
         nextBatchSize = initialBatchSize;
+
+        startReadAhead();
     }
 
     private static boolean splitContainsStripe(long splitOffset, long splitLength, StripeInformation stripe)
@@ -367,9 +393,28 @@ public class OrcRecordReader
         return presentColumns.contains(hiveColumnIndex);
     }
 
+    /**
+     * Returns a future that is not done while the next batch would wait for the
+     * read-ahead of the next stripe.
+     */
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!readAheadDataSource.isPresent()) {
+            return NOT_BLOCKED;
+        }
+        updateReadAhead();
+        boolean lastBatchOfStripe = nextRowInGroup >= currentGroupRowCount && !rowGroups.hasNext();
+        if (lastBatchOfStripe && readAheadStripe == currentStripe + 1) {
+            return readAheadFuture;
+        }
+        return NOT_BLOCKED;
+    }
+
     public int nextBatch()
             throws IOException
     {
+        updateReadAhead();
+
         // update position for current row group (advancing resets them)
         filePosition += currentBatchSize;
         currentPosition += currentBatchSize;
@@ -397,9 +442,10 @@ public class OrcRecordReader
         nextBatchSize = min(currentBatchSize * BATCH_SIZE_GROWTH_FACTOR, MAX_BATCH_SIZE);
         currentBatchSize = toIntExact(min(currentBatchSize, currentGroupRowCount - nextRowInGroup));
 
-        for (StreamReader column : streamReaders) {
-            if (column != null) {
-                column.prepareNextRead(currentBatchSize);
+        // stream readers are positioned lazily when a column is read, so columns that are never read are skipped in bulk
+        for (int columnIndex = 0; columnIndex < streamReaders.length; columnIndex++) {
+            if (streamReaders[columnIndex] != null) {
+                unreadRows[columnIndex] += currentBatchSize;
             }
         }
         nextRowInGroup += currentBatchSize;
@@ -411,7 +457,79 @@ public class OrcRecordReader
     public Block readBlock(Type type, int columnIndex)
             throws IOException
     {
-        Block block = streamReaders[columnIndex].readBlock(type);
+        StreamReader streamReader = prepareBatchRead(columnIndex);
+        Block block = streamReader.readBlock(type);
+        updateMaxBytesPerCell(columnIndex, block);
+        return block;
+    }
+
+    /**
+     * Reads the current batch of the column and evaluates the filter on the decoded values.
+     */
+    public FilteredBlock readBlock(Type type, int columnIndex, ValueFilter filter)
+            throws IOException
+    {
+        StreamReader streamReader = prepareBatchRead(columnIndex);
+        FilteredBlock filteredBlock = streamReader.readBlock(type, filter);
+        updateMaxBytesPerCell(columnIndex, filteredBlock.getBlock());
+        return filteredBlock;
+    }
+
+    private StreamReader prepareBatchRead(int columnIndex)
+    {
+        StreamReader streamReader = streamReaders[columnIndex];
+        checkState(unreadRows[columnIndex] >= currentBatchSize, "Column %s has already been read in the current batch", columnIndex);
+
+        // skip the rows of earlier batches that were not read for this column
+        streamReader.prepareNextRead(unreadRows[columnIndex] - currentBatchSize);
+        streamReader.prepareNextRead(currentBatchSize);
+        unreadRows[columnIndex] = 0;
+        return streamReader;
+    }
+
+    /**
+     * Reads only the values at the specified positions of the current batch.
+     * The positions must be in increasing order. The rows before the first and
+     * after the last selected position are skipped in the streams, and the
+     * selected values in between are copied in bulk from the decoded block.
+     */
+    public Block readBlock(Type type, int columnIndex, int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(positionCount <= currentBatchSize, "positionCount is greater than the batch size");
+        if (positionCount == currentBatchSize) {
+            return readBlock(type, columnIndex);
+        }
+
+        StreamReader streamReader = streamReaders[columnIndex];
+        checkState(unreadRows[columnIndex] >= currentBatchSize, "Column %s has already been read in the current batch", columnIndex);
+        if (positionCount == 0) {
+            return type.createBlockBuilder(null, 0).build();
+        }
+        for (int i = 1; i < positionCount; i++) {
+            checkArgument(positions[i] > positions[i - 1], "positions must be in increasing order");
+        }
+
+        int first = positions[0];
+        int last = positions[positionCount - 1];
+        streamReader.prepareNextRead(unreadRows[columnIndex] - currentBatchSize + first);
+        streamReader.prepareNextRead(last - first + 1);
+        unreadRows[columnIndex] = currentBatchSize - last - 1;
+        Block block = streamReader.readBlock(type);
+
+        if (block.getPositionCount() != positionCount) {
+            int[] spanPositions = new int[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                spanPositions[i] = positions[i] - first;
+            }
+            block = block.copyPositions(spanPositions, 0, positionCount);
+        }
+        updateMaxBytesPerCell(columnIndex, block);
+        return block;
+    }
+
+    private void updateMaxBytesPerCell(int columnIndex, Block block)
+    {
         if (block.getPositionCount() > 0) {
             long bytesPerCell = block.getSizeInBytes() / block.getPositionCount();
             if (maxBytesPerCell[columnIndex] < bytesPerCell) {
@@ -420,7 +538,6 @@ public class OrcRecordReader
                 maxBatchSize = toIntExact(min(maxBatchSize, max(1, maxBlockBytes / maxCombinedBytesPerRow)));
             }
         }
-        return block;
     }
 
     public StreamReader getStreamReader(int index)
@@ -468,6 +585,7 @@ public class OrcRecordReader
         filePosition = stripeFilePositions.get(currentStripe) + currentRowGroup.getRowOffset();
 
         // give reader data streams from row group
+        Arrays.fill(unreadRows, 0);
         InputStreamSources rowGroupStreamSources = currentRowGroup.getStreamSources();
         for (StreamReader column : streamReaders) {
             if (column != null) {
@@ -507,6 +625,7 @@ public class OrcRecordReader
         validateWriteStripe(stripeInformation.getNumberOfRows());
 
         Stripe stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext);
+        startReadAhead();
         if (stripe != null) {
             // Give readers access to dictionary streams
             InputStreamSources dictionaryStreamSources = stripe.getDictionaryStreamSources();
@@ -521,6 +640,51 @@ public class OrcRecordReader
         }
     }
 
+    /**
+     * Starts reading the footer of the stripe after the current stripe. The data of the
+     * stripe is read ahead once the footer is read and the streams of the stripe are known.
+     */
+    private void startReadAhead()
+    {
+        if (!readAheadDataSource.isPresent()) {
+            return;
+        }
+        if (currentStripe >= 0) {
+            // the prefetched data of the current stripe was handed to the stream readers
+            StripeInformation stripe = stripes.get(currentStripe);
+            readAheadDataSource.get().discardBefore(stripe.getOffset() + stripe.getTotalLength());
+        }
+
+        readAheadStripe = currentStripe + 1;
+        if (readAheadStripe >= stripes.size()) {
+            readAheadFooterOnly = false;
+            readAheadFuture = NOT_BLOCKED;
+            return;
+        }
+        StripeInformation nextStripe = stripes.get(readAheadStripe);
+        DiskRange footerRange = new DiskRange(nextStripe.getOffset() + nextStripe.getIndexLength() + nextStripe.getDataLength(), toIntExact(nextStripe.getFooterLength()));
+        readAheadFuture = readAheadDataSource.get().prefetch(ImmutableList.of(footerRange));
+        readAheadFooterOnly = true;
+    }
+
+    private void updateReadAhead()
+    {
+        if (!readAheadFooterOnly || !readAheadFuture.isDone()) {
+            return;
+        }
+        readAheadFooterOnly = false;
+        StripeInformation stripe = stripes.get(readAheadStripe);
+        try {
+            // the footer is served from the prefetched data
+            StripeFooter stripeFooter = stripeReader.readStripeFooter(stripe, newSimpleAggregatedMemoryContext());
+            readAheadFuture = readAheadDataSource.get().prefetch(stripeReader.getIncludedDiskRanges(stripe, stripeFooter));
+        }
+        catch (IOException | RuntimeException e) {
+            // the stripe is read without read-ahead, which reports the failure if it persists
+            readAheadFuture = NOT_BLOCKED;
+        }
+    }
+
     private void validateWrite(Predicate<OrcWriteValidation> test, String messageFormat, Object... args)
             throws OrcCorruptionException
     {
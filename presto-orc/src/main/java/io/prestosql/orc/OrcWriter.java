@@ -16,8 +16,13 @@ package io.prestosql.orc;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Closer;
 import com.google.common.primitives.UnsignedBytes;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 import io.prestosql.orc.OrcWriteValidation.OrcWriteValidationBuilder;
 import io.prestosql.orc.OrcWriteValidation.OrcWriteValidationMode;
@@ -35,9 +40,11 @@ import io.prestosql.orc.metadata.statistics.ColumnStatistics;
 import io.prestosql.orc.metadata.statistics.StripeStatistics;
 import io.prestosql.orc.stream.OrcDataOutput;
 import io.prestosql.orc.stream.StreamDataOutput;
+import io.prestosql.orc.writer.BloomFilterBuilder;
 import io.prestosql.orc.writer.ColumnWriter;
 import io.prestosql.orc.writer.SliceDictionaryColumnWriter;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
 import io.prestosql.spi.type.Type;
 import org.joda.time.DateTimeZone;
 import org.openjdk.jol.info.ClassLayout;
@@ -46,20 +53,32 @@ import javax.annotation.Nullable;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
 import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.orc.OrcEncoding.DWRF;
 import static io.prestosql.orc.OrcReader.validateFile;
 import static io.prestosql.orc.OrcWriterStats.FlushReason.CLOSED;
 import static io.prestosql.orc.OrcWriterStats.FlushReason.DICTIONARY_FULL;
@@ -101,6 +120,9 @@ public final class OrcWriter
     private final Map<String, String> userMetadata;
     private final CompressedMetadataWriter metadataWriter;
     private final DateTimeZone hiveStorageTimeZone;
+    private final Optional<Executor> encodeExecutor;
+    private final Optional<Executor> writeExecutor;
+    private final int maxBufferedStripes;
 
     private final List<ClosedStripe> closedStripes = new ArrayList<>();
     private final List<OrcType> orcTypes;
@@ -112,6 +134,9 @@ public final class OrcWriter
     private int bufferedBytes;
     private long columnWritersRetainedBytes;
     private long closedStripesRetainedBytes;
+    private final Deque<BufferedStripe> bufferedStripes = new ArrayDeque<>();
+    private long bufferedStripesRetainedBytes;
+    private long writtenBytes;
     private long previouslyRecordedSizeInBytes;
     private boolean closed;
 
@@ -130,6 +155,30 @@ public final class OrcWriter
             boolean validate,
             OrcWriteValidationMode validationMode,
             OrcWriterStats stats)
+    {
+        this(orcDataSink, columnNames, types, orcEncoding, compression, options, userMetadata, hiveStorageTimeZone, validate, validationMode, stats, Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * @param encodeExecutor if present, the columns of a chunk are encoded in parallel on this executor
+     * @param writeExecutor if present, finished stripes are written to the data sink in the background
+     * on this executor. The writes block on the data sink, so this should not be the encode executor,
+     * where they would delay the encoding of other files.
+     */
+    public OrcWriter(
+            OrcDataSink orcDataSink,
+            List<String> columnNames,
+            List<Type> types,
+            OrcEncoding orcEncoding,
+            CompressionKind compression,
+            OrcWriterOptions options,
+            Map<String, String> userMetadata,
+            DateTimeZone hiveStorageTimeZone,
+            boolean validate,
+            OrcWriteValidationMode validationMode,
+            OrcWriterStats stats,
+            Optional<Executor> encodeExecutor,
+            Optional<Executor> writeExecutor)
     {
         this.validationBuilder = validate ? new OrcWriteValidationBuilder(validationMode, types)
                 .setStringStatisticsLimitInBytes(toIntExact(options.getMaxStringStatisticsLimit().toBytes())) : null;
@@ -142,6 +191,7 @@ public final class OrcWriter
 
         requireNonNull(options, "options is null");
         checkArgument(options.getStripeMaxSize().compareTo(options.getStripeMinSize()) >= 0, "stripeMaxSize must be greater than stripeMinSize");
+        checkArgument(orcEncoding != DWRF || options.getBloomFilterColumns().isEmpty(), "DWRF does not support bloom filters");
         this.stripeMinBytes = toIntExact(requireNonNull(options.getStripeMinSize(), "stripeMinSize is null").toBytes());
         this.stripeMaxBytes = toIntExact(requireNonNull(options.getStripeMaxSize(), "stripeMaxSize is null").toBytes());
         this.chunkMaxLogicalBytes = Math.max(1, stripeMaxBytes / 2);
@@ -149,6 +199,9 @@ public final class OrcWriter
         this.rowGroupMaxRowCount = options.getRowGroupMaxRowCount();
         recordValidation(validation -> validation.setRowGroupMaxRowCount(rowGroupMaxRowCount));
         this.maxCompressionBufferSize = toIntExact(options.getMaxCompressionBufferSize().toBytes());
+        this.encodeExecutor = requireNonNull(encodeExecutor, "encodeExecutor is null");
+        this.writeExecutor = requireNonNull(writeExecutor, "writeExecutor is null");
+        this.maxBufferedStripes = options.getMaxBufferedStripes();
 
         this.userMetadata = ImmutableMap.<String, String>builder()
                 .putAll(requireNonNull(userMetadata, "userMetadata is null"))
@@ -170,7 +223,20 @@ public final class OrcWriter
         for (int fieldId = 0; fieldId < types.size(); fieldId++) {
             int fieldColumnIndex = rootType.getFieldTypeIndex(fieldId);
             Type fieldType = types.get(fieldId);
-            ColumnWriter columnWriter = createColumnWriter(fieldColumnIndex, orcTypes, fieldType, compression, maxCompressionBufferSize, orcEncoding, hiveStorageTimeZone, options.getMaxStringStatisticsLimit());
+            Optional<BloomFilterBuilder> bloomFilterBuilder = Optional.empty();
+            if (options.getBloomFilterColumns().contains(columnNames.get(fieldId))) {
+                bloomFilterBuilder = Optional.of(new BloomFilterBuilder(rowGroupMaxRowCount, options.getBloomFilterFpp()));
+            }
+            ColumnWriter columnWriter = createColumnWriter(
+                    fieldColumnIndex,
+                    orcTypes,
+                    fieldType,
+                    compression,
+                    maxCompressionBufferSize,
+                    orcEncoding,
+                    hiveStorageTimeZone,
+                    options.getMaxStringStatisticsLimit(),
+                    bloomFilterBuilder);
             columnWriters.add(columnWriter);
 
             if (columnWriter instanceof SliceDictionaryColumnWriter) {
@@ -201,11 +267,12 @@ public final class OrcWriter
     }
 
     /**
-     * Number of bytes already flushed to the data sink.
+     * Number of bytes already flushed to the data sink, including finished stripes
+     * that are still being written in the background.
      */
     public long getWrittenBytes()
     {
-        return orcDataSink.size();
+        return writtenBytes;
     }
 
     /**
@@ -221,6 +288,7 @@ public final class OrcWriter
         return INSTANCE_SIZE +
                 columnWritersRetainedBytes +
                 closedStripesRetainedBytes +
+                bufferedStripesRetainedBytes +
                 orcDataSink.getRetainedSizeInBytes() +
                 (validationBuilder == null ? 0 : validationBuilder.getRetainedSize());
     }
@@ -260,6 +328,8 @@ public final class OrcWriter
             writeChunk(chunk);
         }
 
+        releaseWrittenStripes();
+
         long recordedSizeInBytes = getRetainedBytes();
         stats.updateSizeInBytes(recordedSizeInBytes - previouslyRecordedSizeInBytes);
         previouslyRecordedSizeInBytes = recordedSizeInBytes;
@@ -273,12 +343,15 @@ public final class OrcWriter
         }
 
         // write chunks
-        bufferedBytes = 0;
-        for (int channel = 0; channel < chunk.getChannelCount(); channel++) {
-            ColumnWriter writer = columnWriters.get(channel);
-            writer.writeBlock(chunk.getBlock(channel));
-            bufferedBytes += writer.getBufferedBytes();
+        if (encodeExecutor.isPresent()) {
+            writeBlocksInParallel(chunk, encodeExecutor.get());
         }
+        else {
+            for (int channel = 0; channel < chunk.getChannelCount(); channel++) {
+                columnWriters.get(channel).writeBlock(chunk.getBlock(channel));
+            }
+        }
+        bufferedBytes = toIntExact(columnWriters.stream().mapToLong(ColumnWriter::getBufferedBytes).sum());
 
         // update stats
         rowGroupRowCount += chunk.getPositionCount();
@@ -308,6 +381,42 @@ public final class OrcWriter
         columnWritersRetainedBytes = columnWriters.stream().mapToLong(ColumnWriter::getRetainedBytes).sum();
     }
 
+    private void writeBlocksInParallel(Page chunk, Executor executor)
+            throws IOException
+    {
+        List<ListenableFuture<?>> futures = new ArrayList<>();
+        for (int channel = 1; channel < chunk.getChannelCount(); channel++) {
+            ColumnWriter writer = columnWriters.get(channel);
+            // lazy blocks may share the state of the reader that produced them, so they are loaded on this thread
+            Block block = chunk.getBlock(channel).getLoadedBlock();
+            ListenableFutureTask<?> task = ListenableFutureTask.create(() -> writer.writeBlock(block), null);
+            executor.execute(task);
+            futures.add(task);
+        }
+        // encode the first column on this thread instead of waiting idle
+        if (chunk.getChannelCount() > 0) {
+            columnWriters.get(0).writeBlock(chunk.getBlock(0));
+        }
+        getDone(Futures.allAsList(futures));
+    }
+
+    private void closeColumnWriters()
+            throws IOException
+    {
+        if (!encodeExecutor.isPresent()) {
+            columnWriters.forEach(ColumnWriter::close);
+            return;
+        }
+        // closing a column writer compresses its remaining buffered data
+        List<ListenableFuture<?>> futures = new ArrayList<>(columnWriters.size());
+        for (ColumnWriter columnWriter : columnWriters) {
+            ListenableFutureTask<?> task = ListenableFutureTask.create(columnWriter::close, null);
+            encodeExecutor.get().execute(task);
+            futures.add(task);
+        }
+        getDone(Futures.allAsList(futures));
+    }
+
     private void finishRowGroup()
     {
         Map<Integer, ColumnStatistics> columnStatistics = new HashMap<>();
@@ -319,8 +428,14 @@ public final class OrcWriter
     private void flushStripe(FlushReason flushReason)
             throws IOException
     {
+        // bound the memory of the stripes that are not written yet
+        while (bufferedStripes.size() >= maxBufferedStripes) {
+            getDone(bufferedStripes.peekFirst().getWrite());
+            releaseWrittenStripes();
+        }
+
         List<OrcDataOutput> outputData = new ArrayList<>();
-        long stripeStartOffset = orcDataSink.size();
+        long stripeStartOffset = writtenBytes;
         // add header to first stripe (this is not required but nice to have)
         if (closedStripes.isEmpty()) {
             outputData.add(createDataOutput(MAGIC));
@@ -334,7 +449,13 @@ public final class OrcWriter
         }
 
         // write all data
-        orcDataSink.write(outputData);
+        writtenBytes += outputData.stream().mapToLong(OrcDataOutput::size).sum();
+        if (writeExecutor.isPresent()) {
+            writeInBackground(outputData, writeExecutor.get());
+        }
+        else {
+            orcDataSink.write(outputData);
+        }
 
         // open next stripe
         columnWriters.forEach(ColumnWriter::reset);
@@ -344,6 +465,61 @@ public final class OrcWriter
         bufferedBytes = toIntExact(columnWriters.stream().mapToLong(ColumnWriter::getBufferedBytes).sum());
     }
 
+    private void writeInBackground(List<OrcDataOutput> outputData, Executor executor)
+    {
+        // the output data references the buffers of the column writers, which are reused for the next stripe
+        Slice data = Slices.allocate(toIntExact(outputData.stream().mapToLong(OrcDataOutput::size).sum()));
+        SliceOutput sliceOutput = data.getOutput();
+        outputData.forEach(output -> output.writeData(sliceOutput));
+
+        // writes are chained, so the stripes are written in order and a failed write fails all later writes
+        ListenableFuture<?> previousWrite = bufferedStripes.isEmpty() ? immediateFuture(null) : bufferedStripes.peekLast().getWrite();
+        ListenableFuture<?> write = Futures.transform(previousWrite, ignored -> {
+            try {
+                orcDataSink.write(ImmutableList.of(createDataOutput(data)));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }, executor);
+        bufferedStripes.addLast(new BufferedStripe(write, data.getRetainedSize()));
+        bufferedStripesRetainedBytes += data.getRetainedSize();
+    }
+
+    /**
+     * Drops the stripes that were written to the data sink, and reports a failed write.
+     */
+    private void releaseWrittenStripes()
+            throws IOException
+    {
+        while (!bufferedStripes.isEmpty() && bufferedStripes.peekFirst().getWrite().isDone()) {
+            BufferedStripe bufferedStripe = bufferedStripes.removeFirst();
+            bufferedStripesRetainedBytes -= bufferedStripe.getRetainedSizeInBytes();
+            getDone(bufferedStripe.getWrite());
+        }
+    }
+
+    private static void getDone(ListenableFuture<?> future)
+            throws IOException
+    {
+        try {
+            future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing ORC file");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throwIfInstanceOf(e.getCause(), IOException.class);
+            throwIfUnchecked(e.getCause());
+            throw new IOException(e.getCause());
+        }
+    }
+
     /**
      * Collect the data for for the stripe.  This is not the actual data, but
      * instead are functions that know how to write the data.
@@ -354,7 +530,7 @@ public final class OrcWriter
         if (stripeRowCount == 0) {
             verify(flushReason == CLOSED, "An empty stripe is not allowed");
             // column writers must be closed or the reset call will fail
-            columnWriters.forEach(ColumnWriter::close);
+            closeColumnWriters();
             return ImmutableList.of();
         }
 
@@ -365,7 +541,7 @@ public final class OrcWriter
         // convert any dictionary encoded column with a low compression ratio to direct
         dictionaryCompressionOptimizer.finalOptimize(bufferedBytes);
 
-        columnWriters.forEach(ColumnWriter::close);
+        closeColumnWriters();
 
         List<OrcDataOutput> outputData = new ArrayList<>();
         List<Stream> allStreams = new ArrayList<>(columnWriters.size() * 3);
@@ -439,9 +615,32 @@ public final class OrcWriter
         stats.updateSizeInBytes(-previouslyRecordedSizeInBytes);
         previouslyRecordedSizeInBytes = 0;
 
-        flushStripe(CLOSED);
+        try (Closer closer = Closer.create()) {
+            closer.register(orcDataSink::close);
+            try {
+                flushStripe(CLOSED);
+            }
+            finally {
+                // the data sink must not be closed while a background write may still use it
+                awaitBufferedStripes();
+            }
+            // a failed write fails all later writes with the same cause, so only the first failure is reported
+            releaseWrittenStripes();
+        }
+    }
 
-        orcDataSink.close();
+    private void awaitBufferedStripes()
+    {
+        if (bufferedStripes.isEmpty()) {
+            return;
+        }
+        // the writes are chained, so the last write completes after all others
+        try {
+            getUninterruptibly(bufferedStripes.peekLast().getWrite());
+        }
+        catch (ExecutionException ignored) {
+            // reported by releaseWrittenStripes
+        }
     }
 
     /**
@@ -544,6 +743,28 @@ public final class OrcWriter
         return fileStats.build();
     }
 
+    private static class BufferedStripe
+    {
+        private final ListenableFuture<?> write;
+        private final long retainedSizeInBytes;
+
+        public BufferedStripe(ListenableFuture<?> write, long retainedSizeInBytes)
+        {
+            this.write = requireNonNull(write, "write is null");
+            this.retainedSizeInBytes = retainedSizeInBytes;
+        }
+
+        public ListenableFuture<?> getWrite()
+        {
+            return write;
+        }
+
+        public long getRetainedSizeInBytes()
+        {
+            return retainedSizeInBytes;
+        }
+    }
+
     private static class ClosedStripe
     {
         private static final int INSTANCE_SIZE = ClassLayout.parseClass(ClosedStripe.class).instanceSize() + ClassLayout.parseClass(StripeInformation.class).instanceSize();
@@ -0,0 +1,297 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.context.LocalMemoryContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.prestosql.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Data source that reads ranges the reader is going to need on a separate executor,
+ * so that the IO overlaps with decoding the data that was read before. Reads of
+ * prefetched ranges are served from memory, and all other reads go to the delegate.
+ * <p>
+ * Prefetching is planned by the reader, which must call all methods except the
+ * prefetch reads from a single thread. Closing waits for the prefetch reads that
+ * already started, so that they never use the delegate after it is closed.
+ */
+public class ReadAheadOrcDataSource
+        implements OrcDataSource
+{
+    private final OrcDataSource dataSource;
+    private final Executor executor;
+    private final DataSize maxMergeDistance;
+    private final DataSize maxReadAheadSize;
+    private final LocalMemoryContext memoryContext;
+
+    private final List<PrefetchedRange> prefetchedRanges = new ArrayList<>();
+    // discarded ranges whose read was in progress
+    private final List<PrefetchedRange> discardedRanges = new ArrayList<>();
+    private long prefetchedBytes;
+
+    public ReadAheadOrcDataSource(OrcDataSource dataSource, Executor executor, DataSize maxMergeDistance, DataSize maxReadAheadSize, LocalMemoryContext memoryContext)
+    {
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
+        this.maxReadAheadSize = requireNonNull(maxReadAheadSize, "maxReadAheadSize is null");
+        checkArgument(maxReadAheadSize.toBytes() > 0, "maxReadAheadSize must be positive");
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+    }
+
+    /**
+     * Starts reading the specified ranges in the background. Adjacent ranges are merged,
+     * and ranges are only read while the prefetched data fits in the read-ahead size.
+     *
+     * @return a future that completes when all the started reads finished
+     */
+    public ListenableFuture<?> prefetch(Collection<DiskRange> diskRanges)
+    {
+        if (diskRanges.isEmpty()) {
+            return immediateFuture(null);
+        }
+        ImmutableList.Builder<ListenableFuture<?>> futures = ImmutableList.builder();
+        for (DiskRange diskRange : mergeAdjacentDiskRanges(diskRanges, maxMergeDistance, maxReadAheadSize)) {
+            if (findPrefetchedRange(diskRange) != null) {
+                continue;
+            }
+            if (prefetchedBytes + diskRange.getLength() > maxReadAheadSize.toBytes()) {
+                break;
+            }
+            PrefetchedRange prefetchedRange = new PrefetchedRange(diskRange);
+            executor.execute(() -> prefetchedRange.read(dataSource));
+            prefetchedRanges.add(prefetchedRange);
+            prefetchedBytes += diskRange.getLength();
+            futures.add(prefetchedRange.getData());
+        }
+        memoryContext.setBytes(prefetchedBytes);
+        // failed reads are retried by the reader, so they do not fail the future
+        return Futures.successfulAsList(futures.build());
+    }
+
+    /**
+     * Drops the prefetched ranges that end at or before the specified offset.
+     */
+    public void discardBefore(long offset)
+    {
+        discardedRanges.removeIf(prefetchedRange -> prefetchedRange.getData().isDone());
+        Iterator<PrefetchedRange> iterator = prefetchedRanges.iterator();
+        while (iterator.hasNext()) {
+            PrefetchedRange prefetchedRange = iterator.next();
+            DiskRange diskRange = prefetchedRange.getDiskRange();
+            if (diskRange.getEnd() <= offset) {
+                prefetchedRange.cancel();
+                if (!prefetchedRange.getData().isDone()) {
+                    discardedRanges.add(prefetchedRange);
+                }
+                iterator.remove();
+                prefetchedBytes -= diskRange.getLength();
+            }
+        }
+        memoryContext.setBytes(prefetchedBytes);
+    }
+
+    @Override
+    public OrcDataSourceId getId()
+    {
+        return dataSource.getId();
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return dataSource.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return dataSource.getReadTimeNanos();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return dataSource.getSize();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        Slice slice = getPrefetchedSlice(new DiskRange(position, bufferLength));
+        if (slice == null) {
+            dataSource.readFully(position, buffer, bufferOffset, bufferLength);
+            return;
+        }
+        slice.getBytes(0, buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, OrcDataSourceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        ImmutableMap.Builder<K, OrcDataSourceInput> slices = ImmutableMap.builder();
+        Map<K, DiskRange> remainingRanges = new LinkedHashMap<>();
+        for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+            Slice slice = getPrefetchedSlice(entry.getValue());
+            if (slice == null) {
+                remainingRanges.put(entry.getKey(), entry.getValue());
+            }
+            else {
+                slices.put(entry.getKey(), new OrcDataSourceInput(slice.getInput(), slice.length()));
+            }
+        }
+        if (!remainingRanges.isEmpty()) {
+            slices.putAll(dataSource.readFully(remainingRanges));
+        }
+        return slices.build();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        discardBefore(Long.MAX_VALUE);
+        discardedRanges.forEach(PrefetchedRange::awaitRead);
+        discardedRanges.clear();
+        memoryContext.close();
+        dataSource.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return dataSource.toString();
+    }
+
+    private Slice getPrefetchedSlice(DiskRange diskRange)
+    {
+        PrefetchedRange prefetchedRange = findPrefetchedRange(diskRange);
+        if (prefetchedRange == null) {
+            return null;
+        }
+        Slice data;
+        try {
+            data = Futures.getUnchecked(prefetchedRange.getData());
+        }
+        catch (RuntimeException e) {
+            // read the range again from the delegate, which reports the failure if it persists
+            prefetchedRanges.remove(prefetchedRange);
+            prefetchedBytes -= prefetchedRange.getDiskRange().getLength();
+            memoryContext.setBytes(prefetchedBytes);
+            return null;
+        }
+        int offset = toIntExact(diskRange.getOffset() - prefetchedRange.getDiskRange().getOffset());
+        return data.slice(offset, diskRange.getLength());
+    }
+
+    private PrefetchedRange findPrefetchedRange(DiskRange diskRange)
+    {
+        for (PrefetchedRange prefetchedRange : prefetchedRanges) {
+            if (prefetchedRange.getDiskRange().contains(diskRange)) {
+                return prefetchedRange;
+            }
+        }
+        return null;
+    }
+
+    private static class PrefetchedRange
+    {
+        private final DiskRange diskRange;
+        private final SettableFuture<Slice> data = SettableFuture.create();
+        // claimed by the read when it starts, or by cancel to prevent the read from starting
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        public PrefetchedRange(DiskRange diskRange)
+        {
+            this.diskRange = requireNonNull(diskRange, "diskRange is null");
+        }
+
+        public DiskRange getDiskRange()
+        {
+            return diskRange;
+        }
+
+        public ListenableFuture<Slice> getData()
+        {
+            return data;
+        }
+
+        public void read(OrcDataSource dataSource)
+        {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                byte[] buffer = new byte[diskRange.getLength()];
+                dataSource.readFully(diskRange.getOffset(), buffer);
+                data.set(Slices.wrappedBuffer(buffer));
+            }
+            catch (IOException | RuntimeException e) {
+                data.setException(e);
+            }
+        }
+
+        /**
+         * Prevents the read from starting. A read that already started still completes the data.
+         */
+        public void cancel()
+        {
+            if (claimed.compareAndSet(false, true)) {
+                data.cancel(false);
+            }
+        }
+
+        public void awaitRead()
+        {
+            try {
+                Futures.getUnchecked(data);
+            }
+            catch (RuntimeException ignored) {
+                // the data is no longer needed
+            }
+        }
+    }
+}
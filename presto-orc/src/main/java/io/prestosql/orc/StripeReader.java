@@ -147,15 +147,16 @@ public class StripeReader
             // read the file regions
             Map<StreamId, OrcInputStream> streamsData = readDiskRanges(stripe.getOffset(), diskRanges, systemMemoryUsage);
 
-            // read the bloom filter for each column
-            Map<StreamId, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
-
             // read the row index for each column
-            Map<StreamId, List<RowGroupIndex>> columnIndexes = readColumnIndexes(streams, streamsData, bloomFilterIndexes);
+            Map<StreamId, List<RowGroupIndex>> columnIndexes = readColumnIndexes(streams, streamsData);
             if (writeValidation.isPresent()) {
                 writeValidation.get().validateRowGroupStatistics(orcDataSource.getId(), stripe.getOffset(), columnIndexes);
             }
 
+            // read the bloom filter for each column, after validation since the writer does not record them in the row group statistics
+            Map<StreamId, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
+            columnIndexes = addBloomFilters(columnIndexes, bloomFilterIndexes);
+
             // select the row groups matching the tuple domain
             Set<Integer> selectedRowGroups = selectRowGroups(stripe, columnIndexes);
 
@@ -244,6 +245,21 @@ public class StripeReader
         return new Stripe(stripe.getNumberOfRows(), columnEncodings, ImmutableList.of(rowGroup), dictionaryStreamSources);
     }
 
+    /**
+     * Returns the file ranges of the non-empty streams of the included columns of the stripe.
+     */
+    public List<DiskRange> getIncludedDiskRanges(StripeInformation stripe, StripeFooter stripeFooter)
+    {
+        ImmutableList.Builder<DiskRange> diskRanges = ImmutableList.builder();
+        for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
+            if (includedOrcColumns.contains(entry.getKey().getColumn())) {
+                DiskRange diskRange = entry.getValue();
+                diskRanges.add(new DiskRange(stripe.getOffset() + diskRange.getOffset(), diskRange.getLength()));
+            }
+        }
+        return diskRanges.build();
+    }
+
     public Map<StreamId, OrcInputStream> readDiskRanges(long stripeOffset, Map<StreamId, DiskRange> diskRanges, AggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
@@ -407,7 +423,7 @@ public class StripeReader
         return bloomFilters.build();
     }
 
-    private Map<StreamId, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData, Map<StreamId, List<HiveBloomFilter>> bloomFilterIndexes)
+    private Map<StreamId, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData)
             throws IOException
     {
         ImmutableMap.Builder<StreamId, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
@@ -415,24 +431,39 @@ public class StripeReader
             Stream stream = entry.getValue();
             if (stream.getStreamKind() == ROW_INDEX) {
                 OrcInputStream inputStream = streamsData.get(entry.getKey());
-                List<HiveBloomFilter> bloomFilters = bloomFilterIndexes.get(entry.getKey());
-                List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(hiveWriterVersion, inputStream);
-                if (bloomFilters != null && !bloomFilters.isEmpty()) {
-                    ImmutableList.Builder<RowGroupIndex> newRowGroupIndexes = ImmutableList.builder();
-                    for (int i = 0; i < rowGroupIndexes.size(); i++) {
-                        RowGroupIndex rowGroupIndex = rowGroupIndexes.get(i);
-                        ColumnStatistics columnStatistics = rowGroupIndex.getColumnStatistics()
-                                .withBloomFilter(bloomFilters.get(i));
-                        newRowGroupIndexes.add(new RowGroupIndex(rowGroupIndex.getPositions(), columnStatistics));
-                    }
-                    rowGroupIndexes = newRowGroupIndexes.build();
-                }
-                columnIndexes.put(entry.getKey(), rowGroupIndexes);
+                columnIndexes.put(entry.getKey(), metadataReader.readRowIndexes(hiveWriterVersion, inputStream));
             }
         }
         return columnIndexes.build();
     }
 
+    private static Map<StreamId, List<RowGroupIndex>> addBloomFilters(Map<StreamId, List<RowGroupIndex>> columnIndexes, Map<StreamId, List<HiveBloomFilter>> bloomFilterIndexes)
+    {
+        if (bloomFilterIndexes.isEmpty()) {
+            return columnIndexes;
+        }
+
+        ImmutableMap.Builder<StreamId, List<RowGroupIndex>> result = ImmutableMap.builder();
+        for (Entry<StreamId, List<RowGroupIndex>> entry : columnIndexes.entrySet()) {
+            StreamId rowIndexStreamId = entry.getKey();
+            List<RowGroupIndex> rowGroupIndexes = entry.getValue();
+            // bloom filters are stored in a separate stream of the same column
+            List<HiveBloomFilter> bloomFilters = bloomFilterIndexes.get(new StreamId(rowIndexStreamId.getColumn(), rowIndexStreamId.getSequence(), BLOOM_FILTER));
+            if (bloomFilters != null && bloomFilters.size() == rowGroupIndexes.size()) {
+                ImmutableList.Builder<RowGroupIndex> newRowGroupIndexes = ImmutableList.builder();
+                for (int i = 0; i < rowGroupIndexes.size(); i++) {
+                    RowGroupIndex rowGroupIndex = rowGroupIndexes.get(i);
+                    ColumnStatistics columnStatistics = rowGroupIndex.getColumnStatistics()
+                            .withBloomFilter(bloomFilters.get(i));
+                    newRowGroupIndexes.add(new RowGroupIndex(rowGroupIndex.getPositions(), columnStatistics));
+                }
+                rowGroupIndexes = newRowGroupIndexes.build();
+            }
+            result.put(rowIndexStreamId, rowGroupIndexes);
+        }
+        return result.build();
+    }
+
     private Set<Integer> selectRowGroups(StripeInformation stripe, Map<StreamId, List<RowGroupIndex>> columnIndexes)
     {
         int rowsInStripe = toIntExact(stripe.getNumberOfRows());
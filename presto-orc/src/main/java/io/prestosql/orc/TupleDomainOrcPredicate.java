@@ -43,6 +43,7 @@ import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.spi.type.Chars.isCharType;
 import static io.prestosql.spi.type.Chars.truncateToLengthAndTrimSpaces;
+import static io.prestosql.spi.type.DateType.DATE;
 import static io.prestosql.spi.type.Decimals.encodeUnscaledValue;
 import static io.prestosql.spi.type.Decimals.isLongDecimal;
 import static io.prestosql.spi.type.Decimals.isShortDecimal;
@@ -54,6 +55,8 @@ import static io.prestosql.spi.type.SmallintType.SMALLINT;
 import static io.prestosql.spi.type.TinyintType.TINYINT;
 import static io.prestosql.spi.type.Varchars.isVarcharType;
 import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
 public class TupleDomainOrcPredicate<C>
@@ -166,15 +169,24 @@ public class TupleDomainOrcPredicate<C>
             return bloomFilter.testLong(((Number) predicateValue).longValue());
         }
 
+        if (sqlType == DATE) {
+            return bloomFilter.testLong((Long) predicateValue);
+        }
+
         if (sqlType == DOUBLE) {
             return bloomFilter.testDouble((Double) predicateValue);
         }
 
+        if (sqlType == REAL) {
+            // real values are added to bloom filters as doubles
+            return bloomFilter.testDouble(intBitsToFloat(toIntExact((Long) predicateValue)));
+        }
+
         if (sqlType instanceof VarcharType || sqlType instanceof VarbinaryType) {
             return bloomFilter.test(((Slice) predicateValue).getBytes());
         }
 
-        // todo support DECIMAL, FLOAT, DATE, TIMESTAMP, and CHAR
+        // todo support DECIMAL, TIMESTAMP, and CHAR
         return true;
     }
 
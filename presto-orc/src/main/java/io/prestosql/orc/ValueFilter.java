@@ -0,0 +1,422 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import io.airlift.slice.Slice;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Marker;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.SortedRangeSet;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.VarbinaryType;
+import io.prestosql.spi.type.VarcharType;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static io.prestosql.spi.predicate.Marker.Bound.ABOVE;
+import static io.prestosql.spi.predicate.Marker.Bound.BELOW;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.Decimals.isShortDecimal;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+
+/**
+ * A domain compiled to range and set checks on the Java representation of the values of a column,
+ * so that it can be evaluated on decoded values without boxing them.
+ */
+public abstract class ValueFilter
+{
+    private final boolean nullAllowed;
+
+    private ValueFilter(boolean nullAllowed)
+    {
+        this.nullAllowed = nullAllowed;
+    }
+
+    /**
+     * Returns a filter accepting the values of the domain, or empty if the type of the domain is not supported.
+     */
+    public static Optional<ValueFilter> createValueFilter(Domain domain)
+    {
+        if (!(domain.getValues() instanceof SortedRangeSet)) {
+            return Optional.empty();
+        }
+        Type type = domain.getType();
+        List<Range> ranges = domain.getValues().getRanges().getOrderedRanges();
+        if (type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) ||
+                type.equals(DATE) || type.equals(TIMESTAMP) || isShortDecimal(type)) {
+            return Optional.of(createLongFilter(ranges, domain.isNullAllowed()));
+        }
+        if (type.equals(DOUBLE)) {
+            return Optional.of(new DoubleRanges(ranges, false, domain.isNullAllowed(), domain.includesNullableValue(Double.NaN)));
+        }
+        if (type.equals(REAL)) {
+            return Optional.of(new DoubleRanges(ranges, true, domain.isNullAllowed(), domain.includesNullableValue((long) floatToRawIntBits(Float.NaN))));
+        }
+        if (type instanceof VarcharType || type instanceof VarbinaryType) {
+            if (ranges.size() > 1 && ranges.stream().allMatch(Range::isSingleValue)) {
+                return Optional.of(new SliceValues(ranges, domain.isNullAllowed()));
+            }
+            return Optional.of(new SliceRanges(ranges, domain.isNullAllowed()));
+        }
+        return Optional.empty();
+    }
+
+    private static ValueFilter createLongFilter(List<Range> ranges, boolean nullAllowed)
+    {
+        if (ranges.size() > 1 && ranges.stream().allMatch(Range::isSingleValue)) {
+            return new LongValues(ranges, nullAllowed);
+        }
+        return new LongRanges(ranges, nullAllowed);
+    }
+
+    public boolean isNullAllowed()
+    {
+        return nullAllowed;
+    }
+
+    public boolean testLong(long value)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not filter long values");
+    }
+
+    public boolean testDouble(double value)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not filter double values");
+    }
+
+    public boolean testSlice(Slice value)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not filter slice values");
+    }
+
+    /**
+     * Stores the positions of the values of the block accepted by this filter in {@code matches},
+     * which must have room for every position of the block, and returns their number.
+     */
+    public int filter(Type type, Block block, int[] matches)
+    {
+        int positionCount = block.getPositionCount();
+        if (block instanceof RunLengthEncodedBlock) {
+            if (!test(type, ((RunLengthEncodedBlock) block).getValue(), 0)) {
+                return 0;
+            }
+            for (int position = 0; position < positionCount; position++) {
+                matches[position] = position;
+            }
+            return positionCount;
+        }
+        if (block instanceof DictionaryBlock && ((DictionaryBlock) block).getDictionary().getPositionCount() <= positionCount) {
+            // evaluate each dictionary entry once
+            DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+            Block dictionary = dictionaryBlock.getDictionary();
+            boolean[] accepted = new boolean[dictionary.getPositionCount()];
+            for (int id = 0; id < accepted.length; id++) {
+                accepted[id] = test(type, dictionary, id);
+            }
+            int matchCount = 0;
+            for (int position = 0; position < positionCount; position++) {
+                if (accepted[dictionaryBlock.getId(position)]) {
+                    matches[matchCount] = position;
+                    matchCount++;
+                }
+            }
+            return matchCount;
+        }
+
+        int matchCount = 0;
+        if (!block.mayHaveNull()) {
+            for (int position = 0; position < positionCount; position++) {
+                if (testValue(type, block, position)) {
+                    matches[matchCount] = position;
+                    matchCount++;
+                }
+            }
+            return matchCount;
+        }
+        for (int position = 0; position < positionCount; position++) {
+            if (test(type, block, position)) {
+                matches[matchCount] = position;
+                matchCount++;
+            }
+        }
+        return matchCount;
+    }
+
+    private boolean test(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return nullAllowed;
+        }
+        return testValue(type, block, position);
+    }
+
+    protected abstract boolean testValue(Type type, Block block, int position);
+
+    private abstract static class LongFilter
+            extends ValueFilter
+    {
+        private LongFilter(boolean nullAllowed)
+        {
+            super(nullAllowed);
+        }
+
+        @Override
+        protected final boolean testValue(Type type, Block block, int position)
+        {
+            return testLong(type.getLong(block, position));
+        }
+    }
+
+    private static final class LongRanges
+            extends LongFilter
+    {
+        // disjoint inclusive ranges in increasing order
+        private final long[] lows;
+        private final long[] highs;
+
+        private LongRanges(List<Range> ranges, boolean nullAllowed)
+        {
+            super(nullAllowed);
+            long[] lows = new long[ranges.size()];
+            long[] highs = new long[ranges.size()];
+            int count = 0;
+            for (Range range : ranges) {
+                Marker low = range.getLow();
+                Marker high = range.getHigh();
+                long lowValue = low.isLowerUnbounded() ? Long.MIN_VALUE : (long) low.getValue();
+                long highValue = high.isUpperUnbounded() ? Long.MAX_VALUE : (long) high.getValue();
+                if (!low.isLowerUnbounded() && low.getBound() == ABOVE) {
+                    if (lowValue == Long.MAX_VALUE) {
+                        continue;
+                    }
+                    lowValue++;
+                }
+                if (!high.isUpperUnbounded() && high.getBound() == BELOW) {
+                    if (highValue == Long.MIN_VALUE) {
+                        continue;
+                    }
+                    highValue--;
+                }
+                if (lowValue <= highValue) {
+                    lows[count] = lowValue;
+                    highs[count] = highValue;
+                    count++;
+                }
+            }
+            this.lows = Arrays.copyOf(lows, count);
+            this.highs = Arrays.copyOf(highs, count);
+        }
+
+        @Override
+        public boolean testLong(long value)
+        {
+            int low = 0;
+            int high = lows.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (value < lows[middle]) {
+                    high = middle - 1;
+                }
+                else if (value > highs[middle]) {
+                    low = middle + 1;
+                }
+                else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class LongValues
+            extends LongFilter
+    {
+        private final LongOpenHashSet values;
+
+        private LongValues(List<Range> ranges, boolean nullAllowed)
+        {
+            super(nullAllowed);
+            values = new LongOpenHashSet(ranges.size());
+            for (Range range : ranges) {
+                values.add((long) range.getSingleValue());
+            }
+        }
+
+        @Override
+        public boolean testLong(long value)
+        {
+            return values.contains(value);
+        }
+    }
+
+    private static final class DoubleRanges
+            extends ValueFilter
+    {
+        private final boolean real;
+        private final boolean nanAllowed;
+        // disjoint ranges in increasing order, unbounded ends are infinite and inclusive
+        private final double[] lows;
+        private final boolean[] lowInclusive;
+        private final double[] highs;
+        private final boolean[] highInclusive;
+
+        private DoubleRanges(List<Range> ranges, boolean real, boolean nullAllowed, boolean nanAllowed)
+        {
+            super(nullAllowed);
+            this.real = real;
+            this.nanAllowed = nanAllowed;
+            lows = new double[ranges.size()];
+            lowInclusive = new boolean[ranges.size()];
+            highs = new double[ranges.size()];
+            highInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                Marker low = ranges.get(i).getLow();
+                Marker high = ranges.get(i).getHigh();
+                lows[i] = low.isLowerUnbounded() ? Double.NEGATIVE_INFINITY : toDouble(low.getValue());
+                lowInclusive[i] = low.isLowerUnbounded() || low.getBound() != ABOVE;
+                highs[i] = high.isUpperUnbounded() ? Double.POSITIVE_INFINITY : toDouble(high.getValue());
+                highInclusive[i] = high.isUpperUnbounded() || high.getBound() != BELOW;
+            }
+        }
+
+        private double toDouble(Object value)
+        {
+            return real ? intBitsToFloat(toIntExact((long) value)) : (double) value;
+        }
+
+        @Override
+        public boolean testDouble(double value)
+        {
+            if (Double.isNaN(value)) {
+                // NaN is ordered above every other value in a domain, but fails every comparison
+                return nanAllowed;
+            }
+            for (int i = 0; i < lows.length; i++) {
+                if (value < lows[i] || (value == lows[i] && !lowInclusive[i])) {
+                    return false;
+                }
+                if (value < highs[i] || (value == highs[i] && highInclusive[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean testValue(Type type, Block block, int position)
+        {
+            if (real) {
+                return testDouble(intBitsToFloat(toIntExact(type.getLong(block, position))));
+            }
+            return testDouble(type.getDouble(block, position));
+        }
+    }
+
+    private static final class SliceRanges
+            extends ValueFilter
+    {
+        // disjoint ranges in increasing order, a null bound is unbounded
+        private final Slice[] lows;
+        private final boolean[] lowInclusive;
+        private final Slice[] highs;
+        private final boolean[] highInclusive;
+
+        private SliceRanges(List<Range> ranges, boolean nullAllowed)
+        {
+            super(nullAllowed);
+            lows = new Slice[ranges.size()];
+            lowInclusive = new boolean[ranges.size()];
+            highs = new Slice[ranges.size()];
+            highInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                Marker low = ranges.get(i).getLow();
+                Marker high = ranges.get(i).getHigh();
+                lows[i] = low.isLowerUnbounded() ? null : (Slice) low.getValue();
+                lowInclusive[i] = low.isLowerUnbounded() || low.getBound() != ABOVE;
+                highs[i] = high.isUpperUnbounded() ? null : (Slice) high.getValue();
+                highInclusive[i] = high.isUpperUnbounded() || high.getBound() != BELOW;
+            }
+        }
+
+        @Override
+        public boolean testSlice(Slice value)
+        {
+            for (int i = 0; i < lows.length; i++) {
+                if (lows[i] != null) {
+                    int compare = value.compareTo(lows[i]);
+                    if (compare < 0 || (compare == 0 && !lowInclusive[i])) {
+                        return false;
+                    }
+                }
+                if (highs[i] == null) {
+                    return true;
+                }
+                int compare = value.compareTo(highs[i]);
+                if (compare < 0 || (compare == 0 && highInclusive[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean testValue(Type type, Block block, int position)
+        {
+            return testSlice(type.getSlice(block, position));
+        }
+    }
+
+    private static final class SliceValues
+            extends ValueFilter
+    {
+        private final Set<Slice> values = new HashSet<>();
+
+        private SliceValues(List<Range> ranges, boolean nullAllowed)
+        {
+            super(nullAllowed);
+            for (Range range : ranges) {
+                values.add((Slice) range.getSingleValue());
+            }
+        }
+
+        @Override
+        public boolean testSlice(Slice value)
+        {
+            return values.contains(value);
+        }
+
+        @Override
+        protected boolean testValue(Type type, Block block, int position)
+        {
+            return testSlice(type.getSlice(block, position));
+        }
+    }
+}
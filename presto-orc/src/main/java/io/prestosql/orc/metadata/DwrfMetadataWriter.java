@@ -22,6 +22,7 @@ import io.prestosql.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import io.prestosql.orc.metadata.OrcType.OrcTypeKind;
 import io.prestosql.orc.metadata.Stream.StreamKind;
 import io.prestosql.orc.metadata.statistics.ColumnStatistics;
+import io.prestosql.orc.metadata.statistics.HiveBloomFilter;
 import io.prestosql.orc.proto.DwrfProto;
 import io.prestosql.orc.proto.DwrfProto.RowIndexEntry;
 import io.prestosql.orc.proto.DwrfProto.Type;
@@ -303,6 +304,12 @@ public class DwrfMetadataWriter
         return writeProtobufObject(output, rowIndexProtobuf);
     }
 
+    @Override
+    public int writeBloomFilters(SliceOutput output, List<HiveBloomFilter> bloomFilters)
+    {
+        throw new UnsupportedOperationException("DWRF does not support bloom filters");
+    }
+
     private static RowIndexEntry toRowGroupIndex(RowGroupIndex rowGroupIndex)
     {
         return RowIndexEntry.newBuilder()
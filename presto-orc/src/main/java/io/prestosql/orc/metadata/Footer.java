@@ -18,16 +18,22 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.prestosql.orc.metadata.statistics.ColumnStatistics;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 import java.util.Map;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.collect.Maps.transformValues;
+import static io.airlift.slice.SizeOf.sizeOfCharArray;
 import static java.util.Objects.requireNonNull;
 
 public class Footer
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(Footer.class).instanceSize();
+    private static final int STRIPE_INFORMATION_INSTANCE_SIZE = ClassLayout.parseClass(StripeInformation.class).instanceSize();
+    private static final int STRING_INSTANCE_SIZE = ClassLayout.parseClass(String.class).instanceSize();
+
     private final long numberOfRows;
     private final int rowsInRowGroup;
     private final List<StripeInformation> stripes;
@@ -76,6 +82,21 @@ public class Footer
         return ImmutableMap.copyOf(transformValues(userMetadata, Slices::copyOf));
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE + stripes.size() * (long) STRIPE_INFORMATION_INSTANCE_SIZE;
+        for (OrcType type : types) {
+            retainedSizeInBytes += type.getRetainedSizeInBytes();
+        }
+        for (ColumnStatistics columnStatistics : fileStats) {
+            retainedSizeInBytes += columnStatistics.getRetainedSizeInBytes();
+        }
+        for (Map.Entry<String, Slice> entry : userMetadata.entrySet()) {
+            retainedSizeInBytes += STRING_INSTANCE_SIZE + sizeOfCharArray(entry.getKey().length()) + entry.getValue().getRetainedSize();
+        }
+        return retainedSizeInBytes;
+    }
+
     @Override
     public String toString()
     {
@@ -14,11 +14,14 @@
 package io.prestosql.orc.metadata;
 
 import io.prestosql.orc.metadata.statistics.StripeStatistics;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
 public class Metadata
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(Metadata.class).instanceSize();
+
     private final List<StripeStatistics> stripeStatistics;
 
     public Metadata(List<StripeStatistics> stripeStatistics)
@@ -30,4 +33,11 @@ public class Metadata
     {
         return stripeStatistics;
     }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + stripeStatistics.stream()
+                .mapToLong(StripeStatistics::getRetainedSizeInBytes)
+                .sum();
+    }
 }
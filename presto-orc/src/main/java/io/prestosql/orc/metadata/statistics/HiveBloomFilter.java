@@ -14,6 +14,7 @@
 package io.prestosql.orc.metadata.statistics;
 
 import com.google.common.primitives.Longs;
+import io.airlift.slice.Slice;
 import io.prestosql.orc.metadata.statistics.StatisticsHasher.Hashable;
 import org.apache.hive.common.util.BloomFilter;
 import org.openjdk.jol.info.ClassLayout;
@@ -23,6 +24,7 @@ import java.util.List;
 import java.util.Objects;
 
 import static io.airlift.slice.SizeOf.sizeOf;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 
 public class HiveBloomFilter
         extends BloomFilter
@@ -38,6 +40,11 @@ public class HiveBloomFilter
         this.numHashFunctions = numHashFunctions;
     }
 
+    public HiveBloomFilter(long expectedEntries, double fpp)
+    {
+        super(expectedEntries, fpp);
+    }
+
     public HiveBloomFilter(BloomFilter bloomFilter)
     {
         this.bitSet = new BitSet(bloomFilter.getBitSet().clone());
@@ -45,6 +52,20 @@ public class HiveBloomFilter
         this.numHashFunctions = bloomFilter.getNumHashFunctions();
     }
 
+    /**
+     * Adds the bytes of the slice, hashing them in place rather than copying them out of the slice.
+     */
+    public void addSlice(Slice value)
+    {
+        Object base = value.getBase();
+        if (base instanceof byte[]) {
+            addBytes((byte[]) base, (int) (value.getAddress() - ARRAY_BYTE_BASE_OFFSET), value.length());
+        }
+        else {
+            addBytes(value.getBytes());
+        }
+    }
+
     public long getRetainedSizeInBytes()
     {
         return INSTANCE_SIZE + sizeOf(bitSet.getData());
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc.reader;
+
+import io.prestosql.spi.block.Block;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The values read for a batch, and the positions of the values accepted by a filter.
+ */
+public final class FilteredBlock
+{
+    private final Block block;
+    private final int[] matches;
+    private final int matchCount;
+
+    public FilteredBlock(Block block, int[] matches, int matchCount)
+    {
+        this.block = requireNonNull(block, "block is null");
+        this.matches = requireNonNull(matches, "matches is null");
+        this.matchCount = matchCount;
+    }
+
+    public Block getBlock()
+    {
+        return block;
+    }
+
+    /**
+     * Positions of the accepted values in increasing order. Only the first {@link #getMatchCount()} entries are valid.
+     */
+    public int[] getMatches()
+    {
+        return matches;
+    }
+
+    public int getMatchCount()
+    {
+        return matchCount;
+    }
+}
@@ -16,6 +16,7 @@ package io.prestosql.orc.reader;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.orc.OrcCorruptionException;
 import io.prestosql.orc.StreamDescriptor;
+import io.prestosql.orc.ValueFilter;
 import io.prestosql.orc.metadata.ColumnEncoding;
 import io.prestosql.orc.stream.BooleanInputStream;
 import io.prestosql.orc.stream.InputStreamSource;
@@ -23,6 +24,7 @@ import io.prestosql.orc.stream.InputStreamSources;
 import io.prestosql.orc.stream.LongInputStream;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.LongArrayBlock;
 import io.prestosql.spi.type.Type;
 import org.openjdk.jol.info.ClassLayout;
 
@@ -30,6 +32,7 @@ import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Verify.verify;
@@ -37,6 +40,7 @@ import static io.airlift.slice.SizeOf.sizeOf;
 import static io.prestosql.orc.metadata.Stream.StreamKind.DATA;
 import static io.prestosql.orc.metadata.Stream.StreamKind.PRESENT;
 import static io.prestosql.orc.stream.MissingInputStreamSource.missingStreamSource;
+import static io.prestosql.spi.type.BigintType.BIGINT;
 import static java.util.Objects.requireNonNull;
 
 public class LongDirectStreamReader
@@ -78,6 +82,82 @@ public class LongDirectStreamReader
     @Override
     public Block readBlock(Type type)
             throws IOException
+    {
+        skipToReadOffset();
+
+        if (type == BIGINT) {
+            long[] values = new long[nextBatchSize];
+            Block block = new LongArrayBlock(nextBatchSize, readBigintValues(values), values);
+            readOffset = 0;
+            nextBatchSize = 0;
+            return block;
+        }
+
+        BlockBuilder builder = type.createBlockBuilder(null, nextBatchSize);
+        if (presentStream == null) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            dataStream.nextLongVector(type, nextBatchSize, builder);
+        }
+        else {
+            for (int i = 0; i < nextBatchSize; i++) {
+                if (presentStream.nextBit()) {
+                    verify(dataStream != null);
+                    type.writeLong(builder, dataStream.next());
+                }
+                else {
+                    builder.appendNull();
+                }
+            }
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return builder.build();
+    }
+
+    @Override
+    public FilteredBlock readBlock(Type type, ValueFilter filter)
+            throws IOException
+    {
+        if (type != BIGINT) {
+            return StreamReader.super.readBlock(type, filter);
+        }
+        skipToReadOffset();
+
+        // test the decoded values before they are wrapped in a block
+        long[] values = new long[nextBatchSize];
+        boolean[] isNull = readBigintValues(values).orElse(null);
+        int[] matches = new int[nextBatchSize];
+        int matchCount = 0;
+        if (isNull == null) {
+            for (int position = 0; position < nextBatchSize; position++) {
+                if (filter.testLong(values[position])) {
+                    matches[matchCount] = position;
+                    matchCount++;
+                }
+            }
+        }
+        else {
+            boolean nullAllowed = filter.isNullAllowed();
+            for (int position = 0; position < nextBatchSize; position++) {
+                if (isNull[position] ? nullAllowed : filter.testLong(values[position])) {
+                    matches[matchCount] = position;
+                    matchCount++;
+                }
+            }
+        }
+        Block block = new LongArrayBlock(nextBatchSize, Optional.ofNullable(isNull), values);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return new FilteredBlock(block, matches, matchCount);
+    }
+
+    private void skipToReadOffset()
+            throws IOException
     {
         if (!rowGroupOpen) {
             openRowGroup();
@@ -96,30 +176,43 @@ public class LongDirectStreamReader
                 dataStream.skip(readOffset);
             }
         }
+    }
 
-        BlockBuilder builder = type.createBlockBuilder(null, nextBatchSize);
+    /**
+     * Reads the next values into the array and returns the null flags, if the values may contain nulls.
+     */
+    private Optional<boolean[]> readBigintValues(long[] values)
+            throws IOException
+    {
         if (presentStream == null) {
             if (dataStream == null) {
                 throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
             }
-            dataStream.nextLongVector(type, nextBatchSize, builder);
+            dataStream.nextLongVector(nextBatchSize, values);
+            return Optional.empty();
         }
-        else {
-            for (int i = 0; i < nextBatchSize; i++) {
-                if (presentStream.nextBit()) {
-                    verify(dataStream != null);
-                    type.writeLong(builder, dataStream.next());
+
+        boolean[] isNull = new boolean[nextBatchSize];
+        int nullCount = presentStream.getUnsetBits(nextBatchSize, isNull);
+        int nonNullCount = nextBatchSize - nullCount;
+        if (nonNullCount > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            // read the non-null values into the start of the array, and move them to their positions from the end
+            dataStream.nextLongVector(nonNullCount, values);
+            int valueIndex = nonNullCount - 1;
+            for (int position = nextBatchSize - 1; position > valueIndex; position--) {
+                if (isNull[position]) {
+                    values[position] = 0;
                 }
                 else {
-                    builder.appendNull();
+                    values[position] = values[valueIndex];
+                    valueIndex--;
                 }
             }
         }
-
-        readOffset = 0;
-        nextBatchSize = 0;
-
-        return builder.build();
+        return Optional.of(isNull);
     }
 
     private void openRowGroup()
@@ -16,6 +16,7 @@ package io.prestosql.orc.reader;
 import com.google.common.io.Closer;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.orc.StreamDescriptor;
+import io.prestosql.orc.ValueFilter;
 import io.prestosql.orc.metadata.ColumnEncoding;
 import io.prestosql.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import io.prestosql.orc.stream.InputStreamSources;
@@ -64,6 +65,13 @@ public class LongStreamReader
         return currentReader.readBlock(type);
     }
 
+    @Override
+    public FilteredBlock readBlock(Type type, ValueFilter filter)
+            throws IOException
+    {
+        return currentReader.readBlock(type, filter);
+    }
+
     @Override
     public void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
             throws IOException
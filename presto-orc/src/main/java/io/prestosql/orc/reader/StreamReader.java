@@ -13,6 +13,7 @@
  */
 package io.prestosql.orc.reader;
 
+import io.prestosql.orc.ValueFilter;
 import io.prestosql.orc.metadata.ColumnEncoding;
 import io.prestosql.orc.stream.InputStreamSources;
 import io.prestosql.spi.block.Block;
@@ -26,6 +27,18 @@ public interface StreamReader
     Block readBlock(Type type)
             throws IOException;
 
+    /**
+     * Reads the next values like {@link #readBlock(Type)} and evaluates the filter on them.
+     * Readers which decode into primitive arrays override this to test the values before building the block.
+     */
+    default FilteredBlock readBlock(Type type, ValueFilter filter)
+            throws IOException
+    {
+        Block block = readBlock(type);
+        int[] matches = new int[block.getPositionCount()];
+        return new FilteredBlock(block, matches, filter.filter(type, block, matches));
+    }
+
     void prepareNextRead(int batchSize);
 
     void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
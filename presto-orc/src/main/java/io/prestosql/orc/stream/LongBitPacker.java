@@ -24,11 +24,14 @@ import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static io.airlift.slice.UnsafeSlice.getIntUnchecked;
 import static io.airlift.slice.UnsafeSlice.getLongUnchecked;
 import static io.airlift.slice.UnsafeSlice.getShortUnchecked;
+import static java.lang.Math.toIntExact;
 
 public final class LongBitPacker
 {
     // ORC uses no more than 9 bits to store run lengths (https://orc.apache.org/docs/run-length.html#direct)
     private static final int MAX_BUFFERED_POSITIONS = 512;
+    // values of wider bit sizes can span more than 8 bytes when they do not start at a byte boundary
+    private static final int MAX_WINDOW_BIT_SIZE = Long.SIZE - 7;
 
     // We use this temp buffer to work around poor read performance of single bytes from Slice.
     // Benchmarks show that reading from this byte[] is ~3x faster, even after accounting for the
@@ -80,9 +83,34 @@ public final class LongBitPacker
         }
     }
 
-    private static void unpackGeneric(long[] buffer, int offset, int len, int bitSize, InputStream input)
+    private void unpackGeneric(long[] buffer, int offset, int len, int bitSize, InputStream input)
             throws IOException
     {
+        int blockReadableBytes = toIntExact(((long) len * bitSize + 7) / 8);
+        for (int i = 0; i < blockReadableBytes; ) {
+            i += input.read(tmp, i, blockReadableBytes - i);
+        }
+
+        if (bitSize > MAX_WINDOW_BIT_SIZE) {
+            unpackGenericWide(buffer, offset, len, bitSize);
+            return;
+        }
+
+        // Each value is extracted from the big endian 8-byte window starting at the byte
+        // that holds its first bit. It's safe to read 8-bytes at a time, because slice is
+        // a view over tmp, which has 8 bytes of buffer space for every position
+        int shift = Long.SIZE - bitSize;
+        long bitPosition = 0;
+        for (int i = offset; i < offset + len; i++) {
+            long window = Long.reverseBytes(getLongUnchecked(slice, (int) (bitPosition >>> 3)));
+            buffer[i] = (window << (bitPosition & 0b111)) >>> shift;
+            bitPosition += bitSize;
+        }
+    }
+
+    private void unpackGenericWide(long[] buffer, int offset, int len, int bitSize)
+    {
+        int tmpIndex = 0;
         int bitsLeft = 0;
         int current = 0;
 
@@ -93,7 +121,8 @@ public final class LongBitPacker
                 result <<= bitsLeft;
                 result |= current & ((1 << bitsLeft) - 1);
                 bitsLeftToRead -= bitsLeft;
-                current = input.read();
+                current = tmp[tmpIndex] & 0xFF;
+                tmpIndex++;
                 bitsLeft = 8;
             }
 
@@ -16,10 +16,16 @@ package io.prestosql.orc.stream;
 import io.prestosql.orc.OrcCorruptionException;
 import io.prestosql.orc.checkpoint.LongStreamCheckpoint;
 import io.prestosql.orc.checkpoint.LongStreamV2Checkpoint;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.type.Type;
 
 import java.io.IOException;
 import java.io.InputStream;
 
+import static com.google.common.base.Preconditions.checkPositionIndex;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
 /**
  * @see {@link org.apache.hadoop.hive.ql.io.orc.RunLengthIntegerWriterV2} for description of various lightweight compression techniques.
  */
@@ -29,6 +35,7 @@ public class LongInputStreamV2
 {
     private static final int MIN_REPEAT_SIZE = 3;
     private static final int MAX_LITERAL_SIZE = 512;
+    private static final int MAX_PATCH_LIST_LENGTH = 32;
 
     private enum EncodingType
     {
@@ -39,6 +46,9 @@ public class LongInputStreamV2
     private final OrcInputStream input;
     private final boolean signed;
     private final long[] literals = new long[MAX_LITERAL_SIZE];
+    // buffers for the data and patch list of patched base runs, which are reused for all runs
+    private final long[] unpacked = new long[MAX_LITERAL_SIZE];
+    private final long[] unpackedPatch = new long[MAX_PATCH_LIST_LENGTH];
     private int numLiterals;
     private int used;
     private final boolean skipCorrupt;
@@ -177,11 +187,9 @@ public class LongInputStreamV2
         }
 
         // unpack the data blob
-        long[] unpacked = new long[length];
         packer.unpack(unpacked, 0, length, fb, input);
 
         // unpack the patch blob
-        long[] unpackedPatch = new long[patchListLength];
 
         if ((patchWidth + patchGapWidth) > 64 && !skipCorrupt) {
             throw new OrcCorruptionException(input.getOrcDataSourceId(), "Invalid RLEv2 encoded stream");
@@ -211,7 +219,7 @@ public class LongInputStreamV2
         actualGap += currentGap;
 
         // unpack data blob, patch it (if required), add base to get final result
-        for (int i = 0; i < unpacked.length; i++) {
+        for (int i = 0; i < length; i++) {
             if (i == actualGap) {
                 // extract the patch value
                 long patchedValue = unpacked[i] | (currentPatch << fb);
@@ -332,6 +340,90 @@ public class LongInputStreamV2
         return literals[used++];
     }
 
+    @Override
+    public void nextIntVector(int items, int[] vector, int offset)
+            throws IOException
+    {
+        checkPositionIndex(items + offset, vector.length);
+
+        int end = offset + items;
+        while (offset < end) {
+            if (used == numLiterals) {
+                numLiterals = 0;
+                used = 0;
+                readValues();
+            }
+            int chunkSize = min(end - offset, numLiterals - used);
+            for (int i = 0; i < chunkSize; i++) {
+                vector[offset + i] = toIntExact(literals[used + i]);
+            }
+            used += chunkSize;
+            offset += chunkSize;
+        }
+    }
+
+    @Override
+    public void nextLongVector(int items, long[] vector)
+            throws IOException
+    {
+        checkPositionIndex(items, vector.length);
+
+        int offset = 0;
+        while (offset < items) {
+            if (used == numLiterals) {
+                numLiterals = 0;
+                used = 0;
+                readValues();
+            }
+            int chunkSize = min(items - offset, numLiterals - used);
+            System.arraycopy(literals, used, vector, offset, chunkSize);
+            used += chunkSize;
+            offset += chunkSize;
+        }
+    }
+
+    @Override
+    public void nextLongVector(Type type, int items, BlockBuilder builder)
+            throws IOException
+    {
+        int remaining = items;
+        while (remaining > 0) {
+            if (used == numLiterals) {
+                numLiterals = 0;
+                used = 0;
+                readValues();
+            }
+            int chunkSize = min(remaining, numLiterals - used);
+            for (int i = 0; i < chunkSize; i++) {
+                type.writeLong(builder, literals[used + i]);
+            }
+            used += chunkSize;
+            remaining -= chunkSize;
+        }
+    }
+
+    @Override
+    public long sum(int items)
+            throws IOException
+    {
+        long sum = 0;
+        int remaining = items;
+        while (remaining > 0) {
+            if (used == numLiterals) {
+                numLiterals = 0;
+                used = 0;
+                readValues();
+            }
+            int chunkSize = min(remaining, numLiterals - used);
+            for (int i = 0; i < chunkSize; i++) {
+                sum += literals[used + i];
+            }
+            used += chunkSize;
+            remaining -= chunkSize;
+        }
+        return sum;
+    }
+
     @Override
     public Class<LongStreamV2Checkpoint> getCheckpointType()
     {
@@ -367,7 +459,7 @@ public class LongInputStreamV2
                 used = 0;
                 readValues();
             }
-            long consume = Math.min(items, numLiterals - used);
+            long consume = min(items, numLiterals - used);
             used += consume;
             items -= consume;
         }
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc.writer;
+
+import io.airlift.slice.Slice;
+import io.prestosql.orc.metadata.CompressedMetadataWriter;
+import io.prestosql.orc.metadata.Stream;
+import io.prestosql.orc.metadata.statistics.HiveBloomFilter;
+import io.prestosql.orc.stream.StreamDataOutput;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+
+/**
+ * Builds one Hive compatible bloom filter per row group, which is written as the
+ * {@code BLOOM_FILTER} index stream of the column.
+ */
+public class BloomFilterBuilder
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BloomFilterBuilder.class).instanceSize();
+
+    private final int expectedEntries;
+    private final double fpp;
+
+    private final List<HiveBloomFilter> rowGroupBloomFilters = new ArrayList<>();
+    private HiveBloomFilter bloomFilter;
+
+    public BloomFilterBuilder(int expectedEntries, double fpp)
+    {
+        checkArgument(expectedEntries > 0, "expectedEntries must be positive");
+        checkArgument(fpp > 0.0 && fpp < 1.0, "fpp must be between 0 and 1");
+        this.expectedEntries = expectedEntries;
+        this.fpp = fpp;
+        this.bloomFilter = new HiveBloomFilter(expectedEntries, fpp);
+    }
+
+    /**
+     * Creates an empty builder with the same configuration as this builder.
+     */
+    public BloomFilterBuilder newBuilder()
+    {
+        return new BloomFilterBuilder(expectedEntries, fpp);
+    }
+
+    public void addLong(long value)
+    {
+        bloomFilter.addLong(value);
+    }
+
+    public void addDouble(double value)
+    {
+        bloomFilter.addDouble(value);
+    }
+
+    public void addSlice(Slice value)
+    {
+        bloomFilter.addSlice(value);
+    }
+
+    public void finishRowGroup()
+    {
+        rowGroupBloomFilters.add(bloomFilter);
+        bloomFilter = new HiveBloomFilter(expectedEntries, fpp);
+    }
+
+    public StreamDataOutput getIndexStream(int column, CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        Slice slice = metadataWriter.writeBloomFilters(rowGroupBloomFilters);
+        Stream stream = new Stream(column, BLOOM_FILTER, slice.length(), false);
+        return new StreamDataOutput(slice, stream);
+    }
+
+    public long getRetainedBytes()
+    {
+        long retainedBytes = INSTANCE_SIZE + bloomFilter.getRetainedSizeInBytes();
+        for (HiveBloomFilter rowGroupBloomFilter : rowGroupBloomFilters) {
+            retainedBytes += rowGroupBloomFilter.getRetainedSizeInBytes();
+        }
+        return retainedBytes;
+    }
+
+    public void reset()
+    {
+        rowGroupBloomFilters.clear();
+        bloomFilter = new HiveBloomFilter(expectedEntries, fpp);
+    }
+}
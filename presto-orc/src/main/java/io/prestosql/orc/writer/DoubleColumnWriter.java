@@ -61,9 +61,11 @@ public class DoubleColumnWriter
 
     private DoubleStatisticsBuilder statisticsBuilder = new DoubleStatisticsBuilder();
 
+    private final Optional<BloomFilterBuilder> bloomFilterBuilder;
+
     private boolean closed;
 
-    public DoubleColumnWriter(int column, Type type, CompressionKind compression, int bufferSize)
+    public DoubleColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -71,6 +73,7 @@ public class DoubleColumnWriter
         this.compressed = requireNonNull(compression, "compression is null") != NONE;
         this.dataStream = new DoubleOutputStream(compression, bufferSize);
         this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
     }
 
     @Override
@@ -98,11 +101,15 @@ public class DoubleColumnWriter
         }
 
         // record values
+        BloomFilterBuilder bloomFilter = bloomFilterBuilder.orElse(null);
         for (int position = 0; position < block.getPositionCount(); position++) {
             if (!block.isNull(position)) {
                 double value = type.getDouble(block, position);
                 statisticsBuilder.addValue(value);
                 dataStream.writeDouble(value);
+                if (bloomFilter != null) {
+                    bloomFilter.addDouble(value);
+                }
             }
         }
     }
@@ -114,6 +121,7 @@ public class DoubleColumnWriter
         ColumnStatistics statistics = statisticsBuilder.buildColumnStatistics();
         rowGroupColumnStatistics.add(statistics);
         statisticsBuilder = new DoubleStatisticsBuilder();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::finishRowGroup);
         return ImmutableMap.of(column, statistics);
     }
 
@@ -153,7 +161,13 @@ public class DoubleColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        if (bloomFilterBuilder.isPresent()) {
+            indexStreams.add(bloomFilterBuilder.get().getIndexStream(column, metadataWriter));
+        }
+        return indexStreams.build();
     }
 
     private static List<Integer> createDoubleColumnPositionList(
@@ -191,6 +205,9 @@ public class DoubleColumnWriter
         for (ColumnStatistics statistics : rowGroupColumnStatistics) {
             retainedBytes += statistics.getRetainedSizeInBytes();
         }
+        if (bloomFilterBuilder.isPresent()) {
+            retainedBytes += bloomFilterBuilder.get().getRetainedBytes();
+        }
         return retainedBytes;
     }
 
@@ -202,5 +219,6 @@ public class DoubleColumnWriter
         presentStream.reset();
         rowGroupColumnStatistics.clear();
         statisticsBuilder = new DoubleStatisticsBuilder();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
     }
 }
@@ -62,9 +62,11 @@ public class FloatColumnWriter
 
     private DoubleStatisticsBuilder statisticsBuilder = new DoubleStatisticsBuilder();
 
+    private final Optional<BloomFilterBuilder> bloomFilterBuilder;
+
     private boolean closed;
 
-    public FloatColumnWriter(int column, Type type, CompressionKind compression, int bufferSize)
+    public FloatColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -72,6 +74,7 @@ public class FloatColumnWriter
         this.compressed = requireNonNull(compression, "compression is null") != NONE;
         this.dataStream = new FloatOutputStream(compression, bufferSize);
         this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
     }
 
     @Override
@@ -99,12 +102,17 @@ public class FloatColumnWriter
         }
 
         // record values
+        BloomFilterBuilder bloomFilter = bloomFilterBuilder.orElse(null);
         for (int position = 0; position < block.getPositionCount(); position++) {
             if (!block.isNull(position)) {
                 int intBits = (int) type.getLong(block, position);
                 float value = intBitsToFloat(intBits);
                 dataStream.writeFloat(value);
                 statisticsBuilder.addValue(value);
+                if (bloomFilter != null) {
+                    // like Hive, real values are hashed as doubles
+                    bloomFilter.addDouble(value);
+                }
             }
         }
     }
@@ -116,6 +124,7 @@ public class FloatColumnWriter
         ColumnStatistics statistics = statisticsBuilder.buildColumnStatistics();
         rowGroupColumnStatistics.add(statistics);
         statisticsBuilder = new DoubleStatisticsBuilder();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::finishRowGroup);
         return ImmutableMap.of(column, statistics);
     }
 
@@ -155,7 +164,13 @@ public class FloatColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        if (bloomFilterBuilder.isPresent()) {
+            indexStreams.add(bloomFilterBuilder.get().getIndexStream(column, metadataWriter));
+        }
+        return indexStreams.build();
     }
 
     private static List<Integer> createFloatColumnPositionList(
@@ -193,6 +208,9 @@ public class FloatColumnWriter
         for (ColumnStatistics statistics : rowGroupColumnStatistics) {
             retainedBytes += statistics.getRetainedSizeInBytes();
         }
+        if (bloomFilterBuilder.isPresent()) {
+            retainedBytes += bloomFilterBuilder.get().getRetainedBytes();
+        }
         return retainedBytes;
     }
 
@@ -204,5 +222,6 @@ public class FloatColumnWriter
         presentStream.reset();
         rowGroupColumnStatistics.clear();
         statisticsBuilder = new DoubleStatisticsBuilder();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
     }
 }
@@ -68,9 +68,11 @@ public class LongColumnWriter
     private final Supplier<LongValueStatisticsBuilder> statisticsBuilderSupplier;
     private LongValueStatisticsBuilder statisticsBuilder;
 
+    private final Optional<BloomFilterBuilder> bloomFilterBuilder;
+
     private boolean closed;
 
-    public LongColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OrcEncoding orcEncoding, Supplier<LongValueStatisticsBuilder> statisticsBuilderSupplier)
+    public LongColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OrcEncoding orcEncoding, Supplier<LongValueStatisticsBuilder> statisticsBuilderSupplier, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -87,6 +89,7 @@ public class LongColumnWriter
         this.presentStream = new PresentOutputStream(compression, bufferSize);
         this.statisticsBuilderSupplier = requireNonNull(statisticsBuilderSupplier, "statisticsBuilderSupplier is null");
         this.statisticsBuilder = statisticsBuilderSupplier.get();
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
     }
 
     @Override
@@ -114,11 +117,15 @@ public class LongColumnWriter
         }
 
         // record values
+        BloomFilterBuilder bloomFilter = bloomFilterBuilder.orElse(null);
         for (int position = 0; position < block.getPositionCount(); position++) {
             if (!block.isNull(position)) {
                 long value = type.getLong(block, position);
                 dataStream.writeLong(value);
                 statisticsBuilder.addValue(value);
+                if (bloomFilter != null) {
+                    bloomFilter.addLong(value);
+                }
             }
         }
     }
@@ -130,6 +137,7 @@ public class LongColumnWriter
         ColumnStatistics statistics = statisticsBuilder.buildColumnStatistics();
         rowGroupColumnStatistics.add(statistics);
         statisticsBuilder = statisticsBuilderSupplier.get();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::finishRowGroup);
         return ImmutableMap.of(column, statistics);
     }
 
@@ -169,7 +177,13 @@ public class LongColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        if (bloomFilterBuilder.isPresent()) {
+            indexStreams.add(bloomFilterBuilder.get().getIndexStream(column, metadataWriter));
+        }
+        return indexStreams.build();
     }
 
     private static List<Integer> createLongColumnPositionList(
@@ -207,6 +221,9 @@ public class LongColumnWriter
         for (ColumnStatistics statistics : rowGroupColumnStatistics) {
             retainedBytes += statistics.getRetainedSizeInBytes();
         }
+        if (bloomFilterBuilder.isPresent()) {
+            retainedBytes += bloomFilterBuilder.get().getRetainedBytes();
+        }
         return retainedBytes;
     }
 
@@ -218,5 +235,6 @@ public class LongColumnWriter
         presentStream.reset();
         rowGroupColumnStatistics.clear();
         statisticsBuilder = statisticsBuilderSupplier.get();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
     }
 }
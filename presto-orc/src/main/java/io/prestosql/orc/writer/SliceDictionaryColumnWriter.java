@@ -89,6 +89,7 @@ public class SliceDictionaryColumnWriter
     private IntBigArray values;
     private int rowGroupValueCount;
     private StringStatisticsBuilder statisticsBuilder;
+    private final Optional<BloomFilterBuilder> bloomFilterBuilder;
 
     private long rawBytes;
     private long totalValueCount;
@@ -101,7 +102,7 @@ public class SliceDictionaryColumnWriter
     private boolean directEncoded;
     private SliceDirectColumnWriter directColumnWriter;
 
-    public SliceDictionaryColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OrcEncoding orcEncoding, DataSize stringStatisticsLimit)
+    public SliceDictionaryColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OrcEncoding orcEncoding, DataSize stringStatisticsLimit, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -123,6 +124,7 @@ public class SliceDictionaryColumnWriter
         this.dictionaryLengthStream = createLengthOutputStream(compression, bufferSize, orcEncoding);
         values = new IntBigArray();
         this.statisticsBuilder = newStringStatisticsBuilder();
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
     }
 
     @Override
@@ -173,7 +175,7 @@ public class SliceDictionaryColumnWriter
         checkState(!closed);
         checkState(!directEncoded);
         if (directColumnWriter == null) {
-            directColumnWriter = new SliceDirectColumnWriter(column, type, compression, bufferSize, orcEncoding, this::newStringStatisticsBuilder);
+            directColumnWriter = new SliceDirectColumnWriter(column, type, compression, bufferSize, orcEncoding, this::newStringStatisticsBuilder, bloomFilterBuilder.map(BloomFilterBuilder::newBuilder));
         }
         checkState(directColumnWriter.getBufferedBytes() == 0);
 
@@ -214,6 +216,7 @@ public class SliceDictionaryColumnWriter
 
         rowGroupValueCount = 0;
         statisticsBuilder = newStringStatisticsBuilder();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
 
         directEncoded = true;
 
@@ -291,6 +294,7 @@ public class SliceDictionaryColumnWriter
         }
 
         // record values
+        BloomFilterBuilder bloomFilter = bloomFilterBuilder.orElse(null);
         values.ensureCapacity(rowGroupValueCount + block.getPositionCount());
         for (int position = 0; position < block.getPositionCount(); position++) {
             int index = dictionary.putIfAbsent(block, position);
@@ -300,7 +304,11 @@ public class SliceDictionaryColumnWriter
 
             if (!block.isNull(position)) {
                 // todo min/max statistics only need to be updated if value was not already in the dictionary, but non-null count does
-                statisticsBuilder.addValue(type.getSlice(block, position));
+                Slice value = type.getSlice(block, position);
+                statisticsBuilder.addValue(value);
+                if (bloomFilter != null) {
+                    bloomFilter.addSlice(value);
+                }
 
                 rawBytes += block.getSliceLength(position);
                 totalNonNullValueCount++;
@@ -323,6 +331,7 @@ public class SliceDictionaryColumnWriter
         rowGroups.add(new DictionaryRowGroup(values, rowGroupValueCount, statistics));
         rowGroupValueCount = 0;
         statisticsBuilder = newStringStatisticsBuilder();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::finishRowGroup);
         values = new IntBigArray();
         return ImmutableMap.of(column, statistics);
     }
@@ -477,7 +486,13 @@ public class SliceDictionaryColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        if (bloomFilterBuilder.isPresent()) {
+            indexStreams.add(bloomFilterBuilder.get().getIndexStream(column, metadataWriter));
+        }
+        return indexStreams.build();
     }
 
     private static List<Integer> createSliceColumnPositionList(
@@ -535,6 +550,9 @@ public class SliceDictionaryColumnWriter
         for (DictionaryRowGroup rowGroup : rowGroups) {
             retainedBytes += rowGroup.getColumnStatistics().getRetainedSizeInBytes();
         }
+        if (bloomFilterBuilder.isPresent()) {
+            retainedBytes += bloomFilterBuilder.get().getRetainedBytes();
+        }
         return retainedBytes;
     }
 
@@ -550,6 +568,7 @@ public class SliceDictionaryColumnWriter
         rowGroups.clear();
         rowGroupValueCount = 0;
         statisticsBuilder = newStringStatisticsBuilder();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
         columnEncoding = null;
 
         dictionary.clear();
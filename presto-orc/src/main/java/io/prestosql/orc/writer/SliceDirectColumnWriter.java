@@ -69,9 +69,11 @@ public class SliceDirectColumnWriter
     private final Supplier<SliceColumnStatisticsBuilder> statisticsBuilderSupplier;
     private SliceColumnStatisticsBuilder statisticsBuilder;
 
+    private final Optional<BloomFilterBuilder> bloomFilterBuilder;
+
     private boolean closed;
 
-    public SliceDirectColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OrcEncoding orcEncoding, Supplier<SliceColumnStatisticsBuilder> statisticsBuilderSupplier)
+    public SliceDirectColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OrcEncoding orcEncoding, Supplier<SliceColumnStatisticsBuilder> statisticsBuilderSupplier, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -83,6 +85,7 @@ public class SliceDirectColumnWriter
         this.presentStream = new PresentOutputStream(compression, bufferSize);
         this.statisticsBuilderSupplier = statisticsBuilderSupplier;
         statisticsBuilder = statisticsBuilderSupplier.get();
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
     }
 
     @Override
@@ -112,12 +115,16 @@ public class SliceDirectColumnWriter
         }
 
         // record values
+        BloomFilterBuilder bloomFilter = bloomFilterBuilder.orElse(null);
         for (int position = 0; position < block.getPositionCount(); position++) {
             if (!block.isNull(position)) {
                 Slice value = type.getSlice(block, position);
                 lengthStream.writeLong(value.length());
                 dataStream.writeSlice(value);
                 statisticsBuilder.addValue(value);
+                if (bloomFilter != null) {
+                    bloomFilter.addSlice(value);
+                }
             }
         }
     }
@@ -131,6 +138,7 @@ public class SliceDirectColumnWriter
         rowGroupColumnStatistics.add(statistics);
 
         statisticsBuilder = statisticsBuilderSupplier.get();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::finishRowGroup);
         return ImmutableMap.of(column, statistics);
     }
 
@@ -174,7 +182,13 @@ public class SliceDirectColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        if (bloomFilterBuilder.isPresent()) {
+            indexStreams.add(bloomFilterBuilder.get().getIndexStream(column, metadataWriter));
+        }
+        return indexStreams.build();
     }
 
     private static List<Integer> createSliceColumnPositionList(
@@ -215,6 +229,9 @@ public class SliceDirectColumnWriter
         for (ColumnStatistics statistics : rowGroupColumnStatistics) {
             retainedBytes += statistics.getRetainedSizeInBytes();
         }
+        if (bloomFilterBuilder.isPresent()) {
+            retainedBytes += bloomFilterBuilder.get().getRetainedBytes();
+        }
         return retainedBytes;
     }
 
@@ -228,5 +245,6 @@ public class SliceDirectColumnWriter
         presentStream.reset();
         rowGroupColumnStatistics.clear();
         statisticsBuilder = statisticsBuilderSupplier.get();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
     }
 }
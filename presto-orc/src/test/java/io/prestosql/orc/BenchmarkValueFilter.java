@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.orc.reader.FilteredBlock;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.ValueSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.orc.OrcEncoding.ORC;
+import static io.prestosql.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static io.prestosql.orc.OrcTester.Format.ORC_12;
+import static io.prestosql.orc.OrcTester.writeOrcColumnHive;
+import static io.prestosql.orc.ValueFilter.createValueFilter;
+import static io.prestosql.orc.metadata.CompressionKind.NONE;
+import static io.prestosql.spi.predicate.Range.range;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.TypeUtils.readNativeValue;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.joda.time.DateTimeZone.UTC;
+
+/**
+ * Compares evaluating a domain on a bigint column in the column reader with the
+ * unfiltered read followed by a per-row domain check.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkValueFilter
+{
+    private static final int ROWS = 5_000_000;
+    private static final long MAX_VALUE = 1_000_000;
+
+    @Benchmark
+    public long readUnfiltered(BenchmarkData data)
+            throws IOException
+    {
+        long matchCount = 0;
+        try (OrcRecordReader recordReader = data.createRecordReader()) {
+            while (recordReader.nextBatch() > 0) {
+                Block block = recordReader.readBlock(BIGINT, 0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (data.domain.includesNullableValue(readNativeValue(BIGINT, block, position))) {
+                        matchCount++;
+                    }
+                }
+            }
+        }
+        return matchCount;
+    }
+
+    @Benchmark
+    public long readFiltered(BenchmarkData data)
+            throws IOException
+    {
+        long matchCount = 0;
+        try (OrcRecordReader recordReader = data.createRecordReader()) {
+            while (recordReader.nextBatch() > 0) {
+                FilteredBlock filteredBlock = recordReader.readBlock(BIGINT, 0, data.filter);
+                matchCount += filteredBlock.getMatchCount();
+            }
+        }
+        return matchCount;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"range", "values"})
+        private String predicate = "range";
+
+        private File temporaryDirectory;
+        private File file;
+        private Domain domain;
+        private ValueFilter filter;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            Random random = new Random(0);
+            temporaryDirectory = createTempDir();
+            file = new File(temporaryDirectory, randomUUID().toString());
+            writeOrcColumnHive(file, ORC_12, NONE, BIGINT, LongStream.range(0, ROWS)
+                    .map(row -> (long) (random.nextDouble() * MAX_VALUE))
+                    .boxed()
+                    .iterator());
+
+            if (predicate.equals("range")) {
+                domain = Domain.create(ValueSet.ofRanges(range(BIGINT, 1_000L, true, 11_000L, false)), false);
+            }
+            else {
+                domain = Domain.multipleValues(BIGINT, LongStream.range(0, 1_000)
+                        .mapToObj(value -> (Object) (value * 1_000))
+                        .collect(toList()));
+            }
+            filter = createValueFilter(domain).get();
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+        }
+
+        private OrcRecordReader createRecordReader()
+                throws IOException
+        {
+            OrcDataSource dataSource = new FileOrcDataSource(file, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+            OrcReader orcReader = new OrcReader(dataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+            return orcReader.createRecordReader(
+                    ImmutableMap.of(0, BIGINT),
+                    OrcPredicate.TRUE,
+                    UTC, // arbitrary
+                    newSimpleAggregatedMemoryContext(),
+                    INITIAL_BATCH_SIZE);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkValueFilter.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
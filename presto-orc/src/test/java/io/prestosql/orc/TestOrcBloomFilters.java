@@ -52,8 +52,11 @@ import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.spi.type.DateType.DATE;
 import static io.prestosql.spi.type.DoubleType.DOUBLE;
 import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
 import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.lang.Float.floatToRawIntBits;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -217,7 +220,7 @@ public class TestOrcBloomFilters
         }
 
         // test unsupported type: can be supported by ORC but is not implemented yet
-        assertTrue(checkInBloomFilter(bloomFilter, new Date(), DATE), "unsupported type DATE should always return true");
+        assertTrue(checkInBloomFilter(bloomFilter, new Date(), TIMESTAMP), "unsupported type TIMESTAMP should always return true");
     }
 
     @Test
@@ -231,7 +234,37 @@ public class TestOrcBloomFilters
         }
 
         // test unsupported type: can be supported by ORC but is not implemented yet
-        assertTrue(checkInBloomFilter(bloomFilter, new Date(), DATE), "unsupported type DATE should always return true");
+        assertTrue(checkInBloomFilter(bloomFilter, new Date(), TIMESTAMP), "unsupported type TIMESTAMP should always return true");
+    }
+
+    @Test
+    public void testAddSlice()
+    {
+        HiveBloomFilter bloomFilter = new HiveBloomFilter(100, 0.01);
+
+        // a slice in the middle of a larger array is hashed like a copy of its bytes
+        bloomFilter.addSlice(wrappedBuffer(new byte[] {1, 2, 3, 4, 5, 6}, 2, 3));
+        bloomFilter.addSlice(utf8Slice(TEST_STRING));
+
+        assertTrue(bloomFilter.test(new byte[] {3, 4, 5}));
+        assertFalse(bloomFilter.test(new byte[] {1, 2, 3}));
+        assertTrue(bloomFilter.testString(TEST_STRING));
+        assertFalse(bloomFilter.testString(TEST_STRING_NOT_WRITTEN));
+    }
+
+    @Test
+    public void testDateAndRealPredicateValues()
+    {
+        BloomFilter bloomFilter = new BloomFilter(100, 0.01);
+
+        // the writers add dates as days, and real values as doubles
+        bloomFilter.addLong(17_000);
+        bloomFilter.addDouble(1.5f);
+
+        assertTrue(checkInBloomFilter(bloomFilter, 17_000L, DATE));
+        assertFalse(checkInBloomFilter(bloomFilter, 17_001L, DATE));
+        assertTrue(checkInBloomFilter(bloomFilter, (long) floatToRawIntBits(1.5f), REAL));
+        assertFalse(checkInBloomFilter(bloomFilter, (long) floatToRawIntBits(2.5f), REAL));
     }
 
     @Test
@@ -19,8 +19,13 @@ import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import io.prestosql.orc.metadata.CompressionKind;
 import io.prestosql.orc.metadata.Footer;
+import io.prestosql.orc.metadata.statistics.ColumnStatistics;
 import io.prestosql.orc.metadata.statistics.IntegerStatistics;
+import io.prestosql.orc.metadata.statistics.StripeStatistics;
+import io.prestosql.orc.reader.FilteredBlock;
 import io.prestosql.spi.block.Block;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.ValueSet;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator;
@@ -40,7 +45,11 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.orc.OrcEncoding.ORC;
@@ -52,10 +61,14 @@ import static io.prestosql.orc.OrcTester.MAX_BLOCK_SIZE;
 import static io.prestosql.orc.OrcTester.createCustomOrcRecordReader;
 import static io.prestosql.orc.OrcTester.createOrcRecordWriter;
 import static io.prestosql.orc.OrcTester.createSettableStructObjectInspector;
+import static io.prestosql.orc.ValueFilter.createValueFilter;
+import static io.prestosql.spi.predicate.Range.equal;
+import static io.prestosql.spi.predicate.Range.range;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static java.lang.Math.min;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.ql.io.orc.CompressionKind.SNAPPY;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -179,6 +192,80 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testReadSelectedPositions()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            int rowCount = 30_000;
+            createSequentialFile(tempFile.getFile(), rowCount);
+
+            try (OrcRecordReader reader = createCustomOrcRecordReader(tempFile, ORC, OrcPredicate.TRUE, BIGINT, MAX_BATCH_SIZE)) {
+                int batch = 0;
+                while (true) {
+                    int batchSize = reader.nextBatch();
+                    if (batchSize == -1) {
+                        break;
+                    }
+                    long position = reader.getFilePosition();
+
+                    int[] positions;
+                    if (batch % 3 == 0) {
+                        // skip the entire batch
+                        positions = new int[0];
+                    }
+                    else if (batch % 3 == 1) {
+                        // a few runs, the rows before and after them are skipped
+                        positions = IntStream.concat(IntStream.range(3, 8), IntStream.range(batchSize / 2, batchSize / 2 + 10))
+                                .filter(value -> value < batchSize)
+                                .toArray();
+                    }
+                    else {
+                        // scattered positions, copied from the decoded batch
+                        positions = IntStream.range(0, batchSize)
+                                .filter(value -> value % 2 == 1)
+                                .toArray();
+                    }
+
+                    if (positions.length > 0) {
+                        Block block = reader.readBlock(BIGINT, 0, positions, positions.length);
+                        assertEquals(block.getPositionCount(), positions.length);
+                        for (int i = 0; i < positions.length; i++) {
+                            assertEquals(BIGINT.getLong(block, i), position + positions[i]);
+                        }
+                    }
+                    batch++;
+                }
+                assertEquals(reader.getFilePosition(), rowCount);
+            }
+        }
+    }
+
+    @Test
+    public void testReadFilteredBlock()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            int rowCount = 30_000;
+            createSequentialFile(tempFile.getFile(), rowCount);
+
+            ValueFilter filter = createValueFilter(Domain.create(ValueSet.ofRanges(range(BIGINT, 100L, true, 200L, false), equal(BIGINT, 20_000L)), false)).get();
+            try (OrcRecordReader reader = createCustomOrcRecordReader(tempFile, ORC, OrcPredicate.TRUE, BIGINT, MAX_BATCH_SIZE)) {
+                List<Long> matches = new ArrayList<>();
+                while (reader.nextBatch() != -1) {
+                    long position = reader.getFilePosition();
+                    FilteredBlock filteredBlock = reader.readBlock(BIGINT, 0, filter);
+                    for (int i = 0; i < filteredBlock.getMatchCount(); i++) {
+                        int match = filteredBlock.getMatches()[i];
+                        assertEquals(BIGINT.getLong(filteredBlock.getBlock(), match), position + match);
+                        matches.add(position + match);
+                    }
+                }
+                assertEquals(matches, LongStream.concat(LongStream.range(100, 200), LongStream.of(20_000)).boxed().collect(toList()));
+            }
+        }
+    }
+
     @Test
     public void testBatchSizesForVariableWidth()
             throws Exception
@@ -303,6 +390,28 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testFileTailRetainedSize()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            createMultiStripeFile(tempFile.getFile());
+
+            OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+            OrcFileTail fileTail = OrcReader.readFileTail(orcDataSource, ORC);
+
+            // the tail retains the statistics of the file and of each of its five stripes
+            long statisticsSize = fileTail.getFooter().getFileStats().stream()
+                    .mapToLong(ColumnStatistics::getRetainedSizeInBytes)
+                    .sum();
+            assertEquals(fileTail.getMetadata().getStripeStatsList().size(), 5);
+            for (StripeStatistics stripeStatistics : fileTail.getMetadata().getStripeStatsList()) {
+                statisticsSize += stripeStatistics.getRetainedSizeInBytes();
+            }
+            assertTrue(fileTail.getRetainedSizeInBytes() > statisticsSize);
+        }
+    }
+
     @Test
     public void testBatchSizeGrowth()
             throws Exception
@@ -15,36 +15,59 @@ package io.prestosql.orc;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import io.prestosql.orc.OrcWriteValidation.OrcWriteValidationMode;
+import io.prestosql.orc.TupleDomainOrcPredicate.ColumnReference;
 import io.prestosql.orc.metadata.Footer;
 import io.prestosql.orc.metadata.Stream;
 import io.prestosql.orc.metadata.StripeFooter;
 import io.prestosql.orc.metadata.StripeInformation;
+import io.prestosql.orc.stream.OrcDataOutput;
 import io.prestosql.orc.stream.OrcInputStream;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.type.Type;
 import org.testng.annotations.Test;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static io.airlift.testing.Assertions.assertGreaterThanOrEqual;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.orc.OrcEncoding.ORC;
+import static io.prestosql.orc.OrcReader.INITIAL_BATCH_SIZE;
 import static io.prestosql.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static io.prestosql.orc.OrcWriteValidation.OrcWriteValidationMode.BOTH;
 import static io.prestosql.orc.StripeReader.isIndexStream;
 import static io.prestosql.orc.TestingOrcPredicate.ORC_ROW_GROUP_SIZE;
 import static io.prestosql.orc.TestingOrcPredicate.ORC_STRIPE_SIZE;
 import static io.prestosql.orc.metadata.CompressionKind.NONE;
+import static io.prestosql.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static java.lang.Math.toIntExact;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestOrcWriter
 {
@@ -120,4 +143,224 @@ public class TestOrcWriter
             }
         }
     }
+
+    @Test
+    public void testBloomFilters()
+            throws IOException
+    {
+        int rowGroupCount = 10;
+        int positionCount = ORC_ROW_GROUP_SIZE * rowGroupCount;
+
+        TempFile tempFile = new TempFile();
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamOrcDataSink(new FileOutputStream(tempFile.getFile())),
+                ImmutableList.of("id", "name"),
+                ImmutableList.of(BIGINT, VARCHAR),
+                ORC,
+                NONE,
+                new OrcWriterOptions()
+                        .withRowGroupMaxRowCount(ORC_ROW_GROUP_SIZE)
+                        .withBloomFilterColumns(ImmutableSet.of("id", "name"))
+                        .withBloomFilterFpp(0.001),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                true,
+                BOTH,
+                new OrcWriterStats());
+
+        // only even values are written, so odd values are within the min/max range of a row group but not in the data
+        BlockBuilder idBlockBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder nameBlockBuilder = VARCHAR.createBlockBuilder(null, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(idBlockBuilder, i * 2L);
+            VARCHAR.writeSlice(nameBlockBuilder, Slices.utf8Slice("name_" + (i * 2L)));
+        }
+        writer.write(new Page(idBlockBuilder.build(), nameBlockBuilder.build()));
+        writer.close();
+
+        DataSize dataSize = new DataSize(1, MEGABYTE);
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), dataSize, dataSize, dataSize, true);
+        writer.validate(orcDataSource);
+
+        // every column with a bloom filter has a bloom filter stream
+        OrcReader orcReader = new OrcReader(orcDataSource, ORC, dataSize, dataSize, dataSize, dataSize);
+        Footer footer = orcReader.getFooter();
+        for (StripeInformation stripe : footer.getStripes()) {
+            byte[] tailBuffer = new byte[toIntExact(stripe.getFooterLength())];
+            orcDataSource.readFully(stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength(), tailBuffer);
+            try (InputStream inputStream = new OrcInputStream(orcDataSource.getId(), Slices.wrappedBuffer(tailBuffer).getInput(), Optional.empty(), newSimpleAggregatedMemoryContext(), tailBuffer.length)) {
+                StripeFooter stripeFooter = ORC.createMetadataReader().readStripeFooter(footer.getTypes(), inputStream);
+                assertEquals(stripeFooter.getStreams().stream()
+                        .filter(stream -> stream.getStreamKind() == BLOOM_FILTER)
+                        .map(Stream::getColumn)
+                        .collect(toImmutableSet()), ImmutableSet.of(1, 2));
+            }
+        }
+
+        // a value present in the data only reads the row group containing it
+        assertEquals(readRowCount(orcReader, "id", BIGINT, 12346L), ORC_ROW_GROUP_SIZE);
+        assertEquals(readRowCount(orcReader, "name", VARCHAR, Slices.utf8Slice("name_12346")), ORC_ROW_GROUP_SIZE);
+
+        // a missing value within the min/max range is pruned by the bloom filter
+        assertEquals(readRowCount(orcReader, "id", BIGINT, 12345L), 0);
+        assertEquals(readRowCount(orcReader, "name", VARCHAR, Slices.utf8Slice("name_12345")), 0);
+
+        assertTrue(readRowCount(orcReader, "id", BIGINT, 12345L, false) > 0);
+    }
+
+    @Test
+    public void testParallelWrite()
+            throws IOException
+    {
+        int positionCount = ORC_ROW_GROUP_SIZE * 25;
+        BlockBuilder idBlockBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder nameBlockBuilder = VARCHAR.createBlockBuilder(null, positionCount);
+        BlockBuilder valueBlockBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(idBlockBuilder, i);
+            VARCHAR.writeSlice(nameBlockBuilder, Slices.utf8Slice("name_" + (i % 1000)));
+            BIGINT.writeLong(valueBlockBuilder, i * 31L % 997);
+        }
+        Page page = new Page(idBlockBuilder.build(), nameBlockBuilder.build(), valueBlockBuilder.build());
+
+        ExecutorService executor = newFixedThreadPool(4);
+        try (TempFile serialFile = new TempFile(); TempFile parallelFile = new TempFile()) {
+            writeStripes(serialFile, page, Optional.empty());
+            OrcWriter writer = writeStripes(parallelFile, page, Optional.of(executor));
+
+            DataSize dataSize = new DataSize(1, MEGABYTE);
+            writer.validate(new FileOrcDataSource(parallelFile.getFile(), dataSize, dataSize, dataSize, true));
+            assertEquals(new OrcReader(new FileOrcDataSource(parallelFile.getFile(), dataSize, dataSize, dataSize, true), ORC, dataSize, dataSize, dataSize, dataSize).getFooter().getStripes().size(), 5);
+
+            // encoding in parallel and writing in the background produces the same file
+            assertEquals(Files.readAllBytes(parallelFile.getFile().toPath()), Files.readAllBytes(serialFile.getFile().toPath()));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForFailedBackgroundWrite()
+            throws Exception
+    {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        AtomicBoolean writeFinished = new AtomicBoolean();
+        AtomicBoolean closedAfterWrite = new AtomicBoolean();
+        OrcDataSink failingSink = new OrcDataSink()
+        {
+            @Override
+            public long size()
+            {
+                return 0;
+            }
+
+            @Override
+            public long getRetainedSizeInBytes()
+            {
+                return 0;
+            }
+
+            @Override
+            public void write(List<OrcDataOutput> outputData)
+                    throws IOException
+            {
+                writeStarted.countDown();
+                sleepUninterruptibly(100, MILLISECONDS);
+                writeFinished.set(true);
+                throw new IOException("write failed");
+            }
+
+            @Override
+            public void close()
+            {
+                closedAfterWrite.set(writeFinished.get());
+            }
+        };
+
+        ExecutorService executor = newFixedThreadPool(1);
+        try {
+            OrcWriter writer = new OrcWriter(
+                    failingSink,
+                    ImmutableList.of("id"),
+                    ImmutableList.of(BIGINT),
+                    ORC,
+                    NONE,
+                    new OrcWriterOptions(),
+                    ImmutableMap.of(),
+                    HIVE_STORAGE_TIME_ZONE,
+                    false,
+                    BOTH,
+                    new OrcWriterStats(),
+                    Optional.empty(),
+                    Optional.of(executor));
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, 10);
+            for (int i = 0; i < 10; i++) {
+                BIGINT.writeLong(blockBuilder, i);
+            }
+            writer.write(new Page(blockBuilder.build()));
+
+            // the only stripe is written in the background by close, which must report the failure
+            try {
+                writer.close();
+                fail("Expected IOException");
+            }
+            catch (IOException e) {
+                assertEquals(e.getMessage(), "write failed");
+            }
+            assertEquals(writeStarted.getCount(), 0);
+            assertTrue(closedAfterWrite.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OrcWriter writeStripes(TempFile tempFile, Page page, Optional<Executor> writeExecutor)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamOrcDataSink(new FileOutputStream(tempFile.getFile())),
+                ImmutableList.of("id", "name", "value"),
+                ImmutableList.of(BIGINT, VARCHAR, BIGINT),
+                ORC,
+                NONE,
+                new OrcWriterOptions()
+                        .withStripeMaxRowCount(ORC_ROW_GROUP_SIZE * 5)
+                        .withRowGroupMaxRowCount(ORC_ROW_GROUP_SIZE)
+                        .withMaxBufferedStripes(2),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                true,
+                BOTH,
+                new OrcWriterStats(),
+                writeExecutor,
+                writeExecutor);
+        writer.write(page);
+        writer.close();
+        return writer;
+    }
+
+    private static int readRowCount(OrcReader orcReader, String column, Type type, Object value)
+            throws IOException
+    {
+        return readRowCount(orcReader, column, type, value, true);
+    }
+
+    private static int readRowCount(OrcReader orcReader, String column, Type type, Object value, boolean bloomFiltersEnabled)
+            throws IOException
+    {
+        TupleDomainOrcPredicate<String> predicate = new TupleDomainOrcPredicate<>(
+                TupleDomain.withColumnDomains(ImmutableMap.of(column, Domain.singleValue(type, value))),
+                ImmutableList.of(new ColumnReference<>("id", 0, BIGINT), new ColumnReference<>("name", 1, VARCHAR)),
+                bloomFiltersEnabled);
+
+        int rowCount = 0;
+        try (OrcRecordReader recordReader = orcReader.createRecordReader(ImmutableMap.of(0, BIGINT, 1, VARCHAR), predicate, HIVE_STORAGE_TIME_ZONE, newSimpleAggregatedMemoryContext(), INITIAL_BATCH_SIZE)) {
+            for (int batchSize = recordReader.nextBatch(); batchSize > 0; batchSize = recordReader.nextBatch()) {
+                rowCount += batchSize;
+            }
+        }
+        return rowCount;
+    }
 }
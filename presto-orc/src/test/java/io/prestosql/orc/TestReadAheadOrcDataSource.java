@@ -0,0 +1,261 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.context.LocalMemoryContext;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestReadAheadOrcDataSource
+{
+    private static final byte[] DATA = createData(1000);
+
+    @Test
+    public void testPrefetch()
+            throws Exception
+    {
+        TestingDataSource delegate = new TestingDataSource();
+        List<Runnable> tasks = new ArrayList<>();
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        ReadAheadOrcDataSource dataSource = new ReadAheadOrcDataSource(delegate, tasks::add, new DataSize(1, BYTE), new DataSize(300, BYTE), memoryContext);
+
+        // ranges are read in file order, while they fit in the read-ahead size
+        ListenableFuture<?> future = dataSource.prefetch(ImmutableList.of(
+                new DiskRange(500, 100),
+                new DiskRange(0, 100),
+                new DiskRange(800, 100),
+                new DiskRange(200, 100)));
+        assertEquals(tasks.size(), 3);
+        assertEquals(memoryContext.getBytes(), 300);
+        assertFalse(future.isDone());
+        tasks.forEach(Runnable::run);
+        assertEquals(delegate.getReads(), ImmutableList.of(new DiskRange(0, 100), new DiskRange(200, 100), new DiskRange(500, 100)));
+        assertTrue(future.isDone());
+
+        // ranges that are already prefetched are not read again
+        tasks.clear();
+        dataSource.prefetch(ImmutableList.of(new DiskRange(520, 50)));
+        assertTrue(tasks.isEmpty());
+
+        // prefetched ranges are served from memory
+        assertRead(dataSource, 210, 50);
+        Map<String, OrcDataSourceInput> inputs = dataSource.readFully(ImmutableMap.of("a", new DiskRange(0, 100), "b", new DiskRange(550, 50)));
+        assertEquals(inputs.get("a").getInput().readSlice(100).getBytes(), Arrays.copyOfRange(DATA, 0, 100));
+        assertEquals(inputs.get("b").getInput().readSlice(50).getBytes(), Arrays.copyOfRange(DATA, 550, 600));
+        assertEquals(delegate.getReads().size(), 3);
+
+        // other ranges are read from the delegate
+        assertRead(dataSource, 800, 100);
+        assertEquals(delegate.getReads().size(), 4);
+
+        dataSource.discardBefore(300);
+        assertEquals(memoryContext.getBytes(), 100);
+
+        dataSource.close();
+        assertEquals(memoryContext.getBytes(), 0);
+        assertTrue(delegate.isClosed());
+    }
+
+    @Test
+    public void testCloseWaitsForInFlightRead()
+            throws Exception
+    {
+        TestingDataSource delegate = new TestingDataSource();
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch readReleased = new CountDownLatch(1);
+        delegate.blockReads(readStarted, readReleased);
+
+        ExecutorService executor = newCachedThreadPool();
+        try {
+            ReadAheadOrcDataSource dataSource = new ReadAheadOrcDataSource(delegate, executor, new DataSize(1, BYTE), new DataSize(1, MEGABYTE), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+            dataSource.prefetch(ImmutableList.of(new DiskRange(0, 100)));
+            assertTrue(readStarted.await(10, SECONDS));
+
+            Future<?> close = executor.submit(() -> {
+                dataSource.close();
+                return null;
+            });
+            MILLISECONDS.sleep(100);
+            assertFalse(close.isDone());
+            assertFalse(delegate.isClosed());
+
+            readReleased.countDown();
+            close.get(10, SECONDS);
+            assertTrue(delegate.isClosed());
+            assertFalse(delegate.isReadAfterClose());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseCancelsQueuedRead()
+            throws Exception
+    {
+        TestingDataSource delegate = new TestingDataSource();
+        List<Runnable> tasks = new ArrayList<>();
+        ReadAheadOrcDataSource dataSource = new ReadAheadOrcDataSource(delegate, tasks::add, new DataSize(1, BYTE), new DataSize(1, MEGABYTE), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        ListenableFuture<?> future = dataSource.prefetch(ImmutableList.of(new DiskRange(0, 100)));
+
+        dataSource.close();
+        assertTrue(future.isDone());
+
+        // the read does not start after the data source is closed
+        tasks.forEach(Runnable::run);
+        assertTrue(delegate.getReads().isEmpty());
+    }
+
+    @Test
+    public void testFailedRead()
+            throws Exception
+    {
+        TestingDataSource delegate = new TestingDataSource();
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        ReadAheadOrcDataSource dataSource = new ReadAheadOrcDataSource(delegate, directExecutor(), new DataSize(1, BYTE), new DataSize(1, MEGABYTE), memoryContext);
+
+        // a failed read-ahead does not fail the future, and the range is read again
+        delegate.failReads(1);
+        ListenableFuture<?> future = dataSource.prefetch(ImmutableList.of(new DiskRange(0, 100)));
+        assertTrue(future.isDone());
+        future.get();
+        assertRead(dataSource, 0, 100);
+        assertEquals(delegate.getReads().size(), 2);
+        assertEquals(memoryContext.getBytes(), 0);
+
+        // the failure is reported when the read from the delegate fails too
+        delegate.failReads(2);
+        dataSource.prefetch(ImmutableList.of(new DiskRange(200, 100))).get();
+        try {
+            dataSource.readFully(200, new byte[100]);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed");
+        }
+    }
+
+    private static void assertRead(OrcDataSource dataSource, long position, int length)
+            throws IOException
+    {
+        byte[] buffer = new byte[length];
+        dataSource.readFully(position, buffer);
+        assertEquals(buffer, Arrays.copyOfRange(DATA, (int) position, (int) position + length));
+    }
+
+    private static byte[] createData(int size)
+    {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private static class TestingDataSource
+            extends AbstractOrcDataSource
+    {
+        private final List<DiskRange> reads = new CopyOnWriteArrayList<>();
+        private volatile int failedReads;
+        private volatile CountDownLatch readStarted;
+        private volatile CountDownLatch readReleased;
+        private volatile boolean closed;
+        private volatile boolean readAfterClose;
+
+        public TestingDataSource()
+        {
+            super(new OrcDataSourceId("test"), DATA.length, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), false);
+        }
+
+        public void failReads(int count)
+        {
+            failedReads = count;
+        }
+
+        public void blockReads(CountDownLatch readStarted, CountDownLatch readReleased)
+        {
+            this.readStarted = readStarted;
+            this.readReleased = readReleased;
+        }
+
+        public List<DiskRange> getReads()
+        {
+            return ImmutableList.copyOf(reads);
+        }
+
+        public boolean isClosed()
+        {
+            return closed;
+        }
+
+        public boolean isReadAfterClose()
+        {
+            return readAfterClose;
+        }
+
+        @Override
+        protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException
+        {
+            reads.add(new DiskRange(position, bufferLength));
+            if (readStarted != null) {
+                readStarted.countDown();
+                try {
+                    readReleased.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            readAfterClose |= closed;
+            if (failedReads > 0) {
+                failedReads--;
+                throw new IOException("read failed");
+            }
+            System.arraycopy(DATA, (int) position, buffer, bufferOffset, bufferLength);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.spi.type.Type;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.orc.ValueFilter.createValueFilter;
+import static io.prestosql.spi.predicate.Range.equal;
+import static io.prestosql.spi.predicate.Range.greaterThan;
+import static io.prestosql.spi.predicate.Range.lessThan;
+import static io.prestosql.spi.predicate.Range.range;
+import static io.prestosql.spi.predicate.Utils.nativeValueToBlock;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.TypeUtils.readNativeValue;
+import static io.prestosql.spi.type.TypeUtils.writeNativeValue;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.lang.Float.floatToRawIntBits;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestValueFilter
+{
+    @Test
+    public void testLongRanges()
+    {
+        List<Object> values = Arrays.asList(null, Long.MIN_VALUE, -1L, 0L, 9L, 10L, 15L, 19L, 20L, 100L, 101L, Long.MAX_VALUE);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(range(BIGINT, 10L, true, 20L, false), greaterThan(BIGINT, 100L)), false), values);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(lessThan(BIGINT, 0L), range(BIGINT, 9L, false, 19L, true)), true), values);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(greaterThan(BIGINT, Long.MAX_VALUE - 1)), false), values);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(lessThan(INTEGER, 10L)), false), Arrays.asList(null, -5L, 9L, 10L, 11L));
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(equal(DATE, 17_000L)), true), Arrays.asList(null, 16_999L, 17_000L, 17_001L));
+    }
+
+    @Test
+    public void testLongValues()
+    {
+        List<Object> values = Arrays.asList(null, 0L, 1L, 2L, 5L, 9L, 10L);
+        assertMatchesDomain(Domain.multipleValues(BIGINT, ImmutableList.of(1L, 5L, 9L)), values);
+        assertMatchesDomain(Domain.create(ValueSet.of(BIGINT, 1L, 5L, 9L), true), values);
+    }
+
+    @Test
+    public void testDoubleRanges()
+    {
+        List<Object> values = Arrays.asList(null, Double.NEGATIVE_INFINITY, -1.0, 0.0, 5.0, 5.5, 10.0, Double.POSITIVE_INFINITY, Double.NaN);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(range(DOUBLE, 0.0, true, 5.0, false), greaterThan(DOUBLE, 5.5)), false), values);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(lessThan(DOUBLE, 5.0), greaterThan(DOUBLE, 5.0)), true), values);
+        assertMatchesDomain(Domain.multipleValues(DOUBLE, ImmutableList.of(-1.0, 10.0)), values);
+
+        List<Object> realValues = Arrays.asList(null, realValue(-1.0f), realValue(0.0f), realValue(2.5f), realValue(3.0f), realValue(Float.NaN));
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(range(REAL, realValue(0.0f), true, realValue(3.0f), false)), false), realValues);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(greaterThan(REAL, realValue(0.0f))), true), realValues);
+    }
+
+    @Test
+    public void testSliceRangesAndValues()
+    {
+        List<Object> values = Arrays.asList(null, utf8Slice(""), utf8Slice("a"), utf8Slice("apple"), utf8Slice("b"), utf8Slice("banana"), utf8Slice("c"));
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(range(VARCHAR, utf8Slice("a"), false, utf8Slice("b"), true)), false), values);
+        assertMatchesDomain(Domain.create(ValueSet.ofRanges(lessThan(VARCHAR, utf8Slice("apple")), greaterThan(VARCHAR, utf8Slice("banana"))), true), values);
+        assertMatchesDomain(Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("apple"), utf8Slice("c"))), values);
+    }
+
+    @Test
+    public void testEncodedBlocks()
+    {
+        ValueFilter filter = createValueFilter(Domain.multipleValues(BIGINT, ImmutableList.of(1L, 3L))).get();
+        Block dictionary = createBlock(BIGINT, Arrays.asList(1L, 2L, 3L));
+        Block block = new DictionaryBlock(dictionary, new int[] {0, 1, 2, 2, 1, 0});
+        int[] matches = new int[block.getPositionCount()];
+        assertEquals(filter.filter(BIGINT, block, matches), 4);
+        assertEquals(Arrays.copyOf(matches, 4), new int[] {0, 2, 3, 5});
+
+        assertEquals(filter.filter(BIGINT, new RunLengthEncodedBlock(nativeValueToBlock(BIGINT, 3L), 6), matches), 6);
+        assertEquals(filter.filter(BIGINT, new RunLengthEncodedBlock(nativeValueToBlock(BIGINT, 2L), 6), matches), 0);
+    }
+
+    @Test
+    public void testUnsupportedType()
+    {
+        assertFalse(createValueFilter(Domain.singleValue(BOOLEAN, true)).isPresent());
+    }
+
+    private static void assertMatchesDomain(Domain domain, List<Object> values)
+    {
+        Type type = domain.getType();
+        ValueFilter filter = createValueFilter(domain).get();
+        Block block = createBlock(type, values);
+        int[] matches = new int[block.getPositionCount()];
+        int matchCount = filter.filter(type, block, matches);
+
+        int expectedCount = 0;
+        int[] expected = new int[block.getPositionCount()];
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (domain.includesNullableValue(readNativeValue(type, block, position))) {
+                expected[expectedCount] = position;
+                expectedCount++;
+            }
+        }
+        assertEquals(Arrays.copyOf(matches, matchCount), Arrays.copyOf(expected, expectedCount), domain.toString());
+    }
+
+    private static Block createBlock(Type type, List<Object> values)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, values.size());
+        for (Object value : values) {
+            writeNativeValue(type, blockBuilder, value);
+        }
+        return blockBuilder.build();
+    }
+
+    private static long realValue(float value)
+    {
+        return floatToRawIntBits(value);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc.stream;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.prestosql.orc.OrcDataSourceId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.orc.metadata.CompressionKind.NONE;
+import static io.prestosql.orc.metadata.Stream.StreamKind.DATA;
+
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@Fork(2)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkLongInputStreamV2
+{
+    private static final int VALUE_COUNT = 10_000;
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public Object readValueAtATime(BenchmarkData data)
+            throws IOException
+    {
+        LongInputStreamV2 input = data.createInputStream();
+        long[] values = data.values;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = input.next();
+        }
+        return values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public Object readVector(BenchmarkData data)
+            throws IOException
+    {
+        LongInputStreamV2 input = data.createInputStream();
+        input.nextLongVector(VALUE_COUNT, data.values);
+        return data.values;
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        private final long[] values = new long[VALUE_COUNT];
+
+        @Param({"1", "3", "8", "12", "17", "24", "30", "32", "48", "63"})
+        private int bits;
+
+        private Slice slice;
+
+        @Setup
+        public void setup()
+        {
+            LongOutputStreamV2 output = new LongOutputStreamV2(NONE, 256 * 1024, false, DATA);
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                output.writeLong(ThreadLocalRandom.current().nextLong(1L << bits));
+            }
+            output.close();
+
+            DynamicSliceOutput sliceOutput = new DynamicSliceOutput(VALUE_COUNT * 8);
+            output.getStreamDataOutput(0).writeData(sliceOutput);
+            slice = sliceOutput.slice();
+        }
+
+        public LongInputStreamV2 createInputStream()
+        {
+            OrcInputStream input = new OrcInputStream(new OrcDataSourceId("benchmark"), slice.getInput(), Optional.empty(), newSimpleAggregatedMemoryContext(), slice.length());
+            return new LongInputStreamV2(input, false, false);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.bits = 12;
+        data.setup();
+        new BenchmarkLongInputStreamV2().readVector(data);
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkLongInputStreamV2.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -13,21 +13,27 @@
  */
 package io.prestosql.orc.stream;
 
+import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.prestosql.orc.OrcCorruptionException;
 import io.prestosql.orc.OrcDecompressor;
 import io.prestosql.orc.checkpoint.LongStreamCheckpoint;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.orc.OrcDecompressor.createOrcDecompressor;
 import static io.prestosql.orc.metadata.CompressionKind.SNAPPY;
 import static io.prestosql.orc.metadata.Stream.StreamKind.DATA;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
 
 public class TestLongStreamV2
         extends AbstractTestValueStream<Long, LongStreamCheckpoint, LongOutputStreamV2, LongInputStreamV2>
@@ -47,6 +53,59 @@ public class TestLongStreamV2
         testWriteValue(groups);
     }
 
+    @Test
+    public void testVectorRead()
+            throws IOException
+    {
+        Random random = new Random(0);
+        long[] values = new long[5000];
+        LongOutputStreamV2 outputStream = createValueOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            // mix runs of repeated, increasing and random values of different widths
+            if (i % 1000 < 100) {
+                values[i] = 42;
+            }
+            else if (i % 1000 < 300) {
+                values[i] = i * 3;
+            }
+            else {
+                values[i] = random.nextInt(1 << (i % 31)) - (1 << (i % 29));
+            }
+            outputStream.writeLong(values[i]);
+        }
+        outputStream.close();
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1000);
+        outputStream.getStreamDataOutput(0).writeData(sliceOutput);
+
+        LongInputStreamV2 valueStream = createValueStream(sliceOutput.slice());
+        long[] longVector = new long[1234];
+        valueStream.nextLongVector(longVector.length, longVector);
+        int position = 0;
+        for (long value : longVector) {
+            assertEquals(value, values[position++]);
+        }
+
+        int[] intVector = new int[1500];
+        valueStream.nextIntVector(1000, intVector, 500);
+        for (int i = 500; i < 1500; i++) {
+            assertEquals(intVector[i], values[position++]);
+        }
+
+        long expectedSum = 0;
+        for (int i = 0; i < 777; i++) {
+            expectedSum += values[position++];
+        }
+        assertEquals(valueStream.sum(777), expectedSum);
+
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, values.length - position);
+        valueStream.nextLongVector(BIGINT, values.length - position, blockBuilder);
+        Block block = blockBuilder.build();
+        for (int i = 0; i < block.getPositionCount(); i++) {
+            assertEquals(BIGINT.getLong(block, i), values[position++]);
+        }
+    }
+
     @Override
     protected LongOutputStreamV2 createValueOutputStream()
     {
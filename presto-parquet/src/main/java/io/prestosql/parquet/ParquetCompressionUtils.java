@@ -15,6 +15,7 @@ package io.prestosql.parquet;
 
 import io.airlift.compress.Decompressor;
 import io.airlift.compress.lzo.LzoDecompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
 import io.airlift.compress.snappy.SnappyDecompressor;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
@@ -22,7 +23,9 @@ import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.SizeOf.SIZE_OF_INT;
@@ -61,6 +64,47 @@ public final class ParquetCompressionUtils
         }
     }
 
+    public static Slice compress(CompressionCodecName codec, Slice input)
+            throws IOException
+    {
+        requireNonNull(input, "input is null");
+
+        if (input.length() == 0) {
+            return EMPTY_SLICE;
+        }
+
+        switch (codec) {
+            case GZIP:
+                return compressGzip(input);
+            case SNAPPY:
+                return compressSnappy(input);
+            case UNCOMPRESSED:
+                return input;
+            default:
+                throw new IllegalArgumentException("Codec not supported by Parquet writer: " + codec);
+        }
+    }
+
+    private static Slice compressSnappy(Slice input)
+    {
+        SnappyCompressor compressor = new SnappyCompressor();
+        byte[] output = new byte[compressor.maxCompressedLength(input.length())];
+        byte[] byteArray = (byte[]) input.getBase();
+        int byteArrayOffset = (int) (input.getAddress() - ARRAY_BYTE_BASE_OFFSET);
+        int size = compressor.compress(byteArray, byteArrayOffset, input.length(), output, 0, output.length);
+        return wrappedBuffer(output, 0, size);
+    }
+
+    private static Slice compressGzip(Slice input)
+            throws IOException
+    {
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(input.length());
+        try (OutputStream gzipOutputStream = new GZIPOutputStream(sliceOutput, GZIP_BUFFER_SIZE)) {
+            input.getBytes(0, gzipOutputStream, input.length());
+        }
+        return sliceOutput.slice();
+    }
+
     private static Slice decompressSnappy(Slice input, int uncompressedSize)
     {
         byte[] buffer = new byte[uncompressedSize];
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.context.LocalMemoryContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Data source that reads column chunks the reader is going to need on a separate
+ * executor, so that the IO overlaps with decoding the row group that was read before.
+ * Reads of prefetched ranges are served from memory, and all other reads go to the delegate.
+ * <p>
+ * Prefetching is planned by the reader, which must call all methods except the
+ * prefetch reads from a single thread. Closing waits for the prefetch reads that
+ * already started, so that they never use the delegate after it is closed.
+ */
+public class ReadAheadParquetDataSource
+        implements ParquetDataSource
+{
+    private final ParquetDataSource dataSource;
+    private final Executor executor;
+    private final long maxReadAheadBytes;
+    private final LocalMemoryContext memoryContext;
+
+    private final List<PrefetchedRange> prefetchedRanges = new ArrayList<>();
+    // discarded ranges whose read was in progress
+    private final List<PrefetchedRange> discardedRanges = new ArrayList<>();
+    private long prefetchedBytes;
+
+    public ReadAheadParquetDataSource(ParquetDataSource dataSource, Executor executor, DataSize maxReadAheadSize, LocalMemoryContext memoryContext)
+    {
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.maxReadAheadBytes = requireNonNull(maxReadAheadSize, "maxReadAheadSize is null").toBytes();
+        checkArgument(maxReadAheadBytes > 0, "maxReadAheadSize must be positive");
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+    }
+
+    /**
+     * Starts reading the specified range in the background, unless the prefetched
+     * data would exceed the read-ahead size.
+     *
+     * @return a future that completes when the read finished, or a done future if the range is not prefetched
+     */
+    public ListenableFuture<?> prefetch(long position, int length)
+    {
+        if (prefetchedBytes + length > maxReadAheadBytes) {
+            return immediateFuture(null);
+        }
+        PrefetchedRange prefetchedRange = new PrefetchedRange(position, length);
+        executor.execute(() -> prefetchedRange.read(dataSource));
+        prefetchedRanges.add(prefetchedRange);
+        prefetchedBytes += length;
+        memoryContext.setBytes(prefetchedBytes);
+        // failed reads are retried by the reader, so they do not fail the future
+        return Futures.successfulAsList(ImmutableList.of(prefetchedRange.getData()));
+    }
+
+    /**
+     * Drops the prefetched ranges that end at or before the specified position.
+     */
+    public void discardBefore(long position)
+    {
+        discardedRanges.removeIf(prefetchedRange -> prefetchedRange.getData().isDone());
+        Iterator<PrefetchedRange> iterator = prefetchedRanges.iterator();
+        while (iterator.hasNext()) {
+            PrefetchedRange prefetchedRange = iterator.next();
+            if (prefetchedRange.getEnd() <= position) {
+                prefetchedRange.cancel();
+                if (!prefetchedRange.getData().isDone()) {
+                    discardedRanges.add(prefetchedRange);
+                }
+                iterator.remove();
+                prefetchedBytes -= prefetchedRange.getLength();
+            }
+        }
+        memoryContext.setBytes(prefetchedBytes);
+    }
+
+    @Override
+    public ParquetDataSourceId getId()
+    {
+        return dataSource.getId();
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return dataSource.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return dataSource.getReadTimeNanos();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return dataSource.getSize();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+    {
+        PrefetchedRange prefetchedRange = findPrefetchedRange(position, bufferLength);
+        if (prefetchedRange == null) {
+            dataSource.readFully(position, buffer, bufferOffset, bufferLength);
+            return;
+        }
+
+        byte[] data;
+        try {
+            data = Futures.getUnchecked(prefetchedRange.getData());
+        }
+        catch (RuntimeException e) {
+            // read the range again from the delegate, which reports the failure if it persists
+            data = null;
+        }
+        if (data != null) {
+            System.arraycopy(data, toIntExact(position - prefetchedRange.getPosition()), buffer, bufferOffset, bufferLength);
+        }
+        // column chunks are read once, so the range is dropped when it was read to the end
+        if (data == null || position + bufferLength == prefetchedRange.getEnd()) {
+            prefetchedRanges.remove(prefetchedRange);
+            prefetchedBytes -= prefetchedRange.getLength();
+            memoryContext.setBytes(prefetchedBytes);
+        }
+        if (data == null) {
+            dataSource.readFully(position, buffer, bufferOffset, bufferLength);
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        discardBefore(Long.MAX_VALUE);
+        discardedRanges.forEach(PrefetchedRange::awaitRead);
+        discardedRanges.clear();
+        memoryContext.close();
+        dataSource.close();
+    }
+
+    private PrefetchedRange findPrefetchedRange(long position, int length)
+    {
+        for (PrefetchedRange prefetchedRange : prefetchedRanges) {
+            if (prefetchedRange.getPosition() <= position && position + length <= prefetchedRange.getEnd()) {
+                return prefetchedRange;
+            }
+        }
+        return null;
+    }
+
+    private static class PrefetchedRange
+    {
+        private final long position;
+        private final int length;
+        private final SettableFuture<byte[]> data = SettableFuture.create();
+        // claimed by the read when it starts, or by cancel to prevent the read from starting
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        public PrefetchedRange(long position, int length)
+        {
+            this.position = position;
+            this.length = length;
+        }
+
+        public long getPosition()
+        {
+            return position;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        public long getEnd()
+        {
+            return position + length;
+        }
+
+        public ListenableFuture<byte[]> getData()
+        {
+            return data;
+        }
+
+        public void read(ParquetDataSource dataSource)
+        {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                byte[] buffer = new byte[length];
+                dataSource.readFully(position, buffer);
+                data.set(buffer);
+            }
+            catch (RuntimeException e) {
+                data.setException(e);
+            }
+        }
+
+        /**
+         * Prevents the read from starting. A read that already started still completes the data.
+         */
+        public void cancel()
+        {
+            if (claimed.compareAndSet(false, true)) {
+                data.cancel(false);
+            }
+        }
+
+        public void awaitRead()
+        {
+            try {
+                Futures.getUnchecked(data);
+            }
+            catch (RuntimeException ignored) {
+                // the data is no longer needed
+            }
+        }
+    }
+}
@@ -63,6 +63,11 @@ public class BinaryDictionary
         return content[id];
     }
 
+    public int getDictionarySize()
+    {
+        return content.length;
+    }
+
     @Override
     public String toString()
     {
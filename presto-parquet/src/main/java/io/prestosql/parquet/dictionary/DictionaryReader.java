@@ -13,22 +13,18 @@
  */
 package io.prestosql.parquet.dictionary;
 
-import org.apache.parquet.bytes.ByteBufferInputStream;
-import org.apache.parquet.bytes.BytesUtils;
+import io.prestosql.parquet.ParquetCorruptionException;
 import org.apache.parquet.column.values.ValuesReader;
-import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridDecoder;
 import org.apache.parquet.io.ParquetDecodingException;
 import org.apache.parquet.io.api.Binary;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 
 public class DictionaryReader
         extends ValuesReader
 {
     private final Dictionary dictionary;
-    private RunLengthBitPackingHybridDecoder decoder;
+    private RleBitPackingHybridDecoder decoder;
 
     public DictionaryReader(Dictionary dictionary)
     {
@@ -37,11 +33,23 @@ public class DictionaryReader
 
     @Override
     public void initFromPage(int valueCount, ByteBuffer page, int offset)
-            throws IOException
     {
-        InputStream in = new ByteBufferInputStream(page, offset, page.limit() - offset);
-        int bitWidth = BytesUtils.readIntLittleEndianOnOneByte(in);
-        decoder = new RunLengthBitPackingHybridDecoder(bitWidth, in);
+        int length = page.limit() - offset;
+        byte[] data;
+        int dataOffset;
+        if (page.hasArray()) {
+            data = page.array();
+            dataOffset = page.arrayOffset() + offset;
+        }
+        else {
+            data = new byte[length];
+            ByteBuffer duplicate = page.duplicate();
+            duplicate.position(offset);
+            duplicate.get(data);
+            dataOffset = 0;
+        }
+        int bitWidth = data[dataOffset] & 0xFF;
+        decoder = new RleBitPackingHybridDecoder(bitWidth, data, dataOffset + 1, length - 1);
     }
 
     @Override
@@ -50,6 +58,15 @@ public class DictionaryReader
         return readInt();
     }
 
+    /**
+     * Reads the dictionary ids of the next {@code length} values, which must all be non-null.
+     */
+    public void readDictionaryIds(int[] ids, int offset, int length)
+            throws ParquetCorruptionException
+    {
+        decoder.readInts(ids, offset, length);
+    }
+
     @Override
     public Binary readBytes()
     {
@@ -91,7 +108,7 @@ public class DictionaryReader
         try {
             return decoder.readInt();
         }
-        catch (IOException e) {
+        catch (ParquetCorruptionException e) {
             throw new ParquetDecodingException(e);
         }
     }
@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.dictionary;
+
+import io.prestosql.parquet.ParquetCorruptionException;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decoder for the RLE/bit-packing hybrid encoding of dictionary ids. Each
+ * bit-packed run is unpacked into an int array at once, so values are read
+ * from the array instead of being unpacked one at a time.
+ */
+public class RleBitPackingHybridDecoder
+{
+    private final byte[] data;
+    private final int end;
+    private final int bitWidth;
+    private final int byteWidth;
+    private final int mask;
+    private int position;
+
+    private boolean repeated;
+    private int repeatedValue;
+    private int[] packedValues = new int[0];
+    private int packedValuePosition;
+    private int remainingInRun;
+
+    public RleBitPackingHybridDecoder(int bitWidth, byte[] data, int offset, int length)
+    {
+        checkArgument(bitWidth >= 0 && bitWidth <= 32, "bitWidth must be between 0 and 32");
+        this.bitWidth = bitWidth;
+        this.byteWidth = (bitWidth + 7) / 8;
+        this.mask = bitWidth == 32 ? -1 : (1 << bitWidth) - 1;
+        this.data = data;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public int readInt()
+            throws ParquetCorruptionException
+    {
+        if (remainingInRun == 0) {
+            readNextRun();
+        }
+        remainingInRun--;
+        if (repeated) {
+            return repeatedValue;
+        }
+        int value = packedValues[packedValuePosition];
+        packedValuePosition++;
+        return value;
+    }
+
+    public void readInts(int[] values, int offset, int length)
+            throws ParquetCorruptionException
+    {
+        while (length > 0) {
+            if (remainingInRun == 0) {
+                readNextRun();
+            }
+            int chunkSize = Math.min(length, remainingInRun);
+            if (repeated) {
+                Arrays.fill(values, offset, offset + chunkSize, repeatedValue);
+            }
+            else {
+                System.arraycopy(packedValues, packedValuePosition, values, offset, chunkSize);
+                packedValuePosition += chunkSize;
+            }
+            remainingInRun -= chunkSize;
+            offset += chunkSize;
+            length -= chunkSize;
+        }
+    }
+
+    private void readNextRun()
+            throws ParquetCorruptionException
+    {
+        if (position >= end) {
+            throw new ParquetCorruptionException("No more values to read");
+        }
+        int header = readUnsignedVarInt();
+        if ((header & 1) == 0) {
+            repeated = true;
+            remainingInRun = header >>> 1;
+            int value = 0;
+            for (int i = 0; i < byteWidth; i++) {
+                value |= readByte() << (i * 8);
+            }
+            repeatedValue = value;
+        }
+        else {
+            repeated = false;
+            int groupCount = header >>> 1;
+            remainingInRun = groupCount * 8;
+            if (packedValues.length < remainingInRun) {
+                packedValues = new int[remainingInRun];
+            }
+            unpack(remainingInRun);
+            packedValuePosition = 0;
+        }
+    }
+
+    private void unpack(int valueCount)
+    {
+        // values are packed starting from the least significant bit of each byte
+        long buffer = 0;
+        int bufferedBits = 0;
+        for (int i = 0; i < valueCount; i++) {
+            while (bufferedBits < bitWidth) {
+                // like the Parquet decoder, accept a last bit-packed run which is truncated at the end of the data,
+                // as the padding of its last group is never read as values
+                if (position < end) {
+                    buffer |= ((long) (data[position] & 0xFF)) << bufferedBits;
+                    position++;
+                }
+                bufferedBits += 8;
+            }
+            packedValues[i] = (int) buffer & mask;
+            buffer >>>= bitWidth;
+            bufferedBits -= bitWidth;
+        }
+    }
+
+    private int readUnsignedVarInt()
+            throws ParquetCorruptionException
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private int readByte()
+            throws ParquetCorruptionException
+    {
+        if (position >= end) {
+            throw new ParquetCorruptionException("Unexpected end of RLE/bit-packing hybrid data");
+        }
+        int value = data[position] & 0xFF;
+        position++;
+        return value;
+    }
+}
@@ -15,10 +15,15 @@ package io.prestosql.parquet.reader;
 
 import io.airlift.slice.Slice;
 import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.parquet.dictionary.BinaryDictionary;
+import io.prestosql.parquet.dictionary.Dictionary;
+import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.type.Type;
 import org.apache.parquet.io.api.Binary;
 
+import java.util.Optional;
+
 import static io.airlift.slice.Slices.EMPTY_SLICE;
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static io.prestosql.spi.type.Chars.isCharType;
@@ -38,27 +43,47 @@ public class BinaryColumnReader
     protected void readValue(BlockBuilder blockBuilder, Type type)
     {
         if (definitionLevel == columnDescriptor.getMaxDefinitionLevel()) {
-            Binary binary = valuesReader.readBytes();
-            Slice value;
-            if (binary.length() == 0) {
-                value = EMPTY_SLICE;
-            }
-            else {
-                value = wrappedBuffer(binary.getBytes());
-            }
-            if (isVarcharType(type)) {
-                value = truncateToLength(value, type);
-            }
-            if (isCharType(type)) {
-                value = truncateToLengthAndTrimSpaces(value, type);
-            }
-            type.writeSlice(blockBuilder, value);
+            writeBinary(blockBuilder, type, valuesReader.readBytes());
         }
         else if (isValueNull()) {
             blockBuilder.appendNull();
         }
     }
 
+    @Override
+    protected Optional<Block> createDictionaryBlock(Dictionary dictionary, Type type)
+    {
+        if (!(dictionary instanceof BinaryDictionary)) {
+            return Optional.empty();
+        }
+        BinaryDictionary binaryDictionary = (BinaryDictionary) dictionary;
+        int dictionarySize = binaryDictionary.getDictionarySize();
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, dictionarySize + 1);
+        for (int id = 0; id < dictionarySize; id++) {
+            writeBinary(blockBuilder, type, binaryDictionary.decodeToBinary(id));
+        }
+        blockBuilder.appendNull();
+        return Optional.of(blockBuilder.build());
+    }
+
+    private static void writeBinary(BlockBuilder blockBuilder, Type type, Binary binary)
+    {
+        Slice value;
+        if (binary.length() == 0) {
+            value = EMPTY_SLICE;
+        }
+        else {
+            value = wrappedBuffer(binary.getBytes());
+        }
+        if (isVarcharType(type)) {
+            value = truncateToLength(value, type);
+        }
+        if (isCharType(type)) {
+            value = truncateToLengthAndTrimSpaces(value, type);
+        }
+        type.writeSlice(blockBuilder, value);
+    }
+
     @Override
     protected void skipValue()
     {
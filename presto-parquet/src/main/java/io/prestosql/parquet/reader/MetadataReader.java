@@ -13,6 +13,8 @@
  */
 package io.prestosql.parquet.reader;
 
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.parquet.ParquetCorruptionException;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -51,6 +53,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import static com.google.common.base.Strings.nullToEmpty;
+import static io.airlift.slice.SizeOf.SIZE_OF_CHAR;
 import static io.prestosql.parquet.ParquetValidationUtils.validateParquet;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.apache.parquet.format.Util.readFileMetaData;
@@ -59,6 +63,10 @@ public final class MetadataReader
 {
     private static final int PARQUET_METADATA_LENGTH = 4;
     private static final byte[] MAGIC = "PAR1".getBytes(US_ASCII);
+    // estimated heap size of the metadata objects of a row group and of a column chunk, without the statistics values
+    private static final int ROW_GROUP_RETAINED_SIZE = 128;
+    private static final int COLUMN_CHUNK_RETAINED_SIZE = 320;
+    private static final int PAGE_INDEX_LOCATION_RETAINED_SIZE = 96;
 
     private MetadataReader() {}
 
@@ -72,7 +80,12 @@ public final class MetadataReader
 
     public static ParquetMetadata readFooter(FSDataInputStream inputStream, Path file, long fileSize)
             throws IOException
+    {
+        return readFileMetadata(inputStream, file, fileSize).getParquetMetadata();
+    }
 
+    public static ParquetFileMetadata readFileMetadata(FSDataInputStream inputStream, Path file, long fileSize)
+            throws IOException
     {
         // Parquet File Layout:
         //
@@ -105,9 +118,12 @@ public final class MetadataReader
 
         MessageType messageType = readParquetSchema(schema);
         List<BlockMetaData> blocks = new ArrayList<>();
+        ImmutableMap.Builder<Long, PageIndexLocation> pageIndexLocations = ImmutableMap.builder();
+        long retainedSizeInBytes = 0;
         List<RowGroup> rowGroups = fileMetaData.getRow_groups();
         if (rowGroups != null) {
             for (RowGroup rowGroup : rowGroups) {
+                retainedSizeInBytes += ROW_GROUP_RETAINED_SIZE;
                 BlockMetaData blockMetaData = new BlockMetaData();
                 blockMetaData.setRowCount(rowGroup.getNum_rows());
                 blockMetaData.setTotalByteSize(rowGroup.getTotal_byte_size());
@@ -137,6 +153,11 @@ public final class MetadataReader
                             metaData.total_compressed_size,
                             metaData.total_uncompressed_size);
                     blockMetaData.addColumn(column);
+                    retainedSizeInBytes += COLUMN_CHUNK_RETAINED_SIZE + getStatisticsValuesSize(metaData.statistics);
+                    if (columnChunk.isSetOffset_index_offset()) {
+                        pageIndexLocations.put(column.getStartingPos(), readPageIndexLocation(columnChunk));
+                        retainedSizeInBytes += PAGE_INDEX_LOCATION_RETAINED_SIZE;
+                    }
                 }
                 blockMetaData.setPath(filePath);
                 blocks.add(blockMetaData);
@@ -148,9 +169,34 @@ public final class MetadataReader
         if (keyValueList != null) {
             for (KeyValue keyValue : keyValueList) {
                 keyValueMetaData.put(keyValue.key, keyValue.value);
+                retainedSizeInBytes += SIZE_OF_CHAR * (keyValue.key.length() + nullToEmpty(keyValue.value).length());
             }
         }
-        return new ParquetMetadata(new org.apache.parquet.hadoop.metadata.FileMetaData(messageType, keyValueMetaData, fileMetaData.getCreated_by()), blocks);
+        ParquetMetadata parquetMetadata = new ParquetMetadata(new org.apache.parquet.hadoop.metadata.FileMetaData(messageType, keyValueMetaData, fileMetaData.getCreated_by()), blocks);
+        return new ParquetFileMetadata(parquetMetadata, pageIndexLocations.build(), retainedSizeInBytes);
+    }
+
+    private static PageIndexLocation readPageIndexLocation(ColumnChunk columnChunk)
+            throws ParquetCorruptionException
+    {
+        validateParquet(columnChunk.isSetOffset_index_length(), "Offset index length is missing for column chunk: %s", columnChunk);
+        if (!columnChunk.isSetColumn_index_offset()) {
+            return new PageIndexLocation(0, 0, columnChunk.getOffset_index_offset(), columnChunk.getOffset_index_length());
+        }
+        validateParquet(columnChunk.isSetColumn_index_length(), "Column index length is missing for column chunk: %s", columnChunk);
+        return new PageIndexLocation(
+                columnChunk.getColumn_index_offset(),
+                columnChunk.getColumn_index_length(),
+                columnChunk.getOffset_index_offset(),
+                columnChunk.getOffset_index_length());
+    }
+
+    private static long getStatisticsValuesSize(Statistics statistics)
+    {
+        if (statistics == null || !statistics.isSetMin() || !statistics.isSetMax()) {
+            return 0;
+        }
+        return statistics.min.remaining() + statistics.max.remaining();
     }
 
     private static MessageType readParquetSchema(List<SchemaElement> schema)
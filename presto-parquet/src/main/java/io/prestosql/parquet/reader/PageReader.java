@@ -13,6 +13,7 @@
  */
 package io.prestosql.parquet.reader;
 
+import com.google.common.collect.ImmutableList;
 import io.prestosql.parquet.DataPage;
 import io.prestosql.parquet.DataPageV1;
 import io.prestosql.parquet.DataPageV2;
@@ -23,6 +24,7 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkState;
 import static io.prestosql.parquet.ParquetCompressionUtils.decompress;
 import static java.lang.Math.toIntExact;
 
@@ -52,12 +54,41 @@ class PageReader
         return valueCount;
     }
 
+    /**
+     * Returns the data pages that have not been read yet. The pages are still compressed.
+     */
+    public List<DataPage> getRemainingPages()
+    {
+        return ImmutableList.copyOf(compressedPages);
+    }
+
+    /**
+     * Returns the number of values in the next data page, or 0 if all pages have been read.
+     */
+    public int getNextPageValueCount()
+    {
+        if (compressedPages.isEmpty()) {
+            return 0;
+        }
+        return compressedPages.get(0).getValueCount();
+    }
+
+    /**
+     * Drops the next data page without decompressing it.
+     */
+    public void skipPage()
+    {
+        checkState(!compressedPages.isEmpty(), "No more pages to skip");
+        compressedPages.remove(0);
+    }
+
     public DataPage readPage()
     {
         if (compressedPages.isEmpty()) {
             return null;
         }
         DataPage compressedPage = compressedPages.remove(0);
+        checkState(!(compressedPage instanceof UnreadDataPage), "Data page was not read from the file");
         try {
             if (compressedPage instanceof DataPageV1) {
                 DataPageV1 dataPageV1 = (DataPageV1) compressedPage;
@@ -24,6 +24,7 @@ import org.apache.parquet.format.DataPageHeader;
 import org.apache.parquet.format.DataPageHeaderV2;
 import org.apache.parquet.format.DictionaryPageHeader;
 import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageType;
 import org.apache.parquet.format.Util;
 
 import java.io.ByteArrayInputStream;
@@ -91,6 +92,59 @@ public class ParquetColumnChunk
         return new PageReader(descriptor.getColumnChunkMetaData().getCodec(), pages, dictionaryPage);
     }
 
+    /**
+     * Reads a column chunk of which only some data pages were loaded into the buffer. The buffer
+     * starts with the pages that precede the first data page, followed by the loaded data pages
+     * in order. The data pages that were not loaded are replaced by pages that only have a row count.
+     *
+     * @param leadingPagesLength length of the pages before the first data page, which include the dictionary page
+     * @param pageRowCounts row counts of all data pages of the column chunk
+     * @param pageLoaded whether each data page was loaded into the buffer
+     */
+    public PageReader readPages(int leadingPagesLength, int[] pageRowCounts, boolean[] pageLoaded)
+            throws IOException
+    {
+        DictionaryPage dictionaryPage = null;
+        while (pos < leadingPagesLength) {
+            PageHeader pageHeader = readPageHeader();
+            if (pageHeader.type == PageType.DICTIONARY_PAGE) {
+                if (dictionaryPage != null) {
+                    throw new ParquetCorruptionException("%s has more than one dictionary page in column chunk", descriptor.getColumnDescriptor());
+                }
+                dictionaryPage = readDictionaryPage(pageHeader, pageHeader.getUncompressed_page_size(), pageHeader.getCompressed_page_size());
+            }
+            else {
+                skip(pageHeader.getCompressed_page_size());
+            }
+        }
+
+        List<DataPage> pages = new ArrayList<>();
+        for (int page = 0; page < pageRowCounts.length; page++) {
+            if (!pageLoaded[page]) {
+                pages.add(new UnreadDataPage(pageRowCounts[page]));
+                continue;
+            }
+            PageHeader pageHeader = readPageHeader();
+            int uncompressedPageSize = pageHeader.getUncompressed_page_size();
+            int compressedPageSize = pageHeader.getCompressed_page_size();
+            long valueCount;
+            switch (pageHeader.type) {
+                case DATA_PAGE:
+                    valueCount = readDataPageV1(pageHeader, uncompressedPageSize, compressedPageSize, pages);
+                    break;
+                case DATA_PAGE_V2:
+                    valueCount = readDataPageV2(pageHeader, uncompressedPageSize, compressedPageSize, pages);
+                    break;
+                default:
+                    throw new ParquetCorruptionException("%s offset index points to a %s page", descriptor.getColumnDescriptor(), pageHeader.type);
+            }
+            if (valueCount != pageRowCounts[page]) {
+                throw new ParquetCorruptionException("%s data page has %s values, but the offset index has %s rows", descriptor.getColumnDescriptor(), valueCount, pageRowCounts[page]);
+            }
+        }
+        return new PageReader(descriptor.getColumnChunkMetaData().getCodec(), pages, dictionaryPage);
+    }
+
     public int getPosition()
     {
         return pos;
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The parsed footer of a Parquet file together with an estimate of its heap size,
+ * and the page index locations of the column chunks that have an offset index.
+ */
+public class ParquetFileMetadata
+{
+    private final ParquetMetadata parquetMetadata;
+    private final Map<Long, PageIndexLocation> pageIndexLocations;
+    private final long retainedSizeInBytes;
+
+    public ParquetFileMetadata(ParquetMetadata parquetMetadata, long retainedSizeInBytes)
+    {
+        this(parquetMetadata, ImmutableMap.of(), retainedSizeInBytes);
+    }
+
+    public ParquetFileMetadata(ParquetMetadata parquetMetadata, Map<Long, PageIndexLocation> pageIndexLocations, long retainedSizeInBytes)
+    {
+        this.parquetMetadata = requireNonNull(parquetMetadata, "parquetMetadata is null");
+        this.pageIndexLocations = ImmutableMap.copyOf(requireNonNull(pageIndexLocations, "pageIndexLocations is null"));
+        checkArgument(retainedSizeInBytes >= 0, "retainedSizeInBytes is negative");
+        this.retainedSizeInBytes = retainedSizeInBytes;
+    }
+
+    public ParquetMetadata getParquetMetadata()
+    {
+        return parquetMetadata;
+    }
+
+    /**
+     * Returns the page index locations by the starting position of their column chunk.
+     */
+    public Map<Long, PageIndexLocation> getPageIndexLocations()
+    {
+        return pageIndexLocations;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+}
@@ -13,19 +13,30 @@
  */
 package io.prestosql.parquet.reader;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.parquet.DataPage;
+import io.prestosql.parquet.DataPageV1;
+import io.prestosql.parquet.DataPageV2;
 import io.prestosql.parquet.Field;
 import io.prestosql.parquet.GroupField;
 import io.prestosql.parquet.ParquetCorruptionException;
 import io.prestosql.parquet.ParquetDataSource;
 import io.prestosql.parquet.PrimitiveField;
+import io.prestosql.parquet.ReadAheadParquetDataSource;
 import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.parquet.predicate.Predicate;
 import io.prestosql.spi.block.ArrayBlock;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.RowBlock;
 import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.MapType;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeSignatureParameter;
@@ -34,19 +45,30 @@ import it.unimi.dsi.fastutil.booleans.BooleanList;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageLocation;
+import org.apache.parquet.format.Util;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnPath;
 import org.apache.parquet.io.MessageColumnIO;
 import org.apache.parquet.io.PrimitiveColumnIO;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.prestosql.parquet.ParquetValidationUtils.validateParquet;
 import static io.prestosql.parquet.reader.ListColumnReader.calculateCollectionOffsets;
 import static io.prestosql.spi.type.StandardTypes.ARRAY;
@@ -63,6 +85,7 @@ public class ParquetReader
     private static final int MAX_VECTOR_LENGTH = 1024;
     private static final int INITIAL_BATCH_SIZE = 1;
     private static final int BATCH_SIZE_GROWTH_FACTOR = 2;
+    private static final ListenableFuture<?> NOT_BLOCKED = immediateFuture(null);
 
     private final List<BlockMetaData> blocks;
     private final List<PrimitiveColumnIO> columns;
@@ -84,11 +107,44 @@ public class ParquetReader
 
     private AggregatedMemoryContext currentRowGroupMemoryContext;
 
+    private final Predicate parquetPredicate;
+    private final List<PrimitiveColumnIO> predicateColumns;
+    private final boolean failOnCorruptedParquetStatistics;
+    private final Map<Long, PageIndexLocation> pageIndexLocations;
+    private final Map<Long, OffsetIndex> currentGroupOffsetIndexes = new HashMap<>();
+    private RowRanges currentGroupRowRanges;
+    private long skippedPageCount;
+
+    private final Optional<ReadAheadParquetDataSource> readAheadDataSource;
+    private ListenableFuture<?> readAheadFuture = NOT_BLOCKED;
+
     public ParquetReader(MessageColumnIO messageColumnIO,
             List<BlockMetaData> blocks,
             ParquetDataSource dataSource,
             AggregatedMemoryContext systemMemoryContext,
             DataSize maxReadBlockSize)
+    {
+        this(messageColumnIO, blocks, ImmutableMap.of(), dataSource, systemMemoryContext, maxReadBlockSize, Predicate.TRUE, TupleDomain.all(), false);
+    }
+
+    /**
+     * Creates a reader that uses the page statistics of the columns in {@code parquetTupleDomain}
+     * to skip the rows of pages that cannot match {@code parquetPredicate}. The statistics come
+     * from the column indexes of the column chunks in {@code pageIndexLocations}, and from the
+     * page headers of the other column chunks. The pages of flat columns that have an offset
+     * index and no selected rows are not read from the data source.
+     *
+     * @param pageIndexLocations the page index locations by the starting position of their column chunk
+     */
+    public ParquetReader(MessageColumnIO messageColumnIO,
+            List<BlockMetaData> blocks,
+            Map<Long, PageIndexLocation> pageIndexLocations,
+            ParquetDataSource dataSource,
+            AggregatedMemoryContext systemMemoryContext,
+            DataSize maxReadBlockSize,
+            Predicate parquetPredicate,
+            TupleDomain<ColumnDescriptor> parquetTupleDomain,
+            boolean failOnCorruptedParquetStatistics)
     {
         this.blocks = blocks;
         this.dataSource = requireNonNull(dataSource, "dataSource is null");
@@ -98,6 +154,26 @@ public class ParquetReader
         columns = messageColumnIO.getLeaves();
         columnReaders = new PrimitiveColumnReader[columns.size()];
         maxBytesPerCell = new long[columns.size()];
+
+        this.parquetPredicate = requireNonNull(parquetPredicate, "parquetPredicate is null");
+        this.failOnCorruptedParquetStatistics = failOnCorruptedParquetStatistics;
+        this.pageIndexLocations = requireNonNull(pageIndexLocations, "pageIndexLocations is null");
+        Set<ColumnDescriptor> domainColumns = requireNonNull(parquetTupleDomain, "parquetTupleDomain is null").getDomains()
+                .map(Map::keySet)
+                .orElse(ImmutableSet.of());
+        // only the pages of flat columns start at row boundaries
+        this.predicateColumns = columns.stream()
+                .filter(column -> column.getColumnDescriptor().getMaxRepetitionLevel() == 0)
+                .filter(column -> domainColumns.contains(column.getColumnDescriptor()))
+                .collect(toImmutableList());
+
+        if (dataSource instanceof ReadAheadParquetDataSource) {
+            this.readAheadDataSource = Optional.of((ReadAheadParquetDataSource) dataSource);
+        }
+        else {
+            this.readAheadDataSource = Optional.empty();
+        }
+        startReadAhead();
     }
 
     @Override
@@ -113,15 +189,56 @@ public class ParquetReader
         return currentPosition;
     }
 
+    /**
+     * Returns the number of data pages that were skipped without being decompressed,
+     * because none of their rows were read.
+     */
+    public long getSkippedPageCount()
+    {
+        long count = skippedPageCount;
+        for (PrimitiveColumnReader columnReader : columnReaders) {
+            if (columnReader != null) {
+                count += columnReader.getSkippedPageCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a future that is not done while the next batch would wait for the
+     * read-ahead of the next row group.
+     */
+    public ListenableFuture<?> isBlocked()
+    {
+        if (nextRowInGroup >= currentGroupRowCount) {
+            return readAheadFuture;
+        }
+        return NOT_BLOCKED;
+    }
+
     public int nextBatch()
+            throws IOException
     {
-        if (nextRowInGroup >= currentGroupRowCount && !advanceToNextRowGroup()) {
-            return -1;
+        while (true) {
+            if (nextRowInGroup >= currentGroupRowCount && !advanceToNextRowGroup()) {
+                return -1;
+            }
+
+            long nextRow = currentGroupRowRanges.getNextRow(nextRowInGroup);
+            if (nextRow < 0) {
+                nextRow = currentGroupRowCount;
+            }
+            if (nextRow > nextRowInGroup) {
+                skipRows(toIntExact(nextRow - nextRowInGroup));
+            }
+            if (nextRowInGroup < currentGroupRowCount) {
+                break;
+            }
         }
 
         batchSize = toIntExact(min(nextBatchSize, maxBatchSize));
         nextBatchSize = min(batchSize * BATCH_SIZE_GROWTH_FACTOR, MAX_VECTOR_LENGTH);
-        batchSize = toIntExact(min(batchSize, currentGroupRowCount - nextRowInGroup));
+        batchSize = toIntExact(min(batchSize, currentGroupRowRanges.getRangeEnd(nextRowInGroup) - nextRowInGroup));
 
         nextRowInGroup += batchSize;
         currentPosition += batchSize;
@@ -130,7 +247,18 @@ public class ParquetReader
         return batchSize;
     }
 
+    private void skipRows(int rowCount)
+    {
+        // the skipped rows are added to the read offset of each column reader by the next prepareNextRead
+        for (PrimitiveColumnReader columnReader : columnReaders) {
+            columnReader.prepareNextRead(rowCount);
+        }
+        nextRowInGroup += rowCount;
+        currentPosition += rowCount;
+    }
+
     private boolean advanceToNextRowGroup()
+            throws IOException
     {
         currentRowGroupMemoryContext.close();
         currentRowGroupMemoryContext = systemMemoryContext.newAggregatedMemoryContext();
@@ -140,13 +268,169 @@ public class ParquetReader
         }
         currentBlockMetadata = blocks.get(currentBlock);
         currentBlock = currentBlock + 1;
+        if (readAheadDataSource.isPresent()) {
+            // drop the data of previous row groups that was prefetched for columns that were never read
+            readAheadDataSource.get().discardBefore(currentBlockMetadata.getStartingPos());
+        }
+        startReadAhead();
 
         nextRowInGroup = 0L;
         currentGroupRowCount = currentBlockMetadata.getRowCount();
         initializeColumnReaders();
+        currentGroupOffsetIndexes.clear();
+        // the page readers that are initialized before the row ranges are known read all pages
+        currentGroupRowRanges = null;
+        currentGroupRowRanges = getMatchingRowRanges();
         return true;
     }
 
+    /**
+     * Starts reading the column chunks of the next row group on the read-ahead executor. Row groups
+     * that can be filtered with column indexes are not prefetched, because only their matching pages
+     * are read.
+     */
+    private void startReadAhead()
+    {
+        if (!readAheadDataSource.isPresent() || currentBlock >= blocks.size()) {
+            readAheadFuture = NOT_BLOCKED;
+            return;
+        }
+        BlockMetaData block = blocks.get(currentBlock);
+        ImmutableList.Builder<ListenableFuture<?>> futures = ImmutableList.builder();
+        try {
+            for (PrimitiveColumnIO column : predicateColumns) {
+                PageIndexLocation location = pageIndexLocations.get(getColumnChunkMetaData(block, column.getColumnDescriptor()).getStartingPos());
+                if (location != null && location.hasColumnIndex()) {
+                    readAheadFuture = NOT_BLOCKED;
+                    return;
+                }
+            }
+            for (PrimitiveColumnIO column : columns) {
+                ColumnChunkMetaData metadata = getColumnChunkMetaData(block, column.getColumnDescriptor());
+                futures.add(readAheadDataSource.get().prefetch(metadata.getStartingPos(), toIntExact(metadata.getTotalSize())));
+            }
+        }
+        catch (IOException e) {
+            // the row group is read without read-ahead, which reports the failure
+        }
+        readAheadFuture = Futures.allAsList(futures.build());
+    }
+
+    private RowRanges getMatchingRowRanges()
+            throws IOException
+    {
+        RowRanges rowRanges = RowRanges.all(currentGroupRowCount);
+        for (PrimitiveColumnIO column : predicateColumns) {
+            ColumnDescriptor columnDescriptor = column.getColumnDescriptor();
+            ColumnChunkMetaData metadata = getColumnChunkMetaData(currentBlockMetadata, columnDescriptor);
+            Optional<ColumnIndex> columnIndex = readColumnIndex(metadata);
+            if (columnIndex.isPresent()) {
+                rowRanges = rowRanges.intersect(getMatchingRowRanges(columnDescriptor, columnIndex.get(), getOffsetIndex(metadata).get()));
+            }
+            else {
+                rowRanges = rowRanges.intersect(getMatchingRowRanges(columnDescriptor, columnReaders[column.getId()]));
+            }
+        }
+        return rowRanges;
+    }
+
+    private RowRanges getMatchingRowRanges(ColumnDescriptor columnDescriptor, ColumnIndex columnIndex, OffsetIndex offsetIndex)
+            throws IOException
+    {
+        List<PageLocation> pageLocations = offsetIndex.getPage_locations();
+        validateParquet(columnIndex.getNull_pages().size() == pageLocations.size(), "%s column index and offset index have a different page count", columnDescriptor);
+        RowRanges.Builder pageRowRanges = RowRanges.builder();
+        for (int page = 0; page < pageLocations.size(); page++) {
+            long firstRow = pageLocations.get(page).getFirst_row_index();
+            long rowCount = getPageEnd(pageLocations, page) - firstRow;
+            Statistics<?> statistics = Statistics.getStatsBasedOnType(columnDescriptor.getType());
+            if (columnIndex.getNull_pages().get(page)) {
+                statistics.setNumNulls(rowCount);
+            }
+            else {
+                statistics.setMinMaxFromBytes(columnIndex.getMin_values().get(page).array(), columnIndex.getMax_values().get(page).array());
+                statistics.setNumNulls(columnIndex.getNull_counts().get(page));
+            }
+            if (parquetPredicate.matches(rowCount, ImmutableMap.of(columnDescriptor, statistics), dataSource.getId(), failOnCorruptedParquetStatistics)) {
+                pageRowRanges.add(firstRow, firstRow + rowCount);
+            }
+        }
+        return pageRowRanges.build();
+    }
+
+    private RowRanges getMatchingRowRanges(ColumnDescriptor columnDescriptor, PrimitiveColumnReader columnReader)
+            throws IOException
+    {
+        initializePageReader(columnReader, columnDescriptor);
+        RowRanges.Builder pageRowRanges = RowRanges.builder();
+        long firstRow = 0;
+        for (DataPage page : columnReader.getPageReader().getRemainingPages()) {
+            int rowCount = page.getValueCount();
+            Statistics<?> statistics = getStatistics(page);
+            if (statistics == null || parquetPredicate.matches(rowCount, ImmutableMap.of(columnDescriptor, statistics), dataSource.getId(), failOnCorruptedParquetStatistics)) {
+                pageRowRanges.add(firstRow, firstRow + rowCount);
+            }
+            firstRow += rowCount;
+        }
+        return pageRowRanges.build();
+    }
+
+    /**
+     * Reads the column index of a column chunk, unless it is missing or lacks the null counts,
+     * without which the statistics of a page cannot tell whether it has nulls.
+     */
+    private Optional<ColumnIndex> readColumnIndex(ColumnChunkMetaData metadata)
+            throws IOException
+    {
+        PageIndexLocation location = pageIndexLocations.get(metadata.getStartingPos());
+        if (location == null || !location.hasColumnIndex()) {
+            return Optional.empty();
+        }
+        byte[] buffer = new byte[location.getColumnIndexLength()];
+        dataSource.readFully(location.getColumnIndexOffset(), buffer);
+        ColumnIndex columnIndex = Util.readColumnIndex(new ByteArrayInputStream(buffer));
+        if (!columnIndex.isSetNull_counts()) {
+            return Optional.empty();
+        }
+        return Optional.of(columnIndex);
+    }
+
+    private Optional<OffsetIndex> getOffsetIndex(ColumnChunkMetaData metadata)
+            throws IOException
+    {
+        long startingPosition = metadata.getStartingPos();
+        OffsetIndex offsetIndex = currentGroupOffsetIndexes.get(startingPosition);
+        if (offsetIndex != null) {
+            return Optional.of(offsetIndex);
+        }
+        PageIndexLocation location = pageIndexLocations.get(startingPosition);
+        if (location == null) {
+            return Optional.empty();
+        }
+        byte[] buffer = new byte[location.getOffsetIndexLength()];
+        dataSource.readFully(location.getOffsetIndexOffset(), buffer);
+        offsetIndex = Util.readOffsetIndex(new ByteArrayInputStream(buffer));
+        validateParquet(!offsetIndex.getPage_locations().isEmpty(), "Offset index has no pages: %s", location);
+        currentGroupOffsetIndexes.put(startingPosition, offsetIndex);
+        return Optional.of(offsetIndex);
+    }
+
+    private long getPageEnd(List<PageLocation> pageLocations, int page)
+    {
+        if (page + 1 < pageLocations.size()) {
+            return pageLocations.get(page + 1).getFirst_row_index();
+        }
+        return currentGroupRowCount;
+    }
+
+    private static Statistics<?> getStatistics(DataPage page)
+    {
+        if (page instanceof DataPageV1) {
+            return ((DataPageV1) page).getStatistics();
+        }
+        return ((DataPageV2) page).getStatistics();
+    }
+
     private ColumnChunk readArray(GroupField field)
             throws IOException
     {
@@ -210,17 +494,7 @@ public class ParquetReader
         ColumnDescriptor columnDescriptor = field.getDescriptor();
         int fieldId = field.getId();
         PrimitiveColumnReader columnReader = columnReaders[fieldId];
-        if (columnReader.getPageReader() == null) {
-            validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
-            ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
-            long startingPosition = metadata.getStartingPos();
-            int totalSize = toIntExact(metadata.getTotalSize());
-            byte[] buffer = allocateBlock(totalSize);
-            dataSource.readFully(startingPosition, buffer);
-            ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
-            ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
-            columnReader.setPageReader(columnChunk.readAllPages());
-        }
+        initializePageReader(columnReader, columnDescriptor);
         ColumnChunk columnChunk = columnReader.readPrimitive(field);
 
         // update max size per primitive column chunk
@@ -234,6 +508,80 @@ public class ParquetReader
         return columnChunk;
     }
 
+    private void initializePageReader(PrimitiveColumnReader columnReader, ColumnDescriptor columnDescriptor)
+            throws IOException
+    {
+        if (columnReader.getPageReader() == null) {
+            validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
+            ColumnChunkMetaData metadata = getColumnChunkMetaData(currentBlockMetadata, columnDescriptor);
+            int totalSize = toIntExact(metadata.getTotalSize());
+            ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
+
+            // only the pages of flat columns start at row boundaries, and can be left out
+            if (currentGroupRowRanges != null && currentGroupRowRanges.getRowCount() < currentGroupRowCount && columnDescriptor.getMaxRepetitionLevel() == 0) {
+                Optional<OffsetIndex> offsetIndex = getOffsetIndex(metadata);
+                if (offsetIndex.isPresent()) {
+                    columnReader.setPageReader(readMatchingPages(descriptor, offsetIndex.get()));
+                    return;
+                }
+            }
+
+            byte[] buffer = allocateBlock(totalSize);
+            dataSource.readFully(metadata.getStartingPos(), buffer);
+            ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
+            columnReader.setPageReader(columnChunk.readAllPages());
+        }
+    }
+
+    /**
+     * Reads the pages before the first data page, and the data pages that have rows in the current
+     * row ranges. Consecutive matching pages are read with a single read.
+     */
+    private PageReader readMatchingPages(ColumnChunkDescriptor descriptor, OffsetIndex offsetIndex)
+            throws IOException
+    {
+        List<PageLocation> pageLocations = offsetIndex.getPage_locations();
+        long startingPosition = descriptor.getColumnChunkMetaData().getStartingPos();
+        int leadingPagesLength = toIntExact(pageLocations.get(0).getOffset() - startingPosition);
+        validateParquet(leadingPagesLength >= 0, "%s offset index starts before the column chunk", descriptor.getColumnDescriptor());
+
+        int[] pageRowCounts = new int[pageLocations.size()];
+        boolean[] pageLoaded = new boolean[pageLocations.size()];
+        int length = leadingPagesLength;
+        for (int page = 0; page < pageLocations.size(); page++) {
+            long firstRow = pageLocations.get(page).getFirst_row_index();
+            long pageEnd = getPageEnd(pageLocations, page);
+            pageRowCounts[page] = toIntExact(pageEnd - firstRow);
+            long nextRow = currentGroupRowRanges.getNextRow(firstRow);
+            pageLoaded[page] = nextRow >= 0 && nextRow < pageEnd;
+            if (pageLoaded[page]) {
+                length += pageLocations.get(page).getCompressed_page_size();
+            }
+        }
+
+        byte[] buffer = allocateBlock(length);
+        if (leadingPagesLength > 0) {
+            dataSource.readFully(startingPosition, buffer, 0, leadingPagesLength);
+        }
+        int bufferOffset = leadingPagesLength;
+        int page = 0;
+        while (page < pageLocations.size()) {
+            if (!pageLoaded[page]) {
+                page++;
+                continue;
+            }
+            long position = pageLocations.get(page).getOffset();
+            int readLength = 0;
+            while (page < pageLocations.size() && pageLoaded[page] && pageLocations.get(page).getOffset() == position + readLength) {
+                readLength += pageLocations.get(page).getCompressed_page_size();
+                page++;
+            }
+            dataSource.readFully(position, buffer, bufferOffset, readLength);
+            bufferOffset += readLength;
+        }
+        return new ParquetColumnChunk(descriptor, buffer, 0).readPages(leadingPagesLength, pageRowCounts, pageLoaded);
+    }
+
     private byte[] allocateBlock(int length)
     {
         byte[] buffer = new byte[length];
@@ -242,10 +590,10 @@ public class ParquetReader
         return buffer;
     }
 
-    private ColumnChunkMetaData getColumnChunkMetaData(ColumnDescriptor columnDescriptor)
+    private static ColumnChunkMetaData getColumnChunkMetaData(BlockMetaData blockMetadata, ColumnDescriptor columnDescriptor)
             throws IOException
     {
-        for (ColumnChunkMetaData metadata : currentBlockMetadata.getColumns()) {
+        for (ColumnChunkMetaData metadata : blockMetadata.getColumns()) {
             if (metadata.getPath().equals(ColumnPath.get(columnDescriptor.getPath()))) {
                 return metadata;
             }
@@ -255,6 +603,7 @@ public class ParquetReader
 
     private void initializeColumnReaders()
     {
+        skippedPageCount = getSkippedPageCount();
         for (PrimitiveColumnIO columnIO : columns) {
             RichColumnDescriptor column = new RichColumnDescriptor(columnIO.getColumnDescriptor(), columnIO.getType().asPrimitiveType());
             columnReaders[columnIO.getId()] = PrimitiveColumnReader.createReader(column);
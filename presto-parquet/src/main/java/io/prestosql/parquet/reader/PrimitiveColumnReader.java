@@ -19,12 +19,16 @@ import io.prestosql.parquet.DataPageV1;
 import io.prestosql.parquet.DataPageV2;
 import io.prestosql.parquet.DictionaryPage;
 import io.prestosql.parquet.Field;
+import io.prestosql.parquet.ParquetCorruptionException;
 import io.prestosql.parquet.ParquetEncoding;
 import io.prestosql.parquet.ParquetTypeUtils;
 import io.prestosql.parquet.RichColumnDescriptor;
 import io.prestosql.parquet.dictionary.Dictionary;
+import io.prestosql.parquet.dictionary.DictionaryReader;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.DictionaryBlock;
 import io.prestosql.spi.type.DecimalType;
 import io.prestosql.spi.type.Type;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
@@ -64,15 +68,27 @@ public abstract class PrimitiveColumnReader
     private long totalValueCount;
     private PageReader pageReader;
     private Dictionary dictionary;
+    private boolean dictionaryEncoded;
+    private Optional<Block> dictionaryBlock;
     private int currentValueCount;
     private DataPage page;
     private int remainingValueCountInPage;
     private int readOffset;
+    private long skippedPageCount;
 
     protected abstract void readValue(BlockBuilder blockBuilder, Type type);
 
     protected abstract void skipValue();
 
+    /**
+     * Creates a block with the values of the dictionary followed by a null entry, or
+     * returns empty if the reader does not support producing dictionary blocks.
+     */
+    protected Optional<Block> createDictionaryBlock(Dictionary dictionary, Type type)
+    {
+        return Optional.empty();
+    }
+
     protected boolean isValueNull()
     {
         return ParquetTypeUtils.isValueNull(columnDescriptor.isRequired(), definitionLevel, columnDescriptor.getMaxDefinitionLevel());
@@ -140,6 +156,11 @@ public abstract class PrimitiveColumnReader
         else {
             dictionary = null;
         }
+        dictionaryEncoded = dictionary != null && pageReader.getRemainingPages().stream()
+                .filter(page -> !(page instanceof UnreadDataPage))
+                .map(PrimitiveColumnReader::getValueEncoding)
+                .allMatch(ParquetEncoding::usesDictionary);
+        dictionaryBlock = null;
         checkArgument(pageReader.getTotalValueCount() > 0, "page is empty");
         totalValueCount = pageReader.getTotalValueCount();
     }
@@ -155,12 +176,24 @@ public abstract class PrimitiveColumnReader
         return columnDescriptor;
     }
 
+    /**
+     * Returns the number of data pages that were skipped without being decompressed.
+     */
+    public long getSkippedPageCount()
+    {
+        return skippedPageCount;
+    }
+
     public ColumnChunk readPrimitive(Field field)
             throws IOException
     {
         IntList definitionLevels = new IntArrayList();
         IntList repetitionLevels = new IntArrayList();
         seek();
+        Optional<Block> dictionaryBlock = getDictionaryBlock(field.getType());
+        if (dictionaryBlock.isPresent()) {
+            return readDictionaryIds(dictionaryBlock.get(), definitionLevels, repetitionLevels);
+        }
         BlockBuilder blockBuilder = field.getType().createBlockBuilder(null, nextBatchSize);
         int valueCount = 0;
         while (valueCount < nextBatchSize) {
@@ -178,6 +211,64 @@ public abstract class PrimitiveColumnReader
         return new ColumnChunk(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
     }
 
+    /**
+     * Returns the dictionary of the column chunk as a block, when all values of the
+     * column chunk are dictionary encoded and can be read as dictionary ids.
+     */
+    private Optional<Block> getDictionaryBlock(Type type)
+    {
+        if (dictionaryBlock == null) {
+            if (dictionaryEncoded && isFlat() && columnDescriptor.getMaxDefinitionLevel() <= 1) {
+                dictionaryBlock = createDictionaryBlock(dictionary, type);
+            }
+            else {
+                dictionaryBlock = Optional.empty();
+            }
+        }
+        return dictionaryBlock;
+    }
+
+    private ColumnChunk readDictionaryIds(Block dictionaryBlock, IntList definitionLevels, IntList repetitionLevels)
+            throws ParquetCorruptionException
+    {
+        int nullId = dictionaryBlock.getPositionCount() - 1;
+        IntArrayList ids = new IntArrayList(nextBatchSize);
+        while (ids.size() < nextBatchSize) {
+            if (page == null) {
+                readNextPage();
+            }
+            int valuesToRead = Math.min(remainingValueCountInPage, nextBatchSize - ids.size());
+            DictionaryReader dictionaryReader = (DictionaryReader) valuesReader;
+            if (columnDescriptor.getMaxDefinitionLevel() == 0) {
+                // without nulls in the column or any of its parents, the ids are decoded in bulk, one run at a time
+                int offset = ids.size();
+                ids.size(offset + valuesToRead);
+                dictionaryReader.readDictionaryIds(ids.elements(), offset, valuesToRead);
+                for (int i = 0; i < valuesToRead; i++) {
+                    definitionLevels.add(0);
+                    repetitionLevels.add(0);
+                }
+                updateValueCounts(valuesToRead);
+            }
+            else {
+                processValues(valuesToRead, ignored -> {
+                    if (definitionLevel == columnDescriptor.getMaxDefinitionLevel()) {
+                        ids.add(dictionaryReader.readValueDictionaryId());
+                    }
+                    else {
+                        ids.add(nullId);
+                    }
+                    definitionLevels.add(definitionLevel);
+                    repetitionLevels.add(repetitionLevel);
+                });
+            }
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return new ColumnChunk(new DictionaryBlock(ids.size(), dictionaryBlock, ids.elements()), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
+    }
+
     private void readValues(BlockBuilder blockBuilder, int valuesToRead, Type type, IntList definitionLevels, IntList repetitionLevels)
     {
         processValues(valuesToRead, ignored -> {
@@ -205,6 +296,12 @@ public abstract class PrimitiveColumnReader
                 valueCount++;
                 if (valueCount == remainingValueCountInPage) {
                     updateValueCounts(valueCount);
+                    if (isFlat() && i == valuesToRead - 1) {
+                        // rows of flat columns never span pages, so the next page is not read until it is needed
+                        definitionLevel = EMPTY_LEVEL_VALUE;
+                        repetitionLevel = EMPTY_LEVEL_VALUE;
+                        return;
+                    }
                     if (!readNextPage()) {
                         return;
                     }
@@ -227,6 +324,10 @@ public abstract class PrimitiveColumnReader
         int valuePosition = 0;
         while (valuePosition < readOffset) {
             if (page == null) {
+                valuePosition += skipPages(readOffset - valuePosition);
+                if (valuePosition == readOffset) {
+                    break;
+                }
                 readNextPage();
             }
             int offset = Math.min(remainingValueCountInPage, readOffset - valuePosition);
@@ -236,6 +337,41 @@ public abstract class PrimitiveColumnReader
         checkArgument(valuePosition == readOffset, "valuePosition %s must be equal to readOffset %s", valuePosition, readOffset);
     }
 
+    /**
+     * Drops the following pages that contain only rows to skip, without decompressing them.
+     * Values and rows are only the same for columns that are not repeated.
+     */
+    private int skipPages(int rowCount)
+    {
+        if (!isFlat()) {
+            return 0;
+        }
+        int skippedRows = 0;
+        while (true) {
+            int pageValueCount = pageReader.getNextPageValueCount();
+            if (pageValueCount == 0 || skippedRows + pageValueCount > rowCount) {
+                return skippedRows;
+            }
+            pageReader.skipPage();
+            skippedRows += pageValueCount;
+            currentValueCount += pageValueCount;
+            skippedPageCount++;
+        }
+    }
+
+    private boolean isFlat()
+    {
+        return columnDescriptor.getMaxRepetitionLevel() == 0;
+    }
+
+    private static ParquetEncoding getValueEncoding(DataPage page)
+    {
+        if (page instanceof DataPageV1) {
+            return ((DataPageV1) page).getValueEncoding();
+        }
+        return ((DataPageV2) page).getDataEncoding();
+    }
+
     private boolean readNextPage()
     {
         verify(page == null, "readNextPage has to be called when page is null");
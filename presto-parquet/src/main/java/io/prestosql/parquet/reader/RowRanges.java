@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Sorted and non-overlapping ranges of rows within a row group. Each range
+ * includes its start row and excludes its end row.
+ */
+final class RowRanges
+{
+    private final long[] starts;
+    private final long[] ends;
+
+    private RowRanges(long[] starts, long[] ends)
+    {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    public static RowRanges all(long rowCount)
+    {
+        return builder()
+                .add(0, rowCount)
+                .build();
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public long getRowCount()
+    {
+        long rowCount = 0;
+        for (int i = 0; i < starts.length; i++) {
+            rowCount += ends[i] - starts[i];
+        }
+        return rowCount;
+    }
+
+    /**
+     * Returns the first row at or after the specified row that is included
+     * in a range, or -1 if there is no such row.
+     */
+    public long getNextRow(long row)
+    {
+        for (int i = 0; i < starts.length; i++) {
+            if (row < ends[i]) {
+                return max(row, starts[i]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the end of the range that includes the specified row.
+     */
+    public long getRangeEnd(long row)
+    {
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] <= row && row < ends[i]) {
+                return ends[i];
+            }
+        }
+        throw new IllegalArgumentException("Row is not included in any range: " + row);
+    }
+
+    public RowRanges intersect(RowRanges other)
+    {
+        Builder builder = builder();
+        int left = 0;
+        int right = 0;
+        while (left < starts.length && right < other.starts.length) {
+            long start = max(starts[left], other.starts[right]);
+            long end = min(ends[left], other.ends[right]);
+            if (start < end) {
+                builder.add(start, end);
+            }
+            if (ends[left] < other.ends[right]) {
+                left++;
+            }
+            else {
+                right++;
+            }
+        }
+        return builder.build();
+    }
+
+    public static class Builder
+    {
+        private final LongList starts = new LongArrayList();
+        private final LongList ends = new LongArrayList();
+
+        private Builder() {}
+
+        public Builder add(long start, long end)
+        {
+            checkArgument(start < end, "start must be less than end");
+            int last = ends.size() - 1;
+            checkArgument(last < 0 || ends.getLong(last) <= start, "ranges must be added in order");
+            if (last >= 0 && ends.getLong(last) == start) {
+                // merge adjacent ranges
+                ends.set(last, end);
+            }
+            else {
+                starts.add(start);
+                ends.add(end);
+            }
+            return this;
+        }
+
+        public RowRanges build()
+        {
+            return new RowRanges(starts.toLongArray(), ends.toLongArray());
+        }
+    }
+}
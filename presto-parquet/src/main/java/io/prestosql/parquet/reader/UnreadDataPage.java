@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import io.prestosql.parquet.DataPage;
+
+/**
+ * Stands in for a data page of a flat column that was not read from the file, because
+ * none of its rows are selected. It only keeps the row count, so that the column reader
+ * can drop it while seeking.
+ */
+final class UnreadDataPage
+        extends DataPage
+{
+    public UnreadDataPage(int rowCount)
+    {
+        super(0, 0, rowCount);
+    }
+}
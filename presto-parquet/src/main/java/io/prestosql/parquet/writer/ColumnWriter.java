@@ -0,0 +1,439 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.VarcharType;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.ValuesWriter;
+import org.apache.parquet.format.BoundaryOrder;
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.ColumnMetaData;
+import org.apache.parquet.format.DataPageHeader;
+import org.apache.parquet.format.DictionaryPageHeader;
+import org.apache.parquet.format.Encoding;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageLocation;
+import org.apache.parquet.format.PageType;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.api.Binary;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.prestosql.parquet.ParquetCompressionUtils.compress;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.Decimals.decodeUnscaledValue;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static org.apache.parquet.column.statistics.Statistics.getStatsBasedOnType;
+import static org.apache.parquet.format.converter.ParquetMetadataConverter.toParquetStatistics;
+
+/**
+ * Writes a single optional, non-nested column. Values are buffered as encoded and
+ * compressed data pages until the row group is flushed, because the dictionary page
+ * must precede the data pages in the column chunk but is only complete at the end.
+ * The statistics and row counts of the pages are kept for the page indexes, which
+ * are written after the row groups.
+ */
+class ColumnWriter
+{
+    private final ColumnDescriptor columnDescriptor;
+    private final CompressionCodecName compressionCodec;
+    private final ParquetProperties parquetProperties;
+    private final ValueWriter valueWriter;
+    private final long maxPageSize;
+
+    private final List<Slice> pages = new ArrayList<>();
+    private final Set<Encoding> encodings = new LinkedHashSet<>();
+
+    private final List<Long> pageFirstRowIndexes = new ArrayList<>();
+    private final List<Boolean> nullPages = new ArrayList<>();
+    private final List<ByteBuffer> pageMinValues = new ArrayList<>();
+    private final List<ByteBuffer> pageMaxValues = new ArrayList<>();
+    private final List<Long> pageNullCounts = new ArrayList<>();
+    private boolean pageMinMaxMissing;
+
+    private ValuesWriter valuesWriter;
+    private ValuesWriter definitionLevelWriter;
+    private Statistics<?> pageStatistics;
+    private Statistics<?> columnChunkStatistics;
+    private int pageValueCount;
+    private long columnChunkValueCount;
+    private long pagesSizeInBytes;
+    private long pagesUncompressedSizeInBytes;
+
+    public ColumnWriter(Type type, ColumnDescriptor columnDescriptor, CompressionCodecName compressionCodec, ParquetProperties parquetProperties, long maxPageSize)
+    {
+        requireNonNull(type, "type is null");
+        this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        this.parquetProperties = requireNonNull(parquetProperties, "parquetProperties is null");
+        checkArgument(columnDescriptor.getMaxRepetitionLevel() == 0 && columnDescriptor.getMaxDefinitionLevel() == 1, "Only optional non-nested columns are supported: %s", columnDescriptor);
+        this.valueWriter = createValueWriter(type);
+        this.maxPageSize = maxPageSize;
+
+        this.valuesWriter = parquetProperties.newValuesWriter(columnDescriptor);
+        this.definitionLevelWriter = parquetProperties.newDefinitionLevelWriter(columnDescriptor);
+        this.pageStatistics = getStatsBasedOnType(columnDescriptor.getType());
+        this.columnChunkStatistics = getStatsBasedOnType(columnDescriptor.getType());
+    }
+
+    public void writeBlock(Block block)
+            throws IOException
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                definitionLevelWriter.writeInteger(0);
+                pageStatistics.incrementNumNulls();
+            }
+            else {
+                definitionLevelWriter.writeInteger(1);
+                valueWriter.write(block, position);
+            }
+        }
+        pageValueCount += block.getPositionCount();
+
+        if (valuesWriter.getBufferedSize() + definitionLevelWriter.getBufferedSize() >= maxPageSize) {
+            flushPage();
+        }
+    }
+
+    public long getBufferedBytes()
+    {
+        return pagesSizeInBytes + valuesWriter.getBufferedSize() + definitionLevelWriter.getBufferedSize();
+    }
+
+    public long getRetainedBytes()
+    {
+        return pagesSizeInBytes + valuesWriter.getAllocatedSize() + definitionLevelWriter.getAllocatedSize();
+    }
+
+    /**
+     * Writes the buffered column chunk to the output, and resets the writer for the next row group.
+     */
+    public WrittenColumnChunk writeColumnChunk(OutputStreamSliceOutput output)
+            throws IOException
+    {
+        if (pageValueCount > 0) {
+            flushPage();
+        }
+
+        long columnChunkOffset = output.longSize();
+        long compressedSize = pagesSizeInBytes;
+        long uncompressedSize = pagesUncompressedSizeInBytes;
+
+        DictionaryPage dictionaryPage = valuesWriter.toDictPageAndClose();
+        if (dictionaryPage != null) {
+            Slice uncompressed = wrappedBuffer(dictionaryPage.getBytes().toByteArray());
+            Slice compressed = compress(compressionCodec, uncompressed);
+            PageHeader header = new PageHeader(PageType.DICTIONARY_PAGE, uncompressed.length(), compressed.length());
+            header.setDictionary_page_header(new DictionaryPageHeader(dictionaryPage.getDictionarySize(), toFormatEncoding(dictionaryPage.getEncoding())));
+            Util.writePageHeader(header, output);
+            long headerSize = output.longSize() - columnChunkOffset;
+            output.writeBytes(compressed);
+
+            compressedSize += headerSize + compressed.length();
+            uncompressedSize += headerSize + uncompressed.length();
+            encodings.add(toFormatEncoding(dictionaryPage.getEncoding()));
+        }
+
+        long dataPageOffset = output.longSize();
+        ImmutableList.Builder<PageLocation> pageLocations = ImmutableList.builder();
+        for (int page = 0; page < pages.size(); page++) {
+            pageLocations.add(new PageLocation(output.longSize(), pages.get(page).length(), pageFirstRowIndexes.get(page)));
+            output.writeBytes(pages.get(page));
+        }
+        OffsetIndex offsetIndex = new OffsetIndex(pageLocations.build());
+
+        // a page with values but without min and max cannot be described by a column index
+        Optional<ColumnIndex> columnIndex = Optional.empty();
+        if (!pageMinMaxMissing) {
+            ColumnIndex index = new ColumnIndex(
+                    ImmutableList.copyOf(nullPages),
+                    ImmutableList.copyOf(pageMinValues),
+                    ImmutableList.copyOf(pageMaxValues),
+                    BoundaryOrder.UNORDERED);
+            index.setNull_counts(ImmutableList.copyOf(pageNullCounts));
+            columnIndex = Optional.of(index);
+        }
+
+        ColumnMetaData metadata = new ColumnMetaData(
+                org.apache.parquet.format.Type.valueOf(columnDescriptor.getType().name()),
+                ImmutableList.<Encoding>builder()
+                        .addAll(encodings)
+                        .add(Encoding.RLE)
+                        .add(Encoding.BIT_PACKED)
+                        .build(),
+                Arrays.asList(columnDescriptor.getPath()),
+                compressionCodec.getParquetCompressionCodec(),
+                columnChunkValueCount,
+                uncompressedSize,
+                compressedSize,
+                dataPageOffset);
+        if (dictionaryPage != null) {
+            metadata.setDictionary_page_offset(columnChunkOffset);
+        }
+        metadata.setStatistics(toParquetStatistics(columnChunkStatistics));
+
+        ColumnChunk columnChunk = new ColumnChunk(columnChunkOffset);
+        columnChunk.setMeta_data(metadata);
+
+        reset();
+        return new WrittenColumnChunk(columnChunk, columnIndex, offsetIndex);
+    }
+
+    public void close()
+    {
+        valuesWriter.close();
+        definitionLevelWriter.close();
+    }
+
+    private void flushPage()
+            throws IOException
+    {
+        BytesInput definitionLevels = definitionLevelWriter.getBytes();
+        BytesInput values = valuesWriter.getBytes();
+        Encoding valuesEncoding = toFormatEncoding(valuesWriter.getEncoding());
+
+        Slice uncompressed = wrappedBuffer(BytesInput.concat(definitionLevels, values).toByteArray());
+        Slice compressed = compress(compressionCodec, uncompressed);
+
+        DataPageHeader dataPageHeader = new DataPageHeader(pageValueCount, valuesEncoding, Encoding.RLE, Encoding.BIT_PACKED);
+        dataPageHeader.setStatistics(toParquetStatistics(pageStatistics));
+        PageHeader header = new PageHeader(PageType.DATA_PAGE, uncompressed.length(), compressed.length());
+        header.setData_page_header(dataPageHeader);
+
+        DynamicSliceOutput page = new DynamicSliceOutput(compressed.length() + 64);
+        Util.writePageHeader(header, page);
+        int headerSize = page.size();
+        page.writeBytes(compressed);
+        pages.add(page.slice());
+
+        pagesSizeInBytes += page.size();
+        pagesUncompressedSizeInBytes += headerSize + uncompressed.length();
+        encodings.add(valuesEncoding);
+        addPageIndexEntry();
+        columnChunkStatistics.mergeStatistics(pageStatistics);
+        columnChunkValueCount += pageValueCount;
+
+        pageValueCount = 0;
+        pageStatistics = getStatsBasedOnType(columnDescriptor.getType());
+        definitionLevelWriter.reset();
+        valuesWriter.reset();
+    }
+
+    private void addPageIndexEntry()
+    {
+        // the column is not repeated, so the values written before the page are its first row
+        pageFirstRowIndexes.add(columnChunkValueCount);
+        pageNullCounts.add(pageStatistics.getNumNulls());
+        if (pageStatistics.getNumNulls() == pageValueCount) {
+            nullPages.add(true);
+            pageMinValues.add(ByteBuffer.allocate(0));
+            pageMaxValues.add(ByteBuffer.allocate(0));
+        }
+        else if (pageStatistics.hasNonNullValue()) {
+            nullPages.add(false);
+            pageMinValues.add(ByteBuffer.wrap(pageStatistics.getMinBytes()));
+            pageMaxValues.add(ByteBuffer.wrap(pageStatistics.getMaxBytes()));
+        }
+        else {
+            pageMinMaxMissing = true;
+        }
+    }
+
+    private void reset()
+    {
+        // values writers are not reusable once the dictionary has been written, so start the next row group fresh
+        close();
+        valuesWriter = parquetProperties.newValuesWriter(columnDescriptor);
+        definitionLevelWriter = parquetProperties.newDefinitionLevelWriter(columnDescriptor);
+
+        pages.clear();
+        encodings.clear();
+        pageFirstRowIndexes.clear();
+        nullPages.clear();
+        pageMinValues.clear();
+        pageMaxValues.clear();
+        pageNullCounts.clear();
+        pageMinMaxMissing = false;
+        columnChunkStatistics = getStatsBasedOnType(columnDescriptor.getType());
+        columnChunkValueCount = 0;
+        pagesSizeInBytes = 0;
+        pagesUncompressedSizeInBytes = 0;
+    }
+
+    static boolean isSupportedType(Type type)
+    {
+        return BOOLEAN.equals(type) ||
+                BIGINT.equals(type) ||
+                INTEGER.equals(type) ||
+                SMALLINT.equals(type) ||
+                TINYINT.equals(type) ||
+                DATE.equals(type) ||
+                REAL.equals(type) ||
+                DOUBLE.equals(type) ||
+                type instanceof VarcharType ||
+                VARBINARY.equals(type) ||
+                type instanceof DecimalType;
+    }
+
+    private ValueWriter createValueWriter(Type type)
+    {
+        if (BOOLEAN.equals(type)) {
+            return (block, position) -> {
+                boolean value = BOOLEAN.getBoolean(block, position);
+                valuesWriter.writeBoolean(value);
+                pageStatistics.updateStats(value);
+            };
+        }
+        if (BIGINT.equals(type)) {
+            return (block, position) -> {
+                long value = BIGINT.getLong(block, position);
+                valuesWriter.writeLong(value);
+                pageStatistics.updateStats(value);
+            };
+        }
+        if (INTEGER.equals(type) || SMALLINT.equals(type) || TINYINT.equals(type) || DATE.equals(type)) {
+            return (block, position) -> {
+                int value = toIntExact(type.getLong(block, position));
+                valuesWriter.writeInteger(value);
+                pageStatistics.updateStats(value);
+            };
+        }
+        if (REAL.equals(type)) {
+            return (block, position) -> {
+                float value = intBitsToFloat(toIntExact(REAL.getLong(block, position)));
+                valuesWriter.writeFloat(value);
+                pageStatistics.updateStats(value);
+            };
+        }
+        if (DOUBLE.equals(type)) {
+            return (block, position) -> {
+                double value = DOUBLE.getDouble(block, position);
+                valuesWriter.writeDouble(value);
+                pageStatistics.updateStats(value);
+            };
+        }
+        if (type instanceof VarcharType || VARBINARY.equals(type)) {
+            return (block, position) -> {
+                // copy the value, so that the buffered page and the dictionary do not retain the input block
+                Binary value = Binary.fromConstantByteArray(type.getSlice(block, position).getBytes());
+                valuesWriter.writeBytes(value);
+                pageStatistics.updateStats(value);
+            };
+        }
+        if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            int length = columnDescriptor.getTypeLength();
+            // min/max are not recorded, because binary statistics would order the two's complement values as unsigned
+            return (block, position) -> valuesWriter.writeBytes(Binary.fromConstantByteArray(toFixedLengthBytes(decimalType, block, position, length)));
+        }
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    // big-endian two's complement unscaled value, sign extended to the fixed length of the column
+    private static byte[] toFixedLengthBytes(DecimalType type, Block block, int position, int length)
+    {
+        byte[] bytes = new byte[length];
+        if (type.isShort()) {
+            long unscaledValue = type.getLong(block, position);
+            for (int i = length - 1; i >= 0; i--) {
+                bytes[i] = (byte) unscaledValue;
+                unscaledValue >>= 8;
+            }
+            return bytes;
+        }
+
+        BigInteger unscaledValue = decodeUnscaledValue(type.getSlice(block, position));
+        byte[] valueBytes = unscaledValue.toByteArray();
+        checkArgument(valueBytes.length <= length, "Decimal value %s does not fit in %s bytes", unscaledValue, length);
+        if (unscaledValue.signum() < 0) {
+            Arrays.fill(bytes, 0, length - valueBytes.length, (byte) 0xFF);
+        }
+        System.arraycopy(valueBytes, 0, bytes, length - valueBytes.length, valueBytes.length);
+        return bytes;
+    }
+
+    private static Encoding toFormatEncoding(org.apache.parquet.column.Encoding encoding)
+    {
+        return Encoding.valueOf(encoding.name());
+    }
+
+    private interface ValueWriter
+    {
+        void write(Block block, int position);
+    }
+
+    public static class WrittenColumnChunk
+    {
+        private final ColumnChunk columnChunk;
+        private final Optional<ColumnIndex> columnIndex;
+        private final OffsetIndex offsetIndex;
+
+        public WrittenColumnChunk(ColumnChunk columnChunk, Optional<ColumnIndex> columnIndex, OffsetIndex offsetIndex)
+        {
+            this.columnChunk = requireNonNull(columnChunk, "columnChunk is null");
+            this.columnIndex = requireNonNull(columnIndex, "columnIndex is null");
+            this.offsetIndex = requireNonNull(offsetIndex, "offsetIndex is null");
+        }
+
+        public ColumnChunk getColumnChunk()
+        {
+            return columnChunk;
+        }
+
+        public Optional<ColumnIndex> getColumnIndex()
+        {
+            return columnIndex;
+        }
+
+        public OffsetIndex getOffsetIndex()
+        {
+            return offsetIndex;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.prestosql.parquet.writer.ColumnWriter.WrittenColumnChunk;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ConvertedType;
+import org.apache.parquet.format.FieldRepetitionType;
+import org.apache.parquet.format.FileMetaData;
+import org.apache.parquet.format.KeyValue;
+import org.apache.parquet.format.RowGroup;
+import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.DecimalMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static org.apache.parquet.column.ParquetProperties.WriterVersion.PARQUET_1_0;
+import static org.apache.parquet.schema.Type.Repetition.OPTIONAL;
+
+/**
+ * Page based Parquet writer. Columns are written with the version 1 data page
+ * format, using dictionary encoding where parquet-mr would, and falling back to
+ * plain encoding when the dictionary grows too large.
+ */
+public class ParquetWriter
+        implements Closeable
+{
+    private static final Slice MAGIC = utf8Slice("PAR1");
+    private static final int FORMAT_VERSION = 1;
+    // parquet-mr ignores the statistics of files whose created_by does not parse as "<application> version <version>"
+    private static final String CREATED_BY = "presto version " + firstNonNull(ParquetWriter.class.getPackage().getImplementationVersion(), "unknown");
+
+    private final OutputStreamSliceOutput output;
+    private final MessageType messageType;
+    private final ParquetWriterOptions options;
+    private final Map<String, String> metadata;
+    private final List<ColumnWriter> columnWriters;
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private final List<WrittenColumnChunk> writtenColumnChunks = new ArrayList<>();
+
+    private long rowGroupRowCount;
+    private boolean closed;
+
+    public ParquetWriter(
+            OutputStream outputStream,
+            MessageType messageType,
+            List<Type> types,
+            CompressionCodecName compressionCodec,
+            ParquetWriterOptions options,
+            Map<String, String> metadata)
+    {
+        this.output = new OutputStreamSliceOutput(requireNonNull(outputStream, "outputStream is null"));
+        this.messageType = requireNonNull(messageType, "messageType is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(compressionCodec, "compressionCodec is null");
+        this.options = requireNonNull(options, "options is null");
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        checkArgument(messageType.getFieldCount() == types.size(), "Expected %s types, but got %s", messageType.getFieldCount(), types.size());
+
+        int maxPageSize = toIntExact(options.getMaxPageSize().toBytes());
+        ParquetProperties parquetProperties = ParquetProperties.builder()
+                .withWriterVersion(PARQUET_1_0)
+                .withPageSize(maxPageSize)
+                .withDictionaryPageSize(maxPageSize)
+                .build();
+
+        ImmutableList.Builder<ColumnWriter> columnWriters = ImmutableList.builder();
+        for (int i = 0; i < types.size(); i++) {
+            org.apache.parquet.schema.Type field = messageType.getType(i);
+            checkArgument(field.isPrimitive() && field.getRepetition() == OPTIONAL, "Only optional primitive columns are supported: %s", field);
+            columnWriters.add(new ColumnWriter(
+                    types.get(i),
+                    messageType.getColumnDescription(new String[] {field.getName()}),
+                    compressionCodec,
+                    parquetProperties,
+                    maxPageSize));
+        }
+        this.columnWriters = columnWriters.build();
+
+        output.writeBytes(MAGIC);
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return ColumnWriter.isSupportedType(type);
+    }
+
+    /**
+     * Number of bytes already flushed to the output stream.
+     */
+    public long getWrittenBytes()
+    {
+        return output.longSize();
+    }
+
+    /**
+     * Number of bytes buffered for the current row group.
+     */
+    public long getBufferedBytes()
+    {
+        return columnWriters.stream()
+                .mapToLong(ColumnWriter::getBufferedBytes)
+                .sum();
+    }
+
+    public long getRetainedBytes()
+    {
+        return output.getRetainedSize() + columnWriters.stream()
+                .mapToLong(ColumnWriter::getRetainedBytes)
+                .sum();
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        requireNonNull(page, "page is null");
+        checkState(!closed, "writer is closed");
+        checkArgument(page.getChannelCount() == columnWriters.size(), "Expected %s channels, but got %s", columnWriters.size(), page.getChannelCount());
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            columnWriters.get(channel).writeBlock(page.getBlock(channel));
+        }
+        rowGroupRowCount += page.getPositionCount();
+
+        if (getBufferedBytes() >= options.getMaxRowGroupSize().toBytes()) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (OutputStreamSliceOutput output = this.output) {
+            flushRowGroup();
+            writePageIndexes();
+            writeFooter();
+        }
+        finally {
+            columnWriters.forEach(ColumnWriter::close);
+        }
+    }
+
+    private void flushRowGroup()
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            return;
+        }
+
+        ImmutableList.Builder<ColumnChunk> columnChunks = ImmutableList.builder();
+        long totalByteSize = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            WrittenColumnChunk writtenColumnChunk = columnWriter.writeColumnChunk(output);
+            ColumnChunk columnChunk = writtenColumnChunk.getColumnChunk();
+            totalByteSize += columnChunk.getMeta_data().getTotal_uncompressed_size();
+            columnChunks.add(columnChunk);
+            writtenColumnChunks.add(writtenColumnChunk);
+        }
+        rowGroups.add(new RowGroup(columnChunks.build(), totalByteSize, rowGroupRowCount));
+        rowGroupRowCount = 0;
+    }
+
+    /**
+     * Writes the column indexes and then the offset indexes of all column chunks, like parquet-mr
+     * does, and records their locations in the column chunks of the footer.
+     */
+    private void writePageIndexes()
+            throws IOException
+    {
+        for (WrittenColumnChunk columnChunk : writtenColumnChunks) {
+            if (columnChunk.getColumnIndex().isPresent()) {
+                long offset = output.longSize();
+                Util.writeColumnIndex(columnChunk.getColumnIndex().get(), output);
+                columnChunk.getColumnChunk().setColumn_index_offset(offset);
+                columnChunk.getColumnChunk().setColumn_index_length(toIntExact(output.longSize() - offset));
+            }
+        }
+        for (WrittenColumnChunk columnChunk : writtenColumnChunks) {
+            long offset = output.longSize();
+            Util.writeOffsetIndex(columnChunk.getOffsetIndex(), output);
+            columnChunk.getColumnChunk().setOffset_index_offset(offset);
+            columnChunk.getColumnChunk().setOffset_index_length(toIntExact(output.longSize() - offset));
+        }
+    }
+
+    private void writeFooter()
+            throws IOException
+    {
+        long rowCount = rowGroups.stream()
+                .mapToLong(RowGroup::getNum_rows)
+                .sum();
+        FileMetaData fileMetaData = new FileMetaData(FORMAT_VERSION, toParquetSchema(messageType), rowCount, ImmutableList.copyOf(rowGroups));
+        fileMetaData.setCreated_by(CREATED_BY);
+        fileMetaData.setKey_value_metadata(metadata.entrySet().stream()
+                .map(entry -> {
+                    KeyValue keyValue = new KeyValue(entry.getKey());
+                    keyValue.setValue(entry.getValue());
+                    return keyValue;
+                })
+                .collect(toImmutableList()));
+
+        DynamicSliceOutput footer = new DynamicSliceOutput(1024);
+        Util.writeFileMetaData(fileMetaData, footer);
+        output.writeBytes(footer.slice());
+        output.writeInt(footer.size());
+        output.writeBytes(MAGIC);
+    }
+
+    private static List<SchemaElement> toParquetSchema(MessageType messageType)
+    {
+        ImmutableList.Builder<SchemaElement> elements = ImmutableList.builder();
+        SchemaElement root = new SchemaElement(messageType.getName());
+        root.setNum_children(messageType.getFieldCount());
+        elements.add(root);
+
+        for (org.apache.parquet.schema.Type field : messageType.getFields()) {
+            PrimitiveType primitiveType = field.asPrimitiveType();
+            SchemaElement element = new SchemaElement(field.getName());
+            element.setType(org.apache.parquet.format.Type.valueOf(primitiveType.getPrimitiveTypeName().name()));
+            element.setRepetition_type(FieldRepetitionType.valueOf(field.getRepetition().name()));
+            if (primitiveType.getTypeLength() > 0) {
+                element.setType_length(primitiveType.getTypeLength());
+            }
+            if (field.getOriginalType() != null) {
+                element.setConverted_type(ConvertedType.valueOf(field.getOriginalType().name()));
+            }
+            DecimalMetadata decimalMetadata = primitiveType.getDecimalMetadata();
+            if (decimalMetadata != null) {
+                element.setPrecision(decimalMetadata.getPrecision());
+                element.setScale(decimalMetadata.getScale());
+            }
+            elements.add(element);
+        }
+        return elements.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("messageType", messageType)
+                .add("options", options)
+                .toString();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.parquet.reader.MetadataReader;
+import io.prestosql.parquet.reader.ParquetFileMetadata;
+import io.prestosql.parquet.writer.ParquetWriter;
+import io.prestosql.parquet.writer.ParquetWriterOptions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.PrimitiveColumnIO;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.apache.parquet.schema.Type.Repetition.REQUIRED;
+
+public final class ParquetTestUtils
+{
+    private ParquetTestUtils() {}
+
+    public static byte[] writeParquetFile(MessageType messageType, List<Type> types, ParquetWriterOptions options, List<Page> pages)
+            throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ParquetWriter writer = new ParquetWriter(output, messageType, types, UNCOMPRESSED, options, ImmutableMap.of())) {
+            for (Page page : pages) {
+                writer.write(page);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    public static ParquetMetadata readFooter(byte[] data)
+            throws IOException
+    {
+        return readFileMetadata(data).getParquetMetadata();
+    }
+
+    public static ParquetFileMetadata readFileMetadata(byte[] data)
+            throws IOException
+    {
+        java.nio.file.Path file = Files.createTempFile("test", ".parquet");
+        try {
+            Files.write(file, data);
+            Path path = new Path(file.toUri());
+            try (FSDataInputStream inputStream = FileSystem.getLocal(new Configuration()).open(path)) {
+                return MetadataReader.readFileMetadata(inputStream, path, data.length);
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Creates the fields of the top level primitive columns of a file.
+     */
+    public static List<Field> createFields(MessageColumnIO messageColumnIO, List<Type> types)
+    {
+        ImmutableList.Builder<Field> fields = ImmutableList.builder();
+        for (int i = 0; i < types.size(); i++) {
+            PrimitiveColumnIO columnIO = (PrimitiveColumnIO) messageColumnIO.getChild(i);
+            fields.add(new PrimitiveField(
+                    types.get(i),
+                    columnIO.getRepetitionLevel(),
+                    columnIO.getDefinitionLevel(),
+                    columnIO.getType().getRepetition() == REQUIRED,
+                    new RichColumnDescriptor(columnIO.getColumnDescriptor(), columnIO.getType().asPrimitiveType()),
+                    columnIO.getId()));
+        }
+        return fields.build();
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.parquet.reader.ParquetReader;
+import io.prestosql.parquet.writer.ParquetWriterOptions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.type.Type;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.parquet.ParquetTestUtils.createFields;
+import static io.prestosql.parquet.ParquetTestUtils.readFooter;
+import static io.prestosql.parquet.ParquetTestUtils.writeParquetFile;
+import static io.prestosql.parquet.ParquetTypeUtils.getColumnIO;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.parquet.schema.MessageTypeParser.parseMessageType;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestReadAheadParquetDataSource
+{
+    private static final byte[] DATA = createData(1000);
+    private static final MessageType SCHEMA = parseMessageType("message test { required int64 id; }");
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT);
+    private static final int ROW_COUNT = 5000;
+
+    @Test
+    public void testPrefetch()
+            throws Exception
+    {
+        TestingDataSource delegate = new TestingDataSource(DATA);
+        List<Runnable> tasks = new ArrayList<>();
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        ReadAheadParquetDataSource dataSource = new ReadAheadParquetDataSource(delegate, tasks::add, new DataSize(300, BYTE), memoryContext);
+
+        // ranges are read in the order they are prefetched, while they fit in the read-ahead size
+        ListenableFuture<?> first = dataSource.prefetch(0, 100);
+        ListenableFuture<?> second = dataSource.prefetch(200, 100);
+        assertTrue(dataSource.prefetch(500, 200).isDone());
+        assertEquals(tasks.size(), 2);
+        assertEquals(memoryContext.getBytes(), 200);
+        assertFalse(first.isDone());
+        tasks.get(0).run();
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        tasks.get(1).run();
+        assertTrue(second.isDone());
+        assertEquals(delegate.getReads(), ImmutableList.of(0L, 200L));
+
+        // prefetched ranges are served from memory, and dropped once read to the end
+        assertRead(dataSource, 10, 40);
+        assertRead(dataSource, 50, 50);
+        assertEquals(memoryContext.getBytes(), 100);
+        assertEquals(delegate.getReads().size(), 2);
+
+        // other ranges are read from the delegate
+        assertRead(dataSource, 0, 100);
+        assertRead(dataSource, 500, 200);
+        assertEquals(delegate.getReads(), ImmutableList.of(0L, 200L, 0L, 500L));
+
+        dataSource.discardBefore(300);
+        assertEquals(memoryContext.getBytes(), 0);
+
+        dataSource.close();
+        assertTrue(delegate.isClosed());
+    }
+
+    @Test
+    public void testCloseWaitsForInFlightRead()
+            throws Exception
+    {
+        TestingDataSource delegate = new TestingDataSource(DATA);
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch readReleased = new CountDownLatch(1);
+        delegate.blockReads(readStarted, readReleased);
+
+        ExecutorService executor = newCachedThreadPool();
+        try {
+            ReadAheadParquetDataSource dataSource = new ReadAheadParquetDataSource(delegate, executor, new DataSize(1, MEGABYTE), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+            dataSource.prefetch(0, 100);
+            assertTrue(readStarted.await(10, SECONDS));
+
+            Future<?> close = executor.submit(() -> {
+                dataSource.close();
+                return null;
+            });
+            MILLISECONDS.sleep(100);
+            assertFalse(close.isDone());
+            assertFalse(delegate.isClosed());
+
+            readReleased.countDown();
+            close.get(10, SECONDS);
+            assertTrue(delegate.isClosed());
+            assertFalse(delegate.isReadAfterClose());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseCancelsQueuedRead()
+            throws Exception
+    {
+        TestingDataSource delegate = new TestingDataSource(DATA);
+        List<Runnable> tasks = new ArrayList<>();
+        ReadAheadParquetDataSource dataSource = new ReadAheadParquetDataSource(delegate, tasks::add, new DataSize(1, MEGABYTE), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+        ListenableFuture<?> future = dataSource.prefetch(0, 100);
+
+        dataSource.close();
+        assertTrue(future.isDone());
+
+        // the read does not start after the data source is closed
+        tasks.forEach(Runnable::run);
+        assertTrue(delegate.getReads().isEmpty());
+    }
+
+    @Test
+    public void testReaderBlocksOnReadAhead()
+            throws Exception
+    {
+        byte[] file = createFile();
+        TestingDataSource delegate = new TestingDataSource(file);
+        List<Runnable> tasks = new ArrayList<>();
+        ReadAheadParquetDataSource dataSource = new ReadAheadParquetDataSource(delegate, tasks::add, new DataSize(1, MEGABYTE), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+
+        // a failed read-ahead unblocks the reader, which reads the column chunk again
+        delegate.failReads(1);
+        MessageColumnIO messageColumnIO = getColumnIO(SCHEMA, SCHEMA);
+        Field field = createFields(messageColumnIO, TYPES).get(0);
+        int blockedCount = 0;
+        long expected = 0;
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, readFooter(file).getBlocks(), dataSource, newSimpleAggregatedMemoryContext(), new DataSize(1, MEGABYTE))) {
+            while (true) {
+                // the reader is blocked at the start of each row group until its column chunk is read
+                ListenableFuture<?> blocked = reader.isBlocked();
+                if (!blocked.isDone()) {
+                    blockedCount++;
+                    runTasks(tasks);
+                    assertTrue(blocked.isDone());
+                }
+                blocked.get();
+
+                int batchSize = reader.nextBatch();
+                if (batchSize <= 0) {
+                    break;
+                }
+                Block block = reader.readBlock(field);
+                for (int position = 0; position < batchSize; position++) {
+                    assertEquals(BIGINT.getLong(block, position), expected);
+                    expected++;
+                }
+            }
+        }
+        assertEquals(expected, ROW_COUNT);
+        assertEquals(blockedCount, readFooter(file).getBlocks().size());
+        assertTrue(delegate.isClosed());
+    }
+
+    @Test
+    public void testReaderReportsFailedRead()
+            throws Exception
+    {
+        byte[] file = createFile();
+        TestingDataSource delegate = new TestingDataSource(file);
+        List<Runnable> tasks = new ArrayList<>();
+        ReadAheadParquetDataSource dataSource = new ReadAheadParquetDataSource(delegate, tasks::add, new DataSize(1, MEGABYTE), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"));
+
+        // the read-ahead and the read of the column chunk by the reader fail
+        delegate.failReads(2);
+        MessageColumnIO messageColumnIO = getColumnIO(SCHEMA, SCHEMA);
+        Field field = createFields(messageColumnIO, TYPES).get(0);
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, readFooter(file).getBlocks(), dataSource, newSimpleAggregatedMemoryContext(), new DataSize(1, MEGABYTE))) {
+            ListenableFuture<?> blocked = reader.isBlocked();
+            runTasks(tasks);
+            assertTrue(blocked.isDone());
+            blocked.get();
+
+            assertTrue(reader.nextBatch() > 0);
+            try {
+                reader.readBlock(field);
+                fail("expected UncheckedIOException");
+            }
+            catch (UncheckedIOException e) {
+                assertEquals(e.getCause().getMessage(), "read failed");
+            }
+        }
+    }
+
+    private static byte[] createFile()
+            throws Exception
+    {
+        List<Page> pages = new ArrayList<>();
+        for (int start = 0; start < ROW_COUNT; start += 100) {
+            BlockBuilder ids = BIGINT.createBlockBuilder(null, 100);
+            for (int row = start; row < start + 100; row++) {
+                BIGINT.writeLong(ids, row);
+            }
+            pages.add(new Page(ids.build()));
+        }
+        // small row groups, so that the file has several of them
+        ParquetWriterOptions options = new ParquetWriterOptions()
+                .withMaxPageSize(new DataSize(1, KILOBYTE))
+                .withMaxRowGroupSize(new DataSize(8, KILOBYTE));
+        byte[] file = writeParquetFile(SCHEMA, TYPES, options, pages);
+        assertTrue(readFooter(file).getBlocks().size() > 1);
+        return file;
+    }
+
+    private static void runTasks(List<Runnable> tasks)
+    {
+        List<Runnable> queuedTasks = ImmutableList.copyOf(tasks);
+        tasks.clear();
+        queuedTasks.forEach(Runnable::run);
+    }
+
+    private static void assertRead(ParquetDataSource dataSource, long position, int length)
+    {
+        byte[] buffer = new byte[length];
+        dataSource.readFully(position, buffer);
+        assertEquals(buffer, Arrays.copyOfRange(DATA, (int) position, (int) position + length));
+    }
+
+    private static byte[] createData(int size)
+    {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private static class TestingDataSource
+            extends TestingParquetDataSource
+    {
+        private final List<Long> reads = new CopyOnWriteArrayList<>();
+        private volatile int failedReads;
+        private volatile CountDownLatch readStarted;
+        private volatile CountDownLatch readReleased;
+        private volatile boolean closed;
+        private volatile boolean readAfterClose;
+
+        public TestingDataSource(byte[] data)
+        {
+            super(data);
+        }
+
+        public void failReads(int count)
+        {
+            failedReads = count;
+        }
+
+        public void blockReads(CountDownLatch readStarted, CountDownLatch readReleased)
+        {
+            this.readStarted = readStarted;
+            this.readReleased = readReleased;
+        }
+
+        public List<Long> getReads()
+        {
+            return ImmutableList.copyOf(reads);
+        }
+
+        public boolean isClosed()
+        {
+            return closed;
+        }
+
+        public boolean isReadAfterClose()
+        {
+            return readAfterClose;
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+        {
+            reads.add(position);
+            if (readStarted != null) {
+                readStarted.countDown();
+                try {
+                    readReleased.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            readAfterClose |= closed;
+            if (failedReads > 0) {
+                failedReads--;
+                throw new UncheckedIOException(new IOException("read failed"));
+            }
+            super.readFully(position, buffer, bufferOffset, bufferLength);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.dictionary;
+
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static io.prestosql.parquet.dictionary.TestRleBitPackingHybridDecoder.createValues;
+import static io.prestosql.parquet.dictionary.TestRleBitPackingHybridDecoder.encode;
+
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations = 20, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkRleBitPackingHybridDecoder
+{
+    private static final int VALUE_COUNT = 100_000;
+    private static final int BATCH_SIZE = 1024;
+
+    @Benchmark
+    public int[] readParquetDecoder(BenchmarkData data)
+            throws IOException
+    {
+        RunLengthBitPackingHybridDecoder decoder = new RunLengthBitPackingHybridDecoder(data.bitWidth, new ByteArrayInputStream(data.data));
+        int[] values = data.values;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i % BATCH_SIZE] = decoder.readInt();
+        }
+        return values;
+    }
+
+    @Benchmark
+    public int[] readInt(BenchmarkData data)
+            throws IOException
+    {
+        RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(data.bitWidth, data.data, 0, data.data.length);
+        int[] values = data.values;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i % BATCH_SIZE] = decoder.readInt();
+        }
+        return values;
+    }
+
+    @Benchmark
+    public int[] readInts(BenchmarkData data)
+            throws IOException
+    {
+        RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(data.bitWidth, data.data, 0, data.data.length);
+        int[] values = data.values;
+        for (int i = 0; i < VALUE_COUNT; i += BATCH_SIZE) {
+            decoder.readInts(values, 0, Math.min(BATCH_SIZE, VALUE_COUNT - i));
+        }
+        return values;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"1", "7", "12", "20"})
+        private int bitWidth;
+
+        private byte[] data;
+        private final int[] values = new int[BATCH_SIZE];
+
+        @Setup
+        public void setup()
+        {
+            data = encode(bitWidth, createValues(bitWidth, VALUE_COUNT));
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkRleBitPackingHybridDecoder.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.dictionary;
+
+import io.prestosql.parquet.ParquetCorruptionException;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridDecoder;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestRleBitPackingHybridDecoder
+{
+    @Test
+    public void testRepeatedRun()
+            throws ParquetCorruptionException
+    {
+        // header 10 << 1 for a run of 10 values, followed by the value 300 in two bytes
+        byte[] data = {20, (byte) 0x2C, 0x01};
+        RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(9, data, 0, data.length);
+        int[] values = new int[10];
+        decoder.readInts(values, 0, 10);
+        for (int value : values) {
+            assertEquals(value, 300);
+        }
+    }
+
+    @Test
+    public void testZeroBitWidth()
+            throws ParquetCorruptionException
+    {
+        byte[] data = {8};
+        RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(0, data, 0, data.length);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(decoder.readInt(), 0);
+        }
+    }
+
+    @Test
+    public void testMatchesParquetDecoder()
+            throws IOException
+    {
+        for (int bitWidth : new int[] {1, 3, 8, 13, 20, 32}) {
+            int[] values = createValues(bitWidth, 1000);
+            byte[] data = encode(bitWidth, values);
+
+            RunLengthBitPackingHybridDecoder expected = new RunLengthBitPackingHybridDecoder(bitWidth, new ByteArrayInputStream(data));
+            RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(bitWidth, data, 0, data.length);
+            int[] actual = new int[values.length];
+            int position = 0;
+            while (position < values.length) {
+                // mix single value and batch reads so that reads span runs
+                actual[position] = decoder.readInt();
+                position++;
+                int batchSize = Math.min(37, values.length - position);
+                decoder.readInts(actual, position, batchSize);
+                position += batchSize;
+            }
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(expected.readInt(), values[i]);
+                assertEquals(actual[i], values[i], "bitWidth " + bitWidth + ", position " + i);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = ParquetCorruptionException.class)
+    public void testTruncatedRepeatedRun()
+            throws ParquetCorruptionException
+    {
+        // the header of a run of 10 values is followed by only one of the two bytes of the value
+        byte[] data = {20, (byte) 0x2C};
+        RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(9, data, 0, data.length);
+        decoder.readInt();
+    }
+
+    @Test(expectedExceptions = ParquetCorruptionException.class)
+    public void testReadPastEnd()
+            throws ParquetCorruptionException
+    {
+        byte[] data = {4, 7};
+        RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(3, data, 0, data.length);
+        int[] values = new int[3];
+        decoder.readInts(values, 0, 3);
+    }
+
+    @Test
+    public void testTruncatedLastBitPackedGroup()
+            throws ParquetCorruptionException
+    {
+        // one group of eight 8 bit values, of which only the first three bytes are present
+        byte[] data = {3, 1, 2, 3};
+        RleBitPackingHybridDecoder decoder = new RleBitPackingHybridDecoder(8, data, 0, data.length);
+        int[] values = new int[3];
+        decoder.readInts(values, 0, 3);
+        assertEquals(values, new int[] {1, 2, 3});
+    }
+
+    static int[] createValues(int bitWidth, int count)
+    {
+        Random random = new Random(bitWidth);
+        int[] values = new int[count];
+        int position = 0;
+        while (position < count) {
+            int value = bitWidth == 32 ? random.nextInt() : random.nextInt(1 << bitWidth);
+            // alternate between runs of one value and runs of distinct values
+            int runLength = Math.min(random.nextInt(50) + 1, count - position);
+            boolean repeated = random.nextBoolean();
+            for (int i = 0; i < runLength; i++) {
+                values[position] = repeated ? value : (bitWidth == 32 ? random.nextInt() : random.nextInt(1 << bitWidth));
+                position++;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Encodes values as repeated runs for groups of eight equal values, and as
+     * bit-packed runs otherwise.
+     */
+    static byte[] encode(int bitWidth, int[] values)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < values.length) {
+            int runEnd = position + 1;
+            while (runEnd < values.length && values[runEnd] == values[position]) {
+                runEnd++;
+            }
+            if (runEnd - position >= 8 || runEnd == values.length) {
+                writeVarInt(out, (runEnd - position) << 1);
+                for (int i = 0; i < (bitWidth + 7) / 8; i++) {
+                    out.write(values[position] >>> (i * 8));
+                }
+                position = runEnd;
+            }
+            else {
+                int groupCount = Math.max(1, Math.min((values.length - position) / 8, 4));
+                writeVarInt(out, (groupCount << 1) | 1);
+                long buffer = 0;
+                int bufferedBits = 0;
+                for (int i = 0; i < groupCount * 8; i++) {
+                    int value = position + i < values.length ? values[position + i] : 0;
+                    buffer |= (value & 0xFFFF_FFFFL) << bufferedBits;
+                    bufferedBits += bitWidth;
+                    while (bufferedBits >= 8) {
+                        out.write((int) buffer);
+                        buffer >>>= 8;
+                        bufferedBits -= 8;
+                    }
+                }
+                if (bufferedBits > 0) {
+                    out.write((int) buffer);
+                }
+                position += groupCount * 8;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.parquet.DataPage;
+import io.prestosql.parquet.Field;
+import io.prestosql.parquet.TestingParquetDataSource;
+import io.prestosql.parquet.predicate.Predicate;
+import io.prestosql.parquet.writer.ParquetWriterOptions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.type.Type;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.parquet.ParquetTestUtils.createFields;
+import static io.prestosql.parquet.ParquetTestUtils.readFileMetadata;
+import static io.prestosql.parquet.ParquetTestUtils.readFooter;
+import static io.prestosql.parquet.ParquetTestUtils.writeParquetFile;
+import static io.prestosql.parquet.ParquetTypeUtils.getColumnIO;
+import static io.prestosql.parquet.ParquetTypeUtils.getDescriptors;
+import static io.prestosql.parquet.predicate.PredicateUtils.buildPredicate;
+import static io.prestosql.spi.predicate.Range.range;
+import static io.prestosql.spi.predicate.ValueSet.ofRanges;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static java.lang.Math.toIntExact;
+import static org.apache.parquet.schema.MessageTypeParser.parseMessageType;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestParquetReader
+{
+    private static final MessageType SCHEMA = parseMessageType("message test { optional int64 id; optional double value; }");
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, DOUBLE);
+    private static final int ROW_COUNT = 20_000;
+
+    @Test
+    public void testPageIndexesWritten()
+            throws Exception
+    {
+        ParquetFileMetadata fileMetadata = readFileMetadata(writeFile());
+        Map<Long, PageIndexLocation> pageIndexLocations = fileMetadata.getPageIndexLocations();
+        for (BlockMetaData rowGroup : fileMetadata.getParquetMetadata().getBlocks()) {
+            for (ColumnChunkMetaData column : rowGroup.getColumns()) {
+                PageIndexLocation location = pageIndexLocations.get(column.getStartingPos());
+                assertNotNull(location, "page index location of " + column);
+                assertTrue(location.hasColumnIndex());
+                // the indexes are written after the row groups
+                assertTrue(location.getColumnIndexOffset() >= column.getStartingPos() + column.getTotalSize());
+                assertTrue(location.getOffsetIndexOffset() > location.getColumnIndexOffset());
+            }
+        }
+    }
+
+    @Test
+    public void testSkipPagesByColumnIndex()
+            throws Exception
+    {
+        byte[] file = writeFile();
+        testSkipPagesByPredicate(file, readFileMetadata(file).getPageIndexLocations());
+    }
+
+    @Test
+    public void testSkipPagesByPageHeaders()
+            throws Exception
+    {
+        testSkipPagesByPredicate(writeFile(), ImmutableMap.of());
+    }
+
+    private static void testSkipPagesByPredicate(byte[] file, Map<Long, PageIndexLocation> pageIndexLocations)
+            throws Exception
+    {
+        List<BlockMetaData> rowGroups = readFooter(file).getBlocks();
+        assertTrue(rowGroups.size() > 1);
+
+        // select the ids of a page in the middle of a row group, so that the rows of the pages
+        // before and after it are skipped, as are the rows of all other row groups
+        long groupStart = 0;
+        for (BlockMetaData rowGroup : rowGroups) {
+            List<Integer> idPageRowCounts = getPageRowCounts(file, rowGroup.getColumns().get(0));
+            if (idPageRowCounts.size() < 3) {
+                groupStart += rowGroup.getRowCount();
+                continue;
+            }
+            int page = idPageRowCounts.size() / 2;
+            long pageStart = groupStart + idPageRowCounts.subList(0, page).stream().mapToLong(Integer::longValue).sum();
+            long pageEnd = pageStart + idPageRowCounts.get(page);
+
+            // the predicate only matches the statistics of the selected page, and the reader returns all of its rows
+            ReadResult result = readRows(file, pageIndexLocations, createPredicate(pageStart + 1, pageEnd - 2));
+            List<Long> expectedIds = new ArrayList<>();
+            for (long id = pageStart; id < pageEnd; id++) {
+                expectedIds.add(id);
+            }
+            assertEquals(result.getIds(), expectedIds);
+            assertValuesAligned(result);
+
+            // only the pages of the selected row group that end before the selected page are dropped while
+            // seeking, the pages of the other row groups and those after the selected page are never read
+            long skippedRows = pageStart - groupStart;
+            long expectedSkippedPages = 0;
+            for (ColumnChunkMetaData column : rowGroup.getColumns()) {
+                expectedSkippedPages += countPagesBefore(getPageRowCounts(file, column), skippedRows);
+            }
+            assertTrue(expectedSkippedPages >= page);
+            assertEquals(result.getSkippedPageCount(), expectedSkippedPages);
+
+            long rowGroupSize = rowGroup.getColumns().stream()
+                    .mapToLong(ColumnChunkMetaData::getTotalSize)
+                    .sum();
+            if (pageIndexLocations.isEmpty()) {
+                // the id column chunks of all row groups are read for the statistics in their page headers
+                long idColumnSize = rowGroups.stream()
+                        .mapToLong(block -> block.getColumns().get(0).getTotalSize())
+                        .sum();
+                assertTrue(result.getReadBytes() >= idColumnSize);
+            }
+            else {
+                // only the page indexes and the pages with selected rows are read
+                assertTrue(result.getReadBytes() < rowGroupSize, "read " + result.getReadBytes() + " bytes of a row group of " + rowGroupSize + " bytes");
+            }
+            return;
+        }
+        fail("no row group has enough pages");
+    }
+
+    @Test
+    public void testReadWithoutPredicate()
+            throws Exception
+    {
+        byte[] file = writeFile();
+        ReadResult result = readRows(file, readFileMetadata(file).getPageIndexLocations(), TupleDomain.all());
+        List<Long> expectedIds = new ArrayList<>();
+        for (long id = 0; id < ROW_COUNT; id++) {
+            expectedIds.add(id);
+        }
+        assertEquals(result.getIds(), expectedIds);
+        assertValuesAligned(result);
+        assertEquals(result.getSkippedPageCount(), 0);
+        // without a predicate the page indexes are not read
+        assertEquals(result.getReadBytes(), readFooter(file).getBlocks().stream()
+                .flatMap(block -> block.getColumns().stream())
+                .mapToLong(ColumnChunkMetaData::getTotalSize)
+                .sum());
+    }
+
+    private static void assertValuesAligned(ReadResult result)
+    {
+        for (int row = 0; row < result.getIds().size(); row++) {
+            long id = result.getIds().get(row);
+            assertEquals(result.getValues().get(row), (id % 5 == 0) ? null : id * 1.5, "value of id " + id);
+        }
+    }
+
+    private static long countPagesBefore(List<Integer> pageRowCounts, long rowCount)
+    {
+        long pages = 0;
+        long pageEnd = 0;
+        for (int pageRowCount : pageRowCounts) {
+            pageEnd += pageRowCount;
+            if (pageEnd > rowCount) {
+                break;
+            }
+            pages++;
+        }
+        return pages;
+    }
+
+    private static byte[] writeFile()
+            throws IOException
+    {
+        // small pages and row groups, so that the column chunks have several pages, and the
+        // nulls of the value column move its page boundaries away from those of the id column
+        ParquetWriterOptions options = new ParquetWriterOptions()
+                .withMaxPageSize(new DataSize(1, KILOBYTE))
+                .withMaxRowGroupSize(new DataSize(16, KILOBYTE));
+        List<Page> pages = new ArrayList<>();
+        for (int start = 0; start < ROW_COUNT; start += 10) {
+            pages.add(createPage(start, 10));
+        }
+        return writeParquetFile(SCHEMA, TYPES, options, pages);
+    }
+
+    private static Page createPage(int start, int positionCount)
+    {
+        BlockBuilder ids = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder values = DOUBLE.createBlockBuilder(null, positionCount);
+        for (int row = start; row < start + positionCount; row++) {
+            BIGINT.writeLong(ids, row);
+            if (row % 5 == 0) {
+                values.appendNull();
+            }
+            else {
+                DOUBLE.writeDouble(values, row * 1.5);
+            }
+        }
+        return new Page(ids.build(), values.build());
+    }
+
+    private static TupleDomain<ColumnDescriptor> createPredicate(long minId, long maxId)
+    {
+        ColumnDescriptor id = getColumnIO(SCHEMA, SCHEMA).getLeaves().get(0).getColumnDescriptor();
+        return TupleDomain.withColumnDomains(ImmutableMap.of(id, Domain.create(ofRanges(range(BIGINT, minId, true, maxId, true)), false)));
+    }
+
+    private static List<Integer> getPageRowCounts(byte[] file, ColumnChunkMetaData metadata)
+            throws IOException
+    {
+        ColumnDescriptor column = SCHEMA.getColumnDescription(metadata.getPath().toArray());
+        int size = toIntExact(metadata.getTotalSize());
+        byte[] buffer = new byte[size];
+        System.arraycopy(file, toIntExact(metadata.getStartingPos()), buffer, 0, size);
+        PageReader pageReader = new ParquetColumnChunk(new ColumnChunkDescriptor(column, metadata, size), buffer, 0).readAllPages();
+
+        ImmutableList.Builder<Integer> rowCounts = ImmutableList.builder();
+        for (DataPage page : pageReader.getRemainingPages()) {
+            rowCounts.add(page.getValueCount());
+        }
+        return rowCounts.build();
+    }
+
+    private static ReadResult readRows(byte[] file, Map<Long, PageIndexLocation> pageIndexLocations, TupleDomain<ColumnDescriptor> parquetTupleDomain)
+            throws IOException
+    {
+        MessageColumnIO messageColumnIO = getColumnIO(SCHEMA, SCHEMA);
+        List<Field> fields = createFields(messageColumnIO, TYPES);
+        List<BlockMetaData> rowGroups = readFooter(file).getBlocks();
+        Predicate parquetPredicate = buildPredicate(SCHEMA, parquetTupleDomain, getDescriptors(SCHEMA, SCHEMA));
+
+        List<Long> ids = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        TestingParquetDataSource dataSource = new TestingParquetDataSource(file);
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, rowGroups, pageIndexLocations, dataSource, newSimpleAggregatedMemoryContext(), new DataSize(1, MEGABYTE), parquetPredicate, parquetTupleDomain, true)) {
+            for (int batchSize = reader.nextBatch(); batchSize > 0; batchSize = reader.nextBatch()) {
+                Block idBlock = reader.readBlock(fields.get(0));
+                Block valueBlock = reader.readBlock(fields.get(1));
+                assertEquals(idBlock.getPositionCount(), batchSize);
+                assertEquals(valueBlock.getPositionCount(), batchSize);
+                for (int position = 0; position < batchSize; position++) {
+                    ids.add(BIGINT.getLong(idBlock, position));
+                    values.add(valueBlock.isNull(position) ? null : DOUBLE.getDouble(valueBlock, position));
+                }
+            }
+            return new ReadResult(ids, values, reader.getSkippedPageCount(), dataSource.getReadBytes());
+        }
+    }
+
+    private static class ReadResult
+    {
+        private final List<Long> ids;
+        private final List<Double> values;
+        private final long skippedPageCount;
+        private final long readBytes;
+
+        public ReadResult(List<Long> ids, List<Double> values, long skippedPageCount, long readBytes)
+        {
+            this.ids = ids;
+            this.values = values;
+            this.skippedPageCount = skippedPageCount;
+            this.readBytes = readBytes;
+        }
+
+        public List<Long> getIds()
+        {
+            return ids;
+        }
+
+        public List<Double> getValues()
+        {
+            return values;
+        }
+
+        public long getSkippedPageCount()
+        {
+            return skippedPageCount;
+        }
+
+        public long getReadBytes()
+        {
+            return readBytes;
+        }
+    }
+}
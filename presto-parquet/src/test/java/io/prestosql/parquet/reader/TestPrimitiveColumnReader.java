@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.parquet.DataPage;
+import io.prestosql.parquet.DataPageV1;
+import io.prestosql.parquet.DictionaryPage;
+import io.prestosql.parquet.PrimitiveField;
+import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.column.values.ValuesWriter;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.prestosql.parquet.ParquetEncoding.PLAIN_DICTIONARY;
+import static io.prestosql.parquet.ParquetEncoding.RLE;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.apache.parquet.column.ParquetProperties.WriterVersion.PARQUET_1_0;
+import static org.apache.parquet.column.statistics.Statistics.getStatsBasedOnType;
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.apache.parquet.schema.MessageTypeParser.parseMessageType;
+import static org.apache.parquet.schema.Type.Repetition.REQUIRED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPrimitiveColumnReader
+{
+    private static final MessageType SCHEMA = parseMessageType("message test { required binary flat (UTF8); optional group parent { required binary nested (UTF8); } }");
+
+    @Test
+    public void testRequiredDictionaryColumn()
+            throws IOException
+    {
+        List<String> values = createValues(false);
+        List<ColumnChunk> columnChunks = readDictionaryColumn(new String[] {"flat"}, values, 7);
+
+        for (ColumnChunk columnChunk : columnChunks) {
+            assertTrue(columnChunk.getBlock() instanceof DictionaryBlock);
+        }
+        assertValues(columnChunks, values, 0);
+    }
+
+    @Test
+    public void testRequiredDictionaryColumnInOptionalGroup()
+            throws IOException
+    {
+        // the values of rows with a null parent are not stored, so the reader must not decode ids for them
+        List<String> values = createValues(true);
+        List<ColumnChunk> columnChunks = readDictionaryColumn(new String[] {"parent", "nested"}, values, 7);
+
+        assertValues(columnChunks, values, 1);
+    }
+
+    private static List<String> createValues(boolean withNulls)
+    {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (withNulls && i % 3 == 0) {
+                values.add(null);
+            }
+            else {
+                values.add("value" + (i % 5));
+            }
+        }
+        return values;
+    }
+
+    private static void assertValues(List<ColumnChunk> columnChunks, List<String> values, int maxDefinitionLevel)
+    {
+        int offset = 0;
+        for (ColumnChunk columnChunk : columnChunks) {
+            Block block = columnChunk.getBlock();
+            assertEquals(columnChunk.getDefinitionLevels().length, block.getPositionCount());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                String value = values.get(offset + position);
+                if (value == null) {
+                    assertEquals(columnChunk.getDefinitionLevels()[position], 0);
+                    assertTrue(block.isNull(position));
+                }
+                else {
+                    assertEquals(columnChunk.getDefinitionLevels()[position], maxDefinitionLevel);
+                    assertFalse(block.isNull(position));
+                    assertEquals(VARCHAR.getSlice(block, position).toStringUtf8(), value);
+                }
+            }
+            offset += block.getPositionCount();
+        }
+        assertEquals(offset, values.size());
+    }
+
+    /**
+     * Writes the values as dictionary encoded data pages of the specified number of rows,
+     * and reads them back in two batches which do not line up with the pages.
+     */
+    private static List<ColumnChunk> readDictionaryColumn(String[] path, List<String> values, int rowsPerPage)
+            throws IOException
+    {
+        ColumnDescriptor descriptor = SCHEMA.getColumnDescription(path);
+        PrimitiveType primitiveType = SCHEMA.getType(path).asPrimitiveType();
+        RichColumnDescriptor columnDescriptor = new RichColumnDescriptor(descriptor, primitiveType);
+
+        ParquetProperties parquetProperties = ParquetProperties.builder()
+                .withWriterVersion(PARQUET_1_0)
+                .build();
+        ValuesWriter valuesWriter = parquetProperties.newValuesWriter(descriptor);
+        ValuesWriter definitionLevelWriter = parquetProperties.newDefinitionLevelWriter(descriptor);
+
+        ImmutableList.Builder<DataPage> pages = ImmutableList.builder();
+        for (int start = 0; start < values.size(); start += rowsPerPage) {
+            int end = Math.min(start + rowsPerPage, values.size());
+            for (String value : values.subList(start, end)) {
+                if (value == null) {
+                    definitionLevelWriter.writeInteger(0);
+                }
+                else {
+                    definitionLevelWriter.writeInteger(descriptor.getMaxDefinitionLevel());
+                    valuesWriter.writeBytes(Binary.fromString(value));
+                }
+            }
+            assertEquals(valuesWriter.getEncoding().name(), PLAIN_DICTIONARY.name());
+            byte[] bytes = BytesInput.concat(definitionLevelWriter.getBytes(), valuesWriter.getBytes()).toByteArray();
+            pages.add(new DataPageV1(wrappedBuffer(bytes), end - start, bytes.length, getStatsBasedOnType(descriptor.getType()), RLE, RLE, PLAIN_DICTIONARY));
+            definitionLevelWriter.reset();
+            valuesWriter.reset();
+        }
+        org.apache.parquet.column.page.DictionaryPage dictionaryPage = valuesWriter.toDictPageAndClose();
+
+        PrimitiveColumnReader reader = PrimitiveColumnReader.createReader(columnDescriptor);
+        reader.setPageReader(new PageReader(
+                UNCOMPRESSED,
+                pages.build(),
+                new DictionaryPage(wrappedBuffer(dictionaryPage.getBytes().toByteArray()), dictionaryPage.getDictionarySize(), PLAIN_DICTIONARY)));
+        PrimitiveField field = new PrimitiveField(VARCHAR, 0, descriptor.getMaxDefinitionLevel(), primitiveType.getRepetition() == REQUIRED, columnDescriptor, 0);
+
+        int firstBatchSize = values.size() / 2 + 1;
+        reader.prepareNextRead(firstBatchSize);
+        ColumnChunk first = reader.readPrimitive(field);
+        reader.prepareNextRead(values.size() - firstBatchSize);
+        ColumnChunk second = reader.readPrimitive(field);
+        return ImmutableList.of(first, second);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.parquet.Field;
+import io.prestosql.parquet.TestingParquetDataSource;
+import io.prestosql.parquet.reader.ParquetReader;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.VariableWidthBlock;
+import io.prestosql.spi.type.Type;
+import org.apache.parquet.CorruptStatistics;
+import org.apache.parquet.VersionParser.ParsedVersion;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.parquet.ParquetTestUtils.createFields;
+import static io.prestosql.parquet.ParquetTestUtils.readFooter;
+import static io.prestosql.parquet.ParquetTestUtils.writeParquetFile;
+import static io.prestosql.parquet.ParquetTypeUtils.getColumnIO;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.parquet.VersionParser.parse;
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.apache.parquet.schema.MessageTypeParser.parseMessageType;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetWriter
+{
+    private static final MessageType SCHEMA = parseMessageType("message test { optional int64 id; optional binary name (UTF8); optional double value; }");
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, DOUBLE);
+
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        // small pages and row groups, so that the file has several of both
+        ParquetWriterOptions options = new ParquetWriterOptions()
+                .withMaxPageSize(new DataSize(1, KILOBYTE))
+                .withMaxRowGroupSize(new DataSize(8, KILOBYTE));
+        int rowCount = 5000;
+        List<Page> pages = new ArrayList<>();
+        for (int start = 0; start < rowCount; start += 100) {
+            pages.add(createPage(start, 100));
+        }
+        byte[] file = writeParquetFile(SCHEMA, TYPES, options, pages);
+
+        ParquetMetadata footer = readFooter(file);
+        List<BlockMetaData> rowGroups = footer.getBlocks();
+        assertTrue(rowGroups.size() > 1);
+        long firstRow = 0;
+        for (BlockMetaData rowGroup : rowGroups) {
+            Statistics<?> idStatistics = rowGroup.getColumns().get(0).getStatistics();
+            assertEquals(idStatistics.genericGetMin(), firstRow);
+            assertEquals(idStatistics.genericGetMax(), firstRow + rowGroup.getRowCount() - 1);
+            assertEquals(idStatistics.getNumNulls(), 0);
+            assertTrue(rowGroup.getColumns().get(1).getStatistics().hasNonNullValue());
+            firstRow += rowGroup.getRowCount();
+        }
+        assertEquals(firstRow, rowCount);
+
+        List<List<Object>> expected = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            expected.add(Arrays.asList((long) row, (row % 7 == 0) ? null : "name" + (row % 100), (row % 5 == 0) ? null : row * 1.5));
+        }
+        assertEquals(readRows(file, SCHEMA, TYPES), expected);
+    }
+
+    @Test
+    public void testCreatedBy()
+            throws Exception
+    {
+        byte[] file = writeParquetFile(SCHEMA, TYPES, new ParquetWriterOptions(), ImmutableList.of(createPage(0, 10)));
+        String createdBy = readFooter(file).getFileMetaData().getCreatedBy();
+
+        // parquet-mr only trusts the statistics of files with a created_by it can parse
+        ParsedVersion version = parse(createdBy);
+        assertEquals(version.application, "presto");
+        assertFalse(CorruptStatistics.shouldIgnoreStatistics(createdBy, BINARY));
+    }
+
+    @Test
+    public void testBinaryValuesAreCopied()
+            throws Exception
+    {
+        MessageType schema = parseMessageType("message test { optional binary name (UTF8); }");
+        List<Type> types = ImmutableList.of(VARCHAR);
+
+        byte[] data = "aabbccdd".getBytes(UTF_8);
+        Block block = new VariableWidthBlock(4, wrappedBuffer(data), new int[] {0, 2, 4, 6, 8}, Optional.empty());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ParquetWriter writer = new ParquetWriter(output, schema, types, UNCOMPRESSED, new ParquetWriterOptions(), ImmutableMap.of())) {
+            writer.write(new Page(block));
+            // the values are buffered until the row group is flushed, and must not depend on the input block
+            Arrays.fill(data, (byte) 'x');
+        }
+
+        assertEquals(
+                readRows(output.toByteArray(), schema, types),
+                ImmutableList.of(ImmutableList.of("aa"), ImmutableList.of("bb"), ImmutableList.of("cc"), ImmutableList.of("dd")));
+    }
+
+    private static Page createPage(int start, int positionCount)
+    {
+        BlockBuilder ids = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder names = VARCHAR.createBlockBuilder(null, positionCount);
+        BlockBuilder values = DOUBLE.createBlockBuilder(null, positionCount);
+        for (int row = start; row < start + positionCount; row++) {
+            BIGINT.writeLong(ids, row);
+            if (row % 7 == 0) {
+                names.appendNull();
+            }
+            else {
+                VARCHAR.writeString(names, "name" + (row % 100));
+            }
+            if (row % 5 == 0) {
+                values.appendNull();
+            }
+            else {
+                DOUBLE.writeDouble(values, row * 1.5);
+            }
+        }
+        return new Page(ids.build(), names.build(), values.build());
+    }
+
+    private static List<List<Object>> readRows(byte[] file, MessageType schema, List<Type> types)
+            throws IOException
+    {
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        List<Field> fields = createFields(messageColumnIO, types);
+        List<List<Object>> rows = new ArrayList<>();
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, readFooter(file).getBlocks(), new TestingParquetDataSource(file), newSimpleAggregatedMemoryContext(), new DataSize(1, MEGABYTE))) {
+            for (int batchSize = reader.nextBatch(); batchSize > 0; batchSize = reader.nextBatch()) {
+                List<Block> blocks = new ArrayList<>();
+                for (Field field : fields) {
+                    blocks.add(reader.readBlock(field));
+                }
+                for (int position = 0; position < batchSize; position++) {
+                    List<Object> row = new ArrayList<>();
+                    for (int channel = 0; channel < types.size(); channel++) {
+                        row.add(getValue(types.get(channel), blocks.get(channel), position));
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Object getValue(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+        if (BIGINT.equals(type)) {
+            return BIGINT.getLong(block, position);
+        }
+        if (DOUBLE.equals(type)) {
+            return DOUBLE.getDouble(block, position);
+        }
+        return VARCHAR.getSlice(block, position).toStringUtf8();
+    }
+}
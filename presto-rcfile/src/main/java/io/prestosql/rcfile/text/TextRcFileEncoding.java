@@ -21,6 +21,7 @@ import io.prestosql.spi.type.Type;
 import org.joda.time.DateTimeZone;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class TextRcFileEncoding
@@ -85,6 +86,26 @@ public class TextRcFileEncoding
         this.lastColumnTakesRest = lastColumnTakesRest;
     }
 
+    public Slice getNullSequence()
+    {
+        return nullSequence;
+    }
+
+    public byte getFieldSeparator()
+    {
+        return separators[0];
+    }
+
+    public Optional<Byte> getEscapeByte()
+    {
+        return Optional.ofNullable(escapeByte);
+    }
+
+    public boolean isLastColumnTakesRest()
+    {
+        return lastColumnTakesRest;
+    }
+
     @Override
     public ColumnEncoding booleanEncoding(Type type)
     {
@@ -173,6 +173,21 @@ public class LongArrayBlock
         return value;
     }
 
+    /**
+     * Returns the array holding the values of this block, for callers reading many values at once.
+     * The value at a position is at {@link #getRawValuesOffset()} plus the position. The array is
+     * shared with this block and must not be modified.
+     */
+    public long[] getRawValues()
+    {
+        return values;
+    }
+
+    public int getRawValuesOffset()
+    {
+        return arrayOffset;
+    }
+
     @Override
     public boolean mayHaveNull()
     {
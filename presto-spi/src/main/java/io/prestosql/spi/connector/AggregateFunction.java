@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.connector;
+
+import io.prestosql.spi.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An aggregate function offered to {@link ConnectorMetadata#applyAggregation}. The function
+ * is applied to the rows of each split, and produces the partial result of the function,
+ * which is combined with the partial results of the other splits by the engine.
+ */
+public class AggregateFunction
+{
+    private final String functionName;
+    private final List<ColumnHandle> inputs;
+    private final Type outputType;
+
+    public AggregateFunction(String functionName, List<ColumnHandle> inputs, Type outputType)
+    {
+        this.functionName = requireNonNull(functionName, "functionName is null");
+        this.inputs = unmodifiableList(new ArrayList<>(requireNonNull(inputs, "inputs is null")));
+        this.outputType = requireNonNull(outputType, "outputType is null");
+    }
+
+    /**
+     * Returns the name of the function, such as {@code count} or {@code max}.
+     */
+    public String getFunctionName()
+    {
+        return functionName;
+    }
+
+    /**
+     * Returns the columns the function is applied to. The list is empty for {@code count(*)}.
+     */
+    public List<ColumnHandle> getInputs()
+    {
+        return inputs;
+    }
+
+    /**
+     * Returns the type of the partial result, which is the intermediate type of the function.
+     */
+    public Type getOutputType()
+    {
+        return outputType;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AggregateFunction that = (AggregateFunction) o;
+        return Objects.equals(functionName, that.functionName) &&
+                Objects.equals(inputs, that.inputs) &&
+                Objects.equals(outputType, that.outputType);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(functionName, inputs, outputType);
+    }
+
+    @Override
+    public String toString()
+    {
+        return functionName + inputs + "::" + outputType;
+    }
+}
@@ -104,6 +104,43 @@ public interface ConnectorMetadata
         throw new PrestoException(GENERIC_INTERNAL_ERROR, "ConnectorMetadata getCommonPartitioningHandle() is implemented without getAlternativeLayout()");
     }
 
+    /**
+     * Attempt to push down the provided limit into the table layout.
+     * <p>
+     * Connectors can indicate whether they don't support limit pushdown or that the action had no effect
+     * by returning {@link Optional#empty()}. Connectors should expect this method to be called multiple times
+     * during the optimization of a given query.
+     * <p>
+     * If the connector can guarantee that the scan of the returned layout produces no more rows than the
+     * provided limit across all of its splits, it should set {@link LimitApplicationResult#isLimitGuaranteed()},
+     * which allows the engine to remove the limit from the plan.
+     */
+    default Optional<LimitApplicationResult<ConnectorTableLayoutHandle>> applyLimit(ConnectorSession session, ConnectorTableLayoutHandle tableLayoutHandle, long limit)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Attempt to push down the partial aggregation of the rows of each split into the table layout.
+     * <p>
+     * The scan of the returned layout must produce one row for each group of the rows of a split, and the
+     * engine combines the rows of all splits into the final result. Each row contains the values of the
+     * provided grouping columns, which are all columns of the table, and, for each aggregate, the partial
+     * result of its function in the column of {@link AggregationApplicationResult#getAggregateColumns()}.
+     * When there are no grouping columns, the scan must produce exactly one row for each split.
+     * <p>
+     * Connectors can indicate whether they don't support aggregation pushdown or that the action had no effect
+     * by returning {@link Optional#empty()}.
+     */
+    default Optional<AggregationApplicationResult<ConnectorTableLayoutHandle>> applyAggregation(
+            ConnectorSession session,
+            ConnectorTableLayoutHandle tableLayoutHandle,
+            List<AggregateFunction> aggregates,
+            List<ColumnHandle> groupingColumns)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Return a partitioning handle which the connector can transparently convert both {@code left} and {@code right} into.
      */
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.tests;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.prestosql.Session;
+import io.prestosql.execution.QueryInfo;
+import io.prestosql.operator.OperatorStats;
+import io.prestosql.spi.QueryId;
+import io.prestosql.tests.tpch.TpchQueryRunnerBuilder;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static io.prestosql.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDynamicFiltering
+        extends AbstractTestQueryFramework
+{
+    private static final long LINEITEM_COUNT = 60175;
+
+    public TestLocalDynamicFiltering()
+    {
+        super(() -> TpchQueryRunnerBuilder.builder().build());
+    }
+
+    @Test
+    public void testSelectiveBuildSide()
+    {
+        @Language("SQL") String sql = "SELECT l.orderkey, l.linenumber FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = 1";
+        for (String distribution : new String[] {"BROADCAST", "PARTITIONED"}) {
+            // the tpch connector ignores the domain handed to its page sources
+            assertQuery(dynamicFiltering(true, distribution), sql);
+            assertEquals(getProbeInputPositions(dynamicFiltering(true, distribution), sql), LINEITEM_COUNT);
+        }
+    }
+
+    @Test
+    public void testEmptyBuildSide()
+    {
+        @Language("SQL") String sql = "SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.custkey = -1";
+        // the probe side finishes as soon as the empty build side is published
+        assertQuery(dynamicFiltering(true, "BROADCAST"), sql, "SELECT 0");
+        assertQuery(dynamicFiltering(true, "PARTITIONED"), sql, "SELECT 0");
+    }
+
+    @Test
+    public void testOuterJoinIsNotFiltered()
+    {
+        @Language("SQL") String sql = "SELECT count(*) FROM lineitem l LEFT JOIN orders o ON l.orderkey = o.orderkey AND o.custkey = 1";
+        assertQuery(dynamicFiltering(true, "BROADCAST"), sql, "SELECT " + LINEITEM_COUNT);
+        assertEquals(getProbeInputPositions(dynamicFiltering(true, "BROADCAST"), sql), LINEITEM_COUNT);
+    }
+
+    private Session dynamicFiltering(boolean enabled, String joinDistributionType)
+    {
+        return Session.builder(getSession())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, String.valueOf(enabled))
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, joinDistributionType)
+                .build();
+    }
+
+    private long getProbeInputPositions(Session session, @Language("SQL") String sql)
+    {
+        DistributedQueryRunner queryRunner = (DistributedQueryRunner) getQueryRunner();
+        QueryId queryId = queryRunner.executeWithQueryId(session, sql).getQueryId();
+
+        SettableFuture<QueryInfo> finalQueryInfo = SettableFuture.create();
+        queryRunner.getCoordinator().addFinalQueryInfoListener(queryId, finalQueryInfo::set);
+        QueryInfo queryInfo = tryGetFutureValue(finalQueryInfo, 10, SECONDS)
+                .orElseThrow(() -> new AssertionError("Final query info never set"));
+        assertTrue(queryInfo.isFinalQueryInfo());
+
+        return queryInfo.getQueryStats().getOperatorSummaries().stream()
+                .filter(summary -> summary.getOperatorType().equals("LookupJoinOperator"))
+                .mapToLong(OperatorStats::getInputPositions)
+                .sum();
+    }
+}
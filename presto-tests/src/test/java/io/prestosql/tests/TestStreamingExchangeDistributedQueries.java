@@ -0,0 +1,36 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.tests;
+
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.tests.tpch.TpchQueryRunnerBuilder;
+
+/**
+ * Runs the distributed queries with the streaming exchange transport. The servers listen on
+ * ephemeral ports, which the nodes find in the announcements of the other nodes.
+ */
+public class TestStreamingExchangeDistributedQueries
+        extends AbstractTestQueries
+{
+    public TestStreamingExchangeDistributedQueries()
+    {
+        super(() -> TpchQueryRunnerBuilder.builder()
+                .setExtraProperties(ImmutableMap.<String, String>builder()
+                        .put("exchange.transport", "STREAMING")
+                        .put("exchange.streaming.port", "0")
+                        .put("exchange.streaming.shared-secret", "test-secret")
+                        .build())
+                .build());
+    }
+}